@@ -36,6 +36,10 @@ import static org.apache.flink.configuration.description.TextElement.text;
  * some storage between stages. Downstream tasks then fetch these records after the upstream tasks
  * finished. Such an exchange reduces the resources required to execute the job as it does not need
  * to run upstream and downstream tasks simultaneously.
+ *
+ * <p>With hybrid exchanges, downstream tasks can consume the records while upstream tasks are still
+ * running, but records are also persisted, so downstream tasks can be started whenever resources
+ * are available.
  */
 @PublicEvolving
 public enum BatchShuffleMode implements DescribedEnum {
@@ -60,7 +64,21 @@ public enum BatchShuffleMode implements DescribedEnum {
     ALL_EXCHANGES_BLOCKING(
             text(
                     "Upstream and downstream tasks run subsequently. This reduces the resource usage "
-                            + "as downstream tasks are started after upstream tasks finished."));
+                            + "as downstream tasks are started after upstream tasks finished.")),
+
+    /**
+     * Downstream tasks can run while upstream tasks are running, but do not need to.
+     *
+     * <p>Downstream tasks are started as soon as their upstream tasks are deployed and there are
+     * resources available. Records are served from memory to running downstream tasks and persisted
+     * for downstream tasks which are not running yet, so upstream tasks are never back-pressured by
+     * missing downstream tasks.
+     */
+    ALL_EXCHANGES_HYBRID(
+            text(
+                    "Downstream tasks are started as soon as upstream tasks are deployed and "
+                            + "resources are available. Records are persisted as well, so upstream "
+                            + "tasks do not depend on downstream tasks running simultaneously."));
 
     private final InlineElement description;
 
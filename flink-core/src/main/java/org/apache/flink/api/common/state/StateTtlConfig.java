@@ -298,6 +298,35 @@ public class StateTtlConfig implements Serializable {
             return this;
         }
 
+        /**
+         * Cleanup expired state using an expiry index maintained next to the local state.
+         *
+         * <p>Every state access registers the accessed key and namespace in a hierarchical timer
+         * wheel bucketed by expiration time. Upon every state access, and optionally upon every
+         * processed record, the wheel is advanced to the current time and only the entries whose
+         * bucket has elapsed are checked and cleaned up, so the work per access is proportional to
+         * the number of expired entries rather than to the state size. Entries which existed before
+         * the state was created, e.g. restored ones, are indexed incrementally in the background.
+         *
+         * <p>If configured, this strategy replaces the default incremental cleanup. An explicitly
+         * configured {@link #cleanupIncrementally(int, boolean)} still takes effect.
+         *
+         * <p>Note: At the moment the expiry index is implemented only for Heap state backend.
+         * Setting it for RocksDB will have no effect.
+         *
+         * <p>Note: The index keeps a reference to every indexed key and namespace which increases
+         * memory consumption of the state.
+         *
+         * @param runCleanupForEveryRecord run expiry index cleanup per each processed record
+         */
+        @Nonnull
+        public Builder cleanupWithExpiryIndex(boolean runCleanupForEveryRecord) {
+            strategies.put(
+                    CleanupStrategies.Strategies.EXPIRY_INDEX_CLEANUP,
+                    new ExpiryIndexCleanupStrategy(runCleanupForEveryRecord));
+            return this;
+        }
+
         /**
          * Disable default cleanup of expired state in background (enabled by default).
          *
@@ -353,7 +382,8 @@ public class StateTtlConfig implements Serializable {
         enum Strategies {
             FULL_STATE_SCAN_SNAPSHOT,
             INCREMENTAL_CLEANUP,
-            ROCKSDB_COMPACTION_FILTER
+            ROCKSDB_COMPACTION_FILTER,
+            EXPIRY_INDEX_CLEANUP
         }
 
         /** Base interface for cleanup strategies configurations. */
@@ -380,11 +410,22 @@ public class StateTtlConfig implements Serializable {
         @Nullable
         public IncrementalCleanupStrategy getIncrementalCleanupStrategy() {
             IncrementalCleanupStrategy defaultStrategy =
-                    isCleanupInBackground ? DEFAULT_INCREMENTAL_CLEANUP_STRATEGY : null;
+                    isCleanupInBackground && !inExpiryIndex()
+                            ? DEFAULT_INCREMENTAL_CLEANUP_STRATEGY
+                            : null;
             return (IncrementalCleanupStrategy)
                     strategies.getOrDefault(Strategies.INCREMENTAL_CLEANUP, defaultStrategy);
         }
 
+        public boolean inExpiryIndex() {
+            return getExpiryIndexCleanupStrategy() != null;
+        }
+
+        @Nullable
+        public ExpiryIndexCleanupStrategy getExpiryIndexCleanupStrategy() {
+            return (ExpiryIndexCleanupStrategy) strategies.get(Strategies.EXPIRY_INDEX_CLEANUP);
+        }
+
         public boolean inRocksdbCompactFilter() {
             return getRocksdbCompactFilterCleanupStrategy() != null;
         }
@@ -451,4 +492,20 @@ public class StateTtlConfig implements Serializable {
             return queryTimeAfterNumEntries;
         }
     }
+
+    /** Configuration of cleanup strategy using an expiry index of the local state. */
+    public static class ExpiryIndexCleanupStrategy implements CleanupStrategies.CleanupStrategy {
+        private static final long serialVersionUID = -4183615829624013525L;
+
+        /** Whether to run expiry index cleanup per each processed record. */
+        private final boolean runCleanupForEveryRecord;
+
+        private ExpiryIndexCleanupStrategy(boolean runCleanupForEveryRecord) {
+            this.runCleanupForEveryRecord = runCleanupForEveryRecord;
+        }
+
+        public boolean runCleanupForEveryRecord() {
+            return runCleanupForEveryRecord;
+        }
+    }
 }
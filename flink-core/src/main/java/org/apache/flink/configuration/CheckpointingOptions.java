@@ -243,4 +243,55 @@ public class CheckpointingOptions {
                                             + "The actual write buffer size is determined to be the maximum of the value of this option and option '%s'.",
                                     FS_SMALL_FILE_THRESHOLD.key()))
                     .withDeprecatedKeys("state.backend.fs.write-buffer-size");
+
+    /**
+     * Whether the file system checkpoint storage writes the state of one subtask for one checkpoint
+     * as segments of shared physical files.
+     */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<Boolean> FILE_MERGING_ENABLED =
+            ConfigOptions.key("state.checkpoints.file-merging.enabled")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Whether to merge the state files of one subtask for one checkpoint into fewer physical files. "
+                                    + "Each state handle becomes a segment of a physical file, which reduces the number "
+                                    + "of files and requests against the checkpoint file system. Savepoints and "
+                                    + "unaligned checkpoint channel state are not merged.");
+
+    /** The maximum size of a physical file that holds merged checkpoint state files. */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<MemorySize> FILE_MERGING_MAX_FILE_SIZE =
+            ConfigOptions.key("state.checkpoints.file-merging.max-file-size")
+                    .memoryType()
+                    .defaultValue(MemorySize.parse("32mb"))
+                    .withDescription(
+                            String.format(
+                                    "The size after which no more segments are appended to a physical file when '%s' is enabled. "
+                                            + "A single segment may exceed this size.",
+                                    FILE_MERGING_ENABLED.key()));
+
+    /**
+     * Whether the file system checkpoint storage acknowledges checkpoints once the state is durable
+     * on local disk and uploads it to the checkpoint directory in the background.
+     */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<Boolean> LOCAL_FIRST_ENABLED =
+            ConfigOptions.key("state.checkpoints.local-first.enabled")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            String.format(
+                                    "Whether tasks acknowledge a checkpoint as soon as its state files are durable on local disk, "
+                                            + "while the upload to the checkpoint directory continues in the background. "
+                                            + "The JobManager tracks the latest checkpoint that is completely uploaded, always "
+                                            + "retains it and restores from it if a newer checkpoint is not uploaded yet. "
+                                            + "Therefore, the completion of a checkpoint is only notified to the tasks and "
+                                            + "operator coordinators, e.g. to commit transactions, once it is completely uploaded. "
+                                            + "Requires '%s', whose directories hold the state files until they are uploaded. "
+                                            + "Each subtask uploads up to 4 files concurrently. The local copies are deleted "
+                                            + "after the upload and are not used for local recovery. Savepoints and unaligned "
+                                            + "checkpoint channel state are always written to the checkpoint directory directly. "
+                                            + "Has no effect if '%s' is enabled.",
+                                    LOCAL_RECOVERY.key(), FILE_MERGING_ENABLED.key()));
 }
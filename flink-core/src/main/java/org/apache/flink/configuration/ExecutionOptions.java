@@ -70,6 +70,12 @@ public class ExecutionOptions {
                                                     + "Such an exchange reduces the resources required to execute the "
                                                     + "job as it does not need to run upstream and downstream "
                                                     + "tasks simultaneously.")
+                                    .linebreak()
+                                    .text(
+                                            "With hybrid exchanges, downstream tasks can already consume the "
+                                                    + "data while the upstream tasks are running, but records are "
+                                                    + "persisted as well, so that downstream tasks can be started "
+                                                    + "whenever resources are available.")
                                     .build());
 
     /**
@@ -88,12 +88,18 @@ public class NettyShuffleEnvironmentOptions {
                                     + "ratio is high.");
 
     /** The codec to be used when compressing shuffle data. */
-    @Documentation.ExcludeFromDocumentation("Currently, LZ4 is the only legal option.")
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
     public static final ConfigOption<String> SHUFFLE_COMPRESSION_CODEC =
             key("taskmanager.network.compression.codec")
                     .stringType()
                     .defaultValue("LZ4")
-                    .withDescription("The codec to be used when compressing shuffle data.");
+                    .withDescription(
+                            "The codec to be used when compressing shuffle data, either \"LZ4\", "
+                                    + "\"ZSTD\" or \"SNAPPY\". LZ4 is the fastest codec, ZSTD "
+                                    + "achieves the highest compression ratio at the cost of more "
+                                    + "CPU time and SNAPPY lies in between. The fully qualified "
+                                    + "class name of a custom BlockCompressionFactory can be "
+                                    + "used as well.");
 
     /**
      * Boolean flag to enable/disable more detailed metrics about inbound/outbound network queue
@@ -260,6 +266,61 @@ public class NettyShuffleEnvironmentOptions {
                                     // this raw value must be changed correspondingly
                                     "taskmanager.memory.framework.off-heap.batch-shuffle.size"));
 
+    /**
+     * Whether the sort-merge blocking shuffle serves data to remote consumers directly from the
+     * shuffle data file.
+     */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Boolean> NETWORK_SORT_SHUFFLE_DIRECT_FILE_TRANSFER_ENABLED =
+            key("taskmanager.network.sort-shuffle.direct-file-transfer.enabled")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Boolean flag indicating whether the sort-merge blocking shuffle "
+                                    + "transfers data to remote consumers from the shuffle data "
+                                    + "file directly (zero-copy via sendfile) instead of reading "
+                                    + "it into the batch shuffle read buffers first. It saves "
+                                    + "CPU and memory copies but gives up the IO scheduling of "
+                                    + "the sort-merge reader, so it is more effective on fast "
+                                    + "disks such as SSDs. It has no effect when SSL is enabled "
+                                    + "for data transport, as encryption can not be done on the "
+                                    + "file region.");
+
+    /** Whether records are serialized directly into the network buffers. */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Boolean> NETWORK_DIRECT_RECORD_SERIALIZATION_ENABLED =
+            key("taskmanager.network.direct-record-serialization.enabled")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Boolean flag indicating whether records are serialized directly "
+                                    + "into the network buffers of the result partition instead "
+                                    + "of into an intermediate heap buffer from which they are "
+                                    + "copied afterwards. Records which do not fit into the "
+                                    + "remaining space of the current buffer still take the "
+                                    + "intermediate path. Broadcast records and batches are not "
+                                    + "affected.");
+
+    /**
+     * Number of finished buffers a pipelined subpartition accumulates before notifying a local
+     * input channel of the data availability.
+     */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Integer> NETWORK_LOCAL_CHANNEL_NOTIFICATION_BATCH_SIZE =
+            key("taskmanager.network.local-channel.notification-batch-size")
+                    .intType()
+                    .defaultValue(1)
+                    .withDescription(
+                            "Number of finished buffers a pipelined subpartition accumulates "
+                                    + "before it notifies a consuming input channel in the same "
+                                    + "TaskManager of the new data. Larger values wake up the "
+                                    + "consuming task less often and save per-buffer "
+                                    + "synchronization between co-located tasks, at the cost of "
+                                    + "latency which is bounded by the buffer timeout. Events, "
+                                    + "flushes and an exhausted output buffer pool always notify "
+                                    + "the consumer immediately. The default value 1 notifies on "
+                                    + "every finished buffer.");
+
     /** Number of max buffers can be used for each output subparition. */
     @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
     public static final ConfigOption<Integer> NETWORK_MAX_BUFFERS_PER_CHANNEL =
@@ -324,6 +385,27 @@ public class NettyShuffleEnvironmentOptions {
                                     + " to a smaller value before you "
                                     + "enable tcp connection reuse.");
 
+    /**
+     * Whether to stripe the input channels of an input gate across the tcp connections to the same
+     * task manager. The number of connections is limited by {@link #MAX_NUM_TCP_CONNECTIONS}.
+     */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Boolean> TCP_CONNECTION_STRIPE_BY_CHANNEL_ENABLED =
+            key("taskmanager.network.tcp-connection.stripe-by-channel")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Whether to stripe the input channels of an input gate across all tcp "
+                                    + "connections to the same upstream task manager. By default, "
+                                    + "all channels of an input gate share a single connection, so "
+                                    + "a slow or backpressured subpartition can delay the data of "
+                                    + "the others (head-of-line blocking). When enabled, the "
+                                    + "channels are spread over up to "
+                                    + MAX_NUM_TCP_CONNECTIONS.key()
+                                    + " connections, so this option only has an effect if "
+                                    + MAX_NUM_TCP_CONNECTIONS.key()
+                                    + " is larger than its default of 1.");
+
     // ------------------------------------------------------------------------
     //  Netty Options
     // ------------------------------------------------------------------------
@@ -399,6 +481,54 @@ public class NettyShuffleEnvironmentOptions {
                                     + " based on the platform. Note that the \"epoll\" mode can get better performance, less GC and have more advanced features which are"
                                     + " only available on modern Linux.");
 
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Boolean> TCP_NO_DELAY =
+            key("taskmanager.network.netty.tcp-no-delay")
+                    .booleanType()
+                    .defaultValue(true)
+                    .withDescription(
+                            "Whether to disable Nagle's algorithm (TCP_NODELAY) on the data "
+                                    + "connections. Netty already batches the shuffle data into "
+                                    + "network buffers and flushes explicitly, so disabling it "
+                                    + "avoids additional latency. Setting it to false lets the "
+                                    + "kernel coalesce small writes such as credit announcements "
+                                    + "and events.");
+
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Integer> EPOLL_BUSY_POLL_MICROS =
+            key("taskmanager.network.netty.epoll.busy-poll")
+                    .intType()
+                    .defaultValue(0) // default: 0 => disabled
+                    .withDescription(
+                            "The time in microseconds to busy poll the network device for new "
+                                    + "data (SO_BUSY_POLL) on the data connections before "
+                                    + "sleeping. It trades CPU for lower receive latency and "
+                                    + "only takes effect with the \"epoll\" transport on Linux "
+                                    + "kernels and network drivers supporting busy polling. The "
+                                    + "value 0 disables busy polling.");
+
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Integer> WRITE_BUFFER_LOW_WATER_MARK =
+            key("taskmanager.network.netty.write-buffer.low-watermark")
+                    .intType()
+                    .defaultValue(32 * 1024)
+                    .withDescription(
+                            "The number of bytes pending in the outbound buffer of a data "
+                                    + "connection below which a connection that exceeded the "
+                                    + "high watermark becomes writable again.");
+
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Integer> WRITE_BUFFER_HIGH_WATER_MARK =
+            key("taskmanager.network.netty.write-buffer.high-watermark")
+                    .intType()
+                    .defaultValue(64 * 1024)
+                    .withDescription(
+                            "The number of bytes pending in the outbound buffer of a data "
+                                    + "connection above which the connection becomes unwritable "
+                                    + "and the producer stops writing further buffers to it. "
+                                    + "Larger values keep fast links busy, smaller values "
+                                    + "reduce the in-flight data per connection.");
+
     // ------------------------------------------------------------------------
     //  Partition Request Options
     // ------------------------------------------------------------------------
@@ -96,4 +96,14 @@ public class StateBackendOptions {
                     .defaultValue(true)
                     .withDescription(
                             "Whether to expose state name as a variable if tracking latency.");
+
+    public static final ConfigOption<Boolean> HEAP_TIMING_WHEEL_TIMERS_ENABLED =
+            ConfigOptions.key("state.backend.heap.timer-service.timing-wheel.enabled")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Whether the heap state backend keeps timers in a hierarchical timing wheel "
+                                    + "instead of a binary heap. Registering and deleting timers then takes "
+                                    + "constant time, which helps jobs with many millions of timers per task. "
+                                    + "Snapshots are compatible with either implementation.");
 }
@@ -18,6 +18,7 @@
 package org.apache.flink.api.common.state;
 
 import org.apache.flink.api.common.state.StateTtlConfig.CleanupStrategies;
+import org.apache.flink.api.common.state.StateTtlConfig.ExpiryIndexCleanupStrategy;
 import org.apache.flink.api.common.state.StateTtlConfig.IncrementalCleanupStrategy;
 import org.apache.flink.api.common.state.StateTtlConfig.RocksdbCompactFilterCleanupStrategy;
 import org.apache.flink.api.common.time.Time;
@@ -74,6 +75,38 @@ public class StateTtlConfigTest {
         assertThat(incrementalCleanupStrategy.getCleanupSize(), is(5));
         assertThat(incrementalCleanupStrategy.runCleanupForEveryRecord(), is(false));
         assertThat(rocksdbCleanupStrategy.getQueryTimeAfterNumEntries(), is(1000L));
+        assertThat(cleanupStrategies.inExpiryIndex(), is(false));
+    }
+
+    @Test
+    public void testStateTtlConfigBuildWithExpiryIndex() {
+        StateTtlConfig ttlConfig =
+                StateTtlConfig.newBuilder(Time.seconds(1)).cleanupWithExpiryIndex(true).build();
+
+        CleanupStrategies cleanupStrategies = ttlConfig.getCleanupStrategies();
+        ExpiryIndexCleanupStrategy expiryIndexCleanupStrategy =
+                cleanupStrategies.getExpiryIndexCleanupStrategy();
+
+        assertThat(cleanupStrategies.inExpiryIndex(), is(true));
+        assertThat(expiryIndexCleanupStrategy, notNullValue());
+        assertThat(expiryIndexCleanupStrategy.runCleanupForEveryRecord(), is(true));
+        // the expiry index replaces the default incremental cleanup
+        assertThat(cleanupStrategies.getIncrementalCleanupStrategy(), nullValue());
+        assertThat(cleanupStrategies.inRocksdbCompactFilter(), is(true));
+    }
+
+    @Test
+    public void testStateTtlConfigBuildWithExpiryIndexAndIncrementalCleanup() {
+        StateTtlConfig ttlConfig =
+                StateTtlConfig.newBuilder(Time.seconds(1))
+                        .cleanupWithExpiryIndex(false)
+                        .cleanupIncrementally(10, false)
+                        .build();
+
+        CleanupStrategies cleanupStrategies = ttlConfig.getCleanupStrategies();
+
+        assertThat(cleanupStrategies.inExpiryIndex(), is(true));
+        assertThat(cleanupStrategies.getIncrementalCleanupStrategy().getCleanupSize(), is(10));
     }
 
     @Test
@@ -61,6 +61,9 @@ final class SavepointTaskStateManager implements TaskStateManager {
     public void reportIncompleteTaskStateSnapshots(
             CheckpointMetaData checkpointMetaData, CheckpointMetrics checkpointMetrics) {}
 
+    @Override
+    public void reportRemoteDurableCheckpoint(long checkpointId) {}
+
     @Override
     public boolean isTaskDeployedAsFinished() {
         return false;
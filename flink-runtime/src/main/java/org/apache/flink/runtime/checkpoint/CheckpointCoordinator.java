@@ -68,10 +68,12 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
@@ -184,6 +186,29 @@ public class CheckpointCoordinator {
      */
     private long lastCheckpointCompletionRelativeTime;
 
+    /**
+     * Completed checkpoints that are not remote durable yet, keyed by checkpoint id. They were
+     * acknowledged by some tasks before their state was uploaded to the checkpoint storage, or they
+     * wait for such an earlier checkpoint.
+     */
+    @GuardedBy("lock")
+    private final NavigableMap<Long, CompletedCheckpoint> checkpointsPendingRemoteUpload =
+            new TreeMap<>();
+
+    /**
+     * The id of the latest checkpoint whose state is completely stored in the checkpoint storage.
+     */
+    @GuardedBy("lock")
+    private long latestRemoteDurableCheckpointId = -1L;
+
+    /**
+     * The "notify complete" calls of the completed checkpoints that are not remote durable yet,
+     * keyed by checkpoint id. Tasks and coordinators commit side effects on these calls, so they
+     * are only sent once a restore can no longer fall back to an earlier checkpoint.
+     */
+    @GuardedBy("lock")
+    private final Map<Long, Runnable> completionNotificationsPendingRemoteUpload = new HashMap<>();
+
     /**
      * Flag whether a triggered checkpoint should immediately schedule the next checkpoint.
      * Non-volatile, because only accessed in synchronized scope
@@ -337,6 +362,10 @@ public class CheckpointCoordinator {
                     "Failed to create checkpoint storage at checkpoint coordinator side.", e);
         }
 
+        if (isPeriodicCheckpointingConfigured()) {
+            recoverRemoteDurability();
+        }
+
         try {
             // Make sure the checkpoint ID enumerator is running. Possibly
             // issues a blocking call to ZooKeeper.
@@ -1220,6 +1249,163 @@ public class CheckpointCoordinator {
         }
     }
 
+    /**
+     * Receives a notification that a task finished uploading the local state of a checkpoint, which
+     * it acknowledged before, to the checkpoint storage. Once all such tasks of a completed
+     * checkpoint reported, the checkpoint becomes the latest remote durable one.
+     *
+     * @param checkpointId of the checkpoint whose uploads completed
+     * @param executionAttemptId of the reporting task
+     */
+    public void receiveRemoteDurableAcknowledgement(
+            long checkpointId, ExecutionAttemptID executionAttemptId) {
+        synchronized (lock) {
+            if (shutdown) {
+                return;
+            }
+
+            final PendingCheckpoint pendingCheckpoint = pendingCheckpoints.get(checkpointId);
+            if (pendingCheckpoint != null) {
+                pendingCheckpoint.acknowledgeRemoteUpload(executionAttemptId);
+                return;
+            }
+
+            final CompletedCheckpoint completedCheckpoint =
+                    checkpointsPendingRemoteUpload.get(checkpointId);
+            if (completedCheckpoint != null
+                    && completedCheckpoint.acknowledgeRemoteUpload(executionAttemptId)) {
+                advanceRemoteDurability();
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the latest checkpoint whose state is completely stored in the checkpoint
+     * storage, or -1 if there is none yet.
+     */
+    public long getLatestRemoteDurableCheckpointId() {
+        synchronized (lock) {
+            return latestRemoteDurableCheckpointId;
+        }
+    }
+
+    private void trackRemoteDurability(
+            CompletedCheckpoint completedCheckpoint,
+            Set<ExecutionAttemptID> tasksWithPendingRemoteUploads) {
+        final long checkpointId = completedCheckpoint.getCheckpointID();
+        if (tasksWithPendingRemoteUploads.isEmpty() && checkpointsPendingRemoteUpload.isEmpty()) {
+            latestRemoteDurableCheckpointId =
+                    Math.max(latestRemoteDurableCheckpointId, checkpointId);
+            return;
+        }
+
+        LOG.debug(
+                "Checkpoint {} of job {} completed with {} tasks still uploading state and {} earlier checkpoints not remote durable.",
+                checkpointId,
+                job,
+                tasksWithPendingRemoteUploads.size(),
+                checkpointsPendingRemoteUpload.size());
+        // incremental snapshots reuse the state files of earlier checkpoints, so a checkpoint is
+        // only remote durable once all earlier checkpoints are
+        completedCheckpoint.setPendingRemoteUploads(tasksWithPendingRemoteUploads);
+        checkpointsPendingRemoteUpload.put(checkpointId, completedCheckpoint);
+    }
+
+    /**
+     * Marks the tracked checkpoints as remote durable in the order of their ids, up to the first
+     * checkpoint whose uploads are still pending.
+     */
+    private void advanceRemoteDurability() {
+        while (!checkpointsPendingRemoteUpload.isEmpty()
+                && !checkpointsPendingRemoteUpload
+                        .firstEntry()
+                        .getValue()
+                        .hasPendingRemoteUploads()) {
+            final CompletedCheckpoint checkpoint =
+                    checkpointsPendingRemoteUpload.pollFirstEntry().getValue();
+            checkpoint.markRemoteDurable();
+            latestRemoteDurableCheckpointId =
+                    Math.max(latestRemoteDurableCheckpointId, checkpoint.getCheckpointID());
+            LOG.info(
+                    "Checkpoint {} of job {} is completely stored in the checkpoint storage.",
+                    checkpoint.getCheckpointID(),
+                    job);
+            executor.execute(() -> removePendingRemoteUploadMarker(checkpoint));
+
+            final Runnable completionNotification =
+                    completionNotificationsPendingRemoteUpload.remove(checkpoint.getCheckpointID());
+            if (completionNotification != null) {
+                completionNotification.run();
+            }
+        }
+    }
+
+    private void removePendingRemoteUploadMarker(CompletedCheckpoint checkpoint) {
+        try {
+            PendingRemoteUploadMarker.remove(checkpoint);
+        } catch (IOException e) {
+            LOG.warn(
+                    "Could not remove the pending upload marker of checkpoint {} of job {}, it will not be considered remote durable after a failover.",
+                    checkpoint.getCheckpointID(),
+                    job,
+                    e);
+        }
+    }
+
+    /**
+     * The uploads of the tasks that acknowledged the tracked checkpoints may be lost with a
+     * failover, so these checkpoints never become remote durable and their completion is never
+     * notified. They are not tracked anymore, so that checkpoints after the restore can become
+     * remote durable.
+     */
+    private void abandonPendingRemoteUploads() {
+        for (CompletedCheckpoint checkpoint : checkpointsPendingRemoteUpload.values()) {
+            checkpoint.markRemoteUploadsLost();
+        }
+        checkpointsPendingRemoteUpload.clear();
+        completionNotificationsPendingRemoteUpload.clear();
+    }
+
+    /**
+     * Determines which of the checkpoints recovered from the completed checkpoint store are remote
+     * durable. A checkpoint whose pending upload marker still exists, and every checkpoint after
+     * it, was not remote durable before the failover, and the uploads of its state are lost.
+     */
+    private void recoverRemoteDurability() {
+        final List<CompletedCheckpoint> recoveredCheckpoints;
+        try {
+            recoveredCheckpoints = completedCheckpointStore.getAllCheckpoints();
+        } catch (Exception e) {
+            throw new FlinkRuntimeException(
+                    "Failed to retrieve the completed checkpoints of job " + job + '.', e);
+        }
+
+        boolean remoteUploadsLost = false;
+        for (CompletedCheckpoint checkpoint : recoveredCheckpoints) {
+            if (checkpoint.getProperties().isSavepoint()) {
+                continue;
+            }
+            if (!remoteUploadsLost) {
+                try {
+                    remoteUploadsLost = PendingRemoteUploadMarker.exists(checkpoint);
+                } catch (IOException e) {
+                    LOG.warn(
+                            "Could not check whether checkpoint {} of job {} is remote durable, assuming it is not.",
+                            checkpoint.getCheckpointID(),
+                            job,
+                            e);
+                    remoteUploadsLost = true;
+                }
+            }
+            if (remoteUploadsLost) {
+                checkpoint.markRemoteUploadsLost();
+            } else {
+                latestRemoteDurableCheckpointId =
+                        Math.max(latestRemoteDurableCheckpointId, checkpoint.getCheckpointID());
+            }
+        }
+    }
+
     /**
      * Try to complete the given pending checkpoint.
      *
@@ -1238,12 +1424,16 @@ public class CheckpointCoordinator {
         completedCheckpointStore.getSharedStateRegistry().checkpointCompleted(checkpointId);
 
         try {
+            // the pending checkpoint forgets its tasks when it is disposed during the finalization
+            final Set<ExecutionAttemptID> tasksWithPendingRemoteUploads =
+                    pendingCheckpoint.getTasksWithPendingRemoteUploads();
             completedCheckpoint = finalizeCheckpoint(pendingCheckpoint);
 
             // the pending checkpoint must be discarded after the finalization
             Preconditions.checkState(pendingCheckpoint.isDisposed() && completedCheckpoint != null);
 
             if (!props.isSavepoint()) {
+                trackRemoteDurability(completedCheckpoint, tasksWithPendingRemoteUploads);
                 lastSubsumed =
                         addCompletedCheckpointToStoreAndSubsumeOldest(
                                 checkpointId,
@@ -1299,11 +1489,28 @@ public class CheckpointCoordinator {
             dropSubsumedCheckpoints(checkpointId);
 
             // send the "notify complete" call to all vertices, coordinators, etc.
-            sendAcknowledgeMessages(
-                    pendingCheckpoint.getCheckpointPlan().getTasksToCommitTo(),
-                    checkpointId,
-                    completedCheckpoint.getTimestamp(),
-                    extractIdIfDiscardedOnSubsumed(lastSubsumed));
+            final List<ExecutionVertex> tasksToCommitTo =
+                    pendingCheckpoint.getCheckpointPlan().getTasksToCommitTo();
+            final long lastSubsumedCheckpointId = extractIdIfDiscardedOnSubsumed(lastSubsumed);
+            final Runnable completionNotification =
+                    () ->
+                            sendAcknowledgeMessages(
+                                    tasksToCommitTo,
+                                    checkpointId,
+                                    completedCheckpoint.getTimestamp(),
+                                    lastSubsumedCheckpointId);
+            if (checkpointsPendingRemoteUpload.containsKey(checkpointId)) {
+                // a restore falls back to an earlier checkpoint until this one is remote durable,
+                // so nothing must be committed on it yet
+                LOG.debug(
+                        "Deferring the completion notification of checkpoint {} of job {} until it is remote durable.",
+                        checkpointId,
+                        job);
+                completionNotificationsPendingRemoteUpload.put(
+                        checkpointId, completionNotification);
+            } else {
+                completionNotification.run();
+            }
         }
     }
 
@@ -1374,6 +1581,10 @@ public class CheckpointCoordinator {
             List<ExecutionVertex> tasksToAbort)
             throws CheckpointException {
         try {
+            if (!completedCheckpoint.isRemoteDurable()) {
+                // a recovered checkpoint must not be mistaken for a remote durable one
+                PendingRemoteUploadMarker.write(completedCheckpoint);
+            }
             final CompletedCheckpoint subsumedCheckpoint =
                     completedCheckpointStore.addCheckpointAndSubsumeOldestOne(
                             completedCheckpoint, checkpointsCleaner, this::scheduleTriggerRequest);
@@ -1621,9 +1832,31 @@ public class CheckpointCoordinator {
                 throw new IllegalStateException("CheckpointCoordinator is shut down");
             }
 
+            abandonPendingRemoteUploads();
+
             // Restore from the latest checkpoint
             CompletedCheckpoint latest = completedCheckpointStore.getLatestCheckpoint();
 
+            if (latest != null && !latest.isRemoteDurable()) {
+                // the background uploads of this checkpoint may have been lost with the failed
+                // tasks, fall back to the latest checkpoint which is known to be complete
+                final CompletedCheckpoint latestRemoteDurable = getLatestRemoteDurableCheckpoint();
+                if (latestRemoteDurable == null) {
+                    throw new IllegalStateException(
+                            String.format(
+                                    "Cannot restore job %s: checkpoint %d is not completely stored in the checkpoint storage, "
+                                            + "because the background uploads of its local-first tasks did not finish, "
+                                            + "and there is no earlier checkpoint which is.",
+                                    job, latest.getCheckpointID()));
+                }
+                LOG.info(
+                        "Checkpoint {} of job {} is not completely stored in the checkpoint storage, falling back to checkpoint {}.",
+                        latest.getCheckpointID(),
+                        job,
+                        latestRemoteDurable.getCheckpointID());
+                latest = latestRemoteDurable;
+            }
+
             if (latest == null) {
                 LOG.info("No checkpoint found during restore.");
 
@@ -1697,6 +1930,18 @@ public class CheckpointCoordinator {
         }
     }
 
+    @Nullable
+    private CompletedCheckpoint getLatestRemoteDurableCheckpoint() throws Exception {
+        final List<CompletedCheckpoint> checkpoints = completedCheckpointStore.getAllCheckpoints();
+        for (int i = checkpoints.size() - 1; i >= 0; i--) {
+            final CompletedCheckpoint checkpoint = checkpoints.get(i);
+            if (!checkpoint.getProperties().isSavepoint() && checkpoint.isRemoteDurable()) {
+                return checkpoint;
+            }
+        }
+        return null;
+    }
+
     private Map<OperatorID, OperatorState> extractOperatorStates(CompletedCheckpoint checkpoint) {
         Map<OperatorID, OperatorState> originalOperatorStates = checkpoint.getOperatorStates();
 
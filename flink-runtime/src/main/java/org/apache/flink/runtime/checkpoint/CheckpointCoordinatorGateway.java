@@ -43,4 +43,7 @@ public interface CheckpointCoordinatorGateway extends RpcGateway {
             ExecutionAttemptID executionAttemptID,
             long checkpointId,
             CheckpointMetrics checkpointMetrics);
+
+    void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId);
 }
@@ -53,9 +53,15 @@ public class CheckpointMetrics implements Serializable {
 
     private final long totalBytesPersisted;
 
+    /**
+     * Whether some state files of the checkpoint are still uploaded to the checkpoint storage in
+     * the background, after the task acknowledged the checkpoint.
+     */
+    private final boolean remoteUploadPending;
+
     @VisibleForTesting
     public CheckpointMetrics() {
-        this(UNSET, UNSET, UNSET, UNSET, UNSET, UNSET, false, 0L, 0L);
+        this(UNSET, UNSET, UNSET, UNSET, UNSET, UNSET, false, 0L, 0L, false);
     }
 
     public CheckpointMetrics(
@@ -67,7 +73,8 @@ public class CheckpointMetrics implements Serializable {
             long checkpointStartDelayNanos,
             boolean unalignedCheckpoint,
             long bytesPersistedOfThisCheckpoint,
-            long totalBytesPersisted) {
+            long totalBytesPersisted,
+            boolean remoteUploadPending) {
 
         // these may be "-1", in case the values are unknown or not set
         checkArgument(bytesProcessedDuringAlignment >= -1);
@@ -88,6 +95,7 @@ public class CheckpointMetrics implements Serializable {
         this.unalignedCheckpoint = unalignedCheckpoint;
         this.bytesPersistedOfThisCheckpoint = bytesPersistedOfThisCheckpoint;
         this.totalBytesPersisted = totalBytesPersisted;
+        this.remoteUploadPending = remoteUploadPending;
     }
 
     public long getBytesProcessedDuringAlignment() {
@@ -126,6 +134,10 @@ public class CheckpointMetrics implements Serializable {
         return totalBytesPersisted;
     }
 
+    public boolean isRemoteUploadPending() {
+        return remoteUploadPending;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -145,7 +157,8 @@ public class CheckpointMetrics implements Serializable {
                 && checkpointStartDelayNanos == that.checkpointStartDelayNanos
                 && unalignedCheckpoint == that.unalignedCheckpoint
                 && bytesPersistedOfThisCheckpoint == that.bytesPersistedOfThisCheckpoint
-                && totalBytesPersisted == that.totalBytesPersisted;
+                && totalBytesPersisted == that.totalBytesPersisted
+                && remoteUploadPending == that.remoteUploadPending;
     }
 
     @Override
@@ -159,7 +172,8 @@ public class CheckpointMetrics implements Serializable {
                 checkpointStartDelayNanos,
                 unalignedCheckpoint,
                 totalBytesPersisted,
-                bytesPersistedOfThisCheckpoint);
+                bytesPersistedOfThisCheckpoint,
+                remoteUploadPending);
     }
 
     @Override
@@ -183,6 +197,8 @@ public class CheckpointMetrics implements Serializable {
                 + bytesPersistedOfThisCheckpoint
                 + ", totalBytesPersisted="
                 + totalBytesPersisted
+                + ", remoteUploadPending="
+                + remoteUploadPending
                 + '}';
     }
 }
@@ -43,6 +43,7 @@ public class CheckpointMetricsBuilder {
     private boolean unalignedCheckpoint = false;
     private long totalBytesPersisted = -1L;
     private long bytesPersistedOfThisCheckpoint = -1L;
+    private boolean remoteUploadPending = false;
 
     public CheckpointMetricsBuilder setBytesProcessedDuringAlignment(
             long bytesProcessedDuringAlignment) {
@@ -139,6 +140,11 @@ public class CheckpointMetricsBuilder {
         return this;
     }
 
+    public CheckpointMetricsBuilder setRemoteUploadPending(boolean remoteUploadPending) {
+        this.remoteUploadPending = remoteUploadPending;
+        return this;
+    }
+
     public CheckpointMetrics build() {
         return new CheckpointMetrics(
                 checkStateAndGet(bytesProcessedDuringAlignment),
@@ -149,7 +155,8 @@ public class CheckpointMetricsBuilder {
                 checkpointStartDelayNanos,
                 unalignedCheckpoint,
                 bytesPersistedOfThisCheckpoint,
-                totalBytesPersisted);
+                totalBytesPersisted,
+                remoteUploadPending);
     }
 
     public CheckpointMetrics buildIncomplete() {
@@ -162,6 +169,7 @@ public class CheckpointMetricsBuilder {
                 checkpointStartDelayNanos,
                 unalignedCheckpoint,
                 bytesPersistedOfThisCheckpoint,
-                totalBytesPersisted);
+                totalBytesPersisted,
+                remoteUploadPending);
     }
 }
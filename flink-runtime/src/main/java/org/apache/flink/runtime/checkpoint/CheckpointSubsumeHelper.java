@@ -41,6 +41,9 @@ import java.util.Optional;
  *       incremental checkpoints may refer to a discarded state (@see <a
  *       href="https://issues.apache.org/jira/browse/FLINK-21351">FLINK-21351</a>).
  *   <li>Except when the job is stopped with savepoint when no future checkpoints will be made.
+ *   <li>The most recent checkpoint whose state is completely uploaded to the checkpoint storage
+ *       should be kept as well, because newer checkpoints might still depend on background uploads
+ *       of local-first tasks (see {@link CompletedCheckpoint#isRemoteDurable()}).
  * </ul>
  */
 class CheckpointSubsumeHelper {
@@ -54,11 +57,14 @@ class CheckpointSubsumeHelper {
         }
         CompletedCheckpoint latest = checkpoints.peekLast();
         Optional<CompletedCheckpoint> lastSubsumedCheckpoint = Optional.empty();
-        Optional<CompletedCheckpoint> latestNotSavepoint = getLatestNotSavepoint(checkpoints);
+        Optional<CompletedCheckpoint> latestNotSavepoint =
+                getLatestNotSavepoint(checkpoints, false);
+        Optional<CompletedCheckpoint> latestRemoteDurable =
+                getLatestNotSavepoint(checkpoints, true);
         Iterator<CompletedCheckpoint> iterator = checkpoints.iterator();
         while (checkpoints.size() > numRetain && iterator.hasNext()) {
             CompletedCheckpoint next = iterator.next();
-            if (canSubsume(next, latest, latestNotSavepoint)) {
+            if (canSubsume(next, latest, latestNotSavepoint, latestRemoteDurable)) {
                 // always return the subsumed checkpoint with larger checkpoint id.
                 if (!lastSubsumedCheckpoint.isPresent()
                         || next.getCheckpointID()
@@ -78,11 +84,12 @@ class CheckpointSubsumeHelper {
     }
 
     private static Optional<CompletedCheckpoint> getLatestNotSavepoint(
-            Deque<CompletedCheckpoint> completed) {
+            Deque<CompletedCheckpoint> completed, boolean remoteDurableOnly) {
         Iterator<CompletedCheckpoint> descendingIterator = completed.descendingIterator();
         while (descendingIterator.hasNext()) {
             CompletedCheckpoint next = descendingIterator.next();
-            if (!next.getProperties().isSavepoint()) {
+            if (!next.getProperties().isSavepoint()
+                    && (!remoteDurableOnly || next.isRemoteDurable())) {
                 return Optional.of(next);
             }
         }
@@ -92,7 +99,8 @@ class CheckpointSubsumeHelper {
     private static boolean canSubsume(
             CompletedCheckpoint next,
             CompletedCheckpoint latest,
-            Optional<CompletedCheckpoint> latestNonSavepoint) {
+            Optional<CompletedCheckpoint> latestNonSavepoint,
+            Optional<CompletedCheckpoint> latestRemoteDurable) {
         if (next == latest) {
             return false;
         } else if (next.getProperties().isSavepoint()) {
@@ -102,8 +110,10 @@ class CheckpointSubsumeHelper {
             // snapshots will be taken during this run
             return true;
         } else {
-            // Don't remove the latest non-savepoint lest invalidate future incremental snapshots
-            return latestNonSavepoint.filter(checkpoint -> checkpoint != next).isPresent();
+            // Don't remove the latest non-savepoint lest invalidate future incremental snapshots,
+            // nor the latest remote durable one which is the fallback if uploads get lost
+            return latestNonSavepoint.filter(checkpoint -> checkpoint != next).isPresent()
+                    && !latestRemoteDurable.filter(checkpoint -> checkpoint == next).isPresent();
         }
     }
 
@@ -21,6 +21,7 @@ package org.apache.flink.runtime.checkpoint;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.JobStatus;
 import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.jobgraph.OperatorID;
 import org.apache.flink.runtime.state.CompletedCheckpointStorageLocation;
 import org.apache.flink.runtime.state.SharedStateRegistry;
@@ -39,8 +40,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -110,6 +113,20 @@ public class CompletedCheckpoint implements Serializable, Checkpoint {
     /** Completed statistic for managing discard marker. */
     @Nullable private final transient CompletedCheckpointStats completedCheckpointStats;
 
+    /**
+     * Tasks that acknowledged this checkpoint before their state was completely uploaded to the
+     * checkpoint storage. Null if there are none left.
+     */
+    @Nullable private transient Set<ExecutionAttemptID> pendingRemoteUploads;
+
+    /**
+     * Whether the state of this checkpoint, or of an earlier checkpoint whose shared state it may
+     * reuse, is not completely stored in the checkpoint storage yet. The coordinator marks
+     * recovered checkpoints that were not remote durable when they were stored, see {@link
+     * PendingRemoteUploadMarker}.
+     */
+    private transient boolean remoteUploadPending;
+
     // ------------------------------------------------------------------------
 
     public CompletedCheckpoint(
@@ -188,6 +205,60 @@ public class CompletedCheckpoint implements Serializable, Checkpoint {
         return externalPointer;
     }
 
+    /**
+     * Returns whether all state of this checkpoint is stored in the checkpoint storage, i.e. no
+     * acknowledging task is still uploading local state files of this or an earlier checkpoint in
+     * the background.
+     */
+    public synchronized boolean isRemoteDurable() {
+        return !remoteUploadPending;
+    }
+
+    /**
+     * Marks this checkpoint as not remote durable until {@link #markRemoteDurable()} is called. The
+     * given tasks still upload state of this checkpoint, there may be none if the checkpoint only
+     * waits for earlier checkpoints.
+     */
+    synchronized void setPendingRemoteUploads(Set<ExecutionAttemptID> pendingRemoteUploads) {
+        this.pendingRemoteUploads =
+                pendingRemoteUploads.isEmpty() ? null : new HashSet<>(pendingRemoteUploads);
+        this.remoteUploadPending = true;
+    }
+
+    /** Returns whether tasks are still uploading state of this checkpoint itself. */
+    synchronized boolean hasPendingRemoteUploads() {
+        return pendingRemoteUploads != null;
+    }
+
+    /**
+     * Records that the given task finished uploading its state of this checkpoint.
+     *
+     * @return true if this acknowledgement completed the uploads of this checkpoint.
+     */
+    synchronized boolean acknowledgeRemoteUpload(ExecutionAttemptID executionAttemptId) {
+        if (pendingRemoteUploads != null
+                && pendingRemoteUploads.remove(executionAttemptId)
+                && pendingRemoteUploads.isEmpty()) {
+            pendingRemoteUploads = null;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void markRemoteDurable() {
+        pendingRemoteUploads = null;
+        remoteUploadPending = false;
+    }
+
+    /**
+     * Marks this checkpoint as never becoming remote durable, because the uploads of its state were
+     * lost with a failover.
+     */
+    synchronized void markRemoteUploadsLost() {
+        pendingRemoteUploads = null;
+        remoteUploadPending = true;
+    }
+
     public long getStateSize() {
         long result = 0L;
 
@@ -314,6 +385,15 @@ public class CompletedCheckpoint implements Serializable, Checkpoint {
                     exception = ExceptionUtils.firstOrSuppressed(e, exception);
                 }
 
+                // the marker would keep the location from being disposed
+                if (!isRemoteDurable()) {
+                    try {
+                        PendingRemoteUploadMarker.remove(CompletedCheckpoint.this);
+                    } catch (Exception e) {
+                        exception = ExceptionUtils.firstOrSuppressed(e, exception);
+                    }
+                }
+
                 // discard location as a whole
                 try {
                     storageLocation.disposeStorageLocation();
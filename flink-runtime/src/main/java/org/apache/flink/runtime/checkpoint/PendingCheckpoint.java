@@ -104,6 +104,9 @@ public class PendingCheckpoint implements Checkpoint {
     /** Set of acknowledged tasks. */
     private final Set<ExecutionAttemptID> acknowledgedTasks;
 
+    /** Acknowledged tasks that are still uploading their state to the checkpoint storage. */
+    private final Set<ExecutionAttemptID> tasksWithPendingRemoteUploads;
+
     /** The checkpoint properties. */
     private final CheckpointProperties props;
 
@@ -164,6 +167,7 @@ public class PendingCheckpoint implements Checkpoint {
                         ? Collections.emptySet()
                         : new HashSet<>(operatorCoordinatorsToConfirm);
         this.acknowledgedTasks = new HashSet<>(checkpointPlan.getTasksToWaitFor().size());
+        this.tasksWithPendingRemoteUploads = new HashSet<>();
         this.onCompletionPromise = checkNotNull(onCompletionPromise);
         this.pendingCheckpointStats = pendingCheckpointStats;
     }
@@ -225,6 +229,16 @@ public class PendingCheckpoint implements Checkpoint {
         return masterStates;
     }
 
+    /**
+     * Returns the acknowledged tasks whose state is not yet completely uploaded to the checkpoint
+     * storage.
+     */
+    public Set<ExecutionAttemptID> getTasksWithPendingRemoteUploads() {
+        synchronized (lock) {
+            return new HashSet<>(tasksWithPendingRemoteUploads);
+        }
+    }
+
     public boolean isFullyAcknowledged() {
         return areTasksFullyAcknowledged()
                 && areCoordinatorsFullyAcknowledged()
@@ -394,6 +408,10 @@ public class PendingCheckpoint implements Checkpoint {
                 acknowledgedTasks.add(executionAttemptId);
             }
 
+            if (metrics != null && metrics.isRemoteUploadPending()) {
+                tasksWithPendingRemoteUploads.add(executionAttemptId);
+            }
+
             long ackTimestamp = System.currentTimeMillis();
             if (operatorSubtaskStates != null && operatorSubtaskStates.isTaskDeployedAsFinished()) {
                 checkpointPlan.reportTaskFinishedOnRestore(vertex);
@@ -452,6 +470,18 @@ public class PendingCheckpoint implements Checkpoint {
         }
     }
 
+    /**
+     * Records that the given task finished uploading its state to the checkpoint storage.
+     *
+     * @param executionAttemptId of the task whose uploads completed
+     * @return true if the task was waited for, false otherwise
+     */
+    public boolean acknowledgeRemoteUpload(ExecutionAttemptID executionAttemptId) {
+        synchronized (lock) {
+            return !disposed && tasksWithPendingRemoteUploads.remove(executionAttemptId);
+        }
+    }
+
     private void updateOperatorState(
             ExecutionVertex vertex,
             TaskStateSnapshot operatorSubtaskStates,
@@ -573,6 +603,7 @@ public class PendingCheckpoint implements Checkpoint {
                 disposed = true;
                 notYetAcknowledgedTasks.clear();
                 acknowledgedTasks.clear();
+                tasksWithPendingRemoteUploads.clear();
                 cancelCanceller();
             }
         }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.checkpoint;
+
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.filesystem.FileStateHandle;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * An empty file next to the metadata of a completed checkpoint that exists as long as the
+ * checkpoint is not remote durable (see {@link CompletedCheckpoint#isRemoteDurable()}).
+ *
+ * <p>Whether a checkpoint is remote durable is not part of its metadata, which is written before
+ * the background uploads of local-first tasks finished. The marker is written before the checkpoint
+ * is added to the {@link CompletedCheckpointStore} and removed once it became remote durable, so
+ * that a checkpoint coordinator that recovers the checkpoint after a failover does not mistake it
+ * for a remote durable one.
+ *
+ * <p>Only checkpoints whose metadata is stored in a file system can have a marker, which are the
+ * only ones that support local-first acknowledgement.
+ */
+final class PendingRemoteUploadMarker {
+
+    static final String MARKER_FILE_NAME = "_pending_remote_upload";
+
+    private PendingRemoteUploadMarker() {}
+
+    static void write(CompletedCheckpoint checkpoint) throws IOException {
+        final Path markerPath = getMarkerPath(checkpoint);
+        if (markerPath != null) {
+            markerPath.getFileSystem().create(markerPath, FileSystem.WriteMode.OVERWRITE).close();
+        }
+    }
+
+    static void remove(CompletedCheckpoint checkpoint) throws IOException {
+        final Path markerPath = getMarkerPath(checkpoint);
+        if (markerPath != null) {
+            markerPath.getFileSystem().delete(markerPath, false);
+        }
+    }
+
+    static boolean exists(CompletedCheckpoint checkpoint) throws IOException {
+        final Path markerPath = getMarkerPath(checkpoint);
+        return markerPath != null && markerPath.getFileSystem().exists(markerPath);
+    }
+
+    @Nullable
+    private static Path getMarkerPath(CompletedCheckpoint checkpoint) {
+        final StreamStateHandle metadataHandle = checkpoint.getMetadataHandle();
+        if (!(metadataHandle instanceof FileStateHandle)) {
+            return null;
+        }
+        final Path metadataPath = ((FileStateHandle) metadataHandle).getFilePath();
+        return new Path(metadataPath.getParent(), MARKER_FILE_NAME);
+    }
+}
@@ -24,7 +24,6 @@ import org.apache.flink.runtime.io.network.logger.NetworkActionsLogger;
 import org.apache.flink.runtime.state.AbstractChannelStateHandle;
 import org.apache.flink.runtime.state.AbstractChannelStateHandle.StateContentMetaInfo;
 import org.apache.flink.runtime.state.CheckpointStateOutputStream;
-import org.apache.flink.runtime.state.CheckpointStreamFactory;
 import org.apache.flink.runtime.state.InputChannelStateHandle;
 import org.apache.flink.runtime.state.ResultSubpartitionStateHandle;
 import org.apache.flink.runtime.state.StreamStateHandle;
@@ -50,7 +49,6 @@ import java.util.concurrent.CompletableFuture;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.UUID.randomUUID;
-import static org.apache.flink.runtime.state.CheckpointedStateScope.EXCLUSIVE;
 import static org.apache.flink.util.ExceptionUtils.findThrowable;
 import static org.apache.flink.util.ExceptionUtils.rethrow;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -62,7 +60,7 @@ class ChannelStateCheckpointWriter {
     private static final Logger LOG = LoggerFactory.getLogger(ChannelStateCheckpointWriter.class);
 
     private final DataOutputStream dataStream;
-    private final CheckpointStateOutputStream checkpointStream;
+    private final ChannelStateOutputStream checkpointStream;
     private final ChannelStateWriteResult result;
     private final Map<InputChannelInfo, StateContentMetaInfo> inputChannelOffsets = new HashMap<>();
     private final Map<ResultSubpartitionInfo, StateContentMetaInfo> resultSubpartitionOffsets =
@@ -79,7 +77,7 @@ class ChannelStateCheckpointWriter {
             String taskName,
             int subtaskIndex,
             CheckpointStartRequest startCheckpointItem,
-            CheckpointStreamFactory streamFactory,
+            ChannelStateOutputStream.Factory streamFactory,
             ChannelStateSerializer serializer,
             RunnableWithException onComplete)
             throws Exception {
@@ -88,9 +86,30 @@ class ChannelStateCheckpointWriter {
                 subtaskIndex,
                 startCheckpointItem.getCheckpointId(),
                 startCheckpointItem.getTargetResult(),
-                streamFactory.createCheckpointStateOutputStream(EXCLUSIVE),
                 serializer,
-                onComplete);
+                onComplete,
+                streamFactory.create(
+                        startCheckpointItem.getCheckpointId(),
+                        startCheckpointItem.getLocationReference()));
+    }
+
+    private ChannelStateCheckpointWriter(
+            String taskName,
+            int subtaskIndex,
+            long checkpointId,
+            ChannelStateWriteResult result,
+            ChannelStateSerializer serializer,
+            RunnableWithException onComplete,
+            ChannelStateOutputStream stream) {
+        this(
+                taskName,
+                subtaskIndex,
+                checkpointId,
+                result,
+                serializer,
+                onComplete,
+                stream,
+                new DataOutputStream(stream));
     }
 
     @VisibleForTesting
@@ -109,8 +128,7 @@ class ChannelStateCheckpointWriter {
                 result,
                 serializer,
                 onComplete,
-                stream,
-                new DataOutputStream(stream));
+                ChannelStateOutputStream.of(stream));
     }
 
     @VisibleForTesting
@@ -123,6 +141,26 @@ class ChannelStateCheckpointWriter {
             RunnableWithException onComplete,
             CheckpointStateOutputStream checkpointStateOutputStream,
             DataOutputStream dataStream) {
+        this(
+                taskName,
+                subtaskIndex,
+                checkpointId,
+                result,
+                serializer,
+                onComplete,
+                ChannelStateOutputStream.of(checkpointStateOutputStream),
+                dataStream);
+    }
+
+    private ChannelStateCheckpointWriter(
+            String taskName,
+            int subtaskIndex,
+            long checkpointId,
+            ChannelStateWriteResult result,
+            ChannelStateSerializer serializer,
+            RunnableWithException onComplete,
+            ChannelStateOutputStream checkpointStateOutputStream,
+            DataOutputStream dataStream) {
         this.taskName = taskName;
         this.subtaskIndex = subtaskIndex;
         this.checkpointId = checkpointId;
@@ -214,7 +252,24 @@ class ChannelStateCheckpointWriter {
             return;
         }
         dataStream.flush();
-        StreamStateHandle underlying = checkpointStream.closeAndGetHandle();
+        // the handle of a file shared with other subtasks is only available once they are done
+        checkpointStream
+                .closeAndGetHandle()
+                .whenComplete(
+                        (underlying, error) -> {
+                            try {
+                                if (error != null) {
+                                    result.fail(error);
+                                } else {
+                                    completeResult(underlying);
+                                }
+                            } catch (Exception e) {
+                                result.fail(e);
+                            }
+                        });
+    }
+
+    private void completeResult(StreamStateHandle underlying) throws IOException {
         complete(
                 underlying,
                 result.inputChannelStateHandles,
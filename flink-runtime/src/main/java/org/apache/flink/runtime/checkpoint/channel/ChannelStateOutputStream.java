@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.checkpoint.channel;
+
+import org.apache.flink.core.fs.FSDataOutputStream;
+import org.apache.flink.runtime.state.CheckpointStateOutputStream;
+import org.apache.flink.runtime.state.CheckpointStorageLocationReference;
+import org.apache.flink.runtime.state.StreamStateHandle;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The stream the channel state of a subtask is written to for a checkpoint. Unlike a {@link
+ * CheckpointStateOutputStream}, it provides the handle to the written data asynchronously, so that
+ * several subtasks can write into one physical file which is only closed once all of them are done
+ * (see {@link MergedChannelStateFile}).
+ */
+abstract class ChannelStateOutputStream extends FSDataOutputStream {
+
+    /**
+     * Closes the stream and returns a future of the handle to the written data. The future may be
+     * completed by another request of the same writer thread. The handle may be null if nothing was
+     * written.
+     */
+    abstract CompletableFuture<StreamStateHandle> closeAndGetHandle() throws IOException;
+
+    /** Wraps the given stream which exclusively belongs to a single subtask. */
+    static ChannelStateOutputStream of(CheckpointStateOutputStream stream) {
+        return new ExclusiveStream(stream);
+    }
+
+    /** Creates the {@link ChannelStateOutputStream streams} of a subtask per checkpoint. */
+    @FunctionalInterface
+    interface Factory {
+        ChannelStateOutputStream create(
+                long checkpointId, CheckpointStorageLocationReference locationReference)
+                throws IOException;
+    }
+
+    /** A stream whose handle is available as soon as it is closed. */
+    private static final class ExclusiveStream extends ChannelStateOutputStream {
+        private final CheckpointStateOutputStream delegate;
+
+        private ExclusiveStream(CheckpointStateOutputStream delegate) {
+            this.delegate = checkNotNull(delegate);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public long getPos() throws IOException {
+            return delegate.getPos();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void sync() throws IOException {
+            delegate.sync();
+        }
+
+        @Override
+        CompletableFuture<StreamStateHandle> closeAndGetHandle() throws IOException {
+            return CompletableFuture.completedFuture(delegate.closeAndGetHandle());
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -108,6 +108,10 @@ interface ChannelStateWriteRequest {
                 "abort", checkpointId, writer -> writer.fail(cause), true);
     }
 
+    static ChannelStateWriteRequest skip(long checkpointId) {
+        return new CheckpointSkipRequest(checkpointId);
+    }
+
     static ThrowingConsumer<Throwable, Exception> recycle(Buffer[] flinkBuffers) {
         return unused -> {
             for (Buffer b : flinkBuffers) {
@@ -155,6 +159,31 @@ final class CheckpointStartRequest implements ChannelStateWriteRequest {
     }
 }
 
+/**
+ * Tells that the subtask is not going to write any channel state for the given checkpoint (and the
+ * previous ones), e.g. because the checkpoint is aligned or was aborted.
+ */
+final class CheckpointSkipRequest implements ChannelStateWriteRequest {
+    private final long checkpointId;
+
+    CheckpointSkipRequest(long checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+
+    @Override
+    public long getCheckpointId() {
+        return checkpointId;
+    }
+
+    @Override
+    public void cancel(Throwable cause) {}
+
+    @Override
+    public String toString() {
+        return "skip " + checkpointId;
+    }
+}
+
 enum CheckpointInProgressRequestState {
     NEW,
     EXECUTING,
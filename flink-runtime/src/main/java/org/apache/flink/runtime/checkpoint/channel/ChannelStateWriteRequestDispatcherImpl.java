@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.apache.flink.runtime.state.CheckpointedStateScope.EXCLUSIVE;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
@@ -38,7 +39,7 @@ final class ChannelStateWriteRequestDispatcherImpl implements ChannelStateWriteR
 
     private final Map<Long, ChannelStateCheckpointWriter>
             writers; // limited indirectly by results max size
-    private final CheckpointStorageWorkerView streamFactoryResolver;
+    private final ChannelStateOutputStream.Factory streamFactory;
     private final ChannelStateSerializer serializer;
     private final int subtaskIndex;
     private String taskName;
@@ -48,10 +49,27 @@ final class ChannelStateWriteRequestDispatcherImpl implements ChannelStateWriteR
             int subtaskIndex,
             CheckpointStorageWorkerView streamFactoryResolver,
             ChannelStateSerializer serializer) {
+        this(
+                taskName,
+                subtaskIndex,
+                (checkpointId, locationReference) ->
+                        ChannelStateOutputStream.of(
+                                streamFactoryResolver
+                                        .resolveCheckpointStorageLocation(
+                                                checkpointId, locationReference)
+                                        .createCheckpointStateOutputStream(EXCLUSIVE)),
+                serializer);
+    }
+
+    ChannelStateWriteRequestDispatcherImpl(
+            String taskName,
+            int subtaskIndex,
+            ChannelStateOutputStream.Factory streamFactory,
+            ChannelStateSerializer serializer) {
         this.taskName = taskName;
         this.subtaskIndex = subtaskIndex;
         this.writers = new HashMap<>();
-        this.streamFactoryResolver = checkNotNull(streamFactoryResolver);
+        this.streamFactory = checkNotNull(streamFactory);
         this.serializer = checkNotNull(serializer);
     }
 
@@ -95,8 +113,7 @@ final class ChannelStateWriteRequestDispatcherImpl implements ChannelStateWriteR
                 taskName,
                 subtaskIndex,
                 request,
-                streamFactoryResolver.resolveCheckpointStorageLocation(
-                        request.getCheckpointId(), request.getLocationReference()),
+                streamFactory,
                 serializer,
                 () -> writers.remove(request.getCheckpointId()));
     }
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.checkpoint.channel;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.checkpoint.channel.MergingChannelStateWriteRequestDispatcher.RegisterSubtaskRequest;
+import org.apache.flink.runtime.checkpoint.channel.MergingChannelStateWriteRequestDispatcher.ReleaseSubtaskRequest;
+import org.apache.flink.runtime.checkpoint.channel.MergingChannelStateWriteRequestDispatcher.SubtaskRequest;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.state.CheckpointStorageWorkerView;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Shares {@link ChannelStateWriteRequestExecutor executors} between the subtasks of the same job
+ * vertex running in this TaskManager. Up to a given number of subtasks use the same executor, and
+ * thereby write their channel state into the same file per checkpoint (see {@link
+ * MergingChannelStateWriteRequestDispatcher}). The subtasks sharing an executor write their channel
+ * state one after another, the remaining subtasks get further executors.
+ *
+ * <p>An executor is started when the first subtask is assigned to it and is closed when the last
+ * subtask using it is closed.
+ */
+@ThreadSafe
+final class ChannelStateWriteRequestExecutorFactory {
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ChannelStateWriteRequestExecutorFactory.class);
+
+    private static final Object LOCK = new Object();
+
+    @GuardedBy("LOCK")
+    private static final Map<Tuple2<JobID, JobVertexID>, List<SharedExecutor>> EXECUTORS =
+            new HashMap<>();
+
+    private ChannelStateWriteRequestExecutorFactory() {}
+
+    /**
+     * Returns an executor for the given subtask, that is backed by an executor shared with at most
+     * {@code maxSubtasksPerExecutor - 1} other subtasks of the same job vertex.
+     */
+    static ChannelStateWriteRequestExecutor getOrCreateExecutor(
+            JobID jobID,
+            JobVertexID jobVertexID,
+            String taskName,
+            int subtaskIndex,
+            CheckpointStorageWorkerView streamFactoryResolver,
+            int maxSubtasksPerExecutor) {
+        checkArgument(maxSubtasksPerExecutor > 0);
+        Tuple2<JobID, JobVertexID> key = Tuple2.of(jobID, jobVertexID);
+        SharedExecutor shared;
+        synchronized (LOCK) {
+            List<SharedExecutor> executors =
+                    EXECUTORS.computeIfAbsent(key, unused -> new ArrayList<>());
+            shared =
+                    executors.stream()
+                            .filter(executor -> executor.numSubtasks < maxSubtasksPerExecutor)
+                            .findFirst()
+                            .orElse(null);
+            if (shared == null) {
+                shared = new SharedExecutor(key, executors.size());
+                executors.add(shared);
+                shared.executor.start();
+            }
+            shared.numSubtasks++;
+        }
+        return new SubtaskExecutor(shared, taskName, subtaskIndex, streamFactoryResolver);
+    }
+
+    @VisibleForTesting
+    static int getNumberOfExecutors(JobID jobID, JobVertexID jobVertexID) {
+        synchronized (LOCK) {
+            List<SharedExecutor> executors = EXECUTORS.get(Tuple2.of(jobID, jobVertexID));
+            return executors == null ? 0 : executors.size();
+        }
+    }
+
+    private static void release(SharedExecutor shared) throws IOException {
+        synchronized (LOCK) {
+            if (--shared.numSubtasks > 0) {
+                return;
+            }
+            List<SharedExecutor> executors = EXECUTORS.get(shared.key);
+            executors.remove(shared);
+            if (executors.isEmpty()) {
+                EXECUTORS.remove(shared.key);
+            }
+        }
+        shared.executor.close();
+    }
+
+    private static final class SharedExecutor {
+        private final Tuple2<JobID, JobVertexID> key;
+        private final ChannelStateWriteRequestExecutorImpl executor;
+
+        @GuardedBy("LOCK")
+        private int numSubtasks;
+
+        private SharedExecutor(Tuple2<JobID, JobVertexID> key, int index) {
+            this.key = key;
+            this.executor =
+                    new ChannelStateWriteRequestExecutorImpl(
+                            String.format("%s (%d) of job %s", key.f1, index, key.f0),
+                            new MergingChannelStateWriteRequestDispatcher());
+        }
+    }
+
+    /** The view of a single subtask onto a {@link SharedExecutor}. */
+    private static final class SubtaskExecutor implements ChannelStateWriteRequestExecutor {
+        private final SharedExecutor shared;
+        private final RegisterSubtaskRequest registerRequest;
+        private boolean started;
+        private boolean closed;
+
+        private SubtaskExecutor(
+                SharedExecutor shared,
+                String taskName,
+                int subtaskIndex,
+                CheckpointStorageWorkerView streamFactoryResolver) {
+            this.shared = shared;
+            this.registerRequest =
+                    new RegisterSubtaskRequest(this, taskName, subtaskIndex, streamFactoryResolver);
+        }
+
+        @Override
+        public void start() throws IllegalStateException {
+            checkState(!started && !closed, "already started or closed");
+            started = true;
+            try {
+                shared.executor.submit(registerRequest);
+            } catch (Exception e) {
+                throw new IllegalStateException("unable to register subtask", e);
+            }
+        }
+
+        @Override
+        public void submit(ChannelStateWriteRequest request) throws Exception {
+            shared.executor.submit(new SubtaskRequest(this, request));
+        }
+
+        @Override
+        public void submitPriority(ChannelStateWriteRequest request) throws Exception {
+            shared.executor.submitPriority(new SubtaskRequest(this, request));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                shared.executor.submit(new ReleaseSubtaskRequest(this));
+            } catch (Exception e) {
+                LOG.debug("Unable to release subtask from channel state writer", e);
+            } finally {
+                release(shared);
+            }
+        }
+    }
+}
@@ -152,6 +152,13 @@ public interface ChannelStateWriter extends Closeable {
      */
     void abort(long checkpointId, Throwable cause, boolean cleanup);
 
+    /**
+     * Notifies that no channel state is going to be written for the given checkpoint, e.g. because
+     * it is an aligned checkpoint. Writers sharing resources with other subtasks use it to not wait
+     * for this subtask.
+     */
+    default void skipCheckpoint(long checkpointId) {}
+
     /**
      * Must be called after {@link #start(long, CheckpointOptions)} once.
      *
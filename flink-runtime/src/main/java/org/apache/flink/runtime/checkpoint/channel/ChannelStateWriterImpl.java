@@ -18,8 +18,15 @@
 package org.apache.flink.runtime.checkpoint.channel;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.metrics.MetricNames;
+import org.apache.flink.runtime.state.AbstractChannelStateHandle;
 import org.apache.flink.runtime.state.CheckpointStateOutputStream;
 import org.apache.flink.runtime.state.CheckpointStorageWorkerView;
 import org.apache.flink.util.CloseableIterator;
@@ -31,6 +38,7 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -49,6 +57,10 @@ import static org.apache.flink.runtime.checkpoint.channel.ChannelStateWriteReque
  *       and increases complexity
  * </ul>
  *
+ * <p>Alternatively, the subtasks of a job vertex running in the same TaskManager can share a
+ * thread, in which case their channel state of a checkpoint is written into a single file (see
+ * {@link ChannelStateWriteRequestExecutorFactory}).
+ *
  * <p>Thread-safety: this class is thread-safe when used with a thread-safe {@link
  * ChannelStateWriteRequestExecutor executor} (e.g. default {@link
  * ChannelStateWriteRequestExecutorImpl}.
@@ -66,6 +78,13 @@ public class ChannelStateWriterImpl implements ChannelStateWriter {
     private final ChannelStateWriteRequestExecutor executor;
     private final ConcurrentMap<Long, ChannelStateWriteResult> results;
     private final int maxCheckpoints;
+    private final boolean sharedExecutor;
+
+    /** Total size of the channel state written in the last completed checkpoint. */
+    private volatile long lastCheckpointSize = -1L;
+
+    /** Duration from start until completion of the last completed checkpoint in milliseconds. */
+    private volatile long lastCheckpointDuration = -1L;
 
     /**
      * Creates a {@link ChannelStateWriterImpl} with {@link #DEFAULT_MAX_CHECKPOINTS} as {@link
@@ -76,6 +95,40 @@ public class ChannelStateWriterImpl implements ChannelStateWriter {
         this(taskName, subtaskIndex, streamFactoryResolver, DEFAULT_MAX_CHECKPOINTS);
     }
 
+    /**
+     * Creates a {@link ChannelStateWriterImpl} that shares its writer thread and its files with up
+     * to {@code maxSubtasksPerChannelStateFile - 1} other subtasks of the same job vertex. If
+     * {@code maxSubtasksPerChannelStateFile} is 1, the writer uses a thread and files on its own.
+     */
+    public ChannelStateWriterImpl(
+            JobID jobID,
+            JobVertexID jobVertexID,
+            String taskName,
+            int subtaskIndex,
+            CheckpointStorageWorkerView streamFactoryResolver,
+            int maxSubtasksPerChannelStateFile) {
+        this(
+                taskName,
+                new ConcurrentHashMap<>(DEFAULT_MAX_CHECKPOINTS),
+                maxSubtasksPerChannelStateFile == 1
+                        ? new ChannelStateWriteRequestExecutorImpl(
+                                taskName,
+                                new ChannelStateWriteRequestDispatcherImpl(
+                                        taskName,
+                                        subtaskIndex,
+                                        streamFactoryResolver,
+                                        new ChannelStateSerializerImpl()))
+                        : ChannelStateWriteRequestExecutorFactory.getOrCreateExecutor(
+                                jobID,
+                                jobVertexID,
+                                taskName,
+                                subtaskIndex,
+                                streamFactoryResolver,
+                                maxSubtasksPerChannelStateFile),
+                DEFAULT_MAX_CHECKPOINTS,
+                maxSubtasksPerChannelStateFile > 1);
+    }
+
     /**
      * Creates a {@link ChannelStateWriterImpl} with {@link ChannelStateSerializerImpl default}
      * {@link ChannelStateSerializer}, and a {@link ChannelStateWriteRequestExecutorImpl}.
@@ -108,10 +161,20 @@ public class ChannelStateWriterImpl implements ChannelStateWriter {
             ConcurrentMap<Long, ChannelStateWriteResult> results,
             ChannelStateWriteRequestExecutor executor,
             int maxCheckpoints) {
+        this(taskName, results, executor, maxCheckpoints, false);
+    }
+
+    private ChannelStateWriterImpl(
+            String taskName,
+            ConcurrentMap<Long, ChannelStateWriteResult> results,
+            ChannelStateWriteRequestExecutor executor,
+            int maxCheckpoints,
+            boolean sharedExecutor) {
         this.taskName = taskName;
         this.results = results;
         this.maxCheckpoints = maxCheckpoints;
         this.executor = executor;
+        this.sharedExecutor = sharedExecutor;
     }
 
     @Override
@@ -136,6 +199,7 @@ public class ChannelStateWriterImpl implements ChannelStateWriter {
                                             result,
                                             checkpointOptions.getTargetLocation()),
                                     false);
+                            trackCompletion(result);
                             return result;
                         });
         Preconditions.checkArgument(
@@ -190,11 +254,22 @@ public class ChannelStateWriterImpl implements ChannelStateWriter {
         enqueue(
                 ChannelStateWriteRequest.abort(checkpointId, cause),
                 false); // abort enqueued but not started
+        if (sharedExecutor) {
+            enqueue(ChannelStateWriteRequest.skip(checkpointId), false);
+        }
         if (cleanup) {
             results.remove(checkpointId);
         }
     }
 
+    @Override
+    public void skipCheckpoint(long checkpointId) {
+        if (sharedExecutor) {
+            LOG.debug("{} skipping checkpoint {}", taskName, checkpointId);
+            enqueue(ChannelStateWriteRequest.skip(checkpointId), false);
+        }
+    }
+
     @Override
     public ChannelStateWriteResult getAndRemoveWriteResult(long checkpointId) {
         LOG.debug("{} requested write result, checkpoint {}", taskName, checkpointId);
@@ -209,6 +284,46 @@ public class ChannelStateWriterImpl implements ChannelStateWriter {
         executor.start();
     }
 
+    /**
+     * Registers the size and the duration of the last completed channel state checkpoint of this
+     * subtask.
+     */
+    public void registerMetrics(MetricGroup metricGroup) {
+        metricGroup.gauge(
+                MetricNames.CHANNEL_STATE_CHECKPOINT_SIZE,
+                (Gauge<Long>) this::getLastCheckpointSize);
+        metricGroup.gauge(
+                MetricNames.CHANNEL_STATE_CHECKPOINT_DURATION,
+                (Gauge<Long>) this::getLastCheckpointDuration);
+    }
+
+    @VisibleForTesting
+    long getLastCheckpointSize() {
+        return lastCheckpointSize;
+    }
+
+    @VisibleForTesting
+    long getLastCheckpointDuration() {
+        return lastCheckpointDuration;
+    }
+
+    private void trackCompletion(ChannelStateWriteResult result) {
+        long startNanos = System.nanoTime();
+        result.getInputChannelStateHandles()
+                .thenCombine(
+                        result.getResultSubpartitionStateHandles(),
+                        (input, output) -> getStateSize(input) + getStateSize(output))
+                .thenAccept(
+                        size -> {
+                            lastCheckpointSize = size;
+                            lastCheckpointDuration = (System.nanoTime() - startNanos) / 1_000_000;
+                        });
+    }
+
+    private static long getStateSize(Collection<? extends AbstractChannelStateHandle<?>> handles) {
+        return handles.stream().mapToLong(AbstractChannelStateHandle::getStateSize).sum();
+    }
+
     @Override
     public void close() throws IOException {
         LOG.debug("close, dropping checkpoints {}", results.keySet());
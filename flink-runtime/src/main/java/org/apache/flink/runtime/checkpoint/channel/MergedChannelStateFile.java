@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.checkpoint.channel;
+
+import org.apache.flink.runtime.state.CheckpointStateOutputStream;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.util.function.SupplierWithException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A single physical file into which several subtasks write their channel state of one checkpoint.
+ * Each subtask obtains its own {@link SubtaskStream}; the positions it reports are positions in the
+ * physical file so that the offsets recorded in the channel state handles can be used as is.
+ *
+ * <p>The physical file is closed once all the expected subtasks either closed their streams or
+ * declared that they won't write anything for this checkpoint. Subtasks that want a handle to the
+ * file have to wait for that moment via {@link SubtaskStream#closeAndGetHandle()}.
+ *
+ * <p>Thread-safety: all the methods must be called from the same (writer) thread.
+ */
+@NotThreadSafe
+class MergedChannelStateFile {
+    private static final Logger LOG = LoggerFactory.getLogger(MergedChannelStateFile.class);
+
+    private final long checkpointId;
+    private final Set<Object> pendingSubtasks;
+    private final Set<SubtaskStream> openStreams = new HashSet<>();
+    private final List<CompletableFuture<StreamStateHandle>> waitingForHandle = new ArrayList<>();
+    private final Runnable onFinished;
+    @Nullable private CheckpointStateOutputStream physicalStream;
+    private boolean finished;
+
+    MergedChannelStateFile(
+            long checkpointId, Collection<Object> expectedSubtasks, Runnable onFinished) {
+        this.checkpointId = checkpointId;
+        this.pendingSubtasks = new HashSet<>(expectedSubtasks);
+        this.onFinished = checkNotNull(onFinished);
+    }
+
+    /**
+     * Opens a stream for the given subtask. The physical file is created by the first subtask using
+     * the given factory.
+     */
+    SubtaskStream openStream(
+            Object subtask,
+            SupplierWithException<CheckpointStateOutputStream, IOException> streamFactory)
+            throws IOException {
+        checkState(!finished, "channel state file of checkpoint %s is closed", checkpointId);
+        if (physicalStream == null) {
+            physicalStream = streamFactory.get();
+        }
+        pendingSubtasks.remove(subtask);
+        SubtaskStream stream = new SubtaskStream(physicalStream);
+        openStreams.add(stream);
+        return stream;
+    }
+
+    /** Notifies that the given subtask is not going to write to this file. */
+    void skip(Object subtask) {
+        if (pendingSubtasks.remove(subtask)) {
+            finishIfDone();
+        }
+    }
+
+    /** Fails all the subtasks waiting for the handle and discards the file. */
+    void fail(Throwable cause) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        onFinished.run();
+        waitingForHandle.forEach(future -> future.completeExceptionally(cause));
+        discardPhysicalStream();
+    }
+
+    long getCheckpointId() {
+        return checkpointId;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    private void finishIfDone() {
+        if (finished || !pendingSubtasks.isEmpty() || !openStreams.isEmpty()) {
+            return;
+        }
+        finished = true;
+        onFinished.run();
+        if (waitingForHandle.isEmpty()) {
+            discardPhysicalStream();
+            return;
+        }
+        try {
+            StreamStateHandle handle = checkNotNull(physicalStream).closeAndGetHandle();
+            LOG.debug(
+                    "closed channel state file of checkpoint {} shared by {} subtasks: {}",
+                    checkpointId,
+                    waitingForHandle.size(),
+                    handle);
+            waitingForHandle.forEach(future -> future.complete(handle));
+        } catch (Throwable t) {
+            waitingForHandle.forEach(future -> future.completeExceptionally(t));
+        }
+    }
+
+    private void discardPhysicalStream() {
+        if (physicalStream == null) {
+            return;
+        }
+        try {
+            physicalStream.close();
+        } catch (IOException e) {
+            LOG.warn("Unable to discard channel state file of checkpoint {}", checkpointId, e);
+        }
+    }
+
+    /**
+     * The view of a single subtask onto the physical file. Closing it without requesting the handle
+     * means that the subtask doesn't need the data it has written.
+     */
+    final class SubtaskStream extends ChannelStateOutputStream {
+        private final CheckpointStateOutputStream delegate;
+        private boolean closed;
+
+        private SubtaskStream(CheckpointStateOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkOpen();
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkOpen();
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public long getPos() throws IOException {
+            return delegate.getPos();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // closing a wrapping stream flushes it first
+            if (!closed && !finished) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void sync() throws IOException {
+            checkOpen();
+            delegate.sync();
+        }
+
+        /**
+         * Closes this stream and returns a future of the handle to the physical file, completed
+         * once all the other subtasks have finished writing.
+         */
+        @Override
+        CompletableFuture<StreamStateHandle> closeAndGetHandle() throws IOException {
+            checkOpen();
+            CompletableFuture<StreamStateHandle> handle = new CompletableFuture<>();
+            waitingForHandle.add(handle);
+            close();
+            return handle;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                openStreams.remove(this);
+                finishIfDone();
+            }
+        }
+
+        private void checkOpen() throws IOException {
+            if (closed || finished) {
+                throw new IOException("Channel state stream is closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.checkpoint.channel;
+
+import org.apache.flink.runtime.state.CheckpointStorageLocationReference;
+import org.apache.flink.runtime.state.CheckpointStorageWorkerView;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.apache.flink.runtime.state.CheckpointedStateScope.EXCLUSIVE;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Dispatches the {@link ChannelStateWriteRequest requests} of several subtasks that share one
+ * writer thread. Each subtask keeps its own {@link ChannelStateWriteRequestDispatcherImpl}, but the
+ * streams it opens for a checkpoint all point into the same {@link MergedChannelStateFile}, so that
+ * the channel state of these subtasks ends up in a single file per checkpoint.
+ *
+ * <p>A file is expected to be written by all the subtasks that were registered when it was created
+ * and haven't moved past its checkpoint yet. A subtask moves past a checkpoint when it starts,
+ * skips or aborts a later one, or when it is released.
+ */
+@NotThreadSafe
+final class MergingChannelStateWriteRequestDispatcher
+        implements ChannelStateWriteRequestDispatcher {
+    private static final Logger LOG =
+            LoggerFactory.getLogger(MergingChannelStateWriteRequestDispatcher.class);
+
+    private final Map<Object, SubtaskDispatcher> subtasks = new HashMap<>();
+    private final Map<Long, MergedChannelStateFile> files = new HashMap<>();
+
+    @Override
+    public void dispatch(ChannelStateWriteRequest request) throws Exception {
+        LOG.trace("process {}", request);
+        if (request instanceof RegisterSubtaskRequest) {
+            RegisterSubtaskRequest register = (RegisterSubtaskRequest) request;
+            checkState(
+                    !subtasks.containsKey(register.subtask),
+                    "subtask already registered: %s",
+                    register.subtask);
+            subtasks.put(register.subtask, new SubtaskDispatcher(register));
+        } else if (request instanceof ReleaseSubtaskRequest) {
+            Object subtask = ((ReleaseSubtaskRequest) request).subtask;
+            SubtaskDispatcher dispatcher = subtasks.remove(subtask);
+            if (dispatcher != null) {
+                dispatcher.delegate.fail(new CancellationException("subtask released"));
+            }
+            forEachFile(file -> file.skip(subtask));
+        } else if (request instanceof SubtaskRequest) {
+            dispatch((SubtaskRequest) request);
+        } else {
+            throw new IllegalArgumentException("unknown request type: " + request);
+        }
+    }
+
+    private void dispatch(SubtaskRequest subtaskRequest) throws Exception {
+        ChannelStateWriteRequest request = subtaskRequest.request;
+        SubtaskDispatcher dispatcher = subtasks.get(subtaskRequest.subtask);
+        if (dispatcher == null) {
+            request.cancel(new IllegalStateException("subtask not registered"));
+            return;
+        }
+        long checkpointId = request.getCheckpointId();
+        if (request instanceof CheckpointStartRequest) {
+            moveSubtaskTo(dispatcher, checkpointId - 1);
+            if (!files.containsKey(checkpointId)) {
+                createFile(checkpointId);
+            }
+            dispatcher.lastCheckpointId = Math.max(dispatcher.lastCheckpointId, checkpointId);
+            dispatcher.delegate.dispatch(request);
+        } else if (request instanceof CheckpointSkipRequest) {
+            moveSubtaskTo(dispatcher, checkpointId);
+        } else {
+            dispatcher.delegate.dispatch(request);
+        }
+    }
+
+    /** Marks the given subtask as done with all the checkpoints up to the given one. */
+    private void moveSubtaskTo(SubtaskDispatcher dispatcher, long checkpointId) {
+        dispatcher.lastCheckpointId = Math.max(dispatcher.lastCheckpointId, checkpointId);
+        forEachFile(
+                file -> {
+                    if (file.getCheckpointId() <= checkpointId) {
+                        file.skip(dispatcher.subtask);
+                    }
+                });
+    }
+
+    private MergedChannelStateFile createFile(long checkpointId) {
+        List<Object> expectedSubtasks =
+                subtasks.values().stream()
+                        .filter(subtask -> subtask.lastCheckpointId < checkpointId)
+                        .map(subtask -> subtask.subtask)
+                        .collect(Collectors.toList());
+        MergedChannelStateFile file =
+                new MergedChannelStateFile(
+                        checkpointId, expectedSubtasks, () -> files.remove(checkpointId));
+        files.put(checkpointId, file);
+        return file;
+    }
+
+    private MergedChannelStateFile getOrCreateFile(long checkpointId) {
+        MergedChannelStateFile file = files.get(checkpointId);
+        return file == null ? createFile(checkpointId) : file;
+    }
+
+    private void forEachFile(Consumer<MergedChannelStateFile> action) {
+        // the action might finish the file and thereby remove it from the map
+        new ArrayList<>(files.values()).forEach(action);
+    }
+
+    @Override
+    public void fail(Throwable cause) {
+        for (SubtaskDispatcher dispatcher : subtasks.values()) {
+            dispatcher.delegate.fail(cause);
+        }
+        subtasks.clear();
+        forEachFile(file -> file.fail(cause));
+    }
+
+    /** The dispatcher of a single subtask along with its progress. */
+    private final class SubtaskDispatcher {
+        private final Object subtask;
+        private final CheckpointStorageWorkerView streamFactoryResolver;
+        private final ChannelStateWriteRequestDispatcherImpl delegate;
+        private long lastCheckpointId = -1L;
+
+        private SubtaskDispatcher(RegisterSubtaskRequest register) {
+            this.subtask = register.subtask;
+            this.streamFactoryResolver = register.streamFactoryResolver;
+            this.delegate =
+                    new ChannelStateWriteRequestDispatcherImpl(
+                            register.taskName,
+                            register.subtaskIndex,
+                            this::openStream,
+                            new ChannelStateSerializerImpl());
+        }
+
+        /**
+         * Opens a stream of this subtask into the {@link MergedChannelStateFile} of the given
+         * checkpoint, which the first subtask creates in its own checkpoint storage location.
+         */
+        private ChannelStateOutputStream openStream(
+                long checkpointId, CheckpointStorageLocationReference locationReference)
+                throws IOException {
+            return getOrCreateFile(checkpointId)
+                    .openStream(
+                            subtask,
+                            () ->
+                                    streamFactoryResolver
+                                            .resolveCheckpointStorageLocation(
+                                                    checkpointId, locationReference)
+                                            .createCheckpointStateOutputStream(EXCLUSIVE));
+        }
+    }
+
+    /** Registers a subtask with the dispatcher before it sends any other request. */
+    static final class RegisterSubtaskRequest implements ChannelStateWriteRequest {
+        private final Object subtask;
+        private final String taskName;
+        private final int subtaskIndex;
+        private final CheckpointStorageWorkerView streamFactoryResolver;
+
+        RegisterSubtaskRequest(
+                Object subtask,
+                String taskName,
+                int subtaskIndex,
+                CheckpointStorageWorkerView streamFactoryResolver) {
+            this.subtask = checkNotNull(subtask);
+            this.taskName = checkNotNull(taskName);
+            this.subtaskIndex = subtaskIndex;
+            this.streamFactoryResolver = checkNotNull(streamFactoryResolver);
+        }
+
+        @Override
+        public long getCheckpointId() {
+            return -1L;
+        }
+
+        @Override
+        public void cancel(Throwable cause) {}
+
+        @Override
+        public String toString() {
+            return "register " + taskName;
+        }
+    }
+
+    /** Releases a subtask, failing its ongoing checkpoints. */
+    static final class ReleaseSubtaskRequest implements ChannelStateWriteRequest {
+        private final Object subtask;
+
+        ReleaseSubtaskRequest(Object subtask) {
+            this.subtask = checkNotNull(subtask);
+        }
+
+        @Override
+        public long getCheckpointId() {
+            return -1L;
+        }
+
+        @Override
+        public void cancel(Throwable cause) {}
+
+        @Override
+        public String toString() {
+            return "release " + subtask;
+        }
+    }
+
+    /** A request sent by the given subtask. */
+    static final class SubtaskRequest implements ChannelStateWriteRequest {
+        private final Object subtask;
+        private final ChannelStateWriteRequest request;
+
+        SubtaskRequest(Object subtask, ChannelStateWriteRequest request) {
+            this.subtask = checkNotNull(subtask);
+            this.request = checkNotNull(request);
+        }
+
+        @Override
+        public long getCheckpointId() {
+            return request.getCheckpointId();
+        }
+
+        @Override
+        public void cancel(Throwable cause) throws Exception {
+            request.cancel(cause);
+        }
+
+        @Override
+        public String toString() {
+            return request + " of " + subtask;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.flink.runtime.checkpoint.MasterState;
 import org.apache.flink.runtime.checkpoint.OperatorState;
 import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
 import org.apache.flink.runtime.checkpoint.StateObjectCollection;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
 import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
 import org.apache.flink.runtime.state.InputChannelStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
@@ -46,6 +47,7 @@ import org.apache.flink.runtime.state.changelog.ChangelogStateHandleStreamImpl;
 import org.apache.flink.runtime.state.changelog.SequenceNumber;
 import org.apache.flink.runtime.state.changelog.StateChange;
 import org.apache.flink.runtime.state.changelog.inmemory.InMemoryChangelogStateHandle;
+import org.apache.flink.runtime.state.filemerging.SegmentFileStateHandle;
 import org.apache.flink.runtime.state.filesystem.AbstractFsCheckpointStorageAccess;
 import org.apache.flink.runtime.state.filesystem.FileStateHandle;
 import org.apache.flink.runtime.state.filesystem.RelativeFileStateHandle;
@@ -117,6 +119,7 @@ public abstract class MetadataV2V3SerializerBase {
     private static final byte INCREMENTAL_KEY_GROUPS_HANDLE_V2 = 11;
     // KEY_GROUPS_HANDLE_V2 is introduced to add new field of stateHandleId.
     private static final byte KEY_GROUPS_HANDLE_V2 = 12;
+    private static final byte SEGMENT_FILE_STREAM_STATE_HANDLE = 13;
 
     // ------------------------------------------------------------------------
     //  (De)serialization entry points
@@ -658,6 +661,14 @@ public abstract class MetadataV2V3SerializerBase {
             dos.writeLong(stateHandle.getStateSize());
             dos.writeUTF(fileStateHandle.getFilePath().toString());
 
+        } else if (stateHandle instanceof SegmentFileStateHandle) {
+            dos.writeByte(SEGMENT_FILE_STREAM_STATE_HANDLE);
+            SegmentFileStateHandle segmentFileStateHandle = (SegmentFileStateHandle) stateHandle;
+            dos.writeUTF(segmentFileStateHandle.getFilePath().toString());
+            dos.writeLong(segmentFileStateHandle.getStartPos());
+            dos.writeLong(segmentFileStateHandle.getStateSize());
+            dos.writeInt(segmentFileStateHandle.getScope().ordinal());
+
         } else if (stateHandle instanceof ByteStreamStateHandle) {
             dos.writeByte(BYTE_STREAM_STATE_HANDLE);
             ByteStreamStateHandle byteStreamStateHandle = (ByteStreamStateHandle) stateHandle;
@@ -691,6 +702,12 @@ public abstract class MetadataV2V3SerializerBase {
             long size = dis.readLong();
             String pathString = dis.readUTF();
             return new FileStateHandle(new Path(pathString), size);
+        } else if (SEGMENT_FILE_STREAM_STATE_HANDLE == type) {
+            String pathString = dis.readUTF();
+            long startPos = dis.readLong();
+            long size = dis.readLong();
+            CheckpointedStateScope scope = CheckpointedStateScope.values()[dis.readInt()];
+            return new SegmentFileStateHandle(new Path(pathString), startPos, size, scope);
         } else if (BYTE_STREAM_STATE_HANDLE == type) {
             String handleName = dis.readUTF();
             int numBytes = dis.readInt();
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.io.compression;
+
+import io.airlift.compress.Compressor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.apache.flink.runtime.io.compression.CompressorUtils.HEADER_LENGTH;
+import static org.apache.flink.runtime.io.compression.CompressorUtils.sliceForCodec;
+import static org.apache.flink.runtime.io.compression.CompressorUtils.writeIntLE;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Encode data with a {@link Compressor} of the aircompressor library. The compressed block uses the
+ * same header as {@link Lz4BlockCompressor}. It reads from and writes to byte arrays provided from
+ * the outside, thus reducing copy time.
+ */
+public class AirBlockCompressor implements BlockCompressor {
+
+    private final Compressor compressor;
+
+    public AirBlockCompressor(Compressor compressor) {
+        this.compressor = checkNotNull(compressor);
+    }
+
+    @Override
+    public int getMaxCompressedSize(int srcSize) {
+        return HEADER_LENGTH + compressor.maxCompressedLength(srcSize);
+    }
+
+    @Override
+    public int compress(ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff)
+            throws InsufficientBufferException {
+        final int prevSrcOff = src.position() + srcOff;
+        final int prevDstOff = dst.position() + dstOff;
+
+        if (dst.capacity() - prevDstOff < getMaxCompressedSize(srcLen)) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+
+        final int compressedLength;
+        try {
+            final ByteBuffer input = sliceForCodec(src, prevSrcOff, srcLen);
+            final int maxCompressedLength = compressor.maxCompressedLength(srcLen);
+            if (input.hasArray() && dst.hasArray()) {
+                compressedLength =
+                        compressor.compress(
+                                input.array(),
+                                input.arrayOffset() + input.position(),
+                                srcLen,
+                                dst.array(),
+                                dst.arrayOffset() + prevDstOff + HEADER_LENGTH,
+                                maxCompressedLength);
+            } else {
+                final ByteBuffer output =
+                        sliceForCodec(dst, prevDstOff + HEADER_LENGTH, maxCompressedLength);
+                compressor.compress(input, output);
+                compressedLength = output.position() - prevDstOff - HEADER_LENGTH;
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InsufficientBufferException(e);
+        }
+
+        src.position(prevSrcOff + srcLen);
+
+        dst.position(prevDstOff);
+        dst.order(ByteOrder.LITTLE_ENDIAN);
+        dst.putInt(compressedLength);
+        dst.putInt(srcLen);
+        dst.position(prevDstOff + compressedLength + HEADER_LENGTH);
+
+        return HEADER_LENGTH + compressedLength;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff)
+            throws InsufficientBufferException {
+        if (dst.length - dstOff < getMaxCompressedSize(srcLen)) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+
+        try {
+            int compressedLength =
+                    compressor.compress(
+                            src,
+                            srcOff,
+                            srcLen,
+                            dst,
+                            dstOff + HEADER_LENGTH,
+                            compressor.maxCompressedLength(srcLen));
+            writeIntLE(compressedLength, dst, dstOff);
+            writeIntLE(srcLen, dst, dstOff + 4);
+            return HEADER_LENGTH + compressedLength;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InsufficientBufferException(e);
+        }
+    }
+}
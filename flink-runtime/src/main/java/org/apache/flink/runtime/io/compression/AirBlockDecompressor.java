@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.io.compression;
+
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.MalformedInputException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.apache.flink.runtime.io.compression.CompressorUtils.HEADER_LENGTH;
+import static org.apache.flink.runtime.io.compression.CompressorUtils.readIntLE;
+import static org.apache.flink.runtime.io.compression.CompressorUtils.sliceForCodec;
+import static org.apache.flink.runtime.io.compression.CompressorUtils.validateLength;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Decode data written with {@link AirBlockCompressor}. It reads from and writes to byte arrays
+ * provided from the outside, thus reducing copy time.
+ */
+public class AirBlockDecompressor implements BlockDecompressor {
+
+    private final Decompressor decompressor;
+
+    public AirBlockDecompressor(Decompressor decompressor) {
+        this.decompressor = checkNotNull(decompressor);
+    }
+
+    @Override
+    public int decompress(ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff)
+            throws DataCorruptionException {
+        final int prevSrcOff = src.position() + srcOff;
+        final int prevDstOff = dst.position() + dstOff;
+
+        src.order(ByteOrder.LITTLE_ENDIAN);
+        final int compressedLen = src.getInt(prevSrcOff);
+        final int originalLen = src.getInt(prevSrcOff + 4);
+        validateLength(compressedLen, originalLen);
+
+        if (dst.capacity() - prevDstOff < originalLen) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+
+        if (src.limit() - prevSrcOff - HEADER_LENGTH < compressedLen) {
+            throw new DataCorruptionException("Source data is not integral for decompression.");
+        }
+
+        final int decompressedLen;
+        try {
+            final ByteBuffer input = sliceForCodec(src, prevSrcOff + HEADER_LENGTH, compressedLen);
+            if (input.hasArray() && dst.hasArray()) {
+                decompressedLen =
+                        decompressor.decompress(
+                                input.array(),
+                                input.arrayOffset() + input.position(),
+                                compressedLen,
+                                dst.array(),
+                                dst.arrayOffset() + prevDstOff,
+                                originalLen);
+            } else {
+                final ByteBuffer output = sliceForCodec(dst, prevDstOff, originalLen);
+                decompressor.decompress(input, output);
+                decompressedLen = output.position() - prevDstOff;
+            }
+        } catch (MalformedInputException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new DataCorruptionException("Input is corrupted", e);
+        }
+
+        if (decompressedLen != originalLen) {
+            throw new DataCorruptionException("Input is corrupted, unexpected original length.");
+        }
+        src.position(prevSrcOff + compressedLen + HEADER_LENGTH);
+        dst.position(prevDstOff + originalLen);
+
+        return originalLen;
+    }
+
+    @Override
+    public int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff)
+            throws InsufficientBufferException, DataCorruptionException {
+        final int compressedLen = readIntLE(src, srcOff);
+        final int originalLen = readIntLE(src, srcOff + 4);
+        validateLength(compressedLen, originalLen);
+
+        if (dst.length - dstOff < originalLen) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+
+        if (src.length - srcOff - HEADER_LENGTH < compressedLen) {
+            throw new DataCorruptionException("Source data is not integral for decompression.");
+        }
+
+        try {
+            final int decompressedLen =
+                    decompressor.decompress(
+                            src, srcOff + HEADER_LENGTH, compressedLen, dst, dstOff, originalLen);
+            if (decompressedLen != originalLen) {
+                throw new DataCorruptionException("Input is corrupted");
+            }
+        } catch (MalformedInputException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new DataCorruptionException("Input is corrupted", e);
+        }
+
+        return originalLen;
+    }
+}
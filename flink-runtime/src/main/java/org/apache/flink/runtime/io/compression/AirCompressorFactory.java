@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.io.compression;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
+
+import java.util.function.Supplier;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Implementation of {@link BlockCompressionFactory} for the codecs of the aircompressor library,
+ * which are implemented in pure Java.
+ */
+public class AirCompressorFactory implements BlockCompressionFactory {
+
+    private final Supplier<Compressor> compressorSupplier;
+
+    private final Supplier<Decompressor> decompressorSupplier;
+
+    public AirCompressorFactory(
+            Supplier<Compressor> compressorSupplier, Supplier<Decompressor> decompressorSupplier) {
+        this.compressorSupplier = checkNotNull(compressorSupplier);
+        this.decompressorSupplier = checkNotNull(decompressorSupplier);
+    }
+
+    @Override
+    public BlockCompressor getCompressor() {
+        return new AirBlockCompressor(compressorSupplier.get());
+    }
+
+    @Override
+    public BlockDecompressor getDecompressor() {
+        return new AirBlockDecompressor(decompressorSupplier.get());
+    }
+
+    /** Creates a {@link BlockCompressionFactory} for the ZSTD codec. */
+    public static AirCompressorFactory zstd() {
+        return new AirCompressorFactory(ZstdCompressor::new, ZstdDecompressor::new);
+    }
+
+    /** Creates a {@link BlockCompressionFactory} for the Snappy codec. */
+    public static AirCompressorFactory snappy() {
+        return new AirCompressorFactory(SnappyCompressor::new, SnappyDecompressor::new);
+    }
+}
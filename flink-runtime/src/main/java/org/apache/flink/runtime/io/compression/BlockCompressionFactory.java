@@ -34,7 +34,9 @@ public interface BlockCompressionFactory {
 
     /** Name of {@link BlockCompressionFactory}. */
     enum CompressionFactoryName {
-        LZ4
+        LZ4,
+        ZSTD,
+        SNAPPY
     }
 
     /**
@@ -60,6 +62,12 @@ public interface BlockCompressionFactory {
                 case LZ4:
                     blockCompressionFactory = new Lz4BlockCompressionFactory();
                     break;
+                case ZSTD:
+                    blockCompressionFactory = AirCompressorFactory.zstd();
+                    break;
+                case SNAPPY:
+                    blockCompressionFactory = AirCompressorFactory.snappy();
+                    break;
                 default:
                     throw new IllegalStateException("Unknown CompressionMethod " + compressionName);
             }
@@ -25,7 +25,7 @@ public class Lz4BlockCompressionFactory implements BlockCompressionFactory {
      * We put two integers before each compressed block, the first integer represents the compressed
      * length of the block, and the second one represents the original length of the block.
      */
-    public static final int HEADER_LENGTH = 8;
+    public static final int HEADER_LENGTH = CompressorUtils.HEADER_LENGTH;
 
     @Override
     public BlockCompressor getCompressor() {
@@ -26,7 +26,8 @@ import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
-import static org.apache.flink.runtime.io.compression.Lz4BlockCompressionFactory.HEADER_LENGTH;
+import static org.apache.flink.runtime.io.compression.CompressorUtils.HEADER_LENGTH;
+import static org.apache.flink.runtime.io.compression.CompressorUtils.writeIntLE;
 
 /**
  * Encode data into LZ4 format (not compatible with the LZ4 Frame format). It reads from and writes
@@ -91,11 +92,4 @@ public class Lz4BlockCompressor implements BlockCompressor {
             throw new InsufficientBufferException(e);
         }
     }
-
-    private static void writeIntLE(int i, byte[] buf, int offset) {
-        buf[offset++] = (byte) i;
-        buf[offset++] = (byte) (i >>> 8);
-        buf[offset++] = (byte) (i >>> 16);
-        buf[offset] = (byte) (i >>> 24);
-    }
 }
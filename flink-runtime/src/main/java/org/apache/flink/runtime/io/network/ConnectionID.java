@@ -63,6 +63,19 @@ public class ConnectionID implements Serializable {
         return connectionIndex;
     }
 
+    /**
+     * Returns a connection id for the same address with the connection index shifted by the given
+     * offset. This allows to stripe the input channels of one input gate across all connections to
+     * the same task manager. The connection index is taken modulo the maximum number of connections
+     * per task manager when the connection is created, so the offset only selects a different
+     * connection if that maximum is larger than 1.
+     */
+    public ConnectionID withConnectionIndexOffset(int offset) {
+        checkArgument(offset >= 0);
+        return new ConnectionID(
+                address, (int) (((long) connectionIndex + offset) % Integer.MAX_VALUE));
+    }
+
     @Override
     public int hashCode() {
         return address.hashCode() + (31 * connectionIndex);
@@ -52,6 +52,7 @@ import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import static org.apache.flink.runtime.io.network.metrics.NettyShuffleMetricFactory.registerShuffleMetrics;
+import static org.apache.flink.runtime.io.network.metrics.NettyShuffleMetricFactory.registerTransportMetrics;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /** Netty based shuffle service implementation. */
@@ -181,6 +182,11 @@ public class NettyShuffleServiceFactory
                         new ExecutorThreadFactory("blocking-shuffle-io"));
 
         registerShuffleMetrics(metricGroup, networkBufferPool);
+        if (connectionManager instanceof NettyConnectionManager) {
+            registerTransportMetrics(
+                    metricGroup,
+                    ((NettyConnectionManager) connectionManager).getTransportMetrics());
+        }
 
         ResultPartitionFactory resultPartitionFactory =
                 new ResultPartitionFactory(
@@ -198,6 +204,8 @@ public class NettyShuffleServiceFactory
                         config.getMaxBuffersPerChannel(),
                         config.sortShuffleMinBuffers(),
                         config.sortShuffleMinParallelism(),
+                        config.isSortShuffleDirectFileTransferEnabled(),
+                        config.localChannelNotificationBatchSize(),
                         config.isSSLEnabled());
 
         SingleInputGateFactory singleInputGateFactory =
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.api.serialization;
+
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.MemorySegment;
+
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link DataOutputView} which serializes a record directly into a region of a {@link
+ * MemorySegment}, e.g. the free space of a network buffer, without an intermediate heap copy.
+ *
+ * <p>If the record does not fit into the region, the bytes written so far are moved to the given
+ * {@link DataOutputSerializer} and the rest of the record is written there. The caller checks
+ * {@link #isOverflowed()} after serializing the record and then uses the serializer instead. This
+ * keeps the common case of records fitting into the current buffer copy-free, while records
+ * spanning multiple buffers take the regular path.
+ *
+ * <p>Bytes written to the segment are not visible to anyone until the caller commits them, so an
+ * overflowed record leaves no trace in the segment.
+ */
+public class DirectSerializationOutputView implements DataOutputView {
+
+    private MemorySegment segment;
+
+    private DataOutputSerializer overflowSerializer;
+
+    private int start;
+
+    private int position;
+
+    private int limit;
+
+    private boolean overflowed;
+
+    /**
+     * Prepares this view to write a new record into the given segment from {@code start} up to
+     * {@code limit} (exclusive), using the given serializer in case of an overflow.
+     */
+    public void reset(
+            MemorySegment segment, int start, int limit, DataOutputSerializer overflowSerializer) {
+        checkArgument(0 <= start && start <= limit && limit <= segment.size());
+        this.segment = checkNotNull(segment);
+        this.overflowSerializer = checkNotNull(overflowSerializer);
+        this.start = start;
+        this.position = start;
+        this.limit = limit;
+        this.overflowed = false;
+    }
+
+    /** Returns whether the record did not fit into the segment and went to the serializer. */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    /** Returns the number of bytes written to the segment, if not overflowed. */
+    public int getWrittenBytes() {
+        return position - start;
+    }
+
+    /** Writes an int at the given absolute position of the segment, e.g. a length prefix. */
+    public void writeIntUnsafe(int value, int absolutePosition) {
+        segment.putIntBigEndian(absolutePosition, value);
+    }
+
+    /** Releases the references to the segment and the serializer. */
+    public void clear() {
+        segment = null;
+        overflowSerializer = null;
+    }
+
+    /**
+     * Returns true if the given number of bytes still fit into the segment, otherwise moves all
+     * bytes written so far to the overflow serializer and returns false.
+     */
+    private boolean ensureCapacity(int numBytes) throws IOException {
+        if (!overflowed) {
+            if (limit - position >= numBytes) {
+                return true;
+            }
+
+            overflowSerializer.clear();
+            overflowSerializer.write(segment, start, position - start);
+            overflowed = true;
+        }
+        return false;
+    }
+
+    // ------------------------------------------------------------------------
+    //  Data Output
+    // ------------------------------------------------------------------------
+
+    @Override
+    public void write(int b) throws IOException {
+        if (ensureCapacity(1)) {
+            segment.put(position++, (byte) b);
+        } else {
+            overflowSerializer.write(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (ensureCapacity(len)) {
+            segment.put(position, b, off, len);
+            position += len;
+        } else {
+            overflowSerializer.write(b, off, len);
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean v) throws IOException {
+        write(v ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(int v) throws IOException {
+        write(v);
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+        if (ensureCapacity(2)) {
+            segment.putShortBigEndian(position, (short) v);
+            position += 2;
+        } else {
+            overflowSerializer.writeShort(v);
+        }
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+        if (ensureCapacity(2)) {
+            segment.putCharBigEndian(position, (char) v);
+            position += 2;
+        } else {
+            overflowSerializer.writeChar(v);
+        }
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        if (ensureCapacity(4)) {
+            segment.putIntBigEndian(position, v);
+            position += 4;
+        } else {
+            overflowSerializer.writeInt(v);
+        }
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        if (ensureCapacity(8)) {
+            segment.putLongBigEndian(position, v);
+            position += 8;
+        } else {
+            overflowSerializer.writeLong(v);
+        }
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    @Override
+    public void writeBytes(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            write(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            writeChar(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeUTF(String str) throws IOException {
+        // rarely used, the modified UTF-8 encoding is left to the serializer
+        ensureCapacity(Integer.MAX_VALUE);
+        overflowSerializer.writeUTF(str);
+    }
+
+    @Override
+    public void skipBytesToWrite(int numBytes) throws IOException {
+        if (ensureCapacity(numBytes)) {
+            position += numBytes;
+        } else {
+            overflowSerializer.skipBytesToWrite(numBytes);
+        }
+    }
+
+    @Override
+    public void write(DataInputView source, int numBytes) throws IOException {
+        if (ensureCapacity(numBytes)) {
+            segment.put(source, position, numBytes);
+            position += numBytes;
+        } else {
+            overflowSerializer.write(source, numBytes);
+        }
+    }
+}
@@ -20,6 +20,8 @@ package org.apache.flink.runtime.io.network.api.writer;
 
 import org.apache.flink.core.io.IOReadableWritable;
 
+import java.util.List;
+
 /**
  * The {@link ChannelSelector} determines to which logical channels a record should be written to.
  *
@@ -46,6 +48,22 @@ public interface ChannelSelector<T extends IOReadableWritable> {
      */
     int selectChannel(T record);
 
+    /**
+     * Selects the logical channel indices for a batch of records at once. The channel of the i-th
+     * record is stored at the i-th position of the given target channels array. Implementations can
+     * override this method to amortize per-record overhead, it must however select the same
+     * channels as {@link #selectChannel} does for each record.
+     *
+     * @param records the records to determine the output channels for.
+     * @param targetChannels the array to store the selected channels to, it must be no shorter than
+     *     the number of records.
+     */
+    default void selectChannels(List<T> records, int[] targetChannels) {
+        for (int i = 0; i < records.size(); i++) {
+            targetChannels[i] = selectChannel(records.get(i));
+        }
+    }
+
     /**
      * Returns whether the channel selector always selects all the output channels.
      *
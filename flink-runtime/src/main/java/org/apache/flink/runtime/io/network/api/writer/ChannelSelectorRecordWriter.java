@@ -22,6 +22,8 @@ import org.apache.flink.core.io.IOReadableWritable;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -38,15 +40,27 @@ public final class ChannelSelectorRecordWriter<T extends IOReadableWritable>
 
     private final ChannelSelector<T> channelSelector;
 
+    /** Target channels of the records of the current batch, reused across batches. */
+    private int[] targetChannels = new int[0];
+
+    /** Indices of the records of the current batch sorted by target channel. */
+    private int[] sortedRecordIndices = new int[0];
+
+    /** End offsets of the records of each channel in {@link #sortedRecordIndices}. */
+    private final int[] channelEndOffsets;
+
     ChannelSelectorRecordWriter(
             ResultPartitionWriter writer,
             ChannelSelector<T> channelSelector,
             long timeout,
-            String taskName) {
-        super(writer, timeout, taskName);
+            String taskName,
+            boolean directSerialization,
+            int batchFlushThreshold) {
+        super(writer, timeout, taskName, directSerialization, batchFlushThreshold);
 
         this.channelSelector = checkNotNull(channelSelector);
         this.channelSelector.setup(numberOfChannels);
+        this.channelEndOffsets = new int[numberOfChannels];
     }
 
     @Override
@@ -54,6 +68,49 @@ public final class ChannelSelectorRecordWriter<T extends IOReadableWritable>
         emit(record, channelSelector.selectChannel(record));
     }
 
+    @Override
+    public void emitBatch(List<T> records) throws IOException {
+        checkErroneous();
+
+        int numRecords = records.size();
+        if (targetChannels.length < numRecords) {
+            targetChannels = new int[numRecords];
+            sortedRecordIndices = new int[numRecords];
+        }
+        channelSelector.selectChannels(records, targetChannels);
+
+        // counting sort of the records by target channel which keeps the order of the records
+        // of the same channel, after which channelEndOffsets[i] points to the end of channel i
+        Arrays.fill(channelEndOffsets, 0);
+        for (int i = 0; i < numRecords; i++) {
+            channelEndOffsets[targetChannels[i]]++;
+        }
+        int offset = 0;
+        for (int channel = 0; channel < numberOfChannels; channel++) {
+            int numChannelRecords = channelEndOffsets[channel];
+            channelEndOffsets[channel] = offset;
+            offset += numChannelRecords;
+        }
+        for (int i = 0; i < numRecords; i++) {
+            sortedRecordIndices[channelEndOffsets[targetChannels[i]]++] = i;
+        }
+
+        int start = 0;
+        for (int channel = 0; channel < numberOfChannels && start < numRecords; channel++) {
+            int end = channelEndOffsets[channel];
+            if (start == end) {
+                continue;
+            }
+
+            serializer.clear();
+            for (int i = start; i < end; i++) {
+                addToBatch(records.get(sortedRecordIndices[i]), channel);
+            }
+            finishBatch(channel);
+            start = end;
+        }
+    }
+
     @Override
     public void broadcastEmit(T record) throws IOException {
         checkErroneous();
@@ -34,6 +34,7 @@ import javax.annotation.Nullable;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 
@@ -55,6 +56,12 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
 
     private static final Logger LOG = LoggerFactory.getLogger(RecordWriter.class);
 
+    /** Number of bytes of the length prefix of each serialized record. */
+    public static final int RECORD_LENGTH_BYTES = 4;
+
+    /** Batch flush threshold which never flushes channels after batches. */
+    public static final int DISABLED_BATCH_FLUSH_THRESHOLD = Integer.MAX_VALUE;
+
     protected final ResultPartitionWriter targetPartition;
 
     protected final int numberOfChannels;
@@ -65,6 +72,29 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
 
     protected final boolean flushAlways;
 
+    /**
+     * Whether to serialize records directly into the buffers of the target partition instead of
+     * serializing them into the {@link #serializer} first.
+     */
+    private final boolean directSerialization;
+
+    /**
+     * Number of bytes written by batches to a channel since its last adaptive flush after which the
+     * channel is flushed, usually the size of a network buffer. Channels receiving a lot of data
+     * thus hand over their partially filled buffer right away, while channels receiving little data
+     * keep batching until the {@link #outputFlusher} flushes them.
+     */
+    private final int batchFlushThreshold;
+
+    /**
+     * Number of bytes written by batches to each channel since its last adaptive flush. Flushes of
+     * the {@link #outputFlusher} do not reset it, which at worst flushes a channel early.
+     */
+    private final long[] unflushedBatchBytes;
+
+    /** Number of bytes of the current batch serialized directly into the target partition. */
+    private int directBatchBytes;
+
     /** The thread that periodically flushes the output, to give an upper latency bound. */
     @Nullable private final OutputFlusher outputFlusher;
 
@@ -79,8 +109,21 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
     private static final int VOLATILE_FLUSHER_EXCEPTION_MAX_CHECK_SKIP_COUNT = 100;
 
     RecordWriter(ResultPartitionWriter writer, long timeout, String taskName) {
+        this(writer, timeout, taskName, false, DISABLED_BATCH_FLUSH_THRESHOLD);
+    }
+
+    RecordWriter(
+            ResultPartitionWriter writer,
+            long timeout,
+            String taskName,
+            boolean directSerialization,
+            int batchFlushThreshold) {
+        checkArgument(batchFlushThreshold > 0);
         this.targetPartition = writer;
+        this.directSerialization = directSerialization;
+        this.batchFlushThreshold = batchFlushThreshold;
         this.numberOfChannels = writer.getNumberOfSubpartitions();
+        this.unflushedBatchBytes = new long[numberOfChannels];
 
         this.serializer = new DataOutputSerializer(128);
 
@@ -103,10 +146,71 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
     protected void emit(T record, int targetSubpartition) throws IOException {
         checkErroneous();
 
-        targetPartition.emitRecord(serializeRecord(serializer, record), targetSubpartition);
+        if (directSerialization) {
+            targetPartition.emitRecord(record, targetSubpartition, serializer);
+        } else {
+            targetPartition.emitRecord(serializeRecord(serializer, record), targetSubpartition);
+        }
+
+        if (flushAlways) {
+            targetPartition.flush(targetSubpartition);
+        }
+    }
+
+    /**
+     * Serializes the given records in one pass and writes them to the target subpartition. All the
+     * records must have been already grouped by the caller, i.e. they all belong to the given
+     * subpartition. Unless records are serialized directly into the buffers, the batch is
+     * serialized into a single buffer, so callers should keep batches reasonably small.
+     */
+    public void emitBatch(List<T> records, int targetSubpartition) throws IOException {
+        checkErroneous();
+
+        serializer.clear();
+        for (T record : records) {
+            addToBatch(record, targetSubpartition);
+        }
+        finishBatch(targetSubpartition);
+    }
+
+    /**
+     * Adds a record to the batch of the target subpartition, which must have been started by
+     * clearing the {@link #serializer}. With direct serialization, the record is written to the
+     * buffers of the target partition right away. Otherwise, it is appended to the {@link
+     * #serializer} and written together with the rest of the batch by {@link #finishBatch}.
+     */
+    protected void addToBatch(T record, int targetSubpartition) throws IOException {
+        if (directSerialization) {
+            directBatchBytes += targetPartition.emitRecord(record, targetSubpartition, serializer);
+        } else {
+            appendRecord(serializer, record);
+        }
+    }
+
+    /**
+     * Writes the records added by {@link #addToBatch} to the target subpartition. The subpartition
+     * is flushed once the batches written to it since its last flush reach the {@link
+     * #batchFlushThreshold}.
+     */
+    protected void finishBatch(int targetSubpartition) throws IOException {
+        int batchBytes;
+        if (directSerialization) {
+            batchBytes = directBatchBytes;
+            directBatchBytes = 0;
+        } else {
+            batchBytes = serializer.length();
+            targetPartition.emitRecords(serializer.wrapAsByteBuffer(), targetSubpartition);
+        }
 
         if (flushAlways) {
             targetPartition.flush(targetSubpartition);
+            return;
+        }
+
+        unflushedBatchBytes[targetSubpartition] += batchBytes;
+        if (unflushedBatchBytes[targetSubpartition] >= batchFlushThreshold) {
+            unflushedBatchBytes[targetSubpartition] = 0;
+            targetPartition.flush(targetSubpartition);
         }
     }
 
@@ -137,6 +241,56 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
         return serializer.wrapAsByteBuffer();
     }
 
+    /**
+     * Appends the given record to the serializer in the same format as {@link #serializeRecord},
+     * which allows to serialize multiple records back to back and write them at once.
+     */
+    @VisibleForTesting
+    public static void appendRecord(DataOutputSerializer serializer, IOReadableWritable record)
+            throws IOException {
+        int start = serializer.length();
+        // reserve space for the length
+        serializer.writeInt(0);
+
+        // write data
+        record.write(serializer);
+
+        // write length
+        serializer.writeIntUnsafe(serializer.length() - start - RECORD_LENGTH_BYTES, start);
+    }
+
+    /**
+     * Returns a slice of the next serialized record (including the length) of the given records and
+     * moves the position of the given records forward.
+     */
+    public static ByteBuffer sliceNextRecord(ByteBuffer records) {
+        int recordBytes = RECORD_LENGTH_BYTES + records.getInt(records.position());
+
+        ByteBuffer record = records.slice();
+        record.limit(recordBytes);
+        records.position(records.position() + recordBytes);
+        return record;
+    }
+
+    /**
+     * Returns the number of bytes of the complete serialized records at the beginning of the
+     * remaining bytes of the given records which fit into the given number of bytes. The position
+     * of the given records is not changed.
+     */
+    public static int getLengthOfCompleteRecords(ByteBuffer records, int maxLength) {
+        int length = 0;
+        int position = records.position();
+        while (position + RECORD_LENGTH_BYTES <= records.limit()) {
+            int recordBytes = RECORD_LENGTH_BYTES + records.getInt(position);
+            if (length + recordBytes > maxLength) {
+                break;
+            }
+            length += recordBytes;
+            position += recordBytes;
+        }
+        return length;
+    }
+
     public void flushAll() {
         targetPartition.flushAll();
     }
@@ -154,6 +308,17 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
     /** This is used to send regular records. */
     public abstract void emit(T record) throws IOException;
 
+    /**
+     * This is used to send a batch of regular records. By default, the records are emitted one by
+     * one, however, subclasses can select the target channels of the whole batch and serialize the
+     * records of each channel in one pass.
+     */
+    public void emitBatch(List<T> records) throws IOException {
+        for (T record : records) {
+            emit(record);
+        }
+    }
+
     /** This is used to send LatencyMarks to a random target channel. */
     public void randomEmit(T record) throws IOException {
         checkErroneous();
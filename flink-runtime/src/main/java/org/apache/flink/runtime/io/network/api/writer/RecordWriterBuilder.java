@@ -29,6 +29,10 @@ public class RecordWriterBuilder<T extends IOReadableWritable> {
 
     private String taskName = "test";
 
+    private boolean directSerialization = false;
+
+    private int batchFlushThreshold = RecordWriter.DISABLED_BATCH_FLUSH_THRESHOLD;
+
     public RecordWriterBuilder<T> setChannelSelector(ChannelSelector<T> selector) {
         this.selector = selector;
         return this;
@@ -44,11 +48,22 @@ public class RecordWriterBuilder<T extends IOReadableWritable> {
         return this;
     }
 
+    public RecordWriterBuilder<T> setDirectSerialization(boolean directSerialization) {
+        this.directSerialization = directSerialization;
+        return this;
+    }
+
+    public RecordWriterBuilder<T> setBatchFlushThreshold(int batchFlushThreshold) {
+        this.batchFlushThreshold = batchFlushThreshold;
+        return this;
+    }
+
     public RecordWriter<T> build(ResultPartitionWriter writer) {
         if (selector.isBroadcast()) {
             return new BroadcastRecordWriter<>(writer, timeout, taskName);
         } else {
-            return new ChannelSelectorRecordWriter<>(writer, selector, timeout, taskName);
+            return new ChannelSelectorRecordWriter<>(
+                    writer, selector, timeout, taskName, directSerialization, batchFlushThreshold);
         }
     }
 }
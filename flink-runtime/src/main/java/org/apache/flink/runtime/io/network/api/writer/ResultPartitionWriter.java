@@ -18,6 +18,8 @@
 
 package org.apache.flink.runtime.io.network.api.writer;
 
+import org.apache.flink.core.io.IOReadableWritable;
+import org.apache.flink.core.memory.DataOutputSerializer;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.AvailabilityProvider;
 import org.apache.flink.runtime.io.network.api.StopMode;
@@ -55,6 +57,36 @@ public interface ResultPartitionWriter extends AutoCloseable, AvailabilityProvid
     /** Writes the given serialized record to the target subpartition. */
     void emitRecord(ByteBuffer record, int targetSubpartition) throws IOException;
 
+    /**
+     * Writes the given serialized records to the target subpartition. The records are laid out back
+     * to back, each one prefixed by its length as done by {@link RecordWriter#serializeRecord}. By
+     * default, the records are written one by one, however, the underlying implementation can do
+     * some optimizations, for example copying all the records which fit into the current buffer at
+     * once.
+     */
+    default void emitRecords(ByteBuffer records, int targetSubpartition) throws IOException {
+        while (records.hasRemaining()) {
+            emitRecord(RecordWriter.sliceNextRecord(records), targetSubpartition);
+        }
+    }
+
+    /**
+     * Serializes the given record and writes it to the target subpartition. By default, the record
+     * is serialized with the given serializer and written by {@link #emitRecord(ByteBuffer, int)},
+     * however, the underlying implementation can serialize the record directly into its buffers and
+     * only use the serializer as a fallback.
+     *
+     * @return the number of bytes of the serialized record including its length
+     */
+    default int emitRecord(
+            IOReadableWritable record, int targetSubpartition, DataOutputSerializer serializer)
+            throws IOException {
+        ByteBuffer serializedRecord = RecordWriter.serializeRecord(serializer, record);
+        int recordBytes = serializedRecord.remaining();
+        emitRecord(serializedRecord, targetSubpartition);
+        return recordBytes;
+    }
+
     /**
      * Writes the given serialized record to all subpartitions. One can also achieve the same effect
      * by emitting the same record to all subpartitions one by one, however, this method can have
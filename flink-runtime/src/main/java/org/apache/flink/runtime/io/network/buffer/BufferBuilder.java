@@ -25,6 +25,7 @@ import javax.annotation.concurrent.ThreadSafe;
 
 import java.nio.ByteBuffer;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
@@ -102,6 +103,27 @@ public class BufferBuilder implements AutoCloseable {
         return toCopy;
     }
 
+    /**
+     * Returns the underlying {@link MemorySegment}, so that data can be written directly into its
+     * free space from {@link #getCommittedBytes()} up to {@link #getMaxCapacity()}. Such data only
+     * becomes part of this buffer after {@link #commitDirectlyWrittenBytes(int)}.
+     */
+    public MemorySegment getMemorySegmentForDirectWrite() {
+        checkState(!isFinished());
+        return memorySegment;
+    }
+
+    /**
+     * Appends and commits the given number of bytes which have been written directly into the
+     * memory segment returned by {@link #getMemorySegmentForDirectWrite()}.
+     */
+    public void commitDirectlyWrittenBytes(int numBytes) {
+        checkState(!isFinished());
+        checkArgument(0 <= numBytes && numBytes <= getWritableBytes());
+        positionMarker.move(numBytes);
+        commit();
+    }
+
     /**
      * Make the change visible to the readers. This is costly operation (volatile access) thus in
      * case of bulk writes it's better to commit them all together instead one by one.
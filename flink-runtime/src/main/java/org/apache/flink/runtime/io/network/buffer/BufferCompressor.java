@@ -23,6 +23,8 @@ import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.compression.BlockCompressor;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
@@ -36,6 +38,16 @@ public class BufferCompressor {
     /** The intermediate buffer for the compressed data. */
     private final NetworkBuffer internalBuffer;
 
+    /**
+     * Statistics of the compressed data. They are only updated by the writing thread and read by
+     * the metric reporters in a best-effort way.
+     */
+    private volatile long numBytesBeforeCompression;
+
+    private volatile long numBytesAfterCompression;
+
+    private volatile long compressionTimeNanos;
+
     public BufferCompressor(int bufferSize, String factoryName) {
         checkArgument(bufferSize > 0);
         checkNotNull(factoryName);
@@ -106,20 +118,42 @@ public class BufferCompressor {
                 internalBuffer.refCnt() == 1,
                 "Illegal reference count, buffer need to be released.");
 
+        final int length = buffer.getSize();
+        final long startTime = System.nanoTime();
+        int compressedLen;
         try {
-            int length = buffer.getSize();
             // compress the given buffer into the internal heap buffer
-            int compressedLen =
+            compressedLen =
                     blockCompressor.compress(
                             buffer.getNioBuffer(0, length),
                             0,
                             length,
                             internalBuffer.getNioBuffer(0, internalBuffer.capacity()),
                             0);
-            return compressedLen < length ? compressedLen : 0;
+            compressedLen = compressedLen < length ? compressedLen : 0;
         } catch (Throwable throwable) {
             // return the original buffer if failed to compress
-            return 0;
+            compressedLen = 0;
         }
+
+        compressionTimeNanos += System.nanoTime() - startTime;
+        numBytesBeforeCompression += length;
+        numBytesAfterCompression += compressedLen > 0 ? compressedLen : length;
+        return compressedLen;
+    }
+
+    /**
+     * Returns the ratio between the size of the data before and after compression, or 1 if no data
+     * has been compressed yet. Data which could not be compressed is counted with its original
+     * size.
+     */
+    public double getCompressionRatio() {
+        final long numBytesAfter = numBytesAfterCompression;
+        return numBytesAfter == 0 ? 1.0 : numBytesBeforeCompression / (double) numBytesAfter;
+    }
+
+    /** Returns the accumulated time spent on compressing data in milliseconds. */
+    public long getAccumulatedCompressionTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(compressionTimeNanos);
     }
 }
@@ -23,6 +23,7 @@ import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.metrics.View;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.netty.NettyTransportMetrics;
 import org.apache.flink.runtime.io.network.partition.ResultPartition;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
 import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
@@ -58,6 +59,15 @@ public class NettyShuffleMetricFactory {
 
     private static final String METRIC_REQUESTED_MEMORY_USAGE = "RequestedMemoryUsage";
 
+    // shuffle environment level transport metrics: Shuffle.Netty.Transport.*
+
+    private static final String METRIC_GROUP_TRANSPORT = "Transport";
+
+    private static final String METRIC_NUM_BYTES_WRITTEN = "numBytesWritten";
+    private static final String METRIC_NUM_BYTES_READ = "numBytesRead";
+    private static final String METRIC_NUM_FLUSHES = "numFlushes";
+    private static final String METRIC_WRITE_STALL_TIME = "writeStallTimeMs";
+
     // task level metric group structure: Shuffle.Netty.<Input|Output>.Buffers
 
     private static final String METRIC_GROUP_SHUFFLE = "Shuffle";
@@ -126,6 +136,23 @@ public class NettyShuffleMetricFactory {
                 METRIC_REQUESTED_MEMORY_USAGE, new RequestedMemoryUsageMetric(networkBufferPool));
     }
 
+    public static void registerTransportMetrics(
+            MetricGroup metricGroup, NettyTransportMetrics transportMetrics) {
+        checkNotNull(metricGroup);
+        checkNotNull(transportMetrics);
+
+        MetricGroup transportGroup =
+                metricGroup
+                        .addGroup(METRIC_GROUP_SHUFFLE)
+                        .addGroup(METRIC_GROUP_NETTY)
+                        .addGroup(METRIC_GROUP_TRANSPORT);
+
+        transportGroup.counter(METRIC_NUM_BYTES_WRITTEN, transportMetrics.getNumBytesWritten());
+        transportGroup.counter(METRIC_NUM_BYTES_READ, transportMetrics.getNumBytesRead());
+        transportGroup.counter(METRIC_NUM_FLUSHES, transportMetrics.getNumFlushes());
+        transportGroup.counter(METRIC_WRITE_STALL_TIME, transportMetrics.getWriteStallTimeMs());
+    }
+
     public static MetricGroup createShuffleIOOwnerMetricGroup(MetricGroup parentGroup) {
         return parentGroup.addGroup(METRIC_GROUP_SHUFFLE).addGroup(METRIC_GROUP_NETTY);
     }
@@ -186,6 +213,7 @@ public class NettyShuffleMetricFactory {
         if (isDetailedMetrics) {
             ResultPartitionMetrics.registerQueueLengthMetrics(outputGroup, resultPartitions);
         }
+        ResultPartitionMetrics.registerCompressionMetrics(outputGroup, resultPartitions);
         buffersGroup.gauge(METRIC_OUTPUT_QUEUE_LENGTH, new OutputBuffersGauge(resultPartitions));
         buffersGroup.gauge(METRIC_OUTPUT_QUEUE_SIZE, new OutputBuffersSizeGauge(resultPartitions));
         buffersGroup.gauge(
@@ -20,6 +20,7 @@ package org.apache.flink.runtime.io.network.metrics;
 
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.partition.ResultPartition;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -161,4 +162,20 @@ public class ResultPartitionMetrics {
             group.gauge("avgQueueLen", metrics.getAvgQueueLenGauge());
         }
     }
+
+    public static void registerCompressionMetrics(
+            MetricGroup parent, ResultPartition[] partitions) {
+        for (int i = 0; i < partitions.length; i++) {
+            final BufferCompressor bufferCompressor = partitions[i].getBufferCompressor();
+            if (bufferCompressor == null) {
+                continue;
+            }
+
+            MetricGroup group = parent.addGroup(i);
+            group.gauge("compressionRatio", bufferCompressor::getCompressionRatio);
+            group.gauge(
+                    "accumulatedCompressionTimeMs",
+                    bufferCompressor::getAccumulatedCompressionTimeMs);
+        }
+    }
 }
@@ -231,7 +231,7 @@ class CreditBasedSequenceNumberingViewReader
 
     @Override
     public void notifyPriorityEvent(int prioritySequenceNumber) {
-        notifyDataAvailable();
+        requestQueue.notifyReaderPriorityEvent(this);
     }
 
     @Override
@@ -24,6 +24,7 @@ import org.apache.flink.shaded.netty4.io.netty.channel.ChannelFuture;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelInitializer;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelOption;
 import org.apache.flink.shaded.netty4.io.netty.channel.epoll.Epoll;
+import org.apache.flink.shaded.netty4.io.netty.channel.epoll.EpollChannelOption;
 import org.apache.flink.shaded.netty4.io.netty.channel.epoll.EpollEventLoopGroup;
 import org.apache.flink.shaded.netty4.io.netty.channel.epoll.EpollSocketChannel;
 import org.apache.flink.shaded.netty4.io.netty.channel.nio.NioEventLoopGroup;
@@ -39,6 +40,7 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 
+import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
 class NettyClient {
@@ -47,6 +49,8 @@ class NettyClient {
 
     private final NettyConfig config;
 
+    private final NettyTransportMetrics transportMetrics;
+
     private NettyProtocol protocol;
 
     private Bootstrap bootstrap;
@@ -54,7 +58,12 @@ class NettyClient {
     @Nullable private SSLHandlerFactory clientSSLFactory;
 
     NettyClient(NettyConfig config) {
+        this(config, new NettyTransportMetrics());
+    }
+
+    NettyClient(NettyConfig config, NettyTransportMetrics transportMetrics) {
         this.config = config;
+        this.transportMetrics = checkNotNull(transportMetrics);
     }
 
     void init(final NettyProtocol protocol, NettyBufferPool nettyBufferPool) throws IOException {
@@ -93,8 +102,9 @@ class NettyClient {
         // Configuration
         // --------------------------------------------------------------------
 
-        bootstrap.option(ChannelOption.TCP_NODELAY, true);
+        bootstrap.option(ChannelOption.TCP_NODELAY, config.getTcpNoDelay());
         bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
+        bootstrap.option(ChannelOption.WRITE_BUFFER_WATER_MARK, config.getWriteBufferWaterMark());
 
         // Timeout for new connections
         bootstrap.option(
@@ -163,6 +173,10 @@ class NettyClient {
                 new EpollEventLoopGroup(
                         config.getClientNumThreads(), NettyServer.getNamedThreadFactory(name));
         bootstrap.group(epollGroup).channel(EpollSocketChannel.class);
+
+        if (config.getEpollBusyPollMicros() > 0) {
+            bootstrap.option(EpollChannelOption.SO_BUSY_POLL, config.getEpollBusyPollMicros());
+        }
     }
 
     // ------------------------------------------------------------------------
@@ -181,7 +195,13 @@ class NettyClient {
                     @Override
                     public void initChannel(SocketChannel channel) throws Exception {
 
-                        // SSL handler should be added first in the pipeline
+                        // the metrics handler sits next to the socket, in front of SSL
+                        channel.pipeline()
+                                .addLast(
+                                        NettyTransportMetricsHandler.HANDLER_NAME,
+                                        new NettyTransportMetricsHandler(transportMetrics));
+
+                        // SSL handler should be added right after the metrics handler
                         if (clientSSLFactory != null) {
                             SslHandler sslHandler =
                                     clientSSLFactory.createNettySSLHandler(
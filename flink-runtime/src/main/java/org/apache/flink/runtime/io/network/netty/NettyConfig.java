@@ -24,6 +24,8 @@ import org.apache.flink.configuration.SecurityOptions;
 import org.apache.flink.runtime.net.SSLUtils;
 import org.apache.flink.util.NetUtils;
 
+import org.apache.flink.shaded.netty4.io.netty.channel.WriteBufferWaterMark;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -129,6 +131,29 @@ public class NettyConfig {
         return config.getInteger(NettyShuffleEnvironmentOptions.SEND_RECEIVE_BUFFER_SIZE);
     }
 
+    public boolean getTcpNoDelay() {
+        return config.getBoolean(NettyShuffleEnvironmentOptions.TCP_NO_DELAY);
+    }
+
+    public int getEpollBusyPollMicros() {
+        return config.getInteger(NettyShuffleEnvironmentOptions.EPOLL_BUSY_POLL_MICROS);
+    }
+
+    public WriteBufferWaterMark getWriteBufferWaterMark() {
+        final int low =
+                config.getInteger(NettyShuffleEnvironmentOptions.WRITE_BUFFER_LOW_WATER_MARK);
+        final int high =
+                config.getInteger(NettyShuffleEnvironmentOptions.WRITE_BUFFER_HIGH_WATER_MARK);
+        checkArgument(
+                low >= 0 && high >= low,
+                "Invalid write buffer watermarks, %s (%s) must be non-negative and not larger than %s (%s).",
+                NettyShuffleEnvironmentOptions.WRITE_BUFFER_LOW_WATER_MARK.key(),
+                low,
+                NettyShuffleEnvironmentOptions.WRITE_BUFFER_HIGH_WATER_MARK.key(),
+                high);
+        return new WriteBufferWaterMark(low, high);
+    }
+
     public TransportType getTransportType() {
         String transport = config.getString(NettyShuffleEnvironmentOptions.TRANSPORT_TYPE);
 
@@ -174,7 +199,10 @@ public class NettyConfig {
                         + "number of client threads: %d (%s), "
                         + "server connect backlog: %d (%s), "
                         + "client connect timeout (sec): %d, "
-                        + "send/receive buffer size (bytes): %d (%s)]";
+                        + "send/receive buffer size (bytes): %d (%s), "
+                        + "tcp no delay: %s, "
+                        + "epoll busy poll (us): %d, "
+                        + "write buffer watermarks (bytes): %s]";
 
         String def = "use Netty's default";
         String man = "manual";
@@ -194,6 +222,9 @@ public class NettyConfig {
                 getServerConnectBacklog() == 0 ? def : man,
                 getClientConnectTimeoutSeconds(),
                 getSendAndReceiveBufferSize(),
-                getSendAndReceiveBufferSize() == 0 ? def : man);
+                getSendAndReceiveBufferSize() == 0 ? def : man,
+                getTcpNoDelay(),
+                getEpollBusyPollMicros(),
+                getWriteBufferWaterMark());
     }
 }
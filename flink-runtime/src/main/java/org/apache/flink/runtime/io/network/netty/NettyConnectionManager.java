@@ -41,6 +41,8 @@ public class NettyConnectionManager implements ConnectionManager {
 
     private final NettyProtocol nettyProtocol;
 
+    private final NettyTransportMetrics transportMetrics = new NettyTransportMetrics();
+
     public NettyConnectionManager(
             ResultPartitionProvider partitionProvider,
             TaskEventPublisher taskEventPublisher,
@@ -66,8 +68,8 @@ public class NettyConnectionManager implements ConnectionManager {
             int maxNumberOfConnections,
             boolean connectionReuseEnabled) {
 
-        this.server = new NettyServer(nettyConfig);
-        this.client = new NettyClient(nettyConfig);
+        this.server = new NettyServer(nettyConfig, transportMetrics);
+        this.client = new NettyClient(nettyConfig, transportMetrics);
         this.bufferPool = checkNotNull(bufferPool);
 
         this.partitionRequestClientFactory =
@@ -111,6 +113,10 @@ public class NettyConnectionManager implements ConnectionManager {
         server.shutdown();
     }
 
+    public NettyTransportMetrics getTransportMetrics() {
+        return transportMetrics;
+    }
+
     NettyClient getClient() {
         return client;
     }
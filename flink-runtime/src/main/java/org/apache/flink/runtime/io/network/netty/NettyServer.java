@@ -27,6 +27,7 @@ import org.apache.flink.shaded.netty4.io.netty.channel.ChannelFuture;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelInitializer;
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelOption;
 import org.apache.flink.shaded.netty4.io.netty.channel.epoll.Epoll;
+import org.apache.flink.shaded.netty4.io.netty.channel.epoll.EpollChannelOption;
 import org.apache.flink.shaded.netty4.io.netty.channel.epoll.EpollEventLoopGroup;
 import org.apache.flink.shaded.netty4.io.netty.channel.epoll.EpollServerSocketChannel;
 import org.apache.flink.shaded.netty4.io.netty.channel.nio.NioEventLoopGroup;
@@ -55,6 +56,8 @@ class NettyServer {
 
     private final NettyConfig config;
 
+    private final NettyTransportMetrics transportMetrics;
+
     private ServerBootstrap bootstrap;
 
     private ChannelFuture bindFuture;
@@ -62,7 +65,12 @@ class NettyServer {
     private InetSocketAddress localAddress;
 
     NettyServer(NettyConfig config) {
+        this(config, new NettyTransportMetrics());
+    }
+
+    NettyServer(NettyConfig config, NettyTransportMetrics transportMetrics) {
         this.config = checkNotNull(config);
+        this.transportMetrics = checkNotNull(transportMetrics);
         localAddress = null;
     }
 
@@ -127,6 +135,10 @@ class NettyServer {
             bootstrap.childOption(ChannelOption.SO_RCVBUF, receiveAndSendBufferSize);
         }
 
+        bootstrap.childOption(ChannelOption.TCP_NODELAY, config.getTcpNoDelay());
+        bootstrap.childOption(
+                ChannelOption.WRITE_BUFFER_WATER_MARK, config.getWriteBufferWaterMark());
+
         // SSL related configuration
         final SSLHandlerFactory sslHandlerFactory;
         try {
@@ -139,7 +151,20 @@ class NettyServer {
         // Child channel pipeline for accepted connections
         // --------------------------------------------------------------------
 
-        bootstrap.childHandler(channelInitializer.apply(sslHandlerFactory));
+        final ServerChannelInitializer serverChannelInitializer =
+                channelInitializer.apply(sslHandlerFactory);
+        bootstrap.childHandler(
+                new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    public void initChannel(SocketChannel channel) {
+                        // the metrics handler sits next to the socket, in front of SSL
+                        channel.pipeline()
+                                .addLast(
+                                        NettyTransportMetricsHandler.HANDLER_NAME,
+                                        new NettyTransportMetricsHandler(transportMetrics))
+                                .addLast(serverChannelInitializer);
+                    }
+                });
 
         // --------------------------------------------------------------------
         // Start Server
@@ -201,6 +226,10 @@ class NettyServer {
         EpollEventLoopGroup epollGroup =
                 new EpollEventLoopGroup(config.getServerNumThreads(), getNamedThreadFactory(name));
         bootstrap.group(epollGroup).channel(EpollServerSocketChannel.class);
+
+        if (config.getEpollBusyPollMicros() > 0) {
+            bootstrap.childOption(EpollChannelOption.SO_BUSY_POLL, config.getEpollBusyPollMicros());
+        }
     }
 
     public static ThreadFactory getNamedThreadFactory(String name) {
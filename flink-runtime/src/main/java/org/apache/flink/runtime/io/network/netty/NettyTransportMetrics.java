@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.metrics.Counter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport level metrics of the data connections of a {@link NettyConnectionManager}, aggregated
+ * over all client and server connections and updated by {@link NettyTransportMetricsHandler}.
+ */
+public class NettyTransportMetrics {
+
+    /** Number of bytes written to the data connections. */
+    private final Counter numBytesWritten = new ConcurrentCounter();
+
+    /** Number of bytes read from the data connections. */
+    private final Counter numBytesRead = new ConcurrentCounter();
+
+    /** Number of flushes of the data connections. */
+    private final Counter numFlushes = new ConcurrentCounter();
+
+    /** Total time in milliseconds the data connections were not writable. */
+    private final Counter writeStallTimeMs = new ConcurrentCounter();
+
+    public Counter getNumBytesWritten() {
+        return numBytesWritten;
+    }
+
+    public Counter getNumBytesRead() {
+        return numBytesRead;
+    }
+
+    public Counter getNumFlushes() {
+        return numFlushes;
+    }
+
+    public Counter getWriteStallTimeMs() {
+        return writeStallTimeMs;
+    }
+
+    /** A {@link Counter} which can be updated concurrently by multiple Netty event loops. */
+    private static final class ConcurrentCounter implements Counter {
+
+        private final LongAdder count = new LongAdder();
+
+        @Override
+        public void inc() {
+            count.increment();
+        }
+
+        @Override
+        public void inc(long n) {
+            count.add(n);
+        }
+
+        @Override
+        public void dec() {
+            count.decrement();
+        }
+
+        @Override
+        public void dec(long n) {
+            count.add(-n);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+    }
+}
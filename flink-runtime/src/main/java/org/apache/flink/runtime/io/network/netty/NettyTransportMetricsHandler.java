@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.util.clock.Clock;
+import org.apache.flink.util.clock.SystemClock;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBufHolder;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelDuplexHandler;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelHandlerContext;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelPromise;
+import org.apache.flink.shaded.netty4.io.netty.channel.FileRegion;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Records the transport level {@link NettyTransportMetrics} of a single data connection. It is
+ * added as the first handler of the channel pipeline, so it sees the bytes as they are passed to
+ * and received from the socket.
+ */
+class NettyTransportMetricsHandler extends ChannelDuplexHandler {
+
+    static final String HANDLER_NAME = "transportMetrics";
+
+    private final NettyTransportMetrics metrics;
+
+    private final Clock clock;
+
+    /** Time at which the channel became unwritable, or -1 if it is writable. */
+    private long writeStallStartNanos = -1;
+
+    NettyTransportMetricsHandler(NettyTransportMetrics metrics) {
+        this(metrics, SystemClock.getInstance());
+    }
+
+    @VisibleForTesting
+    NettyTransportMetricsHandler(NettyTransportMetrics metrics, Clock clock) {
+        this.metrics = checkNotNull(metrics);
+        this.clock = checkNotNull(clock);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        metrics.getNumBytesRead().inc(getNumBytes(msg));
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+            throws Exception {
+        metrics.getNumBytesWritten().inc(getNumBytes(msg));
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        metrics.getNumFlushes().inc();
+        ctx.flush();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (!ctx.channel().isWritable()) {
+            if (writeStallStartNanos < 0) {
+                writeStallStartNanos = clock.relativeTimeNanos();
+            }
+        } else {
+            finishWriteStall();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        finishWriteStall();
+        ctx.fireChannelInactive();
+    }
+
+    private void finishWriteStall() {
+        if (writeStallStartNanos >= 0) {
+            metrics.getWriteStallTimeMs()
+                    .inc(
+                            TimeUnit.NANOSECONDS.toMillis(
+                                    clock.relativeTimeNanos() - writeStallStartNanos));
+            writeStallStartNanos = -1;
+        }
+    }
+
+    private static long getNumBytes(Object msg) {
+        if (msg instanceof ByteBuf) {
+            return ((ByteBuf) msg).readableBytes();
+        } else if (msg instanceof ByteBufHolder) {
+            return ((ByteBufHolder) msg).content().readableBytes();
+        } else if (msg instanceof FileRegion) {
+            return ((FileRegion) msg).count();
+        }
+        return 0;
+    }
+}
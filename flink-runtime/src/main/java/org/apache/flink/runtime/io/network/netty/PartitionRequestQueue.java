@@ -90,6 +90,20 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
         ctx.executor().execute(() -> ctx.pipeline().fireUserEventTriggered(reader));
     }
 
+    /**
+     * Notifies that the given reader has a priority event (e.g. an unaligned checkpoint barrier) at
+     * the head of its queue. The reader is moved to the front of the available readers, so that the
+     * event overtakes the data of the other subpartitions multiplexed over this connection.
+     */
+    void notifyReaderPriorityEvent(final NetworkSequenceViewReader reader) {
+        ctx.executor()
+                .execute(
+                        () ->
+                                ctx.pipeline()
+                                        .fireUserEventTriggered(
+                                                new PriorityEventNotification(reader)));
+    }
+
     /**
      * Try to enqueue the reader once receiving credit notification from the consumer or receiving
      * non-empty reader notification from the producer.
@@ -98,7 +112,17 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
      * availability, so there is no race condition here.
      */
     private void enqueueAvailableReader(final NetworkSequenceViewReader reader) throws Exception {
+        enqueueAvailableReader(reader, false);
+    }
+
+    private void enqueueAvailableReader(
+            final NetworkSequenceViewReader reader, final boolean priority) throws Exception {
         if (reader.isRegisteredAsAvailable()) {
+            if (priority && availableReaders.peekFirst() != reader) {
+                // jump the queue of the other readers waiting for this connection
+                availableReaders.remove(reader);
+                availableReaders.addFirst(reader);
+            }
             return;
         }
 
@@ -116,7 +140,7 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
         // we try trigger the actual write. Otherwise this will be handled by
         // the writeAndFlushNextMessageIfPossible calls.
         boolean triggerWrite = availableReaders.isEmpty();
-        registerAvailableReader(reader);
+        registerAvailableReader(reader, priority);
 
         if (triggerWrite) {
             writeAndFlushNextMessageIfPossible(ctx.channel());
@@ -231,6 +255,8 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 
         if (msg instanceof NetworkSequenceViewReader) {
             enqueueAvailableReader((NetworkSequenceViewReader) msg);
+        } else if (msg instanceof PriorityEventNotification) {
+            enqueueAvailableReader(((PriorityEventNotification) msg).reader, true);
         } else if (msg.getClass() == InputChannelID.class) {
             // Release partition view that get a cancel request.
             InputChannelID toCancel = (InputChannelID) msg;
@@ -287,9 +313,10 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
                     }
                 } else {
                     // This channel was now removed from the available reader queue.
-                    // We re-add it into the queue if it is still available
+                    // We re-add it into the queue if it is still available. A pending priority
+                    // event is sent ahead of the data of all other readers.
                     if (next.moreAvailable()) {
-                        registerAvailableReader(reader);
+                        registerAvailableReader(reader, next.morePriorityEvents());
                     }
 
                     BufferResponse msg =
@@ -315,8 +342,12 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
         }
     }
 
-    private void registerAvailableReader(NetworkSequenceViewReader reader) {
-        availableReaders.add(reader);
+    private void registerAvailableReader(NetworkSequenceViewReader reader, boolean priority) {
+        if (priority) {
+            availableReaders.addFirst(reader);
+        } else {
+            availableReaders.add(reader);
+        }
         reader.setRegisteredAsAvailable(true);
     }
 
@@ -377,6 +408,16 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /** User event asking to move a reader with a pending priority event to the queue head. */
+    private static final class PriorityEventNotification {
+
+        private final NetworkSequenceViewReader reader;
+
+        private PriorityEventNotification(NetworkSequenceViewReader reader) {
+            this.reader = reader;
+        }
+    }
+
     // This listener is called after an element of the current nonEmptyReader has been
     // flushed. If successful, the listener triggers further processing of the
     // queues.
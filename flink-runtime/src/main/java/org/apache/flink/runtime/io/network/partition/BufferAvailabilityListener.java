@@ -33,4 +33,12 @@ public interface BufferAvailabilityListener {
      * @param prioritySequenceNumber the sequence number that identifies the priority buffer.
      */
     default void notifyPriorityEvent(int prioritySequenceNumber) {}
+
+    /**
+     * Whether this listener consumes the data within the same TaskManager as the producer. Data
+     * availability notifications for local consumers may be batched by the producer.
+     */
+    default boolean isLocalConsumer() {
+        return false;
+    }
 }
@@ -19,8 +19,12 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.core.io.IOReadableWritable;
+import org.apache.flink.core.memory.DataOutputSerializer;
 import org.apache.flink.runtime.event.AbstractEvent;
+import org.apache.flink.runtime.io.network.api.serialization.DirectSerializationOutputView;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.api.writer.RecordWriter;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
 import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
@@ -66,6 +70,10 @@ public abstract class BufferWritingResultPartition extends ResultPartition {
 
     private long totalWrittenBytes;
 
+    /** Reused view to serialize records directly into the unicast buffers. */
+    private final DirectSerializationOutputView directOutputView =
+            new DirectSerializationOutputView();
+
     public BufferWritingResultPartition(
             String owningTaskName,
             int partitionIndex,
@@ -170,6 +178,87 @@ public abstract class BufferWritingResultPartition extends ResultPartition {
         // partial buffer, full record
     }
 
+    @Override
+    public int emitRecord(
+            IOReadableWritable record, int targetSubpartition, DataOutputSerializer serializer)
+            throws IOException {
+        if (targetSubpartition < 0 || targetSubpartition >= unicastBufferBuilders.length) {
+            throw new ArrayIndexOutOfBoundsException(targetSubpartition);
+        }
+        BufferBuilder buffer = unicastBufferBuilders[targetSubpartition];
+        if (buffer == null) {
+            buffer = requestNewUnicastBufferBuilder(targetSubpartition);
+            addToSubpartition(buffer, targetSubpartition, 0, 0);
+        }
+
+        // try to serialize the record into the free space of the current buffer, reserving the
+        // space of the length prefix which is only known afterwards
+        int start = buffer.getCommittedBytes();
+        directOutputView.reset(
+                buffer.getMemorySegmentForDirectWrite(),
+                start,
+                buffer.getMaxCapacity(),
+                serializer);
+        int recordBytes;
+        try {
+            directOutputView.skipBytesToWrite(RecordWriter.RECORD_LENGTH_BYTES);
+            record.write(directOutputView);
+
+            if (directOutputView.isOverflowed()) {
+                // the record spans multiple buffers, the serializer holds the complete record
+                serializer.writeIntUnsafe(
+                        serializer.length() - RecordWriter.RECORD_LENGTH_BYTES, 0);
+                recordBytes = serializer.length();
+                emitRecord(serializer.wrapAsByteBuffer(), targetSubpartition);
+                return recordBytes;
+            }
+
+            recordBytes = directOutputView.getWrittenBytes();
+            directOutputView.writeIntUnsafe(recordBytes - RecordWriter.RECORD_LENGTH_BYTES, start);
+            totalWrittenBytes += recordBytes;
+            buffer.commitDirectlyWrittenBytes(recordBytes);
+        } finally {
+            directOutputView.clear();
+        }
+
+        if (buffer.isFull()) {
+            // full buffer, full record
+            finishUnicastBufferBuilder(targetSubpartition);
+        }
+        return recordBytes;
+    }
+
+    @Override
+    public void emitRecords(ByteBuffer records, int targetSubpartition) throws IOException {
+        while (records.hasRemaining()) {
+            BufferBuilder buffer = unicastBufferBuilders[targetSubpartition];
+            int numBytes =
+                    buffer == null
+                            ? 0
+                            : RecordWriter.getLengthOfCompleteRecords(
+                                    records, buffer.getWritableBytes());
+
+            if (numBytes == 0) {
+                // no buffer or the next record does not fit into the current buffer, fall back to
+                // the per record path which may request new buffers for the record
+                emitRecord(RecordWriter.sliceNextRecord(records), targetSubpartition);
+                continue;
+            }
+
+            // partial buffer, full records: copy all the records fitting into the buffer at once
+            totalWrittenBytes += numBytes;
+            ByteBuffer completeRecords = records.duplicate();
+            completeRecords.limit(records.position() + numBytes);
+            buffer.appendAndCommit(completeRecords);
+            records.position(records.position() + numBytes);
+
+            if (buffer.isFull()) {
+                // full buffer, full records
+                finishUnicastBufferBuilder(targetSubpartition);
+            }
+        }
+    }
+
     @Override
     public void broadcastRecord(ByteBuffer record) throws IOException {
         totalWrittenBytes += ((long) record.remaining() * numSubpartitions);
@@ -272,7 +361,7 @@ public abstract class BufferWritingResultPartition extends ResultPartition {
 
     private BufferBuilder appendUnicastDataForNewRecord(
             final ByteBuffer record, final int targetSubpartition) throws IOException {
-        if (targetSubpartition < 0 || targetSubpartition > unicastBufferBuilders.length) {
+        if (targetSubpartition < 0 || targetSubpartition >= unicastBufferBuilders.length) {
             throw new ArrayIndexOutOfBoundsException(targetSubpartition);
         }
         BufferBuilder buffer = unicastBufferBuilders[targetSubpartition];
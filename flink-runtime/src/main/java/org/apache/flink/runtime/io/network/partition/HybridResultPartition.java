@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.api.EndOfData;
+import org.apache.flink.runtime.io.network.api.StopMode;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.util.function.SupplierWithException;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A output data result of an individual task (one partition of an intermediate result) of type
+ * {@link ResultPartitionType#HYBRID}: The result can be consumed while it is being produced, but
+ * the producer never waits for its consumers.
+ *
+ * <p>In this particular implementation, the data is written to one file per sub-partition, so that
+ * consumers which are not running (yet) can read it later. Consumers which are running are served
+ * from memory as long as the partition has enough buffers to keep the data in memory. See {@link
+ * HybridSubpartition} for details.
+ */
+public class HybridResultPartition extends BufferWritingResultPartition {
+
+    /**
+     * The maximum number of buffers a subpartition may keep in memory. The cached buffers count
+     * against the buffers per channel of the buffer pool, and the pool becomes unavailable once a
+     * subpartition reaches that limit. One buffer is always left for writing and one for the buffer
+     * which is currently being written.
+     */
+    private final int maxCachedBuffersPerSubpartition;
+
+    private boolean hasNotifiedEndOfUserRecords;
+
+    public HybridResultPartition(
+            String owningTaskName,
+            int partitionIndex,
+            ResultPartitionID partitionId,
+            ResultPartitionType partitionType,
+            ResultSubpartition[] subpartitions,
+            int numTargetKeyGroups,
+            ResultPartitionManager partitionManager,
+            @Nullable BufferCompressor bufferCompressor,
+            SupplierWithException<BufferPool, IOException> bufferPoolFactory,
+            int maxBuffersPerChannel) {
+
+        super(
+                owningTaskName,
+                partitionIndex,
+                partitionId,
+                checkResultPartitionType(partitionType),
+                subpartitions,
+                numTargetKeyGroups,
+                partitionManager,
+                bufferCompressor,
+                bufferPoolFactory);
+
+        checkArgument(maxBuffersPerChannel > 0, "maxBuffersPerChannel must be positive.");
+        this.maxCachedBuffersPerSubpartition = maxBuffersPerChannel - 2;
+    }
+
+    @Override
+    public void notifyEndOfData(StopMode mode) throws IOException {
+        if (!hasNotifiedEndOfUserRecords) {
+            broadcastEvent(new EndOfData(mode), false);
+            hasNotifiedEndOfUserRecords = true;
+        }
+    }
+
+    @Override
+    public void flush(int targetSubpartition) {
+        flushSubpartition(targetSubpartition, true);
+    }
+
+    @Override
+    public void flushAll() {
+        flushAllSubpartitions(true);
+    }
+
+    /**
+     * Whether a subpartition which already keeps the given number of buffers in memory may keep
+     * another written buffer. We always leave enough buffers for every subpartition to continue
+     * writing, so that the producer is never blocked by buffers which are only kept in memory to
+     * serve the consumers.
+     */
+    boolean canCacheBuffer(int numCachedBuffers) {
+        final BufferPool pool = bufferPool;
+        return numCachedBuffers < maxCachedBuffersPerSubpartition
+                && pool != null
+                && !pool.isDestroyed()
+                && pool.bestEffortGetNumOfUsedBuffers() + numSubpartitions < pool.getNumBuffers();
+    }
+
+    private static ResultPartitionType checkResultPartitionType(ResultPartitionType type) {
+        checkArgument(type == ResultPartitionType.HYBRID);
+        return type;
+    }
+}
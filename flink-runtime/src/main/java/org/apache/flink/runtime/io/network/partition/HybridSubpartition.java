@@ -0,0 +1,477 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.IOUtils;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * The subpartition of a {@link HybridResultPartition}. The data can be consumed while it is being
+ * produced, but (in contrast to the {@link PipelinedSubpartition}) the producer never waits for a
+ * consumer.
+ *
+ * <p>Every finished buffer is appended to a file, so that the subpartition can be consumed
+ * (possibly multiple times) at any point in time, like a {@link BoundedBlockingSubpartition}. As
+ * long as there are consumers reading the subpartition, the most recently written buffers are
+ * additionally kept in memory, so that a consumer which keeps up with the producer is served
+ * without any disk reads. Buffers which are not needed by any reader any more, or which would
+ * exceed the memory budget of the partition, are evicted from memory. Readers then read them from
+ * the file instead.
+ *
+ * <h2>Important Notes on Thread Safety</h2>
+ *
+ * <p>This class assumes a single writer thread that adds buffers, flushes, and finishes the write
+ * phase. The in-memory buffers and the write statistics are guarded by a lock, because they are
+ * accessed by the readers concurrently. Each reader is assumed to be accessed by a single thread.
+ */
+final class HybridSubpartition extends ResultSubpartition {
+
+    /** This lock guards the in-memory buffers, the readers and the disposal of the file. */
+    private final Object lock = new Object();
+
+    /** The partition this subpartition belongs to, used to check the memory budget. */
+    private final HybridResultPartition hybridParent;
+
+    /** The current buffer, may be filled further over time. */
+    @Nullable private BufferConsumer currentBuffer;
+
+    /** Path of the file the data is written to. */
+    private final Path filePath;
+
+    /** The channel all data is written to. Only accessed by the writer thread. */
+    private final FileChannel fileChannel;
+
+    private final ByteBuffer[] headerAndBufferArray;
+
+    /** Size of the buffers the readers use to read the data from the file. */
+    private final int readBufferSize;
+
+    /** The most recently written buffers, in the order they have been written. */
+    @GuardedBy("lock")
+    private final ArrayDeque<CachedBuffer> cachedBuffers = new ArrayDeque<>();
+
+    /** All created and not yet released readers. */
+    @GuardedBy("lock")
+    private final Set<HybridSubpartitionView> readers = new HashSet<>();
+
+    /** The number of bytes which have been written to the file and are visible to readers. */
+    @GuardedBy("lock")
+    private long numBytesWritten;
+
+    /** The counter for the number of data buffers and events. */
+    @GuardedBy("lock")
+    private long numBuffersAndEventsWritten;
+
+    /** Counter for the number of data buffers (not events!) written. */
+    @GuardedBy("lock")
+    private int numDataBuffersWritten;
+
+    /** Flag indicating whether the writing has finished. */
+    private boolean isFinished;
+
+    /** Flag indicating whether the subpartition has been released. */
+    private volatile boolean isReleased;
+
+    HybridSubpartition(
+            int index,
+            HybridResultPartition parent,
+            Path filePath,
+            FileChannel fileChannel,
+            int readBufferSize) {
+        super(index, parent);
+
+        this.hybridParent = parent;
+        this.filePath = checkNotNull(filePath);
+        this.fileChannel = checkNotNull(fileChannel);
+        this.readBufferSize = readBufferSize;
+        this.headerAndBufferArray = BufferReaderWriterUtil.allocatedWriteBufferArray();
+    }
+
+    // ------------------------------------------------------------------------
+    //  Write path
+    // ------------------------------------------------------------------------
+
+    @Override
+    public int add(BufferConsumer bufferConsumer, int partialRecordLength) throws IOException {
+        if (isFinished) {
+            bufferConsumer.close();
+            return -1;
+        }
+
+        flushCurrentBuffer();
+        currentBuffer = bufferConsumer;
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void flush() {
+        // unfortunately, the signature of flush does not allow for any exceptions, so we
+        // need to do this discouraged pattern of runtime exception wrapping
+        try {
+            flushCurrentBuffer();
+        } catch (IOException e) {
+            throw new FlinkRuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private void flushCurrentBuffer() throws IOException {
+        if (currentBuffer != null) {
+            writeAndCloseBufferConsumer(currentBuffer);
+            currentBuffer = null;
+        }
+    }
+
+    private void writeAndCloseBufferConsumer(BufferConsumer bufferConsumer) throws IOException {
+        try {
+            final Buffer buffer = bufferConsumer.build();
+            try {
+                final long numBytes = writeToFile(buffer);
+                appendWrittenBuffer(buffer, numBytes);
+            } finally {
+                buffer.recycleBuffer();
+            }
+        } finally {
+            bufferConsumer.close();
+        }
+    }
+
+    private long writeToFile(Buffer buffer) throws IOException {
+        if (parent.canBeCompressed(buffer)) {
+            final Buffer compressedBuffer =
+                    parent.bufferCompressor.compressToIntermediateBuffer(buffer);
+            try {
+                return BufferReaderWriterUtil.writeToByteChannel(
+                        fileChannel, compressedBuffer, headerAndBufferArray);
+            } finally {
+                if (compressedBuffer != buffer) {
+                    compressedBuffer.recycleBuffer();
+                }
+            }
+        }
+        return BufferReaderWriterUtil.writeToByteChannel(fileChannel, buffer, headerAndBufferArray);
+    }
+
+    /**
+     * Makes a buffer which has been written to the file visible to the readers, and keeps it in
+     * memory if there is a reader that may consume it from there.
+     */
+    private void appendWrittenBuffer(Buffer buffer, long numBytes) {
+        final List<HybridSubpartitionView> readersToNotify;
+
+        synchronized (lock) {
+            if (isReleased) {
+                return;
+            }
+
+            numBytesWritten += numBytes;
+            numBuffersAndEventsWritten++;
+            if (buffer.isBuffer()) {
+                numDataBuffersWritten++;
+            }
+
+            if (readers.isEmpty() || !hybridParent.canCacheBuffer(cachedBuffers.size())) {
+                // nobody consumes the data right now or we are running out of memory, the readers
+                // have to read the data from the file
+                evictCachedBuffers(numBuffersAndEventsWritten);
+            } else {
+                cachedBuffers.add(
+                        new CachedBuffer(
+                                buffer.readOnlySlice().retainBuffer(),
+                                numBuffersAndEventsWritten - 1,
+                                numBytesWritten));
+            }
+
+            readersToNotify = new ArrayList<>(readers.size());
+            for (HybridSubpartitionView reader : readers) {
+                if (reader.getAndResetWaitingForData()) {
+                    readersToNotify.add(reader);
+                }
+            }
+        }
+
+        for (HybridSubpartitionView reader : readersToNotify) {
+            reader.notifyDataAvailable();
+        }
+    }
+
+    @GuardedBy("lock")
+    private void evictCachedBuffers(long untilIndex) {
+        assert Thread.holdsLock(lock);
+
+        while (!cachedBuffers.isEmpty() && cachedBuffers.peekFirst().index < untilIndex) {
+            cachedBuffers.pollFirst().buffer.recycleBuffer();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        checkState(!isReleased, "data partition already released");
+        checkState(!isFinished, "data partition already finished");
+
+        isFinished = true;
+        flushCurrentBuffer();
+        writeAndCloseBufferConsumer(
+                EventSerializer.toBufferConsumer(EndOfPartitionEvent.INSTANCE, false));
+        fileChannel.close();
+    }
+
+    @Override
+    public void release() throws IOException {
+        final List<HybridSubpartitionView> readersToNotify;
+
+        synchronized (lock) {
+            if (isReleased) {
+                return;
+            }
+
+            isReleased = true;
+            isFinished = true; // for fail fast writes
+
+            if (currentBuffer != null) {
+                currentBuffer.close();
+                currentBuffer = null;
+            }
+            evictCachedBuffers(Long.MAX_VALUE);
+
+            readersToNotify = new ArrayList<>(readers);
+            checkReaderReferencesAndDispose();
+        }
+
+        // let the readers notice the release
+        for (HybridSubpartitionView reader : readersToNotify) {
+            reader.notifyDataAvailable();
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    //  Read path
+    // ------------------------------------------------------------------------
+
+    @Override
+    public ResultSubpartitionView createReadView(BufferAvailabilityListener availability)
+            throws IOException {
+        synchronized (lock) {
+            checkState(!isReleased, "data partition already released");
+
+            if (!Files.isReadable(filePath)) {
+                throw new PartitionNotFoundException(parent.getPartitionId());
+            }
+
+            final HybridSubpartitionView reader =
+                    new HybridSubpartitionView(
+                            this,
+                            FileChannel.open(filePath, StandardOpenOption.READ),
+                            readBufferSize,
+                            availability);
+            readers.add(reader);
+            return reader;
+        }
+    }
+
+    /**
+     * Returns the in-memory copy of the buffer with the given index, or null if that buffer is only
+     * available in the file. Returns null as well if the buffer has not been written yet, in which
+     * case the reader gets notified once more data is available.
+     *
+     * <p>All buffers before the given index are considered consumed by the reader and may be
+     * evicted from memory.
+     */
+    @Nullable
+    CachedBuffer getCachedBuffer(HybridSubpartitionView reader, long index) {
+        synchronized (lock) {
+            if (index >= numBuffersAndEventsWritten) {
+                reader.setWaitingForData();
+                return null;
+            }
+
+            evictCachedBuffers(getMinReaderIndex());
+
+            for (CachedBuffer cachedBuffer : cachedBuffers) {
+                if (cachedBuffer.index == index) {
+                    return new CachedBuffer(
+                            cachedBuffer.buffer.readOnlySlice().retainBuffer(),
+                            cachedBuffer.index,
+                            cachedBuffer.nextFileOffset);
+                } else if (cachedBuffer.index > index) {
+                    break;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Whether the buffer with the given index has already been written. */
+    boolean isWritten(long index) {
+        synchronized (lock) {
+            return index < numBuffersAndEventsWritten;
+        }
+    }
+
+    @GuardedBy("lock")
+    private long getMinReaderIndex() {
+        assert Thread.holdsLock(lock);
+
+        long minIndex = Long.MAX_VALUE;
+        for (HybridSubpartitionView reader : readers) {
+            minIndex = Math.min(minIndex, reader.getNextBufferIndex());
+        }
+        return minIndex;
+    }
+
+    /** Gets the number of data buffers after the given number of consumed data buffers. */
+    int getBuffersInBacklog(int numDataBuffersConsumed) {
+        synchronized (lock) {
+            return Math.max(0, numDataBuffersWritten - numDataBuffersConsumed);
+        }
+    }
+
+    void releaseReaderReference(HybridSubpartitionView reader) throws IOException {
+        onConsumedSubpartition();
+
+        synchronized (lock) {
+            if (readers.remove(reader)) {
+                if (readers.isEmpty()) {
+                    evictCachedBuffers(Long.MAX_VALUE);
+                }
+                if (isReleased) {
+                    checkReaderReferencesAndDispose();
+                }
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private void checkReaderReferencesAndDispose() throws IOException {
+        assert Thread.holdsLock(lock);
+
+        // the readers may still read from the file, so we can only delete it after all of them
+        // have been released
+        if (readers.isEmpty()) {
+            IOUtils.closeQuietly(fileChannel);
+            Files.deleteIfExists(filePath);
+        }
+    }
+
+    Throwable getFailureCause() {
+        return parent.getFailureCause();
+    }
+
+    @Override
+    public boolean isReleased() {
+        return isReleased;
+    }
+
+    @VisibleForTesting
+    int getNumberOfCachedBuffers() {
+        synchronized (lock) {
+            return cachedBuffers.size();
+        }
+    }
+
+    @VisibleForTesting
+    Path getFilePath() {
+        return filePath;
+    }
+
+    // ---------------------------- statistics --------------------------------
+
+    @Override
+    public int unsynchronizedGetNumberOfQueuedBuffers() {
+        return 0;
+    }
+
+    @Override
+    public int getNumberOfQueuedBuffers() {
+        return 0;
+    }
+
+    @Override
+    public void bufferSize(int desirableNewBufferSize) {
+        // not supported.
+    }
+
+    @Override
+    protected long getTotalNumberOfBuffersUnsafe() {
+        return numBuffersAndEventsWritten;
+    }
+
+    @Override
+    protected long getTotalNumberOfBytesUnsafe() {
+        return numBytesWritten;
+    }
+
+    @Override
+    int getBuffersInBacklogUnsafe() {
+        return numDataBuffersWritten;
+    }
+
+    // ---------------------------- factories --------------------------------
+
+    /** Creates a HybridSubpartition which writes its data to the given file. */
+    static HybridSubpartition create(
+            int index, HybridResultPartition parent, Path filePath, int readBufferSize)
+            throws IOException {
+        final FileChannel fileChannel =
+                FileChannel.open(filePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return new HybridSubpartition(index, parent, filePath, fileChannel, readBufferSize);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /** A buffer which is kept in memory together with its position in the file. */
+    static final class CachedBuffer {
+
+        final Buffer buffer;
+
+        /** The index of the buffer in the sequence of all buffers of the subpartition. */
+        final long index;
+
+        /** The file offset of the buffer following this buffer. */
+        final long nextFileOffset;
+
+        CachedBuffer(Buffer buffer, long index, long nextFileOffset) {
+            this.buffer = checkNotNull(buffer);
+            this.index = index;
+            this.nextFileOffset = nextFileOffset;
+        }
+    }
+}
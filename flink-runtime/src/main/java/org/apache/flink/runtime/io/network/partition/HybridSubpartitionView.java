@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.runtime.io.network.partition.HybridSubpartition.CachedBuffer;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+import org.apache.flink.util.IOUtils;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The reader (read view) of a {@link HybridSubpartition}. Buffers which are still kept in memory by
+ * the subpartition are served from there, all other buffers are read from the file of the
+ * subpartition using a small dedicated set of read buffers.
+ */
+final class HybridSubpartitionView implements ResultSubpartitionView, BufferRecycler {
+
+    private static final int NUM_READ_BUFFERS = 2;
+
+    /** The result subpartition that we read. */
+    private final HybridSubpartition parent;
+
+    /**
+     * The listener that is notified when there are available buffers for this subpartition view.
+     */
+    private final BufferAvailabilityListener availabilityListener;
+
+    /** The channel to read the data which is not kept in memory any more. */
+    private final FileChannel fileChannel;
+
+    private final ByteBuffer headerBuffer;
+
+    /** The memory to read buffers from the file into. */
+    private final ArrayDeque<MemorySegment> readBuffers;
+
+    /** The next buffer (look ahead). Null if no data is available at the moment. */
+    @Nullable private Buffer nextBuffer;
+
+    /** The index of the next buffer to read from the subpartition, after {@link #nextBuffer}. */
+    private volatile long nextBufferIndex;
+
+    /** The file offset of the buffer with index {@link #nextBufferIndex}. */
+    private long nextFileOffset;
+
+    /** The number of data buffers (not events) that have been returned to the consumer. */
+    private int numDataBuffersConsumed;
+
+    /** Whether the reader waits for the writer to add more data to the subpartition. */
+    @GuardedBy("parent.lock")
+    private boolean isWaitingForData;
+
+    /** Flag whether this reader is released. */
+    private boolean isReleased;
+
+    private int sequenceNumber;
+
+    HybridSubpartitionView(
+            HybridSubpartition parent,
+            FileChannel fileChannel,
+            int readBufferSize,
+            BufferAvailabilityListener availabilityListener) {
+        this.parent = checkNotNull(parent);
+        this.fileChannel = checkNotNull(fileChannel);
+        this.availabilityListener = checkNotNull(availabilityListener);
+        this.headerBuffer = BufferReaderWriterUtil.allocatedHeaderBuffer();
+        this.readBuffers = new ArrayDeque<>(NUM_READ_BUFFERS);
+
+        for (int i = 0; i < NUM_READ_BUFFERS; i++) {
+            readBuffers.addLast(
+                    MemorySegmentFactory.allocateUnpooledOffHeapMemory(readBufferSize, null));
+        }
+    }
+
+    @Nullable
+    @Override
+    public BufferAndBacklog getNextBuffer() throws IOException {
+        if (isReleased) {
+            return null;
+        }
+
+        final Buffer current = nextBuffer != null ? nextBuffer : readNextBuffer();
+        if (current == null) {
+            nextBuffer = null;
+            return null;
+        }
+        if (current.isBuffer()) {
+            numDataBuffersConsumed++;
+        }
+
+        nextBuffer = readNextBuffer();
+        Buffer.DataType nextDataType =
+                nextBuffer != null ? nextBuffer.getDataType() : Buffer.DataType.NONE;
+
+        return BufferAndBacklog.fromBufferAndLookahead(
+                current,
+                nextDataType,
+                parent.getBuffersInBacklog(numDataBuffersConsumed),
+                sequenceNumber++);
+    }
+
+    @Nullable
+    private Buffer readNextBuffer() throws IOException {
+        final CachedBuffer cachedBuffer = parent.getCachedBuffer(this, nextBufferIndex);
+        if (cachedBuffer != null) {
+            nextFileOffset = cachedBuffer.nextFileOffset;
+            nextBufferIndex++;
+            return cachedBuffer.buffer;
+        }
+
+        if (!parent.isWritten(nextBufferIndex)) {
+            return null;
+        }
+
+        final MemorySegment memory = readBuffers.pollFirst();
+        if (memory == null) {
+            // all read buffers are in use, we continue once one of them is recycled
+            return null;
+        }
+
+        fileChannel.position(nextFileOffset);
+        final Buffer buffer =
+                BufferReaderWriterUtil.readFromByteChannel(fileChannel, headerBuffer, memory, this);
+        if (buffer == null) {
+            readBuffers.addLast(memory);
+            throw new IOException(
+                    "Unexpected end of file while reading subpartition "
+                            + parent.getSubPartitionIndex()
+                            + " of partition "
+                            + parent.parent.getPartitionId());
+        }
+
+        nextFileOffset = fileChannel.position();
+        nextBufferIndex++;
+        return buffer;
+    }
+
+    long getNextBufferIndex() {
+        return nextBufferIndex;
+    }
+
+    @GuardedBy("parent.lock")
+    void setWaitingForData() {
+        isWaitingForData = true;
+    }
+
+    @GuardedBy("parent.lock")
+    boolean getAndResetWaitingForData() {
+        final boolean wasWaiting = isWaitingForData;
+        isWaitingForData = false;
+        return wasWaiting;
+    }
+
+    @Override
+    public void recycle(MemorySegment memorySegment) {
+        readBuffers.addLast(memorySegment);
+
+        if (!isReleased) {
+            notifyDataAvailable();
+        }
+    }
+
+    @Override
+    public void notifyDataAvailable() {
+        availabilityListener.notifyDataAvailable();
+    }
+
+    @Override
+    public void releaseAllResources() throws IOException {
+        if (isReleased) {
+            return;
+        }
+        isReleased = true;
+
+        if (nextBuffer != null) {
+            nextBuffer.recycleBuffer();
+            nextBuffer = null;
+        }
+        IOUtils.closeQuietly(fileChannel);
+
+        // Notify the parent that this one is released. This allows the parent to
+        // eventually release all resources (when all readers are done and the
+        // parent is disposed).
+        parent.releaseReaderReference(this);
+    }
+
+    @Override
+    public boolean isReleased() {
+        return isReleased || parent.isReleased();
+    }
+
+    @Override
+    public void resumeConsumption() {
+        throw new UnsupportedOperationException("Method should never be called.");
+    }
+
+    @Override
+    public void acknowledgeAllDataProcessed() {
+        // in case of hybrid partitions there is no upstream to acknowledge, we simply ignore
+        // the ack, as there are no checkpoints
+    }
+
+    @Override
+    public AvailabilityWithBacklog getAvailabilityAndBacklog(int numCreditsAvailable) {
+        final int backlog = parent.getBuffersInBacklog(numDataBuffersConsumed);
+
+        boolean isAvailable;
+        if (nextBuffer != null) {
+            isAvailable = numCreditsAvailable > 0 || !nextBuffer.isBuffer();
+        } else {
+            // the type of the next buffer is not known yet, so we can only announce data if
+            // there is a credit to send it
+            isAvailable =
+                    numCreditsAvailable > 0
+                            && parent.isWritten(nextBufferIndex)
+                            && !readBuffers.isEmpty();
+        }
+        return new AvailabilityWithBacklog(isAvailable, backlog);
+    }
+
+    @Override
+    public Throwable getFailureCause() {
+        Throwable cause = parent.getFailureCause();
+        if (cause != null) {
+            return new ProducerFailedException(cause);
+        }
+        return null;
+    }
+
+    @Override
+    public int unsynchronizedGetNumberOfQueuedBuffers() {
+        return parent.unsynchronizedGetNumberOfQueuedBuffers();
+    }
+
+    @Override
+    public int getNumberOfQueuedBuffers() {
+        return parent.getNumberOfQueuedBuffers();
+    }
+
+    @Override
+    public void notifyNewBufferSize(int newBufferSize) {
+        parent.bufferSize(newBufferSize);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Hybrid Subpartition Reader: ID=%s, index=%d",
+                parent.parent.getPartitionId(), parent.getSubPartitionIndex());
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.flink.runtime.io.network.partition;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.FileRegionBuffer;
 
 import javax.annotation.Nullable;
 
@@ -28,6 +29,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
+import static org.apache.flink.runtime.io.network.partition.BufferReaderWriterUtil.readFileRegionFromByteChannel;
 import static org.apache.flink.runtime.io.network.partition.BufferReaderWriterUtil.readFromByteChannel;
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -114,6 +116,46 @@ class PartitionedFileReader {
         return buffer;
     }
 
+    /**
+     * Reads the header of the next buffer from the current region of the target {@link
+     * PartitionedFile} and moves the read position forward. Different from {@link
+     * #readCurrentRegion}, the data is not copied, the returned buffer is a {@link
+     * FileRegionBuffer} referencing the data in the data file which can be transferred directly
+     * from the file to the network.
+     *
+     * @return A {@link FileRegionBuffer} referencing the data of the next buffer.
+     */
+    @Nullable
+    Buffer readCurrentRegionAsFileRegion() throws IOException {
+        if (currentRegionRemainingBuffers == 0) {
+            return null;
+        }
+
+        dataFileChannel.position(nextOffsetToRead);
+        Buffer buffer = readFileRegionFromByteChannel(dataFileChannel, headerBuf);
+        nextOffsetToRead = dataFileChannel.position();
+        --currentRegionRemainingBuffers;
+        return buffer;
+    }
+
+    /**
+     * Gets the total number of buffers (including events) of the target subpartition in the target
+     * {@link PartitionedFile}. The current read position is not changed.
+     */
+    int getNumBuffers() throws IOException {
+        ByteBuffer indexEntry = ByteBuffer.allocate(PartitionedFile.INDEX_ENTRY_SIZE);
+        BufferReaderWriterUtil.configureByteBuffer(indexEntry);
+
+        int numBuffers = 0;
+        for (int region = 0; region < partitionedFile.getNumRegions(); ++region) {
+            partitionedFile.getIndexEntry(indexFileChannel, indexEntry, region, targetSubpartition);
+            // skip the file offset of the region
+            indexEntry.getLong();
+            numBuffers += indexEntry.getInt();
+        }
+        return numBuffers;
+    }
+
     boolean hasRemaining() throws IOException {
         moveToNextReadableRegion();
         return currentRegionRemainingBuffers > 0;
@@ -79,6 +79,13 @@ public class PipelinedSubpartition extends ResultSubpartition
      */
     private final int receiverExclusiveBuffersPerChannel;
 
+    /**
+     * Number of finished buffers to accumulate before notifying a local consumer configured by
+     * {@link
+     * org.apache.flink.configuration.NettyShuffleEnvironmentOptions#NETWORK_LOCAL_CHANNEL_NOTIFICATION_BATCH_SIZE}.
+     */
+    private final int localNotificationBatchSize;
+
     /** All buffers of this subpartition. Access to the buffers is synchronized on this object. */
     final PrioritizedDeque<BufferConsumerWithPartialRecordLength> buffers =
             new PrioritizedDeque<>();
@@ -119,16 +126,33 @@ public class PipelinedSubpartition extends ResultSubpartition
 
     int sequenceNumber = 0;
 
+    /**
+     * Number of finished buffers after which the current read view is notified, 1 unless the view
+     * belongs to a local consumer.
+     */
+    @GuardedBy("buffers")
+    private int notificationBatchSize = 1;
+
     // ------------------------------------------------------------------------
 
     PipelinedSubpartition(
             int index, int receiverExclusiveBuffersPerChannel, ResultPartition parent) {
+        this(index, receiverExclusiveBuffersPerChannel, 1, parent);
+    }
+
+    PipelinedSubpartition(
+            int index,
+            int receiverExclusiveBuffersPerChannel,
+            int localNotificationBatchSize,
+            ResultPartition parent) {
         super(index, parent);
 
         checkArgument(
                 receiverExclusiveBuffersPerChannel >= 0,
                 "Buffers per channel must be non-negative.");
+        checkArgument(localNotificationBatchSize > 0, "Notification batch size must be positive.");
         this.receiverExclusiveBuffersPerChannel = receiverExclusiveBuffersPerChannel;
+        this.localNotificationBatchSize = localNotificationBatchSize;
     }
 
     @Override
@@ -185,7 +209,7 @@ public class PipelinedSubpartition extends ResultSubpartition
             }
             updateStatistics(bufferConsumer);
             increaseBuffersInBacklog(bufferConsumer);
-            notifyDataAvailable = finish || shouldNotifyDataAvailable();
+            notifyDataAvailable = finish || shouldNotifyDataAvailable(bufferConsumer);
 
             isFinished |= finish;
             newBufferSize = bufferSize;
@@ -412,6 +436,8 @@ public class PipelinedSubpartition extends ResultSubpartition
                     parent.getPartitionId());
 
             readView = new PipelinedSubpartitionView(this, availabilityListener);
+            notificationBatchSize =
+                    availabilityListener.isLocalConsumer() ? localNotificationBatchSize : 1;
         }
 
         return readView;
@@ -505,10 +531,13 @@ public class PipelinedSubpartition extends ResultSubpartition
                 return;
             }
             // if there is more then 1 buffer, we already notified the reader
-            // (at the latest when adding the second buffer)
+            // (at the latest when adding the second buffer) unless notifications are batched
             boolean isDataAvailableInUnfinishedBuffer =
                     buffers.size() == 1 && buffers.peek().getBufferConsumer().isDataAvailable();
-            notifyDataAvailable = !isBlocked && isDataAvailableInUnfinishedBuffer;
+            notifyDataAvailable =
+                    !isBlocked
+                            && (isDataAvailableInUnfinishedBuffer
+                                    || (notificationBatchSize > 1 && buffers.size() > 1));
             flushRequested = buffers.size() > 1 || isDataAvailableInUnfinishedBuffer;
         }
         if (notifyDataAvailable) {
@@ -576,12 +605,24 @@ public class PipelinedSubpartition extends ResultSubpartition
     }
 
     @GuardedBy("buffers")
-    private boolean shouldNotifyDataAvailable() {
-        // Notify only when we added first finished buffer.
-        return readView != null
-                && !flushRequested
-                && !isBlocked
-                && getNumberOfFinishedBuffers() == 1;
+    private boolean shouldNotifyDataAvailable(BufferConsumer addedBufferConsumer) {
+        if (readView == null || flushRequested || isBlocked) {
+            return false;
+        }
+
+        final int numberOfFinishedBuffers = getNumberOfFinishedBuffers();
+        if (notificationBatchSize == 1) {
+            // Notify only when we added first finished buffer.
+            return numberOfFinishedBuffers == 1;
+        }
+
+        // Notify when the batch is complete. Events must not wait for further data and the
+        // producer must not wait for its buffers to be recycled by a consumer which has not been
+        // notified yet, so notify early in these cases.
+        return numberOfFinishedBuffers == notificationBatchSize
+                || (numberOfFinishedBuffers > 0
+                        && (!addedBufferConsumer.isBuffer()
+                                || !parent.getBufferPool().isAvailable()));
     }
 
     private void notifyDataAvailable() {
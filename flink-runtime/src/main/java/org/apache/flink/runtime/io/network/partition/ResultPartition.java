@@ -343,6 +343,12 @@ public abstract class ResultPartition implements ResultPartitionWriter {
         checkState(!isFinished, "Partition already finished.");
     }
 
+    /** Returns the compressor of this partition, or null if the data is not compressed. */
+    @Nullable
+    public BufferCompressor getBufferCompressor() {
+        return bufferCompressor;
+    }
+
     @VisibleForTesting
     public ResultPartitionManager getPartitionManager() {
         return partitionManager;
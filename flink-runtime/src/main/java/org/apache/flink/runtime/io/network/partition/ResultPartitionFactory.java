@@ -73,6 +73,10 @@ public class ResultPartitionFactory {
 
     private final int sortShuffleMinParallelism;
 
+    private final boolean sortShuffleDirectFileTransferEnabled;
+
+    private final int localChannelNotificationBatchSize;
+
     private final boolean sslEnabled;
 
     public ResultPartitionFactory(
@@ -90,6 +94,8 @@ public class ResultPartitionFactory {
             int maxBuffersPerChannel,
             int sortShuffleMinBuffers,
             int sortShuffleMinParallelism,
+            boolean sortShuffleDirectFileTransferEnabled,
+            int localChannelNotificationBatchSize,
             boolean sslEnabled) {
 
         this.partitionManager = partitionManager;
@@ -106,6 +112,8 @@ public class ResultPartitionFactory {
         this.maxBuffersPerChannel = maxBuffersPerChannel;
         this.sortShuffleMinBuffers = sortShuffleMinBuffers;
         this.sortShuffleMinParallelism = sortShuffleMinParallelism;
+        this.sortShuffleDirectFileTransferEnabled = sortShuffleDirectFileTransferEnabled;
+        this.localChannelNotificationBatchSize = localChannelNotificationBatchSize;
         this.sslEnabled = sslEnabled;
     }
 
@@ -163,7 +171,10 @@ public class ResultPartitionFactory {
                 } else {
                     subpartitions[i] =
                             new PipelinedSubpartition(
-                                    i, configuredNetworkBuffersPerChannel, pipelinedPartition);
+                                    i,
+                                    configuredNetworkBuffersPerChannel,
+                                    localChannelNotificationBatchSize,
+                                    pipelinedPartition);
                 }
             }
 
@@ -184,7 +195,8 @@ public class ResultPartitionFactory {
                                 partitionManager,
                                 channelManager.createChannel().getPath(),
                                 bufferCompressor,
-                                bufferPoolFactory);
+                                bufferPoolFactory,
+                                sortShuffleDirectFileTransferEnabled && !sslEnabled);
             } else {
                 final BoundedBlockingResultPartition blockingPartition =
                         new BoundedBlockingResultPartition(
@@ -208,6 +220,24 @@ public class ResultPartitionFactory {
 
                 partition = blockingPartition;
             }
+        } else if (type == ResultPartitionType.HYBRID) {
+            final HybridResultPartition hybridPartition =
+                    new HybridResultPartition(
+                            taskNameWithSubtaskAndId,
+                            partitionIndex,
+                            id,
+                            type,
+                            subpartitions,
+                            maxParallelism,
+                            partitionManager,
+                            bufferCompressor,
+                            bufferPoolFactory,
+                            maxBuffersPerChannel);
+
+            initializeHybridPartitions(
+                    subpartitions, hybridPartition, networkBufferSize, channelManager);
+
+            partition = hybridPartition;
         } else {
             throw new IllegalArgumentException("Unrecognized ResultPartitionType: " + type);
         }
@@ -245,6 +275,29 @@ public class ResultPartitionFactory {
         }
     }
 
+    private static void initializeHybridPartitions(
+            ResultSubpartition[] subpartitions,
+            HybridResultPartition parent,
+            int networkBufferSize,
+            FileChannelManager channelManager) {
+        int i = 0;
+        try {
+            for (i = 0; i < subpartitions.length; i++) {
+                subpartitions[i] =
+                        HybridSubpartition.create(
+                                i,
+                                parent,
+                                channelManager.createChannel().getPathFile().toPath(),
+                                networkBufferSize);
+            }
+        } catch (IOException e) {
+            // undo all the work so that a failed constructor does not leave any resources
+            // in need of disposal
+            releasePartitionsQuietly(subpartitions, i);
+            throw new FlinkRuntimeException(e);
+        }
+    }
+
     private static void releasePartitionsQuietly(ResultSubpartition[] partitions, int until) {
         for (int i = 0; i < until; i++) {
             final ResultSubpartition subpartition = partitions[i];
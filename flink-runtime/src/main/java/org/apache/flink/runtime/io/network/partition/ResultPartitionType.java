@@ -32,7 +32,7 @@ public enum ResultPartitionType {
      * {@link #PIPELINED} partitions), but only released through the scheduler, when it determines
      * that the partition is no longer needed.
      */
-    BLOCKING(false, false, false, false, true),
+    BLOCKING(false, false, false, false, true, false),
 
     /**
      * BLOCKING_PERSISTENT partitions are similar to {@link #BLOCKING} partitions, but have a
@@ -45,7 +45,7 @@ public enum ResultPartitionType {
      * scenarios, like when the TaskManager exits or when the TaskManager loses connection to
      * JobManager / ResourceManager for too long.
      */
-    BLOCKING_PERSISTENT(false, false, false, true, true),
+    BLOCKING_PERSISTENT(false, false, false, true, true, false),
 
     /**
      * A pipelined streaming data exchange. This is applicable to both bounded and unbounded
@@ -57,7 +57,7 @@ public enum ResultPartitionType {
      * <p>This result partition type may keep an arbitrary amount of data in-flight, in contrast to
      * the {@link #PIPELINED_BOUNDED} variant.
      */
-    PIPELINED(true, true, false, false, false),
+    PIPELINED(true, true, false, false, false, false),
 
     /**
      * Pipelined partitions with a bounded (local) buffer pool.
@@ -70,7 +70,7 @@ public enum ResultPartitionType {
      * <p>For batch jobs, it will be best to keep this unlimited ({@link #PIPELINED}) since there
      * are no checkpoint barriers.
      */
-    PIPELINED_BOUNDED(true, true, true, false, false),
+    PIPELINED_BOUNDED(true, true, true, false, false, false),
 
     /**
      * Pipelined partitions with a bounded (local) buffer pool to support downstream task to
@@ -81,7 +81,23 @@ public enum ResultPartitionType {
      * in that {@link #PIPELINED_APPROXIMATE} partition can be reconnected after down stream task
      * fails.
      */
-    PIPELINED_APPROXIMATE(true, true, true, false, true);
+    PIPELINED_APPROXIMATE(true, true, true, false, true, false),
+
+    /**
+     * Hybrid partitions have the life cycle of {@link #BLOCKING} partitions, but can already be
+     * consumed while they are being produced.
+     *
+     * <p>The data is served from memory to consumers that are running and keep up with the
+     * producer. Everything is additionally written to a local file, so that consumers which are not
+     * running yet (for example because there are not enough slots) or lag behind read the data from
+     * disk instead of back-pressuring the producer.
+     *
+     * <p>Like {@link #BLOCKING} partitions, hybrid partitions can be consumed multiple times and
+     * are only released through the scheduler. This allows the consumers to be placed in a
+     * different pipelined region than the producer while still being scheduled as soon as the
+     * producer is deployed.
+     */
+    HYBRID(false, false, true, false, true, true);
 
     /** Can the partition be consumed while being produced? */
     private final boolean isPipelined;
@@ -107,18 +123,23 @@ public enum ResultPartitionType {
      */
     private final boolean isReconnectable;
 
+    /** Can the partition be consumed while being produced despite its blocking life cycle? */
+    private final boolean isHybrid;
+
     /** Specifies the behaviour of an intermediate result partition at runtime. */
     ResultPartitionType(
             boolean isPipelined,
             boolean hasBackPressure,
             boolean isBounded,
             boolean isPersistent,
-            boolean isReconnectable) {
+            boolean isReconnectable,
+            boolean isHybrid) {
         this.isPipelined = isPipelined;
         this.hasBackPressure = hasBackPressure;
         this.isBounded = isBounded;
         this.isPersistent = isPersistent;
         this.isReconnectable = isReconnectable;
+        this.isHybrid = isHybrid;
     }
 
     public boolean hasBackPressure() {
@@ -137,6 +158,16 @@ public enum ResultPartitionType {
         return isReconnectable;
     }
 
+    /**
+     * Whether this partition can be consumed while it is still being produced, although it has the
+     * life cycle of a blocking partition.
+     *
+     * @return <tt>true</tt> if consumers may be scheduled before the producer has finished
+     */
+    public boolean isHybrid() {
+        return isHybrid;
+    }
+
     /**
      * Whether this partition uses a limited number of (network) buffers or not.
      *
@@ -42,9 +42,11 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Queue;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
@@ -114,6 +116,17 @@ public class SortMergeResultPartition extends ResultPartition {
      */
     private final SortMergeResultPartitionReadScheduler readScheduler;
 
+    /**
+     * Whether to transfer data from the {@link PartitionedFile} to the network directly (zero-copy)
+     * instead of reading it by the {@link #readScheduler}.
+     */
+    private final boolean useDirectFileTransfer;
+
+    /** All subpartition readers which transfer data from the {@link PartitionedFile} directly. */
+    @GuardedBy("lock")
+    private final Set<SortMergeSubpartitionDirectTransferReader> directTransferReaders =
+            new HashSet<>();
+
     /**
      * Number of guaranteed network buffers can be used by {@link #unicastDataBuffer} and {@link
      * #broadcastDataBuffer}.
@@ -145,6 +158,36 @@ public class SortMergeResultPartition extends ResultPartition {
             String resultFileBasePath,
             @Nullable BufferCompressor bufferCompressor,
             SupplierWithException<BufferPool, IOException> bufferPoolFactory) {
+        this(
+                owningTaskName,
+                partitionIndex,
+                partitionId,
+                partitionType,
+                numSubpartitions,
+                numTargetKeyGroups,
+                readBufferPool,
+                readIOExecutor,
+                partitionManager,
+                resultFileBasePath,
+                bufferCompressor,
+                bufferPoolFactory,
+                false);
+    }
+
+    public SortMergeResultPartition(
+            String owningTaskName,
+            int partitionIndex,
+            ResultPartitionID partitionId,
+            ResultPartitionType partitionType,
+            int numSubpartitions,
+            int numTargetKeyGroups,
+            BatchShuffleReadBufferPool readBufferPool,
+            Executor readIOExecutor,
+            ResultPartitionManager partitionManager,
+            String resultFileBasePath,
+            @Nullable BufferCompressor bufferCompressor,
+            SupplierWithException<BufferPool, IOException> bufferPoolFactory,
+            boolean useDirectFileTransfer) {
 
         super(
                 owningTaskName,
@@ -168,6 +211,7 @@ public class SortMergeResultPartition extends ResultPartition {
         this.readScheduler =
                 new SortMergeResultPartitionReadScheduler(
                         numSubpartitions, readBufferPool, readIOExecutor, lock);
+        this.useDirectFileTransfer = useDirectFileTransfer;
     }
 
     @Override
@@ -234,6 +278,15 @@ public class SortMergeResultPartition extends ResultPartition {
                 fileWriter.releaseQuietly();
             }
 
+            // the file can be deleted safely even if it is still opened by the direct transfer
+            // readers, the data will not be read anymore after the readers are failed
+            IllegalStateException releaseCause =
+                    new IllegalStateException("Result partition has been already released.");
+            for (SortMergeSubpartitionDirectTransferReader reader : directTransferReaders) {
+                reader.fail(releaseCause);
+            }
+            directTransferReaders.clear();
+
             // delete the produced file only when no reader is reading now
             readScheduler
                     .release()
@@ -503,11 +556,25 @@ public class SortMergeResultPartition extends ResultPartition {
                 throw new PartitionNotFoundException(getPartitionId());
             }
 
+            if (useDirectFileTransfer) {
+                SortMergeSubpartitionDirectTransferReader reader =
+                        new SortMergeSubpartitionDirectTransferReader(
+                                this, subpartitionIndex, availabilityListener, resultFile);
+                directTransferReaders.add(reader);
+                return reader;
+            }
+
             return readScheduler.createSubpartitionReader(
                     availabilityListener, subpartitionIndex, resultFile);
         }
     }
 
+    void releaseDirectTransferReader(SortMergeSubpartitionDirectTransferReader reader) {
+        synchronized (lock) {
+            directTransferReaders.remove(reader);
+        }
+    }
+
     @Override
     public void flushAll() {
         try {
@@ -153,6 +153,7 @@ class SortMergeResultPartitionReadScheduler implements Runnable, BufferRecycler
     @Override
     public synchronized void run() {
         Queue<SortMergeSubpartitionReader> availableReaders = getAvailableReaders();
+        boolean hasAvailableReaders = !availableReaders.isEmpty();
 
         Queue<MemorySegment> buffers = allocateBuffers(availableReaders);
         int numBuffersAllocated = buffers.size();
@@ -162,7 +163,7 @@ class SortMergeResultPartitionReadScheduler implements Runnable, BufferRecycler
         int numBuffersRead = numBuffersAllocated - buffers.size();
         releaseBuffers(buffers);
 
-        removeFinishedAndFailedReaders(numBuffersRead, finishedReaders);
+        removeFinishedAndFailedReaders(numBuffersRead, finishedReaders, hasAvailableReaders);
     }
 
     @VisibleForTesting
@@ -251,7 +252,9 @@ class SortMergeResultPartitionReadScheduler implements Runnable, BufferRecycler
     }
 
     private void removeFinishedAndFailedReaders(
-            int numBuffersRead, Set<SortMergeSubpartitionReader> finishedReaders) {
+            int numBuffersRead,
+            Set<SortMergeSubpartitionReader> finishedReaders,
+            boolean hasAvailableReaders) {
         synchronized (lock) {
             for (SortMergeSubpartitionReader reader : finishedReaders) {
                 allReaders.remove(reader);
@@ -270,7 +273,11 @@ class SortMergeResultPartitionReadScheduler implements Runnable, BufferRecycler
 
             numRequestedBuffers += numBuffersRead;
             isRunning = false;
-            mayTriggerReading();
+            // if all readers are throttled by their consumers, they all hold buffers not consumed
+            // yet and reading will be triggered again when these buffers are recycled
+            if (hasAvailableReaders || numRequestedBuffers <= 0) {
+                mayTriggerReading();
+            }
             mayNotifyReleased();
         }
     }
@@ -289,7 +296,15 @@ class SortMergeResultPartitionReadScheduler implements Runnable, BufferRecycler
                 return new ArrayDeque<>();
             }
 
-            return new PriorityQueue<>(allReaders);
+            // readers whose consumers can not keep up with the data already read are skipped, so
+            // the read buffers are used by the readers of the fast consumers
+            Queue<SortMergeSubpartitionReader> availableReaders = new PriorityQueue<>();
+            for (SortMergeSubpartitionReader reader : allReaders) {
+                if (reader.shouldReadMore()) {
+                    availableReaders.add(reader);
+                }
+            }
+            return availableReaders;
         }
     }
 
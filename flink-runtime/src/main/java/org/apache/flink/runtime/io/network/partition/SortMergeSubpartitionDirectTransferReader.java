@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+import org.apache.flink.util.IOUtils;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Subpartition data reader for {@link SortMergeResultPartition} based on {@link
+ * org.apache.flink.shaded.netty4.io.netty.channel.FileRegion}. Different from {@link
+ * SortMergeSubpartitionReader}, the data is not read into the batch shuffle read buffers but
+ * transferred by netty from the {@link PartitionedFile} to the network directly (zero-copy).
+ */
+class SortMergeSubpartitionDirectTransferReader implements ResultSubpartitionView {
+
+    private final Object lock = new Object();
+
+    /** The result partition that we read. */
+    private final SortMergeResultPartition parent;
+
+    /** Index of the subpartition that we read. */
+    private final int subpartitionIndex;
+
+    /** Listener to notify when data is available. */
+    private final BufferAvailabilityListener availabilityListener;
+
+    /** Data file channel of the target {@link PartitionedFile}, owned by this reader. */
+    private final FileChannel dataFileChannel;
+
+    /** Index file channel of the target {@link PartitionedFile}, owned by this reader. */
+    private final FileChannel indexFileChannel;
+
+    /** File reader used to read the buffer headers of the target subpartition. */
+    @GuardedBy("lock")
+    private final PartitionedFileReader fileReader;
+
+    /** The next buffer to be returned, read ahead to know the data type of the next buffer. */
+    @GuardedBy("lock")
+    @Nullable
+    private Buffer nextBuffer;
+
+    /** The remaining number of data buffers and events of the target subpartition. */
+    @GuardedBy("lock")
+    private int numRemainingBuffers;
+
+    /** Whether this reader is released or not. */
+    @GuardedBy("lock")
+    private boolean isReleased;
+
+    /** Cause of failure which should be propagated to the consumer. */
+    @GuardedBy("lock")
+    private Throwable failureCause;
+
+    /** Sequence number of the next buffer to be sent to the consumer. */
+    private int sequenceNumber;
+
+    SortMergeSubpartitionDirectTransferReader(
+            SortMergeResultPartition parent,
+            int subpartitionIndex,
+            BufferAvailabilityListener availabilityListener,
+            PartitionedFile resultFile)
+            throws IOException {
+        checkArgument(subpartitionIndex >= 0, "Illegal subpartition index.");
+        this.parent = checkNotNull(parent);
+        this.subpartitionIndex = subpartitionIndex;
+        this.availabilityListener = checkNotNull(availabilityListener);
+
+        checkNotNull(resultFile);
+        FileChannel dataChannel = null;
+        FileChannel indexChannel = null;
+        try {
+            dataChannel = openFileChannel(resultFile.getDataFilePath());
+            indexChannel = openFileChannel(resultFile.getIndexFilePath());
+            this.fileReader =
+                    new PartitionedFileReader(
+                            resultFile, subpartitionIndex, dataChannel, indexChannel);
+            this.numRemainingBuffers = fileReader.getNumBuffers();
+            this.nextBuffer = readNextBuffer();
+        } catch (Throwable throwable) {
+            IOUtils.closeAllQuietly(dataChannel, indexChannel);
+            throw throwable;
+        }
+        this.dataFileChannel = dataChannel;
+        this.indexFileChannel = indexChannel;
+    }
+
+    private static FileChannel openFileChannel(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    @GuardedBy("lock")
+    @Nullable
+    private Buffer readNextBuffer() throws IOException {
+        if (!fileReader.hasRemaining()) {
+            return null;
+        }
+        return fileReader.readCurrentRegionAsFileRegion();
+    }
+
+    @Nullable
+    @Override
+    public BufferAndBacklog getNextBuffer() throws IOException {
+        synchronized (lock) {
+            // as per contract, we must return null when the reader is empty,
+            // but also in case the reader is disposed (rather than throwing an exception)
+            if (isReleased || nextBuffer == null) {
+                return null;
+            }
+
+            Buffer current = nextBuffer;
+            --numRemainingBuffers;
+            nextBuffer = readNextBuffer();
+
+            return BufferAndBacklog.fromBufferAndLookahead(
+                    current,
+                    nextBuffer == null ? Buffer.DataType.NONE : nextBuffer.getDataType(),
+                    getDataBufferBacklog(),
+                    sequenceNumber++);
+        }
+    }
+
+    @GuardedBy("lock")
+    private int getDataBufferBacklog() {
+        // We simply assume there are no events except the trailing ones (EndOfData and
+        // EndOfPartitionEvent) for batch jobs to avoid reading all the headers in advance
+        if (nextBuffer != null && !nextBuffer.isBuffer()) {
+            return 0;
+        }
+        return numRemainingBuffers;
+    }
+
+    @Override
+    public AvailabilityWithBacklog getAvailabilityAndBacklog(int numCreditsAvailable) {
+        synchronized (lock) {
+            boolean isAvailable;
+            if (isReleased) {
+                isAvailable = true;
+            } else if (nextBuffer == null) {
+                isAvailable = false;
+            } else {
+                isAvailable = numCreditsAvailable > 0 || !nextBuffer.isBuffer();
+            }
+            return new AvailabilityWithBacklog(isAvailable, getDataBufferBacklog());
+        }
+    }
+
+    /** Releases this reader and propagates the given failure to the consumer. */
+    void fail(Throwable throwable) {
+        checkArgument(throwable != null, "Must be not null.");
+
+        releaseInternal(throwable);
+        // notify the netty thread which will propagate the error to the consumer task
+        notifyDataAvailable();
+    }
+
+    @Override
+    public void releaseAllResources() {
+        releaseInternal(null);
+        // Notify the parent that this one is released. This allows the parent to
+        // eventually release all resources (when all readers are done and the
+        // parent is disposed).
+        parent.releaseDirectTransferReader(this);
+    }
+
+    private void releaseInternal(@Nullable Throwable throwable) {
+        synchronized (lock) {
+            if (isReleased) {
+                return;
+            }
+
+            isReleased = true;
+            if (failureCause == null) {
+                failureCause = throwable;
+            }
+            nextBuffer = null;
+            numRemainingBuffers = 0;
+        }
+        IOUtils.closeAllQuietly(dataFileChannel, indexFileChannel);
+    }
+
+    @Override
+    public boolean isReleased() {
+        synchronized (lock) {
+            return isReleased;
+        }
+    }
+
+    @Override
+    public Throwable getFailureCause() {
+        synchronized (lock) {
+            return failureCause;
+        }
+    }
+
+    @Override
+    public void notifyDataAvailable() {
+        availabilityListener.notifyDataAvailable();
+    }
+
+    @Override
+    public void resumeConsumption() {
+        throw new UnsupportedOperationException("Method should never be called.");
+    }
+
+    @Override
+    public void acknowledgeAllDataProcessed() {
+        // in case of bounded partitions there is no upstream to acknowledge, we simply ignore
+        // the ack, as there are no checkpoints
+    }
+
+    @Override
+    public int unsynchronizedGetNumberOfQueuedBuffers() {
+        // the data is read from the file on demand, so there is never any queued buffer
+        return 0;
+    }
+
+    @Override
+    public int getNumberOfQueuedBuffers() {
+        return 0;
+    }
+
+    @Override
+    public void notifyNewBufferSize(int newBufferSize) {}
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Sort-Merge Subpartition Direct Transfer Reader: ID=%s, index=%d",
+                parent.getPartitionId(), subpartitionIndex);
+    }
+}
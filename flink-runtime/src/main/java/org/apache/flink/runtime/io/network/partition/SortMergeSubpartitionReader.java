@@ -40,6 +40,13 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
 class SortMergeSubpartitionReader
         implements ResultSubpartitionView, Comparable<SortMergeSubpartitionReader> {
 
+    /**
+     * Number of buffers of the size announced by the consumer via buffer debloating to read ahead.
+     * It keeps the data in memory in line with the amount of data the consumer can take within the
+     * debloating target time.
+     */
+    private static final int NUM_DEBLOATED_READ_AHEAD_BUFFERS = 2;
+
     private final Object lock = new Object();
 
     /** A {@link CompletableFuture} to be completed when this subpartition reader is released. */
@@ -70,8 +77,16 @@ class SortMergeSubpartitionReader
     /** Sequence number of the next buffer to be sent to the consumer. */
     private int sequenceNumber;
 
+    @GuardedBy("lock")
     private long totalBuffersSize;
 
+    /**
+     * Maximum number of bytes read but not consumed yet. It follows the throughput of the consumer
+     * if buffer debloating is enabled and is unlimited otherwise.
+     */
+    @GuardedBy("lock")
+    private long maxBufferedBytes = Long.MAX_VALUE;
+
     SortMergeSubpartitionReader(
             BufferAvailabilityListener listener, PartitionedFileReader fileReader) {
         this.availabilityListener = checkNotNull(listener);
@@ -131,7 +146,7 @@ class SortMergeSubpartitionReader
 
     /** This method is called by the IO thread of {@link SortMergeResultPartitionReadScheduler}. */
     boolean readBuffers(Queue<MemorySegment> buffers, BufferRecycler recycler) throws IOException {
-        while (!buffers.isEmpty()) {
+        while (!buffers.isEmpty() && shouldReadMore()) {
             MemorySegment segment = buffers.poll();
 
             Buffer buffer;
@@ -149,6 +164,17 @@ class SortMergeSubpartitionReader
         return fileReader.hasRemaining();
     }
 
+    /**
+     * Whether more data should be read for this reader. At least one buffer can always be read
+     * ahead, more buffers can only be read if the data already read does not exceed the amount
+     * derived from the debloated buffer size of the consumer.
+     */
+    boolean shouldReadMore() {
+        synchronized (lock) {
+            return buffersRead.isEmpty() || totalBuffersSize < maxBufferedBytes;
+        }
+    }
+
     CompletableFuture<?> getReleaseFuture() {
         return releaseFuture;
     }
@@ -196,6 +222,7 @@ class SortMergeSubpartitionReader
             buffersToRecycle = new ArrayList<>(buffersRead);
             buffersRead.clear();
             dataBufferBacklog = 0;
+            totalBuffersSize = 0;
         }
         buffersToRecycle.forEach(Buffer::recycleBuffer);
         buffersToRecycle.clear();
@@ -256,5 +283,9 @@ class SortMergeSubpartitionReader
     }
 
     @Override
-    public void notifyNewBufferSize(int newBufferSize) {}
+    public void notifyNewBufferSize(int newBufferSize) {
+        synchronized (lock) {
+            maxBufferedBytes = (long) newBufferSize * NUM_DEBLOATED_READ_AHEAD_BUFFERS;
+        }
+    }
 }
@@ -265,6 +265,11 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
         notifyChannelNonEmpty();
     }
 
+    @Override
+    public boolean isLocalConsumer() {
+        return true;
+    }
+
     private ResultSubpartitionView checkAndWaitForSubpartitionView() {
         // synchronizing on the request lock means this blocks until the asynchronous request
         // for the partition view has been completed
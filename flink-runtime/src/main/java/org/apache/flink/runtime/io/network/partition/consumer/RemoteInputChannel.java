@@ -339,6 +339,11 @@ public class RemoteInputChannel extends InputChannel {
         partitionRequestClient.notifyNewBufferSize(this, newBufferSize);
     }
 
+    @VisibleForTesting
+    ConnectionID getConnectionId() {
+        return connectionId;
+    }
+
     @VisibleForTesting
     public int getNumberOfAvailableBuffers() {
         return bufferManager.getNumberOfAvailableBuffers();
@@ -23,6 +23,7 @@ import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.deployment.InputGateDeploymentDescriptor;
 import org.apache.flink.runtime.deployment.SubpartitionIndexRange;
+import org.apache.flink.runtime.io.network.ConnectionID;
 import org.apache.flink.runtime.io.network.ConnectionManager;
 import org.apache.flink.runtime.io.network.NettyShuffleEnvironment;
 import org.apache.flink.runtime.io.network.TaskEventPublisher;
@@ -87,6 +88,8 @@ public class SingleInputGateFactory {
 
     private final BufferDebloatConfiguration debloatConfiguration;
 
+    private final boolean stripeConnectionsByChannel;
+
     public SingleInputGateFactory(
             @Nonnull ResourceID taskExecutorResourceId,
             @Nonnull NettyShuffleEnvironmentConfiguration networkConfig,
@@ -110,6 +113,7 @@ public class SingleInputGateFactory {
         this.taskEventPublisher = taskEventPublisher;
         this.networkBufferPool = networkBufferPool;
         this.debloatConfiguration = networkConfig.getDebloatConfiguration();
+        this.stripeConnectionsByChannel = networkConfig.isConnectionStripingByChannelEnabled();
     }
 
     /** Creates an input gate and all of its input channels. */
@@ -239,7 +243,8 @@ public class SingleInputGateFactory {
                             partitionRequestInitialBackoff,
                             partitionRequestMaxBackoff,
                             networkBuffersPerChannel,
-                            metrics);
+                            metrics,
+                            stripeConnectionsByChannel);
                 },
                 nettyShuffleDescriptor ->
                         createKnownInputChannel(
@@ -288,7 +293,7 @@ public class SingleInputGateFactory {
                     index,
                     partitionId,
                     consumedSubpartitionIndex,
-                    inputChannelDescriptor.getConnectionId(),
+                    getConnectionId(inputChannelDescriptor, index),
                     connectionManager,
                     partitionRequestInitialBackoff,
                     partitionRequestMaxBackoff,
@@ -297,6 +302,16 @@ public class SingleInputGateFactory {
         }
     }
 
+    private ConnectionID getConnectionId(
+            NettyShuffleDescriptor inputChannelDescriptor, int channelIndex) {
+        ConnectionID connectionId = inputChannelDescriptor.getConnectionId();
+        // Spread the channels of this gate across all connections to the same task manager, so
+        // that a slow subpartition does not block the others on the same TCP connection.
+        return stripeConnectionsByChannel
+                ? connectionId.withConnectionIndexOffset(channelIndex)
+                : connectionId;
+    }
+
     @VisibleForTesting
     static SupplierWithException<BufferPool, IOException> createBufferPoolFactory(
             BufferPoolFactory bufferPoolFactory, int floatingNetworkBuffersPerGate) {
@@ -60,6 +60,8 @@ class UnknownInputChannel extends InputChannel implements ChannelStateHolder {
 
     private final InputChannelMetrics metrics;
 
+    private final boolean stripeConnectionsByChannel;
+
     @Nullable private ChannelStateWriter channelStateWriter;
 
     public UnknownInputChannel(
@@ -74,6 +76,34 @@ class UnknownInputChannel extends InputChannel implements ChannelStateHolder {
             int maxBackoff,
             int networkBuffersPerChannel,
             InputChannelMetrics metrics) {
+        this(
+                gate,
+                channelIndex,
+                partitionId,
+                consumedSubpartitionIndex,
+                partitionManager,
+                taskEventPublisher,
+                connectionManager,
+                initialBackoff,
+                maxBackoff,
+                networkBuffersPerChannel,
+                metrics,
+                false);
+    }
+
+    public UnknownInputChannel(
+            SingleInputGate gate,
+            int channelIndex,
+            ResultPartitionID partitionId,
+            int consumedSubpartitionIndex,
+            ResultPartitionManager partitionManager,
+            TaskEventPublisher taskEventPublisher,
+            ConnectionManager connectionManager,
+            int initialBackoff,
+            int maxBackoff,
+            int networkBuffersPerChannel,
+            InputChannelMetrics metrics,
+            boolean stripeConnectionsByChannel) {
 
         super(
                 gate,
@@ -92,6 +122,7 @@ class UnknownInputChannel extends InputChannel implements ChannelStateHolder {
         this.initialBackoff = initialBackoff;
         this.maxBackoff = maxBackoff;
         this.networkBuffersPerChannel = networkBuffersPerChannel;
+        this.stripeConnectionsByChannel = stripeConnectionsByChannel;
     }
 
     @Override
@@ -159,12 +190,17 @@ class UnknownInputChannel extends InputChannel implements ChannelStateHolder {
     // ------------------------------------------------------------------------
 
     public RemoteInputChannel toRemoteInputChannel(ConnectionID producerAddress) {
+        checkNotNull(producerAddress);
+        if (stripeConnectionsByChannel) {
+            producerAddress = producerAddress.withConnectionIndexOffset(getChannelIndex());
+        }
+
         return new RemoteInputChannel(
                 inputGate,
                 getChannelIndex(),
                 partitionId,
                 consumedSubpartitionIndex,
-                checkNotNull(producerAddress),
+                producerAddress,
                 connectionManager,
                 initialBackoff,
                 maxBackoff,
@@ -543,6 +543,12 @@ public class JobMaster extends PermanentlyFencedRpcEndpoint<JobMasterId>
                 jobID, executionAttemptID, checkpointId, checkpointMetrics);
     }
 
+    @Override
+    public void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId) {
+        schedulerNG.acknowledgeRemoteDurableCheckpoint(jobID, executionAttemptID, checkpointId);
+    }
+
     // TODO: This method needs a leader session ID
     @Override
     public void declineCheckpoint(DeclineCheckpoint decline) {
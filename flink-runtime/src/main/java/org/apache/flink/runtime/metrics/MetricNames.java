@@ -62,6 +62,9 @@ public class MetricNames {
 
     public static final String CHECKPOINT_ALIGNMENT_TIME = "checkpointAlignmentTime";
     public static final String CHECKPOINT_START_DELAY_TIME = "checkpointStartDelayNanos";
+    public static final String CHANNEL_STATE_CHECKPOINT_SIZE = "lastChannelStateCheckpointSize";
+    public static final String CHANNEL_STATE_CHECKPOINT_DURATION =
+            "lastChannelStateCheckpointDuration";
 
     public static final String START_WORKER_FAILURE_RATE = "startWorkFailure" + SUFFIX_RATE;
 
@@ -105,6 +105,12 @@ public class ExecutionGraphHandler {
                                 retrieveTaskManagerLocation(decline.getTaskExecutionId())));
     }
 
+    public void acknowledgeRemoteDurableCheckpoint(ExecutionAttemptID attemptId, long id) {
+        processCheckpointCoordinatorMessage(
+                "AcknowledgeRemoteDurableCheckpoint",
+                coordinator -> coordinator.receiveRemoteDurableAcknowledgement(id, attemptId));
+    }
+
     private void processCheckpointCoordinatorMessage(
             String messageType, ThrowingConsumer<CheckpointCoordinator, Exception> process) {
         mainThreadExecutor.assertRunningInMainThread();
@@ -995,6 +995,12 @@ public abstract class SchedulerBase implements SchedulerNG, CheckpointScheduling
         executionGraphHandler.reportCheckpointMetrics(attemptId, id, metrics);
     }
 
+    @Override
+    public void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID attemptId, long id) {
+        executionGraphHandler.acknowledgeRemoteDurableCheckpoint(attemptId, id);
+    }
+
     @Override
     public CompletableFuture<String> stopWithSavepoint(
             @Nullable final String targetDirectory,
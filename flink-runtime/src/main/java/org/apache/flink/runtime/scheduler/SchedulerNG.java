@@ -144,6 +144,9 @@ public interface SchedulerNG extends GlobalFailureHandler, AutoCloseableAsync {
 
     void declineCheckpoint(DeclineCheckpoint decline);
 
+    void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId);
+
     CompletableFuture<String> stopWithSavepoint(
             String targetDirectory, boolean terminate, SavepointFormatType formatType);
 
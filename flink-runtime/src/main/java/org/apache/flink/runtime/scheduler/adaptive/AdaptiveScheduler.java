@@ -683,6 +683,17 @@ public class AdaptiveScheduler
                 "declineCheckpoint");
     }
 
+    @Override
+    public void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId) {
+        state.tryRun(
+                StateWithExecutionGraph.class,
+                stateWithExecutionGraph ->
+                        stateWithExecutionGraph.acknowledgeRemoteDurableCheckpoint(
+                                executionAttemptID, checkpointId),
+                "acknowledgeRemoteDurableCheckpoint");
+    }
+
     @Override
     public CompletableFuture<String> stopWithSavepoint(
             @Nullable String targetDirectory, boolean terminate, SavepointFormatType formatType) {
@@ -205,6 +205,11 @@ abstract class StateWithExecutionGraph implements State {
                 executionAttemptID, checkpointId, checkpointMetrics);
     }
 
+    void acknowledgeRemoteDurableCheckpoint(
+            ExecutionAttemptID executionAttemptID, long checkpointId) {
+        executionGraphHandler.acknowledgeRemoteDurableCheckpoint(executionAttemptID, checkpointId);
+    }
+
     void updateAccumulators(AccumulatorSnapshot accumulatorSnapshot) {
         executionGraph.updateAccumulators(accumulatorSnapshot);
     }
@@ -197,6 +197,27 @@ public class PipelinedRegionSchedulingStrategy implements SchedulingStrategy {
                                                     .getOrDefault(
                                                             partitionGroup, Collections.emptySet())
                                                     .stream())
+                            .filter(this::areRegionVerticesAllInCreatedState)
+                            .collect(Collectors.toSet());
+
+            maybeScheduleRegions(consumerRegions);
+        } else if (executionState == ExecutionState.INITIALIZING
+                || executionState == ExecutionState.RUNNING) {
+            // consumers of hybrid partitions can be scheduled as soon as the producers are deployed
+            final Set<SchedulingPipelinedRegion> consumerRegions =
+                    IterableUtils.toStream(
+                                    schedulingTopology
+                                            .getVertex(executionVertexId)
+                                            .getProducedResults())
+                            .filter(partition -> partition.getResultType().isHybrid())
+                            .flatMap(partition -> partition.getConsumedPartitionGroups().stream())
+                            .flatMap(
+                                    partitionGroup ->
+                                            partitionGroupConsumerRegions
+                                                    .getOrDefault(
+                                                            partitionGroup, Collections.emptySet())
+                                                    .stream())
+                            .filter(this::areRegionVerticesAllInCreatedState)
                             .collect(Collectors.toSet());
 
             maybeScheduleRegions(consumerRegions);
@@ -255,6 +276,10 @@ public class PipelinedRegionSchedulingStrategy implements SchedulingStrategy {
 
     private boolean isConsumedPartitionGroupConsumable(
             final ConsumedPartitionGroup consumedPartitionGroup) {
+        if (SchedulingStrategyUtils.isHybridPartitionGroupConsumable(
+                schedulingTopology, consumedPartitionGroup)) {
+            return true;
+        }
         for (IntermediateResultPartitionID partitionId : consumedPartitionGroup) {
             if (schedulingTopology.getResultPartition(partitionId).getState()
                     != ResultPartitionState.CONSUMABLE) {
@@ -268,9 +293,13 @@ public class PipelinedRegionSchedulingStrategy implements SchedulingStrategy {
             final ConsumedPartitionGroup consumedPartitionGroup,
             final SchedulingPipelinedRegion pipelinedRegion) {
         for (IntermediateResultPartitionID partitionId : consumedPartitionGroup) {
-            if (isExternalConsumedPartition(partitionId, pipelinedRegion)
-                    && schedulingTopology.getResultPartition(partitionId).getState()
-                            != ResultPartitionState.CONSUMABLE) {
+            if (!isExternalConsumedPartition(partitionId, pipelinedRegion)) {
+                continue;
+            }
+            final SchedulingResultPartition partition =
+                    schedulingTopology.getResultPartition(partitionId);
+            if (partition.getState() != ResultPartitionState.CONSUMABLE
+                    && !SchedulingStrategyUtils.isHybridPartitionConsumable(partition)) {
                 return false;
             }
         }
@@ -18,6 +18,8 @@
 
 package org.apache.flink.runtime.scheduler.strategy;
 
+import org.apache.flink.runtime.execution.ExecutionState;
+import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
 import org.apache.flink.runtime.scheduler.DeploymentOption;
 import org.apache.flink.runtime.scheduler.ExecutionVertexDeploymentOption;
 import org.apache.flink.util.IterableUtils;
@@ -77,6 +79,35 @@ class SchedulingStrategyUtils {
         return deploymentOptions;
     }
 
+    /**
+     * Checks whether the given partition group consists of hybrid partitions which can be consumed,
+     * which is the case as soon as all their producers have been deployed.
+     */
+    static boolean isHybridPartitionGroupConsumable(
+            final SchedulingTopology topology,
+            final ConsumedPartitionGroup consumedPartitionGroup) {
+        for (IntermediateResultPartitionID partitionId : consumedPartitionGroup) {
+            if (!isHybridPartitionConsumable(topology.getResultPartition(partitionId))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isHybridPartitionConsumable(final SchedulingResultPartition partition) {
+        if (!partition.getResultType().isHybrid()) {
+            return false;
+        }
+        if (partition.getState() == ResultPartitionState.CONSUMABLE) {
+            return true;
+        }
+
+        final ExecutionState producerState = partition.getProducer().getState();
+        return producerState == ExecutionState.INITIALIZING
+                || producerState == ExecutionState.RUNNING
+                || producerState == ExecutionState.FINISHED;
+    }
+
     static List<SchedulingPipelinedRegion> sortPipelinedRegionsInTopologicalOrder(
             final SchedulingTopology topology, final Set<SchedulingPipelinedRegion> regions) {
 
@@ -40,9 +40,9 @@ import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * {@link SchedulingStrategy} instance which schedules tasks in granularity of vertex (which
- * indicates this strategy only supports ALL_EDGES_BLOCKING batch jobs). Note that this strategy
- * implements {@link SchedulingTopologyListener}, so it can handle the updates of scheduling
- * topology.
+ * indicates this strategy only supports ALL_EDGES_BLOCKING or ALL_EDGES_HYBRID batch jobs). Note
+ * that this strategy implements {@link SchedulingTopologyListener}, so it can handle the updates of
+ * scheduling topology.
  */
 public class VertexwiseSchedulingStrategy
         implements SchedulingStrategy, SchedulingTopologyListener {
@@ -94,12 +94,35 @@ public class VertexwiseSchedulingStrategy
                             .flatMap(
                                     consumerVertexGroup ->
                                             IterableUtils.toStream(consumerVertexGroup.get()))
+                            .filter(this::isVertexInCreatedState)
+                            .collect(Collectors.toSet());
+
+            maybeScheduleVertices(consumerVertices);
+        } else if (executionState == ExecutionState.INITIALIZING
+                || executionState == ExecutionState.RUNNING) {
+            // consumers of hybrid partitions can be scheduled as soon as the producers are deployed
+            Set<ExecutionVertexID> consumerVertices =
+                    IterableUtils.toStream(
+                                    schedulingTopology
+                                            .getVertex(executionVertexId)
+                                            .getProducedResults())
+                            .filter(partition -> partition.getResultType().isHybrid())
+                            .map(SchedulingResultPartition::getConsumerVertexGroup)
+                            .filter(Optional::isPresent)
+                            .flatMap(
+                                    consumerVertexGroup ->
+                                            IterableUtils.toStream(consumerVertexGroup.get()))
+                            .filter(this::isVertexInCreatedState)
                             .collect(Collectors.toSet());
 
             maybeScheduleVertices(consumerVertices);
         }
     }
 
+    private boolean isVertexInCreatedState(ExecutionVertexID executionVertexId) {
+        return schedulingTopology.getVertex(executionVertexId).getState() == ExecutionState.CREATED;
+    }
+
     @Override
     public void onPartitionConsumable(IntermediateResultPartitionID resultPartitionId) {}
 
@@ -166,6 +189,10 @@ public class VertexwiseSchedulingStrategy
 
     private boolean isConsumedPartitionGroupConsumable(
             final ConsumedPartitionGroup consumedPartitionGroup) {
+        if (SchedulingStrategyUtils.isHybridPartitionGroupConsumable(
+                schedulingTopology, consumedPartitionGroup)) {
+            return true;
+        }
         for (IntermediateResultPartitionID partitionId : consumedPartitionGroup) {
             if (schedulingTopology.getResultPartition(partitionId).getState()
                     != ResultPartitionState.CONSUMABLE) {
@@ -19,8 +19,14 @@
 package org.apache.flink.runtime.state;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.runtime.state.filemerging.FileMergingCheckpointStreamFactory;
+import org.apache.flink.runtime.state.filesystem.LocalFirstCheckpointStreamFactory;
 
+import javax.annotation.Nullable;
+
+import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 /**
  * This interface implements the durable storage of checkpoint data and metadata streams. An
@@ -47,6 +53,52 @@ public interface CheckpointStorageWorkerView {
     CheckpointStreamFactory resolveCheckpointStorageLocation(
             long checkpointId, CheckpointStorageLocationReference reference) throws IOException;
 
+    /**
+     * Resolves a storage location reference into a {@link FileMergingCheckpointStreamFactory}, if
+     * this storage merges the state files of one task and checkpoint into shared physical files.
+     *
+     * <p>The returned factory is owned by the caller, which must close it after all streams of the
+     * checkpoint were closed and before the checkpoint is acknowledged.
+     *
+     * @param checkpointId The ID of the checkpoint that the location is initialized for.
+     * @param reference The checkpoint location reference.
+     * @return A file merging stream factory for the checkpoint, or null if file merging is not
+     *     supported or not enabled for the referenced location.
+     * @throws IOException Thrown, if the storage location cannot be initialized from the reference.
+     */
+    @Nullable
+    default FileMergingCheckpointStreamFactory resolveFileMergingCheckpointStorageLocation(
+            long checkpointId, CheckpointStorageLocationReference reference) throws IOException {
+        return null;
+    }
+
+    /**
+     * Resolves a storage location reference into a {@link LocalFirstCheckpointStreamFactory}, if
+     * this storage writes the state files of a checkpoint to local disk first and uploads them in
+     * the background.
+     *
+     * <p>The checkpoint may be acknowledged once all streams of the factory were closed. It is only
+     * durable in the checkpoint storage once {@link
+     * LocalFirstCheckpointStreamFactory#getRemoteUploadFuture()} completed.
+     *
+     * @param checkpointId The ID of the checkpoint that the location is initialized for.
+     * @param reference The checkpoint location reference.
+     * @param localDirectory The local directory for the state files of this checkpoint.
+     * @param uploadExecutor The executor that uploads the local state files.
+     * @return A local first stream factory for the checkpoint, or null if this is not supported or
+     *     not enabled for the referenced location.
+     * @throws IOException Thrown, if the storage location cannot be initialized from the reference.
+     */
+    @Nullable
+    default LocalFirstCheckpointStreamFactory resolveLocalFirstCheckpointStorageLocation(
+            long checkpointId,
+            CheckpointStorageLocationReference reference,
+            File localDirectory,
+            Executor uploadExecutor)
+            throws IOException {
+        return null;
+    }
+
     /**
      * Opens a stream to persist checkpoint state data that is owned strictly by tasks and not
      * attached to the life cycle of a specific checkpoint.
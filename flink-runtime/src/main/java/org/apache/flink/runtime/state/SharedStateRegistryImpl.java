@@ -19,17 +19,24 @@
 package org.apache.flink.runtime.state;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.state.filemerging.SegmentFileStateHandle;
 import org.apache.flink.util.concurrent.Executors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 
@@ -45,6 +52,19 @@ public class SharedStateRegistryImpl implements SharedStateRegistry {
     /** All registered state objects by an artificial key */
     private final Map<SharedStateRegistryKey, SharedStateEntry> registeredStates;
 
+    /**
+     * Number of registered segments per physical file, for state that was written by a {@link
+     * org.apache.flink.runtime.state.filemerging.FileMergingCheckpointStreamFactory}. A physical
+     * file is only deleted once none of its segments is registered anymore.
+     */
+    private final Map<Path, Integer> physicalFileReferences;
+
+    /**
+     * Physical files of dropped duplicate segments. They are deleted once no other segment of the
+     * file got registered by the checkpoint that created them.
+     */
+    private final Set<SegmentFileStateHandle> orphanedSegments;
+
     /** This flag indicates whether or not the registry is open or if close() was called */
     private boolean open;
 
@@ -58,6 +78,8 @@ public class SharedStateRegistryImpl implements SharedStateRegistry {
 
     public SharedStateRegistryImpl(Executor asyncDisposalExecutor) {
         this.registeredStates = new HashMap<>();
+        this.physicalFileReferences = new HashMap<>();
+        this.orphanedSegments = new HashSet<>();
         this.asyncDisposalExecutor = checkNotNull(asyncDisposalExecutor);
         this.open = true;
     }
@@ -85,6 +107,7 @@ public class SharedStateRegistryImpl implements SharedStateRegistry {
 
                 entry = new SharedStateEntry(state, checkpointID);
                 registeredStates.put(registrationKey, entry);
+                retainPhysicalFile(state);
                 LOG.trace("Registered new shared state {} under key {}.", entry, registrationKey);
 
             } else {
@@ -94,7 +117,7 @@ public class SharedStateRegistryImpl implements SharedStateRegistry {
                 // However, it's also not required to use exactly the same handle or placeholder
                 if (!Objects.equals(state, entry.stateHandle)) {
                     if (entry.confirmed || isPlaceholder(state)) {
-                        scheduledStateDeletion = state;
+                        scheduledStateDeletion = dropSegment(state);
                     } else {
                         // Old entry is not in a confirmed checkpoint yet, and the new one differs.
                         // This might result from (omitted KG range here for simplicity):
@@ -109,7 +132,8 @@ public class SharedStateRegistryImpl implements SharedStateRegistry {
                         // 9. JM discards it as duplicate
                         // 10. checkpoint completes, but a wrong SST file is used
                         // So we use a new entry and discard the old one:
-                        scheduledStateDeletion = entry.stateHandle;
+                        retainPhysicalFile(state);
+                        scheduledStateDeletion = releasePhysicalFile(entry.stateHandle);
                         entry.stateHandle = state;
                     }
                     LOG.trace(
@@ -147,10 +171,14 @@ public class SharedStateRegistryImpl implements SharedStateRegistry {
             while (it.hasNext()) {
                 SharedStateEntry entry = it.next();
                 if (entry.lastUsedCheckpointID < lowestCheckpointID) {
-                    subsumed.add(entry.stateHandle);
+                    StreamStateHandle released = releasePhysicalFile(entry.stateHandle);
+                    if (released != null) {
+                        subsumed.add(released);
+                    }
                     it.remove();
                 }
             }
+            subsumed.addAll(collectOrphanedPhysicalFiles());
         }
 
         LOG.trace("Discard {} state asynchronously", subsumed.size());
@@ -167,10 +195,16 @@ public class SharedStateRegistryImpl implements SharedStateRegistry {
             return;
         }
 
+        final List<StreamStateHandle> orphaned;
         synchronized (registeredStates) {
             for (CompositeStateHandle stateHandle : stateHandles) {
                 stateHandle.registerSharedStates(this, checkpointID);
             }
+            orphaned = collectOrphanedPhysicalFiles();
+        }
+
+        for (StreamStateHandle handle : orphaned) {
+            scheduleAsyncDelete(handle);
         }
     }
 
@@ -183,6 +217,13 @@ public class SharedStateRegistryImpl implements SharedStateRegistry {
         }
     }
 
+    @VisibleForTesting
+    int getPhysicalFileReferences(Path filePath) {
+        synchronized (registeredStates) {
+            return physicalFileReferences.getOrDefault(filePath, 0);
+        }
+    }
+
     @Override
     public String toString() {
         synchronized (registeredStates) {
@@ -213,6 +254,59 @@ public class SharedStateRegistryImpl implements SharedStateRegistry {
         }
     }
 
+    /** Counts a new registered reference to the physical file of a segment. */
+    private void retainPhysicalFile(StreamStateHandle stateHandle) {
+        if (stateHandle instanceof SegmentFileStateHandle) {
+            physicalFileReferences.merge(
+                    ((SegmentFileStateHandle) stateHandle).getFilePath(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Releases a registered reference and returns the handle to discard. Segments are only
+     * discarded, which deletes their whole physical file, once no segment of that file is
+     * registered anymore.
+     */
+    @Nullable
+    private StreamStateHandle releasePhysicalFile(StreamStateHandle stateHandle) {
+        if (!(stateHandle instanceof SegmentFileStateHandle)) {
+            return stateHandle;
+        }
+        Path filePath = ((SegmentFileStateHandle) stateHandle).getFilePath();
+        Integer remaining = physicalFileReferences.computeIfPresent(filePath, (k, v) -> v - 1);
+        if (remaining == null || remaining <= 0) {
+            physicalFileReferences.remove(filePath);
+            return stateHandle;
+        }
+        return null;
+    }
+
+    /**
+     * Drops an unregistered duplicate. The physical file of a segment may contain other segments of
+     * the same checkpoint that are registered in the same pass, so its deletion is deferred.
+     */
+    @Nullable
+    private StreamStateHandle dropSegment(StreamStateHandle stateHandle) {
+        if (stateHandle instanceof SegmentFileStateHandle) {
+            orphanedSegments.add((SegmentFileStateHandle) stateHandle);
+            return null;
+        }
+        return stateHandle;
+    }
+
+    private List<StreamStateHandle> collectOrphanedPhysicalFiles() {
+        List<StreamStateHandle> orphaned = new ArrayList<>();
+        Set<Path> collectedFiles = new HashSet<>();
+        for (SegmentFileStateHandle segment : orphanedSegments) {
+            if (!physicalFileReferences.containsKey(segment.getFilePath())
+                    && collectedFiles.add(segment.getFilePath())) {
+                orphaned.add(segment);
+            }
+        }
+        orphanedSegments.clear();
+        return orphaned;
+    }
+
     private boolean isPlaceholder(StreamStateHandle stateHandle) {
         return stateHandle instanceof PlaceholderStreamStateHandle;
     }
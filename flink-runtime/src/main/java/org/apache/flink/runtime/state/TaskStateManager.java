@@ -73,6 +73,14 @@ public interface TaskStateManager extends CheckpointListener, AutoCloseable {
     void reportIncompleteTaskStateSnapshots(
             CheckpointMetaData checkpointMetaData, CheckpointMetrics checkpointMetrics);
 
+    /**
+     * Report that the state of a checkpoint, which was acknowledged while some of its files were
+     * still uploaded in the background, is now completely stored in the checkpoint storage.
+     *
+     * @param checkpointId id of the previously acknowledged checkpoint.
+     */
+    void reportRemoteDurableCheckpoint(long checkpointId);
+
     /** Whether all the operators of the task are finished on restore. */
     boolean isTaskDeployedAsFinished();
 
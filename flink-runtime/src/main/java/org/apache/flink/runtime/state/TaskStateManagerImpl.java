@@ -140,6 +140,12 @@ public class TaskStateManagerImpl implements TaskStateManager {
                 jobId, executionAttemptID, checkpointMetaData.getCheckpointId(), checkpointMetrics);
     }
 
+    @Override
+    public void reportRemoteDurableCheckpoint(long checkpointId) {
+        checkpointResponder.acknowledgeRemoteDurableCheckpoint(
+                jobId, executionAttemptID, checkpointId);
+    }
+
     @Override
     public InflightDataRescalingDescriptor getInputRescalingDescriptor() {
         if (jobManagerTaskRestore == null) {
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.async;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.operators.MailboxExecutor;
+import org.apache.flink.util.ExecutorUtils;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.MathUtils;
+import org.apache.flink.util.concurrent.ExecutorThreadFactory;
+import org.apache.flink.util.function.SupplierWithException;
+import org.apache.flink.util.function.ThrowingRunnable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Coordinates the asynchronous state accesses of a keyed operator.
+ *
+ * <p>Records are processed through {@link #processRecord(Object, ThrowingRunnable)}. A record is in
+ * flight until its processing returned and all state requests it issued, including those issued by
+ * callbacks, completed. Records of different keys may be in flight at the same time, so their state
+ * accesses overlap. A record whose key is already in flight is buffered and only processed after
+ * all previous records of that key finished, which keeps the per-key semantics of synchronous state
+ * access.
+ *
+ * <p>State requests are executed by a pool of state-access threads. Each key is always served by
+ * the same thread, so the requests of a key are executed in the order they were issued. Results are
+ * handed back to the task thread through the mailbox, where the callbacks run with the key of the
+ * issuing record. With no state-access threads, requests are executed directly on the task thread,
+ * which is used for backends that do not support asynchronous access.
+ *
+ * <p>All methods except the execution of the requests themselves must be called by the task thread.
+ *
+ * @param <K> The type of the key.
+ */
+public class AsyncExecutionController<K> implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncExecutionController.class);
+
+    private final MailboxExecutor mailboxExecutor;
+
+    private final Consumer<K> keyContextSetter;
+
+    /** Single threaded executors a key is assigned to, empty if requests execute inline. */
+    private final ExecutorService[] stateExecutors;
+
+    private final int maxInFlightRecords;
+
+    /** The records waiting for their turn, for every key with a record in flight. */
+    private final Map<K, ArrayDeque<RecordContext<K>>> waitingRecordsByKey = new HashMap<>();
+
+    /** The record whose processing or callbacks are currently executed. */
+    private RecordContext<K> currentContext;
+
+    private int inFlightRecords;
+
+    /**
+     * Creates a new controller.
+     *
+     * @param mailboxExecutor The executor of the task's mailbox to complete requests with.
+     * @param keyContextSetter Sets the current key of the operator before a record or callback
+     *     runs.
+     * @param numStateAccessThreads The number of threads executing the state requests, or zero to
+     *     execute them on the task thread.
+     * @param maxInFlightRecords The number of in-flight records after which further records are
+     *     only accepted once others completed.
+     */
+    public AsyncExecutionController(
+            MailboxExecutor mailboxExecutor,
+            Consumer<K> keyContextSetter,
+            int numStateAccessThreads,
+            int maxInFlightRecords) {
+        checkArgument(numStateAccessThreads >= 0, "The number of threads must not be negative.");
+        checkArgument(maxInFlightRecords > 0, "The number of in-flight records must be positive.");
+        this.mailboxExecutor = checkNotNull(mailboxExecutor);
+        this.keyContextSetter = checkNotNull(keyContextSetter);
+        this.maxInFlightRecords = maxInFlightRecords;
+        this.stateExecutors = new ExecutorService[numStateAccessThreads];
+        ThreadFactory threadFactory = new ExecutorThreadFactory("flink-async-state-access");
+        for (int i = 0; i < numStateAccessThreads; i++) {
+            stateExecutors[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+    }
+
+    /**
+     * Processes a record of the given key, as soon as no other record of that key is in flight.
+     * Blocks by yielding to the mailbox while the maximum number of records is in flight.
+     */
+    public void processRecord(K key, ThrowingRunnable<? extends Exception> processing)
+            throws Exception {
+        checkState(currentContext == null, "Records cannot be processed from state callbacks.");
+        while (inFlightRecords >= maxInFlightRecords) {
+            mailboxExecutor.yield();
+        }
+
+        RecordContext<K> context = new RecordContext<>(key, processing);
+        inFlightRecords++;
+        ArrayDeque<RecordContext<K>> waitingRecords = waitingRecordsByKey.get(key);
+        if (waitingRecords != null) {
+            waitingRecords.add(context);
+        } else {
+            waitingRecordsByKey.put(key, new ArrayDeque<>(2));
+            runRecords(context);
+        }
+    }
+
+    /**
+     * Submits a state request on behalf of the record that is currently processed. The request must
+     * not depend on the current key, which is already changed when it is executed.
+     */
+    public <T> StateFuture<T> submit(SupplierWithException<T, ? extends Exception> request) {
+        RecordContext<K> context = currentContext;
+        checkState(context != null, "State can only be accessed while processing a record.");
+        StateFutureImpl<T> future = new StateFutureImpl<>();
+
+        if (stateExecutors.length == 0) {
+            T result;
+            try {
+                result = request.get();
+            } catch (Exception e) {
+                throw new FlinkRuntimeException("Failed to access state.", e);
+            }
+            future.completeUnchecked(result);
+            return future;
+        }
+
+        context.references++;
+        getStateExecutor(context.key)
+                .execute(
+                        () -> {
+                            T result = null;
+                            Throwable failure = null;
+                            try {
+                                result = request.get();
+                            } catch (Throwable t) {
+                                failure = t;
+                            }
+                            handOver(context, future, result, failure);
+                        });
+        return future;
+    }
+
+    /** Blocks by yielding to the mailbox until no record is in flight anymore. */
+    public void drainInFlightRecords() throws Exception {
+        checkState(currentContext == null, "Records cannot be drained from state callbacks.");
+        while (inFlightRecords > 0) {
+            mailboxExecutor.yield();
+        }
+    }
+
+    @VisibleForTesting
+    public int getInFlightRecords() {
+        return inFlightRecords;
+    }
+
+    @Override
+    public void close() {
+        if (stateExecutors.length > 0) {
+            ExecutorUtils.gracefulShutdown(10L, TimeUnit.SECONDS, stateExecutors);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    private ExecutorService getStateExecutor(K key) {
+        return stateExecutors[MathUtils.murmurHash(key.hashCode()) % stateExecutors.length];
+    }
+
+    /** Called by a state-access thread to complete a request on the task thread. */
+    private <T> void handOver(
+            RecordContext<K> context, StateFutureImpl<T> future, T result, Throwable failure) {
+        try {
+            mailboxExecutor.execute(
+                    () -> {
+                        if (failure != null) {
+                            throw new FlinkRuntimeException(
+                                    "Failed to access state asynchronously.", failure);
+                        }
+                        complete(context, future, result);
+                    },
+                    "complete asynchronous state request");
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Dropping the result of a state request, the mailbox is closed.", e);
+        }
+    }
+
+    private <T> void complete(RecordContext<K> context, StateFutureImpl<T> future, T result)
+            throws Exception {
+        currentContext = context;
+        keyContextSetter.accept(context.key);
+        try {
+            future.complete(result);
+        } finally {
+            currentContext = null;
+        }
+        RecordContext<K> next = release(context);
+        if (next != null) {
+            runRecords(next);
+        }
+    }
+
+    /**
+     * Processes the given record and, for as long as the processed records complete synchronously,
+     * the records that waited for them.
+     */
+    private void runRecords(RecordContext<K> context) throws Exception {
+        RecordContext<K> next = context;
+        while (next != null) {
+            next.references++;
+            currentContext = next;
+            keyContextSetter.accept(next.key);
+            try {
+                next.processing.run();
+            } finally {
+                currentContext = null;
+            }
+            next = release(next);
+        }
+    }
+
+    /**
+     * Releases one reference to the given record. Returns the next record of the same key if the
+     * given one is no longer in flight and another one waits.
+     */
+    private RecordContext<K> release(RecordContext<K> context) {
+        if (--context.references > 0) {
+            return null;
+        }
+        inFlightRecords--;
+        ArrayDeque<RecordContext<K>> waitingRecords = waitingRecordsByKey.get(context.key);
+        RecordContext<K> next = waitingRecords.poll();
+        if (next == null) {
+            waitingRecordsByKey.remove(context.key);
+        }
+        return next;
+    }
+
+    /** A record in flight, referenced by its processing and each of its pending requests. */
+    private static final class RecordContext<K> {
+
+        private final K key;
+
+        private final ThrowingRunnable<? extends Exception> processing;
+
+        private int references;
+
+        private RecordContext(K key, ThrowingRunnable<? extends Exception> processing) {
+            this.key = key;
+            this.processing = processing;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.async;
+
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.runtime.state.KeyedStateBackend;
+
+/**
+ * A {@link KeyedStateBackend} that can execute state accesses off the task thread. Backends that do
+ * not implement this interface are accessed synchronously through {@link AsyncStateAdapters}.
+ *
+ * <p>The descriptors passed to the factory methods must have their serializers initialized.
+ *
+ * @param <K> The key by which state is keyed.
+ */
+public interface AsyncKeyedStateBackend<K> extends KeyedStateBackend<K> {
+
+    <T> AsyncValueState<T> createAsyncValueState(
+            ValueStateDescriptor<T> stateDescriptor, AsyncExecutionController<K> controller)
+            throws Exception;
+
+    <UK, UV> AsyncMapState<UK, UV> createAsyncMapState(
+            MapStateDescriptor<UK, UV> stateDescriptor, AsyncExecutionController<K> controller)
+            throws Exception;
+
+    <T> AsyncListState<T> createAsyncListState(
+            ListStateDescriptor<T> stateDescriptor, AsyncExecutionController<K> controller)
+            throws Exception;
+}
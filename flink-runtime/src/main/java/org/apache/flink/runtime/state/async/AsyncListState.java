@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.async;
+
+import org.apache.flink.annotation.Experimental;
+import org.apache.flink.api.common.state.ListState;
+
+import java.util.List;
+
+/**
+ * Asynchronous counterpart of {@link ListState}. All requests refer to the key of the record that
+ * is processed when the request is issued, regardless of when it is executed.
+ *
+ * @param <T> Type of the elements in the state.
+ */
+@Experimental
+public interface AsyncListState<T> {
+
+    /** Returns a future of the elements for the current key, which is empty if there are none. */
+    StateFuture<Iterable<T>> asyncGet();
+
+    /** Appends the given element to the list of the current key. */
+    StateFuture<Void> asyncAdd(T value);
+
+    /** Replaces the list of the current key with the given elements. */
+    StateFuture<Void> asyncUpdate(List<T> values);
+
+    /** Removes the list of the current key. */
+    StateFuture<Void> asyncClear();
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.async;
+
+import org.apache.flink.annotation.Experimental;
+import org.apache.flink.api.common.state.MapState;
+
+/**
+ * Asynchronous counterpart of {@link MapState}. All requests refer to the key of the record that is
+ * processed when the request is issued, regardless of when it is executed.
+ *
+ * @param <UK> Type of the keys in the state.
+ * @param <UV> Type of the values in the state.
+ */
+@Experimental
+public interface AsyncMapState<UK, UV> {
+
+    /** Returns a future of the value mapped to the given user key, or {@code null}. */
+    StateFuture<UV> asyncGet(UK key);
+
+    /** Associates the given value with the given user key. */
+    StateFuture<Void> asyncPut(UK key, UV value);
+
+    /** Removes the mapping of the given user key. */
+    StateFuture<Void> asyncRemove(UK key);
+
+    /** Returns a future telling whether there is a mapping for the given user key. */
+    StateFuture<Boolean> asyncContains(UK key);
+
+    /** Removes all mappings for the current key. */
+    StateFuture<Void> asyncClear();
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.async;
+
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.ValueState;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Adapts synchronous state to the asynchronous state interfaces, for backends that do not implement
+ * {@link AsyncKeyedStateBackend}. The adapted state must be used with an {@link
+ * AsyncExecutionController} without state-access threads, as the requests access the state of the
+ * current key and the state itself is not thread-safe.
+ */
+public final class AsyncStateAdapters {
+
+    private AsyncStateAdapters() {}
+
+    public static <T> AsyncValueState<T> adapt(
+            ValueState<T> state, AsyncExecutionController<?> controller) {
+        return new AsyncValueState<T>() {
+            @Override
+            public StateFuture<T> asyncValue() {
+                return controller.submit(state::value);
+            }
+
+            @Override
+            public StateFuture<Void> asyncUpdate(T value) {
+                return controller.submit(
+                        () -> {
+                            state.update(value);
+                            return null;
+                        });
+            }
+
+            @Override
+            public StateFuture<Void> asyncClear() {
+                return controller.submit(
+                        () -> {
+                            state.clear();
+                            return null;
+                        });
+            }
+        };
+    }
+
+    public static <UK, UV> AsyncMapState<UK, UV> adapt(
+            MapState<UK, UV> state, AsyncExecutionController<?> controller) {
+        return new AsyncMapState<UK, UV>() {
+            @Override
+            public StateFuture<UV> asyncGet(UK key) {
+                return controller.submit(() -> state.get(key));
+            }
+
+            @Override
+            public StateFuture<Void> asyncPut(UK key, UV value) {
+                return controller.submit(
+                        () -> {
+                            state.put(key, value);
+                            return null;
+                        });
+            }
+
+            @Override
+            public StateFuture<Void> asyncRemove(UK key) {
+                return controller.submit(
+                        () -> {
+                            state.remove(key);
+                            return null;
+                        });
+            }
+
+            @Override
+            public StateFuture<Boolean> asyncContains(UK key) {
+                return controller.submit(() -> state.contains(key));
+            }
+
+            @Override
+            public StateFuture<Void> asyncClear() {
+                return controller.submit(
+                        () -> {
+                            state.clear();
+                            return null;
+                        });
+            }
+        };
+    }
+
+    public static <T> AsyncListState<T> adapt(
+            ListState<T> state, AsyncExecutionController<?> controller) {
+        return new AsyncListState<T>() {
+            @Override
+            public StateFuture<Iterable<T>> asyncGet() {
+                return controller.submit(
+                        () -> {
+                            Iterable<T> elements = state.get();
+                            return elements == null ? Collections.emptyList() : elements;
+                        });
+            }
+
+            @Override
+            public StateFuture<Void> asyncAdd(T value) {
+                return controller.submit(
+                        () -> {
+                            state.add(value);
+                            return null;
+                        });
+            }
+
+            @Override
+            public StateFuture<Void> asyncUpdate(List<T> values) {
+                return controller.submit(
+                        () -> {
+                            state.update(values);
+                            return null;
+                        });
+            }
+
+            @Override
+            public StateFuture<Void> asyncClear() {
+                return controller.submit(
+                        () -> {
+                            state.clear();
+                            return null;
+                        });
+            }
+        };
+    }
+}
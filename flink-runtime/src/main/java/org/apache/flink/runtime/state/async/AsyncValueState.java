@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.async;
+
+import org.apache.flink.annotation.Experimental;
+import org.apache.flink.api.common.state.ValueState;
+
+/**
+ * Asynchronous counterpart of {@link ValueState}. All requests refer to the key of the record that
+ * is processed when the request is issued, regardless of when it is executed.
+ *
+ * @param <T> Type of the value in the state.
+ */
+@Experimental
+public interface AsyncValueState<T> {
+
+    /** Returns a future of the value for the current key, or the default value if there is none. */
+    StateFuture<T> asyncValue();
+
+    /**
+     * Updates the value for the current key. Updating with {@code null} removes the value for the
+     * current key.
+     */
+    StateFuture<Void> asyncUpdate(T value);
+
+    /** Removes the value for the current key. */
+    StateFuture<Void> asyncClear();
+}
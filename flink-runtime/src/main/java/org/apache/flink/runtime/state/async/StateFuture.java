@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.async;
+
+import org.apache.flink.annotation.Experimental;
+import org.apache.flink.util.function.FunctionWithException;
+import org.apache.flink.util.function.ThrowingConsumer;
+
+/**
+ * The result of an asynchronous state access.
+ *
+ * <p>Callbacks are always executed by the task thread, with the key of the record that issued the
+ * access set as the current key. They may therefore access state and issue further asynchronous
+ * state requests. If a callback is registered on an already completed future, it is executed
+ * immediately.
+ *
+ * <p>A failing state access or callback fails the task, so there is no exceptional completion.
+ *
+ * @param <T> The type of the result.
+ */
+@Experimental
+public interface StateFuture<T> {
+
+    /**
+     * Returns a new future that is completed with the result of the given function applied to the
+     * result of this future.
+     */
+    <U> StateFuture<U> thenApply(
+            FunctionWithException<? super T, ? extends U, ? extends Exception> fn);
+
+    /**
+     * Returns a new future that is completed after the given action consumed the result of this
+     * future.
+     */
+    StateFuture<Void> thenAccept(ThrowingConsumer<? super T, ? extends Exception> action);
+
+    /**
+     * Returns a new future that is completed with the result of the future returned by the given
+     * function, which is applied to the result of this future.
+     */
+    <U> StateFuture<U> thenCompose(
+            FunctionWithException<? super T, ? extends StateFuture<U>, ? extends Exception> fn);
+
+    /** Returns a future that is already completed with the given value. */
+    static <T> StateFuture<T> completedFuture(T value) {
+        StateFutureImpl<T> future = new StateFutureImpl<>();
+        future.completeUnchecked(value);
+        return future;
+    }
+}
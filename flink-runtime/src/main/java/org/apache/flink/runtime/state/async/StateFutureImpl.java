@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.async;
+
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.function.FunctionWithException;
+import org.apache.flink.util.function.ThrowingConsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * The {@link StateFuture} handed out by the {@link AsyncExecutionController}. It is only ever
+ * accessed by the task thread and therefore not thread-safe.
+ */
+final class StateFutureImpl<T> implements StateFuture<T> {
+
+    private boolean done;
+
+    private T result;
+
+    /** Callbacks to run on completion, created lazily as most futures have exactly one. */
+    private List<ThrowingConsumer<? super T, ? extends Exception>> callbacks;
+
+    @Override
+    public <U> StateFuture<U> thenApply(
+            FunctionWithException<? super T, ? extends U, ? extends Exception> fn) {
+        StateFutureImpl<U> next = new StateFutureImpl<>();
+        onComplete(value -> next.complete(fn.apply(value)));
+        return next;
+    }
+
+    @Override
+    public StateFuture<Void> thenAccept(ThrowingConsumer<? super T, ? extends Exception> action) {
+        StateFutureImpl<Void> next = new StateFutureImpl<>();
+        onComplete(
+                value -> {
+                    action.accept(value);
+                    next.complete(null);
+                });
+        return next;
+    }
+
+    @Override
+    public <U> StateFuture<U> thenCompose(
+            FunctionWithException<? super T, ? extends StateFuture<U>, ? extends Exception> fn) {
+        StateFutureImpl<U> next = new StateFutureImpl<>();
+        onComplete(
+                value -> {
+                    StateFuture<U> composed = fn.apply(value);
+                    checkArgument(
+                            composed instanceof StateFutureImpl,
+                            "Only futures returned by asynchronous state can be composed.");
+                    ((StateFutureImpl<U>) composed).onComplete(next::complete);
+                });
+        return next;
+    }
+
+    boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Completes the future and runs all registered callbacks. Exceptions of the callbacks are
+     * forwarded to the caller.
+     */
+    void complete(T value) throws Exception {
+        checkState(!done, "The future has already been completed.");
+        result = value;
+        done = true;
+        if (callbacks != null) {
+            List<ThrowingConsumer<? super T, ? extends Exception>> toRun = callbacks;
+            callbacks = null;
+            for (ThrowingConsumer<? super T, ? extends Exception> callback : toRun) {
+                callback.accept(value);
+            }
+        }
+    }
+
+    void completeUnchecked(T value) {
+        try {
+            complete(value);
+        } catch (Exception e) {
+            ExceptionUtils.rethrow(e);
+        }
+    }
+
+    private void onComplete(ThrowingConsumer<? super T, ? extends Exception> callback) {
+        if (done) {
+            try {
+                callback.accept(result);
+            } catch (Exception e) {
+                ExceptionUtils.rethrow(e);
+            }
+        } else {
+            if (callbacks == null) {
+                callbacks = new ArrayList<>(1);
+            }
+            callbacks.add(callback);
+        }
+    }
+}
@@ -0,0 +1,476 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.filemerging;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.core.fs.EntropyInjector;
+import org.apache.flink.core.fs.FSDataOutputStream;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.FileSystem.WriteMode;
+import org.apache.flink.core.fs.OutputStreamAndPath;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.state.CheckpointStateOutputStream;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.filesystem.FsCheckpointStreamFactory;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
+import org.apache.flink.util.ExceptionUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link CheckpointStreamFactory} that writes the state of one subtask for one checkpoint as
+ * segments of a small number of physical files, instead of creating one file per state handle.
+ *
+ * <p>Each stream leases a physical file exclusively while it writes, so that its bytes form one
+ * contiguous segment. When the stream is closed, the file is returned to a pool and the next stream
+ * of the same {@link CheckpointedStateScope} appends to it, until the file reaches the configured
+ * maximum size. State below the file state threshold is still inlined into the metadata.
+ *
+ * <p>Object stores only make the data of a file visible once the file is closed. Therefore {@link
+ * #close()} must be called after all streams of the checkpoint were closed, and before the
+ * checkpoint is acknowledged. Physical files are never shared across checkpoints.
+ *
+ * <p>This factory is thread-safe, streams created by it are not.
+ */
+public class FileMergingCheckpointStreamFactory implements CheckpointStreamFactory, Closeable {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(FileMergingCheckpointStreamFactory.class);
+
+    /** The factory to which duplication of existing state handles is delegated. */
+    private final FsCheckpointStreamFactory delegate;
+
+    private final FileSystem fileSystem;
+
+    /** The directory for checkpoint exclusive state data. */
+    private final Path checkpointDirectory;
+
+    /** The directory for shared checkpoint data. */
+    private final Path sharedStateDirectory;
+
+    /** State below this size will be stored as part of the metadata, rather than in files. */
+    private final int fileStateThreshold;
+
+    /** The write buffer size of the created streams. */
+    private final int writeBufferSize;
+
+    /** Physical files are not reused once they reach this size. */
+    private final long maxFileSize;
+
+    private final Object lock = new Object();
+
+    /** Physical files that are open and currently not leased by a stream, per scope. */
+    private final Map<CheckpointedStateScope, Deque<PhysicalFile>> idleFiles;
+
+    /** All physical files that are open, leased or not. */
+    private final Set<PhysicalFile> openFiles;
+
+    private boolean closed;
+
+    public FileMergingCheckpointStreamFactory(
+            FileSystem fileSystem,
+            Path checkpointDirectory,
+            Path sharedStateDirectory,
+            int fileStateThreshold,
+            int writeBufferSize,
+            long maxFileSize) {
+        checkArgument(maxFileSize > 0, "The maximum file size must be positive.");
+        this.delegate =
+                new FsCheckpointStreamFactory(
+                        fileSystem,
+                        checkpointDirectory,
+                        sharedStateDirectory,
+                        fileStateThreshold,
+                        writeBufferSize);
+        this.fileSystem = checkNotNull(fileSystem);
+        this.checkpointDirectory = checkNotNull(checkpointDirectory);
+        this.sharedStateDirectory = checkNotNull(sharedStateDirectory);
+        this.fileStateThreshold = fileStateThreshold;
+        this.writeBufferSize = writeBufferSize;
+        this.maxFileSize = maxFileSize;
+        this.idleFiles = new EnumMap<>(CheckpointedStateScope.class);
+        for (CheckpointedStateScope scope : CheckpointedStateScope.values()) {
+            idleFiles.put(scope, new ArrayDeque<>());
+        }
+        this.openFiles = new HashSet<>();
+    }
+
+    // ------------------------------------------------------------------------
+
+    @Override
+    public SegmentCheckpointStateOutputStream createCheckpointStateOutputStream(
+            CheckpointedStateScope scope) throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                throw new IOException("The file merging stream factory has been closed.");
+            }
+        }
+        return new SegmentCheckpointStateOutputStream(
+                scope, Math.max(writeBufferSize, fileStateThreshold));
+    }
+
+    @Override
+    public boolean canFastDuplicate(StreamStateHandle stateHandle, CheckpointedStateScope scope)
+            throws IOException {
+        return delegate.canFastDuplicate(stateHandle, scope);
+    }
+
+    @Override
+    public List<StreamStateHandle> duplicate(
+            List<StreamStateHandle> stateHandles, CheckpointedStateScope scope) throws IOException {
+        return delegate.duplicate(stateHandles, scope);
+    }
+
+    /**
+     * Closes all physical files, which makes the written segments durable. Streams that are still
+     * open fail on their next write.
+     *
+     * @throws IOException Thrown, if any of the physical files could not be closed. The segments in
+     *     that file must then be considered lost.
+     */
+    @Override
+    public void close() throws IOException {
+        final List<PhysicalFile> filesToClose;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            filesToClose = new ArrayList<>(openFiles);
+            openFiles.clear();
+            idleFiles.values().forEach(Deque::clear);
+        }
+
+        IOException exception = null;
+        for (PhysicalFile file : filesToClose) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                exception = ExceptionUtils.firstOrSuppressed(e, exception);
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    @VisibleForTesting
+    int getNumberOfOpenFiles() {
+        synchronized (lock) {
+            return openFiles.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "File Merging Stream Factory @ " + checkpointDirectory;
+    }
+
+    // ------------------------------------------------------------------------
+    //  physical file pool
+    // ------------------------------------------------------------------------
+
+    private PhysicalFile leaseFile(CheckpointedStateScope scope) throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                throw new IOException("The file merging stream factory has been closed.");
+            }
+            PhysicalFile file = idleFiles.get(scope).pollFirst();
+            if (file != null) {
+                return file;
+            }
+        }
+
+        final Path basePath =
+                scope == CheckpointedStateScope.EXCLUSIVE
+                        ? checkpointDirectory
+                        : sharedStateDirectory;
+        final OutputStreamAndPath streamAndPath =
+                EntropyInjector.createEntropyAware(
+                        fileSystem,
+                        new Path(basePath, UUID.randomUUID().toString()),
+                        WriteMode.NO_OVERWRITE);
+        final PhysicalFile file =
+                new PhysicalFile(fileSystem, streamAndPath.path(), streamAndPath.stream());
+
+        synchronized (lock) {
+            if (!closed) {
+                openFiles.add(file);
+                return file;
+            }
+        }
+        file.closeQuietly();
+        throw new IOException("The file merging stream factory has been closed.");
+    }
+
+    /** Returns a leased file after a segment was completely written to it. */
+    private void returnFile(CheckpointedStateScope scope, PhysicalFile file) throws IOException {
+        synchronized (lock) {
+            if (!openFiles.contains(file)) {
+                // closed concurrently by the factory
+                return;
+            }
+            if (file.getSize() < maxFileSize) {
+                idleFiles.get(scope).addFirst(file);
+                return;
+            }
+            openFiles.remove(file);
+        }
+        file.close();
+    }
+
+    /** Drops a leased file whose current segment could not be completed. */
+    private void discardFile(PhysicalFile file) {
+        synchronized (lock) {
+            openFiles.remove(file);
+        }
+        file.closeQuietly();
+    }
+
+    // ------------------------------------------------------------------------
+    //  physical file and segment stream
+    // ------------------------------------------------------------------------
+
+    /** An open physical file to which the segments are appended. */
+    private static final class PhysicalFile {
+
+        private final FileSystem fileSystem;
+
+        private final Path filePath;
+
+        private final FSDataOutputStream outputStream;
+
+        /** Whether a segment was completed in this file, i.e. it is referenced by a handle. */
+        private volatile boolean hasSegments;
+
+        private boolean closed;
+
+        private PhysicalFile(
+                FileSystem fileSystem, Path filePath, FSDataOutputStream outputStream) {
+            this.fileSystem = fileSystem;
+            this.filePath = filePath;
+            this.outputStream = outputStream;
+        }
+
+        private long getSize() throws IOException {
+            return outputStream.getPos();
+        }
+
+        private synchronized void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                outputStream.close();
+            } finally {
+                if (!hasSegments) {
+                    try {
+                        fileSystem.delete(filePath, false);
+                    } catch (Exception e) {
+                        LOG.warn("Cannot delete unused physical checkpoint file {}.", filePath, e);
+                    }
+                }
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                close();
+            } catch (Throwable t) {
+                LOG.warn("Could not close the physical checkpoint file {}.", filePath, t);
+            }
+        }
+    }
+
+    /**
+     * A {@link CheckpointStateOutputStream} that writes one segment into a leased physical file and
+     * returns a {@link SegmentFileStateHandle} upon closing.
+     */
+    public final class SegmentCheckpointStateOutputStream extends CheckpointStateOutputStream {
+
+        private final CheckpointedStateScope scope;
+
+        private final byte[] writeBuffer;
+
+        private int pos;
+
+        /** The leased physical file, null until the first flush to the file. */
+        @Nullable private PhysicalFile file;
+
+        /** The position of the segment in the physical file. */
+        private long startPos;
+
+        private volatile boolean closed;
+
+        private SegmentCheckpointStateOutputStream(CheckpointedStateScope scope, int bufferSize) {
+            this.scope = checkNotNull(scope);
+            this.writeBuffer = new byte[bufferSize];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (pos >= writeBuffer.length) {
+                flushToFile();
+            }
+            writeBuffer[pos++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len < writeBuffer.length) {
+                // copy it into our write buffer first
+                final int remaining = writeBuffer.length - pos;
+                if (len > remaining) {
+                    // copy as much as fits
+                    System.arraycopy(b, off, writeBuffer, pos, remaining);
+                    off += remaining;
+                    len -= remaining;
+                    pos += remaining;
+
+                    flushToFile();
+                }
+
+                System.arraycopy(b, off, writeBuffer, pos, len);
+                pos += len;
+            } else {
+                flushToFile();
+                file.outputStream.write(b, off, len);
+            }
+        }
+
+        @Override
+        public long getPos() throws IOException {
+            return pos + (file == null ? 0 : file.getSize() - startPos);
+        }
+
+        private void flushToFile() throws IOException {
+            if (closed) {
+                throw new IOException("closed");
+            }
+            if (file == null) {
+                file = leaseFile(scope);
+                startPos = file.getSize();
+            }
+            if (pos > 0) {
+                file.outputStream.write(writeBuffer, 0, pos);
+                pos = 0;
+            }
+        }
+
+        /** Flush buffers to file if their size is above the file state threshold. */
+        @Override
+        public void flush() throws IOException {
+            if (file != null || pos > fileStateThreshold) {
+                flushToFile();
+            }
+        }
+
+        @Override
+        public void sync() throws IOException {
+            flushToFile();
+            file.outputStream.sync();
+        }
+
+        /**
+         * Closes the stream without producing a handle. The leased physical file is closed and not
+         * reused, since it ends with an incomplete segment. It is deleted if it contains no other
+         * segments.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                pos = writeBuffer.length;
+                if (file != null) {
+                    discardFile(file);
+                }
+            }
+        }
+
+        @Nullable
+        @Override
+        public StreamStateHandle closeAndGetHandle() throws IOException {
+            // check if there was nothing ever written
+            if (file == null && pos == 0) {
+                return null;
+            }
+
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("Stream has already been closed and discarded.");
+                }
+                if (file == null && pos <= fileStateThreshold) {
+                    closed = true;
+                    byte[] bytes = Arrays.copyOf(writeBuffer, pos);
+                    pos = writeBuffer.length;
+                    final Path basePath =
+                            scope == CheckpointedStateScope.EXCLUSIVE
+                                    ? checkpointDirectory
+                                    : sharedStateDirectory;
+                    return new ByteStreamStateHandle(
+                            new Path(basePath, UUID.randomUUID().toString()).toString(), bytes);
+                }
+
+                final SegmentFileStateHandle handle;
+                try {
+                    flushToFile();
+                    handle =
+                            new SegmentFileStateHandle(
+                                    file.filePath, startPos, file.getSize() - startPos, scope);
+                    file.hasSegments = true;
+                } catch (Exception exception) {
+                    if (file != null) {
+                        discardFile(file);
+                    }
+                    throw new IOException(
+                            "Could not write the segment to the physical file "
+                                    + (file == null ? null : file.filePath),
+                            exception);
+                } finally {
+                    closed = true;
+                    pos = writeBuffer.length;
+                }
+                returnFile(scope, file);
+                return handle;
+            }
+        }
+    }
+}
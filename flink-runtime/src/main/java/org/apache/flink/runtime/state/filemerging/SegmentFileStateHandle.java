@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.filemerging;
+
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.StreamStateHandle;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * {@link StreamStateHandle} for state that was written as a segment of a physical file which is
+ * shared with other state handles of the same checkpoint. The segment is identified by the path of
+ * the physical file, its start position and its length.
+ *
+ * <p>Discarding a segment deletes the whole physical file. State handles in the {@link
+ * CheckpointedStateScope#EXCLUSIVE exclusive} scope share the lifecycle of their checkpoint, so all
+ * segments of one physical file are discarded together. Segments in the {@link
+ * CheckpointedStateScope#SHARED shared} scope are reference counted per physical file by the {@link
+ * org.apache.flink.runtime.state.SharedStateRegistryImpl} once they are registered, which only
+ * deletes the physical file after all its segments were released.
+ */
+public class SegmentFileStateHandle implements StreamStateHandle {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The path to the physical file that contains the segment. */
+    private final Path filePath;
+
+    /** The position of the first byte of the segment in the physical file. */
+    private final long startPos;
+
+    /** The length of the segment. */
+    private final long stateSize;
+
+    /** The scope of the state, which decides which directory the physical file lives in. */
+    private final CheckpointedStateScope scope;
+
+    public SegmentFileStateHandle(
+            Path filePath, long startPos, long stateSize, CheckpointedStateScope scope) {
+        checkArgument(startPos >= 0);
+        checkArgument(stateSize >= 0);
+        this.filePath = checkNotNull(filePath);
+        this.startPos = startPos;
+        this.stateSize = stateSize;
+        this.scope = checkNotNull(scope);
+    }
+
+    /** Gets the path of the physical file that contains this segment. */
+    public Path getFilePath() {
+        return filePath;
+    }
+
+    /** Gets the position of the first byte of this segment in the physical file. */
+    public long getStartPos() {
+        return startPos;
+    }
+
+    public CheckpointedStateScope getScope() {
+        return scope;
+    }
+
+    @Override
+    public FSDataInputStream openInputStream() throws IOException {
+        FSDataInputStream inputStream = getFileSystem().open(filePath);
+        try {
+            inputStream.seek(startPos);
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+        return new SegmentInputStream(inputStream, startPos, stateSize);
+    }
+
+    @Override
+    public Optional<byte[]> asBytesIfInMemory() {
+        return Optional.empty();
+    }
+
+    /**
+     * Discards the state by deleting the whole physical file that contains the segment.
+     *
+     * @throws Exception Thrown, if the file exists but could not be deleted.
+     */
+    @Override
+    public void discardState() throws Exception {
+        final FileSystem fs = getFileSystem();
+
+        IOException actualException = null;
+        boolean success = true;
+        try {
+            success = fs.delete(filePath, false);
+        } catch (IOException e) {
+            actualException = e;
+        }
+
+        if (!success || actualException != null) {
+            if (fs.exists(filePath)) {
+                throw Optional.ofNullable(actualException)
+                        .orElse(
+                                new IOException(
+                                        "Unknown error caused the file '"
+                                                + filePath
+                                                + "' to not be deleted."));
+            }
+        }
+    }
+
+    @Override
+    public long getStateSize() {
+        return stateSize;
+    }
+
+    private FileSystem getFileSystem() throws IOException {
+        return FileSystem.get(filePath.toUri());
+    }
+
+    // ------------------------------------------------------------------------
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        SegmentFileStateHandle that = (SegmentFileStateHandle) o;
+        return startPos == that.startPos
+                && stateSize == that.stateSize
+                && filePath.equals(that.filePath)
+                && scope == that.scope;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(filePath, startPos, stateSize, scope);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Segment File State: %s [%d, %d) %s",
+                filePath, startPos, startPos + stateSize, scope);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+     * An input stream that exposes only the bytes of one segment of the physical file. Positions
+     * are relative to the start of the segment.
+     */
+    private static final class SegmentInputStream extends FSDataInputStream {
+
+        private final FSDataInputStream delegate;
+
+        private final long startPos;
+
+        private final long endPos;
+
+        private SegmentInputStream(FSDataInputStream delegate, long startPos, long length) {
+            this.delegate = delegate;
+            this.startPos = startPos;
+            this.endPos = startPos + length;
+        }
+
+        @Override
+        public void seek(long desired) throws IOException {
+            if (desired < 0 || startPos + desired > endPos) {
+                throw new EOFException(
+                        "Cannot seek to " + desired + " in a segment of " + (endPos - startPos));
+            }
+            delegate.seek(startPos + desired);
+        }
+
+        @Override
+        public long getPos() throws IOException {
+            return delegate.getPos() - startPos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return delegate.getPos() < endPos ? delegate.read() : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long remaining = endPos - delegate.getPos();
+            if (remaining <= 0) {
+                return -1;
+            }
+            return delegate.read(b, off, (int) Math.min(len, remaining));
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long remaining = endPos - delegate.getPos();
+            return remaining <= 0 ? 0 : delegate.skip(Math.min(n, remaining));
+        }
+
+        @Override
+        public int available() throws IOException {
+            long remaining = endPos - delegate.getPos();
+            return (int) Math.max(0, Math.min(delegate.available(), remaining));
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
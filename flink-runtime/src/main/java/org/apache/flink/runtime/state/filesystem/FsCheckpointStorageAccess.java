@@ -29,11 +29,14 @@ import org.apache.flink.runtime.state.CheckpointStorageLocation;
 import org.apache.flink.runtime.state.CheckpointStorageLocationReference;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
 import org.apache.flink.runtime.state.NotDuplicatingCheckpointStateToolset;
+import org.apache.flink.runtime.state.filemerging.FileMergingCheckpointStreamFactory;
 import org.apache.flink.runtime.state.filesystem.FsCheckpointStreamFactory.FsCheckpointStateOutputStream;
 
 import javax.annotation.Nullable;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -53,6 +56,18 @@ public class FsCheckpointStorageAccess extends AbstractFsCheckpointStorageAccess
 
     private final int writeBufferSize;
 
+    /**
+     * The maximum size of the physical files into which the state files of one subtask and
+     * checkpoint are merged, or -1 if file merging is disabled.
+     */
+    private final long fileMergingMaxFileSize;
+
+    /**
+     * Whether checkpoint state files are written to local disk first and uploaded in the
+     * background.
+     */
+    private final boolean localFirstEnabled;
+
     private boolean baseLocationsInitialized = false;
 
     public FsCheckpointStorageAccess(
@@ -72,6 +87,27 @@ public class FsCheckpointStorageAccess extends AbstractFsCheckpointStorageAccess
                 writeBufferSize);
     }
 
+    public FsCheckpointStorageAccess(
+            Path checkpointBaseDirectory,
+            @Nullable Path defaultSavepointDirectory,
+            JobID jobId,
+            int fileSizeThreshold,
+            int writeBufferSize,
+            long fileMergingMaxFileSize,
+            boolean localFirstEnabled)
+            throws IOException {
+
+        this(
+                checkpointBaseDirectory.getFileSystem(),
+                checkpointBaseDirectory,
+                defaultSavepointDirectory,
+                jobId,
+                fileSizeThreshold,
+                writeBufferSize,
+                fileMergingMaxFileSize,
+                localFirstEnabled);
+    }
+
     public FsCheckpointStorageAccess(
             FileSystem fs,
             Path checkpointBaseDirectory,
@@ -81,6 +117,28 @@ public class FsCheckpointStorageAccess extends AbstractFsCheckpointStorageAccess
             int writeBufferSize)
             throws IOException {
 
+        this(
+                fs,
+                checkpointBaseDirectory,
+                defaultSavepointDirectory,
+                jobId,
+                fileSizeThreshold,
+                writeBufferSize,
+                -1,
+                false);
+    }
+
+    public FsCheckpointStorageAccess(
+            FileSystem fs,
+            Path checkpointBaseDirectory,
+            @Nullable Path defaultSavepointDirectory,
+            JobID jobId,
+            int fileSizeThreshold,
+            int writeBufferSize,
+            long fileMergingMaxFileSize,
+            boolean localFirstEnabled)
+            throws IOException {
+
         super(jobId, defaultSavepointDirectory);
 
         checkArgument(fileSizeThreshold >= 0);
@@ -93,6 +151,8 @@ public class FsCheckpointStorageAccess extends AbstractFsCheckpointStorageAccess
                 new Path(checkpointsDirectory, CHECKPOINT_TASK_OWNED_STATE_DIR);
         this.fileSizeThreshold = fileSizeThreshold;
         this.writeBufferSize = writeBufferSize;
+        this.fileMergingMaxFileSize = fileMergingMaxFileSize;
+        this.localFirstEnabled = localFirstEnabled;
     }
 
     // ------------------------------------------------------------------------
@@ -170,6 +230,42 @@ public class FsCheckpointStorageAccess extends AbstractFsCheckpointStorageAccess
         }
     }
 
+    @Nullable
+    @Override
+    public FileMergingCheckpointStreamFactory resolveFileMergingCheckpointStorageLocation(
+            long checkpointId, CheckpointStorageLocationReference reference) {
+        if (fileMergingMaxFileSize <= 0 || !reference.isDefaultReference()) {
+            return null;
+        }
+        return new FileMergingCheckpointStreamFactory(
+                fileSystem,
+                createCheckpointDirectory(checkpointsDirectory, checkpointId),
+                sharedStateDirectory,
+                fileSizeThreshold,
+                writeBufferSize,
+                fileMergingMaxFileSize);
+    }
+
+    @Nullable
+    @Override
+    public LocalFirstCheckpointStreamFactory resolveLocalFirstCheckpointStorageLocation(
+            long checkpointId,
+            CheckpointStorageLocationReference reference,
+            File localDirectory,
+            Executor uploadExecutor) {
+        if (!localFirstEnabled || fileMergingMaxFileSize > 0 || !reference.isDefaultReference()) {
+            return null;
+        }
+        return new LocalFirstCheckpointStreamFactory(
+                fileSystem,
+                createCheckpointDirectory(checkpointsDirectory, checkpointId),
+                sharedStateDirectory,
+                fileSizeThreshold,
+                writeBufferSize,
+                localDirectory,
+                uploadExecutor);
+    }
+
     @Override
     public CheckpointStateOutputStream createTaskOwnedStateStream() {
         // as the comment of CheckpointStorageWorkerView#createTaskOwnedStateStream said we may
@@ -0,0 +1,363 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.state.filesystem;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.core.fs.EntropyInjector;
+import org.apache.flink.core.fs.FSDataOutputStream;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.FileSystem.WriteMode;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.state.CheckpointStateOutputStream;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
+import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.concurrent.FutureUtils;
+import org.apache.flink.util.function.ThrowingRunnable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link CheckpointStreamFactory} that writes the state files of one subtask for one checkpoint
+ * to a local directory and uploads them to the checkpoint file system in the background.
+ *
+ * <p>When a stream is closed, its local file is synced to disk and the returned handle already
+ * points to the final location in the checkpoint directory. The file only exists there once the
+ * upload finished, which is signalled by {@link #getRemoteUploadFuture()}. Therefore the checkpoint
+ * can be acknowledged as soon as all streams are closed, but it is only durable in the checkpoint
+ * storage once the upload future completed. State below the file state threshold is inlined into
+ * the metadata as before and never uploaded.
+ *
+ * <p>Each state file is uploaded by a separate task of the given upload executor, which therefore
+ * bounds the number of concurrent uploads. Local files are deleted after they were uploaded, they
+ * are not registered with the local state store and thus not used for local recovery. This factory
+ * is thread-safe, streams created by it are not.
+ */
+public class LocalFirstCheckpointStreamFactory implements CheckpointStreamFactory {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(LocalFirstCheckpointStreamFactory.class);
+
+    /** The factory to which duplication of existing state handles is delegated. */
+    private final FsCheckpointStreamFactory delegate;
+
+    private final FileSystem fileSystem;
+
+    private final Path checkpointDirectory;
+
+    private final Path sharedStateDirectory;
+
+    private final int fileStateThreshold;
+
+    private final int writeBufferSize;
+
+    private final boolean entropyInjecting;
+
+    /** The directory that holds the local copies of the state files until they are uploaded. */
+    private final File localDirectory;
+
+    private final Executor uploadExecutor;
+
+    @GuardedBy("uploads")
+    private final List<CompletableFuture<Void>> uploads = new ArrayList<>();
+
+    public LocalFirstCheckpointStreamFactory(
+            FileSystem fileSystem,
+            Path checkpointDirectory,
+            Path sharedStateDirectory,
+            int fileStateThreshold,
+            int writeBufferSize,
+            File localDirectory,
+            Executor uploadExecutor) {
+        this.delegate =
+                new FsCheckpointStreamFactory(
+                        fileSystem,
+                        checkpointDirectory,
+                        sharedStateDirectory,
+                        fileStateThreshold,
+                        writeBufferSize);
+        this.fileSystem = fileSystem;
+        this.checkpointDirectory = checkpointDirectory;
+        this.sharedStateDirectory = sharedStateDirectory;
+        this.fileStateThreshold = fileStateThreshold;
+        this.writeBufferSize = Math.max(writeBufferSize, fileStateThreshold);
+        this.entropyInjecting = EntropyInjector.isEntropyInjecting(fileSystem);
+        this.localDirectory = checkNotNull(localDirectory);
+        this.uploadExecutor = checkNotNull(uploadExecutor);
+    }
+
+    @Override
+    public CheckpointStateOutputStream createCheckpointStateOutputStream(
+            CheckpointedStateScope scope) {
+        return new LocalFirstCheckpointStateOutputStream(scope);
+    }
+
+    @Override
+    public boolean canFastDuplicate(StreamStateHandle stateHandle, CheckpointedStateScope scope)
+            throws IOException {
+        return delegate.canFastDuplicate(stateHandle, scope);
+    }
+
+    @Override
+    public List<StreamStateHandle> duplicate(
+            List<StreamStateHandle> stateHandles, CheckpointedStateScope scope) throws IOException {
+        return delegate.duplicate(stateHandles, scope);
+    }
+
+    /** Returns whether any state file of this checkpoint is not uploaded yet. */
+    public boolean hasPendingUploads() {
+        synchronized (uploads) {
+            return uploads.stream().anyMatch(upload -> !upload.isDone());
+        }
+    }
+
+    /**
+     * Returns a future that completes once all state files written by the streams of this factory
+     * were uploaded to the checkpoint directory. Must be called after all streams were closed.
+     */
+    public CompletableFuture<Void> getRemoteUploadFuture() {
+        final List<CompletableFuture<Void>> pendingUploads;
+        synchronized (uploads) {
+            pendingUploads = new ArrayList<>(uploads);
+        }
+        return FutureUtils.waitForAll(pendingUploads)
+                .whenComplete((ignored, error) -> FileUtils.deleteDirectoryQuietly(localDirectory));
+    }
+
+    @VisibleForTesting
+    File getLocalDirectory() {
+        return localDirectory;
+    }
+
+    private Path getTargetPath(CheckpointedStateScope scope) {
+        return scope == CheckpointedStateScope.EXCLUSIVE
+                ? checkpointDirectory
+                : sharedStateDirectory;
+    }
+
+    private void upload(File localFile, Path target) throws IOException {
+        try (InputStream in = Files.newInputStream(localFile.toPath());
+                FSDataOutputStream out = fileSystem.create(target, WriteMode.NO_OVERWRITE)) {
+            IOUtils.copyBytes(in, out, false);
+        } catch (IOException e) {
+            try {
+                fileSystem.delete(target, false);
+            } catch (Exception deleteException) {
+                e.addSuppressed(deleteException);
+            }
+            throw new IOException(
+                    "Could not upload local checkpoint state file " + localFile + " to " + target,
+                    e);
+        } finally {
+            IOUtils.deleteFileQuietly(localFile.toPath());
+        }
+        LOG.debug("Uploaded local checkpoint state file {} to {}.", localFile, target);
+    }
+
+    @Override
+    public String toString() {
+        return "Local First Stream Factory @ " + checkpointDirectory + " via " + localDirectory;
+    }
+
+    // ------------------------------------------------------------------------
+    //  Checkpoint stream implementation
+    // ------------------------------------------------------------------------
+
+    /**
+     * A stream that buffers small state in memory like the {@link
+     * FsCheckpointStreamFactory.FsCheckpointStateOutputStream} and spills everything else to a
+     * local file, which is uploaded after the stream was closed.
+     */
+    private final class LocalFirstCheckpointStateOutputStream extends CheckpointStateOutputStream {
+
+        private final CheckpointedStateScope scope;
+
+        private final byte[] writeBuffer;
+
+        private int pos;
+
+        @Nullable private File localFile;
+
+        @Nullable private FileOutputStream localStream;
+
+        private long flushedBytes;
+
+        private boolean closed;
+
+        private LocalFirstCheckpointStateOutputStream(CheckpointedStateScope scope) {
+            this.scope = scope;
+            this.writeBuffer = new byte[writeBufferSize];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (pos >= writeBuffer.length) {
+                flushToFile();
+            }
+            writeBuffer[pos++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len < writeBuffer.length) {
+                // copy it into our write buffer first
+                final int remaining = writeBuffer.length - pos;
+                if (len > remaining) {
+                    flushToFile();
+                }
+                System.arraycopy(b, off, writeBuffer, pos, len);
+                pos += len;
+            } else {
+                // flush the write buffer to make it clear again
+                flushToFile();
+                localStream.write(b, off, len);
+                flushedBytes += len;
+            }
+        }
+
+        @Override
+        public long getPos() {
+            return flushedBytes + pos;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (localStream != null || pos > fileStateThreshold) {
+                flushToFile();
+            }
+        }
+
+        @Override
+        public void sync() throws IOException {
+            flushToFile();
+            localStream.getFD().sync();
+        }
+
+        private void flushToFile() throws IOException {
+            if (closed) {
+                throw new IOException("closed");
+            }
+            if (localStream == null) {
+                if (!localDirectory.exists() && !localDirectory.mkdirs()) {
+                    throw new IOException(
+                            "Could not create local checkpoint directory " + localDirectory);
+                }
+                localFile = new File(localDirectory, UUID.randomUUID().toString());
+                localStream = new FileOutputStream(localFile);
+            }
+            if (pos > 0) {
+                localStream.write(writeBuffer, 0, pos);
+                flushedBytes += pos;
+                pos = 0;
+            }
+        }
+
+        /** Closes the stream and deletes the local file, nothing is uploaded. */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                pos = 0;
+                if (localStream != null) {
+                    IOUtils.closeQuietly(localStream);
+                    IOUtils.deleteFileQuietly(localFile.toPath());
+                }
+            }
+        }
+
+        @Nullable
+        @Override
+        public StreamStateHandle closeAndGetHandle() throws IOException {
+            // check if there was nothing ever written
+            if (localStream == null && pos == 0) {
+                return null;
+            }
+            if (closed) {
+                throw new IOException("Stream has already been closed and discarded.");
+            }
+
+            final String fileName = UUID.randomUUID().toString();
+            final Path targetDirectory = getTargetPath(scope);
+
+            if (localStream == null && pos <= fileStateThreshold) {
+                closed = true;
+                byte[] bytes = Arrays.copyOf(writeBuffer, pos);
+                return new ByteStreamStateHandle(
+                        new Path(targetDirectory, fileName).toString(), bytes);
+            }
+
+            final File fileToUpload;
+            final long size;
+            try {
+                sync();
+                localStream.close();
+                fileToUpload = localFile;
+                size = flushedBytes;
+            } catch (IOException e) {
+                close();
+                throw new IOException(
+                        "Could not write the local checkpoint state file " + localFile, e);
+            } finally {
+                closed = true;
+            }
+
+            final Path target =
+                    EntropyInjector.addEntropy(fileSystem, new Path(targetDirectory, fileName));
+            try {
+                final CompletableFuture<Void> upload =
+                        CompletableFuture.runAsync(
+                                ThrowingRunnable.unchecked(() -> upload(fileToUpload, target)),
+                                uploadExecutor);
+                synchronized (uploads) {
+                    uploads.add(upload);
+                }
+            } catch (RejectedExecutionException e) {
+                IOUtils.deleteFileQuietly(fileToUpload.toPath());
+                throw new IOException("Could not schedule the upload of " + fileToUpload, e);
+            }
+
+            final boolean relativePath =
+                    !entropyInjecting && scope == CheckpointedStateScope.EXCLUSIVE;
+            return relativePath
+                    ? new RelativeFileStateHandle(target, fileName, size)
+                    : new FileStateHandle(target, size);
+        }
+    }
+}
@@ -21,8 +21,10 @@ package org.apache.flink.runtime.state.hashmap;
 import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.CheckpointingOptions;
 import org.apache.flink.configuration.IllegalConfigurationException;
 import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.configuration.StateBackendOptions;
 import org.apache.flink.core.execution.SavepointFormatType;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.metrics.MetricGroup;
@@ -43,6 +45,7 @@ import org.apache.flink.runtime.state.heap.HeapKeyedStateBackendBuilder;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.metrics.LatencyTrackingStateConfig;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.TernaryBoolean;
 
 import javax.annotation.Nonnull;
 
@@ -76,6 +79,12 @@ public class HashMapStateBackend extends AbstractStateBackend implements Configu
 
     private static final long serialVersionUID = 1L;
 
+    /** Whether timers are kept in a hierarchical timing wheel instead of a binary heap. */
+    private TernaryBoolean timingWheelTimersEnabled = TernaryBoolean.UNDEFINED;
+
+    /** Whether checkpoints only upload the key groups modified since the last checkpoint. */
+    private TernaryBoolean enableIncrementalCheckpointing = TernaryBoolean.UNDEFINED;
+
     // -----------------------------------------------------------------------
 
     /** Creates a new state backend. */
@@ -84,6 +93,14 @@ public class HashMapStateBackend extends AbstractStateBackend implements Configu
     private HashMapStateBackend(HashMapStateBackend original, ReadableConfig config) {
         // configure latency tracking
         latencyTrackingConfigBuilder = original.latencyTrackingConfigBuilder.configure(config);
+
+        this.timingWheelTimersEnabled =
+                original.timingWheelTimersEnabled.resolveUndefined(
+                        config.get(StateBackendOptions.HEAP_TIMING_WHEEL_TIMERS_ENABLED));
+
+        this.enableIncrementalCheckpointing =
+                original.enableIncrementalCheckpointing.resolveUndefined(
+                        config.get(CheckpointingOptions.INCREMENTAL_CHECKPOINTS));
     }
 
     @Override
@@ -94,7 +111,8 @@ public class HashMapStateBackend extends AbstractStateBackend implements Configu
 
     @Override
     public boolean supportsNoClaimRestoreMode() {
-        // we never share any files, all snapshots are full
+        // incremental checkpoints only share files of checkpoints taken by this backend instance,
+        // the first checkpoint after a restore is always full
         return true;
     }
 
@@ -121,7 +139,8 @@ public class HashMapStateBackend extends AbstractStateBackend implements Configu
         TaskStateManager taskStateManager = env.getTaskStateManager();
         LocalRecoveryConfig localRecoveryConfig = taskStateManager.createLocalRecoveryConfig();
         HeapPriorityQueueSetFactory priorityQueueSetFactory =
-                new HeapPriorityQueueSetFactory(keyGroupRange, numberOfKeyGroups, 128);
+                new HeapPriorityQueueSetFactory(
+                        keyGroupRange, numberOfKeyGroups, 128, isTimingWheelTimersEnabled());
 
         LatencyTrackingStateConfig latencyTrackingStateConfig =
                 latencyTrackingConfigBuilder.setMetricGroup(metricGroup).build();
@@ -140,9 +159,42 @@ public class HashMapStateBackend extends AbstractStateBackend implements Configu
                         priorityQueueSetFactory,
                         true,
                         cancelStreamRegistry)
+                .setEnableIncrementalCheckpointing(isIncrementalCheckpointsEnabled())
                 .build();
     }
 
+    /**
+     * Sets whether timers are kept in a hierarchical timing wheel instead of a binary heap. This
+     * makes registering and deleting timers a constant time operation.
+     *
+     * @see StateBackendOptions#HEAP_TIMING_WHEEL_TIMERS_ENABLED
+     */
+    public void setTimingWheelTimersEnabled(boolean enabled) {
+        this.timingWheelTimersEnabled = TernaryBoolean.fromBoolean(enabled);
+    }
+
+    /** Gets whether timers are kept in a hierarchical timing wheel instead of a binary heap. */
+    public boolean isTimingWheelTimersEnabled() {
+        return timingWheelTimersEnabled.getOrDefault(
+                StateBackendOptions.HEAP_TIMING_WHEEL_TIMERS_ENABLED.defaultValue());
+    }
+
+    /**
+     * Sets whether checkpoints only upload the key groups that were modified since the last
+     * completed checkpoint. Savepoints are always full snapshots.
+     *
+     * @see CheckpointingOptions#INCREMENTAL_CHECKPOINTS
+     */
+    public void setIncrementalCheckpointsEnabled(boolean enabled) {
+        this.enableIncrementalCheckpointing = TernaryBoolean.fromBoolean(enabled);
+    }
+
+    /** Gets whether checkpoints only upload the key groups modified since the last checkpoint. */
+    public boolean isIncrementalCheckpointsEnabled() {
+        return enableIncrementalCheckpointing.getOrDefault(
+                CheckpointingOptions.INCREMENTAL_CHECKPOINTS.defaultValue());
+    }
+
     @Override
     public OperatorStateBackend createOperatorStateBackend(
             Environment env,
@@ -18,7 +18,6 @@
 
 package org.apache.flink.runtime.state.heap;
 
-import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.state.State;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
@@ -112,8 +111,7 @@ public abstract class AbstractHeapState<K, N, SV> implements InternalKvState<K,
         return KvStateSerializer.serializeValue(result, safeValueSerializer);
     }
 
-    /** This should only be used for testing. */
-    @VisibleForTesting
+    /** Returns the state table which backs this state. */
     public StateTable<K, N, SV> getStateTable() {
         return stateTable;
     }
@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.state.CheckpointStateOutputStream;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointStreamWithResultProvider;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
+import org.apache.flink.runtime.state.KeyGroupsStateHandle;
+import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.PlaceholderStreamStateHandle;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StateSerializerProvider;
+import org.apache.flink.runtime.state.StateSnapshot;
+import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.UncompressedStreamCompressionDecorator;
+import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
+import org.apache.flink.util.IOUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.apache.flink.runtime.state.CheckpointStreamWithResultProvider.createSimpleStream;
+
+/**
+ * A {@link HeapSnapshotStrategy} that only uploads the key groups which were modified since the
+ * last completed checkpoint of this backend.
+ *
+ * <p>Every modified key group is written to its own {@link CheckpointedStateScope#SHARED shared}
+ * stream. Key groups which did not change since the last confirmed checkpoint are referenced with a
+ * {@link PlaceholderStreamStateHandle}, so that the {@link
+ * org.apache.flink.runtime.state.SharedStateRegistry} resolves them to the previously uploaded
+ * stream. Meta data and priority queue state (timers) are written in full to the {@link
+ * IncrementalRemoteKeyedStateHandle#getMetaStateHandle() meta state handle} of every checkpoint.
+ *
+ * <p>Savepoints are always taken with the full snapshot format of the base class.
+ */
+class HeapIncrementalSnapshotStrategy<K> extends HeapSnapshotStrategy<K> {
+
+    private static final String KEY_GROUP_STATE_HANDLE_PREFIX = "kg-";
+
+    private final Map<String, StateTable<K, ?, ?>> registeredKVStates;
+    private final StreamCompressionDecorator keyGroupCompressionDecorator;
+    private final KeyGroupRange keyGroupRange;
+
+    /** Identifies the shared state of this backend instance in the shared state registry. */
+    private final UUID backendIdentifier;
+
+    private final Object lock = new Object();
+
+    /**
+     * Key groups (relative to the start of the key group range) modified before the synchronous
+     * part of each checkpoint which is not yet subsumed by a completed checkpoint.
+     */
+    @GuardedBy("lock")
+    private final SortedMap<Long, BitSet> pendingModifications = new TreeMap<>();
+
+    /** Uploaded key group streams of checkpoints that are not yet confirmed, by checkpoint id. */
+    @GuardedBy("lock")
+    private final SortedMap<Long, Map<Integer, KeyGroupStateHandle>> uploadedKeyGroups =
+            new TreeMap<>();
+
+    /** Key group streams of the last completed checkpoint. */
+    @GuardedBy("lock")
+    private Map<Integer, KeyGroupStateHandle> confirmedKeyGroups = Collections.emptyMap();
+
+    HeapIncrementalSnapshotStrategy(
+            Map<String, StateTable<K, ?, ?>> registeredKVStates,
+            Map<String, HeapPriorityQueueSnapshotRestoreWrapper<?>> registeredPQStates,
+            StreamCompressionDecorator keyGroupCompressionDecorator,
+            LocalRecoveryConfig localRecoveryConfig,
+            KeyGroupRange keyGroupRange,
+            StateSerializerProvider<K> keySerializerProvider,
+            int totalKeyGroups) {
+        super(
+                registeredKVStates,
+                registeredPQStates,
+                keyGroupCompressionDecorator,
+                localRecoveryConfig,
+                keyGroupRange,
+                keySerializerProvider,
+                totalKeyGroups);
+        this.registeredKVStates = registeredKVStates;
+        this.keyGroupCompressionDecorator = keyGroupCompressionDecorator;
+        this.keyGroupRange = keyGroupRange;
+        this.backendIdentifier = UUID.randomUUID();
+    }
+
+    @Override
+    public HeapSnapshotResources<K> syncPrepareResources(long checkpointId) {
+        final BitSet modifiedKeyGroups = new BitSet(keyGroupRange.getNumberOfKeyGroups());
+        for (StateTable<K, ?, ?> stateTable : registeredKVStates.values()) {
+            stateTable.pollModifiedKeyGroups(modifiedKeyGroups);
+        }
+        synchronized (lock) {
+            pendingModifications.put(checkpointId, modifiedKeyGroups);
+        }
+        return super.syncPrepareResources(checkpointId);
+    }
+
+    @Override
+    public SnapshotResultSupplier<KeyedStateHandle> asyncSnapshot(
+            HeapSnapshotResources<K> syncPartResource,
+            long checkpointId,
+            long timestamp,
+            @Nonnull CheckpointStreamFactory streamFactory,
+            @Nonnull CheckpointOptions checkpointOptions) {
+
+        if (checkpointOptions.getCheckpointType().isSavepoint()) {
+            return super.asyncSnapshot(
+                    syncPartResource, checkpointId, timestamp, streamFactory, checkpointOptions);
+        }
+
+        final List<StateMetaInfoSnapshot> metaInfoSnapshots =
+                syncPartResource.getMetaInfoSnapshots();
+        if (metaInfoSnapshots.isEmpty()) {
+            return snapshotCloseableRegistry -> SnapshotResult.empty();
+        }
+
+        final KeyedBackendSerializationProxy<K> serializationProxy =
+                new KeyedBackendSerializationProxy<>(
+                        syncPartResource.getKeySerializer(),
+                        metaInfoSnapshots,
+                        !Objects.equals(
+                                UncompressedStreamCompressionDecorator.INSTANCE,
+                                keyGroupCompressionDecorator));
+
+        // key groups which were never modified and have no previous stream are empty
+        final BitSet keyGroupsToUpload = new BitSet(keyGroupRange.getNumberOfKeyGroups());
+        final Map<Integer, KeyGroupStateHandle> keyGroupsToReuse = new HashMap<>();
+        synchronized (lock) {
+            for (BitSet modifiedKeyGroups :
+                    pendingModifications.headMap(checkpointId + 1).values()) {
+                keyGroupsToUpload.or(modifiedKeyGroups);
+            }
+            for (Map.Entry<Integer, KeyGroupStateHandle> confirmed :
+                    confirmedKeyGroups.entrySet()) {
+                if (!keyGroupsToUpload.get(confirmed.getKey())) {
+                    keyGroupsToReuse.put(confirmed.getKey(), confirmed.getValue());
+                }
+            }
+        }
+
+        return snapshotCloseableRegistry -> {
+            final Map<StateUID, Integer> stateNamesToId = syncPartResource.getStateNamesToId();
+            final Map<StateUID, StateSnapshot> kvStateSnapshots = new HashMap<>();
+            final Map<StateUID, StateSnapshot> pqStateSnapshots = new HashMap<>();
+            for (Map.Entry<StateUID, StateSnapshot> stateSnapshot :
+                    syncPartResource.getCowStateStableSnapshots().entrySet()) {
+                if (stateSnapshot.getKey().getStateType()
+                        == StateMetaInfoSnapshot.BackendStateType.KEY_VALUE) {
+                    kvStateSnapshots.put(stateSnapshot.getKey(), stateSnapshot.getValue());
+                } else {
+                    pqStateSnapshots.put(stateSnapshot.getKey(), stateSnapshot.getValue());
+                }
+            }
+
+            final Map<StateHandleID, StreamStateHandle> sharedState = new HashMap<>();
+            final Map<Integer, KeyGroupStateHandle> keyGroupStateHandles = new HashMap<>();
+            long persistedSize = 0L;
+
+            for (int keyGroupPos = 0;
+                    keyGroupPos < keyGroupRange.getNumberOfKeyGroups();
+                    ++keyGroupPos) {
+                final KeyGroupStateHandle keyGroupStateHandle;
+                if (keyGroupsToUpload.get(keyGroupPos)) {
+                    final int keyGroupId = keyGroupRange.getKeyGroupId(keyGroupPos);
+                    final StreamStateHandle streamStateHandle =
+                            writeKeyGroup(
+                                    keyGroupId,
+                                    kvStateSnapshots,
+                                    streamFactory,
+                                    snapshotCloseableRegistry);
+                    keyGroupStateHandle =
+                            new KeyGroupStateHandle(
+                                    createStateHandleId(keyGroupId, checkpointId),
+                                    streamStateHandle.getStateSize());
+                    sharedState.put(keyGroupStateHandle.stateHandleId, streamStateHandle);
+                    persistedSize += streamStateHandle.getStateSize();
+                } else {
+                    keyGroupStateHandle = keyGroupsToReuse.get(keyGroupPos);
+                    if (keyGroupStateHandle == null) {
+                        continue;
+                    }
+                    sharedState.put(
+                            keyGroupStateHandle.stateHandleId,
+                            new PlaceholderStreamStateHandle(keyGroupStateHandle.stateSize));
+                }
+                keyGroupStateHandles.put(keyGroupPos, keyGroupStateHandle);
+            }
+
+            final KeyGroupsStateHandle metaStateHandle =
+                    writeMetaData(
+                            serializationProxy,
+                            stateNamesToId,
+                            pqStateSnapshots,
+                            streamFactory,
+                            snapshotCloseableRegistry);
+            persistedSize += metaStateHandle.getStateSize();
+
+            synchronized (lock) {
+                uploadedKeyGroups.put(checkpointId, keyGroupStateHandles);
+            }
+
+            return SnapshotResult.of(
+                    new IncrementalRemoteKeyedStateHandle(
+                            backendIdentifier,
+                            keyGroupRange,
+                            checkpointId,
+                            sharedState,
+                            Collections.emptyMap(),
+                            metaStateHandle,
+                            persistedSize));
+        };
+    }
+
+    /**
+     * Writes the given key group of all key/value states to a new shared stream. The stream holds
+     * the key group id followed by one compressed block with the number of states and, for each
+     * state, its name and mappings in the key group.
+     */
+    private StreamStateHandle writeKeyGroup(
+            int keyGroupId,
+            Map<StateUID, StateSnapshot> kvStateSnapshots,
+            CheckpointStreamFactory streamFactory,
+            CloseableRegistry snapshotCloseableRegistry)
+            throws IOException {
+
+        CheckpointStateOutputStream outputStream =
+                streamFactory.createCheckpointStateOutputStream(CheckpointedStateScope.SHARED);
+        try {
+            snapshotCloseableRegistry.registerCloseable(outputStream);
+
+            new DataOutputViewStreamWrapper(outputStream).writeInt(keyGroupId);
+            try (OutputStream kgCompressionOut =
+                    keyGroupCompressionDecorator.decorateWithCompression(outputStream)) {
+                DataOutputViewStreamWrapper kgCompressionView =
+                        new DataOutputViewStreamWrapper(kgCompressionOut);
+                kgCompressionView.writeInt(kvStateSnapshots.size());
+                for (Map.Entry<StateUID, StateSnapshot> stateSnapshot :
+                        kvStateSnapshots.entrySet()) {
+                    kgCompressionView.writeUTF(stateSnapshot.getKey().getStateName());
+                    stateSnapshot
+                            .getValue()
+                            .getKeyGroupWriter()
+                            .writeStateInKeyGroup(kgCompressionView, keyGroupId);
+                }
+            } // this will just close the outer compression stream
+
+            if (snapshotCloseableRegistry.unregisterCloseable(outputStream)) {
+                StreamStateHandle result = outputStream.closeAndGetHandle();
+                outputStream = null;
+                return result;
+            } else {
+                throw new IOException("Stream already unregistered.");
+            }
+        } finally {
+            if (outputStream != null) {
+                IOUtils.closeQuietly(outputStream);
+            }
+        }
+    }
+
+    /**
+     * Writes the meta data of all states followed by the priority queue states of every key group
+     * in the same format as the full snapshot.
+     */
+    private KeyGroupsStateHandle writeMetaData(
+            KeyedBackendSerializationProxy<K> serializationProxy,
+            Map<StateUID, Integer> stateNamesToId,
+            Map<StateUID, StateSnapshot> pqStateSnapshots,
+            CheckpointStreamFactory streamFactory,
+            CloseableRegistry snapshotCloseableRegistry)
+            throws IOException {
+
+        final CheckpointStreamWithResultProvider streamWithResultProvider =
+                createSimpleStream(CheckpointedStateScope.EXCLUSIVE, streamFactory);
+        snapshotCloseableRegistry.registerCloseable(streamWithResultProvider);
+
+        final CheckpointStateOutputStream outputStream =
+                streamWithResultProvider.getCheckpointOutputStream();
+        final DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(outputStream);
+        serializationProxy.write(outView);
+
+        final long[] keyGroupRangeOffsets = new long[keyGroupRange.getNumberOfKeyGroups()];
+        for (int keyGroupPos = 0;
+                keyGroupPos < keyGroupRange.getNumberOfKeyGroups();
+                ++keyGroupPos) {
+            int keyGroupId = keyGroupRange.getKeyGroupId(keyGroupPos);
+            keyGroupRangeOffsets[keyGroupPos] = outputStream.getPos();
+            outView.writeInt(keyGroupId);
+
+            for (Map.Entry<StateUID, StateSnapshot> stateSnapshot : pqStateSnapshots.entrySet()) {
+                try (OutputStream kgCompressionOut =
+                        keyGroupCompressionDecorator.decorateWithCompression(outputStream)) {
+                    DataOutputViewStreamWrapper kgCompressionView =
+                            new DataOutputViewStreamWrapper(kgCompressionOut);
+                    kgCompressionView.writeShort(stateNamesToId.get(stateSnapshot.getKey()));
+                    stateSnapshot
+                            .getValue()
+                            .getKeyGroupWriter()
+                            .writeStateInKeyGroup(kgCompressionView, keyGroupId);
+                } // this will just close the outer compression stream
+            }
+        }
+
+        if (snapshotCloseableRegistry.unregisterCloseable(streamWithResultProvider)) {
+            SnapshotResult<StreamStateHandle> result =
+                    streamWithResultProvider.closeAndFinalizeCheckpointStreamResult();
+            return new KeyGroupsStateHandle(
+                    new KeyGroupRangeOffsets(keyGroupRange, keyGroupRangeOffsets),
+                    result.getJobManagerOwnedSnapshot());
+        } else {
+            throw new IOException("Stream already unregistered.");
+        }
+    }
+
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) {
+        synchronized (lock) {
+            Map<Integer, KeyGroupStateHandle> completed = uploadedKeyGroups.get(checkpointId);
+            if (completed == null) {
+                // savepoint or a checkpoint this backend did not take
+                return;
+            }
+            confirmedKeyGroups = completed;
+            pendingModifications.headMap(checkpointId + 1).clear();
+            uploadedKeyGroups.headMap(checkpointId + 1).clear();
+        }
+    }
+
+    @Override
+    public void notifyCheckpointAborted(long checkpointId) {
+        synchronized (lock) {
+            // the modifications stay pending for the following checkpoints
+            uploadedKeyGroups.remove(checkpointId);
+        }
+    }
+
+    static StateHandleID createStateHandleId(int keyGroupId, long checkpointId) {
+        return new StateHandleID(KEY_GROUP_STATE_HANDLE_PREFIX + keyGroupId + '-' + checkpointId);
+    }
+
+    /** Extracts the key group of a shared state handle created by this strategy. */
+    static int getKeyGroupId(StateHandleID stateHandleId) {
+        String keyString = stateHandleId.getKeyString();
+        if (!keyString.startsWith(KEY_GROUP_STATE_HANDLE_PREFIX)) {
+            throw new IllegalStateException("Unexpected shared state handle: " + keyString);
+        }
+        return Integer.parseInt(
+                keyString.substring(
+                        KEY_GROUP_STATE_HANDLE_PREFIX.length(), keyString.lastIndexOf('-')));
+    }
+
+    /** The id and size of a key group stream uploaded by a previous checkpoint. */
+    private static final class KeyGroupStateHandle {
+        private final StateHandleID stateHandleId;
+        private final long stateSize;
+
+        private KeyGroupStateHandle(StateHandleID stateHandleId, long stateSize) {
+            this.stateHandleId = stateHandleId;
+            this.stateSize = stateSize;
+        }
+    }
+}
@@ -43,7 +43,6 @@ import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
 import org.apache.flink.runtime.state.SavepointResources;
 import org.apache.flink.runtime.state.SnapshotExecutionType;
 import org.apache.flink.runtime.state.SnapshotResult;
-import org.apache.flink.runtime.state.SnapshotStrategy;
 import org.apache.flink.runtime.state.SnapshotStrategyRunner;
 import org.apache.flink.runtime.state.StateSnapshotRestore;
 import org.apache.flink.runtime.state.StateSnapshotTransformer.StateSnapshotTransformFactory;
@@ -100,7 +99,7 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
     private final LocalRecoveryConfig localRecoveryConfig;
 
     /** The snapshot strategy for this backend. */
-    private final SnapshotStrategy<KeyedStateHandle, ?> checkpointStrategy;
+    private final HeapSnapshotStrategy<K> checkpointStrategy;
 
     private final SnapshotExecutionType snapshotExecutionType;
 
@@ -334,12 +333,12 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
     @Override
     public void notifyCheckpointComplete(long checkpointId) {
-        // Nothing to do
+        checkpointStrategy.notifyCheckpointComplete(checkpointId);
     }
 
     @Override
     public void notifyCheckpointAborted(long checkpointId) {
-        // nothing to do
+        checkpointStrategy.notifyCheckpointAborted(checkpointId);
     }
 
     @Override
@@ -27,6 +27,7 @@ import org.apache.flink.runtime.state.BackendBuildingException;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
 import org.apache.flink.runtime.state.RestoreOperation;
 import org.apache.flink.runtime.state.SavepointKeyedStateHandle;
 import org.apache.flink.runtime.state.StreamCompressionDecorator;
@@ -50,11 +51,13 @@ import static org.apache.flink.runtime.state.SnapshotExecutionType.SYNCHRONOUS;
  */
 public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBuilder<K> {
     /** The configuration of local recovery. */
-    private final LocalRecoveryConfig localRecoveryConfig;
+    protected final LocalRecoveryConfig localRecoveryConfig;
     /** Factory for state that is organized as priority queue. */
-    private final HeapPriorityQueueSetFactory priorityQueueSetFactory;
+    protected final HeapPriorityQueueSetFactory priorityQueueSetFactory;
     /** Whether asynchronous snapshot is enabled. */
-    private final boolean asynchronousSnapshots;
+    protected final boolean asynchronousSnapshots;
+    /** Whether checkpoints only upload the key groups modified since the last checkpoint. */
+    private boolean enableIncrementalCheckpointing = false;
 
     public HeapKeyedStateBackendBuilder(
             TaskKvStateRegistry kvStateRegistry,
@@ -88,6 +91,12 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
         this.asynchronousSnapshots = asynchronousSnapshots;
     }
 
+    public HeapKeyedStateBackendBuilder<K> setEnableIncrementalCheckpointing(
+            boolean enableIncrementalCheckpointing) {
+        this.enableIncrementalCheckpointing = enableIncrementalCheckpointing;
+        return this;
+    }
+
     @Override
     public HeapKeyedStateBackend<K> build() throws BackendBuildingException {
         // Map of registered Key/Value states
@@ -101,7 +110,22 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
         InternalKeyContext<K> keyContext =
                 new InternalKeyContextImpl<>(keyGroupRange, numberOfKeyGroups);
 
-        final StateTableFactory<K> stateTableFactory = CopyOnWriteStateTable::new;
+        final StateTableFactory<K> stateTableFactory =
+                new StateTableFactory<K>() {
+                    @Override
+                    public <N, V> StateTable<K, N, V> newStateTable(
+                            InternalKeyContext<K> keyContext,
+                            RegisteredKeyValueStateBackendMetaInfo<N, V> keyValueStateMetaInfo,
+                            TypeSerializer<K> keySerializer) {
+                        // counter-style states with primitive keys and values avoid one entry
+                        // object per mapping
+                        return PrimitiveStateTable.isSupported(keySerializer, keyValueStateMetaInfo)
+                                ? new PrimitiveStateTable<>(
+                                        keyContext, keyValueStateMetaInfo, keySerializer)
+                                : new CopyOnWriteStateTable<>(
+                                        keyContext, keyValueStateMetaInfo, keySerializer);
+                    }
+                };
 
         restoreState(registeredKVStates, registeredPQStates, keyContext, stateTableFactory);
         return new HeapKeyedStateBackend<>(
@@ -123,7 +147,7 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
                 keyContext);
     }
 
-    private void restoreState(
+    protected void restoreState(
             Map<String, StateTable<K, ?, ?>> registeredKVStates,
             Map<String, HeapPriorityQueueSnapshotRestoreWrapper<?>> registeredPQStates,
             InternalKeyContext<K> keyContext,
@@ -173,9 +197,19 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
         }
     }
 
-    private HeapSnapshotStrategy<K> initSnapshotStrategy(
+    protected HeapSnapshotStrategy<K> initSnapshotStrategy(
             Map<String, StateTable<K, ?, ?>> registeredKVStates,
             Map<String, HeapPriorityQueueSnapshotRestoreWrapper<?>> registeredPQStates) {
+        if (enableIncrementalCheckpointing) {
+            return new HeapIncrementalSnapshotStrategy<>(
+                    registeredKVStates,
+                    registeredPQStates,
+                    keyGroupCompressionDecorator,
+                    localRecoveryConfig,
+                    keyGroupRange,
+                    keySerializerProvider,
+                    numberOfKeyGroups);
+        }
         return new HeapSnapshotStrategy<>(
                 registeredKVStates,
                 registeredPQStates,
@@ -28,6 +28,7 @@ import org.apache.flink.queryablestate.client.state.serialization.KvStateSeriali
 import org.apache.flink.runtime.state.internal.InternalMapState;
 import org.apache.flink.util.Preconditions;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -92,6 +93,25 @@ class HeapMapState<K, N, UK, UV> extends AbstractHeapState<K, N, Map<UK, UV>>
         return userMap.get(userKey);
     }
 
+    @Override
+    public Map<UK, UV> getAll(Collection<UK> userKeys) {
+
+        Map<UK, UV> userMap = stateTable.get(currentNamespace);
+
+        if (userMap == null) {
+            return new HashMap<>();
+        }
+
+        Map<UK, UV> result = new HashMap<>(userKeys.size());
+        for (UK userKey : userKeys) {
+            UV userValue = userMap.get(userKey);
+            if (userValue != null) {
+                result.put(userKey, userValue);
+            }
+        }
+        return result;
+    }
+
     @Override
     public void put(UK userKey, UV userValue) {
 
@@ -20,6 +20,7 @@ package org.apache.flink.runtime.state.heap;
 
 import org.apache.flink.runtime.state.KeyExtractorFunction;
 import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
 import org.apache.flink.runtime.state.Keyed;
 import org.apache.flink.runtime.state.PriorityComparable;
 import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
@@ -121,7 +122,7 @@ class HeapMetaInfoRestoreOperation<K> {
                     RegisteredPriorityQueueStateBackendMetaInfo metaInfo) {
 
         final String stateName = metaInfo.getName();
-        final HeapPriorityQueueSet<T> priorityQueue =
+        final KeyGroupedInternalPriorityQueue<T> priorityQueue =
                 priorityQueueSetFactory.create(stateName, metaInfo.getElementSerializer());
 
         return new HeapPriorityQueueSnapshotRestoreWrapper<>(
@@ -21,6 +21,7 @@ package org.apache.flink.runtime.state.heap;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.state.KeyExtractorFunction;
 import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
 import org.apache.flink.runtime.state.Keyed;
 import org.apache.flink.runtime.state.PriorityComparable;
 import org.apache.flink.runtime.state.PriorityComparator;
@@ -29,7 +30,12 @@ import org.apache.flink.runtime.state.PriorityQueueSetFactory;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
-/** Factory for {@link HeapPriorityQueueSet}. */
+/**
+ * Factory for {@link HeapPriorityQueueSet}, or for {@link HeapTimingWheelPriorityQueueSet} if
+ * timing wheels are enabled. The latter requires the elements to implement {@link
+ * TimestampedHeapPriorityQueueElement}, which is the case for the timers of the timer service.
+ * Queues of other elements are always backed by a {@link HeapPriorityQueueSet}.
+ */
 public class HeapPriorityQueueSetFactory implements PriorityQueueSetFactory {
 
     @Nonnull private final KeyGroupRange keyGroupRange;
@@ -38,23 +44,44 @@ public class HeapPriorityQueueSetFactory implements PriorityQueueSetFactory {
 
     @Nonnegative private final int minimumCapacity;
 
+    private final boolean useTimingWheel;
+
     public HeapPriorityQueueSetFactory(
             @Nonnull KeyGroupRange keyGroupRange,
             @Nonnegative int totalKeyGroups,
             @Nonnegative int minimumCapacity) {
+        this(keyGroupRange, totalKeyGroups, minimumCapacity, false);
+    }
+
+    public HeapPriorityQueueSetFactory(
+            @Nonnull KeyGroupRange keyGroupRange,
+            @Nonnegative int totalKeyGroups,
+            @Nonnegative int minimumCapacity,
+            boolean useTimingWheel) {
 
         this.keyGroupRange = keyGroupRange;
         this.totalKeyGroups = totalKeyGroups;
         this.minimumCapacity = minimumCapacity;
+        this.useTimingWheel = useTimingWheel;
     }
 
     @Nonnull
     @Override
     public <T extends HeapPriorityQueueElement & PriorityComparable<? super T> & Keyed<?>>
-            HeapPriorityQueueSet<T> create(
+            KeyGroupedInternalPriorityQueue<T> create(
                     @Nonnull String stateName,
                     @Nonnull TypeSerializer<T> byteOrderedElementSerializer) {
 
+        if (useTimingWheel && isTimestamped(byteOrderedElementSerializer)) {
+            return new HeapTimingWheelPriorityQueueSet<>(
+                    PriorityComparator.forPriorityComparableObjects(),
+                    element -> ((TimestampedHeapPriorityQueueElement) element).getTimestamp(),
+                    KeyExtractorFunction.forKeyedObjects(),
+                    minimumCapacity,
+                    keyGroupRange,
+                    totalKeyGroups);
+        }
+
         return new HeapPriorityQueueSet<>(
                 PriorityComparator.forPriorityComparableObjects(),
                 KeyExtractorFunction.forKeyedObjects(),
@@ -62,4 +89,18 @@ public class HeapPriorityQueueSetFactory implements PriorityQueueSetFactory {
                 keyGroupRange,
                 totalKeyGroups);
     }
+
+    /**
+     * Checks whether the elements created by the given serializer implement {@link
+     * TimestampedHeapPriorityQueueElement}, which the serializer only exposes through its
+     * instances.
+     */
+    private static boolean isTimestamped(TypeSerializer<?> elementSerializer) {
+        try {
+            return elementSerializer.createInstance()
+                    instanceof TimestampedHeapPriorityQueueElement;
+        } catch (Exception e) {
+            return false;
+        }
+    }
 }
@@ -22,6 +22,7 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.state.KeyExtractorFunction;
 import org.apache.flink.runtime.state.KeyGroupPartitioner;
 import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
 import org.apache.flink.runtime.state.RegisteredPriorityQueueStateBackendMetaInfo;
 import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
 import org.apache.flink.runtime.state.StateSnapshotRestore;
@@ -30,21 +31,22 @@ import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
- * This wrapper combines a HeapPriorityQueue with backend meta data.
+ * This wrapper combines a {@link HeapPriorityQueueSet} or {@link HeapTimingWheelPriorityQueueSet}
+ * with backend meta data.
  *
  * @param <T> type of the queue elements.
  */
 public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueueElement>
         implements StateSnapshotRestore {
 
-    @Nonnull private final HeapPriorityQueueSet<T> priorityQueue;
+    @Nonnull private final KeyGroupedInternalPriorityQueue<T> priorityQueue;
     @Nonnull private final KeyExtractorFunction<T> keyExtractorFunction;
     @Nonnull private final RegisteredPriorityQueueStateBackendMetaInfo<T> metaInfo;
     @Nonnull private final KeyGroupRange localKeyGroupRange;
     @Nonnegative private final int totalKeyGroups;
 
     public HeapPriorityQueueSnapshotRestoreWrapper(
-            @Nonnull HeapPriorityQueueSet<T> priorityQueue,
+            @Nonnull KeyGroupedInternalPriorityQueue<T> priorityQueue,
             @Nonnull RegisteredPriorityQueueStateBackendMetaInfo<T> metaInfo,
             @Nonnull KeyExtractorFunction<T> keyExtractorFunction,
             @Nonnull KeyGroupRange localKeyGroupRange,
@@ -61,8 +63,15 @@ public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueue
     @Nonnull
     @Override
     public HeapPriorityQueueStateSnapshot<T> stateSnapshot() {
+        final HeapPriorityQueueElement[] dumpArray =
+                new HeapPriorityQueueElement[priorityQueue.size()];
         final T[] queueDump =
-                (T[]) priorityQueue.toArray(new HeapPriorityQueueElement[priorityQueue.size()]);
+                (T[])
+                        (priorityQueue instanceof HeapTimingWheelPriorityQueueSet
+                                ? ((HeapTimingWheelPriorityQueueSet<T>) priorityQueue)
+                                        .toArray(dumpArray)
+                                : ((AbstractHeapPriorityQueue<T>) priorityQueue)
+                                        .toArray(dumpArray));
         return new HeapPriorityQueueStateSnapshot<T>(
                 queueDump,
                 keyExtractorFunction,
@@ -83,7 +92,7 @@ public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueue
     }
 
     @Nonnull
-    public HeapPriorityQueueSet<T> getPriorityQueue() {
+    public KeyGroupedInternalPriorityQueue<T> getPriorityQueue() {
         return priorityQueue;
     }
 
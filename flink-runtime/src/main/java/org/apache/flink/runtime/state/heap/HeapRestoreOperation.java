@@ -24,6 +24,7 @@ import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.FSDataInputStream;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
@@ -31,10 +32,12 @@ import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.RestoreOperation;
 import org.apache.flink.runtime.state.SnappyStreamCompressionDecorator;
+import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StateSerializerProvider;
 import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
 import org.apache.flink.runtime.state.StateSnapshotRestore;
 import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.UncompressedStreamCompressionDecorator;
 import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
 import org.apache.flink.util.Preconditions;
@@ -71,6 +74,10 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
     @Nonnull private final KeyGroupRange keyGroupRange;
     private final HeapMetaInfoRestoreOperation<K> heapMetaInfoRestoreOperation;
 
+    private boolean keySerializerRestored;
+    private int readVersion;
+    private StreamCompressionDecorator streamCompressionDecorator;
+
     HeapRestoreOperation(
             @Nonnull Collection<KeyedStateHandle> restoreStateHandles,
             StateSerializerProvider<K> keySerializerProvider,
@@ -106,14 +113,17 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
         registeredKVStates.clear();
         registeredPQStates.clear();
 
-        boolean keySerializerRestored = false;
-
         for (KeyedStateHandle keyedStateHandle : restoreStateHandles) {
 
             if (keyedStateHandle == null) {
                 continue;
             }
 
+            if (keyedStateHandle instanceof IncrementalRemoteKeyedStateHandle) {
+                restoreIncrementalStateHandle((IncrementalRemoteKeyedStateHandle) keyedStateHandle);
+                continue;
+            }
+
             if (!(keyedStateHandle instanceof KeyGroupsStateHandle)) {
                 throw unexpectedStateHandleException(
                         KeyGroupsStateHandle.class, keyedStateHandle.getClass());
@@ -121,64 +131,157 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 
             LOG.info("Starting to restore from state handle: {}.", keyedStateHandle);
             KeyGroupsStateHandle keyGroupsStateHandle = (KeyGroupsStateHandle) keyedStateHandle;
-            FSDataInputStream fsDataInputStream = keyGroupsStateHandle.openInputStream();
+            restoreKeyGroupsStateHandle(keyGroupsStateHandle, false);
+            LOG.info("Finished restoring from state handle: {}.", keyedStateHandle);
+        }
+        return null;
+    }
+
+    /**
+     * Restores the meta data and the key group data of the given handle. If {@code
+     * priorityQueuesOnly} is set, the handle is the meta data of an incremental snapshot which only
+     * contains the priority queue states per key group.
+     */
+    private void restoreKeyGroupsStateHandle(
+            KeyGroupsStateHandle keyGroupsStateHandle, boolean priorityQueuesOnly)
+            throws Exception {
+        FSDataInputStream fsDataInputStream = keyGroupsStateHandle.openInputStream();
+        cancelStreamRegistry.registerCloseable(fsDataInputStream);
+
+        try {
+            DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(fsDataInputStream);
+
+            KeyedBackendSerializationProxy<K> serializationProxy =
+                    new KeyedBackendSerializationProxy<>(userCodeClassLoader);
+
+            serializationProxy.read(inView);
+
+            if (!keySerializerRestored) {
+                // fetch current serializer now because if it is incompatible, we can't access
+                // it anymore to improve the error message
+                TypeSerializer<K> currentSerializer =
+                        keySerializerProvider.currentSchemaSerializer();
+                // check for key serializer compatibility; this also reconfigures the
+                // key serializer to be compatible, if it is required and is possible
+                TypeSerializerSchemaCompatibility<K> keySerializerSchemaCompat =
+                        keySerializerProvider.setPreviousSerializerSnapshotForRestoredState(
+                                serializationProxy.getKeySerializerSnapshot());
+                if (keySerializerSchemaCompat.isCompatibleAfterMigration()
+                        || keySerializerSchemaCompat.isIncompatible()) {
+                    throw new StateMigrationException(
+                            "The new key serializer ("
+                                    + currentSerializer
+                                    + ") must be compatible with the previous key serializer ("
+                                    + keySerializerProvider.previousSchemaSerializer()
+                                    + ").");
+                }
+
+                keySerializerRestored = true;
+            }
+
+            List<StateMetaInfoSnapshot> restoredMetaInfos =
+                    serializationProxy.getStateMetaInfoSnapshots();
+
+            final Map<Integer, StateMetaInfoSnapshot> kvStatesById =
+                    this.heapMetaInfoRestoreOperation.createOrCheckStateForMetaInfo(
+                            restoredMetaInfos, registeredKVStates, registeredPQStates);
+
+            int numStates = restoredMetaInfos.size();
+            if (priorityQueuesOnly) {
+                numStates = 0;
+                for (StateMetaInfoSnapshot restoredMetaInfo : restoredMetaInfos) {
+                    if (restoredMetaInfo.getBackendStateType()
+                            == StateMetaInfoSnapshot.BackendStateType.PRIORITY_QUEUE) {
+                        numStates++;
+                    }
+                }
+            }
+
+            readVersion = serializationProxy.getReadVersion();
+            streamCompressionDecorator =
+                    serializationProxy.isUsingKeyGroupCompression()
+                            ? SnappyStreamCompressionDecorator.INSTANCE
+                            : UncompressedStreamCompressionDecorator.INSTANCE;
+
+            readStateHandleStateData(
+                    fsDataInputStream,
+                    inView,
+                    keyGroupsStateHandle.getGroupRangeOffsets(),
+                    kvStatesById,
+                    numStates);
+        } finally {
+            if (cancelStreamRegistry.unregisterCloseable(fsDataInputStream)) {
+                IOUtils.closeQuietly(fsDataInputStream);
+            }
+        }
+    }
+
+    /**
+     * Restores a snapshot of {@link HeapIncrementalSnapshotStrategy}: the meta data and priority
+     * queue states from the meta state handle, then every shared key group stream that belongs to
+     * the key group range of this backend.
+     */
+    private void restoreIncrementalStateHandle(IncrementalRemoteKeyedStateHandle stateHandle)
+            throws Exception {
+        LOG.info("Starting to restore from state handle: {}.", stateHandle);
+
+        StreamStateHandle metaStateHandle = stateHandle.getMetaStateHandle();
+        if (!(metaStateHandle instanceof KeyGroupsStateHandle)) {
+            throw unexpectedStateHandleException(
+                    KeyGroupsStateHandle.class, metaStateHandle.getClass());
+        }
+        restoreKeyGroupsStateHandle((KeyGroupsStateHandle) metaStateHandle, true);
+
+        for (Map.Entry<StateHandleID, StreamStateHandle> sharedState :
+                stateHandle.getSharedState().entrySet()) {
+            int keyGroupIndex = HeapIncrementalSnapshotStrategy.getKeyGroupId(sharedState.getKey());
+            if (!keyGroupRange.contains(keyGroupIndex)) {
+                LOG.debug(
+                        "Key group {} doesn't belong to this backend with key group range: {}",
+                        keyGroupIndex,
+                        keyGroupRange);
+                continue;
+            }
+
+            FSDataInputStream fsDataInputStream = sharedState.getValue().openInputStream();
             cancelStreamRegistry.registerCloseable(fsDataInputStream);
 
             try {
                 DataInputViewStreamWrapper inView =
                         new DataInputViewStreamWrapper(fsDataInputStream);
+                int writtenKeyGroupIndex = inView.readInt();
+                Preconditions.checkState(
+                        writtenKeyGroupIndex == keyGroupIndex, "Unexpected key-group in restore.");
 
-                KeyedBackendSerializationProxy<K> serializationProxy =
-                        new KeyedBackendSerializationProxy<>(userCodeClassLoader);
-
-                serializationProxy.read(inView);
-
-                if (!keySerializerRestored) {
-                    // fetch current serializer now because if it is incompatible, we can't access
-                    // it anymore to improve the error message
-                    TypeSerializer<K> currentSerializer =
-                            keySerializerProvider.currentSchemaSerializer();
-                    // check for key serializer compatibility; this also reconfigures the
-                    // key serializer to be compatible, if it is required and is possible
-                    TypeSerializerSchemaCompatibility<K> keySerializerSchemaCompat =
-                            keySerializerProvider.setPreviousSerializerSnapshotForRestoredState(
-                                    serializationProxy.getKeySerializerSnapshot());
-                    if (keySerializerSchemaCompat.isCompatibleAfterMigration()
-                            || keySerializerSchemaCompat.isIncompatible()) {
-                        throw new StateMigrationException(
-                                "The new key serializer ("
-                                        + currentSerializer
-                                        + ") must be compatible with the previous key serializer ("
-                                        + keySerializerProvider.previousSchemaSerializer()
-                                        + ").");
-                    }
-
-                    keySerializerRestored = true;
+                try (InputStream kgCompressionInStream =
+                        streamCompressionDecorator.decorateWithCompression(fsDataInputStream)) {
+                    readIncrementalKeyGroupStateData(kgCompressionInStream, keyGroupIndex);
                 }
-
-                List<StateMetaInfoSnapshot> restoredMetaInfos =
-                        serializationProxy.getStateMetaInfoSnapshots();
-
-                final Map<Integer, StateMetaInfoSnapshot> kvStatesById =
-                        this.heapMetaInfoRestoreOperation.createOrCheckStateForMetaInfo(
-                                restoredMetaInfos, registeredKVStates, registeredPQStates);
-
-                readStateHandleStateData(
-                        fsDataInputStream,
-                        inView,
-                        keyGroupsStateHandle.getGroupRangeOffsets(),
-                        kvStatesById,
-                        restoredMetaInfos.size(),
-                        serializationProxy.getReadVersion(),
-                        serializationProxy.isUsingKeyGroupCompression());
-                LOG.info("Finished restoring from state handle: {}.", keyedStateHandle);
             } finally {
                 if (cancelStreamRegistry.unregisterCloseable(fsDataInputStream)) {
                     IOUtils.closeQuietly(fsDataInputStream);
                 }
             }
         }
-        return null;
+        LOG.info("Finished restoring from state handle: {}.", stateHandle);
+    }
+
+    private void readIncrementalKeyGroupStateData(InputStream inputStream, int keyGroupIndex)
+            throws IOException {
+
+        DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(inputStream);
+
+        int numStates = inView.readInt();
+        for (int i = 0; i < numStates; i++) {
+            final String stateName = inView.readUTF();
+            final StateTable<K, ?, ?> registeredState = registeredKVStates.get(stateName);
+            Preconditions.checkState(
+                    registeredState != null, "Unknown state %s in restore.", stateName);
+
+            StateSnapshotKeyGroupReader keyGroupReader =
+                    registeredState.keyGroupReader(readVersion);
+            keyGroupReader.readMappingsInKeyGroup(inView, keyGroupIndex);
+        }
     }
 
     private void readStateHandleStateData(
@@ -186,16 +289,9 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
             DataInputViewStreamWrapper inView,
             KeyGroupRangeOffsets keyGroupOffsets,
             Map<Integer, StateMetaInfoSnapshot> kvStatesById,
-            int numStates,
-            int readVersion,
-            boolean isCompressed)
+            int numStates)
             throws IOException {
 
-        final StreamCompressionDecorator streamCompressionDecorator =
-                isCompressed
-                        ? SnappyStreamCompressionDecorator.INSTANCE
-                        : UncompressedStreamCompressionDecorator.INSTANCE;
-
         for (Tuple2<Integer, Long> groupOffset : keyGroupOffsets) {
             int keyGroupIndex = groupOffset.f0;
             long offset = groupOffset.f1;
@@ -218,7 +314,7 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
                     streamCompressionDecorator.decorateWithCompression(fsDataInputStream)) {
 
                 readKeyGroupStateData(
-                        kgCompressionInStream, kvStatesById, keyGroupIndex, numStates, readVersion);
+                        kgCompressionInStream, kvStatesById, keyGroupIndex, numStates);
             }
         }
     }
@@ -227,8 +323,7 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
             InputStream inputStream,
             Map<Integer, StateMetaInfoSnapshot> kvStatesById,
             int keyGroupIndex,
-            int numStates,
-            int readVersion)
+            int numStates)
             throws IOException {
 
         DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(inputStream);
@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.state.heap;
 
+import org.apache.flink.api.common.state.CheckpointListener;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
@@ -55,7 +56,8 @@ import static org.apache.flink.runtime.state.CheckpointStreamWithResultProvider.
 
 /** A strategy how to perform a snapshot of a {@link HeapKeyedStateBackend}. */
 class HeapSnapshotStrategy<K>
-        implements SnapshotStrategy<KeyedStateHandle, HeapSnapshotResources<K>> {
+        implements SnapshotStrategy<KeyedStateHandle, HeapSnapshotResources<K>>,
+                CheckpointListener {
 
     private final Map<String, StateTable<K, ?, ?>> registeredKVStates;
     private final Map<String, HeapPriorityQueueSnapshotRestoreWrapper<?>> registeredPQStates;
@@ -186,6 +188,16 @@ class HeapSnapshotStrategy<K>
         };
     }
 
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) {
+        // full snapshots do not depend on previous checkpoints
+    }
+
+    @Override
+    public void notifyCheckpointAborted(long checkpointId) {
+        // full snapshots do not depend on previous checkpoints
+    }
+
     public TypeSerializer<K> getKeySerializer() {
         return keySerializerProvider.currentSchemaSerializer();
     }
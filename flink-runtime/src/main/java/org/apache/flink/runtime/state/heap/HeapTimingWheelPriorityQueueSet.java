@@ -0,0 +1,413 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.runtime.state.KeyExtractorFunction;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.PriorityComparator;
+import org.apache.flink.util.CloseableIterator;
+
+import org.apache.flink.shaded.guava30.com.google.common.collect.Iterators;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A priority queue with set semantics for elements whose priority is a timestamp, based on a
+ * hierarchical timing wheel instead of a binary heap. Adding and removing elements is O(1), and
+ * finding the head element is amortized O(1), because every element is moved down at most once per
+ * wheel level. Object identification happens based on {@link #equals(Object)}, using one hash map
+ * per key-group like {@link HeapPriorityQueueSet}.
+ *
+ * <p>The wheel has {@link #NUM_LEVELS} levels of {@link #SLOTS_PER_LEVEL} slots which together
+ * cover the full range of long timestamps. An element is placed on the level of the highest group
+ * of timestamp bits in which it differs from the current position of the wheel (the cursor), so all
+ * elements in a slot of level 0 have the same timestamp. When the head element is requested and
+ * level 0 is empty, the cursor advances to the first non-empty slot of the lowest non-empty level
+ * and that slot is cascaded into the levels below.
+ *
+ * <p>Elements with a timestamp before the cursor cannot be placed in the wheel. They are kept in a
+ * small binary heap, which is always drained before the wheel. This case is rare for timers, which
+ * are mostly registered at or after the earliest pending timer.
+ *
+ * @param <T> type of the contained elements.
+ */
+public class HeapTimingWheelPriorityQueueSet<T extends HeapPriorityQueueElement>
+        implements KeyGroupedInternalPriorityQueue<T> {
+
+    /** Number of timestamp bits resolved by one level of the wheel. */
+    private static final int BITS_PER_LEVEL = 6;
+
+    private static final int SLOTS_PER_LEVEL = 1 << BITS_PER_LEVEL;
+
+    private static final int SLOT_MASK = SLOTS_PER_LEVEL - 1;
+
+    /** Enough levels to cover all 64 timestamp bits, so that no overflow list is required. */
+    private static final int NUM_LEVELS = (Long.SIZE + BITS_PER_LEVEL - 1) / BITS_PER_LEVEL;
+
+    /** Function to extract the timestamp (priority) from contained elements. */
+    private final ToLongFunction<T> timestampExtractor;
+
+    /** Function to extract the key from contained elements. */
+    private final KeyExtractorFunction<T> keyExtractor;
+
+    /**
+     * This array contains one hash set per key-group. The sets are used for fast de-duplication and
+     * deletes of elements.
+     */
+    private final HashMap<T, T>[] deduplicationMapsByKeyGroup;
+
+    /** The key-group range of elements that are managed by this queue. */
+    private final KeyGroupRange keyGroupRange;
+
+    /** The total number of key-groups of the job. */
+    private final int totalNumberOfKeyGroups;
+
+    /** The slots of all levels, indexed by {@code level * SLOTS_PER_LEVEL + slot}. */
+    private final ArrayList<T>[] slots;
+
+    /** One bit per non-empty slot, one word per level. */
+    private final long[] occupiedSlots;
+
+    /** Elements with a timestamp before the cursor, see class comment. */
+    private final HeapPriorityQueue<T> overdueElements;
+
+    /**
+     * The position of the wheel, as an unsigned key (see {@link #toKey(long)}). All elements in the
+     * wheel have a key greater or equal to the cursor, all overdue elements a smaller key.
+     */
+    private long cursor;
+
+    /** The number of elements in this queue. */
+    private int size;
+
+    /**
+     * Creates an empty {@link HeapTimingWheelPriorityQueueSet}.
+     *
+     * @param elementPriorityComparator comparator for the priority of contained elements, must be
+     *     consistent with the extracted timestamps.
+     * @param timestampExtractor function to extract the timestamp from the contained elements.
+     * @param keyExtractor function to extract a key from the contained elements.
+     * @param minimumCapacity the expected minimum number of elements.
+     * @param keyGroupRange the key-group range of the elements in this set.
+     * @param totalNumberOfKeyGroups the total number of key-groups of the job.
+     */
+    @SuppressWarnings("unchecked")
+    public HeapTimingWheelPriorityQueueSet(
+            @Nonnull PriorityComparator<T> elementPriorityComparator,
+            @Nonnull ToLongFunction<T> timestampExtractor,
+            @Nonnull KeyExtractorFunction<T> keyExtractor,
+            @Nonnegative int minimumCapacity,
+            @Nonnull KeyGroupRange keyGroupRange,
+            @Nonnegative int totalNumberOfKeyGroups) {
+
+        this.timestampExtractor = timestampExtractor;
+        this.keyExtractor = keyExtractor;
+        this.totalNumberOfKeyGroups = totalNumberOfKeyGroups;
+        this.keyGroupRange = keyGroupRange;
+        this.slots = (ArrayList<T>[]) new ArrayList<?>[NUM_LEVELS * SLOTS_PER_LEVEL];
+        this.occupiedSlots = new long[NUM_LEVELS];
+        this.overdueElements = new HeapPriorityQueue<>(elementPriorityComparator, 1);
+
+        final int keyGroupsInLocalRange = keyGroupRange.getNumberOfKeyGroups();
+        final int deduplicationSetSize = 1 + minimumCapacity / keyGroupsInLocalRange;
+        this.deduplicationMapsByKeyGroup =
+                (HashMap<T, T>[]) new HashMap<?, ?>[keyGroupsInLocalRange];
+        for (int i = 0; i < keyGroupsInLocalRange; ++i) {
+            deduplicationMapsByKeyGroup[i] = new HashMap<>(deduplicationSetSize);
+        }
+    }
+
+    @Nullable
+    @Override
+    public T poll() {
+        final T head = peek();
+        if (head != null) {
+            getDedupMapForElement(head).remove(head);
+            removeInternal(head);
+        }
+        return head;
+    }
+
+    @Nullable
+    @Override
+    public T peek() {
+        if (!overdueElements.isEmpty()) {
+            return overdueElements.peek();
+        }
+
+        int level = 0;
+        while (level < NUM_LEVELS) {
+            final long occupied = occupiedSlots[level];
+            if (occupied == 0L) {
+                ++level;
+            } else if (level == 0) {
+                return slots[Long.numberOfTrailingZeros(occupied)].get(0);
+            } else {
+                cascade(level, Long.numberOfTrailingZeros(occupied));
+                level = 0;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the element to the queue if no such element is already contained (determined by {@link
+     * #equals(Object)}).
+     *
+     * @return <code>true</code> iff the operation changed the head element.
+     */
+    @Override
+    public boolean add(@Nonnull T element) {
+        if (getDedupMapForElement(element).putIfAbsent(element, element) != null) {
+            return false;
+        }
+        addInternal(element);
+        return peek() == element;
+    }
+
+    /**
+     * Removes the element from the queue, based on comparing the given element via {@link
+     * #equals(Object)}.
+     *
+     * @return <code>true</code> iff the operation changed the head element.
+     */
+    @Override
+    public boolean remove(@Nonnull T toRemove) {
+        final T storedElement = getDedupMapForElement(toRemove).remove(toRemove);
+        if (storedElement == null) {
+            return false;
+        }
+        final boolean removesHead = peek() == storedElement;
+        removeInternal(storedElement);
+        return removesHead;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void addAll(@Nullable Collection<? extends T> toAdd) {
+        if (toAdd == null) {
+            return;
+        }
+
+        for (T element : toAdd) {
+            add(element);
+        }
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue. The iterator does not return the
+     * elements in any particular order.
+     *
+     * @return an iterator over the elements in this queue.
+     */
+    @Nonnull
+    @Override
+    public CloseableIterator<T> iterator() {
+        return CloseableIterator.adapterForIterator(
+                Iterators.concat(
+                        Iterators.transform(
+                                Arrays.asList(deduplicationMapsByKeyGroup).iterator(),
+                                elementMap -> elementMap.keySet().iterator())));
+    }
+
+    /** Copies all elements of this queue into an array, in no particular order. */
+    @Nonnull
+    public <O> O[] toArray(O[] out) {
+        final O[] result = out.length < size ? Arrays.copyOf(out, size) : out;
+        int index = 0;
+        for (HashMap<T, T> elementMap : deduplicationMapsByKeyGroup) {
+            for (T element : elementMap.keySet()) {
+                @SuppressWarnings("unchecked")
+                final O outElement = (O) element;
+                result[index++] = outElement;
+            }
+        }
+        if (result.length > size) {
+            result[size] = null;
+        }
+        return result;
+    }
+
+    /** Clears the queue. */
+    public void clear() {
+        for (ArrayList<T> slot : slots) {
+            if (slot != null) {
+                slot.clear();
+            }
+        }
+        Arrays.fill(occupiedSlots, 0L);
+        overdueElements.clear();
+        for (HashMap<?, ?> elementHashMap : deduplicationMapsByKeyGroup) {
+            elementHashMap.clear();
+        }
+        size = 0;
+        cursor = 0L;
+    }
+
+    @Nonnull
+    @Override
+    public Set<T> getSubsetForKeyGroup(int keyGroupId) {
+        return getDedupMapForKeyGroup(keyGroupId).keySet();
+    }
+
+    private void addInternal(T element) {
+        final long key = toKey(timestampExtractor.applyAsLong(element));
+        if (Long.compareUnsigned(key, cursor) < 0 && !tryMoveCursorBack(key)) {
+            overdueElements.add(element);
+        } else {
+            placeInWheel(element, key);
+        }
+        ++size;
+    }
+
+    private void removeInternal(T element) {
+        final long key = toKey(timestampExtractor.applyAsLong(element));
+        if (Long.compareUnsigned(key, cursor) < 0) {
+            overdueElements.remove(element);
+        } else {
+            final int slotIndex = slotIndexFor(key);
+            final ArrayList<T> slot = slots[slotIndex];
+            final int elementIndex = element.getInternalIndex();
+            final T last = slot.remove(slot.size() - 1);
+            if (last != element) {
+                slot.set(elementIndex, last);
+                last.setInternalIndex(elementIndex);
+            }
+            if (slot.isEmpty()) {
+                occupiedSlots[slotIndex / SLOTS_PER_LEVEL] &= ~(1L << (slotIndex & SLOT_MASK));
+            }
+        }
+        element.setInternalIndex(HeapPriorityQueueElement.NOT_CONTAINED);
+        if (--size == 0) {
+            cursor = 0L;
+        }
+    }
+
+    private void placeInWheel(T element, long key) {
+        final int slotIndex = slotIndexFor(key);
+        ArrayList<T> slot = slots[slotIndex];
+        if (slot == null) {
+            slot = new ArrayList<>();
+            slots[slotIndex] = slot;
+        }
+        element.setInternalIndex(slot.size());
+        slot.add(element);
+        occupiedSlots[slotIndex / SLOTS_PER_LEVEL] |= 1L << (slotIndex & SLOT_MASK);
+    }
+
+    /**
+     * Moves the cursor to the start of the given slot, which must be the first non-empty slot of
+     * the lowest non-empty level, and distributes its elements over the lower levels.
+     */
+    private void cascade(int level, int slot) {
+        final int shift = level * BITS_PER_LEVEL;
+        final int higherLevelsShift = shift + BITS_PER_LEVEL;
+        final long higherLevelsMask =
+                higherLevelsShift >= Long.SIZE ? 0L : -1L << higherLevelsShift;
+        cursor = (cursor & higherLevelsMask) | ((long) slot << shift);
+
+        final ArrayList<T> elements = slots[level * SLOTS_PER_LEVEL + slot];
+        occupiedSlots[level] &= ~(1L << slot);
+        for (T element : elements) {
+            // all elements share the bits of the cursor down to this level, so they are placed
+            // into lower levels and never back into this slot
+            placeInWheel(element, toKey(timestampExtractor.applyAsLong(element)));
+        }
+        elements.clear();
+    }
+
+    /**
+     * Moving the cursor back to the given key keeps all elements in their slots if the key only
+     * differs from the cursor in bits below the lowest non-empty level. Returns whether the cursor
+     * was moved.
+     */
+    private boolean tryMoveCursorBack(long key) {
+        if (!overdueElements.isEmpty()) {
+            return false;
+        }
+
+        int lowestLevel = 0;
+        while (lowestLevel < NUM_LEVELS && occupiedSlots[lowestLevel] == 0L) {
+            ++lowestLevel;
+        }
+
+        if (lowestLevel == NUM_LEVELS
+                || (lowestLevel > 0 && ((key ^ cursor) >>> (lowestLevel * BITS_PER_LEVEL)) == 0L)) {
+            cursor = key;
+            return true;
+        }
+        return false;
+    }
+
+    private int slotIndexFor(long key) {
+        final long difference = key ^ cursor;
+        final int level =
+                difference == 0L
+                        ? 0
+                        : (Long.SIZE - 1 - Long.numberOfLeadingZeros(difference)) / BITS_PER_LEVEL;
+        return level * SLOTS_PER_LEVEL + (int) ((key >>> (level * BITS_PER_LEVEL)) & SLOT_MASK);
+    }
+
+    /** Maps a signed timestamp to a key whose unsigned order equals the order of timestamps. */
+    private static long toKey(long timestamp) {
+        return timestamp ^ Long.MIN_VALUE;
+    }
+
+    private HashMap<T, T> getDedupMapForKeyGroup(@Nonnegative int keyGroupId) {
+        return deduplicationMapsByKeyGroup[globalKeyGroupToLocalIndex(keyGroupId)];
+    }
+
+    private HashMap<T, T> getDedupMapForElement(T element) {
+        int keyGroup =
+                KeyGroupRangeAssignment.assignToKeyGroup(
+                        keyExtractor.extractKeyFromElement(element), totalNumberOfKeyGroups);
+        return getDedupMapForKeyGroup(keyGroup);
+    }
+
+    private int globalKeyGroupToLocalIndex(int keyGroup) {
+        checkArgument(
+                keyGroupRange.contains(keyGroup),
+                "%s does not contain key group %s",
+                keyGroupRange,
+                keyGroup);
+        return keyGroup - keyGroupRange.getStartKeyGroup();
+    }
+}
@@ -0,0 +1,458 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateTransformationFunction;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.util.MathUtils;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link StateMap} for states with a single namespace whose keys and states are boxed primitives
+ * (see {@link PrimitiveTypeCodec}). Instead of one entry object per mapping, keys and states are
+ * stored in primitive arrays of an open-addressing hash table with linear probing, which needs
+ * about 17 bytes per mapping (plus free slots) and creates no long-lived objects.
+ *
+ * <p>Snapshots share the arrays with the map. The first modification after a snapshot copies the
+ * arrays, unless all snapshots which share them have been released already. Because states are
+ * immutable boxed primitives, no state objects have to be copied.
+ *
+ * @param <K> type of key
+ * @param <N> type of namespace
+ * @param <S> type of state
+ */
+public class PrimitiveStateMap<K, N, S> extends StateMap<K, N, S> {
+
+    /** The minimum capacity of the hash table. Must be a power of two. */
+    private static final int MINIMUM_CAPACITY = 16;
+
+    /** Marks a free slot. */
+    static final byte EMPTY = 0;
+
+    /** Marks a slot with a non-null state. */
+    static final byte PRESENT = 1;
+
+    /** Marks a slot with a null state. */
+    static final byte PRESENT_NULL = 2;
+
+    private final PrimitiveTypeCodec<K> keyCodec;
+
+    private final PrimitiveTypeCodec<S> stateCodec;
+
+    /** The only namespace of this map. */
+    private final N namespace;
+
+    /** The encoded keys, indexed by slot. */
+    private long[] keys;
+
+    /** The encoded states, indexed by slot. */
+    private long[] states;
+
+    /** One of {@link #EMPTY}, {@link #PRESENT} or {@link #PRESENT_NULL} per slot. */
+    private byte[] slotStates;
+
+    /** The number of mappings in this map. */
+    private int size;
+
+    /** The size at which the hash table is doubled. */
+    private int threshold;
+
+    /**
+     * The number of unreleased snapshots which share the current arrays. Each generation of arrays
+     * has its own counter, so that snapshots of older generations can be released concurrently.
+     */
+    private AtomicInteger sharingSnapshots;
+
+    /** Incremented on every structural modification, to fail fast in iterators. */
+    private int modCount;
+
+    PrimitiveStateMap(
+            PrimitiveTypeCodec<K> keyCodec, PrimitiveTypeCodec<S> stateCodec, N namespace) {
+        this.keyCodec = keyCodec;
+        this.stateCodec = stateCodec;
+        this.namespace = namespace;
+        allocateTable(MINIMUM_CAPACITY);
+    }
+
+    // Public API from StateMap ------------------------------------------------------------------
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public S get(K key, N namespace) {
+        final int slot = lookup(keyCodec.encode(key));
+        return slot >= 0 ? stateAt(slot) : null;
+    }
+
+    @Override
+    public boolean containsKey(K key, N namespace) {
+        return lookup(keyCodec.encode(key)) >= 0;
+    }
+
+    @Override
+    public void put(K key, N namespace, S state) {
+        putInternal(keyCodec.encode(key), state, false);
+    }
+
+    @Override
+    public S putAndGetOld(K key, N namespace, S state) {
+        return putInternal(keyCodec.encode(key), state, true);
+    }
+
+    @Override
+    public void remove(K key, N namespace) {
+        removeInternal(keyCodec.encode(key), false);
+    }
+
+    @Override
+    public S removeAndGetOld(K key, N namespace) {
+        return removeInternal(keyCodec.encode(key), true);
+    }
+
+    @Override
+    public <T> void transform(
+            K key, N namespace, T value, StateTransformationFunction<S, T> transformation)
+            throws Exception {
+        final long encodedKey = keyCodec.encode(key);
+        final int slot = lookup(encodedKey);
+        final S oldState = slot >= 0 ? stateAt(slot) : null;
+        putInternal(encodedKey, transformation.apply(oldState, value), false);
+    }
+
+    @Override
+    public Iterator<StateEntry<K, N, S>> iterator() {
+        return new StateEntryIterator();
+    }
+
+    @Override
+    public Stream<K> getKeys(N namespace) {
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), size, 0), false)
+                .filter(entry -> entry.getNamespace().equals(namespace))
+                .map(StateEntry::getKey);
+    }
+
+    @Override
+    public InternalKvState.StateIncrementalVisitor<K, N, S> getStateIncrementalVisitor(
+            int recommendedMaxNumberOfReturnedRecords) {
+        return new StateIncrementalVisitorImpl(recommendedMaxNumberOfReturnedRecords);
+    }
+
+    @Override
+    public int sizeOfNamespace(Object namespace) {
+        return this.namespace.equals(namespace) ? size : 0;
+    }
+
+    // Snapshotting ------------------------------------------------------------------------------
+
+    /**
+     * Creates a snapshot of this {@link PrimitiveStateMap}, to be written in checkpointing. The
+     * snapshot shares the arrays of this map until the next modification.
+     */
+    @Nonnull
+    @Override
+    public PrimitiveStateMapSnapshot<K, N, S> stateSnapshot() {
+        sharingSnapshots.incrementAndGet();
+        return new PrimitiveStateMapSnapshot<>(
+                this, keys, states, slotStates, size, sharingSnapshots);
+    }
+
+    /**
+     * Releases a snapshot for this {@link PrimitiveStateMap}, so that the arrays do not need to be
+     * copied on the next modification if no other snapshot shares them.
+     */
+    @Override
+    public void releaseSnapshot(
+            StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> snapshotToRelease) {
+        ((PrimitiveStateMapSnapshot<K, N, S>) snapshotToRelease)
+                .getSharingSnapshots()
+                .decrementAndGet();
+    }
+
+    PrimitiveTypeCodec<K> getKeyCodec() {
+        return keyCodec;
+    }
+
+    PrimitiveTypeCodec<S> getStateCodec() {
+        return stateCodec;
+    }
+
+    N getNamespace() {
+        return namespace;
+    }
+
+    @VisibleForTesting
+    int getCapacity() {
+        return keys.length;
+    }
+
+    // Private implementation --------------------------------------------------------------------
+
+    private S putInternal(long key, S state, boolean returnOld) {
+        int slot = lookup(key);
+        if (slot >= 0) {
+            copyOnWrite();
+            final S oldState = returnOld ? stateAt(slot) : null;
+            setState(slot, state);
+            return oldState;
+        }
+
+        if (size >= threshold) {
+            resize(keys.length << 1);
+            slot = lookup(key);
+        } else {
+            copyOnWrite();
+        }
+
+        slot = ~slot;
+        keys[slot] = key;
+        setState(slot, state);
+        ++size;
+        ++modCount;
+        return null;
+    }
+
+    private S removeInternal(long key, boolean returnOld) {
+        final int slot = lookup(key);
+        if (slot < 0) {
+            return null;
+        }
+
+        copyOnWrite();
+        final S oldState = returnOld ? stateAt(slot) : null;
+        deleteSlot(slot);
+        --size;
+        ++modCount;
+        return oldState;
+    }
+
+    /**
+     * Returns the slot of the given key if it is contained, or the bitwise complement of the free
+     * slot where it would be inserted otherwise.
+     */
+    private int lookup(long key) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (slotStates[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    /**
+     * Frees the given slot by shifting back the following mappings of its cluster, so that no
+     * tombstones are required.
+     */
+    private void deleteSlot(int slot) {
+        final int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (slotStates[next] != EMPTY) {
+            final int home = hash(keys[next]) & mask;
+            // the mapping can move into the hole if the hole lies between its home and its slot
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                states[hole] = states[next];
+                slotStates[hole] = slotStates[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = 0L;
+        states[hole] = 0L;
+        slotStates[hole] = EMPTY;
+    }
+
+    private S stateAt(int slot) {
+        return slotStates[slot] == PRESENT ? stateCodec.decode(states[slot]) : null;
+    }
+
+    private void setState(int slot, S state) {
+        if (state != null) {
+            states[slot] = stateCodec.encode(state);
+            slotStates[slot] = PRESENT;
+        } else {
+            states[slot] = 0L;
+            slotStates[slot] = PRESENT_NULL;
+        }
+    }
+
+    /** Copies the arrays if they are shared with an unreleased snapshot. */
+    private void copyOnWrite() {
+        if (sharingSnapshots.get() > 0) {
+            keys = keys.clone();
+            states = states.clone();
+            slotStates = slotStates.clone();
+            sharingSnapshots = new AtomicInteger();
+        }
+    }
+
+    private void resize(int newCapacity) {
+        final long[] oldKeys = keys;
+        final long[] oldStates = states;
+        final byte[] oldSlotStates = slotStates;
+
+        // the old arrays stay untouched, so they may still be shared with snapshots
+        allocateTable(newCapacity);
+
+        final int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldSlotStates[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (slotStates[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                states[slot] = oldStates[i];
+                slotStates[slot] = oldSlotStates[i];
+            }
+        }
+        ++modCount;
+    }
+
+    private void allocateTable(int capacity) {
+        keys = new long[capacity];
+        states = new long[capacity];
+        slotStates = new byte[capacity];
+        threshold = (capacity >> 1) + (capacity >> 2);
+        sharingSnapshots = new AtomicInteger();
+    }
+
+    private static int hash(long key) {
+        return MathUtils.murmurHash(Long.hashCode(key));
+    }
+
+    // Iterators ---------------------------------------------------------------------------------
+
+    /**
+     * Iterator over state entries in a {@link PrimitiveStateMap} which does not tolerate concurrent
+     * modifications.
+     */
+    class StateEntryIterator implements Iterator<StateEntry<K, N, S>> {
+
+        private final int expectedModCount;
+
+        private int nextSlot;
+
+        StateEntryIterator() {
+            this.expectedModCount = modCount;
+            this.nextSlot = advance(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < slotStates.length;
+        }
+
+        @Override
+        public StateEntry<K, N, S> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final StateEntry<K, N, S> entry = entryAt(nextSlot);
+            nextSlot = advance(nextSlot + 1);
+            return entry;
+        }
+    }
+
+    /**
+     * Incremental visitor over the slots of the hash table. Mappings which are moved by concurrent
+     * removals or resizing might be missed or returned twice.
+     */
+    class StateIncrementalVisitorImpl implements InternalKvState.StateIncrementalVisitor<K, N, S> {
+
+        private final int recommendedMaxNumberOfReturnedRecords;
+
+        private final Collection<StateEntry<K, N, S>> entriesToReturn;
+
+        private int nextSlot;
+
+        StateIncrementalVisitorImpl(int recommendedMaxNumberOfReturnedRecords) {
+            this.recommendedMaxNumberOfReturnedRecords =
+                    Math.max(1, recommendedMaxNumberOfReturnedRecords);
+            this.entriesToReturn = new ArrayList<>(this.recommendedMaxNumberOfReturnedRecords);
+            this.nextSlot = advance(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            nextSlot = advance(nextSlot);
+            return nextSlot < slotStates.length;
+        }
+
+        @Override
+        public Collection<StateEntry<K, N, S>> nextEntries() {
+            if (!hasNext()) {
+                return null;
+            }
+
+            entriesToReturn.clear();
+            while (entriesToReturn.size() < recommendedMaxNumberOfReturnedRecords
+                    && nextSlot < slotStates.length) {
+                entriesToReturn.add(entryAt(nextSlot));
+                nextSlot = advance(nextSlot + 1);
+            }
+            return entriesToReturn;
+        }
+
+        @Override
+        public void remove(StateEntry<K, N, S> stateEntry) {
+            PrimitiveStateMap.this.remove(stateEntry.getKey(), stateEntry.getNamespace());
+        }
+
+        @Override
+        public void update(StateEntry<K, N, S> stateEntry, S newValue) {
+            PrimitiveStateMap.this.put(stateEntry.getKey(), stateEntry.getNamespace(), newValue);
+        }
+    }
+
+    /** Returns the first occupied slot at or after the given slot, or the capacity if none. */
+    private int advance(int slot) {
+        while (slot < slotStates.length && slotStates[slot] == EMPTY) {
+            ++slot;
+        }
+        return slot;
+    }
+
+    private StateEntry<K, N, S> entryAt(int slot) {
+        return new StateEntry.SimpleStateEntry<>(
+                keyCodec.decode(keys[slot]), namespace, stateAt(slot));
+    }
+}
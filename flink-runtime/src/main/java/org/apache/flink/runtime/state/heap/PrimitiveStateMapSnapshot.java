@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents the snapshot of a {@link PrimitiveStateMap}. It references the arrays of
+ * the map as by the time this snapshot was created, which the map does not modify until this
+ * snapshot is released.
+ *
+ * @param <K> type of key
+ * @param <N> type of namespace
+ * @param <S> type of state
+ */
+public class PrimitiveStateMapSnapshot<K, N, S>
+        extends StateMapSnapshot<K, N, S, PrimitiveStateMap<K, N, S>> {
+
+    @Nonnull private final long[] keys;
+
+    @Nonnull private final long[] states;
+
+    @Nonnull private final byte[] slotStates;
+
+    /** The number of mappings in this snapshot. */
+    @Nonnegative private final int numberOfEntries;
+
+    /** The counter of snapshots that share the arrays with the owning map. */
+    @Nonnull private final AtomicInteger sharingSnapshots;
+
+    /** Whether this snapshot has been released. */
+    private boolean released;
+
+    PrimitiveStateMapSnapshot(
+            PrimitiveStateMap<K, N, S> owningStateMap,
+            @Nonnull long[] keys,
+            @Nonnull long[] states,
+            @Nonnull byte[] slotStates,
+            @Nonnegative int numberOfEntries,
+            @Nonnull AtomicInteger sharingSnapshots) {
+        super(owningStateMap);
+        this.keys = keys;
+        this.states = states;
+        this.slotStates = slotStates;
+        this.numberOfEntries = numberOfEntries;
+        this.sharingSnapshots = sharingSnapshots;
+        this.released = false;
+    }
+
+    @Override
+    public void release() {
+        if (!released) {
+            owningStateMap.releaseSnapshot(this);
+            released = true;
+        }
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    AtomicInteger getSharingSnapshots() {
+        return sharingSnapshots;
+    }
+
+    @Override
+    public Iterator<StateEntry<K, N, S>> getIterator(
+            @Nonnull TypeSerializer<K> keySerializer,
+            @Nonnull TypeSerializer<N> namespaceSerializer,
+            @Nonnull TypeSerializer<S> stateSerializer,
+            @Nullable StateSnapshotTransformer<S> stateSnapshotTransformer) {
+
+        return stateSnapshotTransformer == null
+                ? new SnapshotIterator()
+                : transformEntries(stateSnapshotTransformer).iterator();
+    }
+
+    @Override
+    public void writeState(
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer,
+            TypeSerializer<S> stateSerializer,
+            @Nonnull DataOutputView dov,
+            @Nullable StateSnapshotTransformer<S> stateSnapshotTransformer)
+            throws IOException {
+
+        final Iterator<StateEntry<K, N, S>> iterator;
+        if (stateSnapshotTransformer == null) {
+            dov.writeInt(numberOfEntries);
+            iterator = new SnapshotIterator();
+        } else {
+            final List<StateEntry<K, N, S>> transformedEntries =
+                    transformEntries(stateSnapshotTransformer);
+            dov.writeInt(transformedEntries.size());
+            iterator = transformedEntries.iterator();
+        }
+
+        while (iterator.hasNext()) {
+            final StateEntry<K, N, S> stateEntry = iterator.next();
+            namespaceSerializer.serialize(stateEntry.getNamespace(), dov);
+            keySerializer.serialize(stateEntry.getKey(), dov);
+            stateSerializer.serialize(stateEntry.getState(), dov);
+        }
+    }
+
+    private List<StateEntry<K, N, S>> transformEntries(
+            @Nonnull StateSnapshotTransformer<S> stateSnapshotTransformer) {
+        final List<StateEntry<K, N, S>> transformedEntries = new ArrayList<>(numberOfEntries);
+        final SnapshotIterator iterator = new SnapshotIterator();
+        while (iterator.hasNext()) {
+            final StateEntry<K, N, S> transformedEntry =
+                    iterator.next().filterOrTransform(stateSnapshotTransformer);
+            if (transformedEntry != null) {
+                transformedEntries.add(transformedEntry);
+            }
+        }
+        return transformedEntries;
+    }
+
+    /** Iterator over the occupied slots of the snapshot arrays. */
+    private final class SnapshotIterator implements Iterator<StateEntry<K, N, S>> {
+
+        private int nextSlot = advance(0);
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < slotStates.length;
+        }
+
+        @Override
+        public StateEntry<K, N, S> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final S state =
+                    slotStates[nextSlot] == PrimitiveStateMap.PRESENT
+                            ? owningStateMap.getStateCodec().decode(states[nextSlot])
+                            : null;
+            final StateEntry<K, N, S> entry =
+                    new StateEntry.SimpleStateEntry<>(
+                            owningStateMap.getKeyCodec().decode(keys[nextSlot]),
+                            owningStateMap.getNamespace(),
+                            state);
+            nextSlot = advance(nextSlot + 1);
+            return entry;
+        }
+
+        private int advance(int slot) {
+            while (slot < slotStates.length && slotStates[slot] == PrimitiveStateMap.EMPTY) {
+                ++slot;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * This implementation of {@link StateTable} uses {@link PrimitiveStateMap}, which stores keys and
+ * states in primitive arrays. It can only be used for states without namespace whose key and state
+ * serializers are supported by {@link PrimitiveTypeCodec}, see {@link #isSupported}. This
+ * implementation supports asynchronous snapshots.
+ *
+ * @param <K> type of key.
+ * @param <N> type of namespace.
+ * @param <S> type of state.
+ */
+public class PrimitiveStateTable<K, N, S> extends StateTable<K, N, S> {
+
+    /**
+     * Constructs a new {@code PrimitiveStateTable}.
+     *
+     * @param keyContext the key context.
+     * @param metaInfo the meta information, including the type serializer for state copy-on-write.
+     * @param keySerializer the serializer of the key.
+     */
+    PrimitiveStateTable(
+            InternalKeyContext<K> keyContext,
+            RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo,
+            TypeSerializer<K> keySerializer) {
+        super(keyContext, metaInfo, keySerializer);
+    }
+
+    /**
+     * Returns whether a {@link PrimitiveStateTable} can hold the state with the given key
+     * serializer and meta information.
+     */
+    static boolean isSupported(
+            TypeSerializer<?> keySerializer,
+            RegisteredKeyValueStateBackendMetaInfo<?, ?> metaInfo) {
+        return metaInfo.getNamespaceSerializer() instanceof VoidNamespaceSerializer
+                && PrimitiveTypeCodec.forKeySerializer(keySerializer) != null
+                && PrimitiveTypeCodec.forStateSerializer(metaInfo.getStateSerializer()) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected PrimitiveStateMap<K, N, S> createStateMap() {
+        return new PrimitiveStateMap<>(
+                checkNotNull(PrimitiveTypeCodec.forKeySerializer(keySerializer)),
+                checkNotNull(PrimitiveTypeCodec.forStateSerializer(getStateSerializer())),
+                (N) VoidNamespace.INSTANCE);
+    }
+
+    @Override
+    public void setMetaInfo(RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo) {
+        checkState(
+                PrimitiveTypeCodec.forStateSerializer(metaInfo.getStateSerializer()) != null,
+                "The state serializer of a primitive state table must remain primitive.");
+        super.setMetaInfo(metaInfo);
+    }
+
+    // Snapshotting
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a snapshot of this {@link PrimitiveStateTable}, to be written in checkpointing.
+     *
+     * @return a snapshot from this {@link PrimitiveStateTable}, for checkpointing.
+     */
+    @Nonnull
+    @Override
+    public PrimitiveStateTableSnapshot<K, N, S> stateSnapshot() {
+        return new PrimitiveStateTableSnapshot<>(
+                this,
+                getKeySerializer().duplicate(),
+                getNamespaceSerializer().duplicate(),
+                getStateSerializer().duplicate(),
+                getMetaInfo()
+                        .getStateSnapshotTransformFactory()
+                        .createForDeserializedState()
+                        .orElse(null));
+    }
+
+    @SuppressWarnings("unchecked")
+    List<PrimitiveStateMapSnapshot<K, N, S>> getStateMapSnapshotList() {
+        List<PrimitiveStateMapSnapshot<K, N, S>> snapshotList =
+                new ArrayList<>(keyGroupedStateMaps.length);
+        for (int i = 0; i < keyGroupedStateMaps.length; i++) {
+            PrimitiveStateMap<K, N, S> stateMap =
+                    (PrimitiveStateMap<K, N, S>) keyGroupedStateMaps[i];
+            snapshotList.add(stateMap.stateSnapshot());
+        }
+        return snapshotList;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.DoubleSerializer;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Encodes boxed primitive values of type {@code T} into the bits of a {@code long}, so that they
+ * can be stored in primitive arrays by {@link PrimitiveStateMap}. Two values are equal iff their
+ * encodings are equal.
+ *
+ * @param <T> the boxed primitive type.
+ */
+abstract class PrimitiveTypeCodec<T> {
+
+    static final PrimitiveTypeCodec<Long> LONG =
+            new PrimitiveTypeCodec<Long>() {
+                @Override
+                long encode(Long value) {
+                    return value;
+                }
+
+                @Override
+                Long decode(long bits) {
+                    return bits;
+                }
+            };
+
+    static final PrimitiveTypeCodec<Integer> INT =
+            new PrimitiveTypeCodec<Integer>() {
+                @Override
+                long encode(Integer value) {
+                    return value;
+                }
+
+                @Override
+                Integer decode(long bits) {
+                    return (int) bits;
+                }
+            };
+
+    static final PrimitiveTypeCodec<Double> DOUBLE =
+            new PrimitiveTypeCodec<Double>() {
+                @Override
+                long encode(Double value) {
+                    return Double.doubleToLongBits(value);
+                }
+
+                @Override
+                Double decode(long bits) {
+                    return Double.longBitsToDouble(bits);
+                }
+            };
+
+    abstract long encode(T value);
+
+    abstract T decode(long bits);
+
+    /** Returns the codec for keys of the given serializer, or null if keys are not primitive. */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    static <T> PrimitiveTypeCodec<T> forKeySerializer(TypeSerializer<T> serializer) {
+        if (serializer.getClass() == LongSerializer.class) {
+            return (PrimitiveTypeCodec<T>) LONG;
+        } else if (serializer.getClass() == IntSerializer.class) {
+            return (PrimitiveTypeCodec<T>) INT;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the codec for states of the given serializer, or null if states are not primitive.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    static <T> PrimitiveTypeCodec<T> forStateSerializer(TypeSerializer<T> serializer) {
+        if (serializer.getClass() == DoubleSerializer.class) {
+            return (PrimitiveTypeCodec<T>) DOUBLE;
+        } else {
+            return forKeySerializer(serializer);
+        }
+    }
+}
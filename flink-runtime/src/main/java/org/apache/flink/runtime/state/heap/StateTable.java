@@ -36,6 +36,7 @@ import org.apache.flink.util.Preconditions;
 import javax.annotation.Nonnull;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Objects;
@@ -75,6 +76,13 @@ public abstract class StateTable<K, N, S>
      */
     protected final StateMap<K, N, S>[] keyGroupedStateMaps;
 
+    /**
+     * Flags for the key-groups that were accessed for modification since the last call to {@link
+     * #pollModifiedKeyGroups(BitSet)}. Values returned by a read may be modified in place, so reads
+     * count as modifications as well.
+     */
+    private final boolean[] modifiedKeyGroups;
+
     /**
      * @param keyContext the key context provides the key scope for all put/get/delete operations.
      * @param metaInfo the meta information, including the type serializer for state copy-on-write.
@@ -98,6 +106,7 @@ public abstract class StateTable<K, N, S>
         for (int i = 0; i < this.keyGroupedStateMaps.length; i++) {
             this.keyGroupedStateMaps[i] = createStateMap();
         }
+        this.modifiedKeyGroups = new boolean[keyGroupedStateMaps.length];
     }
 
     protected abstract StateMap<K, N, S> createStateMap();
@@ -228,6 +237,33 @@ public abstract class StateTable<K, N, S>
         return get(key, keyGroup, namespace);
     }
 
+    /**
+     * Maps the composite of the given key and namespace to the specified state. This is typically
+     * used by background TTL cleanup which works outside of the current key context.
+     *
+     * @param key the key. Not null.
+     * @param namespace the namespace. Not null.
+     * @param state the state. Can be null.
+     */
+    public void put(K key, N namespace, S state) {
+        int keyGroup =
+                KeyGroupRangeAssignment.assignToKeyGroup(key, keyContext.getNumberOfKeyGroups());
+        put(key, keyGroup, namespace, state);
+    }
+
+    /**
+     * Removes the mapping for the composite of the given key and namespace. This is typically used
+     * by background TTL cleanup which works outside of the current key context.
+     *
+     * @param key the key. Not null.
+     * @param namespace the namespace. Not null.
+     */
+    public void remove(K key, N namespace) {
+        int keyGroup =
+                KeyGroupRangeAssignment.assignToKeyGroup(key, keyContext.getNumberOfKeyGroups());
+        remove(key, keyGroup, namespace);
+    }
+
     public Stream<K> getKeys(N namespace) {
         return Arrays.stream(keyGroupedStateMaps)
                 .flatMap(
@@ -296,10 +332,24 @@ public abstract class StateTable<K, N, S>
         return keyGroupRange.getStartKeyGroup();
     }
 
+    /**
+     * Adds the positions (relative to the start of the key-group range) of the key-groups that were
+     * modified since the last call to the given set, and resets the tracking.
+     */
+    void pollModifiedKeyGroups(BitSet modified) {
+        for (int i = 0; i < modifiedKeyGroups.length; i++) {
+            if (modifiedKeyGroups[i]) {
+                modified.set(i);
+                modifiedKeyGroups[i] = false;
+            }
+        }
+    }
+
     @VisibleForTesting
     public StateMap<K, N, S> getMapForKeyGroup(int keyGroupIndex) {
         final int pos = indexToOffset(keyGroupIndex);
         if (pos >= 0 && pos < keyGroupedStateMaps.length) {
+            modifiedKeyGroups[pos] = true;
             return keyGroupedStateMaps[pos];
         } else {
             throw KeyGroupRangeOffsets.newIllegalKeyGroupException(keyGroupIndex, keyGroupRange);
@@ -427,12 +477,14 @@ public abstract class StateTable<K, N, S>
 
         @Override
         public void remove(StateEntry<K, N, S> stateEntry) {
+            modifiedKeyGroups[keyGroupIndex - 1] = true;
             keyGroupedStateMaps[keyGroupIndex - 1].remove(
                     stateEntry.getKey(), stateEntry.getNamespace());
         }
 
         @Override
         public void update(StateEntry<K, N, S> stateEntry, S newValue) {
+            modifiedKeyGroups[keyGroupIndex - 1] = true;
             keyGroupedStateMaps[keyGroupIndex - 1].put(
                     stateEntry.getKey(), stateEntry.getNamespace(), newValue);
         }
@@ -20,6 +20,8 @@ package org.apache.flink.runtime.state.internal;
 
 import org.apache.flink.api.common.state.MapState;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -33,4 +35,27 @@ import java.util.Map;
  * @param <UV> Type of the value in the state
  */
 public interface InternalMapState<K, N, UK, UV>
-        extends InternalKvState<K, N, Map<UK, UV>>, MapState<UK, UV> {}
+        extends InternalKvState<K, N, Map<UK, UV>>, MapState<UK, UV> {
+
+    /**
+     * Returns the current values associated with the given keys. Keys which are not contained in
+     * the state, or which are mapped to {@code null}, are not contained in the returned map.
+     *
+     * <p>This is equivalent to calling {@link #get(Object)} for each of the keys, but state
+     * backends may look up all keys in one batch, which is cheaper than looking them up one by one.
+     *
+     * @param keys The keys of the mappings
+     * @return The mappings of the given keys
+     * @throws Exception Thrown if the system cannot access the state.
+     */
+    default Map<UK, UV> getAll(Collection<UK> keys) throws Exception {
+        Map<UK, UV> result = new HashMap<>(keys.size());
+        for (UK key : keys) {
+            UV value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.state.internal.InternalMapState;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -65,6 +66,17 @@ class LatencyTrackingMapState<K, N, UK, UV>
         }
     }
 
+    @Override
+    public Map<UK, UV> getAll(Collection<UK> keys) throws Exception {
+        // a batched lookup counts as one get
+        if (latencyTrackingStateMetric.trackLatencyOnGet()) {
+            return trackLatencyWithException(
+                    () -> original.getAll(keys), MapStateLatencyMetrics.MAP_STATE_GET_LATENCY);
+        } else {
+            return original.getAll(keys);
+        }
+    }
+
     @Override
     public void put(UK key, UV value) throws Exception {
         if (latencyTrackingStateMetric.trackLatencyOnPut()) {
@@ -105,6 +105,18 @@ public class FileSystemCheckpointStorage
      */
     private final int writeBufferSize;
 
+    /**
+     * The maximum size of the physical files into which the state files of one subtask and
+     * checkpoint are merged. A value of '-1' means that file merging is disabled.
+     */
+    private final long fileMergingMaxFileSize;
+
+    /**
+     * Whether tasks write checkpoint state files to local disk first and upload them in the
+     * background.
+     */
+    private final boolean localFirstEnabled;
+
     /**
      * Creates a new checkpoint storage that stores its checkpoint data in the file system and
      * location defined by the given URI.
@@ -211,6 +223,8 @@ public class FileSystemCheckpointStorage
 
         this.fileStateThreshold = fileStateSizeThreshold;
         this.writeBufferSize = writeBufferSize;
+        this.fileMergingMaxFileSize = -1;
+        this.localFirstEnabled = false;
         this.location =
                 ExternalizedSnapshotLocation.newBuilder()
                         .withCheckpointPath(checkpointDirectory)
@@ -256,6 +270,15 @@ public class FileSystemCheckpointStorage
                         : configuration.get(CheckpointingOptions.FS_WRITE_BUFFER_SIZE);
 
         this.writeBufferSize = Math.max(bufferSize, this.fileStateThreshold);
+        this.fileMergingMaxFileSize =
+                configuration.get(CheckpointingOptions.FILE_MERGING_ENABLED)
+                        ? Math.max(
+                                1L,
+                                configuration
+                                        .get(CheckpointingOptions.FILE_MERGING_MAX_FILE_SIZE)
+                                        .getBytes())
+                        : -1L;
+        this.localFirstEnabled = configuration.get(CheckpointingOptions.LOCAL_FIRST_ENABLED);
         this.location =
                 ExternalizedSnapshotLocation.newBuilder()
                         .withCheckpointPath(original.location.getBaseCheckpointPath())
@@ -320,7 +343,9 @@ public class FileSystemCheckpointStorage
                 location.getBaseSavepointPath(),
                 jobId,
                 getMinFileSizeThreshold(),
-                getWriteBufferSize());
+                getWriteBufferSize(),
+                fileMergingMaxFileSize,
+                localFirstEnabled);
     }
 
     /**
@@ -371,4 +396,25 @@ public class FileSystemCheckpointStorage
                 ? writeBufferSize
                 : CheckpointingOptions.FS_WRITE_BUFFER_SIZE.defaultValue();
     }
+
+    /**
+     * Gets the maximum size of the physical files into which checkpoint state files are merged.
+     *
+     * <p>File merging is enabled via {@link CheckpointingOptions#FILE_MERGING_ENABLED}.
+     *
+     * @return The maximum physical file size, in bytes, or -1 if file merging is disabled.
+     */
+    public long getFileMergingMaxFileSize() {
+        return fileMergingMaxFileSize;
+    }
+
+    /**
+     * Gets whether tasks write checkpoint state files to local disk first and upload them in the
+     * background.
+     *
+     * @see CheckpointingOptions#LOCAL_FIRST_ENABLED
+     */
+    public boolean isLocalFirstEnabled() {
+        return localFirstEnabled;
+    }
 }
@@ -43,6 +43,9 @@ abstract class AbstractTtlState<K, N, SV, TTLSV, S extends InternalKvState<K, N,
     /** This registered callback is to be called whenever state is accessed for read or write. */
     final Runnable accessCallback;
 
+    /** Namespace set by the last {@link #setCurrentNamespace(Object)} call. */
+    private N currentNamespace;
+
     AbstractTtlState(TtlStateContext<S, SV> ttlStateContext) {
         super(ttlStateContext.original, ttlStateContext.config, ttlStateContext.timeProvider);
         this.valueSerializer = ttlStateContext.valueSerializer;
@@ -74,6 +77,12 @@ abstract class AbstractTtlState<K, N, SV, TTLSV, S extends InternalKvState<K, N,
     @Override
     public void setCurrentNamespace(N namespace) {
         original.setCurrentNamespace(namespace);
+        this.currentNamespace = namespace;
+    }
+
+    @Nullable
+    N getCurrentNamespace() {
+        return currentNamespace;
     }
 
     @Override
@@ -99,6 +108,17 @@ abstract class AbstractTtlState<K, N, SV, TTLSV, S extends InternalKvState<K, N,
     @Nullable
     public abstract TTLSV getUnexpiredOrNull(@Nonnull TTLSV ttlValue);
 
+    /**
+     * Returns the earliest timestamp when some part of the state expires. The default
+     * implementation serves states which keep a single {@link TtlValue}.
+     *
+     * @return the earliest expiration timestamp or {@link Long#MAX_VALUE} if nothing can expire.
+     */
+    long getEarliestExpirationTimestamp(@Nonnull TTLSV ttlValue) {
+        return TtlUtils.getExpirationTimestamp(
+                ((TtlValue<?>) ttlValue).getLastAccessTimestamp(), ttl);
+    }
+
     @Override
     public StateIncrementalVisitor<K, N, SV> getStateIncrementalVisitor(
             int recommendedMaxNumberOfReturnedRecords) {
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.state.KeyedStateBackend;
+import org.apache.flink.runtime.state.heap.StateTable;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.stream.Collectors;
+
+/**
+ * Cleanup of state with TTL which keeps an expiry index next to the {@link StateTable} of a heap
+ * state.
+ *
+ * <p>Every state access registers the current key and namespace in a {@link TtlTimerWheel} with the
+ * latest possible expiration time of the accessed entry. When the wheel is advanced, only the
+ * entries whose expiration bucket has elapsed are looked up: fully expired entries are removed from
+ * the state table, partially expired entries are updated and scheduled again for the next
+ * expiration of their remaining values. Entries which were not accessed since the state was
+ * created, e.g. restored ones, are added to the index incrementally.
+ *
+ * @param <K> type of state key
+ * @param <N> type of state namespace
+ * @param <S> type of state value with TTL
+ */
+class TtlExpiryIndexCleanup<K, N, S> {
+    /** Number of existing state entries added to the index upon every cleanup run. */
+    static final int INDEXING_BATCH_SIZE = 64;
+
+    static final String EXPIRED_ENTRIES_METRIC = "ttlExpiredEntries";
+
+    static final String EXPIRY_INDEX_SIZE_METRIC = "ttlExpiryIndexSize";
+
+    private final KeyedStateBackend<K> keyContext;
+
+    private final TtlTimeProvider timeProvider;
+
+    private final long ttl;
+
+    /** Index of state entries by the time when they have to be checked for expiration. */
+    private final TtlTimerWheel<Tuple2<K, N>> expiryIndex;
+
+    /** Number of fully expired and removed state entries. */
+    private final Counter expiredEntries;
+
+    /** Particular state with TTL object is used to check whether an entry has expired. */
+    private AbstractTtlState<K, N, ?, S, ?> ttlState;
+
+    /** Table of the heap state which is cleaned up. */
+    private StateTable<K, N, S> stateTable;
+
+    /** Entries which existed before the index was created and have not been indexed yet. */
+    private Queue<Tuple2<K, N>> existingEntries;
+
+    private boolean existingEntriesIndexed;
+
+    TtlExpiryIndexCleanup(
+            @Nonnull KeyedStateBackend<K> keyContext,
+            @Nonnull TtlTimeProvider timeProvider,
+            long ttl) {
+        this.keyContext = keyContext;
+        this.timeProvider = timeProvider;
+        this.ttl = ttl;
+        this.expiryIndex =
+                new TtlTimerWheel<>(
+                        Math.max(1L, ttl / TtlTimerWheel.WHEEL_SIZE),
+                        timeProvider.currentTimestamp());
+        this.expiredEntries = new SimpleCounter();
+    }
+
+    /** Registers the currently accessed entry in the index and cleans up expired entries. */
+    void stateAccessed() {
+        K key = keyContext.getCurrentKey();
+        N namespace = ttlState.getCurrentNamespace();
+        if (key != null && namespace != null) {
+            long now = timeProvider.currentTimestamp();
+            expiryIndex.schedule(
+                    Tuple2.of(key, namespace), TtlUtils.getExpirationTimestamp(now, ttl));
+        }
+        runCleanup();
+    }
+
+    /** Cleans up the entries whose expiration time has been reached. */
+    void runCleanup() {
+        try {
+            indexExistingEntries();
+            for (Tuple2<K, N> entry : expiryIndex.advance(timeProvider.currentTimestamp())) {
+                cleanup(entry);
+            }
+        } catch (Throwable t) {
+            throw new FlinkRuntimeException("Failed to clean up state with TTL from index", t);
+        }
+    }
+
+    private void indexExistingEntries() {
+        if (existingEntriesIndexed) {
+            return;
+        }
+        if (existingEntries == null) {
+            // the incremental state visitor can miss entries which are moved by a concurrent
+            // rehash, so the existing entries are captured once and indexed in batches
+            existingEntries =
+                    stateTable
+                            .getKeysAndNamespaces()
+                            .collect(Collectors.toCollection(ArrayDeque::new));
+        }
+        for (int i = 0; i < INDEXING_BATCH_SIZE && !existingEntries.isEmpty(); i++) {
+            Tuple2<K, N> entry = existingEntries.poll();
+            S state = stateTable.get(entry.f0, entry.f1);
+            if (state != null) {
+                schedule(entry, state);
+            }
+        }
+        if (existingEntries.isEmpty()) {
+            existingEntries = null;
+            existingEntriesIndexed = true;
+        }
+    }
+
+    private void cleanup(Tuple2<K, N> entry) {
+        S state = stateTable.get(entry.f0, entry.f1);
+        if (state == null) {
+            return;
+        }
+        S cleanState = ttlState.getUnexpiredOrNull(state);
+        if (cleanState == null) {
+            stateTable.remove(entry.f0, entry.f1);
+            expiredEntries.inc();
+            return;
+        }
+        if (cleanState != state) {
+            stateTable.put(entry.f0, entry.f1, cleanState);
+        }
+        // the entry might have been accessed without refreshing its timestamps in between
+        schedule(entry, cleanState);
+    }
+
+    private void schedule(Tuple2<K, N> entry, S state) {
+        long expirationTimestamp = ttlState.getEarliestExpirationTimestamp(state);
+        if (expirationTimestamp != Long.MAX_VALUE) {
+            expiryIndex.schedule(entry, expirationTimestamp);
+        }
+    }
+
+    /**
+     * As TTL state wrapper depends on this class through access callback, it has to be set here
+     * after its construction is done.
+     */
+    void setTtlState(@Nonnull AbstractTtlState<K, N, ?, S, ?> ttlState) {
+        this.ttlState = ttlState;
+    }
+
+    void setStateTable(@Nonnull StateTable<K, N, S> stateTable) {
+        this.stateTable = stateTable;
+    }
+
+    void registerMetrics(@Nonnull MetricGroup metricGroup) {
+        metricGroup.counter(EXPIRED_ENTRIES_METRIC, expiredEntries);
+        metricGroup.gauge(EXPIRY_INDEX_SIZE_METRIC, (Gauge<Integer>) expiryIndex::size);
+    }
+}
@@ -100,6 +100,19 @@ class TtlListState<K, N, T>
         original.add(wrapWithTs(value));
     }
 
+    @Override
+    long getEarliestExpirationTimestamp(@Nonnull List<TtlValue<T>> ttlValues) {
+        long earliest = Long.MAX_VALUE;
+        for (TtlValue<T> ttlValue : ttlValues) {
+            earliest =
+                    Math.min(
+                            earliest,
+                            TtlUtils.getExpirationTimestamp(
+                                    ttlValue.getLastAccessTimestamp(), ttl));
+        }
+        return earliest;
+    }
+
     @Nullable
     @Override
     public List<TtlValue<T>> getUnexpiredOrNull(@Nonnull List<TtlValue<T>> ttlValues) {
@@ -27,6 +27,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import java.util.AbstractMap;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -64,6 +65,23 @@ class TtlMapState<K, N, UK, UV>
                 () -> original.get(key), v -> original.put(key, v), () -> original.remove(key));
     }
 
+    @Override
+    public Map<UK, UV> getAll(Collection<UK> keys) throws Exception {
+        accessCallback.run();
+        Map<UK, TtlValue<UV>> ttlValues = original.getAll(keys);
+        Map<UK, UV> result = new HashMap<>(ttlValues.size());
+        for (Map.Entry<UK, TtlValue<UV>> entry : ttlValues.entrySet()) {
+            UK key = entry.getKey();
+            TtlValue<UV> ttlValue =
+                    getWrappedWithTtlCheckAndUpdate(
+                            entry::getValue, v -> original.put(key, v), () -> original.remove(key));
+            if (ttlValue != null && ttlValue.getUserValue() != null) {
+                result.put(key, ttlValue.getUserValue());
+            }
+        }
+        return result;
+    }
+
     @Override
     public void put(UK key, UV value) throws Exception {
         accessCallback.run();
@@ -131,6 +149,18 @@ class TtlMapState<K, N, UK, UV>
         return original.isEmpty();
     }
 
+    @Override
+    long getEarliestExpirationTimestamp(@Nonnull Map<UK, TtlValue<UV>> ttlValue) {
+        long earliest = Long.MAX_VALUE;
+        for (TtlValue<UV> value : ttlValue.values()) {
+            earliest =
+                    Math.min(
+                            earliest,
+                            TtlUtils.getExpirationTimestamp(value.getLastAccessTimestamp(), ttl));
+        }
+        return earliest;
+    }
+
     @Nullable
     @Override
     public Map<UK, TtlValue<UV>> getUnexpiredOrNull(@Nonnull Map<UK, TtlValue<UV>> ttlValue) {
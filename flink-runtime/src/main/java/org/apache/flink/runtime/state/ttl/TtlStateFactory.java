@@ -37,8 +37,11 @@ import org.apache.flink.api.common.typeutils.base.ListSerializer;
 import org.apache.flink.api.common.typeutils.base.LongSerializer;
 import org.apache.flink.api.common.typeutils.base.MapSerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
 import org.apache.flink.runtime.state.KeyedStateBackend;
 import org.apache.flink.runtime.state.StateSnapshotTransformer.StateSnapshotTransformFactory;
+import org.apache.flink.runtime.state.heap.AbstractHeapState;
 import org.apache.flink.runtime.state.internal.InternalKvState;
 import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.Preconditions;
@@ -82,6 +85,7 @@ public class TtlStateFactory<K, N, SV, TTLSV, S extends State, IS extends S> {
     @Nonnull private final TtlTimeProvider timeProvider;
     private final long ttl;
     @Nullable private final TtlIncrementalCleanup<K, N, TTLSV> incrementalCleanup;
+    @Nullable private final TtlExpiryIndexCleanup<K, N, TTLSV> expiryIndexCleanup;
 
     private TtlStateFactory(
             @Nonnull TypeSerializer<N> namespaceSerializer,
@@ -96,6 +100,7 @@ public class TtlStateFactory<K, N, SV, TTLSV, S extends State, IS extends S> {
         this.ttl = ttlConfig.getTtl().toMilliseconds();
         this.stateFactories = createStateFactories();
         this.incrementalCleanup = getTtlIncrementalCleanup();
+        this.expiryIndexCleanup = getTtlExpiryIndexCleanup();
     }
 
     private Map<StateDescriptor.Type, SupplierWithException<IS, Exception>> createStateFactories() {
@@ -133,6 +138,9 @@ public class TtlStateFactory<K, N, SV, TTLSV, S extends State, IS extends S> {
         if (incrementalCleanup != null) {
             incrementalCleanup.setTtlState((AbstractTtlState<K, N, ?, TTLSV, ?>) state);
         }
+        if (expiryIndexCleanup != null) {
+            expiryIndexCleanup.setTtlState((AbstractTtlState<K, N, ?, TTLSV, ?>) state);
+        }
         return state;
     }
 
@@ -229,7 +237,7 @@ public class TtlStateFactory<K, N, SV, TTLSV, S extends State, IS extends S> {
                 ttlConfig,
                 timeProvider,
                 (TypeSerializer<V>) stateDesc.getSerializer(),
-                registerTtlIncrementalCleanupCallback((InternalKvState<?, ?, ?>) originalState));
+                registerTtlCleanupCallback((InternalKvState<?, ?, ?>) originalState));
     }
 
     private TtlIncrementalCleanup<K, N, TTLSV> getTtlIncrementalCleanup() {
@@ -238,6 +246,56 @@ public class TtlStateFactory<K, N, SV, TTLSV, S extends State, IS extends S> {
         return config != null ? new TtlIncrementalCleanup<>(config.getCleanupSize()) : null;
     }
 
+    private TtlExpiryIndexCleanup<K, N, TTLSV> getTtlExpiryIndexCleanup() {
+        StateTtlConfig.ExpiryIndexCleanupStrategy config =
+                ttlConfig.getCleanupStrategies().getExpiryIndexCleanupStrategy();
+        return config != null ? new TtlExpiryIndexCleanup<>(stateBackend, timeProvider, ttl) : null;
+    }
+
+    private Runnable registerTtlCleanupCallback(InternalKvState<?, ?, ?> originalState) {
+        Runnable incrementalCleanupCallback = registerTtlIncrementalCleanupCallback(originalState);
+        Runnable expiryIndexCleanupCallback = registerTtlExpiryIndexCleanupCallback(originalState);
+        if (expiryIndexCleanupCallback == null) {
+            return incrementalCleanupCallback;
+        }
+        return () -> {
+            incrementalCleanupCallback.run();
+            expiryIndexCleanupCallback.run();
+        };
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private Runnable registerTtlExpiryIndexCleanupCallback(InternalKvState<?, ?, ?> originalState) {
+        StateTtlConfig.ExpiryIndexCleanupStrategy config =
+                ttlConfig.getCleanupStrategies().getExpiryIndexCleanupStrategy();
+        // the expiry index is maintained next to the state table of the heap backend
+        if (config == null
+                || expiryIndexCleanup == null
+                || !(originalState instanceof AbstractHeapState)) {
+            return null;
+        }
+        expiryIndexCleanup.setStateTable(
+                ((AbstractHeapState<K, N, TTLSV>) originalState).getStateTable());
+        MetricGroup metricGroup = getMetricGroup();
+        if (metricGroup != null) {
+            expiryIndexCleanup.registerMetrics(metricGroup.addGroup(stateDesc.getName()));
+        }
+        if (config.runCleanupForEveryRecord()) {
+            stateBackend.registerKeySelectionListener(stub -> expiryIndexCleanup.runCleanup());
+        }
+        return expiryIndexCleanup::stateAccessed;
+    }
+
+    @Nullable
+    private MetricGroup getMetricGroup() {
+        return stateBackend instanceof AbstractKeyedStateBackend
+                ? ((AbstractKeyedStateBackend<K>) stateBackend)
+                        .getLatencyTrackingStateConfig()
+                        .getMetricGroup()
+                : null;
+    }
+
     private Runnable registerTtlIncrementalCleanupCallback(InternalKvState<?, ?, ?> originalState) {
         StateTtlConfig.IncrementalCleanupStrategy config =
                 ttlConfig.getCleanupStrategies().getIncrementalCleanupStrategy();
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timer wheel which indexes elements by their expiration time.
+ *
+ * <p>Time is divided into ticks of a fixed width. Each level of the wheel has {@link #WHEEL_SIZE}
+ * slots, and a slot of level {@code l} spans {@code WHEEL_SIZE^l} ticks. An element is put into the
+ * lowest level whose range covers its distance to the current tick, and it is cascaded into a lower
+ * level once the wheel reaches its slot. Scheduling takes constant time, and advancing the wheel
+ * only touches the elements whose slots have elapsed. Elements further away than the range of the
+ * highest level are parked there and cascaded again when their slot is reached.
+ *
+ * <p>An element is never reported before its expiration time, but it can be reported up to one tick
+ * later. Every element is scheduled at most once; scheduling it again keeps the earlier of both
+ * expiration times.
+ *
+ * <p>This class is not thread safe.
+ *
+ * @param <E> type of the indexed elements
+ */
+class TtlTimerWheel<E> {
+
+    private static final int WHEEL_BITS = 6;
+
+    static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    static final int NUM_LEVELS = 4;
+
+    /** Number of ticks covered by all levels of the wheel. */
+    private static final long MAX_DELTA = 1L << (WHEEL_BITS * NUM_LEVELS);
+
+    /** Width of a tick in milliseconds. */
+    private final long tickMillis;
+
+    /** Slots of all levels, indexed by {@code level * WHEEL_SIZE + slot}. */
+    private final List<Timer<E>>[] slots;
+
+    /** Number of timers, including cancelled ones, in every level. */
+    private final int[] levelSizes;
+
+    /** Live timers by element. */
+    private final Map<E, Timer<E>> timers;
+
+    /** Timers which have been scheduled at or before the current tick. */
+    private final List<Timer<E>> due;
+
+    /** All timers with a tick up to and including the current one have been reported. */
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    TtlTimerWheel(long tickMillis, long currentTimestamp) {
+        Preconditions.checkArgument(tickMillis > 0, "Tick width must be positive.");
+        this.tickMillis = tickMillis;
+        this.slots = new List[NUM_LEVELS * WHEEL_SIZE];
+        this.levelSizes = new int[NUM_LEVELS];
+        this.timers = new HashMap<>();
+        this.due = new ArrayList<>();
+        this.currentTick = Math.max(0L, currentTimestamp) / tickMillis;
+    }
+
+    /**
+     * Schedules the element to be reported once the given timestamp is reached.
+     *
+     * @return whether the element has not been scheduled or has been scheduled later before
+     */
+    boolean schedule(@Nonnull E element, long expirationTimestamp) {
+        long tick = toTick(expirationTimestamp);
+        Timer<E> existing = timers.get(element);
+        if (existing != null) {
+            if (existing.tick <= tick) {
+                return false;
+            }
+            existing.cancelled = true;
+        }
+        Timer<E> timer = new Timer<>(element, tick);
+        timers.put(element, timer);
+        insert(timer);
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the given timestamp and removes all elements which have expired by
+     * then.
+     *
+     * @return expired elements, in no particular order
+     */
+    List<E> advance(long currentTimestamp) {
+        long targetTick = Math.max(0L, currentTimestamp) / tickMillis;
+        List<E> expired = null;
+        while (currentTick < targetTick) {
+            int lowestLevel = lowestNonEmptyLevel();
+            if (lowestLevel < 0) {
+                currentTick = targetTick;
+                break;
+            }
+            if (lowestLevel > 0) {
+                // no slot of the empty lower levels needs to be visited until the next slot of
+                // the lowest non empty level is cascaded
+                long span = 1L << (WHEEL_BITS * lowestLevel);
+                long nextCascade = (currentTick / span + 1) * span;
+                if (nextCascade > targetTick) {
+                    currentTick = targetTick;
+                    break;
+                }
+                currentTick = nextCascade - 1;
+            }
+            currentTick++;
+            cascade();
+            expired = collect(slotIndex(0, currentTick), expired);
+        }
+        expired = collectDue(expired);
+        return expired == null ? Collections.emptyList() : expired;
+    }
+
+    /** Returns the number of scheduled elements. */
+    int size() {
+        return timers.size();
+    }
+
+    /** Returns whether the element is scheduled. */
+    boolean contains(@Nonnull E element) {
+        return timers.containsKey(element);
+    }
+
+    // ------------------------------------------------------------------------
+
+    private long toTick(long timestamp) {
+        // round up, so that an element is never reported before its expiration timestamp
+        long ticks = Math.max(0L, timestamp) / tickMillis;
+        return ticks * tickMillis < timestamp ? ticks + 1 : ticks;
+    }
+
+    private void insert(Timer<E> timer) {
+        long delta = timer.tick - currentTick;
+        if (delta <= 0) {
+            due.add(timer);
+            return;
+        }
+        int level = 0;
+        while (level < NUM_LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        // the highest level parks far away timers in its last slot in range
+        long slotTick = delta < MAX_DELTA ? timer.tick : currentTick + MAX_DELTA - 1;
+        int index = slotIndex(level, slotTick);
+        List<Timer<E>> slot = slots[index];
+        if (slot == null) {
+            slot = new ArrayList<>();
+            slots[index] = slot;
+        }
+        slot.add(timer);
+        levelSizes[level]++;
+    }
+
+    /** Moves the timers of the higher level slots which start at the current tick downwards. */
+    private void cascade() {
+        for (int level = NUM_LEVELS - 1; level > 0; level--) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                continue;
+            }
+            int index = slotIndex(level, currentTick);
+            List<Timer<E>> slot = slots[index];
+            if (slot == null || slot.isEmpty()) {
+                continue;
+            }
+            slots[index] = null;
+            levelSizes[level] -= slot.size();
+            for (Timer<E> timer : slot) {
+                if (!timer.cancelled) {
+                    insert(timer);
+                }
+            }
+        }
+    }
+
+    private List<E> collect(int index, List<E> expired) {
+        List<Timer<E>> slot = slots[index];
+        if (slot == null || slot.isEmpty()) {
+            return expired;
+        }
+        slots[index] = null;
+        levelSizes[0] -= slot.size();
+        for (Timer<E> timer : slot) {
+            expired = expire(timer, expired);
+        }
+        return expired;
+    }
+
+    private List<E> collectDue(List<E> expired) {
+        if (due.isEmpty()) {
+            return expired;
+        }
+        for (Timer<E> timer : due) {
+            expired = expire(timer, expired);
+        }
+        due.clear();
+        return expired;
+    }
+
+    private List<E> expire(Timer<E> timer, List<E> expired) {
+        if (timer.cancelled) {
+            return expired;
+        }
+        timers.remove(timer.element);
+        if (expired == null) {
+            expired = new ArrayList<>();
+        }
+        expired.add(timer.element);
+        return expired;
+    }
+
+    private int lowestNonEmptyLevel() {
+        for (int level = 0; level < NUM_LEVELS; level++) {
+            if (levelSizes[level] > 0) {
+                return level;
+            }
+        }
+        return -1;
+    }
+
+    private static int slotIndex(int level, long tick) {
+        return level * WHEEL_SIZE + (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+    }
+
+    private static final class Timer<E> {
+        private final E element;
+        private final long tick;
+        private boolean cancelled;
+
+        private Timer(E element, long tick) {
+            this.element = element;
+            this.tick = tick;
+        }
+    }
+}
@@ -40,7 +40,7 @@ public class TtlUtils {
         return getExpirationTimestamp(ts, ttl) <= currentTimestamp;
     }
 
-    private static long getExpirationTimestamp(long ts, long ttl) {
+    static long getExpirationTimestamp(long ts, long ttl) {
         long ttlWithoutOverflow = ts > 0 ? Math.min(Long.MAX_VALUE - ts, ttl) : ttl;
         return ts + ttlWithoutOverflow;
     }
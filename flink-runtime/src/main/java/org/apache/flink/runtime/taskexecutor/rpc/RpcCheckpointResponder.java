@@ -64,6 +64,13 @@ public class RpcCheckpointResponder implements CheckpointResponder {
                 jobID, executionAttemptID, checkpointId, checkpointMetrics);
     }
 
+    @Override
+    public void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId) {
+        checkpointCoordinatorGateway.acknowledgeRemoteDurableCheckpoint(
+                jobID, executionAttemptID, checkpointId);
+    }
+
     @Override
     public void declineCheckpoint(
             JobID jobID,
@@ -59,6 +59,18 @@ public interface CheckpointResponder {
             long checkpointId,
             CheckpointMetrics checkpointMetrics);
 
+    /**
+     * Reports that all state of the given, already acknowledged checkpoint has been uploaded to the
+     * checkpoint storage. Only sent for checkpoints that were acknowledged with pending uploads,
+     * see {@link CheckpointMetrics#isRemoteUploadPending()}.
+     *
+     * @param jobID Job ID of the running job
+     * @param executionAttemptID Execution attempt ID of the running task
+     * @param checkpointId The ID of the checkpoint whose uploads completed
+     */
+    void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId);
+
     /**
      * Declines the given checkpoint.
      *
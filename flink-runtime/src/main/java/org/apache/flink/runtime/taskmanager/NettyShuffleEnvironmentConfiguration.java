@@ -71,6 +71,14 @@ public class NettyShuffleEnvironmentConfiguration {
 
     private final int sortShuffleMinParallelism;
 
+    private final boolean sortShuffleDirectFileTransferEnabled;
+
+    /**
+     * Number of finished buffers a pipelined subpartition accumulates before notifying a local
+     * consumer.
+     */
+    private final int localChannelNotificationBatchSize;
+
     /** Size of direct memory to be allocated for blocking shuffle data read. */
     private final long batchShuffleReadMemoryBytes;
 
@@ -97,6 +105,8 @@ public class NettyShuffleEnvironmentConfiguration {
 
     private final boolean connectionReuseEnabled;
 
+    private final boolean connectionStripingByChannelEnabled;
+
     public NettyShuffleEnvironmentConfiguration(
             int numNetworkBuffers,
             int networkBufferSize,
@@ -115,9 +125,12 @@ public class NettyShuffleEnvironmentConfiguration {
             long batchShuffleReadMemoryBytes,
             int sortShuffleMinBuffers,
             int sortShuffleMinParallelism,
+            boolean sortShuffleDirectFileTransferEnabled,
+            int localChannelNotificationBatchSize,
             BufferDebloatConfiguration debloatConfiguration,
             int maxNumberOfConnections,
-            boolean connectionReuseEnabled) {
+            boolean connectionReuseEnabled,
+            boolean connectionStripingByChannelEnabled) {
 
         this.numNetworkBuffers = numNetworkBuffers;
         this.networkBufferSize = networkBufferSize;
@@ -136,9 +149,12 @@ public class NettyShuffleEnvironmentConfiguration {
         this.batchShuffleReadMemoryBytes = batchShuffleReadMemoryBytes;
         this.sortShuffleMinBuffers = sortShuffleMinBuffers;
         this.sortShuffleMinParallelism = sortShuffleMinParallelism;
+        this.sortShuffleDirectFileTransferEnabled = sortShuffleDirectFileTransferEnabled;
+        this.localChannelNotificationBatchSize = localChannelNotificationBatchSize;
         this.debloatConfiguration = debloatConfiguration;
         this.maxNumberOfConnections = maxNumberOfConnections;
         this.connectionReuseEnabled = connectionReuseEnabled;
+        this.connectionStripingByChannelEnabled = connectionStripingByChannelEnabled;
     }
 
     // ------------------------------------------------------------------------
@@ -179,6 +195,14 @@ public class NettyShuffleEnvironmentConfiguration {
         return sortShuffleMinParallelism;
     }
 
+    public boolean isSortShuffleDirectFileTransferEnabled() {
+        return sortShuffleDirectFileTransferEnabled;
+    }
+
+    public int localChannelNotificationBatchSize() {
+        return localChannelNotificationBatchSize;
+    }
+
     public Duration getRequestSegmentsTimeout() {
         return requestSegmentsTimeout;
     }
@@ -199,6 +223,10 @@ public class NettyShuffleEnvironmentConfiguration {
         return connectionReuseEnabled;
     }
 
+    public boolean isConnectionStripingByChannelEnabled() {
+        return connectionStripingByChannelEnabled;
+    }
+
     public BoundedBlockingSubpartitionType getBlockingSubpartitionType() {
         return blockingSubpartitionType;
     }
@@ -287,6 +315,19 @@ public class NettyShuffleEnvironmentConfiguration {
         int sortShuffleMinParallelism =
                 configuration.getInteger(
                         NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_MIN_PARALLELISM);
+        boolean sortShuffleDirectFileTransferEnabled =
+                configuration.getBoolean(
+                        NettyShuffleEnvironmentOptions
+                                .NETWORK_SORT_SHUFFLE_DIRECT_FILE_TRANSFER_ENABLED);
+
+        int localChannelNotificationBatchSize =
+                configuration.getInteger(
+                        NettyShuffleEnvironmentOptions
+                                .NETWORK_LOCAL_CHANNEL_NOTIFICATION_BATCH_SIZE);
+        Preconditions.checkArgument(
+                localChannelNotificationBatchSize > 0,
+                "%s must be positive.",
+                NettyShuffleEnvironmentOptions.NETWORK_LOCAL_CHANNEL_NOTIFICATION_BATCH_SIZE.key());
 
         boolean isNetworkDetailedMetrics =
                 configuration.getBoolean(NettyShuffleEnvironmentOptions.NETWORK_DETAILED_METRICS);
@@ -322,6 +363,16 @@ public class NettyShuffleEnvironmentConfiguration {
                 configuration.get(
                         NettyShuffleEnvironmentOptions.TCP_CONNECTION_REUSE_ACROSS_JOBS_ENABLED);
 
+        boolean connectionStripingByChannelEnabled =
+                configuration.get(
+                        NettyShuffleEnvironmentOptions.TCP_CONNECTION_STRIPE_BY_CHANNEL_ENABLED);
+        if (connectionStripingByChannelEnabled && maxNumConnections == 1) {
+            LOG.warn(
+                    "{} has no effect because {} is 1, all channels share a single connection.",
+                    NettyShuffleEnvironmentOptions.TCP_CONNECTION_STRIPE_BY_CHANNEL_ENABLED.key(),
+                    NettyShuffleEnvironmentOptions.MAX_NUM_TCP_CONNECTIONS.key());
+        }
+
         return new NettyShuffleEnvironmentConfiguration(
                 numberOfNetworkBuffers,
                 pageSize,
@@ -340,9 +391,12 @@ public class NettyShuffleEnvironmentConfiguration {
                 batchShuffleReadMemoryBytes,
                 sortShuffleMinBuffers,
                 sortShuffleMinParallelism,
+                sortShuffleDirectFileTransferEnabled,
+                localChannelNotificationBatchSize,
                 BufferDebloatConfiguration.fromConfiguration(configuration),
                 maxNumConnections,
-                connectionReuseEnabled);
+                connectionReuseEnabled,
+                connectionStripingByChannelEnabled);
     }
 
     /**
@@ -479,8 +533,11 @@ public class NettyShuffleEnvironmentConfiguration {
         result = 31 * result + Objects.hashCode(batchShuffleReadMemoryBytes);
         result = 31 * result + sortShuffleMinBuffers;
         result = 31 * result + sortShuffleMinParallelism;
+        result = 31 * result + (sortShuffleDirectFileTransferEnabled ? 1 : 0);
+        result = 31 * result + localChannelNotificationBatchSize;
         result = 31 * result + maxNumberOfConnections;
         result = 31 * result + (connectionReuseEnabled ? 1 : 0);
+        result = 31 * result + (connectionStripingByChannelEnabled ? 1 : 0);
         return result;
     }
 
@@ -503,6 +560,10 @@ public class NettyShuffleEnvironmentConfiguration {
                     && this.batchShuffleReadMemoryBytes == that.batchShuffleReadMemoryBytes
                     && this.sortShuffleMinBuffers == that.sortShuffleMinBuffers
                     && this.sortShuffleMinParallelism == that.sortShuffleMinParallelism
+                    && this.sortShuffleDirectFileTransferEnabled
+                            == that.sortShuffleDirectFileTransferEnabled
+                    && this.localChannelNotificationBatchSize
+                            == that.localChannelNotificationBatchSize
                     && this.requestSegmentsTimeout.equals(that.requestSegmentsTimeout)
                     && (nettyConfig != null
                             ? nettyConfig.equals(that.nettyConfig)
@@ -513,7 +574,9 @@ public class NettyShuffleEnvironmentConfiguration {
                     && this.maxBuffersPerChannel == that.maxBuffersPerChannel
                     && Objects.equals(this.compressionCodec, that.compressionCodec)
                     && this.maxNumberOfConnections == that.maxNumberOfConnections
-                    && this.connectionReuseEnabled == that.connectionReuseEnabled;
+                    && this.connectionReuseEnabled == that.connectionReuseEnabled
+                    && this.connectionStripingByChannelEnabled
+                            == that.connectionStripingByChannelEnabled;
         }
     }
 
@@ -550,10 +613,16 @@ public class NettyShuffleEnvironmentConfiguration {
                 + sortShuffleMinBuffers
                 + ", sortShuffleMinParallelism="
                 + sortShuffleMinParallelism
+                + ", sortShuffleDirectFileTransferEnabled="
+                + sortShuffleDirectFileTransferEnabled
+                + ", localChannelNotificationBatchSize="
+                + localChannelNotificationBatchSize
                 + ", maxNumberOfConnections="
                 + maxNumberOfConnections
                 + ", connectionReuseEnabled="
                 + connectionReuseEnabled
+                + ", connectionStripingByChannelEnabled="
+                + connectionStripingByChannelEnabled
                 + '}';
     }
 }
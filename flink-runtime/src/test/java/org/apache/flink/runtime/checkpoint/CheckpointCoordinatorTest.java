@@ -61,6 +61,7 @@ import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.TestingStreamStateHandle;
 import org.apache.flink.runtime.state.filesystem.FileStateHandle;
+import org.apache.flink.runtime.state.filesystem.FsCompletedCheckpointStorageLocation;
 import org.apache.flink.runtime.state.filesystem.FsStateBackend;
 import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
 import org.apache.flink.runtime.state.memory.MemoryBackendCheckpointStorageAccess;
@@ -100,6 +101,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
@@ -1290,6 +1292,292 @@ public class CheckpointCoordinatorTest extends TestLogger {
         checkpointCoordinator.shutdown();
     }
 
+    @Test
+    public void testRemoteDurableCheckpointTracking() throws Exception {
+        JobVertexID jobVertexID1 = new JobVertexID();
+        JobVertexID jobVertexID2 = new JobVertexID();
+
+        ExecutionGraph graph =
+                new CheckpointCoordinatorTestingUtils.CheckpointExecutionGraphBuilder()
+                        .addJobVertex(jobVertexID1)
+                        .addJobVertex(jobVertexID2)
+                        .build();
+
+        ExecutionAttemptID attemptID1 =
+                graph.getJobVertex(jobVertexID1)
+                        .getTaskVertices()[0]
+                        .getCurrentExecutionAttempt()
+                        .getAttemptId();
+        ExecutionAttemptID attemptID2 =
+                graph.getJobVertex(jobVertexID2)
+                        .getTaskVertices()[0]
+                        .getCurrentExecutionAttempt()
+                        .getAttemptId();
+        CheckpointCoordinator checkpointCoordinator = getCheckpointCoordinator(graph);
+        CheckpointMetrics uploadPendingMetrics =
+                new CheckpointMetricsBuilder()
+                        .setTotalBytesPersisted(0)
+                        .setBytesPersistedOfThisCheckpoint(0)
+                        .setRemoteUploadPending(true)
+                        .buildIncomplete();
+
+        // the first checkpoint is acknowledged by one task before its state was uploaded
+        checkpointCoordinator.triggerCheckpoint(false);
+        manuallyTriggeredScheduledExecutor.triggerAll();
+        long checkpointId1 =
+                checkpointCoordinator.getPendingCheckpoints().keySet().iterator().next();
+        checkpointCoordinator.receiveAcknowledgeMessage(
+                new AcknowledgeCheckpoint(
+                        graph.getJobID(), attemptID1, checkpointId1, uploadPendingMetrics, null),
+                TASK_MANAGER_LOCATION_INFO);
+        checkpointCoordinator.receiveAcknowledgeMessage(
+                new AcknowledgeCheckpoint(graph.getJobID(), attemptID2, checkpointId1),
+                TASK_MANAGER_LOCATION_INFO);
+
+        CompletedCheckpoint checkpoint1 = checkpointCoordinator.getSuccessfulCheckpoints().get(0);
+        assertEquals(checkpointId1, checkpoint1.getCheckpointID());
+        assertFalse(checkpoint1.isRemoteDurable());
+        assertEquals(-1L, checkpointCoordinator.getLatestRemoteDurableCheckpointId());
+
+        // notifications of other tasks are ignored
+        checkpointCoordinator.receiveRemoteDurableAcknowledgement(checkpointId1, attemptID2);
+        assertFalse(checkpoint1.isRemoteDurable());
+
+        checkpointCoordinator.receiveRemoteDurableAcknowledgement(checkpointId1, attemptID1);
+        assertTrue(checkpoint1.isRemoteDurable());
+        assertEquals(checkpointId1, checkpointCoordinator.getLatestRemoteDurableCheckpointId());
+
+        // the uploads of the second checkpoint finish while it is still pending
+        checkpointCoordinator.triggerCheckpoint(false);
+        manuallyTriggeredScheduledExecutor.triggerAll();
+        long checkpointId2 =
+                checkpointCoordinator.getPendingCheckpoints().keySet().iterator().next();
+        checkpointCoordinator.receiveAcknowledgeMessage(
+                new AcknowledgeCheckpoint(
+                        graph.getJobID(), attemptID1, checkpointId2, uploadPendingMetrics, null),
+                TASK_MANAGER_LOCATION_INFO);
+        checkpointCoordinator.receiveRemoteDurableAcknowledgement(checkpointId2, attemptID1);
+        checkpointCoordinator.receiveAcknowledgeMessage(
+                new AcknowledgeCheckpoint(graph.getJobID(), attemptID2, checkpointId2),
+                TASK_MANAGER_LOCATION_INFO);
+
+        assertEquals(checkpointId2, checkpointCoordinator.getLatestRemoteDurableCheckpointId());
+        assertEquals(1, checkpointCoordinator.getNumberOfRetainedSuccessfulCheckpoints());
+
+        // the third checkpoint does not subsume the second one until it is durable
+        checkpointCoordinator.triggerCheckpoint(false);
+        manuallyTriggeredScheduledExecutor.triggerAll();
+        long checkpointId3 =
+                checkpointCoordinator.getPendingCheckpoints().keySet().iterator().next();
+        checkpointCoordinator.receiveAcknowledgeMessage(
+                new AcknowledgeCheckpoint(
+                        graph.getJobID(), attemptID1, checkpointId3, uploadPendingMetrics, null),
+                TASK_MANAGER_LOCATION_INFO);
+        checkpointCoordinator.receiveAcknowledgeMessage(
+                new AcknowledgeCheckpoint(graph.getJobID(), attemptID2, checkpointId3),
+                TASK_MANAGER_LOCATION_INFO);
+
+        assertEquals(checkpointId2, checkpointCoordinator.getLatestRemoteDurableCheckpointId());
+        assertEquals(2, checkpointCoordinator.getNumberOfRetainedSuccessfulCheckpoints());
+
+        checkpointCoordinator.shutdown();
+    }
+
+    @Test
+    public void testRemoteDurabilityAdvancesInCheckpointOrder() throws Exception {
+        JobVertexID jobVertexID = new JobVertexID();
+        ExecutionGraph graph =
+                new CheckpointCoordinatorTestingUtils.CheckpointExecutionGraphBuilder()
+                        .addJobVertex(jobVertexID)
+                        .build();
+        ExecutionAttemptID attemptID =
+                graph.getJobVertex(jobVertexID)
+                        .getTaskVertices()[0]
+                        .getCurrentExecutionAttempt()
+                        .getAttemptId();
+        CheckpointCoordinator checkpointCoordinator = getCheckpointCoordinator(graph);
+
+        long checkpointId1 = completeCheckpoint(checkpointCoordinator, graph, attemptID, true);
+        long checkpointId2 = completeCheckpoint(checkpointCoordinator, graph, attemptID, true);
+        CompletedCheckpoint checkpoint2 =
+                checkpointCoordinator.getCheckpointStore().getLatestCheckpoint();
+
+        // the second checkpoint may reuse state files of the first one, which are not uploaded
+        checkpointCoordinator.receiveRemoteDurableAcknowledgement(checkpointId2, attemptID);
+        assertFalse(checkpoint2.isRemoteDurable());
+        assertEquals(-1L, checkpointCoordinator.getLatestRemoteDurableCheckpointId());
+
+        checkpointCoordinator.receiveRemoteDurableAcknowledgement(checkpointId1, attemptID);
+        assertTrue(checkpoint2.isRemoteDurable());
+        assertEquals(checkpointId2, checkpointCoordinator.getLatestRemoteDurableCheckpointId());
+
+        // the uploads of the third checkpoint are lost with the failover
+        long checkpointId3 = completeCheckpoint(checkpointCoordinator, graph, attemptID, true);
+        CompletedCheckpoint checkpoint3 =
+                checkpointCoordinator.getCheckpointStore().getLatestCheckpoint();
+        assertEquals(
+                OptionalLong.of(checkpointId2),
+                checkpointCoordinator.restoreLatestCheckpointedStateToSubtasks(
+                        Collections.emptySet()));
+        checkpointCoordinator.receiveRemoteDurableAcknowledgement(checkpointId3, attemptID);
+        assertFalse(checkpoint3.isRemoteDurable());
+
+        // checkpoints after the restore do not wait for the lost uploads
+        long checkpointId4 = completeCheckpoint(checkpointCoordinator, graph, attemptID, false);
+        assertEquals(checkpointId4, checkpointCoordinator.getLatestRemoteDurableCheckpointId());
+
+        checkpointCoordinator.shutdown();
+    }
+
+    @Test
+    public void testCompletionIsNotifiedOnceRemoteDurable() throws Exception {
+        JobVertexID jobVertexID = new JobVertexID();
+        CheckpointCoordinatorTestingUtils.CheckpointRecorderTaskManagerGateway gateway =
+                new CheckpointCoordinatorTestingUtils.CheckpointRecorderTaskManagerGateway();
+        ExecutionGraph graph =
+                new CheckpointCoordinatorTestingUtils.CheckpointExecutionGraphBuilder()
+                        .addJobVertex(jobVertexID)
+                        .setTaskManagerGateway(gateway)
+                        .build();
+        ExecutionAttemptID attemptID =
+                graph.getJobVertex(jobVertexID)
+                        .getTaskVertices()[0]
+                        .getCurrentExecutionAttempt()
+                        .getAttemptId();
+        CheckpointCoordinator checkpointCoordinator = getCheckpointCoordinator(graph);
+
+        long checkpointId1 = completeCheckpoint(checkpointCoordinator, graph, attemptID, true);
+        long checkpointId2 = completeCheckpoint(checkpointCoordinator, graph, attemptID, false);
+        assertTrue(gateway.getNotifiedCompletedCheckpoints(attemptID).isEmpty());
+
+        // the second checkpoint becomes remote durable together with the first one
+        checkpointCoordinator.receiveRemoteDurableAcknowledgement(checkpointId1, attemptID);
+        List<CheckpointCoordinatorTestingUtils.NotifiedCheckpoint> notifiedCheckpoints =
+                gateway.getNotifiedCompletedCheckpoints(attemptID);
+        assertEquals(2, notifiedCheckpoints.size());
+        assertEquals(checkpointId1, notifiedCheckpoints.get(0).checkpointId);
+        assertEquals(checkpointId2, notifiedCheckpoints.get(1).checkpointId);
+
+        // the completion of a checkpoint whose uploads are lost is never notified
+        long checkpointId3 = completeCheckpoint(checkpointCoordinator, graph, attemptID, true);
+        assertEquals(
+                OptionalLong.of(checkpointId2),
+                checkpointCoordinator.restoreLatestCheckpointedStateToSubtasks(
+                        Collections.emptySet()));
+        checkpointCoordinator.receiveRemoteDurableAcknowledgement(checkpointId3, attemptID);
+        assertEquals(2, gateway.getNotifiedCompletedCheckpoints(attemptID).size());
+
+        checkpointCoordinator.shutdown();
+    }
+
+    @Test
+    public void testRestoreFailsIfNoCheckpointIsRemoteDurable() throws Exception {
+        JobVertexID jobVertexID = new JobVertexID();
+        ExecutionGraph graph =
+                new CheckpointCoordinatorTestingUtils.CheckpointExecutionGraphBuilder()
+                        .addJobVertex(jobVertexID)
+                        .build();
+        ExecutionAttemptID attemptID =
+                graph.getJobVertex(jobVertexID)
+                        .getTaskVertices()[0]
+                        .getCurrentExecutionAttempt()
+                        .getAttemptId();
+        CheckpointCoordinator checkpointCoordinator = getCheckpointCoordinator(graph);
+
+        long checkpointId = completeCheckpoint(checkpointCoordinator, graph, attemptID, true);
+
+        try {
+            checkpointCoordinator.restoreLatestCheckpointedStateToSubtasks(Collections.emptySet());
+            fail("Restored a checkpoint whose state was not completely uploaded.");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("checkpoint " + checkpointId));
+        }
+
+        checkpointCoordinator.shutdown();
+    }
+
+    @Test
+    public void testRecoveredCheckpointsWithPendingUploadMarkerAreNotRemoteDurable()
+            throws Exception {
+        StandaloneCompletedCheckpointStore store = new StandaloneCompletedCheckpointStore(3);
+        List<CompletedCheckpoint> checkpoints = new ArrayList<>();
+        for (long checkpointId = 1; checkpointId <= 3; checkpointId++) {
+            CompletedCheckpoint checkpoint = createCheckpointWithFileMetadata(checkpointId);
+            checkpoints.add(checkpoint);
+            store.addCheckpointAndSubsumeOldestOne(checkpoint, new CheckpointsCleaner(), () -> {});
+        }
+        // the second checkpoint was not remote durable before the failover
+        PendingRemoteUploadMarker.write(checkpoints.get(1));
+
+        CheckpointCoordinator checkpointCoordinator =
+                new CheckpointCoordinatorBuilder()
+                        .setCompletedCheckpointStore(store)
+                        .setTimer(manuallyTriggeredScheduledExecutor)
+                        .build();
+
+        assertTrue(checkpoints.get(0).isRemoteDurable());
+        assertFalse(checkpoints.get(1).isRemoteDurable());
+        assertFalse(checkpoints.get(2).isRemoteDurable());
+        assertEquals(1L, checkpointCoordinator.getLatestRemoteDurableCheckpointId());
+        assertEquals(
+                OptionalLong.of(1L),
+                checkpointCoordinator.restoreLatestCheckpointedStateToSubtasks(
+                        Collections.emptySet()));
+
+        // the marker does not keep the checkpoint directory from being disposed
+        File checkpointDirectory =
+                new File(checkpoints.get(1).getExternalPointer()).getAbsoluteFile();
+        checkpoints.get(1).markAsDiscarded().discard();
+        assertFalse(checkpointDirectory.exists());
+
+        checkpointCoordinator.shutdown();
+    }
+
+    private long completeCheckpoint(
+            CheckpointCoordinator checkpointCoordinator,
+            ExecutionGraph graph,
+            ExecutionAttemptID attemptID,
+            boolean remoteUploadPending)
+            throws Exception {
+        checkpointCoordinator.triggerCheckpoint(false);
+        manuallyTriggeredScheduledExecutor.triggerAll();
+        long checkpointId =
+                checkpointCoordinator.getPendingCheckpoints().keySet().iterator().next();
+        CheckpointMetrics metrics =
+                new CheckpointMetricsBuilder()
+                        .setTotalBytesPersisted(0)
+                        .setBytesPersistedOfThisCheckpoint(0)
+                        .setRemoteUploadPending(remoteUploadPending)
+                        .buildIncomplete();
+        checkpointCoordinator.receiveAcknowledgeMessage(
+                new AcknowledgeCheckpoint(graph.getJobID(), attemptID, checkpointId, metrics, null),
+                TASK_MANAGER_LOCATION_INFO);
+        return checkpointId;
+    }
+
+    private CompletedCheckpoint createCheckpointWithFileMetadata(long checkpointId)
+            throws IOException {
+        File checkpointDirectory = tmpFolder.newFolder("chk-" + checkpointId);
+        File metadataFile = new File(checkpointDirectory, "_metadata");
+        assertTrue(metadataFile.createNewFile());
+        Path checkpointPath = Path.fromLocalFile(checkpointDirectory);
+        return new CompletedCheckpoint(
+                new JobID(),
+                checkpointId,
+                0,
+                0,
+                Collections.emptyMap(),
+                Collections.emptyList(),
+                CheckpointProperties.forCheckpoint(
+                        CheckpointRetentionPolicy.NEVER_RETAIN_AFTER_TERMINATION),
+                new FsCompletedCheckpointStorageLocation(
+                        FileSystem.getLocalFileSystem(),
+                        checkpointPath,
+                        new FileStateHandle(Path.fromLocalFile(metadataFile), 0),
+                        checkpointDirectory.getPath()),
+                null);
+    }
+
     @Test
     public void testMultipleConcurrentCheckpoints() throws Exception {
         JobVertexID jobVertexID1 = new JobVertexID();
@@ -17,18 +17,23 @@
 
 package org.apache.flink.runtime.checkpoint.channel;
 
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.time.Deadline;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter.ChannelStateWriteResult;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.testutils.CommonTestUtils;
 import org.apache.flink.util.function.BiConsumerWithException;
 import org.apache.flink.util.function.RunnableWithException;
 
 import org.junit.Test;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.concurrent.ConcurrentHashMap;
@@ -37,6 +42,7 @@ import java.util.function.Consumer;
 import static org.apache.flink.runtime.state.ChannelPersistenceITCase.getStreamFactoryFactory;
 import static org.apache.flink.util.CloseableIterator.ofElements;
 import static org.apache.flink.util.ExceptionUtils.findThrowable;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -116,6 +122,35 @@ public class ChannelStateWriterImplTest {
                 });
     }
 
+    @Test
+    public void testSubtasksShareExecutors() throws Exception {
+        JobID jobID = new JobID();
+        JobVertexID jobVertexID = new JobVertexID();
+        try (ChannelStateWriterImpl writer1 = openSharedWriter(jobID, jobVertexID, 0);
+                ChannelStateWriterImpl writer2 = openSharedWriter(jobID, jobVertexID, 1);
+                ChannelStateWriterImpl writer3 = openSharedWriter(jobID, jobVertexID, 2)) {
+            assertEquals(
+                    2,
+                    ChannelStateWriteRequestExecutorFactory.getNumberOfExecutors(
+                            jobID, jobVertexID));
+
+            callStart(writer1);
+            ChannelStateWriteResult result = writer1.getAndRemoveWriteResult(CHECKPOINT_ID);
+            callAddInputData(writer1, getBuffer());
+            callFinish(writer1);
+            // the file is shared with the second subtask, which doesn't write anything
+            writer2.skipCheckpoint(CHECKPOINT_ID);
+
+            assertEquals(1, result.getInputChannelStateHandles().get().size());
+            CommonTestUtils.waitUntilCondition(
+                    () -> writer1.getLastCheckpointSize() > 0,
+                    Deadline.fromNow(Duration.ofMinutes(1)));
+        }
+        assertEquals(
+                0,
+                ChannelStateWriteRequestExecutorFactory.getNumberOfExecutors(jobID, jobVertexID));
+    }
+
     @Test
     public void testAbortIgnoresMissing() throws Exception {
         runWithSyncWorker(this::callAbort);
@@ -313,6 +348,15 @@ public class ChannelStateWriterImplTest {
         return writer;
     }
 
+    private ChannelStateWriterImpl openSharedWriter(
+            JobID jobID, JobVertexID jobVertexID, int subtaskIndex) {
+        ChannelStateWriterImpl writer =
+                new ChannelStateWriterImpl(
+                        jobID, jobVertexID, TASK_NAME, subtaskIndex, getStreamFactoryFactory(), 2);
+        writer.open();
+        return writer;
+    }
+
     private void callStart(ChannelStateWriter writer) {
         writer.start(CHECKPOINT_ID, CheckpointOptions.forCheckpointWithDefaultLocation());
     }
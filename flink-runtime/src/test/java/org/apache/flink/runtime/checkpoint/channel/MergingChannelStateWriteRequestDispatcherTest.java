@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.checkpoint.channel;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter.ChannelStateWriteResult;
+import org.apache.flink.runtime.checkpoint.channel.MergingChannelStateWriteRequestDispatcher.RegisterSubtaskRequest;
+import org.apache.flink.runtime.checkpoint.channel.MergingChannelStateWriteRequestDispatcher.ReleaseSubtaskRequest;
+import org.apache.flink.runtime.checkpoint.channel.MergingChannelStateWriteRequestDispatcher.SubtaskRequest;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
+import org.apache.flink.runtime.state.CheckpointStorageLocationReference;
+import org.apache.flink.runtime.state.InputChannelStateHandle;
+import org.apache.flink.runtime.state.ResultSubpartitionStateHandle;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.filesystem.FileStateHandle;
+import org.apache.flink.runtime.state.filesystem.FsCheckpointStorageAccess;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+
+import static org.apache.flink.util.CloseableIterator.ofElements;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/** {@link MergingChannelStateWriteRequestDispatcher} test. */
+public class MergingChannelStateWriteRequestDispatcherTest {
+    private static final long CHECKPOINT_ID = 1L;
+    private static final String SUBTASK_1 = "subtask 1";
+    private static final String SUBTASK_2 = "subtask 2";
+
+    @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FsCheckpointStorageAccess storage;
+    private MergingChannelStateWriteRequestDispatcher dispatcher;
+
+    @Before
+    public void setUp() throws Exception {
+        storage =
+                new FsCheckpointStorageAccess(
+                        Path.fromLocalFile(temporaryFolder.newFolder()),
+                        null,
+                        new JobID(),
+                        0,
+                        4096);
+        storage.initializeBaseLocationsForCheckpoint();
+        storage.initializeLocationForCheckpoint(CHECKPOINT_ID);
+        dispatcher = new MergingChannelStateWriteRequestDispatcher();
+        dispatcher.dispatch(new RegisterSubtaskRequest(SUBTASK_1, "test", 0, storage));
+        dispatcher.dispatch(new RegisterSubtaskRequest(SUBTASK_2, "test", 1, storage));
+    }
+
+    @Test
+    public void testSubtasksShareOneFile() throws Exception {
+        ChannelStateWriteResult result1 = start(SUBTASK_1);
+        ChannelStateWriteResult result2 = start(SUBTASK_2);
+        InputChannelInfo inputChannel = new InputChannelInfo(0, 0);
+        ResultSubpartitionInfo subpartition = new ResultSubpartitionInfo(0, 0);
+
+        dispatch(
+                SUBTASK_1,
+                ChannelStateWriteRequest.write(
+                        CHECKPOINT_ID,
+                        inputChannel,
+                        ofElements(Buffer::recycleBuffer, buffer(10))));
+        dispatch(
+                SUBTASK_2, ChannelStateWriteRequest.write(CHECKPOINT_ID, subpartition, buffer(20)));
+        finish(SUBTASK_1);
+        assertFalse(result1.isDone());
+
+        finish(SUBTASK_2);
+        assertTrue(result1.isDone());
+        assertTrue(result2.isDone());
+
+        InputChannelStateHandle inputHandle =
+                result1.getInputChannelStateHandles().get().iterator().next();
+        ResultSubpartitionStateHandle outputHandle =
+                result2.getResultSubpartitionStateHandles().get().iterator().next();
+        assertTrue(inputHandle.getDelegate() instanceof FileStateHandle);
+        assertEquals(inputHandle.getDelegate(), outputHandle.getDelegate());
+        assertNotEquals(inputHandle.getOffsets(), outputHandle.getOffsets());
+        assertEquals(10, readLength(inputHandle.getDelegate(), inputHandle.getOffsets().get(0)));
+        assertEquals(20, readLength(outputHandle.getDelegate(), outputHandle.getOffsets().get(0)));
+    }
+
+    @Test
+    public void testSkippedSubtaskDoesNotBlockFile() throws Exception {
+        ChannelStateWriteResult result = start(SUBTASK_1);
+        writeAndFinish(SUBTASK_1);
+        assertFalse(result.isDone());
+
+        dispatch(SUBTASK_2, ChannelStateWriteRequest.skip(CHECKPOINT_ID));
+        assertEquals(1, result.getInputChannelStateHandles().get().size());
+    }
+
+    @Test
+    public void testLaterCheckpointUnblocksFile() throws Exception {
+        ChannelStateWriteResult result = start(SUBTASK_1);
+        writeAndFinish(SUBTASK_1);
+        assertFalse(result.isDone());
+
+        // the next checkpoint of the other subtask means that it is done with the previous ones
+        storage.initializeLocationForCheckpoint(CHECKPOINT_ID + 1);
+        dispatch(
+                SUBTASK_2,
+                ChannelStateWriteRequest.start(
+                        CHECKPOINT_ID + 1,
+                        new ChannelStateWriteResult(),
+                        CheckpointStorageLocationReference.getDefault()));
+        assertEquals(1, result.getInputChannelStateHandles().get().size());
+    }
+
+    @Test
+    public void testReleasedSubtaskDoesNotBlockFile() throws Exception {
+        ChannelStateWriteResult result1 = start(SUBTASK_1);
+        ChannelStateWriteResult result2 = start(SUBTASK_2);
+        writeAndFinish(SUBTASK_1);
+        assertFalse(result1.isDone());
+
+        dispatcher.dispatch(new ReleaseSubtaskRequest(SUBTASK_2));
+        assertEquals(1, result1.getInputChannelStateHandles().get().size());
+        assertTrue(result2.getInputChannelStateHandles().isCompletedExceptionally());
+    }
+
+    @Test
+    public void testFailCompletesWaitingSubtasks() throws Exception {
+        ChannelStateWriteResult result = start(SUBTASK_1);
+        writeAndFinish(SUBTASK_1);
+        assertFalse(result.isDone());
+
+        dispatcher.fail(new CancellationException());
+        assertTrue(result.getInputChannelStateHandles().isCompletedExceptionally());
+    }
+
+    private ChannelStateWriteResult start(String subtask) throws Exception {
+        ChannelStateWriteResult result = new ChannelStateWriteResult();
+        dispatch(
+                subtask,
+                ChannelStateWriteRequest.start(
+                        CHECKPOINT_ID, result, CheckpointStorageLocationReference.getDefault()));
+        return result;
+    }
+
+    private void writeAndFinish(String subtask) throws Exception {
+        dispatch(
+                subtask,
+                ChannelStateWriteRequest.write(
+                        CHECKPOINT_ID,
+                        new InputChannelInfo(0, 0),
+                        ofElements(Buffer::recycleBuffer, buffer(10))));
+        finish(subtask);
+    }
+
+    private void finish(String subtask) throws Exception {
+        dispatch(subtask, ChannelStateWriteRequest.completeInput(CHECKPOINT_ID));
+        dispatch(subtask, ChannelStateWriteRequest.completeOutput(CHECKPOINT_ID));
+    }
+
+    private void dispatch(String subtask, ChannelStateWriteRequest request) throws Exception {
+        dispatcher.dispatch(new SubtaskRequest(subtask, request));
+    }
+
+    private static int readLength(StreamStateHandle handle, long offset) throws IOException {
+        try (FSDataInputStream stream = handle.openInputStream()) {
+            stream.seek(offset);
+            return new DataInputStream(stream).readInt();
+        }
+    }
+
+    private static NetworkBuffer buffer(int size) {
+        return new NetworkBuffer(
+                MemorySegmentFactory.allocateUnpooledSegment(size),
+                FreeingBufferRecycler.INSTANCE,
+                Buffer.DataType.DATA_BUFFER,
+                size);
+    }
+}
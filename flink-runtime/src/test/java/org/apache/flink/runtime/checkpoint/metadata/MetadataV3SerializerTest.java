@@ -28,12 +28,14 @@ import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
 import org.apache.flink.runtime.checkpoint.MasterState;
 import org.apache.flink.runtime.checkpoint.OperatorState;
 import org.apache.flink.runtime.state.ChangelogTestUtils;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.changelog.ChangelogStateBackendHandle;
 import org.apache.flink.runtime.state.changelog.ChangelogStateBackendHandle.ChangelogStateBackendHandleImpl;
+import org.apache.flink.runtime.state.filemerging.SegmentFileStateHandle;
 import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
 
 import org.junit.Rule;
@@ -287,6 +289,26 @@ public class MetadataV3SerializerTest {
         }
     }
 
+    @Test
+    public void testSerializeSegmentFileStateHandle() throws IOException {
+        SegmentFileStateHandle segment =
+                new SegmentFileStateHandle(
+                        new Path("file:///checkpoints/shared/physical-file"),
+                        4096L,
+                        123L,
+                        CheckpointedStateScope.SHARED);
+        try (ByteArrayOutputStreamWithPos out = new ByteArrayOutputStreamWithPos()) {
+            MetadataV2V3SerializerBase.serializeStreamStateHandle(
+                    segment, new DataOutputStream(out));
+            try (ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray())) {
+                StreamStateHandle handle =
+                        MetadataV2V3SerializerBase.deserializeStreamStateHandle(
+                                new DataInputStream(in), null);
+                assertEquals(segment, handle);
+            }
+        }
+    }
+
     @Test
     public void testSerializeIncrementalChangelogStateBackendHandle() throws IOException {
         testSerializeChangelogStateBackendHandle(false);
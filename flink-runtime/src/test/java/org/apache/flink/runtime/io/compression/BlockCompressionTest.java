@@ -23,7 +23,9 @@ import org.junit.Test;
 
 import java.nio.ByteBuffer;
 
-import static org.apache.flink.runtime.io.compression.Lz4BlockCompressionFactory.HEADER_LENGTH;
+import static org.apache.flink.runtime.io.compression.CompressorUtils.HEADER_LENGTH;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 
 /** Tests for block compression. */
@@ -31,7 +33,33 @@ public class BlockCompressionTest {
 
     @Test
     public void testLz4() {
-        BlockCompressionFactory factory = new Lz4BlockCompressionFactory();
+        runTests(new Lz4BlockCompressionFactory());
+    }
+
+    @Test
+    public void testZstd() {
+        runTests(AirCompressorFactory.zstd());
+    }
+
+    @Test
+    public void testSnappy() {
+        runTests(AirCompressorFactory.snappy());
+    }
+
+    @Test
+    public void testCreateBlockCompressionFactoryByName() {
+        assertThat(
+                BlockCompressionFactory.createBlockCompressionFactory("lz4"),
+                instanceOf(Lz4BlockCompressionFactory.class));
+        assertThat(
+                BlockCompressionFactory.createBlockCompressionFactory("ZSTD"),
+                instanceOf(AirCompressorFactory.class));
+        assertThat(
+                BlockCompressionFactory.createBlockCompressionFactory("SNAPPY"),
+                instanceOf(AirCompressorFactory.class));
+    }
+
+    private void runTests(BlockCompressionFactory factory) {
         runArrayTest(factory, 32768);
         runArrayTest(factory, 16);
 
@@ -68,6 +68,8 @@ public class NettyShuffleEnvironmentBuilder {
 
     private boolean connectionReuseEnabled = true;
 
+    private boolean connectionStripingByChannelEnabled = false;
+
     private String compressionCodec = "LZ4";
 
     private ResourceID taskManagerLocation = ResourceID.generate();
@@ -158,6 +160,12 @@ public class NettyShuffleEnvironmentBuilder {
         return this;
     }
 
+    public NettyShuffleEnvironmentBuilder setConnectionStripingByChannelEnabled(
+            boolean connectionStripingByChannelEnabled) {
+        this.connectionStripingByChannelEnabled = connectionStripingByChannelEnabled;
+        return this;
+    }
+
     public NettyShuffleEnvironmentBuilder setCompressionCodec(String compressionCodec) {
         this.compressionCodec = compressionCodec;
         return this;
@@ -215,9 +223,12 @@ public class NettyShuffleEnvironmentBuilder {
                         batchShuffleReadMemoryBytes,
                         sortShuffleMinBuffers,
                         sortShuffleMinParallelism,
+                        false,
+                        1,
                         debloatConfiguration,
                         maxNumberOfConnections,
-                        connectionReuseEnabled),
+                        connectionReuseEnabled,
+                        connectionStripingByChannelEnabled),
                 taskManagerLocation,
                 new TaskEventDispatcher(),
                 resultPartitionManager,
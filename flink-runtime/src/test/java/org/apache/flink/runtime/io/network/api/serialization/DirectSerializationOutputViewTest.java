@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.api.serialization;
+
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for the {@link DirectSerializationOutputView}. */
+public class DirectSerializationOutputViewTest {
+
+    @Test
+    public void testWriteIntoSegment() throws IOException {
+        MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(64);
+        DataOutputSerializer serializer = new DataOutputSerializer(16);
+        DirectSerializationOutputView view = new DirectSerializationOutputView();
+
+        view.reset(segment, 8, 40, serializer);
+        writeValues(view);
+
+        assertFalse(view.isOverflowed());
+        assertEquals(29, view.getWrittenBytes());
+        assertEquals(0, serializer.length());
+
+        byte[] bytes = new byte[view.getWrittenBytes()];
+        segment.get(8, bytes);
+        verifyValues(new DataInputDeserializer(bytes));
+    }
+
+    @Test
+    public void testOverflowToSerializer() throws IOException {
+        MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(64);
+        DataOutputSerializer serializer = new DataOutputSerializer(16);
+        DirectSerializationOutputView view = new DirectSerializationOutputView();
+
+        // the byte array does not fit anymore
+        view.reset(segment, 8, 20, serializer);
+        writeValues(view);
+
+        assertTrue(view.isOverflowed());
+        assertEquals(29, serializer.length());
+        verifyValues(new DataInputDeserializer(serializer.getCopyOfBuffer()));
+
+        // the view is reusable for the next record
+        view.reset(segment, 8, 40, serializer);
+        view.writeUTF("flink");
+        assertTrue(view.isOverflowed());
+        DataOutputSerializer expected = new DataOutputSerializer(16);
+        expected.writeUTF("flink");
+        assertArrayEquals(expected.getCopyOfBuffer(), serializer.getCopyOfBuffer());
+    }
+
+    private static void writeValues(DirectSerializationOutputView view) throws IOException {
+        view.writeInt(42);
+        view.writeBoolean(true);
+        view.writeShort(7);
+        view.write(new byte[] {1, 2, 3, 4, 5, 6});
+        view.writeLong(Long.MAX_VALUE);
+        view.writeDouble(0.5);
+    }
+
+    private static void verifyValues(DataInputDeserializer input) throws IOException {
+        assertEquals(42, input.readInt());
+        assertTrue(input.readBoolean());
+        assertEquals(7, input.readShort());
+        byte[] bytes = new byte[6];
+        input.readFully(bytes);
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6}, bytes);
+        assertEquals(Long.MAX_VALUE, input.readLong());
+        assertEquals(0.5, input.readDouble(), 0.0);
+        assertEquals(0, input.available());
+    }
+}
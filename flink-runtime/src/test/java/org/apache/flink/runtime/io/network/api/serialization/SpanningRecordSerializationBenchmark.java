@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.api.serialization;
+
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.api.writer.RecordWriter;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
+import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.testutils.serialization.types.SerializationTestType;
+import org.apache.flink.testutils.serialization.types.SerializationTestTypeFactory;
+import org.apache.flink.testutils.serialization.types.Util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Benchmark of the record serialization path between {@link RecordWriter#serializeRecord} and the
+ * {@link SpillingAdaptiveSpanningRecordDeserializer}, executed by the external <a
+ * href="https://github.com/dataArtisans/flink-benchmarks">flink-benchmarks</a> project.
+ *
+ * <p>Records are appended to network buffers of the configured size and handed to the deserializer
+ * as soon as a buffer is full, so that choosing a buffer size smaller than or unaligned to the
+ * record size exercises records spanning buffer boundaries. The memory segments are recycled into a
+ * small local pool to keep allocations out of the measurement.
+ */
+public class SpanningRecordSerializationBenchmark {
+
+    private final ArrayDeque<MemorySegment> segments = new ArrayDeque<>();
+
+    private final BufferRecycler recycler = segments::add;
+
+    private final DataOutputSerializer serializer = new DataOutputSerializer(128);
+
+    private List<SerializationTestType> records;
+
+    private SerializationTestType target;
+
+    private RecordDeserializer<SerializationTestType> deserializer;
+
+    private int bufferSize;
+
+    private int numAllocatedSegments;
+
+    public void setUp(
+            SerializationTestTypeFactory recordType,
+            int numRecords,
+            int bufferSize,
+            String[] tmpDirectories)
+            throws Exception {
+        this.records = new ArrayList<>(numRecords);
+        for (SerializationTestType record : Util.randomRecords(numRecords, recordType)) {
+            records.add(record);
+        }
+        this.target = recordType.factory().getClass().getDeclaredConstructor().newInstance();
+        this.deserializer = new SpillingAdaptiveSpanningRecordDeserializer<>(tmpDirectories);
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Serializes all records into network buffers and deserializes them again.
+     *
+     * @return the number of deserialized records
+     */
+    public int serializeAndDeserializeRecords() throws IOException {
+        int numDeserializedRecords = 0;
+
+        BufferBuilder bufferBuilder = requestBufferBuilder();
+        BufferConsumer bufferConsumer = bufferBuilder.createBufferConsumer();
+        for (SerializationTestType record : records) {
+            serializer.clear();
+            ByteBuffer serializedRecord = RecordWriter.serializeRecord(serializer, record);
+            bufferBuilder.appendAndCommit(serializedRecord);
+
+            while (bufferBuilder.isFull()) {
+                numDeserializedRecords += deserializeRecords(bufferConsumer.build());
+                bufferConsumer.close();
+                bufferBuilder.close();
+
+                bufferBuilder = requestBufferBuilder();
+                bufferConsumer = bufferBuilder.createBufferConsumer();
+                bufferBuilder.appendAndCommit(serializedRecord);
+            }
+        }
+
+        numDeserializedRecords += deserializeRecords(bufferConsumer.build());
+        bufferConsumer.close();
+        bufferBuilder.close();
+        return numDeserializedRecords;
+    }
+
+    private int deserializeRecords(Buffer buffer) throws IOException {
+        int numFullRecords = 0;
+        deserializer.setNextBuffer(buffer);
+
+        RecordDeserializer.DeserializationResult result;
+        do {
+            result = deserializer.getNextRecord(target);
+            if (result.isFullRecord()) {
+                numFullRecords++;
+            }
+        } while (!result.isBufferConsumed());
+        return numFullRecords;
+    }
+
+    private BufferBuilder requestBufferBuilder() {
+        MemorySegment segment = segments.poll();
+        if (segment == null) {
+            segment = MemorySegmentFactory.allocateUnpooledSegment(bufferSize);
+            numAllocatedSegments++;
+        }
+        return new BufferBuilder(segment, recycler);
+    }
+
+    public void tearDown() {
+        deserializer.clear();
+        checkState(segments.size() == numAllocatedSegments, "Network buffers have been leaked.");
+        segments.clear();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.api.serialization;
+
+import org.apache.flink.testutils.serialization.types.SerializationTestTypeFactory;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tests for the {@link SpanningRecordSerializationBenchmark}. */
+public class SpanningRecordSerializationBenchmarkTest extends TestLogger {
+
+    @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void alignedRecords() throws Exception {
+        testSerializeAndDeserializeRecords(SerializationTestTypeFactory.INT, 64);
+    }
+
+    @Test
+    public void recordsSpanningBuffers() throws Exception {
+        testSerializeAndDeserializeRecords(SerializationTestTypeFactory.LONG, 7);
+    }
+
+    @Test
+    public void stringRecordsSpanningBuffers() throws Exception {
+        testSerializeAndDeserializeRecords(SerializationTestTypeFactory.STRING, 31);
+    }
+
+    private void testSerializeAndDeserializeRecords(
+            SerializationTestTypeFactory recordType, int bufferSize) throws Exception {
+        final int numRecords = 1000;
+
+        SpanningRecordSerializationBenchmark benchmark = new SpanningRecordSerializationBenchmark();
+        benchmark.setUp(
+                recordType,
+                numRecords,
+                bufferSize,
+                new String[] {tempFolder.getRoot().getAbsolutePath()});
+        try {
+            assertEquals(numRecords, benchmark.serializeAndDeserializeRecords());
+            assertEquals(numRecords, benchmark.serializeAndDeserializeRecords());
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+}
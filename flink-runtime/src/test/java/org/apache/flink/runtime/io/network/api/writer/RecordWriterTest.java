@@ -36,10 +36,12 @@ import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilderTestUtils;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.partition.MockResultPartitionWriter;
 import org.apache.flink.runtime.io.network.partition.NoOpBufferAvailablityListener;
 import org.apache.flink.runtime.io.network.partition.ResultPartition;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionBuilder;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.io.network.util.DeserializationUtils;
@@ -58,6 +60,10 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 import static org.apache.flink.runtime.io.network.partition.PartitionTestUtils.createPartition;
@@ -292,6 +298,193 @@ public class RecordWriterTest {
         }
     }
 
+    /**
+     * Tests that records emitted via {@link RecordWriter#emitBatch(List)} are received in order by
+     * each channel, including records spanning multiple buffers.
+     */
+    @Test
+    public void testEmitBatch() throws Exception {
+        testEmitBatch(false);
+    }
+
+    /** Tests that batches are also emitted correctly when serialized directly into the buffers. */
+    @Test
+    public void testEmitBatchWithDirectSerialization() throws Exception {
+        testEmitBatch(true);
+    }
+
+    private void testEmitBatch(boolean directSerialization) throws Exception {
+        final int numberOfChannels = 4;
+        // not a multiple of the serialized record size so that some records span two buffers
+        final int bufferSize = 30;
+        final int numValues = 50;
+
+        final ResultPartition partition = createResultPartition(bufferSize, numberOfChannels);
+        final ChannelSelector<SerializationTestType> channelSelector =
+                new HashCodeChannelSelector<>();
+        channelSelector.setup(numberOfChannels);
+        final RecordWriter<SerializationTestType> writer;
+        if (isBroadcastWriter && !directSerialization) {
+            writer = createRecordWriter(partition);
+        } else {
+            final RecordWriterBuilder<SerializationTestType> builder =
+                    new RecordWriterBuilder<SerializationTestType>()
+                            .setDirectSerialization(directSerialization);
+            if (isBroadcastWriter) {
+                builder.setChannelSelector(new OutputEmitter(ShipStrategyType.BROADCAST, 0));
+            } else {
+                builder.setChannelSelector(new HashCodeChannelSelector<>());
+            }
+            writer = builder.build(partition);
+        }
+
+        final List<ArrayDeque<SerializationTestType>> expectedRecords = new ArrayList<>();
+        for (int i = 0; i < numberOfChannels; i++) {
+            expectedRecords.add(new ArrayDeque<>());
+        }
+        final List<SerializationTestType> records = new ArrayList<>();
+        for (SerializationTestType record :
+                Util.randomRecords(numValues, SerializationTestTypeFactory.INT)) {
+            records.add(record);
+            if (isBroadcastWriter) {
+                expectedRecords.forEach(expected -> expected.add(record));
+            } else {
+                expectedRecords.get(channelSelector.selectChannel(record)).add(record);
+            }
+        }
+
+        writer.emitBatch(records);
+        writer.flushAll();
+
+        for (int i = 0; i < numberOfChannels; i++) {
+            final ArrayDeque<SerializationTestType> expected = expectedRecords.get(i);
+            final int numExpectedRecords = expected.size();
+            final RecordDeserializer<SerializationTestType> deserializer =
+                    new SpillingAdaptiveSpanningRecordDeserializer<>(
+                            new String[] {tempFolder.getRoot().getAbsolutePath()});
+            final ResultSubpartitionView view =
+                    partition.createSubpartitionView(i, new NoOpBufferAvailablityListener());
+
+            int numRecords = 0;
+            ResultSubpartition.BufferAndBacklog bufferAndBacklog;
+            while ((bufferAndBacklog = view.getNextBuffer()) != null) {
+                deserializer.setNextBuffer(bufferAndBacklog.buffer());
+                numRecords += DeserializationUtils.deserializeRecords(expected, deserializer);
+            }
+            assertEquals(numExpectedRecords, numRecords);
+            assertTrue(expected.isEmpty());
+        }
+    }
+
+    /**
+     * Tests that records serialized directly into the network buffers are received in order by each
+     * channel, including records which do not fit into the current buffer.
+     */
+    @Test
+    public void testEmitWithDirectSerialization() throws Exception {
+        final int numberOfChannels = 4;
+        // not a multiple of the serialized record size so that some records span two buffers
+        final int bufferSize = 30;
+        final int numValues = 50;
+
+        final ResultPartition partition = createResultPartition(bufferSize, numberOfChannels);
+        final ChannelSelector<SerializationTestType> channelSelector =
+                new HashCodeChannelSelector<>();
+        channelSelector.setup(numberOfChannels);
+        final RecordWriterBuilder<SerializationTestType> builder =
+                new RecordWriterBuilder<SerializationTestType>().setDirectSerialization(true);
+        if (isBroadcastWriter) {
+            builder.setChannelSelector(new OutputEmitter(ShipStrategyType.BROADCAST, 0));
+        } else {
+            builder.setChannelSelector(new HashCodeChannelSelector<>());
+        }
+        final RecordWriter<SerializationTestType> writer = builder.build(partition);
+
+        final List<ArrayDeque<SerializationTestType>> expectedRecords = new ArrayList<>();
+        for (int i = 0; i < numberOfChannels; i++) {
+            expectedRecords.add(new ArrayDeque<>());
+        }
+        for (SerializationTestType record :
+                Util.randomRecords(numValues, SerializationTestTypeFactory.INT)) {
+            if (isBroadcastWriter) {
+                expectedRecords.forEach(expected -> expected.add(record));
+            } else {
+                expectedRecords.get(channelSelector.selectChannel(record)).add(record);
+            }
+            writer.emit(record);
+        }
+        writer.flushAll();
+
+        for (int i = 0; i < numberOfChannels; i++) {
+            final ArrayDeque<SerializationTestType> expected = expectedRecords.get(i);
+            final int numExpectedRecords = expected.size();
+            final RecordDeserializer<SerializationTestType> deserializer =
+                    new SpillingAdaptiveSpanningRecordDeserializer<>(
+                            new String[] {tempFolder.getRoot().getAbsolutePath()});
+            final ResultSubpartitionView view =
+                    partition.createSubpartitionView(i, new NoOpBufferAvailablityListener());
+
+            int numRecords = 0;
+            ResultSubpartition.BufferAndBacklog bufferAndBacklog;
+            while ((bufferAndBacklog = view.getNextBuffer()) != null) {
+                deserializer.setNextBuffer(bufferAndBacklog.buffer());
+                numRecords += DeserializationUtils.deserializeRecords(expected, deserializer);
+            }
+            assertEquals(numExpectedRecords, numRecords);
+            assertTrue(expected.isEmpty());
+        }
+    }
+
+    /**
+     * Tests that a channel is flushed once the batches emitted to it since its last flush reach the
+     * batch flush threshold, without flushing the other channels.
+     */
+    @Test
+    public void testFlushChannelAfterBatchesReachThreshold() throws Exception {
+        testFlushChannelAfterBatchesReachThreshold(false);
+        testFlushChannelAfterBatchesReachThreshold(true);
+    }
+
+    private void testFlushChannelAfterBatchesReachThreshold(boolean directSerialization)
+            throws Exception {
+        final List<Integer> flushedChannels = new ArrayList<>();
+        final ResultPartitionWriter partition =
+                new MockResultPartitionWriter() {
+                    @Override
+                    public int getNumberOfSubpartitions() {
+                        return 2;
+                    }
+
+                    @Override
+                    public void flush(int subpartitionIndex) {
+                        flushedChannels.add(subpartitionIndex);
+                    }
+                };
+        // each serialized record takes 8 bytes, i.e. 40 bytes per batch
+        final List<IntValue> batch = Collections.nCopies(5, new IntValue(42));
+        final RecordWriter<IntValue> writer =
+                new RecordWriterBuilder<IntValue>()
+                        .setDirectSerialization(directSerialization)
+                        .setBatchFlushThreshold(100)
+                        .build(partition);
+
+        writer.emitBatch(batch, 0);
+        writer.emitBatch(batch, 1);
+        writer.emitBatch(batch, 0);
+        assertTrue(flushedChannels.isEmpty());
+
+        writer.emitBatch(batch, 0);
+        assertEquals(Collections.singletonList(0), flushedChannels);
+
+        // the flush starts counting the bytes of the channel from scratch
+        writer.emitBatch(batch, 0);
+        writer.emitBatch(batch, 1);
+        assertEquals(Collections.singletonList(0), flushedChannels);
+
+        writer.emitBatch(batch, 1);
+        assertEquals(Arrays.asList(0, 1), flushedChannels);
+    }
+
     /**
      * Tests that the RecordWriter is available iif the respective LocalBufferPool has at-least one
      * available buffer.
@@ -413,6 +606,27 @@ public class RecordWriterTest {
         }
     }
 
+    private static class HashCodeChannelSelector<T extends IOReadableWritable>
+            implements ChannelSelector<T> {
+
+        private int numberOfChannels;
+
+        @Override
+        public void setup(int numberOfChannels) {
+            this.numberOfChannels = numberOfChannels;
+        }
+
+        @Override
+        public int selectChannel(T record) {
+            return Math.abs(record.hashCode() % numberOfChannels);
+        }
+
+        @Override
+        public boolean isBroadcast() {
+            return false;
+        }
+    }
+
     private static class ByteArrayIO implements IOReadableWritable {
 
         private final byte[] bytes;
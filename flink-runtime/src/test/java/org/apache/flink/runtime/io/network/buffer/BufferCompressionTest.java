@@ -68,6 +68,18 @@ public class BufferCompressionTest {
                     {false, "LZ4", true, false},
                     {false, "LZ4", false, true},
                     {false, "LZ4", false, false},
+                    {true, "ZSTD", true, false},
+                    {true, "ZSTD", false, true},
+                    {true, "ZSTD", false, false},
+                    {false, "ZSTD", true, false},
+                    {false, "ZSTD", false, true},
+                    {false, "ZSTD", false, false},
+                    {true, "SNAPPY", true, false},
+                    {true, "SNAPPY", false, true},
+                    {true, "SNAPPY", false, false},
+                    {false, "SNAPPY", true, false},
+                    {false, "SNAPPY", false, true},
+                    {false, "SNAPPY", false, false},
                 });
     }
 
@@ -190,6 +202,20 @@ public class BufferCompressionTest {
         assertEquals(numBytes, compressedBuffer.readableBytes());
     }
 
+    @Test
+    public void testCompressionStatistics() {
+        assertEquals(1.0, compressor.getCompressionRatio(), 0.0);
+
+        Buffer compressedBuffer = compress(compressor, bufferToCompress, compressToOriginalBuffer);
+        assertTrue(compressedBuffer.isCompressed());
+
+        assertEquals(
+                BUFFER_SIZE / (double) compressedBuffer.readableBytes(),
+                compressor.getCompressionRatio(),
+                0.0);
+        assertTrue(compressor.getAccumulatedCompressionTimeMs() >= 0);
+    }
+
     private static Buffer createBufferAndFillWithLongValues(boolean isDirect) {
         MemorySegment segment;
         if (isDirect) {
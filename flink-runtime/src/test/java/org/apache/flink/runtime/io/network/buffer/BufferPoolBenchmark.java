@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemorySegment;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Benchmark of requesting and recycling network buffers, executed by the external <a
+ * href="https://github.com/dataArtisans/flink-benchmarks">flink-benchmarks</a> project.
+ *
+ * <p>It covers both ways buffers are handed out by the {@link NetworkBufferPool}: floating buffers
+ * via a {@link LocalBufferPool} as used by the result partitions and the input gates, and batches
+ * of exclusive segments as requested by the remote input channels.
+ */
+public class BufferPoolBenchmark {
+
+    private NetworkBufferPool networkBufferPool;
+
+    private BufferPool localBufferPool;
+
+    private Buffer[] buffers;
+
+    private int numExclusiveSegments;
+
+    /**
+     * Sets up a network buffer pool whose buffers are split evenly between a local buffer pool and
+     * exclusive segments.
+     */
+    public void setUp(int numBuffers, int bufferSize) throws IOException {
+        checkArgument(numBuffers >= 2, "At least two buffers are needed.");
+
+        int numLocalBuffers = numBuffers / 2;
+        numExclusiveSegments = numBuffers - numLocalBuffers;
+
+        networkBufferPool = new NetworkBufferPool(numBuffers, bufferSize);
+        localBufferPool = networkBufferPool.createBufferPool(numLocalBuffers, numLocalBuffers);
+        buffers = new Buffer[numLocalBuffers];
+    }
+
+    /**
+     * Requests all buffers of the local buffer pool and recycles them again.
+     *
+     * @return the number of requested buffers
+     */
+    public int requestAndRecycleBuffers() {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = localBufferPool.requestBuffer();
+            checkState(buffers[i] != null, "The local buffer pool is exhausted.");
+        }
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i].recycleBuffer();
+            buffers[i] = null;
+        }
+        return buffers.length;
+    }
+
+    /**
+     * Requests all exclusive segments from the network buffer pool in one batch and recycles them
+     * again.
+     *
+     * @return the number of requested segments
+     */
+    public int requestAndRecycleExclusiveSegments() throws IOException {
+        List<MemorySegment> segments =
+                networkBufferPool.requestUnpooledMemorySegments(numExclusiveSegments);
+        networkBufferPool.recycleUnpooledMemorySegments(segments);
+        return segments.size();
+    }
+
+    public void tearDown() {
+        localBufferPool.lazyDestroy();
+        networkBufferPool.destroyAllBufferPools();
+        networkBufferPool.destroy();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.io.network.ConnectionID;
+import org.apache.flink.runtime.io.network.PartitionRequestClient;
+import org.apache.flink.runtime.io.network.TestingConnectionManager;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.netty.NettyMessage.AddCredit;
+import org.apache.flink.runtime.io.network.netty.NettyMessage.BufferResponse;
+import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
+import org.apache.flink.runtime.io.network.partition.consumer.InputChannelBuilder;
+import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
+import org.apache.flink.runtime.io.network.partition.consumer.RemoteInputChannel;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGateBuilder;
+import org.apache.flink.runtime.io.network.util.TestBufferFactory;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.UnpooledByteBufAllocator;
+import org.apache.flink.shaded.netty4.io.netty.channel.embedded.EmbeddedChannel;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Optional;
+
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Benchmark of the credit announcement path on the consumer side of the credit-based network stack,
+ * executed by the external <a
+ * href="https://github.com/dataArtisans/flink-benchmarks">flink-benchmarks</a> project.
+ *
+ * <p>Each round decodes one {@link BufferResponse} per {@link RemoteInputChannel}, consumes and
+ * recycles the received buffers via the {@link SingleInputGate} and flushes the resulting {@link
+ * AddCredit} messages through the {@link CreditBasedPartitionRequestClientHandler}. The Netty
+ * channel is an {@link EmbeddedChannel}, so no real sockets are involved.
+ */
+public class CreditAnnouncementBenchmark {
+
+    private EmbeddedChannel channel;
+
+    private CreditBasedPartitionRequestClientHandler handler;
+
+    private NetworkBufferAllocator allocator;
+
+    private NetworkBufferPool networkBufferPool;
+
+    private SingleInputGate inputGate;
+
+    private RemoteInputChannel[] inputChannels;
+
+    private int bufferSize;
+
+    private int nextSequenceNumber;
+
+    public void setUp(int numChannels, int bufferSize) throws Exception {
+        this.bufferSize = bufferSize;
+
+        handler = new CreditBasedPartitionRequestClientHandler();
+        allocator = new NetworkBufferAllocator(handler);
+        channel = new EmbeddedChannel(handler);
+
+        ConnectionID connectionId =
+                new ConnectionID(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        NettyConfig config =
+                new NettyConfig(
+                        InetAddress.getLoopbackAddress(), 0, bufferSize, 1, new Configuration());
+        PartitionRequestClient client =
+                new NettyPartitionRequestClient(
+                        channel,
+                        handler,
+                        connectionId,
+                        new PartitionRequestClientFactory(new NettyClient(config), false));
+
+        networkBufferPool = new NetworkBufferPool(4 * numChannels, bufferSize);
+        inputGate =
+                new SingleInputGateBuilder()
+                        .setNumberOfChannels(numChannels)
+                        .setSegmentProvider(networkBufferPool)
+                        .build();
+        inputChannels = new RemoteInputChannel[numChannels];
+        for (int i = 0; i < numChannels; i++) {
+            inputChannels[i] =
+                    InputChannelBuilder.newBuilder()
+                            .setChannelIndex(i)
+                            .setConnectionManager(
+                                    new TestingConnectionManager() {
+                                        @Override
+                                        public PartitionRequestClient createPartitionRequestClient(
+                                                ConnectionID connectionId) {
+                                            return client;
+                                        }
+                                    })
+                            .buildRemoteChannel(inputGate);
+        }
+        inputGate.setInputChannels(inputChannels);
+        inputGate.setBufferPool(networkBufferPool.createBufferPool(numChannels, numChannels));
+        inputGate.setupChannels();
+        inputGate.requestPartitions();
+
+        // discard the partition requests
+        while (channel.readOutbound() != null) {}
+    }
+
+    /**
+     * Receives, consumes and recycles one buffer per input channel and flushes the announced
+     * credits.
+     *
+     * @return the number of announced credits
+     */
+    public int receiveBuffersAndAnnounceCredits() throws IOException, InterruptedException {
+        int sequenceNumber = nextSequenceNumber++;
+        for (RemoteInputChannel inputChannel : inputChannels) {
+            channel.pipeline()
+                    .fireChannelRead(
+                            createBufferResponse(inputChannel.getInputChannelId(), sequenceNumber));
+        }
+
+        for (int i = 0; i < inputChannels.length; i++) {
+            Optional<BufferOrEvent> bufferOrEvent = inputGate.pollNext();
+            checkState(bufferOrEvent.isPresent() && bufferOrEvent.get().isBuffer());
+            bufferOrEvent.get().getBuffer().recycleBuffer();
+        }
+
+        channel.runPendingTasks();
+
+        int numAnnouncedCredits = 0;
+        Object message;
+        while ((message = channel.readOutbound()) != null) {
+            checkState(message instanceof AddCredit, "Unexpected message %s.", message);
+            numAnnouncedCredits += ((AddCredit) message).credit;
+        }
+        return numAnnouncedCredits;
+    }
+
+    private BufferResponse createBufferResponse(InputChannelID receiverId, int sequenceNumber)
+            throws IOException {
+        BufferResponse response =
+                new BufferResponse(
+                        TestBufferFactory.createBuffer(bufferSize), sequenceNumber, receiverId, 0);
+        ByteBuf serialized = response.write(UnpooledByteBufAllocator.DEFAULT);
+        try {
+            // skip the frame header as the message decoder would do
+            serialized.skipBytes(NettyMessage.FRAME_HEADER_LENGTH);
+            return BufferResponse.readFrom(serialized, allocator);
+        } finally {
+            serialized.release();
+        }
+    }
+
+    public void tearDown() throws IOException {
+        inputGate.close();
+        channel.close();
+        networkBufferPool.destroyAllBufferPools();
+        networkBufferPool.destroy();
+    }
+}
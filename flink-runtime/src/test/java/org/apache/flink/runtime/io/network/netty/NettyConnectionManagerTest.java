@@ -26,12 +26,16 @@ import org.apache.flink.util.NetUtils;
 
 import org.apache.flink.shaded.netty4.io.netty.bootstrap.Bootstrap;
 import org.apache.flink.shaded.netty4.io.netty.bootstrap.ServerBootstrap;
+import org.apache.flink.shaded.netty4.io.netty.channel.ChannelOption;
 import org.apache.flink.shaded.netty4.io.netty.channel.EventLoopGroup;
+import org.apache.flink.shaded.netty4.io.netty.channel.WriteBufferWaterMark;
 
 import org.junit.Test;
 
 import java.lang.reflect.Field;
 import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -168,6 +172,53 @@ public class NettyConnectionManagerTest {
         }
     }
 
+    /** Tests that the TCP tuning options are applied to client and server connections. */
+    @Test
+    public void testTransportConfiguration() throws Exception {
+        Configuration flinkConfig = new Configuration();
+        flinkConfig.setBoolean(NettyShuffleEnvironmentOptions.TCP_NO_DELAY, false);
+        flinkConfig.setInteger(NettyShuffleEnvironmentOptions.WRITE_BUFFER_LOW_WATER_MARK, 1024);
+        flinkConfig.setInteger(NettyShuffleEnvironmentOptions.WRITE_BUFFER_HIGH_WATER_MARK, 4096);
+
+        NettyConnectionManager connectionManager;
+        try (NetUtils.Port port = NetUtils.getAvailablePort()) {
+            NettyConfig config =
+                    new NettyConfig(
+                            InetAddress.getLocalHost(), port.getPort(), 1024, 1, flinkConfig);
+
+            connectionManager = createNettyConnectionManager(config);
+            connectionManager.start();
+        }
+
+        try {
+            Map<ChannelOption<?>, Object> clientOptions =
+                    connectionManager.getClient().getBootstrap().config().options();
+            Map<ChannelOption<?>, Object> serverOptions =
+                    connectionManager.getServer().getBootstrap().config().childOptions();
+
+            for (Map<ChannelOption<?>, Object> options :
+                    Arrays.asList(clientOptions, serverOptions)) {
+                assertEquals(false, options.get(ChannelOption.TCP_NODELAY));
+                WriteBufferWaterMark waterMark =
+                        (WriteBufferWaterMark) options.get(ChannelOption.WRITE_BUFFER_WATER_MARK);
+                assertEquals(1024, waterMark.low());
+                assertEquals(4096, waterMark.high());
+            }
+        } finally {
+            connectionManager.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWriteBufferWaterMarks() throws Exception {
+        Configuration flinkConfig = new Configuration();
+        flinkConfig.setInteger(NettyShuffleEnvironmentOptions.WRITE_BUFFER_LOW_WATER_MARK, 4096);
+        flinkConfig.setInteger(NettyShuffleEnvironmentOptions.WRITE_BUFFER_HIGH_WATER_MARK, 1024);
+
+        new NettyConfig(InetAddress.getLocalHost(), 0, 1024, 1, flinkConfig)
+                .getWriteBufferWaterMark();
+    }
+
     private NettyConnectionManager createNettyConnectionManager(NettyConfig config) {
         return new NettyConnectionManager(
                 new ResultPartitionManager(), new TaskEventDispatcher(), config, 1, true);
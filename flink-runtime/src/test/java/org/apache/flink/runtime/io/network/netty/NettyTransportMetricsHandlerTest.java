@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.util.clock.ManualClock;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.Unpooled;
+import org.apache.flink.shaded.netty4.io.netty.channel.WriteBufferWaterMark;
+import org.apache.flink.shaded.netty4.io.netty.channel.embedded.EmbeddedChannel;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link NettyTransportMetricsHandler}. */
+public class NettyTransportMetricsHandlerTest {
+
+    @Test
+    public void testBytesAndFlushes() {
+        NettyTransportMetrics metrics = new NettyTransportMetrics();
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyTransportMetricsHandler(metrics));
+
+        channel.writeOutbound(Unpooled.wrappedBuffer(new byte[10]));
+        channel.write(Unpooled.wrappedBuffer(new byte[5]));
+        channel.flush();
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[7]));
+
+        assertEquals(15, metrics.getNumBytesWritten().getCount());
+        assertEquals(2, metrics.getNumFlushes().getCount());
+        assertEquals(7, metrics.getNumBytesRead().getCount());
+
+        releaseAll(channel);
+    }
+
+    @Test
+    public void testWriteStallTime() {
+        NettyTransportMetrics metrics = new NettyTransportMetrics();
+        ManualClock clock = new ManualClock();
+        EmbeddedChannel channel =
+                new EmbeddedChannel(new NettyTransportMetricsHandler(metrics, clock));
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 2));
+
+        channel.write(Unpooled.wrappedBuffer(new byte[10]));
+        channel.runPendingTasks();
+        assertFalse(channel.isWritable());
+
+        clock.advanceTime(Duration.ofMillis(10));
+        channel.flush();
+        channel.runPendingTasks();
+        assertTrue(channel.isWritable());
+
+        assertEquals(10, metrics.getWriteStallTimeMs().getCount());
+
+        releaseAll(channel);
+    }
+
+    private static void releaseAll(EmbeddedChannel channel) {
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            ((ByteBuf) msg).release();
+        }
+        while ((msg = channel.readInbound()) != null) {
+            ((ByteBuf) msg).release();
+        }
+        channel.close();
+    }
+}
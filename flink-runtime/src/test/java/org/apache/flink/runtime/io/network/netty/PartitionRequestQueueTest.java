@@ -280,6 +280,53 @@ public class PartitionRequestQueueTest {
         assertNull(channel.readOutbound());
     }
 
+    /**
+     * Tests that a reader notifying a priority event is moved to the head of the available readers,
+     * whether or not it was enqueued before, so that the event is not stuck behind the data of the
+     * other readers sharing the connection.
+     */
+    @Test
+    public void testEnqueueReaderByNotifyingPriorityEvent() throws Exception {
+        final PartitionRequestQueue queue = new PartitionRequestQueue();
+        final EmbeddedChannel channel = new EmbeddedChannel(queue);
+
+        // block the channel so that the readers stay in the queue
+        ByteBuf channelBlockingBuffer = blockChannel(channel);
+
+        final CreditBasedSequenceNumberingViewReader reader1 = createDataReader(queue, 2);
+        final CreditBasedSequenceNumberingViewReader reader2 = createDataReader(queue, 2);
+        // the third reader is not enqueued as it has no credits yet
+        final CreditBasedSequenceNumberingViewReader reader3 = createDataReader(queue, 0);
+        channel.runPendingTasks();
+        assertThat(queue.getAvailableReaders(), contains(reader1, reader2));
+
+        // an already enqueued reader jumps the queue
+        reader2.notifyPriorityEvent(0);
+        channel.runPendingTasks();
+        assertThat(queue.getAvailableReaders(), contains(reader2, reader1));
+
+        // a newly available reader is directly enqueued at the head
+        reader3.addCredit(1);
+        reader3.notifyPriorityEvent(0);
+        channel.runPendingTasks();
+        assertThat(queue.getAvailableReaders(), contains(reader3, reader2, reader1));
+
+        channel.flush();
+        assertSame(channelBlockingBuffer, channel.readOutbound());
+    }
+
+    private static CreditBasedSequenceNumberingViewReader createDataReader(
+            PartitionRequestQueue queue, int numCredits) throws IOException {
+        final ResultSubpartitionView view = new DefaultBufferResultSubpartitionView(10);
+        final CreditBasedSequenceNumberingViewReader reader =
+                new CreditBasedSequenceNumberingViewReader(new InputChannelID(), 2, queue);
+        reader.addCredit(numCredits - 2);
+        reader.requestSubpartitionView(
+                (partitionId, index, availabilityListener) -> view, new ResultPartitionID(), 0);
+        queue.notifyReaderCreated(reader);
+        return reader;
+    }
+
     private static class NextIsEventResultSubpartitionView extends NoOpResultSubpartitionView {
         @Override
         public AvailabilityWithBacklog getAvailabilityAndBacklog(int numCreditsAvailable) {
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.disk.FileChannelManager;
+import org.apache.flink.runtime.io.disk.FileChannelManagerImpl;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link HybridResultPartition} and {@link HybridSubpartition}. */
+public class HybridResultPartitionTest extends TestLogger {
+
+    private static final int bufferSize = 1024;
+
+    private static final int totalBuffers = 100;
+
+    private FileChannelManager fileChannelManager;
+
+    private NetworkBufferPool globalPool;
+
+    @Rule public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @Rule public Timeout timeout = new Timeout(60, TimeUnit.SECONDS);
+
+    @Before
+    public void setUp() {
+        fileChannelManager =
+                new FileChannelManagerImpl(new String[] {tmpFolder.getRoot().getPath()}, "testing");
+        globalPool = new NetworkBufferPool(totalBuffers, bufferSize);
+    }
+
+    @After
+    public void shutdown() throws Exception {
+        fileChannelManager.close();
+        globalPool.destroy();
+    }
+
+    @Test
+    public void testConsumeWhileProducing() throws Exception {
+        HybridResultPartition partition = createHybridPartition(1);
+        CountingAvailabilityListener listener = new CountingAvailabilityListener();
+        ResultSubpartitionView view = partition.createSubpartitionView(0, listener);
+        HybridSubpartition subpartition = (HybridSubpartition) partition.getAllPartitions()[0];
+
+        // nothing has been written yet, the reader waits for data
+        assertNull(view.getNextBuffer());
+        assertEquals(0, listener.numNotifications);
+
+        partition.emitRecord(createRecord(0), 0);
+        partition.flushAll();
+
+        assertEquals(1, listener.numNotifications);
+        assertEquals(1, subpartition.getNumberOfCachedBuffers());
+        assertTrue(view.getAvailabilityAndBacklog(1).isAvailable());
+
+        BufferAndBacklog bufferAndBacklog = view.getNextBuffer();
+        assertNotNull(bufferAndBacklog);
+        assertRecord(bufferAndBacklog.buffer(), 0);
+        bufferAndBacklog.buffer().recycleBuffer();
+
+        // the next record becomes visible without the partition being finished
+        partition.emitRecord(createRecord(1), 0);
+        partition.flushAll();
+
+        assertEquals(2, listener.numNotifications);
+        bufferAndBacklog = view.getNextBuffer();
+        assertNotNull(bufferAndBacklog);
+        assertRecord(bufferAndBacklog.buffer(), 1);
+        bufferAndBacklog.buffer().recycleBuffer();
+
+        partition.finish();
+        assertEndOfPartition(view);
+        assertNull(view.getNextBuffer());
+
+        view.releaseAllResources();
+        assertEquals(0, subpartition.getNumberOfCachedBuffers());
+        partition.release();
+    }
+
+    @Test
+    public void testNoBuffersCachedWithoutConsumer() throws Exception {
+        int numRecords = 10;
+        HybridResultPartition partition = createHybridPartition(2);
+        HybridSubpartition subpartition = (HybridSubpartition) partition.getAllPartitions()[1];
+
+        for (int i = 0; i < numRecords; i++) {
+            partition.emitRecord(createRecord(i), 1);
+        }
+        partition.flushAll();
+        assertEquals(0, subpartition.getNumberOfCachedBuffers());
+
+        partition.finish();
+        assertEquals(numRecords + 1, subpartition.getTotalNumberOfBuffersUnsafe());
+
+        // all the data is read back from the file
+        ResultSubpartitionView view =
+                partition.createSubpartitionView(1, new CountingAvailabilityListener());
+        assertRecords(view, numRecords);
+        assertEndOfPartition(view);
+        view.releaseAllResources();
+        partition.release();
+    }
+
+    @Test
+    public void testConsumeMultipleTimes() throws Exception {
+        int numRecords = 5;
+        HybridResultPartition partition = createHybridPartition(1);
+        ResultSubpartitionView firstView =
+                partition.createSubpartitionView(0, new CountingAvailabilityListener());
+
+        for (int i = 0; i < numRecords; i++) {
+            partition.emitRecord(createRecord(i), 0);
+        }
+        partition.finish();
+
+        assertRecords(firstView, numRecords);
+        assertEndOfPartition(firstView);
+        firstView.releaseAllResources();
+
+        // a restarted consumer reads the same data again
+        ResultSubpartitionView secondView =
+                partition.createSubpartitionView(0, new CountingAvailabilityListener());
+        assertRecords(secondView, numRecords);
+        assertEndOfPartition(secondView);
+        secondView.releaseAllResources();
+        partition.release();
+    }
+
+    @Test
+    public void testReleaseWhileConsuming() throws Exception {
+        HybridResultPartition partition = createHybridPartition(1);
+        HybridSubpartition subpartition = (HybridSubpartition) partition.getAllPartitions()[0];
+        CountingAvailabilityListener listener = new CountingAvailabilityListener();
+        ResultSubpartitionView view = partition.createSubpartitionView(0, listener);
+
+        partition.emitRecord(createRecord(0), 0);
+        partition.flushAll();
+        assertEquals(1, subpartition.getNumberOfCachedBuffers());
+
+        partition.release(new RuntimeException("Test exception."));
+
+        assertTrue(view.isReleased());
+        assertNotNull(view.getFailureCause());
+        assertEquals(0, subpartition.getNumberOfCachedBuffers());
+        // the file is kept until the last reader is gone
+        assertTrue(Files.exists(subpartition.getFilePath()));
+
+        view.releaseAllResources();
+        assertFalse(Files.exists(subpartition.getFilePath()));
+    }
+
+    private HybridResultPartition createHybridPartition(int numSubpartitions) throws Exception {
+        HybridResultPartition partition =
+                (HybridResultPartition)
+                        new ResultPartitionBuilder()
+                                .setResultPartitionType(ResultPartitionType.HYBRID)
+                                .setNumberOfSubpartitions(numSubpartitions)
+                                .setFileChannelManager(fileChannelManager)
+                                .setNetworkBufferPool(globalPool)
+                                .setNetworkBufferSize(bufferSize)
+                                .setNetworkBuffersPerChannel(10)
+                                .build();
+        partition.setup();
+        return partition;
+    }
+
+    private static ByteBuffer createRecord(int value) {
+        ByteBuffer record = ByteBuffer.allocate(bufferSize);
+        while (record.hasRemaining()) {
+            record.putInt(value);
+        }
+        record.flip();
+        return record;
+    }
+
+    private static void assertRecord(Buffer buffer, int value) {
+        assertTrue(buffer.isBuffer());
+        assertEquals(bufferSize, buffer.readableBytes());
+        MemorySegment segment = buffer.getMemorySegment();
+        int offset = buffer.getMemorySegmentOffset();
+        for (int i = 0; i < bufferSize; i += Integer.BYTES) {
+            assertEquals(value, segment.getIntBigEndian(offset + i));
+        }
+    }
+
+    private static void assertRecords(ResultSubpartitionView view, int numRecords)
+            throws Exception {
+        for (int i = 0; i < numRecords; i++) {
+            BufferAndBacklog bufferAndBacklog = view.getNextBuffer();
+            assertNotNull(bufferAndBacklog);
+            assertRecord(bufferAndBacklog.buffer(), i);
+            bufferAndBacklog.buffer().recycleBuffer();
+        }
+    }
+
+    private static void assertEndOfPartition(ResultSubpartitionView view) throws Exception {
+        BufferAndBacklog bufferAndBacklog = view.getNextBuffer();
+        assertNotNull(bufferAndBacklog);
+        Buffer buffer = bufferAndBacklog.buffer();
+        assertFalse(buffer.isBuffer());
+        assertEquals(
+                EndOfPartitionEvent.INSTANCE,
+                EventSerializer.fromBuffer(
+                        buffer, HybridResultPartitionTest.class.getClassLoader()));
+        buffer.recycleBuffer();
+    }
+}
@@ -22,9 +22,12 @@ import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.execution.CancelTaskException;
+import org.apache.flink.runtime.io.network.api.EndOfSuperstepEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilderTestUtils;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.util.TestConsumerCallback;
 import org.apache.flink.runtime.io.network.util.TestProducerSource;
 import org.apache.flink.runtime.io.network.util.TestSubpartitionConsumer;
@@ -37,7 +40,10 @@ import org.junit.Assert;
 import org.junit.Assume;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -349,6 +355,85 @@ public class PipelinedSubpartitionTest extends SubpartitionTestBase {
         assertTrue(view.getFailureCause() instanceof CancelTaskException);
     }
 
+    @Test
+    public void testBatchedNotificationsForLocalConsumer() throws Exception {
+        final NetworkBufferPool networkBufferPool = new NetworkBufferPool(10, 4096);
+        final BufferWritingResultPartition partition =
+                (BufferWritingResultPartition)
+                        new ResultPartitionBuilder()
+                                .setResultPartitionType(ResultPartitionType.PIPELINED_BOUNDED)
+                                .setNetworkBufferPool(networkBufferPool)
+                                .setLocalChannelNotificationBatchSize(3)
+                                .build();
+        partition.setup();
+        final PipelinedSubpartition subpartition =
+                (PipelinedSubpartition) partition.subpartitions[0];
+
+        final LocalBufferAvailabilityListener listener = new LocalBufferAvailabilityListener();
+        final ResultSubpartitionView view = subpartition.createReadView(listener);
+
+        // the consumer is notified once the third finished buffer is queued
+        subpartition.add(createFilledFinishedBufferConsumer(4096));
+        subpartition.add(createFilledFinishedBufferConsumer(4096));
+        subpartition.add(createFilledFinishedBufferConsumer(4096));
+        assertEquals(0, listener.getNumNotifications());
+        subpartition.add(createFilledFinishedBufferConsumer(4096));
+        assertEquals(1, listener.getNumNotifications());
+        drainAndRecycle(view);
+
+        // events are not held back
+        subpartition.add(EventSerializer.toBufferConsumer(EndOfSuperstepEvent.INSTANCE, false));
+        assertEquals(2, listener.getNumNotifications());
+        drainAndRecycle(view);
+
+        // flush notifies regardless of the batch size
+        subpartition.add(createFilledFinishedBufferConsumer(4096));
+        subpartition.add(createFilledFinishedBufferConsumer(4096));
+        assertEquals(2, listener.getNumNotifications());
+        subpartition.flush();
+        assertEquals(3, listener.getNumNotifications());
+        drainAndRecycle(view);
+
+        // the producer must not wait for buffers held back from the consumer
+        final List<Buffer> requestedBuffers = new ArrayList<>();
+        Buffer buffer;
+        while ((buffer = partition.getBufferPool().requestBuffer()) != null) {
+            requestedBuffers.add(buffer);
+        }
+        subpartition.add(createFilledFinishedBufferConsumer(4096));
+        subpartition.add(createFilledFinishedBufferConsumer(4096));
+        assertEquals(4, listener.getNumNotifications());
+
+        requestedBuffers.forEach(Buffer::recycleBuffer);
+        partition.release();
+        networkBufferPool.destroy();
+    }
+
+    @Test
+    public void testNoBatchedNotificationsForRemoteConsumer() throws Exception {
+        final ResultPartition partition =
+                new ResultPartitionBuilder().setLocalChannelNotificationBatchSize(3).build();
+        final PipelinedSubpartition subpartition =
+                (PipelinedSubpartition) ((BufferWritingResultPartition) partition).subpartitions[0];
+
+        final AwaitableBufferAvailablityListener listener =
+                new AwaitableBufferAvailablityListener();
+        subpartition.createReadView(listener);
+
+        subpartition.add(createFilledFinishedBufferConsumer(4096));
+        subpartition.add(createFilledFinishedBufferConsumer(4096));
+        assertEquals(1, listener.getNumNotifications());
+
+        subpartition.release();
+    }
+
+    private static void drainAndRecycle(ResultSubpartitionView view) throws IOException {
+        ResultSubpartition.BufferAndBacklog next;
+        while ((next = view.getNextBuffer()) != null) {
+            next.buffer().recycleBuffer();
+        }
+    }
+
     private void verifyViewReleasedAfterParentRelease(ResultSubpartition partition)
             throws Exception {
         // Add a bufferConsumer
@@ -383,6 +468,15 @@ public class PipelinedSubpartitionTest extends SubpartitionTestBase {
         return new PipelinedSubpartition(0, 2, parent);
     }
 
+    private static class LocalBufferAvailabilityListener
+            extends AwaitableBufferAvailablityListener {
+
+        @Override
+        public boolean isLocalConsumer() {
+            return true;
+        }
+    }
+
     private static class FailurePipelinedSubpartition extends PipelinedSubpartition {
 
         FailurePipelinedSubpartition(
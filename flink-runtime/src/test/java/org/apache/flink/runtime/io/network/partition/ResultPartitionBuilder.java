@@ -66,6 +66,10 @@ public class ResultPartitionBuilder {
 
     private int sortShuffleMinParallelism = Integer.MAX_VALUE;
 
+    private boolean sortShuffleDirectFileTransferEnabled = false;
+
+    private int localChannelNotificationBatchSize = 1;
+
     private int maxBuffersPerChannel = Integer.MAX_VALUE;
 
     private int networkBufferSize = 1;
@@ -198,6 +202,18 @@ public class ResultPartitionBuilder {
         return this;
     }
 
+    public ResultPartitionBuilder setSortShuffleDirectFileTransferEnabled(
+            boolean sortShuffleDirectFileTransferEnabled) {
+        this.sortShuffleDirectFileTransferEnabled = sortShuffleDirectFileTransferEnabled;
+        return this;
+    }
+
+    public ResultPartitionBuilder setLocalChannelNotificationBatchSize(
+            int localChannelNotificationBatchSize) {
+        this.localChannelNotificationBatchSize = localChannelNotificationBatchSize;
+        return this;
+    }
+
     public ResultPartitionBuilder setSSLEnabled(boolean sslEnabled) {
         this.sslEnabled = sslEnabled;
         return this;
@@ -220,6 +236,8 @@ public class ResultPartitionBuilder {
                         maxBuffersPerChannel,
                         sortShuffleMinBuffers,
                         sortShuffleMinParallelism,
+                        sortShuffleDirectFileTransferEnabled,
+                        localChannelNotificationBatchSize,
                         sslEnabled);
 
         SupplierWithException<BufferPool, IOException> factory =
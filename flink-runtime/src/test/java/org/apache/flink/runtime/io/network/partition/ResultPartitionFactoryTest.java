@@ -82,6 +82,15 @@ public class ResultPartitionFactoryTest extends TestLogger {
         assertTrue(resultPartition instanceof SortMergeResultPartition);
     }
 
+    @Test
+    public void testHybridSubpartitionsCreated() {
+        // hybrid partitions never use the sort-merge implementation
+        final HybridResultPartition resultPartition =
+                (HybridResultPartition) createResultPartition(ResultPartitionType.HYBRID, 1);
+        Arrays.stream(resultPartition.subpartitions)
+                .forEach(sp -> assertThat(sp, instanceOf(HybridSubpartition.class)));
+    }
+
     @Test
     public void testNoReleaseOnConsumptionForBoundedBlockingPartition() {
         final ResultPartition resultPartition = createResultPartition(ResultPartitionType.BLOCKING);
@@ -101,6 +110,15 @@ public class ResultPartitionFactoryTest extends TestLogger {
         assertFalse(resultPartition.isReleased());
     }
 
+    @Test
+    public void testNoReleaseOnConsumptionForHybridPartition() {
+        final ResultPartition resultPartition = createResultPartition(ResultPartitionType.HYBRID);
+
+        resultPartition.onConsumedSubpartition(0);
+
+        assertFalse(resultPartition.isReleased());
+    }
+
     private static ResultPartition createResultPartition(ResultPartitionType partitionType) {
         return createResultPartition(partitionType, Integer.MAX_VALUE);
     }
@@ -125,6 +143,8 @@ public class ResultPartitionFactoryTest extends TestLogger {
                         Integer.MAX_VALUE,
                         10,
                         sortShuffleMinParallelism,
+                        false,
+                        1,
                         false);
 
         final ResultPartitionDeploymentDescriptor descriptor =
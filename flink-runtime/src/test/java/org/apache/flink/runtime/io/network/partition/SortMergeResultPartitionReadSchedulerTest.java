@@ -141,6 +141,28 @@ public class SortMergeResultPartitionReadSchedulerTest extends TestLogger {
         }
     }
 
+    @Test
+    public void testReadAllDataWithDebloatedBufferSize() throws Exception {
+        SortMergeSubpartitionReader subpartitionReader =
+                readScheduler.createSubpartitionReader(
+                        new NoOpBufferAvailablityListener(), 0, partitionedFile);
+        // the reader is throttled to one buffer read ahead and reading must be triggered again
+        // whenever the consumed buffers are recycled
+        subpartitionReader.notifyNewBufferSize(1);
+
+        int numBuffersRead = 0;
+        while (numBuffersRead < numBuffersPerSubpartition) {
+            ResultSubpartition.BufferAndBacklog bufferAndBacklog =
+                    subpartitionReader.getNextBuffer();
+            if (bufferAndBacklog != null) {
+                Buffer buffer = bufferAndBacklog.buffer();
+                assertEquals(ByteBuffer.wrap(dataBytes), buffer.getNioBufferReadable());
+                buffer.recycleBuffer();
+                ++numBuffersRead;
+            }
+        }
+    }
+
     @Test
     public void testOnSubpartitionReaderError() throws Exception {
         SortMergeSubpartitionReader subpartitionReader =
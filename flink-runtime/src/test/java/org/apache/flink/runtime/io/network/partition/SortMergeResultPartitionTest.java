@@ -27,6 +27,7 @@ import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.FileRegionBuffer;
 import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.util.TestLogger;
@@ -116,6 +117,15 @@ public class SortMergeResultPartitionTest extends TestLogger {
 
     @Test
     public void testWriteAndRead() throws Exception {
+        testWriteAndRead(false);
+    }
+
+    @Test
+    public void testWriteAndReadWithDirectFileTransfer() throws Exception {
+        testWriteAndRead(true);
+    }
+
+    private void testWriteAndRead(boolean useDirectFileTransfer) throws Exception {
         int numBuffers = useHashDataBuffer ? 100 : 15;
         int numSubpartitions = 10;
         int numRecords = 1000;
@@ -123,7 +133,8 @@ public class SortMergeResultPartitionTest extends TestLogger {
 
         BufferPool bufferPool = globalPool.createBufferPool(numBuffers, numBuffers);
         SortMergeResultPartition partition =
-                createSortMergedPartition(numSubpartitions, bufferPool);
+                createSortMergedPartition(
+                        numSubpartitions, bufferPool, readBufferPool, useDirectFileTransfer);
 
         Queue<DataBufferTest.DataAndType>[] dataWritten = new Queue[numSubpartitions];
         Queue<Buffer>[] buffersRead = new Queue[numSubpartitions];
@@ -168,8 +179,7 @@ public class SortMergeResultPartitionTest extends TestLogger {
         }
 
         ResultSubpartitionView[] views = createSubpartitionViews(partition, numSubpartitions);
-        readData(
-                views,
+        Consumer<BufferWithChannel> bufferProcessor =
                 bufferWithChannel -> {
                     Buffer buffer = bufferWithChannel.getBuffer();
                     int subpartition = bufferWithChannel.getChannelIndex();
@@ -182,7 +192,12 @@ public class SortMergeResultPartitionTest extends TestLogger {
                     buffersRead[subpartition].add(
                             new NetworkBuffer(
                                     segment, (buf) -> {}, buffer.getDataType(), numBytes));
-                });
+                };
+        if (useDirectFileTransfer) {
+            readDataDirectly(views, bufferProcessor);
+        } else {
+            readData(views, bufferProcessor);
+        }
         DataBufferTest.checkWriteReadResult(
                 numSubpartitions, numBytesWritten, numBytesRead, dataWritten, buffersRead);
     }
@@ -234,6 +249,29 @@ public class SortMergeResultPartitionTest extends TestLogger {
         return dataSize;
     }
 
+    private void readDataDirectly(
+            ResultSubpartitionView[] views, Consumer<BufferWithChannel> bufferProcessor)
+            throws Exception {
+        for (int subpartition = 0; subpartition < views.length; ++subpartition) {
+            ResultSubpartitionView view = views[subpartition];
+            assertTrue(view instanceof SortMergeSubpartitionDirectTransferReader);
+
+            ResultSubpartition.BufferAndBacklog bufferAndBacklog;
+            while ((bufferAndBacklog = view.getNextBuffer()) != null) {
+                Buffer buffer = bufferAndBacklog.buffer();
+                assertTrue(buffer instanceof FileRegionBuffer);
+                bufferProcessor.accept(new BufferWithChannel(buffer, subpartition));
+                buffer.recycleBuffer();
+
+                if (!buffer.isBuffer()) {
+                    assertEquals(DataType.NONE, bufferAndBacklog.getNextDataType());
+                    assertFalse(view.getAvailabilityAndBacklog(Integer.MAX_VALUE).isAvailable());
+                }
+            }
+            view.releaseAllResources();
+        }
+    }
+
     private ResultSubpartitionView[] createSubpartitionViews(
             SortMergeResultPartition partition, int numSubpartitions) throws Exception {
         ResultSubpartitionView[] views = new ResultSubpartitionView[numSubpartitions];
@@ -339,6 +377,27 @@ public class SortMergeResultPartitionTest extends TestLogger {
         partition.close();
     }
 
+    @Test
+    public void testReleaseWhileReadingDirectly() throws Exception {
+        int numBuffers = useHashDataBuffer ? 100 : 15;
+        BufferPool bufferPool = globalPool.createBufferPool(numBuffers, numBuffers);
+        SortMergeResultPartition partition =
+                createSortMergedPartition(10, bufferPool, readBufferPool, true);
+
+        partition.emitRecord(ByteBuffer.allocate(bufferSize), 0);
+        partition.finish();
+        partition.close();
+
+        ResultSubpartitionView view = partition.createSubpartitionView(0, listener);
+        assertTrue(view.getAvailabilityAndBacklog(1).isAvailable());
+
+        partition.release();
+        assertTrue(view.isReleased());
+        assertNotNull(view.getFailureCause());
+        assertNull(view.getNextBuffer());
+        assertNull(partition.getResultFile());
+    }
+
     @Test(expected = IllegalStateException.class)
     public void testReleaseWhileWriting() throws Exception {
         int numBuffers = useHashDataBuffer ? 100 : 15;
@@ -486,6 +545,15 @@ public class SortMergeResultPartitionTest extends TestLogger {
     private SortMergeResultPartition createSortMergedPartition(
             int numSubpartitions, BufferPool bufferPool, BatchShuffleReadBufferPool readBufferPool)
             throws IOException {
+        return createSortMergedPartition(numSubpartitions, bufferPool, readBufferPool, false);
+    }
+
+    private SortMergeResultPartition createSortMergedPartition(
+            int numSubpartitions,
+            BufferPool bufferPool,
+            BatchShuffleReadBufferPool readBufferPool,
+            boolean useDirectFileTransfer)
+            throws IOException {
         SortMergeResultPartition sortMergedResultPartition =
                 new SortMergeResultPartition(
                         "SortMergedResultPartitionTest",
@@ -499,7 +567,8 @@ public class SortMergeResultPartitionTest extends TestLogger {
                         new ResultPartitionManager(),
                         fileChannelManager.createChannel().getPath(),
                         null,
-                        () -> bufferPool);
+                        () -> bufferPool,
+                        useDirectFileTransfer);
         sortMergedResultPartition.setup();
         return sortMergedResultPartition;
     }
@@ -128,6 +128,34 @@ public class SortMergeSubpartitionReaderTest extends TestLogger {
         assertEquals(4, segments.size());
     }
 
+    @Test
+    public void testReadBuffersLimitedByDebloatedBufferSize() throws Exception {
+        SortMergeSubpartitionReader subpartitionReader =
+                createSortMergeSubpartitionReader(new CountingAvailabilityListener());
+        subpartitionReader.notifyNewBufferSize(bufferSize);
+
+        Queue<MemorySegment> segments = createsMemorySegments(5);
+        subpartitionReader.readBuffers(segments, FreeingBufferRecycler.INSTANCE);
+
+        // two debloated buffers worth of data are read ahead at most
+        assertEquals(2, subpartitionReader.unsynchronizedGetNumberOfQueuedBuffers());
+        assertEquals(3, segments.size());
+        assertFalse(subpartitionReader.shouldReadMore());
+
+        checkNotNull(subpartitionReader.getNextBuffer()).buffer().recycleBuffer();
+        assertTrue(subpartitionReader.shouldReadMore());
+
+        // a tiny buffer size still allows to read ahead one buffer
+        subpartitionReader.notifyNewBufferSize(1);
+        assertFalse(subpartitionReader.shouldReadMore());
+        checkNotNull(subpartitionReader.getNextBuffer()).buffer().recycleBuffer();
+        assertTrue(subpartitionReader.shouldReadMore());
+
+        subpartitionReader.readBuffers(segments, FreeingBufferRecycler.INSTANCE);
+        assertEquals(1, subpartitionReader.unsynchronizedGetNumberOfQueuedBuffers());
+        assertEquals(2, segments.size());
+    }
+
     @Test
     public void testPollBuffers() throws Exception {
         SortMergeSubpartitionReader subpartitionReader =
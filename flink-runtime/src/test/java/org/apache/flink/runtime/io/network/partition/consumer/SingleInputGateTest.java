@@ -916,6 +916,65 @@ public class SingleInputGateTest extends InputGateTestBase {
         assertChannelsType(gate, LocalInputChannel.class, Arrays.asList(info5, info6));
     }
 
+    /**
+     * Tests that the remote channels of a gate are striped across the connections to the same task
+     * manager if enabled, both for channels known at deployment and for updated unknown channels.
+     */
+    @Test
+    public void testStripeRemoteChannelsAcrossConnections() throws Exception {
+        IntermediateResultPartitionID[] partitionIds =
+                new IntermediateResultPartitionID[] {
+                    new IntermediateResultPartitionID(),
+                    new IntermediateResultPartitionID(),
+                    new IntermediateResultPartitionID()
+                };
+
+        final NettyShuffleEnvironment netEnv =
+                new NettyShuffleEnvironmentBuilder()
+                        .setConnectionStripingByChannelEnabled(true)
+                        .build();
+
+        ResourceID localLocation = ResourceID.generate();
+        SingleInputGate gate =
+                createSingleInputGate(
+                        partitionIds,
+                        ResultPartitionType.PIPELINED,
+                        new SubpartitionIndexRange(0, 1),
+                        netEnv,
+                        localLocation,
+                        new TestingConnectionManager(),
+                        new TestingResultPartitionManager(new NoOpResultSubpartitionView()));
+
+        for (InputChannel channel : gate.getInputChannels().values()) {
+            if (channel instanceof ChannelStateHolder) {
+                ((ChannelStateHolder) channel).setChannelStateWriter(ChannelStateWriter.NO_OP);
+            }
+        }
+
+        gate.setup();
+        gate.finishReadRecoveredState();
+        while (!gate.getStateConsumedFuture().isDone()) {
+            gate.pollNext();
+        }
+        gate.requestPartitions();
+
+        // the remote shuffle descriptors all use the connection index 0
+        gate.updateInputChannel(
+                localLocation,
+                createRemoteWithIdAndLocation(partitionIds[2], ResourceID.generate()));
+
+        int numRemoteChannels = 0;
+        for (InputChannel channel : gate.getInputChannels().values()) {
+            if (channel instanceof RemoteInputChannel) {
+                assertEquals(
+                        channel.getChannelIndex(),
+                        ((RemoteInputChannel) channel).getConnectionId().getConnectionIndex());
+                numRemoteChannels++;
+            }
+        }
+        assertEquals(4, numRemoteChannels);
+    }
+
     private void assertChannelsType(
             SingleInputGate gate, Class<?> clazz, List<SubpartitionInfo> infos) {
         for (SubpartitionInfo subpartitionInfo : infos) {
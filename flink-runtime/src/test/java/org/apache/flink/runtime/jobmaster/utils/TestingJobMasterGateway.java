@@ -470,6 +470,10 @@ public class TestingJobMasterGateway implements JobMasterGateway {
             long checkpointId,
             CheckpointMetrics checkpointMetrics) {}
 
+    @Override
+    public void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId) {}
+
     @Override
     public JobMasterId getFencingToken() {
         return fencingTokenSupplier.get();
@@ -232,6 +232,10 @@ public class TestingSchedulerNG implements SchedulerNG {
             long checkpointId,
             CheckpointMetrics checkpointMetrics) {}
 
+    @Override
+    public void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId) {}
+
     public static Builder newBuilder() {
         return new Builder();
     }
@@ -344,6 +344,43 @@ public class PipelinedRegionSchedulingStrategyTest extends TestLogger {
         assertEquals(3, testingSchedulerOperation.getScheduledVertices().size());
     }
 
+    @Test
+    public void testScheduleHybridConsumerWhenProducerIsRunning() {
+        final TestingSchedulingTopology topology = new TestingSchedulingTopology();
+
+        final List<TestingSchedulingExecutionVertex> producer =
+                topology.addExecutionVertices().withParallelism(1).finish();
+        final List<TestingSchedulingExecutionVertex> consumer =
+                topology.addExecutionVertices().withParallelism(1).finish();
+
+        topology.connectPointwise(producer, consumer)
+                .withResultPartitionState(ResultPartitionState.CREATED)
+                .withResultPartitionType(ResultPartitionType.HYBRID)
+                .finish();
+
+        final PipelinedRegionSchedulingStrategy schedulingStrategy = startScheduling(topology);
+        assertEquals(1, testingSchedulerOperation.getScheduledVertices().size());
+
+        final TestingSchedulingExecutionVertex producer1 = producer.get(0);
+        producer1.setState(ExecutionState.RUNNING);
+        schedulingStrategy.onExecutionStateChange(producer1.getId(), ExecutionState.RUNNING);
+        assertEquals(2, testingSchedulerOperation.getScheduledVertices().size());
+
+        // the consumer is not scheduled a second time once the producer finishes
+        consumer.get(0).setState(ExecutionState.DEPLOYING);
+        producer1.setState(ExecutionState.FINISHED);
+        producer1.getProducedResults().iterator().next().setState(ResultPartitionState.CONSUMABLE);
+        schedulingStrategy.onExecutionStateChange(producer1.getId(), ExecutionState.FINISHED);
+        assertEquals(2, testingSchedulerOperation.getScheduledVertices().size());
+
+        final List<List<TestingSchedulingExecutionVertex>> expectedScheduledVertices =
+                new ArrayList<>();
+        expectedScheduledVertices.add(Arrays.asList(producer1));
+        expectedScheduledVertices.add(Arrays.asList(consumer.get(0)));
+        assertLatestScheduledVerticesAreEqualTo(
+                expectedScheduledVertices, testingSchedulerOperation);
+    }
+
     private static JobVertex createJobVertex(String vertexName, int parallelism) {
         JobVertex jobVertex = new JobVertex(vertexName);
         jobVertex.setParallelism(parallelism);
@@ -165,6 +165,36 @@ public class VertexwiseSchedulingStrategyTest {
                 expectedScheduledVertices, testingSchedulerOperation);
     }
 
+    @Test
+    public void testScheduleHybridConsumerWhenProducerIsRunning() {
+        final TestingSchedulingTopology topology = new TestingSchedulingTopology();
+
+        final List<TestingSchedulingExecutionVertex> producer =
+                topology.addExecutionVertices().withParallelism(1).finish();
+        final List<TestingSchedulingExecutionVertex> consumer =
+                topology.addExecutionVertices().withParallelism(1).finish();
+
+        topology.connectPointwise(producer, consumer)
+                .withResultPartitionState(ResultPartitionState.CREATED)
+                .withResultPartitionType(ResultPartitionType.HYBRID)
+                .finish();
+
+        final VertexwiseSchedulingStrategy schedulingStrategy = startScheduling(topology);
+        assertThat(testingSchedulerOperation.getScheduledVertices(), hasSize(1));
+
+        final TestingSchedulingExecutionVertex producer1 = producer.get(0);
+        producer1.setState(ExecutionState.RUNNING);
+        schedulingStrategy.onExecutionStateChange(producer1.getId(), ExecutionState.RUNNING);
+        assertThat(testingSchedulerOperation.getScheduledVertices(), hasSize(2));
+
+        // the consumer is not scheduled a second time once the producer finishes
+        consumer.get(0).setState(ExecutionState.DEPLOYING);
+        producer1.setState(ExecutionState.FINISHED);
+        producer1.getProducedResults().iterator().next().setState(ResultPartitionState.CONSUMABLE);
+        schedulingStrategy.onExecutionStateChange(producer1.getId(), ExecutionState.FINISHED);
+        assertThat(testingSchedulerOperation.getScheduledVertices(), hasSize(2));
+    }
+
     @Test
     public void testUpdateStrategyWithAllToAll() {
         testUpdateStrategyOnTopologyUpdate(true);
@@ -44,13 +44,14 @@ public class HashMapStateBackendTest extends StateBackendTestBase<HashMapStateBa
 
     @ClassRule public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
 
-    @Parameterized.Parameters
+    @Parameterized.Parameters(name = "Incremental checkpointing: {1}")
     public static List<Object[]> modes() {
         return Arrays.asList(
                 new Object[][] {
                     {
                         (SupplierWithException<CheckpointStorage, IOException>)
-                                JobManagerCheckpointStorage::new
+                                JobManagerCheckpointStorage::new,
+                        false
                     },
                     {
                         (SupplierWithException<CheckpointStorage, IOException>)
@@ -59,17 +60,33 @@ public class HashMapStateBackendTest extends StateBackendTestBase<HashMapStateBa
                                             TEMP_FOLDER.newFolder().toURI().toString();
                                     return new FileSystemCheckpointStorage(
                                             new Path(checkpointPath), 0, -1);
-                                }
+                                },
+                        false
+                    },
+                    {
+                        (SupplierWithException<CheckpointStorage, IOException>)
+                                () -> {
+                                    String checkpointPath =
+                                            TEMP_FOLDER.newFolder().toURI().toString();
+                                    return new FileSystemCheckpointStorage(
+                                            new Path(checkpointPath), 0, -1);
+                                },
+                        true
                     }
                 });
     }
 
-    @Parameterized.Parameter
+    @Parameterized.Parameter(0)
     public SupplierWithException<CheckpointStorage, IOException> storageSupplier;
 
+    @Parameterized.Parameter(1)
+    public boolean enableIncrementalCheckpointing;
+
     @Override
     protected ConfigurableStateBackend getStateBackend() {
-        return new HashMapStateBackend();
+        HashMapStateBackend backend = new HashMapStateBackend();
+        backend.setIncrementalCheckpointsEnabled(enableIncrementalCheckpointing);
+        return backend;
     }
 
     @Override
@@ -19,10 +19,15 @@
 package org.apache.flink.runtime.state;
 
 import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.fs.Path;
 import org.apache.flink.runtime.state.changelog.ChangelogStateBackendHandle.ChangelogStateBackendHandleImpl;
+import org.apache.flink.runtime.state.filemerging.SegmentFileStateHandle;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Optional;
@@ -32,10 +37,13 @@ import static org.apache.flink.runtime.state.ChangelogTestUtils.ChangelogStateHa
 import static org.apache.flink.runtime.state.ChangelogTestUtils.IncrementalStateHandleWrapper;
 import static org.apache.flink.runtime.state.ChangelogTestUtils.createDummyChangelogStateHandle;
 import static org.apache.flink.runtime.state.ChangelogTestUtils.createDummyIncrementalStateHandle;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class SharedStateRegistryTest {
 
+    @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     /** Validate that all states can be correctly registered at the registry. */
     @Test
     public void testRegistryNormal() {
@@ -97,6 +105,61 @@ public class SharedStateRegistryTest {
     }
 
     /** Validate that unregister a nonexistent checkpoint will not throw exception */
+    /** Validate that a physical file is only deleted once none of its segments is registered. */
+    @Test
+    public void testSegmentsOfPhysicalFileAreReferenceCounted() throws Exception {
+        SharedStateRegistryImpl sharedStateRegistry = new SharedStateRegistryImpl();
+
+        File physicalFile = temporaryFolder.newFile();
+        Path filePath = Path.fromLocalFile(physicalFile);
+        SegmentFileStateHandle first =
+                new SegmentFileStateHandle(filePath, 0L, 10L, CheckpointedStateScope.SHARED);
+        SegmentFileStateHandle second =
+                new SegmentFileStateHandle(filePath, 10L, 10L, CheckpointedStateScope.SHARED);
+
+        sharedStateRegistry.registerReference(new SharedStateRegistryKey("first"), first, 1L);
+        sharedStateRegistry.registerReference(new SharedStateRegistryKey("second"), second, 1L);
+        sharedStateRegistry.checkpointCompleted(1L);
+        assertEquals(2, sharedStateRegistry.getPhysicalFileReferences(filePath));
+
+        // only the second segment is still used by checkpoint 2
+        sharedStateRegistry.registerReference(new SharedStateRegistryKey("second"), second, 2L);
+        sharedStateRegistry.checkpointCompleted(2L);
+        sharedStateRegistry.unregisterUnusedState(2L);
+        assertEquals(1, sharedStateRegistry.getPhysicalFileReferences(filePath));
+        assertTrue(physicalFile.exists());
+
+        sharedStateRegistry.unregisterUnusedState(3L);
+        assertEquals(0, sharedStateRegistry.getPhysicalFileReferences(filePath));
+        assertFalse(physicalFile.exists());
+    }
+
+    /** Validate that the physical file of a dropped duplicate segment is deleted. */
+    @Test
+    public void testPhysicalFileOfDroppedDuplicateIsDeleted() throws Exception {
+        SharedStateRegistryImpl sharedStateRegistry = new SharedStateRegistryImpl();
+
+        File registeredFile = temporaryFolder.newFile();
+        File duplicateFile = temporaryFolder.newFile();
+        SharedStateRegistryKey key = new SharedStateRegistryKey("state");
+        SegmentFileStateHandle registered =
+                new SegmentFileStateHandle(
+                        Path.fromLocalFile(registeredFile), 0L, 10L, CheckpointedStateScope.SHARED);
+        SegmentFileStateHandle duplicate =
+                new SegmentFileStateHandle(
+                        Path.fromLocalFile(duplicateFile), 0L, 10L, CheckpointedStateScope.SHARED);
+
+        sharedStateRegistry.registerReference(key, registered, 1L);
+        sharedStateRegistry.checkpointCompleted(1L);
+
+        StreamStateHandle result = sharedStateRegistry.registerReference(key, duplicate, 2L);
+        assertEquals(registered, result);
+        sharedStateRegistry.unregisterUnusedState(1L);
+
+        assertTrue(registeredFile.exists());
+        assertFalse(duplicateFile.exists());
+    }
+
     @Test
     public void testUnregisterWithUnexistedKey() {
         SharedStateRegistry sharedStateRegistry = new SharedStateRegistryImpl();
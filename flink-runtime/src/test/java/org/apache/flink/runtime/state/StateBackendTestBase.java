@@ -3539,6 +3539,51 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
         }
     }
 
+    @Test
+    public void testMapStateGetAll() throws Exception {
+        MapStateDescriptor<Integer, Long> kvId =
+                new MapStateDescriptor<>("id", Integer.class, Long.class);
+
+        CheckpointableKeyedStateBackend<Integer> backend =
+                createKeyedBackend(IntSerializer.INSTANCE);
+
+        try {
+            InternalMapState<Integer, VoidNamespace, Integer, Long> state =
+                    (InternalMapState<Integer, VoidNamespace, Integer, Long>)
+                            backend.getPartitionedState(
+                                    VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+            backend.setCurrentKey(1);
+            assertTrue(state.getAll(Arrays.asList(1, 2, 3)).isEmpty());
+            assertTrue(state.getAll(Collections.emptyList()).isEmpty());
+
+            for (int i = 0; i < 100; i++) {
+                state.put(i, i * 2L);
+            }
+
+            backend.setCurrentKey(2);
+            state.put(1, 42L);
+
+            backend.setCurrentKey(1);
+            Map<Integer, Long> expected = new HashMap<>();
+            expected.put(0, 0L);
+            expected.put(50, 100L);
+            expected.put(99, 198L);
+            // keys without a mapping are not returned
+            assertEquals(expected, state.getAll(Arrays.asList(0, 50, 99, 100, -1)));
+            assertEquals(Collections.singletonMap(1, 2L), state.getAll(Arrays.asList(1, 1)));
+
+            backend.setCurrentKey(2);
+            assertEquals(Collections.singletonMap(1, 42L), state.getAll(Arrays.asList(0, 1)));
+
+            backend.setCurrentKey(3);
+            assertTrue(state.getAll(Arrays.asList(0, 1)).isEmpty());
+        } finally {
+            IOUtils.closeQuietly(backend);
+            backend.dispose();
+        }
+    }
+
     /**
      * Verify iterator of {@link MapState} supporting arbitrary access, see [FLINK-10267] to know
      * more details.
@@ -146,6 +146,9 @@ public class TestTaskStateManager implements TaskStateManager {
         reportedCheckpointId = checkpointMetaData.getCheckpointId();
     }
 
+    @Override
+    public void reportRemoteDurableCheckpoint(long checkpointId) {}
+
     @Override
     public boolean isTaskDeployedAsFinished() {
         TaskStateSnapshot jmTaskStateSnapshot = getLastJobManagerTaskStateSnapshot();
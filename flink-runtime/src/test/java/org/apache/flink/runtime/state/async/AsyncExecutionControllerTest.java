@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.async;
+
+import org.apache.flink.api.common.operators.MailboxExecutor;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.function.ThrowingRunnable;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link AsyncExecutionController}. */
+public class AsyncExecutionControllerTest {
+
+    private final QueueMailboxExecutor mailboxExecutor = new QueueMailboxExecutor();
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    private String currentKey;
+
+    private AsyncExecutionController<String> controller;
+
+    @After
+    public void closeController() {
+        if (controller != null) {
+            controller.close();
+        }
+    }
+
+    @Test
+    public void testRecordsOfSameKeyWaitForEachOther() throws Exception {
+        controller = createController(2, 100);
+        CountDownLatch requestLatch = new CountDownLatch(1);
+
+        controller.processRecord(
+                "a",
+                () -> {
+                    events.add("a1");
+                    controller
+                            .submit(
+                                    () -> {
+                                        requestLatch.await();
+                                        return "value";
+                                    })
+                            .thenAccept(value -> events.add("a1-" + value + "-" + currentKey));
+                });
+        controller.processRecord("a", () -> events.add("a2-" + currentKey));
+        controller.processRecord("b", () -> events.add("b1-" + currentKey));
+
+        assertEquals(Arrays.asList("a1", "b1-b"), events);
+        assertEquals(2, controller.getInFlightRecords());
+
+        requestLatch.countDown();
+        controller.drainInFlightRecords();
+
+        assertEquals(Arrays.asList("a1", "b1-b", "a1-value-a", "a2-a"), events);
+        assertEquals(0, controller.getInFlightRecords());
+    }
+
+    @Test
+    public void testChainedRequestsKeepRecordInFlight() throws Exception {
+        controller = createController(2, 100);
+
+        controller.processRecord(
+                "a",
+                () ->
+                        controller
+                                .submit(() -> 1)
+                                .thenCompose(value -> controller.submit(() -> value + 1))
+                                .thenAccept(value -> events.add("a1-" + value)));
+        controller.processRecord("a", () -> events.add("a2"));
+
+        controller.drainInFlightRecords();
+
+        assertEquals(Arrays.asList("a1-2", "a2"), events);
+    }
+
+    @Test
+    public void testProcessingBlocksWhenTooManyRecordsInFlight() throws Exception {
+        controller = createController(1, 1);
+
+        controller.processRecord(
+                "a", () -> controller.submit(() -> "value").thenAccept(events::add));
+        controller.processRecord("b", () -> events.add("b"));
+
+        assertEquals(Arrays.asList("value", "b"), events);
+        controller.drainInFlightRecords();
+        assertEquals(0, controller.getInFlightRecords());
+    }
+
+    @Test
+    public void testInlineExecutionWithoutStateAccessThreads() throws Exception {
+        controller = createController(0, 100);
+
+        controller.processRecord(
+                "a",
+                () -> {
+                    controller.submit(() -> "value").thenAccept(events::add);
+                    events.add("after-request");
+                });
+
+        assertEquals(Arrays.asList("value", "after-request"), events);
+        assertEquals(0, controller.getInFlightRecords());
+    }
+
+    @Test
+    public void testFailedRequestFailsOnTaskThread() throws Exception {
+        controller = createController(1, 100);
+
+        controller.processRecord(
+                "a",
+                () ->
+                        controller.submit(
+                                () -> {
+                                    throw new IOException("expected");
+                                }));
+        try {
+            controller.drainInFlightRecords();
+            fail("The failure of the request should have been forwarded.");
+        } catch (FlinkRuntimeException e) {
+            assertTrue(ExceptionUtils.findThrowable(e, IOException.class).isPresent());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRequestsOutsideOfRecordProcessingAreRejected() {
+        controller = createController(1, 100);
+        controller.submit(() -> "value");
+    }
+
+    private AsyncExecutionController<String> createController(
+            int numStateAccessThreads, int maxInFlightRecords) {
+        return new AsyncExecutionController<>(
+                mailboxExecutor,
+                key -> currentKey = key,
+                numStateAccessThreads,
+                maxInFlightRecords);
+    }
+
+    /** A mailbox whose mails are only executed by the test thread when it yields. */
+    private static class QueueMailboxExecutor implements MailboxExecutor {
+
+        private final BlockingQueue<ThrowingRunnable<? extends Exception>> mails =
+                new LinkedBlockingQueue<>();
+
+        @Override
+        public void execute(
+                ThrowingRunnable<? extends Exception> command,
+                String descriptionFormat,
+                Object... descriptionArgs) {
+            mails.add(command);
+        }
+
+        @Override
+        public void yield() throws InterruptedException {
+            runMail(mails.take());
+        }
+
+        @Override
+        public boolean tryYield() {
+            ThrowingRunnable<? extends Exception> mail = mails.poll();
+            if (mail == null) {
+                return false;
+            }
+            runMail(mail);
+            return true;
+        }
+
+        private static void runMail(ThrowingRunnable<? extends Exception> mail) {
+            try {
+                mail.run();
+            } catch (Exception e) {
+                throw new FlinkRuntimeException("Mail failed.", e);
+            }
+        }
+    }
+}
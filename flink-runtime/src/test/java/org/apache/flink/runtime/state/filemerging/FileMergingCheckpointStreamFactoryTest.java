@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.filemerging;
+
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.runtime.state.CheckpointStateOutputStream;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Unit tests for the {@link FileMergingCheckpointStreamFactory}. */
+public class FileMergingCheckpointStreamFactoryTest {
+
+    @TempDir private Path exclusiveStateDir;
+    @TempDir private Path sharedStateDir;
+
+    @Test
+    public void testSegmentsAreWrittenToOnePhysicalFile() throws IOException {
+        final FileMergingCheckpointStreamFactory factory = createFactory(0, 1024 * 1024);
+
+        final byte[] first = randomBytes(100, 1);
+        final byte[] second = randomBytes(200, 2);
+        final SegmentFileStateHandle firstHandle =
+                (SegmentFileStateHandle) write(factory, CheckpointedStateScope.EXCLUSIVE, first);
+        final SegmentFileStateHandle secondHandle =
+                (SegmentFileStateHandle) write(factory, CheckpointedStateScope.EXCLUSIVE, second);
+        factory.close();
+
+        assertEquals(firstHandle.getFilePath(), secondHandle.getFilePath());
+        assertEquals(0L, firstHandle.getStartPos());
+        assertEquals(first.length, secondHandle.getStartPos());
+        assertEquals(1, listFiles(exclusiveStateDir).length);
+        assertEquals(first.length + second.length, listFiles(exclusiveStateDir)[0].length());
+
+        assertArrayEquals(first, read(firstHandle));
+        assertArrayEquals(second, read(secondHandle));
+    }
+
+    @Test
+    public void testScopesUseSeparatePhysicalFiles() throws IOException {
+        final FileMergingCheckpointStreamFactory factory = createFactory(0, 1024 * 1024);
+
+        write(factory, CheckpointedStateScope.EXCLUSIVE, randomBytes(10, 3));
+        write(factory, CheckpointedStateScope.SHARED, randomBytes(10, 4));
+        factory.close();
+
+        assertEquals(1, listFiles(exclusiveStateDir).length);
+        assertEquals(1, listFiles(sharedStateDir).length);
+    }
+
+    @Test
+    public void testSmallStateIsInlined() throws IOException {
+        final FileMergingCheckpointStreamFactory factory = createFactory(100, 1024 * 1024);
+
+        final StreamStateHandle handle =
+                write(factory, CheckpointedStateScope.EXCLUSIVE, randomBytes(50, 5));
+        factory.close();
+
+        assertThat(handle, instanceOf(ByteStreamStateHandle.class));
+        assertEquals(0, listFiles(exclusiveStateDir).length);
+    }
+
+    @Test
+    public void testFullPhysicalFileIsNotReused() throws IOException {
+        final FileMergingCheckpointStreamFactory factory = createFactory(0, 150);
+
+        final SegmentFileStateHandle first =
+                (SegmentFileStateHandle)
+                        write(factory, CheckpointedStateScope.SHARED, randomBytes(100, 6));
+        final SegmentFileStateHandle second =
+                (SegmentFileStateHandle)
+                        write(factory, CheckpointedStateScope.SHARED, randomBytes(100, 7));
+        final SegmentFileStateHandle third =
+                (SegmentFileStateHandle)
+                        write(factory, CheckpointedStateScope.SHARED, randomBytes(100, 8));
+
+        assertEquals(first.getFilePath(), second.getFilePath());
+        assertEquals(0L, third.getStartPos());
+        assertEquals(1, factory.getNumberOfOpenFiles());
+        factory.close();
+        assertEquals(0, factory.getNumberOfOpenFiles());
+        assertEquals(2, listFiles(sharedStateDir).length);
+    }
+
+    @Test
+    public void testConcurrentStreamsUseDifferentPhysicalFiles() throws IOException {
+        final FileMergingCheckpointStreamFactory factory = createFactory(0, 1024 * 1024);
+
+        final byte[] first = randomBytes(100, 9);
+        final byte[] second = randomBytes(100, 10);
+        final CheckpointStateOutputStream firstStream =
+                factory.createCheckpointStateOutputStream(CheckpointedStateScope.EXCLUSIVE);
+        final CheckpointStateOutputStream secondStream =
+                factory.createCheckpointStateOutputStream(CheckpointedStateScope.EXCLUSIVE);
+        firstStream.write(first);
+        firstStream.flush();
+        secondStream.write(second);
+        secondStream.flush();
+        final StreamStateHandle firstHandle = firstStream.closeAndGetHandle();
+        final StreamStateHandle secondHandle = secondStream.closeAndGetHandle();
+        factory.close();
+
+        assertEquals(2, listFiles(exclusiveStateDir).length);
+        assertArrayEquals(first, read(firstHandle));
+        assertArrayEquals(second, read(secondHandle));
+    }
+
+    @Test
+    public void testCancelledStreamDeletesUnusedPhysicalFile() throws IOException {
+        final FileMergingCheckpointStreamFactory factory = createFactory(0, 1024 * 1024);
+
+        final CheckpointStateOutputStream stream =
+                factory.createCheckpointStateOutputStream(CheckpointedStateScope.EXCLUSIVE);
+        stream.write(randomBytes(100, 11));
+        stream.flush();
+        assertEquals(1, listFiles(exclusiveStateDir).length);
+
+        stream.close();
+        assertEquals(0, listFiles(exclusiveStateDir).length);
+        assertEquals(0, factory.getNumberOfOpenFiles());
+    }
+
+    @Test
+    public void testClosedFactoryRejectsWrites() throws IOException {
+        final FileMergingCheckpointStreamFactory factory = createFactory(0, 1024 * 1024);
+
+        final CheckpointStateOutputStream stream =
+                factory.createCheckpointStateOutputStream(CheckpointedStateScope.EXCLUSIVE);
+        stream.write(randomBytes(10, 12));
+        factory.close();
+
+        assertThrows(IOException.class, stream::closeAndGetHandle);
+        assertThrows(
+                IOException.class,
+                () -> factory.createCheckpointStateOutputStream(CheckpointedStateScope.SHARED));
+    }
+
+    @Test
+    public void testSegmentStreamIsBounded() throws IOException {
+        final FileMergingCheckpointStreamFactory factory = createFactory(0, 1024 * 1024);
+
+        write(factory, CheckpointedStateScope.EXCLUSIVE, randomBytes(10, 13));
+        final StreamStateHandle handle =
+                write(factory, CheckpointedStateScope.EXCLUSIVE, randomBytes(10, 14));
+        write(factory, CheckpointedStateScope.EXCLUSIVE, randomBytes(10, 15));
+        factory.close();
+
+        try (FSDataInputStream in = handle.openInputStream()) {
+            assertEquals(0L, in.getPos());
+            in.seek(5L);
+            assertEquals(5, in.read(new byte[100], 0, 100));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    //  utilities
+    // ------------------------------------------------------------------------
+
+    private FileMergingCheckpointStreamFactory createFactory(
+            int fileSizeThreshold, long maxFileSize) {
+        return new FileMergingCheckpointStreamFactory(
+                FileSystem.getLocalFileSystem(),
+                org.apache.flink.core.fs.Path.fromLocalFile(exclusiveStateDir.toFile()),
+                org.apache.flink.core.fs.Path.fromLocalFile(sharedStateDir.toFile()),
+                fileSizeThreshold,
+                4096,
+                maxFileSize);
+    }
+
+    private static StreamStateHandle write(
+            FileMergingCheckpointStreamFactory factory, CheckpointedStateScope scope, byte[] data)
+            throws IOException {
+        CheckpointStateOutputStream stream = factory.createCheckpointStateOutputStream(scope);
+        stream.write(data);
+        return stream.closeAndGetHandle();
+    }
+
+    private static byte[] read(StreamStateHandle handle) throws IOException {
+        byte[] data = new byte[(int) handle.getStateSize()];
+        try (FSDataInputStream in = handle.openInputStream()) {
+            int offset = 0;
+            while (offset < data.length) {
+                int read = in.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+            assertEquals(data.length, offset);
+            assertEquals(-1, in.read());
+        }
+        return data;
+    }
+
+    private static byte[] randomBytes(int length, int seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static File[] listFiles(Path directory) {
+        return directory.toFile().listFiles();
+    }
+}
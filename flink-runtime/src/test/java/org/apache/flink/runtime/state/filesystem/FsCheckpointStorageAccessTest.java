@@ -31,6 +31,7 @@ import org.apache.flink.runtime.state.NotDuplicatingCheckpointStateToolset;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.filesystem.FsCheckpointStreamFactory.FsCheckpointStateOutputStream;
 import org.apache.flink.testutils.TestFileSystem;
+import org.apache.flink.util.concurrent.Executors;
 
 import org.junit.Test;
 
@@ -48,6 +49,8 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -286,6 +289,94 @@ public class FsCheckpointStorageAccessTest extends AbstractFileCheckpointStorage
         assertTrue(fileSystem instanceof LocalFileSystem);
     }
 
+    @Test
+    public void testResolveFileMergingCheckpointStorageLocation() throws Exception {
+        final Path checkpointDir = Path.fromLocalFile(tmp.newFolder());
+        final CheckpointStorageLocationReference savepointLocationReference =
+                AbstractFsCheckpointStorageAccess.encodePathAsReference(
+                        Path.fromLocalFile(tmp.newFolder()));
+
+        final FsCheckpointStorageAccess disabled =
+                new FsCheckpointStorageAccess(
+                        checkpointDir, null, new JobID(), FILE_SIZE_THRESHOLD, WRITE_BUFFER_SIZE);
+        assertNull(
+                disabled.resolveFileMergingCheckpointStorageLocation(
+                        1L, CheckpointStorageLocationReference.getDefault()));
+
+        final FsCheckpointStorageAccess enabled =
+                new FsCheckpointStorageAccess(
+                        checkpointDir,
+                        null,
+                        new JobID(),
+                        FILE_SIZE_THRESHOLD,
+                        WRITE_BUFFER_SIZE,
+                        1024 * 1024,
+                        false);
+        assertNotNull(
+                enabled.resolveFileMergingCheckpointStorageLocation(
+                        1L, CheckpointStorageLocationReference.getDefault()));
+        // savepoints are never merged
+        assertNull(
+                enabled.resolveFileMergingCheckpointStorageLocation(
+                        2L, savepointLocationReference));
+    }
+
+    @Test
+    public void testResolveLocalFirstCheckpointStorageLocation() throws Exception {
+        final Path checkpointDir = Path.fromLocalFile(tmp.newFolder());
+        final File localDir = tmp.newFolder();
+        final CheckpointStorageLocationReference savepointLocationReference =
+                AbstractFsCheckpointStorageAccess.encodePathAsReference(
+                        Path.fromLocalFile(tmp.newFolder()));
+
+        final FsCheckpointStorageAccess disabled =
+                new FsCheckpointStorageAccess(
+                        checkpointDir, null, new JobID(), FILE_SIZE_THRESHOLD, WRITE_BUFFER_SIZE);
+        assertNull(
+                disabled.resolveLocalFirstCheckpointStorageLocation(
+                        1L,
+                        CheckpointStorageLocationReference.getDefault(),
+                        localDir,
+                        Executors.directExecutor()));
+
+        final FsCheckpointStorageAccess enabled =
+                new FsCheckpointStorageAccess(
+                        checkpointDir,
+                        null,
+                        new JobID(),
+                        FILE_SIZE_THRESHOLD,
+                        WRITE_BUFFER_SIZE,
+                        -1,
+                        true);
+        assertNotNull(
+                enabled.resolveLocalFirstCheckpointStorageLocation(
+                        1L,
+                        CheckpointStorageLocationReference.getDefault(),
+                        localDir,
+                        Executors.directExecutor()));
+        // savepoints are always written to their target directly
+        assertNull(
+                enabled.resolveLocalFirstCheckpointStorageLocation(
+                        2L, savepointLocationReference, localDir, Executors.directExecutor()));
+
+        // file merging takes precedence
+        final FsCheckpointStorageAccess merging =
+                new FsCheckpointStorageAccess(
+                        checkpointDir,
+                        null,
+                        new JobID(),
+                        FILE_SIZE_THRESHOLD,
+                        WRITE_BUFFER_SIZE,
+                        1024 * 1024,
+                        true);
+        assertNull(
+                merging.resolveLocalFirstCheckpointStorageLocation(
+                        1L,
+                        CheckpointStorageLocationReference.getDefault(),
+                        localDir,
+                        Executors.directExecutor()));
+    }
+
     @Test
     public void testNotDuplicationCheckpointStateToolset() throws Exception {
         CheckpointStorageAccess checkpointStorage = createCheckpointStorage(randomTempPath());
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.filesystem;
+
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.runtime.state.CheckpointStateOutputStream;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
+import org.apache.flink.util.concurrent.Executors;
+import org.apache.flink.util.concurrent.ManuallyTriggeredScheduledExecutor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Unit tests for the {@link LocalFirstCheckpointStreamFactory}. */
+public class LocalFirstCheckpointStreamFactoryTest {
+
+    private static final int FILE_STATE_THRESHOLD = 100;
+
+    @TempDir private Path exclusiveStateDir;
+    @TempDir private Path sharedStateDir;
+    @TempDir private Path localDir;
+
+    @Test
+    public void testSmallStateIsInlined() throws IOException {
+        final LocalFirstCheckpointStreamFactory factory = createFactory(Executors.directExecutor());
+
+        final StreamStateHandle handle =
+                writeState(factory, CheckpointedStateScope.EXCLUSIVE, FILE_STATE_THRESHOLD / 2);
+
+        assertThat(handle, instanceOf(ByteStreamStateHandle.class));
+        assertFalse(factory.hasPendingUploads());
+        assertEquals(0, listFiles(exclusiveStateDir).length);
+    }
+
+    @Test
+    public void testEmptyStreamHasNoHandle() throws IOException {
+        final LocalFirstCheckpointStreamFactory factory = createFactory(Executors.directExecutor());
+
+        try (CheckpointStateOutputStream stream =
+                factory.createCheckpointStateOutputStream(CheckpointedStateScope.EXCLUSIVE)) {
+            assertNull(stream.closeAndGetHandle());
+        }
+    }
+
+    @Test
+    public void testStateIsUploadedInBackground() throws Exception {
+        final ManuallyTriggeredScheduledExecutor uploadExecutor =
+                new ManuallyTriggeredScheduledExecutor();
+        final LocalFirstCheckpointStreamFactory factory = createFactory(uploadExecutor);
+
+        final StreamStateHandle exclusiveHandle =
+                writeState(factory, CheckpointedStateScope.EXCLUSIVE, 4 * FILE_STATE_THRESHOLD);
+        final StreamStateHandle sharedHandle =
+                writeState(factory, CheckpointedStateScope.SHARED, 2 * FILE_STATE_THRESHOLD);
+
+        assertThat(exclusiveHandle, instanceOf(RelativeFileStateHandle.class));
+        assertThat(sharedHandle, instanceOf(FileStateHandle.class));
+
+        // the state is only on the local disk until the upload ran
+        assertTrue(factory.hasPendingUploads());
+        assertEquals(2, listFiles(localDir).length);
+        assertEquals(0, listFiles(exclusiveStateDir).length);
+        assertEquals(0, listFiles(sharedStateDir).length);
+
+        final CompletableFuture<Void> uploadFuture = factory.getRemoteUploadFuture();
+        assertFalse(uploadFuture.isDone());
+
+        uploadExecutor.triggerAll();
+
+        uploadFuture.get();
+        assertFalse(factory.hasPendingUploads());
+        assertFalse(factory.getLocalDirectory().exists());
+        assertContent(exclusiveHandle, 4 * FILE_STATE_THRESHOLD);
+        assertContent(sharedHandle, 2 * FILE_STATE_THRESHOLD);
+    }
+
+    @Test
+    public void testClosedStreamIsNotUploaded() throws IOException {
+        final ManuallyTriggeredScheduledExecutor uploadExecutor =
+                new ManuallyTriggeredScheduledExecutor();
+        final LocalFirstCheckpointStreamFactory factory = createFactory(uploadExecutor);
+
+        final CheckpointStateOutputStream stream =
+                factory.createCheckpointStateOutputStream(CheckpointedStateScope.EXCLUSIVE);
+        stream.write(createState(2 * FILE_STATE_THRESHOLD));
+        stream.close();
+
+        assertFalse(factory.hasPendingUploads());
+        assertEquals(0, listFiles(localDir).length);
+        assertEquals(0, uploadExecutor.numQueuedRunnables());
+    }
+
+    // ------------------------------------------------------------------------
+    //  utilities
+    // ------------------------------------------------------------------------
+
+    private LocalFirstCheckpointStreamFactory createFactory(Executor uploadExecutor) {
+        return new LocalFirstCheckpointStreamFactory(
+                FileSystem.getLocalFileSystem(),
+                org.apache.flink.core.fs.Path.fromLocalFile(exclusiveStateDir.toFile()),
+                org.apache.flink.core.fs.Path.fromLocalFile(sharedStateDir.toFile()),
+                FILE_STATE_THRESHOLD,
+                FILE_STATE_THRESHOLD,
+                localDir.toFile(),
+                uploadExecutor);
+    }
+
+    private static StreamStateHandle writeState(
+            LocalFirstCheckpointStreamFactory factory, CheckpointedStateScope scope, int size)
+            throws IOException {
+        final CheckpointStateOutputStream stream = factory.createCheckpointStateOutputStream(scope);
+        stream.write(createState(size));
+        return stream.closeAndGetHandle();
+    }
+
+    private static byte[] createState(int size) {
+        final byte[] state = new byte[size];
+        for (int i = 0; i < size; i++) {
+            state[i] = (byte) i;
+        }
+        return state;
+    }
+
+    private static void assertContent(StreamStateHandle handle, int size) throws IOException {
+        final byte[] content = new byte[size];
+        try (FSDataInputStream in = handle.openInputStream()) {
+            int read = 0;
+            while (read < size) {
+                read += in.read(content, read, size - read);
+            }
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(createState(size), content);
+    }
+
+    private static File[] listFiles(Path directory) {
+        final File[] files = directory.toFile().listFiles();
+        return files == null ? new File[0] : files;
+    }
+}
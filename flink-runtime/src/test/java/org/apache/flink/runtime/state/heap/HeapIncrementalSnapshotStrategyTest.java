@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.execution.SavepointFormatType;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.checkpoint.SavepointType;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.KeyGroupsStateHandle;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.PlaceholderStreamStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
+import org.apache.flink.runtime.state.SharedStateRegistryImpl;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.TestLocalRecoveryConfig;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.memory.MemCheckpointStreamFactory;
+import org.apache.flink.runtime.state.metrics.LatencyTrackingStateConfig;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.runtime.testutils.statemigration.TestType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.flink.runtime.state.StateBackendTestBase.runSnapshot;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/** Tests for {@link HeapIncrementalSnapshotStrategy}. */
+public class HeapIncrementalSnapshotStrategyTest {
+
+    private static final int MAX_PARALLELISM = 16;
+    private static final int NUM_KEYS = 100;
+
+    private final ValueStateDescriptor<Integer> stateDescriptor =
+            new ValueStateDescriptor<>("value", IntSerializer.INSTANCE);
+
+    private SharedStateRegistry sharedStateRegistry;
+
+    @Before
+    public void setUp() {
+        sharedStateRegistry = new SharedStateRegistryImpl();
+    }
+
+    @Test
+    public void testOnlyModifiedKeyGroupsAreUploaded() throws Exception {
+        final String modifiedKey = "key-7";
+        final HeapKeyedStateBackend<String> backend =
+                createKeyedBackend(allKeyGroups(), Collections.emptyList());
+        final KeyedStateHandle secondSnapshot;
+        try {
+            ValueState<Integer> state = getState(backend);
+            for (int i = 0; i < NUM_KEYS; i++) {
+                backend.setCurrentKey("key-" + i);
+                state.update(i);
+            }
+
+            IncrementalRemoteKeyedStateHandle firstSnapshot =
+                    (IncrementalRemoteKeyedStateHandle) snapshot(backend, 1L);
+            assertEquals(0, countPlaceholders(firstSnapshot));
+            backend.notifyCheckpointComplete(1L);
+
+            backend.setCurrentKey(modifiedKey);
+            state.update(-1);
+
+            secondSnapshot = snapshot(backend, 2L);
+        } finally {
+            backend.dispose();
+        }
+
+        IncrementalRemoteKeyedStateHandle incrementalSnapshot =
+                (IncrementalRemoteKeyedStateHandle) secondSnapshot;
+        assertEquals(
+                Collections.singleton(
+                        HeapIncrementalSnapshotStrategy.createStateHandleId(
+                                KeyGroupRangeAssignment.assignToKeyGroup(
+                                        modifiedKey, MAX_PARALLELISM),
+                                2L)),
+                uploadedStateHandleIds(incrementalSnapshot));
+
+        assertRestoredValues(
+                allKeyGroups(), Collections.singletonList(secondSnapshot), modifiedKey);
+    }
+
+    @Test
+    public void testModificationsOfAbortedCheckpointsAreUploaded() throws Exception {
+        final String modifiedKey = "key-42";
+        final HeapKeyedStateBackend<String> backend =
+                createKeyedBackend(allKeyGroups(), Collections.emptyList());
+        final KeyedStateHandle thirdSnapshot;
+        try {
+            ValueState<Integer> state = getState(backend);
+            for (int i = 0; i < NUM_KEYS; i++) {
+                backend.setCurrentKey("key-" + i);
+                state.update(i);
+            }
+            snapshot(backend, 1L);
+            backend.notifyCheckpointComplete(1L);
+
+            backend.setCurrentKey(modifiedKey);
+            state.update(-1);
+            snapshot(backend, 2L);
+            backend.notifyCheckpointAborted(2L);
+
+            thirdSnapshot = snapshot(backend, 3L);
+        } finally {
+            backend.dispose();
+        }
+
+        assertEquals(
+                Collections.singleton(
+                        HeapIncrementalSnapshotStrategy.createStateHandleId(
+                                KeyGroupRangeAssignment.assignToKeyGroup(
+                                        modifiedKey, MAX_PARALLELISM),
+                                3L)),
+                uploadedStateHandleIds((IncrementalRemoteKeyedStateHandle) thirdSnapshot));
+        assertRestoredValues(allKeyGroups(), Collections.singletonList(thirdSnapshot), modifiedKey);
+    }
+
+    @Test
+    public void testRestoreWithRescaling() throws Exception {
+        final String modifiedKey = "key-13";
+        final HeapKeyedStateBackend<String> backend =
+                createKeyedBackend(allKeyGroups(), Collections.emptyList());
+        final KeyedStateHandle snapshot;
+        try {
+            ValueState<Integer> state = getState(backend);
+            for (int i = 0; i < NUM_KEYS; i++) {
+                backend.setCurrentKey("key-" + i);
+                state.update(i);
+            }
+            snapshot(backend, 1L);
+            backend.notifyCheckpointComplete(1L);
+
+            backend.setCurrentKey(modifiedKey);
+            state.update(-1);
+            snapshot = snapshot(backend, 2L);
+        } finally {
+            backend.dispose();
+        }
+
+        for (KeyGroupRange keyGroupRange :
+                Arrays.asList(new KeyGroupRange(0, 6), new KeyGroupRange(7, 15))) {
+            assertRestoredValues(
+                    keyGroupRange,
+                    Collections.singletonList(snapshot.getIntersection(keyGroupRange)),
+                    modifiedKey);
+        }
+    }
+
+    @Test
+    public void testPriorityQueueStateIsRestored() throws Exception {
+        final HeapKeyedStateBackend<String> backend =
+                createKeyedBackend(allKeyGroups(), Collections.emptyList());
+        final KeyedStateHandle snapshot;
+        try {
+            KeyGroupedInternalPriorityQueue<TestType> priorityQueue =
+                    backend.create("timers", new TestType.V1TestTypeSerializer());
+            priorityQueue.add(new TestType("a", 42));
+            priorityQueue.add(new TestType("b", 1));
+            snapshot(backend, 1L);
+            backend.notifyCheckpointComplete(1L);
+
+            priorityQueue.add(new TestType("c", 3));
+            snapshot = snapshot(backend, 2L);
+        } finally {
+            backend.dispose();
+        }
+
+        final HeapKeyedStateBackend<String> restoredBackend =
+                createKeyedBackend(allKeyGroups(), Collections.singletonList(snapshot));
+        try {
+            KeyGroupedInternalPriorityQueue<TestType> priorityQueue =
+                    restoredBackend.create("timers", new TestType.V1TestTypeSerializer());
+            assertEquals(new TestType("b", 1), priorityQueue.poll());
+            assertEquals(new TestType("c", 3), priorityQueue.poll());
+            assertEquals(new TestType("a", 42), priorityQueue.poll());
+            assertTrue(priorityQueue.isEmpty());
+        } finally {
+            restoredBackend.dispose();
+        }
+    }
+
+    @Test
+    public void testSavepointIsFullSnapshot() throws Exception {
+        final HeapKeyedStateBackend<String> backend =
+                createKeyedBackend(allKeyGroups(), Collections.emptyList());
+        final KeyedStateHandle savepoint;
+        try {
+            ValueState<Integer> state = getState(backend);
+            for (int i = 0; i < NUM_KEYS; i++) {
+                backend.setCurrentKey("key-" + i);
+                state.update(i);
+            }
+            savepoint =
+                    runSnapshot(
+                            backend.snapshot(
+                                    1L,
+                                    1L,
+                                    new MemCheckpointStreamFactory(4 * 1024 * 1024),
+                                    CheckpointOptions.alignedNoTimeout(
+                                            SavepointType.savepoint(SavepointFormatType.CANONICAL),
+                                            CheckpointOptions.forCheckpointWithDefaultLocation()
+                                                    .getTargetLocation())),
+                            sharedStateRegistry);
+            backend.notifyCheckpointComplete(1L);
+
+            // the savepoint does not replace the missing incremental base
+            IncrementalRemoteKeyedStateHandle checkpoint =
+                    (IncrementalRemoteKeyedStateHandle) snapshot(backend, 2L);
+            assertEquals(0, countPlaceholders(checkpoint));
+        } finally {
+            backend.dispose();
+        }
+
+        assertTrue(savepoint instanceof KeyGroupsStateHandle);
+        assertRestoredValues(allKeyGroups(), Collections.singletonList(savepoint), null);
+    }
+
+    private void assertRestoredValues(
+            KeyGroupRange keyGroupRange,
+            Collection<KeyedStateHandle> stateHandles,
+            String modifiedKey)
+            throws Exception {
+        final HeapKeyedStateBackend<String> restoredBackend =
+                createKeyedBackend(keyGroupRange, stateHandles);
+        try {
+            ValueState<Integer> state = getState(restoredBackend);
+            for (int i = 0; i < NUM_KEYS; i++) {
+                String key = "key-" + i;
+                if (!keyGroupRange.contains(
+                        KeyGroupRangeAssignment.assignToKeyGroup(key, MAX_PARALLELISM))) {
+                    continue;
+                }
+                restoredBackend.setCurrentKey(key);
+                assertEquals(key.equals(modifiedKey) ? -1 : i, (int) state.value());
+            }
+        } finally {
+            restoredBackend.dispose();
+        }
+    }
+
+    private KeyedStateHandle snapshot(HeapKeyedStateBackend<String> backend, long checkpointId)
+            throws Exception {
+        return runSnapshot(
+                backend.snapshot(
+                        checkpointId,
+                        checkpointId,
+                        new MemCheckpointStreamFactory(4 * 1024 * 1024),
+                        CheckpointOptions.forCheckpointWithDefaultLocation()),
+                sharedStateRegistry);
+    }
+
+    private ValueState<Integer> getState(HeapKeyedStateBackend<String> backend) throws Exception {
+        return backend.getPartitionedState(
+                VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, stateDescriptor);
+    }
+
+    private static Set<StateHandleID> uploadedStateHandleIds(
+            IncrementalRemoteKeyedStateHandle stateHandle) {
+        // placeholders were already replaced by the shared state registry, so only the handles
+        // that were not registered before belong to this checkpoint
+        Set<StateHandleID> uploaded = new HashSet<>();
+        for (Map.Entry<StateHandleID, StreamStateHandle> sharedState :
+                stateHandle.getSharedState().entrySet()) {
+            if (sharedState.getKey().getKeyString().endsWith("-" + stateHandle.getCheckpointId())) {
+                uploaded.add(sharedState.getKey());
+            }
+        }
+        return uploaded;
+    }
+
+    private static int countPlaceholders(IncrementalRemoteKeyedStateHandle stateHandle) {
+        int placeholders = 0;
+        for (StreamStateHandle sharedState : stateHandle.getSharedState().values()) {
+            if (sharedState instanceof PlaceholderStreamStateHandle) {
+                placeholders++;
+            }
+        }
+        return placeholders;
+    }
+
+    private static KeyGroupRange allKeyGroups() {
+        return new KeyGroupRange(0, MAX_PARALLELISM - 1);
+    }
+
+    private static HeapKeyedStateBackend<String> createKeyedBackend(
+            KeyGroupRange keyGroupRange, Collection<KeyedStateHandle> stateHandles)
+            throws Exception {
+        ExecutionConfig executionConfig = new ExecutionConfig();
+        return new HeapKeyedStateBackendBuilder<>(
+                        mock(TaskKvStateRegistry.class),
+                        StringSerializer.INSTANCE,
+                        HeapIncrementalSnapshotStrategyTest.class.getClassLoader(),
+                        MAX_PARALLELISM,
+                        keyGroupRange,
+                        executionConfig,
+                        TtlTimeProvider.DEFAULT,
+                        LatencyTrackingStateConfig.disabled(),
+                        stateHandles,
+                        AbstractStateBackend.getCompressionDecorator(executionConfig),
+                        TestLocalRecoveryConfig.disabled(),
+                        new HeapPriorityQueueSetFactory(keyGroupRange, MAX_PARALLELISM, 128),
+                        true,
+                        new CloseableRegistry())
+                .setEnableIncrementalCheckpointing(true)
+                .build();
+    }
+}
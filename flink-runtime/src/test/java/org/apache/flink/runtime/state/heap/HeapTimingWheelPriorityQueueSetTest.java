@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.runtime.state.InternalPriorityQueueTestBase;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.RegisteredPriorityQueueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateSnapshot;
+import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/** Test for {@link HeapTimingWheelPriorityQueueSet}. */
+public class HeapTimingWheelPriorityQueueSetTest extends InternalPriorityQueueTestBase {
+
+    @Override
+    protected HeapTimingWheelPriorityQueueSet<TestElement> newPriorityQueue(int initialCapacity) {
+        return new HeapTimingWheelPriorityQueueSet<>(
+                TEST_ELEMENT_PRIORITY_COMPARATOR,
+                TestElement::getPriority,
+                KEY_EXTRACTOR_FUNCTION,
+                initialCapacity,
+                KEY_GROUP_RANGE,
+                KEY_GROUP_RANGE.getNumberOfKeyGroups());
+    }
+
+    @Override
+    protected boolean testSetSemanticsAgainstDuplicateElements() {
+        return true;
+    }
+
+    /**
+     * Mixes adds, removes and polls around a slowly advancing time, including elements before the
+     * current head, and compares the results against a {@link PriorityQueue}.
+     */
+    @Test
+    public void testMixedOperationsAgainstReferenceQueue() {
+        final HeapTimingWheelPriorityQueueSet<TestElement> priorityQueue = newPriorityQueue(1);
+        final PriorityQueue<Long> referenceQueue = new PriorityQueue<>();
+        final List<TestElement> contained = new ArrayList<>();
+        final Random random = new Random(42L);
+
+        long currentTime = 1_600_000_000_000L;
+        long nextKey = 0L;
+        for (int i = 0; i < 20_000; ++i) {
+            final int operation = random.nextInt(10);
+            if (operation < 5) {
+                final long delay =
+                        random.nextBoolean() ? random.nextInt(100) : random.nextInt(10_000_000);
+                final TestElement element = new TestElement(nextKey++, currentTime + delay - 50);
+                final boolean headChanged = priorityQueue.add(element);
+                Assert.assertEquals(headChanged, priorityQueue.peek() == element);
+                contained.add(element);
+                referenceQueue.add(element.getPriority());
+            } else if (operation < 7 && !contained.isEmpty()) {
+                final TestElement element = contained.remove(random.nextInt(contained.size()));
+                priorityQueue.remove(element);
+                Assert.assertTrue(referenceQueue.remove(element.getPriority()));
+            } else {
+                currentTime += random.nextInt(10_000);
+                TestElement head;
+                while ((head = priorityQueue.peek()) != null && head.getPriority() <= currentTime) {
+                    Assert.assertEquals(referenceQueue.poll(), (Long) head.getPriority());
+                    Assert.assertEquals(head, priorityQueue.poll());
+                    Assert.assertTrue(contained.remove(head));
+                }
+            }
+            Assert.assertEquals(referenceQueue.size(), priorityQueue.size());
+            Assert.assertEquals(
+                    referenceQueue.peek(),
+                    priorityQueue.isEmpty() ? null : priorityQueue.peek().getPriority());
+        }
+    }
+
+    @Test
+    public void testGetSubsetForKeyGroup() {
+        final HeapTimingWheelPriorityQueueSet<TestElement> priorityQueue = newPriorityQueue(1);
+        final Set<TestElement> checkSet = new HashSet<>();
+        insertRandomElements(priorityQueue, checkSet, 100);
+
+        int subsetSizes = 0;
+        for (int keyGroup : KEY_GROUP_RANGE) {
+            for (TestElement element : priorityQueue.getSubsetForKeyGroup(keyGroup)) {
+                Assert.assertEquals(
+                        keyGroup,
+                        KeyGroupRangeAssignment.assignToKeyGroup(
+                                element.getKey(), KEY_GROUP_RANGE.getNumberOfKeyGroups()));
+                Assert.assertTrue(checkSet.contains(element));
+                ++subsetSizes;
+            }
+        }
+        Assert.assertEquals(checkSet.size(), subsetSizes);
+    }
+
+    /** Snapshots of the timing wheel can be restored into a heap and vice versa. */
+    @Test
+    public void testSnapshotCompatibilityWithHeapPriorityQueueSet() throws Exception {
+        final HeapTimingWheelPriorityQueueSet<TestElement> timingWheel = newPriorityQueue(1);
+        final HeapPriorityQueueSet<TestElement> heap =
+                new HeapPriorityQueueSet<>(
+                        TEST_ELEMENT_PRIORITY_COMPARATOR,
+                        KEY_EXTRACTOR_FUNCTION,
+                        1,
+                        KEY_GROUP_RANGE,
+                        KEY_GROUP_RANGE.getNumberOfKeyGroups());
+
+        final Set<TestElement> checkSet = new HashSet<>();
+        insertRandomElements(timingWheel, checkSet, 200);
+
+        copyViaSnapshot(timingWheel, heap);
+        Assert.assertEquals(checkSet.size(), heap.size());
+
+        final HeapTimingWheelPriorityQueueSet<TestElement> restoredTimingWheel =
+                newPriorityQueue(1);
+        copyViaSnapshot(heap, restoredTimingWheel);
+        Assert.assertEquals(checkSet.size(), restoredTimingWheel.size());
+
+        TestElement element;
+        while ((element = restoredTimingWheel.poll()) != null) {
+            Assert.assertEquals(heap.poll().getPriority(), element.getPriority());
+            Assert.assertTrue(checkSet.remove(element));
+        }
+        Assert.assertTrue(checkSet.isEmpty());
+    }
+
+    private static void copyViaSnapshot(
+            KeyGroupedInternalPriorityQueue<TestElement> source,
+            KeyGroupedInternalPriorityQueue<TestElement> target)
+            throws Exception {
+
+        final StateSnapshot snapshot = createWrapper(source).stateSnapshot();
+        final StateSnapshot.StateKeyGroupWriter writer = snapshot.getKeyGroupWriter();
+        final StateSnapshotKeyGroupReader reader = createWrapper(target).keyGroupReader(0);
+        for (int keyGroup : KEY_GROUP_RANGE) {
+            final DataOutputSerializer out = new DataOutputSerializer(64);
+            writer.writeStateInKeyGroup(out, keyGroup);
+            reader.readMappingsInKeyGroup(
+                    new DataInputDeserializer(out.getCopyOfBuffer()), keyGroup);
+        }
+    }
+
+    private static HeapPriorityQueueSnapshotRestoreWrapper<TestElement> createWrapper(
+            KeyGroupedInternalPriorityQueue<TestElement> priorityQueue) {
+        return new HeapPriorityQueueSnapshotRestoreWrapper<>(
+                priorityQueue,
+                new RegisteredPriorityQueueStateBackendMetaInfo<>(
+                        "test", TestElementSerializer.INSTANCE),
+                KEY_EXTRACTOR_FUNCTION,
+                KEY_GROUP_RANGE,
+                KEY_GROUP_RANGE.getNumberOfKeyGroups());
+    }
+
+    /**
+     * Elements that do not carry a timestamp cannot be kept in a timing wheel, so the factory falls
+     * back to a {@link HeapPriorityQueueSet} for them.
+     */
+    @Test
+    public void testFactoryFallsBackForElementsWithoutTimestamp() {
+        final HeapPriorityQueueSetFactory factory =
+                new HeapPriorityQueueSetFactory(
+                        KEY_GROUP_RANGE, KEY_GROUP_RANGE.getNumberOfKeyGroups(), 1, true);
+
+        final KeyGroupedInternalPriorityQueue<TestElement> priorityQueue =
+                factory.create("test", TestElementSerializer.INSTANCE);
+
+        Assert.assertTrue(priorityQueue instanceof HeapPriorityQueueSet);
+        priorityQueue.add(new TestElement(1L, 42L));
+        Assert.assertEquals(42L, priorityQueue.poll().getPriority());
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.DoubleSerializer;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.internal.InternalKvState.StateIncrementalVisitor;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+/** Test for {@link PrimitiveStateMap}. */
+public class PrimitiveStateMapTest extends TestLogger {
+
+    /** Compares random modifications against a {@link HashMap}. */
+    @Test
+    public void testRandomModificationsAgainstHashMap() throws Exception {
+        final PrimitiveStateMap<Long, VoidNamespace, Long> stateMap = createLongStateMap();
+        final HashMap<Long, Long> referenceMap = new HashMap<>();
+        final Random random = new Random(42L);
+
+        for (int i = 0; i < 100_000; ++i) {
+            final long key = random.nextInt(2_000) - 1_000L;
+            final Long state = random.nextInt(20) == 0 ? null : random.nextLong();
+            switch (random.nextInt(6)) {
+                case 0:
+                    stateMap.put(key, VoidNamespace.INSTANCE, state);
+                    referenceMap.put(key, state);
+                    break;
+                case 1:
+                    Assert.assertEquals(
+                            referenceMap.put(key, state),
+                            stateMap.putAndGetOld(key, VoidNamespace.INSTANCE, state));
+                    break;
+                case 2:
+                    stateMap.remove(key, VoidNamespace.INSTANCE);
+                    referenceMap.remove(key);
+                    break;
+                case 3:
+                    Assert.assertEquals(
+                            referenceMap.remove(key),
+                            stateMap.removeAndGetOld(key, VoidNamespace.INSTANCE));
+                    break;
+                case 4:
+                    stateMap.transform(
+                            key,
+                            VoidNamespace.INSTANCE,
+                            1L,
+                            (previous, value) -> previous == null ? value : previous + value);
+                    referenceMap.merge(key, 1L, (previous, value) -> previous + value);
+                    break;
+                default:
+                    Assert.assertEquals(
+                            referenceMap.containsKey(key),
+                            stateMap.containsKey(key, VoidNamespace.INSTANCE));
+                    Assert.assertEquals(
+                            referenceMap.get(key), stateMap.get(key, VoidNamespace.INSTANCE));
+            }
+            Assert.assertEquals(referenceMap.size(), stateMap.size());
+        }
+
+        Assert.assertEquals(referenceMap, toMap(stateMap.iterator()));
+    }
+
+    /** Snapshots are isolated from modifications, including removals and resizing. */
+    @Test
+    public void testSnapshotIsolation() throws Exception {
+        final PrimitiveStateMap<Long, VoidNamespace, Long> stateMap = createLongStateMap();
+        for (long i = 0; i < 100; ++i) {
+            stateMap.put(i, VoidNamespace.INSTANCE, i * 10);
+        }
+        final Map<Long, Long> expected = toMap(stateMap.iterator());
+
+        final PrimitiveStateMapSnapshot<Long, VoidNamespace, Long> snapshot =
+                stateMap.stateSnapshot();
+        for (long i = 0; i < 50; ++i) {
+            stateMap.remove(i, VoidNamespace.INSTANCE);
+            stateMap.put(i + 50, VoidNamespace.INSTANCE, -1L);
+        }
+        for (long i = 100; i < 1_000; ++i) {
+            stateMap.put(i, VoidNamespace.INSTANCE, i);
+        }
+
+        Assert.assertEquals(
+                expected,
+                toMap(
+                        snapshot.getIterator(
+                                LongSerializer.INSTANCE,
+                                VoidNamespaceSerializer.INSTANCE,
+                                LongSerializer.INSTANCE,
+                                null)));
+
+        final DataOutputSerializer out = new DataOutputSerializer(1024);
+        snapshot.writeState(
+                LongSerializer.INSTANCE,
+                VoidNamespaceSerializer.INSTANCE,
+                LongSerializer.INSTANCE,
+                out,
+                null);
+        snapshot.release();
+        Assert.assertTrue(snapshot.isReleased());
+
+        final DataInputDeserializer in = new DataInputDeserializer(out.getCopyOfBuffer());
+        final int numberOfEntries = in.readInt();
+        final Map<Long, Long> written = new HashMap<>();
+        for (int i = 0; i < numberOfEntries; ++i) {
+            Assert.assertEquals(
+                    VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE.deserialize(in));
+            written.put(
+                    LongSerializer.INSTANCE.deserialize(in),
+                    LongSerializer.INSTANCE.deserialize(in));
+        }
+        Assert.assertEquals(expected, written);
+        Assert.assertEquals(950, stateMap.size());
+    }
+
+    @Test
+    public void testIteratingOverSnapshotWithTransform() {
+        final PrimitiveStateMap<Integer, VoidNamespace, Double> stateMap =
+                new PrimitiveStateMap<>(
+                        PrimitiveTypeCodec.INT, PrimitiveTypeCodec.DOUBLE, VoidNamespace.INSTANCE);
+        for (int i = 0; i < 10; ++i) {
+            stateMap.put(i, VoidNamespace.INSTANCE, i + 0.5);
+        }
+
+        final PrimitiveStateMapSnapshot<Integer, VoidNamespace, Double> snapshot =
+                stateMap.stateSnapshot();
+        final StateSnapshotTransformer<Double> transformer =
+                value -> value > 5.0 ? value * 2 : null;
+        final Map<Integer, Double> transformed = new HashMap<>();
+        Iterator<StateEntry<Integer, VoidNamespace, Double>> iterator =
+                snapshot.getIterator(
+                        IntSerializer.INSTANCE,
+                        VoidNamespaceSerializer.INSTANCE,
+                        DoubleSerializer.INSTANCE,
+                        transformer);
+        while (iterator.hasNext()) {
+            StateEntry<Integer, VoidNamespace, Double> entry = iterator.next();
+            transformed.put(entry.getKey(), entry.getState());
+        }
+
+        Assert.assertEquals(5, transformed.size());
+        for (int i = 5; i < 10; ++i) {
+            Assert.assertEquals((i + 0.5) * 2, transformed.get(i), 0.0);
+        }
+        snapshot.release();
+    }
+
+    @Test
+    public void testIncrementalVisitor() {
+        final PrimitiveStateMap<Long, VoidNamespace, Long> stateMap = createLongStateMap();
+        for (long i = 0; i < 1_000; ++i) {
+            stateMap.put(i, VoidNamespace.INSTANCE, i);
+        }
+
+        final StateIncrementalVisitor<Long, VoidNamespace, Long> visitor =
+                stateMap.getStateIncrementalVisitor(7);
+        int visited = 0;
+        while (visitor.hasNext()) {
+            final Collection<StateEntry<Long, VoidNamespace, Long>> entries = visitor.nextEntries();
+            Assert.assertTrue(entries.size() <= 7);
+            for (StateEntry<Long, VoidNamespace, Long> entry : entries) {
+                Assert.assertEquals(entry.getKey(), entry.getState());
+                visitor.update(entry, entry.getState() + 1);
+                ++visited;
+            }
+        }
+
+        Assert.assertEquals(1_000, visited);
+        for (long i = 0; i < 1_000; ++i) {
+            Assert.assertEquals(i + 1, (long) stateMap.get(i, VoidNamespace.INSTANCE));
+        }
+    }
+
+    @Test
+    public void testIsSupported() {
+        Assert.assertTrue(
+                PrimitiveStateTable.isSupported(
+                        LongSerializer.INSTANCE,
+                        createMetaInfo(VoidNamespaceSerializer.INSTANCE, LongSerializer.INSTANCE)));
+        Assert.assertTrue(
+                PrimitiveStateTable.isSupported(
+                        IntSerializer.INSTANCE,
+                        createMetaInfo(
+                                VoidNamespaceSerializer.INSTANCE, DoubleSerializer.INSTANCE)));
+        Assert.assertFalse(
+                PrimitiveStateTable.isSupported(
+                        StringSerializer.INSTANCE,
+                        createMetaInfo(VoidNamespaceSerializer.INSTANCE, LongSerializer.INSTANCE)));
+        Assert.assertFalse(
+                PrimitiveStateTable.isSupported(
+                        LongSerializer.INSTANCE,
+                        createMetaInfo(
+                                VoidNamespaceSerializer.INSTANCE, StringSerializer.INSTANCE)));
+        Assert.assertFalse(
+                PrimitiveStateTable.isSupported(
+                        LongSerializer.INSTANCE,
+                        createMetaInfo(LongSerializer.INSTANCE, LongSerializer.INSTANCE)));
+    }
+
+    private static PrimitiveStateMap<Long, VoidNamespace, Long> createLongStateMap() {
+        return new PrimitiveStateMap<>(
+                PrimitiveTypeCodec.LONG, PrimitiveTypeCodec.LONG, VoidNamespace.INSTANCE);
+    }
+
+    private static <N, S> RegisteredKeyValueStateBackendMetaInfo<N, S> createMetaInfo(
+            TypeSerializer<N> namespaceSerializer, TypeSerializer<S> stateSerializer) {
+        return new RegisteredKeyValueStateBackendMetaInfo<>(
+                StateDescriptor.Type.VALUE, "test", namespaceSerializer, stateSerializer);
+    }
+
+    private static <K, S> Map<K, S> toMap(Iterator<StateEntry<K, VoidNamespace, S>> iterator) {
+        final Map<K, S> result = new HashMap<>();
+        while (iterator.hasNext()) {
+            final StateEntry<K, VoidNamespace, S> entry = iterator.next();
+            Assert.assertEquals(VoidNamespace.INSTANCE, entry.getNamespace());
+            Assert.assertNull(result.put(entry.getKey(), entry.getState()));
+        }
+        return result;
+    }
+}
@@ -37,4 +37,9 @@ public class HeapAsyncSnapshotTtlStateTest extends TtlStateTestBase {
     protected boolean incrementalCleanupSupported() {
         return true;
     }
+
+    @Override
+    protected boolean expiryIndexCleanupSupported() {
+        return true;
+    }
 }
@@ -90,6 +90,7 @@ public abstract class TtlStateTestBase {
                 new TtlNonFixedLenElemListStateTestContext(),
                 new TtlMapStateAllEntriesTestContext(),
                 new TtlMapStatePerElementTestContext(),
+                new TtlMapStateGetAllTestContext(),
                 new TtlMapStatePerNullElementTestContext(),
                 new TtlAggregatingStateTestContext(),
                 new TtlReducingStateTestContext());
@@ -180,6 +181,10 @@ public abstract class TtlStateTestBase {
         return false;
     }
 
+    protected boolean expiryIndexCleanupSupported() {
+        return false;
+    }
+
     @Test
     public void testNonExistentValue() throws Exception {
         initTest();
@@ -549,6 +554,63 @@ public abstract class TtlStateTestBase {
         checkExpiredKeys(0, keysToUpdate >> 1);
     }
 
+    @Test
+    public void testExpiryIndexCleanup() throws Exception {
+        assumeTrue(expiryIndexCleanupSupported());
+        initTest(
+                getConfBuilder(TTL)
+                        .cleanupWithExpiryIndex(true)
+                        .disableCleanupInBackground()
+                        .build());
+
+        final int keysToUpdate = INC_CLEANUP_ALL_KEYS >> 2;
+
+        timeProvider.time = 0;
+        updateKeys(0, INC_CLEANUP_ALL_KEYS, ctx().updateEmpty);
+
+        timeProvider.time = 50;
+        updateKeys(0, keysToUpdate, ctx().updateUnexpired);
+
+        // a single processed record expires all entries which were not updated
+        timeProvider.time = 120;
+        sbetc.setCurrentKey(Integer.toString(INC_CLEANUP_ALL_KEYS));
+        checkOriginalClearedKeys(keysToUpdate, INC_CLEANUP_ALL_KEYS);
+        checkUnexpiredKeys(0, keysToUpdate, ctx().getUnexpired);
+
+        // updated entries have been scheduled again for their later expiration
+        timeProvider.time = 170;
+        sbetc.setCurrentKey(Integer.toString(INC_CLEANUP_ALL_KEYS));
+        checkOriginalClearedKeys(0, INC_CLEANUP_ALL_KEYS);
+    }
+
+    @Test
+    public void testExpiryIndexCleanupOfRestoredState() throws Exception {
+        assumeTrue(expiryIndexCleanupSupported());
+        initTest(
+                getConfBuilder(TTL)
+                        .cleanupWithExpiryIndex(true)
+                        .disableCleanupInBackground()
+                        .build());
+
+        timeProvider.time = 0;
+        updateKeys(0, INC_CLEANUP_ALL_KEYS, ctx().updateEmpty);
+        takeAndRestoreSnapshot();
+
+        // restored entries are indexed incrementally, one batch per processed record
+        timeProvider.time = 120;
+        for (int i = INC_CLEANUP_ALL_KEYS; i < INC_CLEANUP_ALL_KEYS * 2; i++) {
+            sbetc.setCurrentKey(Integer.toString(i));
+        }
+        checkOriginalClearedKeys(0, INC_CLEANUP_ALL_KEYS);
+    }
+
+    private void checkOriginalClearedKeys(int startKey, int endKey) throws Exception {
+        for (int i = startKey; i < endKey; i++) {
+            sbetc.setCurrentKey(Integer.toString(i));
+            assertTrue("Original state should be cleared", isOriginalCleared());
+        }
+    }
+
     private <T> void updateKeys(int startKey, int endKey, T value) throws Exception {
         for (int i = startKey; i < endKey; i++) {
             sbetc.setCurrentKey(Integer.toString(i));
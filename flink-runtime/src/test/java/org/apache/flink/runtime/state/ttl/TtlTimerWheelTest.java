@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link TtlTimerWheel}. */
+public class TtlTimerWheelTest extends TestLogger {
+
+    @Test
+    public void testElementsExpireAtTheirTimestamp() {
+        TtlTimerWheel<String> wheel = new TtlTimerWheel<>(10L, 0L);
+        assertTrue(wheel.schedule("a", 25L));
+        assertTrue(wheel.schedule("b", 30L));
+        assertTrue(wheel.schedule("c", 100L));
+        assertEquals(3, wheel.size());
+
+        assertTrue(wheel.advance(24L).isEmpty());
+        // expiration is rounded up to the next tick
+        assertTrue(wheel.advance(29L).isEmpty());
+        assertEquals(sorted("a", "b"), sorted(wheel.advance(30L)));
+        assertTrue(wheel.advance(99L).isEmpty());
+        assertEquals(Collections.singletonList("c"), wheel.advance(100L));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testScheduleKeepsEarlierExpiration() {
+        TtlTimerWheel<String> wheel = new TtlTimerWheel<>(1L, 0L);
+        assertTrue(wheel.schedule("a", 50L));
+        assertFalse(wheel.schedule("a", 80L));
+        assertTrue(wheel.schedule("a", 20L));
+        assertEquals(1, wheel.size());
+
+        assertEquals(Collections.singletonList("a"), wheel.advance(20L));
+        assertTrue(wheel.advance(100L).isEmpty());
+        assertFalse(wheel.contains("a"));
+    }
+
+    @Test
+    public void testScheduleInThePast() {
+        TtlTimerWheel<String> wheel = new TtlTimerWheel<>(1L, 100L);
+        assertTrue(wheel.schedule("a", 10L));
+        assertEquals(Collections.singletonList("a"), wheel.advance(100L));
+    }
+
+    @Test
+    public void testElementsBeyondWheelRange() {
+        long range = 1L << 24;
+        TtlTimerWheel<String> wheel = new TtlTimerWheel<>(1L, 0L);
+        wheel.schedule("far", 5 * range + 3);
+        wheel.schedule("near", 7L);
+
+        assertEquals(Collections.singletonList("near"), wheel.advance(range));
+        assertTrue(wheel.advance(5 * range + 2).isEmpty());
+        assertEquals(Collections.singletonList("far"), wheel.advance(5 * range + 3));
+    }
+
+    @Test
+    public void testRandomizedAgainstSortedExpirations() {
+        Random random = new Random(42L);
+        TtlTimerWheel<Integer> wheel = new TtlTimerWheel<>(3L, 0L);
+        Map<Integer, Long> expected = new HashMap<>();
+        long now = 0L;
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 50; i++) {
+                int element = random.nextInt(2000);
+                long expiration = now + random.nextInt(round % 10 == 0 ? 2_000_000 : 5_000);
+                wheel.schedule(element, expiration);
+                expected.merge(element, expiration, Math::min);
+            }
+            now += random.nextInt(round % 20 == 0 ? 1_000_000 : 500);
+
+            List<Integer> expired = wheel.advance(now);
+            for (Integer element : expired) {
+                long expiration = expected.remove(element);
+                assertTrue(expiration <= now);
+            }
+            // remaining elements expire after the current tick at the latest
+            for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+                assertTrue(entry.getValue() > now - 3L);
+            }
+            assertEquals(expected.size(), wheel.size());
+        }
+    }
+
+    private static List<String> sorted(String... elements) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, elements);
+        return sorted(list);
+    }
+
+    private static List<String> sorted(List<String> elements) {
+        List<String> list = new ArrayList<>(elements);
+        Collections.sort(list);
+        return list;
+    }
+}
@@ -39,6 +39,10 @@ public enum NoOpCheckpointResponder implements CheckpointResponder {
             long checkpointId,
             CheckpointMetrics checkpointMetrics) {}
 
+    @Override
+    public void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId) {}
+
     @Override
     public void declineCheckpoint(JobID j, ExecutionAttemptID e, long l, CheckpointException c) {}
 }
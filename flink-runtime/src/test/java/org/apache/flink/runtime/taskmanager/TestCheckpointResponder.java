@@ -68,6 +68,10 @@ public class TestCheckpointResponder implements CheckpointResponder {
             long checkpointId,
             CheckpointMetrics checkpointMetrics) {}
 
+    @Override
+    public void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId) {}
+
     @Override
     public void declineCheckpoint(
             JobID jobID,
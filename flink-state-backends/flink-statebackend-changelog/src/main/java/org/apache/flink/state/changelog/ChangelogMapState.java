@@ -33,6 +33,7 @@ import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.function.ThrowingConsumer;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -91,6 +92,11 @@ class ChangelogMapState<K, N, UK, UV>
         return delegatedState.get(key);
     }
 
+    @Override
+    public Map<UK, UV> getAll(Collection<UK> keys) throws Exception {
+        return delegatedState.getAll(keys);
+    }
+
     @Override
     public void put(UK key, UV value) throws Exception {
         delegatedState.put(key, value);
@@ -1305,6 +1305,13 @@ public final class CopyOnWriteSkipListStateMap<K, N, S> extends StateMap<K, N, S
         return closed.get();
     }
 
+    /** Returns whether there are snapshots of this map which have not been released yet. */
+    boolean hasUnreleasedSnapshots() {
+        synchronized (snapshotVersions) {
+            return !snapshotVersions.isEmpty();
+        }
+    }
+
     @Override
     public void close() {
         if (!closed.compareAndSet(false, true)) {
@@ -64,6 +64,9 @@ public class CopyOnWriteSkipListStateMapSnapshot<K, N, S>
     /** This lease protects the state map resources. */
     private final ResourceGuard.Lease lease;
 
+    /** Whether this snapshot has been released. */
+    private boolean released;
+
     /**
      * Creates a new {@link CopyOnWriteSkipListStateMap}.
      *
@@ -87,8 +90,11 @@ public class CopyOnWriteSkipListStateMapSnapshot<K, N, S>
 
     @Override
     public void release() {
-        owningStateMap.releaseSnapshot(this);
-        lease.close();
+        if (!released) {
+            owningStateMap.releaseSnapshot(this);
+            lease.close();
+            released = true;
+        }
     }
 
     @Override
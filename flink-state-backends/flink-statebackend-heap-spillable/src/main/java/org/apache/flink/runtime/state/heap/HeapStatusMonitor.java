@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Monitors the heap usage of the JVM right after garbage collections. The heap usage after a
+ * collection is a conservative estimate of the live data on the heap, which is what the {@link
+ * SpillAndLoadManager} bases its decisions on. There is a single monitor per JVM which is shared by
+ * all spillable state backends.
+ *
+ * <p>The monitor relies on the garbage collection notifications of the JVM. If the JVM does not
+ * support them, no heap status is ever reported and no state is spilled.
+ */
+class HeapStatusMonitor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HeapStatusMonitor.class);
+
+    private static volatile HeapStatusMonitor instance;
+
+    private final Set<String> heapPoolNames = new HashSet<>();
+
+    private final long maxHeapMemory;
+
+    private long numGarbageCollections;
+
+    @Nullable private volatile HeapStatus heapStatus;
+
+    private HeapStatusMonitor() {
+        this.maxHeapMemory = Runtime.getRuntime().maxMemory();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPoolNames.add(pool.getName());
+            }
+        }
+
+        NotificationListener listener = this::handleNotification;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gcBean instanceof NotificationEmitter) {
+                ((NotificationEmitter) gcBean).addNotificationListener(listener, null, null);
+            } else {
+                LOG.warn(
+                        "Garbage collector {} does not emit notifications, the heap status is not monitored for it.",
+                        gcBean.getName());
+            }
+        }
+    }
+
+    /** Returns the monitor of this JVM. */
+    static HeapStatusMonitor getInstance() {
+        if (instance == null) {
+            synchronized (HeapStatusMonitor.class) {
+                if (instance == null) {
+                    instance = new HeapStatusMonitor();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the heap status after the latest garbage collection, or null if no garbage collection
+     * has been observed yet.
+     */
+    @Nullable
+    HeapStatus getHeapStatus() {
+        return heapStatus;
+    }
+
+    private void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(
+                notification.getType())) {
+            return;
+        }
+
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long usedHeapMemory = 0;
+        for (Map.Entry<String, MemoryUsage> usage :
+                info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+            if (heapPoolNames.contains(usage.getKey())) {
+                usedHeapMemory += usage.getValue().getUsed();
+            }
+        }
+
+        // notifications are delivered sequentially by a single JMX thread
+        heapStatus = new HeapStatus(++numGarbageCollections, usedHeapMemory, maxHeapMemory);
+    }
+
+    /** The usage of the heap after a garbage collection. */
+    static final class HeapStatus {
+
+        /** The sequence number of the garbage collection this status was taken after. */
+        private final long gcSequenceNumber;
+
+        private final long usedMemory;
+
+        private final long maxMemory;
+
+        HeapStatus(long gcSequenceNumber, long usedMemory, long maxMemory) {
+            this.gcSequenceNumber = gcSequenceNumber;
+            this.usedMemory = usedMemory;
+            this.maxMemory = maxMemory;
+        }
+
+        long getGcSequenceNumber() {
+            return gcSequenceNumber;
+        }
+
+        long getUsedMemory() {
+            return usedMemory;
+        }
+
+        long getMaxMemory() {
+            return maxMemory;
+        }
+
+        /** Returns the fraction of the maximum heap size which is in use. */
+        float getUsageRatio() {
+            return maxMemory > 0 ? (float) usedMemory / maxMemory : 0f;
+        }
+
+        @Override
+        public String toString() {
+            return "HeapStatus{"
+                    + "gcSequenceNumber="
+                    + gcSequenceNumber
+                    + ", usedMemory="
+                    + usedMemory
+                    + ", maxMemory="
+                    + maxMemory
+                    + '}';
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.runtime.state.heap.HeapStatusMonitor.HeapStatus;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.Preconditions;
+import org.apache.flink.util.clock.Clock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Decides which key groups of the {@link SpillableStateTable SpillableStateTables} of a backend are
+ * kept on the heap and which are spilled.
+ *
+ * <p>When the heap usage after a garbage collection exceeds the spill threshold, the coldest key
+ * groups are spilled until the given ratio of the entries on the heap has been moved. When the heap
+ * usage drops below the load threshold, the hottest spilled key groups are loaded back until the
+ * given ratio of the spilled entries has been moved. The temperature of a key group is the number
+ * of recent accesses per entry. The gap between the two thresholds prevents key groups from being
+ * moved back and forth.
+ *
+ * <p>All methods must be called from the task thread, which is the only thread modifying the state
+ * tables.
+ */
+class SpillAndLoadManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpillAndLoadManager.class);
+
+    private final Supplier<HeapStatus> heapStatusSupplier;
+
+    private final Clock clock;
+
+    private final long checkIntervalMillis;
+
+    private final float spillThreshold;
+
+    private final float loadThreshold;
+
+    private final float spillSizeRatio;
+
+    private final float loadSizeRatio;
+
+    private final List<SpillableStateTable<?, ?, ?>> stateTables = new ArrayList<>();
+
+    @Nullable private HeapStatus lastHeapStatus;
+
+    private long lastCheckTimestamp;
+
+    SpillAndLoadManager(
+            Supplier<HeapStatus> heapStatusSupplier,
+            Clock clock,
+            long checkIntervalMillis,
+            float spillThreshold,
+            float loadThreshold,
+            float spillSizeRatio,
+            float loadSizeRatio) {
+        Preconditions.checkArgument(
+                0 <= loadThreshold && loadThreshold < spillThreshold,
+                "The load threshold %s must be non-negative and lower than the spill threshold %s.",
+                loadThreshold,
+                spillThreshold);
+        Preconditions.checkArgument(
+                0 < spillSizeRatio && spillSizeRatio <= 1,
+                "The spill size ratio %s must be in (0, 1].",
+                spillSizeRatio);
+        Preconditions.checkArgument(
+                0 < loadSizeRatio && loadSizeRatio <= 1,
+                "The load size ratio %s must be in (0, 1].",
+                loadSizeRatio);
+
+        this.heapStatusSupplier = Preconditions.checkNotNull(heapStatusSupplier);
+        this.clock = Preconditions.checkNotNull(clock);
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.spillThreshold = spillThreshold;
+        this.loadThreshold = loadThreshold;
+        this.spillSizeRatio = spillSizeRatio;
+        this.loadSizeRatio = loadSizeRatio;
+    }
+
+    void registerStateTable(SpillableStateTable<?, ?, ?> stateTable) {
+        stateTables.add(stateTable);
+    }
+
+    /**
+     * Spills or loads key groups if a new heap status has been reported since the last check, and
+     * the check interval has passed. This is cheap enough to be called for every record.
+     */
+    void checkResource() {
+        HeapStatus heapStatus = heapStatusSupplier.get();
+        if (heapStatus == null || heapStatus == lastHeapStatus) {
+            return;
+        }
+
+        long now = clock.absoluteTimeMillis();
+        if (lastHeapStatus != null && now - lastCheckTimestamp < checkIntervalMillis) {
+            return;
+        }
+        lastHeapStatus = heapStatus;
+        lastCheckTimestamp = now;
+
+        float usageRatio = heapStatus.getUsageRatio();
+        if (usageRatio >= spillThreshold) {
+            spill(heapStatus);
+        } else if (usageRatio < loadThreshold) {
+            load(heapStatus);
+        }
+
+        for (SpillableStateTable<?, ?, ?> stateTable : stateTables) {
+            stateTable.decayAccessCounts();
+            stateTable.closeRetiredStateMaps();
+        }
+    }
+
+    private void spill(HeapStatus heapStatus) {
+        List<KeyGroupCandidate> candidates = collectCandidates(false);
+        long numEntriesOnHeap = candidates.stream().mapToLong(c -> c.size).sum();
+        long numEntriesToSpill = (long) Math.ceil(numEntriesOnHeap * spillSizeRatio);
+
+        candidates.sort(Comparator.comparingDouble(KeyGroupCandidate::getTemperature));
+        long numSpilledEntries = 0;
+        int numSpilledKeyGroups = 0;
+        for (KeyGroupCandidate candidate : candidates) {
+            if (numSpilledEntries >= numEntriesToSpill) {
+                break;
+            }
+            try {
+                candidate.stateTable.spillKeyGroup(candidate.keyGroupOffset);
+            } catch (FlinkRuntimeException e) {
+                LOG.warn("Failed to spill key group, keeping the remaining state on the heap.", e);
+                break;
+            }
+            numSpilledEntries += candidate.size;
+            numSpilledKeyGroups++;
+        }
+
+        LOG.info(
+                "Spilled {} entries in {} key groups of {} entries on the heap due to {}.",
+                numSpilledEntries,
+                numSpilledKeyGroups,
+                numEntriesOnHeap,
+                heapStatus);
+    }
+
+    private void load(HeapStatus heapStatus) {
+        List<KeyGroupCandidate> candidates = collectCandidates(true);
+        long numSpilledEntries = candidates.stream().mapToLong(c -> c.size).sum();
+        long numEntriesToLoad = (long) Math.ceil(numSpilledEntries * loadSizeRatio);
+
+        candidates.sort(Comparator.comparingDouble(KeyGroupCandidate::getTemperature).reversed());
+        long numLoadedEntries = 0;
+        int numLoadedKeyGroups = 0;
+        for (KeyGroupCandidate candidate : candidates) {
+            if (candidate.accessCount == 0
+                    || numLoadedEntries + candidate.size > numEntriesToLoad) {
+                // loading cold key groups does not pay off, and must not exceed the budget
+                break;
+            }
+            candidate.stateTable.loadKeyGroup(candidate.keyGroupOffset);
+            numLoadedEntries += candidate.size;
+            numLoadedKeyGroups++;
+        }
+
+        if (numLoadedKeyGroups > 0) {
+            LOG.info(
+                    "Loaded {} entries in {} key groups of {} spilled entries due to {}.",
+                    numLoadedEntries,
+                    numLoadedKeyGroups,
+                    numSpilledEntries,
+                    heapStatus);
+        }
+    }
+
+    private List<KeyGroupCandidate> collectCandidates(boolean spilled) {
+        List<KeyGroupCandidate> candidates = new ArrayList<>();
+        for (SpillableStateTable<?, ?, ?> stateTable : stateTables) {
+            for (int i = 0; i < stateTable.getNumberOfKeyGroups(); i++) {
+                if (stateTable.isSpilled(i) != spilled) {
+                    continue;
+                }
+                int size = stateTable.sizeOfKeyGroup(i);
+                if (size > 0) {
+                    candidates.add(
+                            new KeyGroupCandidate(
+                                    stateTable, i, size, stateTable.getAccessCount(i)));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /** Releases the space of all spilled key groups. */
+    void close() {
+        for (SpillableStateTable<?, ?, ?> stateTable : stateTables) {
+            stateTable.close();
+        }
+        stateTables.clear();
+    }
+
+    /** A key group of a state table which may be spilled or loaded. */
+    private static final class KeyGroupCandidate {
+
+        private final SpillableStateTable<?, ?, ?> stateTable;
+
+        private final int keyGroupOffset;
+
+        private final int size;
+
+        private final long accessCount;
+
+        private KeyGroupCandidate(
+                SpillableStateTable<?, ?, ?> stateTable,
+                int keyGroupOffset,
+                int size,
+                long accessCount) {
+            this.stateTable = stateTable;
+            this.keyGroupOffset = keyGroupOffset;
+            this.size = size;
+            this.accessCount = accessCount;
+        }
+
+        /** Returns the number of recent accesses per entry. */
+        private double getTemperature() {
+            return (double) accessCount / size;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.SnapshotExecutionType;
+import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.heap.space.SpaceAllocator;
+import org.apache.flink.runtime.state.metrics.LatencyTrackingStateConfig;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+
+import java.util.Map;
+
+/**
+ * A {@link HeapKeyedStateBackend} whose {@link SpillableStateTable SpillableStateTables} move cold
+ * key groups off the heap under memory pressure. The {@link SpillAndLoadManager} is consulted
+ * whenever the current key changes, so that key groups are only moved between records.
+ *
+ * @param <K> The key by which state is keyed.
+ */
+public class SpillableKeyedStateBackend<K> extends HeapKeyedStateBackend<K> {
+
+    private final SpillAndLoadManager spillAndLoadManager;
+
+    private final SpaceAllocator spaceAllocator;
+
+    SpillableKeyedStateBackend(
+            TaskKvStateRegistry kvStateRegistry,
+            TypeSerializer<K> keySerializer,
+            ClassLoader userCodeClassLoader,
+            ExecutionConfig executionConfig,
+            TtlTimeProvider ttlTimeProvider,
+            LatencyTrackingStateConfig latencyTrackingStateConfig,
+            CloseableRegistry cancelStreamRegistry,
+            StreamCompressionDecorator keyGroupCompressionDecorator,
+            Map<String, StateTable<K, ?, ?>> registeredKVStates,
+            Map<String, HeapPriorityQueueSnapshotRestoreWrapper<?>> registeredPQStates,
+            LocalRecoveryConfig localRecoveryConfig,
+            HeapPriorityQueueSetFactory priorityQueueSetFactory,
+            HeapSnapshotStrategy<K> checkpointStrategy,
+            SnapshotExecutionType snapshotExecutionType,
+            StateTableFactory<K> stateTableFactory,
+            InternalKeyContext<K> keyContext,
+            SpillAndLoadManager spillAndLoadManager,
+            SpaceAllocator spaceAllocator) {
+        super(
+                kvStateRegistry,
+                keySerializer,
+                userCodeClassLoader,
+                executionConfig,
+                ttlTimeProvider,
+                latencyTrackingStateConfig,
+                cancelStreamRegistry,
+                keyGroupCompressionDecorator,
+                registeredKVStates,
+                registeredPQStates,
+                localRecoveryConfig,
+                priorityQueueSetFactory,
+                checkpointStrategy,
+                snapshotExecutionType,
+                stateTableFactory,
+                keyContext);
+        this.spillAndLoadManager = spillAndLoadManager;
+        this.spaceAllocator = spaceAllocator;
+    }
+
+    @Override
+    public void setCurrentKey(K newKey) {
+        super.setCurrentKey(newKey);
+        spillAndLoadManager.checkResource();
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        spillAndLoadManager.close();
+        spaceAllocator.close();
+    }
+
+    @VisibleForTesting
+    SpillAndLoadManager getSpillAndLoadManager() {
+        return spillAndLoadManager;
+    }
+
+    @VisibleForTesting
+    SpaceAllocator getSpaceAllocator() {
+        return spaceAllocator;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.BackendBuildingException;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.heap.space.SpaceAllocator;
+import org.apache.flink.runtime.state.metrics.LatencyTrackingStateConfig;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+
+import javax.annotation.Nonnull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.apache.flink.runtime.state.SnapshotExecutionType.ASYNCHRONOUS;
+import static org.apache.flink.runtime.state.SnapshotExecutionType.SYNCHRONOUS;
+
+/**
+ * Builder class for {@link SpillableKeyedStateBackend} which handles all necessary initializations
+ * and clean ups.
+ *
+ * @param <K> The data type that the key serializer serializes.
+ */
+public class SpillableKeyedStateBackendBuilder<K> extends HeapKeyedStateBackendBuilder<K> {
+
+    /** The allocator of the space which key groups are spilled to. */
+    private final SpaceAllocator spaceAllocator;
+
+    /** The manager deciding which key groups are spilled. */
+    private final SpillAndLoadManager spillAndLoadManager;
+
+    SpillableKeyedStateBackendBuilder(
+            TaskKvStateRegistry kvStateRegistry,
+            TypeSerializer<K> keySerializer,
+            ClassLoader userCodeClassLoader,
+            int numberOfKeyGroups,
+            KeyGroupRange keyGroupRange,
+            ExecutionConfig executionConfig,
+            TtlTimeProvider ttlTimeProvider,
+            LatencyTrackingStateConfig latencyTrackingStateConfig,
+            @Nonnull Collection<KeyedStateHandle> stateHandles,
+            StreamCompressionDecorator keyGroupCompressionDecorator,
+            LocalRecoveryConfig localRecoveryConfig,
+            HeapPriorityQueueSetFactory priorityQueueSetFactory,
+            boolean asynchronousSnapshots,
+            CloseableRegistry cancelStreamRegistry,
+            SpaceAllocator spaceAllocator,
+            SpillAndLoadManager spillAndLoadManager) {
+        super(
+                kvStateRegistry,
+                keySerializer,
+                userCodeClassLoader,
+                numberOfKeyGroups,
+                keyGroupRange,
+                executionConfig,
+                ttlTimeProvider,
+                latencyTrackingStateConfig,
+                stateHandles,
+                keyGroupCompressionDecorator,
+                localRecoveryConfig,
+                priorityQueueSetFactory,
+                asynchronousSnapshots,
+                cancelStreamRegistry);
+        this.spaceAllocator = spaceAllocator;
+        this.spillAndLoadManager = spillAndLoadManager;
+    }
+
+    @Override
+    public SpillableKeyedStateBackend<K> build() throws BackendBuildingException {
+        // Map of registered Key/Value states
+        Map<String, StateTable<K, ?, ?>> registeredKVStates = new HashMap<>();
+        // Map of registered priority queue set states
+        Map<String, HeapPriorityQueueSnapshotRestoreWrapper<?>> registeredPQStates =
+                new HashMap<>();
+        CloseableRegistry cancelStreamRegistryForBackend = new CloseableRegistry();
+        HeapSnapshotStrategy<K> snapshotStrategy =
+                initSnapshotStrategy(registeredKVStates, registeredPQStates);
+        InternalKeyContext<K> keyContext =
+                new InternalKeyContextImpl<>(keyGroupRange, numberOfKeyGroups);
+
+        final StateTableFactory<K> stateTableFactory =
+                new StateTableFactory<K>() {
+                    @Override
+                    public <N, V> StateTable<K, N, V> newStateTable(
+                            InternalKeyContext<K> keyContext,
+                            RegisteredKeyValueStateBackendMetaInfo<N, V> keyValueStateMetaInfo,
+                            TypeSerializer<K> keySerializer) {
+                        SpillableStateTable<K, N, V> stateTable =
+                                new SpillableStateTable<>(
+                                        keyContext,
+                                        keyValueStateMetaInfo,
+                                        keySerializer,
+                                        spaceAllocator);
+                        spillAndLoadManager.registerStateTable(stateTable);
+                        return stateTable;
+                    }
+                };
+
+        try {
+            restoreState(registeredKVStates, registeredPQStates, keyContext, stateTableFactory);
+        } catch (BackendBuildingException e) {
+            spillAndLoadManager.close();
+            spaceAllocator.close();
+            throw e;
+        }
+        return new SpillableKeyedStateBackend<>(
+                kvStateRegistry,
+                keySerializerProvider.currentSchemaSerializer(),
+                userCodeClassLoader,
+                executionConfig,
+                ttlTimeProvider,
+                latencyTrackingStateConfig,
+                cancelStreamRegistryForBackend,
+                keyGroupCompressionDecorator,
+                registeredKVStates,
+                registeredPQStates,
+                localRecoveryConfig,
+                priorityQueueSetFactory,
+                snapshotStrategy,
+                asynchronousSnapshots ? ASYNCHRONOUS : SYNCHRONOUS,
+                stateTableFactory,
+                keyContext,
+                spillAndLoadManager,
+                spaceAllocator);
+    }
+}
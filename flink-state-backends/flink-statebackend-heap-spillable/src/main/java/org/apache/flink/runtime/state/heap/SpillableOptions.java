@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ConfigOptions;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.runtime.state.heap.space.SpaceType;
+
+import java.time.Duration;
+
+/** Configuration options for the {@link SpillableStateBackend}. */
+@PublicEvolving
+public class SpillableOptions {
+
+    /** The minimum interval between two decisions to spill or load state. */
+    public static final ConfigOption<Duration> CHECK_INTERVAL =
+            ConfigOptions.key("state.backend.spillable.check-interval")
+                    .durationType()
+                    .defaultValue(Duration.ofSeconds(10))
+                    .withDescription(
+                            "The minimum interval between two decisions to spill state to or load state from the spill space."
+                                    + " A decision is only taken after a garbage collection since the last decision.");
+
+    /** The heap usage above which state is spilled. */
+    public static final ConfigOption<Float> SPILL_THRESHOLD =
+            ConfigOptions.key("state.backend.spillable.spill-threshold")
+                    .floatType()
+                    .defaultValue(0.7f)
+                    .withDescription(
+                            "The fraction of the maximum heap size which, when in use after a garbage collection, triggers spilling of the coldest key groups.");
+
+    /** The heap usage below which spilled state is loaded back. */
+    public static final ConfigOption<Float> LOAD_THRESHOLD =
+            ConfigOptions.key("state.backend.spillable.load-threshold")
+                    .floatType()
+                    .defaultValue(0.5f)
+                    .withDescription(
+                            "The fraction of the maximum heap size below which the hottest spilled key groups are loaded back onto the heap."
+                                    + " It must be lower than the spill threshold.");
+
+    /** The fraction of the state on the heap which is spilled at once. */
+    public static final ConfigOption<Float> SPILL_SIZE_RATIO =
+            ConfigOptions.key("state.backend.spillable.spill-size-ratio")
+                    .floatType()
+                    .defaultValue(0.2f)
+                    .withDescription(
+                            "The fraction of the entries on the heap which are spilled when the spill threshold is exceeded.");
+
+    /** The fraction of the spilled state which is loaded back at once. */
+    public static final ConfigOption<Float> LOAD_SIZE_RATIO =
+            ConfigOptions.key("state.backend.spillable.load-size-ratio")
+                    .floatType()
+                    .defaultValue(0.1f)
+                    .withDescription(
+                            "The maximum fraction of the spilled entries which are loaded back when the heap usage is below the load threshold.");
+
+    /** The kind of memory the spilled state is stored in. */
+    public static final ConfigOption<SpaceType> SPACE_TYPE =
+            ConfigOptions.key("state.backend.spillable.space-type")
+                    .enumType(SpaceType.class)
+                    .defaultValue(SpaceType.MMAP)
+                    .withDescription(
+                            "The kind of memory the spilled state is stored in. MMAP stores it in memory mapped files in the"
+                                    + " temporary directories of the TaskManager, so that the operating system can page it out to disk."
+                                    + " OFF_HEAP stores it in native memory, which must be accounted for in the JVM overhead.");
+
+    /** The size of the chunks the spill space is allocated in. */
+    public static final ConfigOption<MemorySize> CHUNK_SIZE =
+            ConfigOptions.key("state.backend.spillable.chunk-size")
+                    .memoryType()
+                    .defaultValue(MemorySize.parse("64mb"))
+                    .withDescription(
+                            "The size of the chunks the spill space is allocated in. It must be a multiple of 1 mb and at most 1 gb.");
+}
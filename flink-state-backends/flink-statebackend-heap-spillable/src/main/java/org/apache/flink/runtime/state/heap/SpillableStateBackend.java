@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.core.execution.SavepointFormatType;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.runtime.state.BackendBuildingException;
+import org.apache.flink.runtime.state.ConfigurableStateBackend;
+import org.apache.flink.runtime.state.DefaultOperatorStateBackendBuilder;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.OperatorStateBackend;
+import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.TaskStateManager;
+import org.apache.flink.runtime.state.heap.space.SpaceAllocator;
+import org.apache.flink.runtime.state.heap.space.SpaceType;
+import org.apache.flink.runtime.state.metrics.LatencyTrackingStateConfig;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.Preconditions;
+import org.apache.flink.util.clock.SystemClock;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * A state backend which holds the working state as objects on the JVM heap like the {@link
+ * org.apache.flink.runtime.state.hashmap.HashMapStateBackend}, but spills the coldest key groups in
+ * serialized form to memory mapped files or native memory when the heap usage after garbage
+ * collections exceeds a threshold. Spilled key groups are loaded back onto the heap once enough
+ * heap memory is available again. This gives access latencies close to the heap backend for the hot
+ * part of the state, while the total state size is bounded by the local disks rather than the heap.
+ *
+ * <p>Snapshots are always full snapshots, written in the same format as those of the heap backend,
+ * so that jobs can switch between the two backends.
+ *
+ * <h1>Configuration</h1>
+ *
+ * <p>The backend picks up the options of {@link SpillableOptions} from the Flink configuration
+ * unless they have been set on the backend in the application.
+ */
+@PublicEvolving
+public class SpillableStateBackend extends AbstractStateBackend
+        implements ConfigurableStateBackend {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The minimum interval between two decisions to spill or load, null if not set. */
+    @Nullable private Duration checkInterval;
+
+    /** The heap usage above which state is spilled, null if not set. */
+    @Nullable private Float spillThreshold;
+
+    /** The heap usage below which spilled state is loaded back, null if not set. */
+    @Nullable private Float loadThreshold;
+
+    /** The fraction of the state on the heap which is spilled at once, null if not set. */
+    @Nullable private Float spillSizeRatio;
+
+    /** The fraction of the spilled state which is loaded back at once, null if not set. */
+    @Nullable private Float loadSizeRatio;
+
+    /** The kind of memory the spilled state is stored in, null if not set. */
+    @Nullable private SpaceType spaceType;
+
+    /** The size of the chunks the spill space is allocated in, null if not set. */
+    @Nullable private MemorySize chunkSize;
+
+    // -----------------------------------------------------------------------
+
+    /** Creates a new state backend. */
+    public SpillableStateBackend() {}
+
+    private SpillableStateBackend(SpillableStateBackend original, ReadableConfig config) {
+        // configure latency tracking
+        latencyTrackingConfigBuilder = original.latencyTrackingConfigBuilder.configure(config);
+
+        this.checkInterval =
+                original.checkInterval != null
+                        ? original.checkInterval
+                        : config.get(SpillableOptions.CHECK_INTERVAL);
+        this.spillThreshold =
+                original.spillThreshold != null
+                        ? original.spillThreshold
+                        : config.get(SpillableOptions.SPILL_THRESHOLD);
+        this.loadThreshold =
+                original.loadThreshold != null
+                        ? original.loadThreshold
+                        : config.get(SpillableOptions.LOAD_THRESHOLD);
+        this.spillSizeRatio =
+                original.spillSizeRatio != null
+                        ? original.spillSizeRatio
+                        : config.get(SpillableOptions.SPILL_SIZE_RATIO);
+        this.loadSizeRatio =
+                original.loadSizeRatio != null
+                        ? original.loadSizeRatio
+                        : config.get(SpillableOptions.LOAD_SIZE_RATIO);
+        this.spaceType =
+                original.spaceType != null
+                        ? original.spaceType
+                        : config.get(SpillableOptions.SPACE_TYPE);
+        this.chunkSize =
+                original.chunkSize != null
+                        ? original.chunkSize
+                        : config.get(SpillableOptions.CHUNK_SIZE);
+
+        checkConfiguration();
+    }
+
+    @Override
+    public SpillableStateBackend configure(ReadableConfig config, ClassLoader classLoader)
+            throws IllegalConfigurationException {
+        return new SpillableStateBackend(this, config);
+    }
+
+    private void checkConfiguration() {
+        float spillThreshold = getSpillThreshold();
+        float loadThreshold = getLoadThreshold();
+        if (loadThreshold < 0 || loadThreshold >= spillThreshold || spillThreshold > 1) {
+            throw new IllegalConfigurationException(
+                    "The load threshold %s must be non-negative and lower than the spill threshold %s, which must not exceed 1.",
+                    loadThreshold, spillThreshold);
+        }
+        if (getSpillSizeRatio() <= 0 || getSpillSizeRatio() > 1) {
+            throw new IllegalConfigurationException(
+                    "The spill size ratio %s must be in (0, 1].", getSpillSizeRatio());
+        }
+        if (getLoadSizeRatio() <= 0 || getLoadSizeRatio() > 1) {
+            throw new IllegalConfigurationException(
+                    "The load size ratio %s must be in (0, 1].", getLoadSizeRatio());
+        }
+        long chunkBytes = getChunkSize().getBytes();
+        if (chunkBytes < MemorySize.parse("1mb").getBytes()
+                || chunkBytes > MemorySize.parse("1gb").getBytes()
+                || chunkBytes % MemorySize.parse("1mb").getBytes() != 0) {
+            throw new IllegalConfigurationException(
+                    "The chunk size %s must be a multiple of 1 mb and at most 1 gb.",
+                    getChunkSize());
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    //  Properties
+    // ------------------------------------------------------------------------
+
+    public Duration getCheckInterval() {
+        return checkInterval != null
+                ? checkInterval
+                : SpillableOptions.CHECK_INTERVAL.defaultValue();
+    }
+
+    public void setCheckInterval(Duration checkInterval) {
+        this.checkInterval = Preconditions.checkNotNull(checkInterval);
+    }
+
+    public float getSpillThreshold() {
+        return spillThreshold != null
+                ? spillThreshold
+                : SpillableOptions.SPILL_THRESHOLD.defaultValue();
+    }
+
+    public void setSpillThreshold(float spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    public float getLoadThreshold() {
+        return loadThreshold != null
+                ? loadThreshold
+                : SpillableOptions.LOAD_THRESHOLD.defaultValue();
+    }
+
+    public void setLoadThreshold(float loadThreshold) {
+        this.loadThreshold = loadThreshold;
+    }
+
+    public float getSpillSizeRatio() {
+        return spillSizeRatio != null
+                ? spillSizeRatio
+                : SpillableOptions.SPILL_SIZE_RATIO.defaultValue();
+    }
+
+    public void setSpillSizeRatio(float spillSizeRatio) {
+        this.spillSizeRatio = spillSizeRatio;
+    }
+
+    public float getLoadSizeRatio() {
+        return loadSizeRatio != null
+                ? loadSizeRatio
+                : SpillableOptions.LOAD_SIZE_RATIO.defaultValue();
+    }
+
+    public void setLoadSizeRatio(float loadSizeRatio) {
+        this.loadSizeRatio = loadSizeRatio;
+    }
+
+    public SpaceType getSpaceType() {
+        return spaceType != null ? spaceType : SpillableOptions.SPACE_TYPE.defaultValue();
+    }
+
+    public void setSpaceType(SpaceType spaceType) {
+        this.spaceType = Preconditions.checkNotNull(spaceType);
+    }
+
+    public MemorySize getChunkSize() {
+        return chunkSize != null ? chunkSize : SpillableOptions.CHUNK_SIZE.defaultValue();
+    }
+
+    public void setChunkSize(MemorySize chunkSize) {
+        this.chunkSize = Preconditions.checkNotNull(chunkSize);
+    }
+
+    // ------------------------------------------------------------------------
+    //  State holding data structures
+    // ------------------------------------------------------------------------
+
+    @Override
+    public boolean supportsNoClaimRestoreMode() {
+        // we never share any files, all snapshots are full
+        return true;
+    }
+
+    @Override
+    public boolean supportsSavepointFormat(SavepointFormatType formatType) {
+        return true;
+    }
+
+    @Override
+    public <K> AbstractKeyedStateBackend<K> createKeyedStateBackend(
+            Environment env,
+            JobID jobID,
+            String operatorIdentifier,
+            TypeSerializer<K> keySerializer,
+            int numberOfKeyGroups,
+            KeyGroupRange keyGroupRange,
+            TaskKvStateRegistry kvStateRegistry,
+            TtlTimeProvider ttlTimeProvider,
+            MetricGroup metricGroup,
+            @Nonnull Collection<KeyedStateHandle> stateHandles,
+            CloseableRegistry cancelStreamRegistry)
+            throws IOException {
+
+        TaskStateManager taskStateManager = env.getTaskStateManager();
+        LocalRecoveryConfig localRecoveryConfig = taskStateManager.createLocalRecoveryConfig();
+        HeapPriorityQueueSetFactory priorityQueueSetFactory =
+                new HeapPriorityQueueSetFactory(keyGroupRange, numberOfKeyGroups, 128);
+
+        LatencyTrackingStateConfig latencyTrackingStateConfig =
+                latencyTrackingConfigBuilder.setMetricGroup(metricGroup).build();
+
+        SpaceAllocator spaceAllocator =
+                new SpaceAllocator(
+                        getSpaceType(),
+                        getChunkSize().getBytes() > Integer.MAX_VALUE
+                                ? Integer.MAX_VALUE
+                                : (int) getChunkSize().getBytes(),
+                        env.getIOManager().getSpillingDirectories());
+        SpillAndLoadManager spillAndLoadManager =
+                new SpillAndLoadManager(
+                        HeapStatusMonitor.getInstance()::getHeapStatus,
+                        SystemClock.getInstance(),
+                        getCheckInterval().toMillis(),
+                        getSpillThreshold(),
+                        getLoadThreshold(),
+                        getSpillSizeRatio(),
+                        getLoadSizeRatio());
+
+        return new SpillableKeyedStateBackendBuilder<>(
+                        kvStateRegistry,
+                        keySerializer,
+                        env.getUserCodeClassLoader().asClassLoader(),
+                        numberOfKeyGroups,
+                        keyGroupRange,
+                        env.getExecutionConfig(),
+                        ttlTimeProvider,
+                        latencyTrackingStateConfig,
+                        stateHandles,
+                        getCompressionDecorator(env.getExecutionConfig()),
+                        localRecoveryConfig,
+                        priorityQueueSetFactory,
+                        true,
+                        cancelStreamRegistry,
+                        spaceAllocator,
+                        spillAndLoadManager)
+                .build();
+    }
+
+    @Override
+    public OperatorStateBackend createOperatorStateBackend(
+            Environment env,
+            String operatorIdentifier,
+            @Nonnull Collection<OperatorStateHandle> stateHandles,
+            CloseableRegistry cancelStreamRegistry)
+            throws BackendBuildingException {
+
+        return new DefaultOperatorStateBackendBuilder(
+                        env.getUserCodeClassLoader().asClassLoader(),
+                        env.getExecutionConfig(),
+                        true,
+                        stateHandles,
+                        cancelStreamRegistry)
+                .build();
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateTransformationFunction;
+import org.apache.flink.runtime.state.heap.space.Allocator;
+import org.apache.flink.runtime.state.internal.InternalKvState.StateIncrementalVisitor;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * A {@link StateTable} whose key groups are either kept as objects in a {@link CopyOnWriteStateMap}
+ * on the heap, or are spilled to a {@link CopyOnWriteSkipListStateMap} which stores the serialized
+ * state in the space of an {@link Allocator}. The {@link SpillAndLoadManager} decides which key
+ * groups to spill or load based on the heap usage and the number of accesses to each key group.
+ *
+ * <p>The heap states update lists and maps in place after obtaining them from the table. To keep
+ * those updates for spilled key groups, the list or map state which was accessed last is cached as
+ * an object and written back to the skip list once another entry is cached, or before the whole
+ * table is accessed.
+ *
+ * @param <K> type of key.
+ * @param <N> type of namespace.
+ * @param <S> type of state.
+ */
+public class SpillableStateTable<K, N, S> extends StateTable<K, N, S> {
+
+    private final Allocator spaceAllocator;
+
+    /** Whether the states are mutable objects which are updated in place by the heap states. */
+    private final boolean cacheAccessedState;
+
+    /** The number of accesses to each key group, decayed by the {@link SpillAndLoadManager}. */
+    private final long[] accessCounts;
+
+    /** Spilled state maps which were replaced, but may still be read by snapshots. */
+    private final List<CopyOnWriteSkipListStateMap<K, N, S>> retiredStateMaps = new ArrayList<>();
+
+    private K cachedKey;
+
+    private N cachedNamespace;
+
+    private int cachedKeyGroupOffset;
+
+    /** The cached state of a spilled key group, or null if nothing is cached. */
+    private S cachedState;
+
+    SpillableStateTable(
+            InternalKeyContext<K> keyContext,
+            RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo,
+            TypeSerializer<K> keySerializer,
+            Allocator spaceAllocator) {
+        super(keyContext, metaInfo, keySerializer);
+        this.spaceAllocator = Preconditions.checkNotNull(spaceAllocator);
+        this.cacheAccessedState =
+                metaInfo.getStateType() == StateDescriptor.Type.LIST
+                        || metaInfo.getStateType() == StateDescriptor.Type.MAP;
+        this.accessCounts = new long[keyGroupedStateMaps.length];
+    }
+
+    @Override
+    protected CopyOnWriteStateMap<K, N, S> createStateMap() {
+        return new CopyOnWriteStateMap<>(getStateSerializer());
+    }
+
+    // Accesses with the current key --------------------------------------------------------------
+
+    @Override
+    public S get(N namespace) {
+        K key = keyContext.getCurrentKey();
+        int keyGroupOffset = getCurrentKeyGroupOffset();
+        if (isCached(key, keyGroupOffset, namespace)) {
+            return cachedState;
+        }
+
+        S state = super.get(namespace);
+        if (state != null) {
+            cacheIfSpilled(key, keyGroupOffset, namespace, state);
+        }
+        return state;
+    }
+
+    @Override
+    public boolean containsKey(N namespace) {
+        K key = keyContext.getCurrentKey();
+        int keyGroupOffset = getCurrentKeyGroupOffset();
+        return isCached(key, keyGroupOffset, namespace) || super.containsKey(namespace);
+    }
+
+    @Override
+    public void put(N namespace, S state) {
+        K key = keyContext.getCurrentKey();
+        int keyGroupOffset = getCurrentKeyGroupOffset();
+        if (isCached(key, keyGroupOffset, namespace)) {
+            clearCachedState();
+        }
+
+        super.put(namespace, state);
+        if (state != null) {
+            cacheIfSpilled(key, keyGroupOffset, namespace, state);
+        }
+    }
+
+    @Override
+    public void remove(N namespace) {
+        if (isCached(keyContext.getCurrentKey(), getCurrentKeyGroupOffset(), namespace)) {
+            clearCachedState();
+        }
+        super.remove(namespace);
+    }
+
+    @Override
+    public S removeAndGetOld(N namespace) {
+        if (isCached(keyContext.getCurrentKey(), getCurrentKeyGroupOffset(), namespace)) {
+            S state = cachedState;
+            clearCachedState();
+            super.remove(namespace);
+            return state;
+        }
+        return super.removeAndGetOld(namespace);
+    }
+
+    @Override
+    public <T> void transform(
+            N namespace, T value, StateTransformationFunction<S, T> transformation)
+            throws Exception {
+        if (isCached(keyContext.getCurrentKey(), getCurrentKeyGroupOffset(), namespace)) {
+            writeBackCachedState();
+        }
+        super.transform(namespace, value, transformation);
+    }
+
+    @Override
+    public void put(K key, int keyGroup, N namespace, S state) {
+        if (isCached(key, keyGroup - getKeyGroupOffset(), namespace)) {
+            clearCachedState();
+        }
+        super.put(key, keyGroup, namespace, state);
+    }
+
+    // Accesses to the whole table ----------------------------------------------------------------
+
+    @Override
+    public int size() {
+        writeBackCachedState();
+        return super.size();
+    }
+
+    @Override
+    public Stream<K> getKeys(N namespace) {
+        writeBackCachedState();
+        return super.getKeys(namespace);
+    }
+
+    @Override
+    public Stream<Tuple2<K, N>> getKeysAndNamespaces() {
+        writeBackCachedState();
+        return super.getKeysAndNamespaces();
+    }
+
+    @Override
+    public StateIncrementalVisitor<K, N, S> getStateIncrementalVisitor(
+            int recommendedMaxNumberOfReturnedRecords) {
+        writeBackCachedState();
+        return super.getStateIncrementalVisitor(recommendedMaxNumberOfReturnedRecords);
+    }
+
+    @Override
+    public Iterator<StateEntry<K, N, S>> iterator() {
+        writeBackCachedState();
+        return super.iterator();
+    }
+
+    @Override
+    public int sizeOfNamespace(Object namespace) {
+        writeBackCachedState();
+        return super.sizeOfNamespace(namespace);
+    }
+
+    @Nonnull
+    @Override
+    public SpillableStateTableSnapshot<K, N, S> stateSnapshot() {
+        writeBackCachedState();
+        return new SpillableStateTableSnapshot<>(
+                this,
+                getKeySerializer().duplicate(),
+                getNamespaceSerializer().duplicate(),
+                getStateSerializer().duplicate(),
+                getMetaInfo()
+                        .getStateSnapshotTransformFactory()
+                        .createForDeserializedState()
+                        .orElse(null));
+    }
+
+    List<StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>>> getStateMapSnapshotList() {
+        List<StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>>> snapshotList =
+                new ArrayList<>(keyGroupedStateMaps.length);
+        for (StateMap<K, N, S> stateMap : keyGroupedStateMaps) {
+            snapshotList.add(stateMap.stateSnapshot());
+        }
+        return snapshotList;
+    }
+
+    // Spilling and loading -----------------------------------------------------------------------
+
+    int getNumberOfKeyGroups() {
+        return keyGroupedStateMaps.length;
+    }
+
+    boolean isSpilled(int keyGroupOffset) {
+        return keyGroupedStateMaps[keyGroupOffset] instanceof CopyOnWriteSkipListStateMap;
+    }
+
+    int sizeOfKeyGroup(int keyGroupOffset) {
+        return keyGroupedStateMaps[keyGroupOffset].size();
+    }
+
+    long getAccessCount(int keyGroupOffset) {
+        return accessCounts[keyGroupOffset];
+    }
+
+    /** Halves the access counts, so that they reflect recent rather than all past accesses. */
+    void decayAccessCounts() {
+        for (int i = 0; i < accessCounts.length; i++) {
+            accessCounts[i] >>>= 1;
+        }
+    }
+
+    /** Moves the state of the given key group from the heap into the space of the allocator. */
+    void spillKeyGroup(int keyGroupOffset) {
+        Preconditions.checkState(!isSpilled(keyGroupOffset), "Key group is already spilled.");
+        writeBackCachedState();
+
+        StateMap<K, N, S> stateMap = keyGroupedStateMaps[keyGroupOffset];
+        CopyOnWriteSkipListStateMap<K, N, S> spilledStateMap =
+                new CopyOnWriteSkipListStateMap<>(
+                        getKeySerializer().duplicate(),
+                        getNamespaceSerializer().duplicate(),
+                        getStateSerializer().duplicate(),
+                        spaceAllocator,
+                        CopyOnWriteSkipListStateMap.DEFAULT_MAX_KEYS_TO_DELETE_ONE_TIME,
+                        CopyOnWriteSkipListStateMap.DEFAULT_LOGICAL_REMOVED_KEYS_RATIO);
+        try {
+            for (StateEntry<K, N, S> entry : stateMap) {
+                spilledStateMap.put(entry.getKey(), entry.getNamespace(), entry.getState());
+            }
+        } catch (Throwable t) {
+            // keep the key group on the heap if there is not enough space
+            spilledStateMap.close();
+            throw new FlinkRuntimeException("Failed to spill key group.", t);
+        }
+        keyGroupedStateMaps[keyGroupOffset] = spilledStateMap;
+    }
+
+    /** Moves the state of the given key group from the space of the allocator onto the heap. */
+    void loadKeyGroup(int keyGroupOffset) {
+        Preconditions.checkState(isSpilled(keyGroupOffset), "Key group is not spilled.");
+        writeBackCachedState();
+
+        CopyOnWriteSkipListStateMap<K, N, S> spilledStateMap =
+                (CopyOnWriteSkipListStateMap<K, N, S>) keyGroupedStateMaps[keyGroupOffset];
+        CopyOnWriteStateMap<K, N, S> stateMap = createStateMap();
+        for (StateEntry<K, N, S> entry : spilledStateMap) {
+            stateMap.put(entry.getKey(), entry.getNamespace(), entry.getState());
+        }
+        keyGroupedStateMaps[keyGroupOffset] = stateMap;
+        retiredStateMaps.add(spilledStateMap);
+        closeRetiredStateMaps();
+    }
+
+    /** Releases the space of replaced spilled state maps which are not read by snapshots. */
+    void closeRetiredStateMaps() {
+        retiredStateMaps.removeIf(
+                stateMap -> {
+                    if (stateMap.hasUnreleasedSnapshots()) {
+                        return false;
+                    }
+                    stateMap.close();
+                    return true;
+                });
+    }
+
+    /** Releases the space of all spilled state maps. This blocks until running snapshots end. */
+    void close() {
+        clearCachedState();
+        for (int i = 0; i < keyGroupedStateMaps.length; i++) {
+            if (isSpilled(i)) {
+                ((CopyOnWriteSkipListStateMap<K, N, S>) keyGroupedStateMaps[i]).close();
+                keyGroupedStateMaps[i] = createStateMap();
+            }
+        }
+        for (CopyOnWriteSkipListStateMap<K, N, S> stateMap : retiredStateMaps) {
+            stateMap.close();
+        }
+        retiredStateMaps.clear();
+    }
+
+    // Cached state -------------------------------------------------------------------------------
+
+    private int getCurrentKeyGroupOffset() {
+        int keyGroupOffset = keyContext.getCurrentKeyGroupIndex() - getKeyGroupOffset();
+        if (keyGroupOffset >= 0 && keyGroupOffset < accessCounts.length) {
+            accessCounts[keyGroupOffset]++;
+        }
+        return keyGroupOffset;
+    }
+
+    private boolean isCached(K key, int keyGroupOffset, N namespace) {
+        return cachedState != null
+                && cachedKeyGroupOffset == keyGroupOffset
+                && Objects.equals(cachedKey, key)
+                && Objects.equals(cachedNamespace, namespace);
+    }
+
+    private void cacheIfSpilled(K key, int keyGroupOffset, N namespace, S state) {
+        if (cacheAccessedState && isSpilled(keyGroupOffset)) {
+            writeBackCachedState();
+            cachedKey = key;
+            cachedNamespace = namespace;
+            cachedKeyGroupOffset = keyGroupOffset;
+            cachedState = state;
+        }
+    }
+
+    /** Writes the cached state back into its spilled state map. */
+    @VisibleForTesting
+    void writeBackCachedState() {
+        if (cachedState != null) {
+            keyGroupedStateMaps[cachedKeyGroupOffset].put(cachedKey, cachedNamespace, cachedState);
+            clearCachedState();
+        }
+    }
+
+    private void clearCachedState() {
+        cachedKey = null;
+        cachedNamespace = null;
+        cachedState = null;
+    }
+}
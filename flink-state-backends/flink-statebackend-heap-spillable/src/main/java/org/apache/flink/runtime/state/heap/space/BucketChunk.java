@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.util.Preconditions;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.BUCKET_SIZE;
+import static org.apache.flink.runtime.state.heap.space.Constants.NO_SPACE;
+
+/**
+ * A {@link Chunk} which is divided into buckets of {@link Constants#BUCKET_SIZE} bytes. Each bucket
+ * that is in use serves slots of a single size class, where the size classes are the powers of two
+ * between {@link #MIN_SLOT_SIZE} and {@link Constants#BUCKET_SIZE}. A bucket is returned to the
+ * chunk once all of its slots have been freed, so that it can be reused for another size class.
+ *
+ * <p>This class is not thread safe, the {@link SpaceAllocator} guards all accesses to it.
+ */
+class BucketChunk implements Chunk {
+
+    /** The size of the smallest slot. Smaller allocations are rounded up to it. */
+    static final int MIN_SLOT_SIZE = 32;
+
+    private static final int MIN_SLOT_SIZE_BITS = Integer.numberOfTrailingZeros(MIN_SLOT_SIZE);
+
+    /** The number of slot size classes. */
+    static final int NUM_SIZE_CLASSES =
+            Integer.numberOfTrailingZeros(BUCKET_SIZE) - MIN_SLOT_SIZE_BITS + 1;
+
+    private static final int NO_BUCKET = -1;
+
+    private final int chunkId;
+
+    private final MemorySegment segment;
+
+    /** The size class served by each bucket, or -1 if the bucket is free. */
+    private final int[] bucketSizeClasses;
+
+    /** The free slots of each bucket in use. */
+    private final BitSet[] freeSlots;
+
+    /** The number of free slots of each bucket in use. */
+    private final int[] numFreeSlots;
+
+    /** Stack of the free buckets. */
+    private final int[] freeBuckets;
+
+    private int numFreeBuckets;
+
+    /** Heads of the per size class lists of buckets which have free slots. */
+    private final int[] partialBucketHeads;
+
+    private final int[] nextPartialBuckets;
+
+    private final int[] prevPartialBuckets;
+
+    /** Whether the chunk is queued by the allocator as having free slots of a size class. */
+    private final boolean[] queuedForFreeSlots = new boolean[NUM_SIZE_CLASSES];
+
+    /** Whether the chunk is queued by the allocator as having free buckets. */
+    private boolean queuedForFreeBuckets;
+
+    BucketChunk(int chunkId, MemorySegment segment) {
+        Preconditions.checkArgument(
+                segment.size() % BUCKET_SIZE == 0 && segment.size() > 0,
+                "The chunk size %s must be a positive multiple of the bucket size %s.",
+                segment.size(),
+                BUCKET_SIZE);
+
+        this.chunkId = chunkId;
+        this.segment = segment;
+
+        int numBuckets = segment.size() / BUCKET_SIZE;
+        this.bucketSizeClasses = new int[numBuckets];
+        this.freeSlots = new BitSet[numBuckets];
+        this.numFreeSlots = new int[numBuckets];
+        this.freeBuckets = new int[numBuckets];
+        this.nextPartialBuckets = new int[numBuckets];
+        this.prevPartialBuckets = new int[numBuckets];
+        for (int i = 0; i < numBuckets; i++) {
+            bucketSizeClasses[i] = NO_BUCKET;
+            // hand out the buckets in ascending order
+            freeBuckets[i] = numBuckets - 1 - i;
+        }
+        this.numFreeBuckets = numBuckets;
+        this.partialBucketHeads = new int[NUM_SIZE_CLASSES];
+        Arrays.fill(partialBucketHeads, NO_BUCKET);
+    }
+
+    /** Returns the size class of allocations with the given size. */
+    static int getSizeClass(int size) {
+        Preconditions.checkArgument(
+                size > 0 && size <= BUCKET_SIZE, "Illegal allocation size %s.", size);
+        if (size <= MIN_SLOT_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SLOT_SIZE_BITS;
+    }
+
+    private static int getSlotSize(int sizeClass) {
+        return MIN_SLOT_SIZE << sizeClass;
+    }
+
+    @Override
+    public int allocate(int len) {
+        int sizeClass = getSizeClass(len);
+        int bucket = partialBucketHeads[sizeClass];
+        if (bucket == NO_BUCKET) {
+            if (numFreeBuckets == 0) {
+                return NO_SPACE;
+            }
+            bucket = freeBuckets[--numFreeBuckets];
+            initBucket(bucket, sizeClass);
+        }
+
+        int slot = freeSlots[bucket].nextSetBit(0);
+        freeSlots[bucket].clear(slot);
+        if (--numFreeSlots[bucket] == 0) {
+            unlinkPartialBucket(bucket);
+        }
+        return bucket * BUCKET_SIZE + slot * getSlotSize(sizeClass);
+    }
+
+    @Override
+    public void free(int interChunkOffset) {
+        int bucket = interChunkOffset / BUCKET_SIZE;
+        int sizeClass = bucketSizeClasses[bucket];
+        Preconditions.checkState(
+                sizeClass != NO_BUCKET,
+                "Offset %s of chunk %s is not allocated.",
+                interChunkOffset,
+                chunkId);
+
+        int slotSize = getSlotSize(sizeClass);
+        int slot = (interChunkOffset % BUCKET_SIZE) / slotSize;
+        Preconditions.checkState(
+                !freeSlots[bucket].get(slot),
+                "Offset %s of chunk %s has already been freed.",
+                interChunkOffset,
+                chunkId);
+        freeSlots[bucket].set(slot);
+
+        if (numFreeSlots[bucket]++ == 0) {
+            linkPartialBucket(bucket, sizeClass);
+        }
+        if (numFreeSlots[bucket] == BUCKET_SIZE / slotSize) {
+            // the bucket is empty, make it available to all size classes again
+            unlinkPartialBucket(bucket);
+            bucketSizeClasses[bucket] = NO_BUCKET;
+            freeSlots[bucket] = null;
+            freeBuckets[numFreeBuckets++] = bucket;
+        }
+    }
+
+    /** Returns whether this chunk has a bucket with free slots of the given size class. */
+    boolean hasFreeSlots(int sizeClass) {
+        return partialBucketHeads[sizeClass] != NO_BUCKET;
+    }
+
+    /** Returns whether this chunk has a bucket which is not in use. */
+    boolean hasFreeBuckets() {
+        return numFreeBuckets > 0;
+    }
+
+    boolean isQueuedForFreeSlots(int sizeClass) {
+        return queuedForFreeSlots[sizeClass];
+    }
+
+    void setQueuedForFreeSlots(int sizeClass, boolean queued) {
+        queuedForFreeSlots[sizeClass] = queued;
+    }
+
+    boolean isQueuedForFreeBuckets() {
+        return queuedForFreeBuckets;
+    }
+
+    void setQueuedForFreeBuckets(boolean queued) {
+        queuedForFreeBuckets = queued;
+    }
+
+    /** Returns the size class of the slot at the given offset. */
+    int getSizeClassOf(int interChunkOffset) {
+        return bucketSizeClasses[interChunkOffset / BUCKET_SIZE];
+    }
+
+    private void initBucket(int bucket, int sizeClass) {
+        int numSlots = BUCKET_SIZE / getSlotSize(sizeClass);
+        BitSet slots = new BitSet(numSlots);
+        slots.set(0, numSlots);
+
+        bucketSizeClasses[bucket] = sizeClass;
+        freeSlots[bucket] = slots;
+        numFreeSlots[bucket] = numSlots;
+        linkPartialBucket(bucket, sizeClass);
+    }
+
+    private void linkPartialBucket(int bucket, int sizeClass) {
+        int head = partialBucketHeads[sizeClass];
+        nextPartialBuckets[bucket] = head;
+        prevPartialBuckets[bucket] = NO_BUCKET;
+        if (head != NO_BUCKET) {
+            prevPartialBuckets[head] = bucket;
+        }
+        partialBucketHeads[sizeClass] = bucket;
+    }
+
+    private void unlinkPartialBucket(int bucket) {
+        int prev = prevPartialBuckets[bucket];
+        int next = nextPartialBuckets[bucket];
+        if (prev == NO_BUCKET) {
+            partialBucketHeads[bucketSizeClasses[bucket]] = next;
+        } else {
+            nextPartialBuckets[prev] = next;
+        }
+        if (next != NO_BUCKET) {
+            prevPartialBuckets[next] = prev;
+        }
+        nextPartialBuckets[bucket] = NO_BUCKET;
+        prevPartialBuckets[bucket] = NO_BUCKET;
+    }
+
+    @Override
+    public int getChunkId() {
+        return chunkId;
+    }
+
+    @Override
+    public int getChunkCapacity() {
+        return segment.size();
+    }
+
+    @Override
+    public MemorySegment getMemorySegment(int chunkOffset) {
+        return segment;
+    }
+
+    @Override
+    public int getOffsetInSegment(int offsetInChunk) {
+        return offsetInChunk;
+    }
+
+    MemorySegment getSegment() {
+        return segment;
+    }
+}
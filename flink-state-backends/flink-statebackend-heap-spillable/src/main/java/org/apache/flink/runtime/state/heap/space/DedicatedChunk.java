@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.util.Preconditions;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.NO_SPACE;
+
+/**
+ * A {@link Chunk} which holds a single allocation. It is used for allocations which are larger than
+ * a bucket of a {@link BucketChunk}, and its memory is released once the allocation is freed.
+ *
+ * <p>This class is not thread safe, the {@link SpaceAllocator} guards all accesses to it.
+ */
+class DedicatedChunk implements Chunk {
+
+    private final int chunkId;
+
+    private final MemorySegment segment;
+
+    private boolean allocated;
+
+    DedicatedChunk(int chunkId, MemorySegment segment) {
+        this.chunkId = chunkId;
+        this.segment = segment;
+    }
+
+    @Override
+    public int allocate(int len) {
+        if (allocated || len > segment.size()) {
+            return NO_SPACE;
+        }
+        allocated = true;
+        return 0;
+    }
+
+    @Override
+    public void free(int interChunkOffset) {
+        Preconditions.checkState(
+                allocated && interChunkOffset == 0,
+                "Offset %s of chunk %s is not allocated.",
+                interChunkOffset,
+                chunkId);
+        allocated = false;
+    }
+
+    @Override
+    public int getChunkId() {
+        return chunkId;
+    }
+
+    @Override
+    public int getChunkCapacity() {
+        return segment.size();
+    }
+
+    @Override
+    public MemorySegment getMemorySegment(int chunkOffset) {
+        return segment;
+    }
+
+    @Override
+    public int getOffsetInSegment(int offsetInChunk) {
+        return offsetInChunk;
+    }
+
+    MemorySegment getSegment() {
+        return segment;
+    }
+}
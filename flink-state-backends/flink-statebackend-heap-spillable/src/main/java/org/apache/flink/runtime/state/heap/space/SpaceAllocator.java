@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.BUCKET_SIZE;
+import static org.apache.flink.runtime.state.heap.space.Constants.FOUR_BYTES_BITS;
+import static org.apache.flink.runtime.state.heap.space.Constants.FOUR_BYTES_MARK;
+import static org.apache.flink.runtime.state.heap.space.Constants.NO_SPACE;
+
+/**
+ * The {@link Allocator} of the spillable heap state backend. Space is allocated from chunks of a
+ * fixed size which are either native memory or memory mapped files in the local working
+ * directories, see {@link SpaceType}. Memory mapped chunks give the operating system the freedom to
+ * write cold pages to disk and to read them back on access, so the state held by the allocator is
+ * not bounded by the physical memory.
+ *
+ * <p>Allocations of up to {@link Constants#BUCKET_SIZE} bytes are served from the buckets of {@link
+ * BucketChunk BucketChunks}, larger allocations get a {@link DedicatedChunk} of their own. The
+ * files backing memory mapped chunks are deleted right after they have been mapped, so they never
+ * outlive the process.
+ *
+ * <p>Allocating and freeing space is thread safe. Chunks are looked up without locking.
+ */
+public class SpaceAllocator implements Allocator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpaceAllocator.class);
+
+    private final SpaceType spaceType;
+
+    private final int chunkSize;
+
+    private final File[] localDirectories;
+
+    private final Object lock = new Object();
+
+    /** All chunks indexed by their id. Entries of released dedicated chunks are null. */
+    private volatile Chunk[] chunks;
+
+    private int numChunkIds;
+
+    /** Ids of released dedicated chunks which can be reused. */
+    private final ArrayDeque<Integer> freeChunkIds = new ArrayDeque<>();
+
+    /** Per size class, the bucket chunks which may have free slots of that class. */
+    private final ArrayDeque<BucketChunk>[] chunksWithFreeSlots;
+
+    /** The bucket chunks which may have free buckets. */
+    private final ArrayDeque<BucketChunk> chunksWithFreeBuckets = new ArrayDeque<>();
+
+    private int nextLocalDirectory;
+
+    private long allocatedChunkBytes;
+
+    private long usedBytes;
+
+    private boolean closed;
+
+    @SuppressWarnings("unchecked")
+    public SpaceAllocator(SpaceType spaceType, int chunkSize, File[] localDirectories) {
+        Preconditions.checkArgument(
+                chunkSize >= BUCKET_SIZE && chunkSize % BUCKET_SIZE == 0,
+                "The chunk size %s must be a multiple of the bucket size %s.",
+                chunkSize,
+                BUCKET_SIZE);
+        Preconditions.checkArgument(
+                spaceType != SpaceType.MMAP || localDirectories.length > 0,
+                "Memory mapped chunks require at least one local directory.");
+
+        this.spaceType = Preconditions.checkNotNull(spaceType);
+        this.chunkSize = chunkSize;
+        this.localDirectories = localDirectories;
+        this.chunks = new Chunk[16];
+        this.chunksWithFreeSlots = new ArrayDeque[BucketChunk.NUM_SIZE_CLASSES];
+        for (int i = 0; i < chunksWithFreeSlots.length; i++) {
+            chunksWithFreeSlots[i] = new ArrayDeque<>();
+        }
+    }
+
+    @Override
+    public long allocate(int size) throws Exception {
+        synchronized (lock) {
+            Preconditions.checkState(!closed, "The allocator has been closed.");
+
+            if (size > BUCKET_SIZE) {
+                DedicatedChunk chunk = new DedicatedChunk(nextChunkId(), allocateSegment(size));
+                registerChunk(chunk);
+                usedBytes += size;
+                return toAddress(chunk.getChunkId(), chunk.allocate(size));
+            }
+
+            int sizeClass = BucketChunk.getSizeClass(size);
+            BucketChunk chunk = pollChunk(sizeClass);
+            if (chunk == null) {
+                chunk = new BucketChunk(nextChunkId(), allocateSegment(chunkSize));
+                registerChunk(chunk);
+            }
+
+            int offset = chunk.allocate(size);
+            Preconditions.checkState(offset != NO_SPACE, "Failed to allocate from a free chunk.");
+            requeue(chunk, sizeClass);
+            usedBytes += slotSize(sizeClass);
+            return toAddress(chunk.getChunkId(), offset);
+        }
+    }
+
+    @Override
+    public void free(long address) {
+        int chunkId = SpaceUtils.getChunkIdByAddress(address);
+        int offset = SpaceUtils.getChunkOffsetByAddress(address);
+
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+
+            Chunk chunk = getChunkById(chunkId);
+            if (chunk instanceof DedicatedChunk) {
+                chunk.free(offset);
+                usedBytes -= chunk.getChunkCapacity();
+                allocatedChunkBytes -= chunk.getChunkCapacity();
+                ((DedicatedChunk) chunk).getSegment().free();
+                chunks[chunkId] = null;
+                freeChunkIds.add(chunkId);
+            } else {
+                BucketChunk bucketChunk = (BucketChunk) chunk;
+                int sizeClass = bucketChunk.getSizeClassOf(offset);
+                bucketChunk.free(offset);
+                usedBytes -= slotSize(sizeClass);
+                requeue(bucketChunk, sizeClass);
+            }
+        }
+    }
+
+    @Override
+    public Chunk getChunkById(int chunkId) {
+        Chunk[] currentChunks = chunks;
+        Chunk chunk = chunkId < currentChunks.length ? currentChunks[chunkId] : null;
+        Preconditions.checkNotNull(chunk, "Chunk %s does not exist.", chunkId);
+        return chunk;
+    }
+
+    /** Returns the number of bytes of all chunks, including the unused parts of the chunks. */
+    public long getAllocatedChunkBytes() {
+        synchronized (lock) {
+            return allocatedChunkBytes;
+        }
+    }
+
+    /** Returns the number of bytes in use, including the padding up to the slot sizes. */
+    public long getUsedBytes() {
+        synchronized (lock) {
+            return usedBytes;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            for (Chunk chunk : chunks) {
+                if (chunk instanceof BucketChunk) {
+                    ((BucketChunk) chunk).getSegment().free();
+                } else if (chunk instanceof DedicatedChunk) {
+                    ((DedicatedChunk) chunk).getSegment().free();
+                }
+            }
+            chunks = new Chunk[0];
+            for (ArrayDeque<BucketChunk> queue : chunksWithFreeSlots) {
+                queue.clear();
+            }
+            chunksWithFreeBuckets.clear();
+            allocatedChunkBytes = 0;
+            usedBytes = 0;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static long toAddress(int chunkId, int offset) {
+        return ((chunkId & FOUR_BYTES_MARK) << FOUR_BYTES_BITS) | (offset & FOUR_BYTES_MARK);
+    }
+
+    private static int slotSize(int sizeClass) {
+        return BucketChunk.MIN_SLOT_SIZE << sizeClass;
+    }
+
+    /**
+     * Returns a chunk which can serve the given size class, preferring chunks with free slots of
+     * that class over chunks with free buckets. Chunks which cannot serve allocations anymore are
+     * dropped from the queues.
+     */
+    private BucketChunk pollChunk(int sizeClass) {
+        ArrayDeque<BucketChunk> slotQueue = chunksWithFreeSlots[sizeClass];
+        BucketChunk chunk;
+        while ((chunk = slotQueue.peekFirst()) != null) {
+            if (chunk.hasFreeSlots(sizeClass)) {
+                return chunk;
+            }
+            slotQueue.pollFirst();
+            chunk.setQueuedForFreeSlots(sizeClass, false);
+        }
+        while ((chunk = chunksWithFreeBuckets.peekFirst()) != null) {
+            if (chunk.hasFreeBuckets()) {
+                return chunk;
+            }
+            chunksWithFreeBuckets.pollFirst();
+            chunk.setQueuedForFreeBuckets(false);
+        }
+        return null;
+    }
+
+    /** Makes sure that a chunk with free space can be found by later allocations. */
+    private void requeue(BucketChunk chunk, int sizeClass) {
+        if (chunk.hasFreeSlots(sizeClass) && !chunk.isQueuedForFreeSlots(sizeClass)) {
+            chunksWithFreeSlots[sizeClass].addLast(chunk);
+            chunk.setQueuedForFreeSlots(sizeClass, true);
+        }
+        if (chunk.hasFreeBuckets() && !chunk.isQueuedForFreeBuckets()) {
+            chunksWithFreeBuckets.addLast(chunk);
+            chunk.setQueuedForFreeBuckets(true);
+        }
+    }
+
+    private int nextChunkId() {
+        Integer freeChunkId = freeChunkIds.poll();
+        return freeChunkId != null ? freeChunkId : numChunkIds++;
+    }
+
+    private void registerChunk(Chunk chunk) {
+        int chunkId = chunk.getChunkId();
+        Chunk[] currentChunks = chunks;
+        if (chunkId >= currentChunks.length) {
+            currentChunks = Arrays.copyOf(currentChunks, currentChunks.length * 2);
+        }
+        currentChunks[chunkId] = chunk;
+        // publish the chunk to readers which do not hold the lock
+        chunks = currentChunks;
+        allocatedChunkBytes += chunk.getChunkCapacity();
+    }
+
+    private MemorySegment allocateSegment(int size) throws IOException {
+        switch (spaceType) {
+            case OFF_HEAP:
+                return MemorySegmentFactory.allocateOffHeapUnsafeMemory(size);
+            case MMAP:
+                return mapSegment(size);
+            default:
+                throw new IllegalStateException("Unknown space type " + spaceType);
+        }
+    }
+
+    private MemorySegment mapSegment(int size) throws IOException {
+        File directory = localDirectories[nextLocalDirectory];
+        nextLocalDirectory = (nextLocalDirectory + 1) % localDirectories.length;
+
+        File file = new File(directory, "spillable-chunk-" + UUID.randomUUID());
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+                FileChannel channel = randomAccessFile.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            LOG.debug("Mapped chunk of {} bytes to {}.", size, file);
+            return MemorySegmentFactory.wrapOffHeapMemory(buffer);
+        } finally {
+            // the mapping stays valid after the file has been deleted
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.heap.HeapStatusMonitor.HeapStatus;
+import org.apache.flink.runtime.state.heap.space.SpaceAllocator;
+import org.apache.flink.runtime.state.heap.space.SpaceType;
+import org.apache.flink.util.TestLogger;
+import org.apache.flink.util.clock.ManualClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link SpillAndLoadManager}. */
+public class SpillAndLoadManagerTest extends TestLogger {
+
+    private static final int NUMBER_OF_KEY_GROUPS = 10;
+
+    private static final long CHECK_INTERVAL_MILLIS = 1000L;
+
+    private SpaceAllocator spaceAllocator;
+
+    private MockInternalKeyContext<Integer> keyContext;
+
+    private SpillableStateTable<Integer, Integer, Integer> stateTable;
+
+    private ManualClock clock;
+
+    private HeapStatus heapStatus;
+
+    private long gcSequenceNumber;
+
+    private SpillAndLoadManager manager;
+
+    @Before
+    public void setUp() {
+        spaceAllocator = new SpaceAllocator(SpaceType.OFF_HEAP, 1024 * 1024, new File[0]);
+        keyContext =
+                new MockInternalKeyContext<>(0, NUMBER_OF_KEY_GROUPS - 1, NUMBER_OF_KEY_GROUPS);
+        stateTable =
+                new SpillableStateTable<>(
+                        keyContext,
+                        new RegisteredKeyValueStateBackendMetaInfo<>(
+                                StateDescriptor.Type.VALUE,
+                                "test",
+                                IntSerializer.INSTANCE,
+                                IntSerializer.INSTANCE),
+                        IntSerializer.INSTANCE,
+                        spaceAllocator);
+        clock = new ManualClock();
+        manager =
+                new SpillAndLoadManager(
+                        () -> heapStatus, clock, CHECK_INTERVAL_MILLIS, 0.7f, 0.5f, 0.2f, 0.5f);
+        manager.registerStateTable(stateTable);
+
+        // one entry in key group 0, two in key group 1, ...
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            for (int i = 0; i <= keyGroup; i++) {
+                stateTable.put(keyGroup * 100 + i, keyGroup, 0, i);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        manager.close();
+        spaceAllocator.close();
+    }
+
+    @Test
+    public void testNothingHappensWithoutHeapStatus() {
+        manager.checkResource();
+        assertEquals(0, countSpilledKeyGroups());
+    }
+
+    @Test
+    public void testSpillColdKeyGroups() {
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS - 1; keyGroup++) {
+            accessKeyGroup(keyGroup, 10);
+        }
+
+        reportHeapUsage(0.8f);
+        manager.checkResource();
+
+        // 20% of the 55 entries on the heap are spilled, starting with the key group which has
+        // not been accessed, followed by the one with the fewest accesses per entry
+        assertTrue(stateTable.isSpilled(9));
+        assertTrue(stateTable.isSpilled(8));
+        assertEquals(2, countSpilledKeyGroups());
+        assertEquals(55, stateTable.size());
+    }
+
+    @Test
+    public void testChecksAreRateLimited() {
+        reportHeapUsage(0.8f);
+        manager.checkResource();
+        int numSpilledKeyGroups = countSpilledKeyGroups();
+        assertTrue(numSpilledKeyGroups > 0);
+
+        // the same heap status is not acted upon twice
+        manager.checkResource();
+        assertEquals(numSpilledKeyGroups, countSpilledKeyGroups());
+
+        // a new heap status within the check interval is ignored
+        reportHeapUsage(0.8f);
+        clock.advanceTime(CHECK_INTERVAL_MILLIS - 1, TimeUnit.MILLISECONDS);
+        manager.checkResource();
+        assertEquals(numSpilledKeyGroups, countSpilledKeyGroups());
+
+        clock.advanceTime(1, TimeUnit.MILLISECONDS);
+        manager.checkResource();
+        assertTrue(countSpilledKeyGroups() > numSpilledKeyGroups);
+    }
+
+    @Test
+    public void testLoadHotKeyGroups() {
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            stateTable.spillKeyGroup(keyGroup);
+        }
+        accessKeyGroup(3, 100);
+        accessKeyGroup(4, 100);
+
+        reportHeapUsage(0.1f);
+        manager.checkResource();
+
+        // key groups which have not been accessed stay spilled
+        assertFalse(stateTable.isSpilled(3));
+        assertFalse(stateTable.isSpilled(4));
+        assertEquals(NUMBER_OF_KEY_GROUPS - 2, countSpilledKeyGroups());
+        assertEquals(55, stateTable.size());
+    }
+
+    @Test
+    public void testNothingHappensBetweenThresholds() {
+        stateTable.spillKeyGroup(5);
+        accessKeyGroup(5, 100);
+
+        reportHeapUsage(0.6f);
+        manager.checkResource();
+
+        assertTrue(stateTable.isSpilled(5));
+        assertEquals(1, countSpilledKeyGroups());
+    }
+
+    @Test
+    public void testCloseReleasesSpilledState() {
+        reportHeapUsage(0.9f);
+        manager.checkResource();
+        assertTrue(spaceAllocator.getUsedBytes() > 0);
+
+        manager.close();
+        assertEquals(0L, spaceAllocator.getUsedBytes());
+    }
+
+    private void reportHeapUsage(float usageRatio) {
+        heapStatus = new HeapStatus(++gcSequenceNumber, (long) (usageRatio * 1000), 1000);
+    }
+
+    private void accessKeyGroup(int keyGroup, int numAccesses) {
+        keyContext.setCurrentKey(keyGroup * 100);
+        keyContext.setCurrentKeyGroupIndex(keyGroup);
+        for (int i = 0; i < numAccesses; i++) {
+            stateTable.get(0);
+        }
+    }
+
+    private int countSpilledKeyGroups() {
+        int numSpilledKeyGroups = 0;
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            if (stateTable.isSpilled(keyGroup)) {
+                numSpilledKeyGroups++;
+            }
+        }
+        return numSpilledKeyGroups;
+    }
+}
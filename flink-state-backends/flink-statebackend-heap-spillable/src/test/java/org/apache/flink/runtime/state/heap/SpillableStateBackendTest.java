@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.runtime.state.CheckpointStorage;
+import org.apache.flink.runtime.state.ConfigurableStateBackend;
+import org.apache.flink.runtime.state.StateBackendTestBase;
+import org.apache.flink.runtime.state.heap.space.SpaceType;
+import org.apache.flink.runtime.state.storage.JobManagerCheckpointStorage;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the keyed state backend and operator state backend, as created by the {@link
+ * SpillableStateBackend}.
+ */
+public class SpillableStateBackendTest extends StateBackendTestBase<SpillableStateBackend> {
+
+    @Override
+    protected ConfigurableStateBackend getStateBackend() {
+        return new SpillableStateBackend();
+    }
+
+    @Override
+    protected CheckpointStorage getCheckpointStorage() {
+        return new JobManagerCheckpointStorage();
+    }
+
+    @Override
+    protected boolean supportsAsynchronousSnapshots() {
+        return true;
+    }
+
+    @Override
+    protected boolean isSerializerPresenceRequiredOnRestore() {
+        return true;
+    }
+
+    // disable these because the verification does not work for this state backend
+    @Override
+    @Test
+    public void testValueStateRestoreWithWrongSerializers() {}
+
+    @Override
+    @Test
+    public void testListStateRestoreWithWrongSerializers() {}
+
+    @Override
+    @Test
+    public void testReducingStateRestoreWithWrongSerializers() {}
+
+    @Override
+    @Test
+    public void testMapStateRestoreWithWrongSerializers() {}
+
+    @Ignore
+    @Test
+    public void testConcurrentMapIfQueryable() throws Exception {
+        super.testConcurrentMapIfQueryable();
+    }
+
+    @Test
+    public void testConfigure() {
+        Configuration config = new Configuration();
+        config.set(SpillableOptions.SPILL_THRESHOLD, 0.9f);
+        config.set(SpillableOptions.SPACE_TYPE, SpaceType.OFF_HEAP);
+        config.set(SpillableOptions.CHECK_INTERVAL, Duration.ofSeconds(1));
+
+        SpillableStateBackend original = new SpillableStateBackend();
+        original.setCheckInterval(Duration.ofSeconds(5));
+        SpillableStateBackend backend = original.configure(config, getClass().getClassLoader());
+
+        assertEquals(0.9f, backend.getSpillThreshold(), 0.0f);
+        assertEquals(SpaceType.OFF_HEAP, backend.getSpaceType());
+        // options set on the backend take precedence
+        assertEquals(Duration.ofSeconds(5), backend.getCheckInterval());
+        assertEquals(SpillableOptions.CHUNK_SIZE.defaultValue(), backend.getChunkSize());
+    }
+
+    @Test(expected = IllegalConfigurationException.class)
+    public void testRejectLoadThresholdAboveSpillThreshold() {
+        Configuration config = new Configuration();
+        config.set(SpillableOptions.LOAD_THRESHOLD, 0.8f);
+        new SpillableStateBackendFactory().createFromConfig(config, getClass().getClassLoader());
+    }
+
+    @Test(expected = IllegalConfigurationException.class)
+    public void testRejectInvalidChunkSize() {
+        SpillableStateBackend backend = new SpillableStateBackend();
+        backend.setChunkSize(MemorySize.parse("1500kb"));
+        backend.configure(new Configuration(), getClass().getClassLoader());
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.ListSerializer;
+import org.apache.flink.core.memory.ByteArrayInputStreamWithPos;
+import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateSnapshot;
+import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
+import org.apache.flink.runtime.state.heap.space.SpaceAllocator;
+import org.apache.flink.runtime.state.heap.space.SpaceType;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link SpillableStateTable}. */
+public class SpillableStateTableTest extends TestLogger {
+
+    private static final int NUMBER_OF_KEY_GROUPS = 8;
+
+    private static final int NUMBER_OF_KEYS = 100;
+
+    private SpaceAllocator spaceAllocator;
+
+    private MockInternalKeyContext<Integer> keyContext;
+
+    @Before
+    public void setUp() {
+        spaceAllocator = new SpaceAllocator(SpaceType.OFF_HEAP, 1024 * 1024, new File[0]);
+        keyContext =
+                new MockInternalKeyContext<>(0, NUMBER_OF_KEY_GROUPS - 1, NUMBER_OF_KEY_GROUPS);
+    }
+
+    @After
+    public void tearDown() {
+        spaceAllocator.close();
+    }
+
+    @Test
+    public void testSpillAndLoadKeepState() {
+        SpillableStateTable<Integer, Integer, Integer> table = createValueStateTable();
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            table.put(key % 3, key);
+        }
+
+        spillAllKeyGroups(table);
+        assertEquals(NUMBER_OF_KEYS, table.size());
+        assertTrue(spaceAllocator.getUsedBytes() > 0);
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            assertEquals(Integer.valueOf(key), table.get(key % 3));
+            table.put(key % 3, key + 1);
+        }
+
+        loadAllKeyGroups(table);
+        assertEquals(0L, spaceAllocator.getUsedBytes());
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            assertEquals(Integer.valueOf(key + 1), table.get(key % 3));
+            assertNull(table.get(3));
+        }
+    }
+
+    @Test
+    public void testInPlaceModificationsOfSpilledStateAreKept() {
+        SpillableStateTable<Integer, Integer, List<Integer>> table = createListStateTable();
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            table.put(0, new ArrayList<>(Arrays.asList(key)));
+        }
+
+        spillAllKeyGroups(table);
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            // the heap backend appends to the list returned by the state table
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            table.get(0).add(-key);
+        }
+
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            assertEquals(Arrays.asList(key, -key), table.get(0));
+        }
+
+        keyContext.setCurrentKeyAndKeyGroup(0);
+        table.get(0).add(1);
+        loadAllKeyGroups(table);
+        assertEquals(Arrays.asList(0, 0, 1), table.get(0));
+    }
+
+    @Test
+    public void testSnapshotOfSpilledKeyGroups() throws Exception {
+        SpillableStateTable<Integer, Integer, Integer> table = createValueStateTable();
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            table.put(0, key);
+        }
+        for (int i = 0; i < NUMBER_OF_KEY_GROUPS; i += 2) {
+            table.spillKeyGroup(i);
+        }
+
+        SpillableStateTableSnapshot<Integer, Integer, Integer> snapshot = table.stateSnapshot();
+
+        // modifications and loading after the snapshot must not be visible in the snapshot
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            table.put(0, -1);
+        }
+        loadAllKeyGroups(table);
+
+        CopyOnWriteStateTable<Integer, Integer, Integer> restoredTable =
+                new CopyOnWriteStateTable<>(
+                        new MockInternalKeyContext<>(
+                                0, NUMBER_OF_KEY_GROUPS - 1, NUMBER_OF_KEY_GROUPS),
+                        table.getMetaInfo(),
+                        IntSerializer.INSTANCE);
+        StateSnapshot.StateKeyGroupWriter writer = snapshot.getKeyGroupWriter();
+        StateSnapshotKeyGroupReader reader =
+                StateTableByKeyGroupReaders.readerForVersion(
+                        restoredTable, KeyedBackendSerializationProxy.VERSION);
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            ByteArrayOutputStreamWithPos out = new ByteArrayOutputStreamWithPos();
+            writer.writeStateInKeyGroup(new DataOutputViewStreamWrapper(out), keyGroup);
+            reader.readMappingsInKeyGroup(
+                    new DataInputViewStreamWrapper(
+                            new ByteArrayInputStreamWithPos(out.toByteArray())),
+                    keyGroup);
+        }
+        snapshot.release();
+
+        assertEquals(NUMBER_OF_KEYS, restoredTable.size());
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            assertEquals(Integer.valueOf(key), restoredTable.get(key, 0));
+        }
+
+        // the retired spilled state maps are released once the snapshot is released
+        assertTrue(spaceAllocator.getUsedBytes() > 0);
+        table.closeRetiredStateMaps();
+        assertEquals(0L, spaceAllocator.getUsedBytes());
+    }
+
+    @Test
+    public void testAccessCounts() {
+        SpillableStateTable<Integer, Integer, Integer> table = createValueStateTable();
+        keyContext.setCurrentKeyAndKeyGroup(42);
+        int keyGroupOffset = keyContext.getCurrentKeyGroupIndex();
+        for (int i = 0; i < 4; i++) {
+            table.put(0, i);
+        }
+        assertEquals(4L, table.getAccessCount(keyGroupOffset));
+
+        table.decayAccessCounts();
+        assertEquals(2L, table.getAccessCount(keyGroupOffset));
+    }
+
+    @Test
+    public void testCloseReleasesSpilledState() {
+        SpillableStateTable<Integer, Integer, Integer> table = createValueStateTable();
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            table.put(0, key);
+        }
+        spillAllKeyGroups(table);
+
+        table.close();
+        assertEquals(0L, spaceAllocator.getUsedBytes());
+        for (int i = 0; i < NUMBER_OF_KEY_GROUPS; i++) {
+            assertFalse(table.isSpilled(i));
+        }
+    }
+
+    private SpillableStateTable<Integer, Integer, Integer> createValueStateTable() {
+        return new SpillableStateTable<>(
+                keyContext,
+                new RegisteredKeyValueStateBackendMetaInfo<>(
+                        StateDescriptor.Type.VALUE,
+                        "test",
+                        IntSerializer.INSTANCE,
+                        IntSerializer.INSTANCE),
+                IntSerializer.INSTANCE,
+                spaceAllocator);
+    }
+
+    private SpillableStateTable<Integer, Integer, List<Integer>> createListStateTable() {
+        return new SpillableStateTable<>(
+                keyContext,
+                new RegisteredKeyValueStateBackendMetaInfo<>(
+                        StateDescriptor.Type.LIST,
+                        "test",
+                        IntSerializer.INSTANCE,
+                        new ListSerializer<>(IntSerializer.INSTANCE)),
+                IntSerializer.INSTANCE,
+                spaceAllocator);
+    }
+
+    private static void spillAllKeyGroups(SpillableStateTable<?, ?, ?> table) {
+        for (int i = 0; i < table.getNumberOfKeyGroups(); i++) {
+            table.spillKeyGroup(i);
+        }
+    }
+
+    private static void loadAllKeyGroups(SpillableStateTable<?, ?, ?> table) {
+        for (int i = 0; i < table.getNumberOfKeyGroups(); i++) {
+            if (table.isSpilled(i)) {
+                table.loadKeyGroup(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link SpaceAllocator}. */
+@RunWith(Parameterized.class)
+public class SpaceAllocatorTest extends TestLogger {
+
+    private static final int CHUNK_SIZE = 2 * 1024 * 1024;
+
+    @ClassRule public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+    @Parameterized.Parameters(name = "spaceType = {0}")
+    public static SpaceType[] spaceTypes() {
+        return SpaceType.values();
+    }
+
+    @Parameterized.Parameter public SpaceType spaceType;
+
+    private SpaceAllocator allocator;
+
+    @Before
+    public void setUp() throws Exception {
+        allocator = new SpaceAllocator(spaceType, CHUNK_SIZE, new File[] {TEMP_FOLDER.newFolder()});
+    }
+
+    @After
+    public void tearDown() {
+        allocator.close();
+    }
+
+    @Test
+    public void testAllocateAndFree() throws Exception {
+        long[] addresses = new long[1000];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = allocator.allocate(1 + i % 300);
+            write(addresses[i], i);
+        }
+        assertThat(allocator.getUsedBytes(), greaterThanOrEqualTo(300L * 1000 / 2));
+
+        for (int i = 0; i < addresses.length; i++) {
+            assertEquals(i & 0xFF, read(addresses[i]));
+        }
+
+        for (long address : addresses) {
+            allocator.free(address);
+        }
+        assertEquals(0L, allocator.getUsedBytes());
+    }
+
+    @Test
+    public void testAllocationsDoNotOverlap() throws Exception {
+        Set<Long> addresses = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(addresses.add(allocator.allocate(32)));
+        }
+        assertEquals(10_000L * 32, allocator.getUsedBytes());
+        assertEquals(CHUNK_SIZE, allocator.getAllocatedChunkBytes());
+    }
+
+    @Test
+    public void testFreedSlotsAreReused() throws Exception {
+        long address = allocator.allocate(100);
+        allocator.allocate(100);
+        allocator.free(address);
+
+        assertEquals(address, allocator.allocate(100));
+        assertEquals(CHUNK_SIZE, allocator.getAllocatedChunkBytes());
+    }
+
+    @Test
+    public void testFreedBucketsAreReusedForOtherSizeClasses() throws Exception {
+        int numSlots = CHUNK_SIZE / 64;
+        long[] addresses = new long[numSlots];
+        for (int i = 0; i < numSlots; i++) {
+            addresses[i] = allocator.allocate(64);
+        }
+        for (long address : addresses) {
+            allocator.free(address);
+        }
+
+        for (int i = 0; i < CHUNK_SIZE / 4096; i++) {
+            allocator.allocate(4096);
+        }
+        assertEquals(CHUNK_SIZE, allocator.getAllocatedChunkBytes());
+    }
+
+    @Test
+    public void testLargeAllocationsUseDedicatedChunks() throws Exception {
+        int size = CHUNK_SIZE + 1;
+        long address = allocator.allocate(size);
+        assertEquals(size, allocator.getAllocatedChunkBytes());
+        assertEquals(0, SpaceUtils.getChunkOffsetByAddress(address));
+
+        Chunk chunk = allocator.getChunkById(SpaceUtils.getChunkIdByAddress(address));
+        MemorySegment segment = chunk.getMemorySegment(0);
+        segment.putInt(size - Integer.BYTES, 42);
+        assertEquals(42, segment.getInt(size - Integer.BYTES));
+
+        allocator.free(address);
+        assertEquals(0L, allocator.getAllocatedChunkBytes());
+        assertEquals(0L, allocator.getUsedBytes());
+    }
+
+    @Test
+    public void testMemoryMappedFilesAreNotVisible() throws Exception {
+        File directory = TEMP_FOLDER.newFolder();
+        try (SpaceAllocator allocator =
+                new SpaceAllocator(spaceType, CHUNK_SIZE, new File[] {directory})) {
+            allocator.allocate(CHUNK_SIZE * 2);
+            allocator.allocate(10);
+            assertEquals(0, directory.list().length);
+        }
+    }
+
+    private void write(long address, int value) {
+        Chunk chunk = allocator.getChunkById(SpaceUtils.getChunkIdByAddress(address));
+        int offset = SpaceUtils.getChunkOffsetByAddress(address);
+        chunk.getMemorySegment(offset).put(chunk.getOffsetInSegment(offset), (byte) value);
+    }
+
+    private int read(long address) {
+        Chunk chunk = allocator.getChunkById(SpaceUtils.getChunkIdByAddress(address));
+        int offset = SpaceUtils.getChunkOffsetByAddress(address);
+        return chunk.getMemorySegment(offset).get(chunk.getOffsetInSegment(offset)) & 0xFF;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.async.AsyncExecutionController;
+import org.apache.flink.runtime.state.async.StateFuture;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.ResourceGuard;
+import org.apache.flink.util.function.ThrowingConsumer;
+
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+import java.io.IOException;
+
+/**
+ * Base class for asynchronous state that stores state in RocksDB.
+ *
+ * <p>Keys and values are serialized on the task thread by the synchronous state of the same
+ * descriptor, which holds the current key. Only the access to RocksDB itself is executed by the
+ * state-access threads of the {@link AsyncExecutionController}, and results are deserialized by the
+ * callbacks on the task thread again.
+ *
+ * <p>Before a key is accessed, its entry is handed over from the object cache of the synchronous
+ * state to RocksDB on the task thread, so that the asynchronous access neither misses nor is
+ * overwritten by cached modifications.
+ *
+ * @param <K> The type of the key.
+ * @param <S> The type of the synchronous state used for serialization.
+ */
+abstract class AbstractRocksDBAsyncState<K, S extends AbstractRocksDBState<K, VoidNamespace, ?>> {
+
+    protected final S state;
+
+    protected final AsyncExecutionController<K> controller;
+
+    protected final RocksDBKeyedStateBackend<K> backend;
+
+    AbstractRocksDBAsyncState(S state, AsyncExecutionController<K> controller) {
+        this.state = state;
+        this.controller = controller;
+        this.backend = state.backend;
+    }
+
+    public StateFuture<Void> asyncClear() {
+        byte[] key = state.serializeCurrentKeyWithGroupAndNamespace();
+        return write(key, db -> db.delete(state.columnFamily, state.writeOptions, key));
+    }
+
+    /** Reads the raw value of the given raw key from the column family of the state. */
+    StateFuture<byte[]> read(byte[] key) {
+        releaseCachedEntry(key);
+        return controller.submit(
+                () -> {
+                    try (ResourceGuard.Lease ignored =
+                            backend.getRocksDBResourceGuard().acquireResource()) {
+                        return backend.db.get(state.columnFamily, key);
+                    }
+                });
+    }
+
+    /** Applies a write of the given raw key to RocksDB. */
+    StateFuture<Void> write(byte[] key, ThrowingConsumer<RocksDB, RocksDBException> write) {
+        releaseCachedEntry(key);
+        return write(write);
+    }
+
+    /**
+     * Applies a write to RocksDB. The lease keeps the database from being disposed while it is
+     * accessed.
+     */
+    StateFuture<Void> write(ThrowingConsumer<RocksDB, RocksDBException> write) {
+        return controller.submit(
+                () -> {
+                    try (ResourceGuard.Lease ignored =
+                            backend.getRocksDBResourceGuard().acquireResource()) {
+                        write.accept(backend.db);
+                    }
+                    return null;
+                });
+    }
+
+    private void releaseCachedEntry(byte[] key) {
+        try {
+            state.releaseCachedEntry(key);
+        } catch (IOException | RocksDBException e) {
+            throw new FlinkRuntimeException("Error while flushing the object cache.", e);
+        }
+    }
+}
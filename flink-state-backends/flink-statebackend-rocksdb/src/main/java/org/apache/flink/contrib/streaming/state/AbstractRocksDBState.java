@@ -20,6 +20,7 @@ package org.apache.flink.contrib.streaming.state;
 import org.apache.flink.api.common.state.State;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.contrib.streaming.state.RocksDBAccessMetrics.Operation;
 import org.apache.flink.core.memory.DataInputDeserializer;
 import org.apache.flink.core.memory.DataOutputSerializer;
 import org.apache.flink.queryablestate.client.state.serialization.KvStateSerializer;
@@ -34,6 +35,8 @@ import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.WriteOptions;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 
 /**
@@ -73,6 +76,9 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
 
     private final SerializedCompositeKeyBuilder<K> sharedKeyNamespaceSerializer;
 
+    /** The sampled latency histograms of the RocksDB accesses, null if they are disabled. */
+    @Nullable private RocksDBAccessMetrics accessMetrics;
+
     /**
      * Creates a new RocksDB backed state.
      *
@@ -106,11 +112,20 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
 
     // ------------------------------------------------------------------------
 
+    void setAccessMetrics(@Nullable RocksDBAccessMetrics accessMetrics) {
+        this.accessMetrics = accessMetrics;
+    }
+
+    /**
+     * Hands the entry of the given key over from the object cache of the state to RocksDB, before
+     * it is accessed in RocksDB directly by the asynchronous state of the same descriptor.
+     */
+    void releaseCachedEntry(byte[] rawKeyBytes) throws IOException, RocksDBException {}
+
     @Override
     public void clear() {
         try {
-            backend.db.delete(
-                    columnFamily, writeOptions, serializeCurrentKeyWithGroupAndNamespace());
+            dbDelete(serializeCurrentKeyWithGroupAndNamespace());
         } catch (RocksDBException e) {
             throw new FlinkRuntimeException("Error while removing entry from RocksDB", e);
         }
@@ -147,6 +162,66 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
         return backend.db.get(columnFamily, key);
     }
 
+    // ------------------------------------------------------------------------
+    //  RocksDB accesses of this state, sampled by the access metrics
+    // ------------------------------------------------------------------------
+
+    byte[] dbGet(byte[] key) throws RocksDBException {
+        if (!shouldSample(Operation.GET)) {
+            return backend.db.get(columnFamily, key);
+        }
+        long startNanos = System.nanoTime();
+        byte[] value = backend.db.get(columnFamily, key);
+        accessMetrics.update(Operation.GET, startNanos);
+        return value;
+    }
+
+    void dbPut(byte[] key, byte[] value) throws RocksDBException {
+        if (!shouldSample(Operation.PUT)) {
+            backend.db.put(columnFamily, writeOptions, key, value);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        backend.db.put(columnFamily, writeOptions, key, value);
+        accessMetrics.update(Operation.PUT, startNanos);
+    }
+
+    void dbMerge(byte[] key, byte[] value) throws RocksDBException {
+        if (!shouldSample(Operation.MERGE)) {
+            backend.db.merge(columnFamily, writeOptions, key, value);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        backend.db.merge(columnFamily, writeOptions, key, value);
+        accessMetrics.update(Operation.MERGE, startNanos);
+    }
+
+    void dbDelete(byte[] key) throws RocksDBException {
+        if (!shouldSample(Operation.DELETE)) {
+            backend.db.delete(columnFamily, writeOptions, key);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        backend.db.delete(columnFamily, writeOptions, key);
+        accessMetrics.update(Operation.DELETE, startNanos);
+    }
+
+    void seek(RocksIteratorWrapper iterator, byte[] target) {
+        if (!shouldSample(Operation.SEEK)) {
+            iterator.seek(target);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        iterator.seek(target);
+        accessMetrics.update(Operation.SEEK, startNanos);
+    }
+
+    private boolean shouldSample(Operation operation) {
+        return accessMetrics != null && accessMetrics.shouldSample(operation);
+    }
+
+    // ------------------------------------------------------------------------
+
     <UK> byte[] serializeCurrentKeyWithGroupAndNamespacePlusUserKey(
             UK userKey, TypeSerializer<UK> userKeySerializer) throws IOException {
         return sharedKeyNamespaceSerializer.buildCompositeKeyNamesSpaceUserKey(
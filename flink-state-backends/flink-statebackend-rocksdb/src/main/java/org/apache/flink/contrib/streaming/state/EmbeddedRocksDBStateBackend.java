@@ -28,6 +28,7 @@ import org.apache.flink.configuration.ConfigOption;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.DescribedEnum;
 import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.MemorySize;
 import org.apache.flink.configuration.ReadableConfig;
 import org.apache.flink.configuration.description.InlineElement;
 import org.apache.flink.core.execution.SavepointFormatType;
@@ -112,6 +113,12 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
 
     private static final long UNDEFINED_WRITE_BATCH_SIZE = -1;
 
+    private static final int UNDEFINED_OBJECT_CACHE_SIZE = -1;
+
+    private static final int UNDEFINED_RESTORE_PARALLELISM = -1;
+
+    private static final long UNDEFINED_UPLOAD_MAX_BANDWIDTH = -1;
+
     // ------------------------------------------------------------------------
 
     // -- configuration values, set in the application / configuration
@@ -167,6 +174,21 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
      */
     private long writeBatchSize;
 
+    /** The maximum number of deserialized values cached per value or map state. */
+    private int objectCacheSize;
+
+    /** Whether restores with rescaling drop and ingest whole SST files. */
+    private TernaryBoolean useIngestDbRestoreMode;
+
+    /** The number of state handles restored in parallel when restoring with rescaling. */
+    private int restoreParallelism;
+
+    /** Whether the files of incremental checkpoints are uploaded by a TaskManager-wide pool. */
+    private TernaryBoolean useSharedUploadPool;
+
+    /** The maximum number of bytes per second written by checkpoint file uploads. */
+    private long uploadMaxBandwidth;
+
     // ------------------------------------------------------------------------
 
     /** Creates a new {@code EmbeddedRocksDBStateBackend} for storing local state. */
@@ -194,6 +216,11 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
         this.defaultMetricOptions = new RocksDBNativeMetricOptions();
         this.memoryConfiguration = new RocksDBMemoryConfiguration();
         this.writeBatchSize = UNDEFINED_WRITE_BATCH_SIZE;
+        this.objectCacheSize = UNDEFINED_OBJECT_CACHE_SIZE;
+        this.useIngestDbRestoreMode = TernaryBoolean.UNDEFINED;
+        this.restoreParallelism = UNDEFINED_RESTORE_PARALLELISM;
+        this.useSharedUploadPool = TernaryBoolean.UNDEFINED;
+        this.uploadMaxBandwidth = UNDEFINED_UPLOAD_MAX_BANDWIDTH;
     }
 
     /**
@@ -222,6 +249,35 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
             this.writeBatchSize = original.writeBatchSize;
         }
 
+        if (original.objectCacheSize == UNDEFINED_OBJECT_CACHE_SIZE) {
+            this.objectCacheSize = config.get(RocksDBOptions.OBJECT_CACHE_SIZE);
+        } else {
+            this.objectCacheSize = original.objectCacheSize;
+        }
+
+        this.useIngestDbRestoreMode =
+                original.useIngestDbRestoreMode.resolveUndefined(
+                        config.get(RocksDBOptions.USE_INGEST_DB_RESTORE_MODE));
+
+        if (original.restoreParallelism == UNDEFINED_RESTORE_PARALLELISM) {
+            this.restoreParallelism = config.get(RocksDBOptions.RESTORE_PARALLELISM);
+        } else {
+            this.restoreParallelism = original.restoreParallelism;
+        }
+
+        this.useSharedUploadPool =
+                original.useSharedUploadPool.resolveUndefined(
+                        config.get(RocksDBOptions.CHECKPOINT_TRANSFER_SHARED_UPLOAD_POOL));
+
+        if (original.uploadMaxBandwidth == UNDEFINED_UPLOAD_MAX_BANDWIDTH) {
+            this.uploadMaxBandwidth =
+                    config.getOptional(RocksDBOptions.CHECKPOINT_TRANSFER_UPLOAD_MAX_BANDWIDTH)
+                            .map(MemorySize::getBytes)
+                            .orElse(UNDEFINED_UPLOAD_MAX_BANDWIDTH);
+        } else {
+            this.uploadMaxBandwidth = original.uploadMaxBandwidth;
+        }
+
         this.memoryConfiguration =
                 RocksDBMemoryConfiguration.fromOtherAndConfiguration(
                         original.memoryConfiguration, config);
@@ -479,7 +535,12 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
                         .setNumberOfTransferingThreads(getNumberOfTransferThreads())
                         .setNativeMetricOptions(
                                 resourceContainer.getMemoryWatcherOptions(defaultMetricOptions))
-                        .setWriteBatchSize(getWriteBatchSize());
+                        .setWriteBatchSize(getWriteBatchSize())
+                        .setObjectCacheSize(getObjectCacheSize())
+                        .setUseIngestDbRestoreMode(isIngestDbRestoreModeEnabled())
+                        .setRestoreParallelism(getRestoreParallelism())
+                        .setUseSharedUploadPool(isSharedUploadPoolEnabled())
+                        .setUploadMaxBandwidth(getUploadMaxBandwidth());
         return builder.build();
     }
 
@@ -814,6 +875,96 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
         this.writeBatchSize = writeBatchSize;
     }
 
+    /** Gets the maximum number of deserialized values cached per value or map state. */
+    public int getObjectCacheSize() {
+        return objectCacheSize == UNDEFINED_OBJECT_CACHE_SIZE
+                ? RocksDBOptions.OBJECT_CACHE_SIZE.defaultValue()
+                : objectCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of deserialized values cached per value or map state, 0 disables the
+     * cache.
+     *
+     * @param objectCacheSize The maximum number of cached values per state.
+     */
+    public void setObjectCacheSize(int objectCacheSize) {
+        checkArgument(objectCacheSize >= 0, "Object cache size must not be negative.");
+        this.objectCacheSize = objectCacheSize;
+    }
+
+    /** Gets whether restores with rescaling drop and ingest whole SST files. */
+    public boolean isIngestDbRestoreModeEnabled() {
+        return useIngestDbRestoreMode.getOrDefault(
+                RocksDBOptions.USE_INGEST_DB_RESTORE_MODE.defaultValue());
+    }
+
+    /**
+     * Sets whether restores with rescaling drop and ingest whole SST files instead of deleting and
+     * inserting single records.
+     *
+     * @param useIngestDbRestoreMode True if restores should work on whole SST files.
+     */
+    public void setUseIngestDbRestoreMode(boolean useIngestDbRestoreMode) {
+        this.useIngestDbRestoreMode = TernaryBoolean.fromBoolean(useIngestDbRestoreMode);
+    }
+
+    /** Gets the number of state handles restored in parallel when restoring with rescaling. */
+    public int getRestoreParallelism() {
+        return restoreParallelism == UNDEFINED_RESTORE_PARALLELISM
+                ? RocksDBOptions.RESTORE_PARALLELISM.defaultValue()
+                : restoreParallelism;
+    }
+
+    /**
+     * Sets the number of state handles restored in parallel when restoring from incremental
+     * checkpoints with rescaling.
+     *
+     * @param restoreParallelism The number of state handles restored in parallel.
+     */
+    public void setRestoreParallelism(int restoreParallelism) {
+        checkArgument(restoreParallelism > 0, "Restore parallelism must be positive.");
+        this.restoreParallelism = restoreParallelism;
+    }
+
+    /**
+     * Gets whether the files of incremental checkpoints of all stateful operators of a TaskManager
+     * are uploaded by one shared pool of threads.
+     */
+    public boolean isSharedUploadPoolEnabled() {
+        return useSharedUploadPool.getOrDefault(
+                RocksDBOptions.CHECKPOINT_TRANSFER_SHARED_UPLOAD_POOL.defaultValue());
+    }
+
+    /**
+     * Sets whether the files of incremental checkpoints of all stateful operators of a TaskManager
+     * are uploaded by one shared pool of threads, which also shares the upload bandwidth.
+     *
+     * @param useSharedUploadPool True if the upload threads should be shared.
+     */
+    public void setUseSharedUploadPool(boolean useSharedUploadPool) {
+        this.useSharedUploadPool = TernaryBoolean.fromBoolean(useSharedUploadPool);
+    }
+
+    /**
+     * Gets the maximum number of bytes per second written when uploading checkpoint files, or -1 if
+     * the bandwidth is unlimited.
+     */
+    public long getUploadMaxBandwidth() {
+        return uploadMaxBandwidth;
+    }
+
+    /**
+     * Sets the maximum number of bytes per second written when uploading the files of incremental
+     * checkpoints, per stateful operator or per TaskManager if the upload pool is shared.
+     *
+     * @param uploadMaxBandwidth The maximum upload bandwidth.
+     */
+    public void setUploadMaxBandwidth(MemorySize uploadMaxBandwidth) {
+        checkArgument(uploadMaxBandwidth.getBytes() > 0, "The upload bandwidth must be positive.");
+        this.uploadMaxBandwidth = uploadMaxBandwidth.getBytes();
+    }
+
     // ------------------------------------------------------------------------
     //  utilities
     // ------------------------------------------------------------------------
@@ -863,6 +1014,16 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
                 + numberOfTransferThreads
                 + ", writeBatchSize="
                 + writeBatchSize
+                + ", objectCacheSize="
+                + objectCacheSize
+                + ", useIngestDbRestoreMode="
+                + useIngestDbRestoreMode
+                + ", restoreParallelism="
+                + restoreParallelism
+                + ", useSharedUploadPool="
+                + useSharedUploadPool
+                + ", uploadMaxBandwidth="
+                + uploadMaxBandwidth
                 + '}';
     }
 
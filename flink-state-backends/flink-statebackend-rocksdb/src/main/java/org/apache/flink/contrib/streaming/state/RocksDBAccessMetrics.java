@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sampled latency histograms of the accesses that one state or timer queue issues against RocksDB.
+ * In contrast to the latency tracking of the keyed state API, these histograms only cover the time
+ * spent inside RocksDB, excluding (de)serialization and the object cache.
+ *
+ * <p>Only every n-th access of an operation is timed, so that the overhead for the other accesses
+ * is a counter increment. Instances are not thread-safe and must only be used from the task thread,
+ * which is why the accesses of asynchronous state are not sampled.
+ */
+class RocksDBAccessMetrics {
+
+    static final String GET_LATENCY = "rocksdbGetLatency";
+    static final String PUT_LATENCY = "rocksdbPutLatency";
+    static final String MERGE_LATENCY = "rocksdbMergeLatency";
+    static final String DELETE_LATENCY = "rocksdbDeleteLatency";
+    static final String SEEK_LATENCY = "rocksdbSeekLatency";
+
+    /** The RocksDB operations whose latency is tracked. */
+    enum Operation {
+        GET(GET_LATENCY),
+        PUT(PUT_LATENCY),
+        MERGE(MERGE_LATENCY),
+        DELETE(DELETE_LATENCY),
+        SEEK(SEEK_LATENCY);
+
+        private final String metricName;
+
+        Operation(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final MetricGroup metricGroup;
+
+    private final int sampleInterval;
+
+    private final int historySize;
+
+    /** Number of accesses since the last sampled one, per operation. */
+    private final int[] accessCounts;
+
+    /** Lazily registered histograms, per operation. */
+    private final Histogram[] histograms;
+
+    RocksDBAccessMetrics(
+            MetricGroup metricGroup,
+            @Nonnegative int sampleInterval,
+            @Nonnegative int historySize) {
+        Preconditions.checkArgument(sampleInterval >= 1, "The sample interval must be positive.");
+        Preconditions.checkArgument(historySize >= 1, "The history size must be positive.");
+        this.metricGroup = metricGroup;
+        this.sampleInterval = sampleInterval;
+        this.historySize = historySize;
+        this.accessCounts = new int[OPERATIONS.length];
+        this.histograms = new Histogram[OPERATIONS.length];
+    }
+
+    /**
+     * Counts an access and returns whether its latency should be recorded through {@link
+     * #update(Operation, long)}.
+     */
+    boolean shouldSample(Operation operation) {
+        int index = operation.ordinal();
+        if (++accessCounts[index] >= sampleInterval) {
+            accessCounts[index] = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records the latency of a sampled access that started at the given {@link System#nanoTime}.
+     */
+    void update(Operation operation, long startNanos) {
+        int index = operation.ordinal();
+        Histogram histogram = histograms[index];
+        if (histogram == null) {
+            histogram = new DescriptiveStatisticsHistogram(historySize);
+            metricGroup.histogram(operation.metricName, histogram);
+            histograms[index] = histogram;
+        }
+        histogram.update(System.nanoTime() - startNanos);
+    }
+
+    @VisibleForTesting
+    @Nullable
+    Histogram getHistogram(Operation operation) {
+        return histograms[operation.ordinal()];
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+     * Creates the access metrics of the states and timer queues of one backend, one instance per
+     * state name, grouped like the native metrics of the state's column family.
+     */
+    static class Factory {
+
+        @Nullable private final MetricGroup metricGroup;
+
+        private final RocksDBNativeMetricOptions options;
+
+        private final Map<String, RocksDBAccessMetrics> accessMetricsByStateName;
+
+        Factory(@Nullable MetricGroup metricGroup, RocksDBNativeMetricOptions options) {
+            this.metricGroup = metricGroup;
+            this.options = options;
+            this.accessMetricsByStateName = new HashMap<>();
+        }
+
+        /** Returns the access metrics of the given state, or null if they are disabled. */
+        @Nullable
+        RocksDBAccessMetrics getOrCreate(String stateName) {
+            if (metricGroup == null || !options.isAccessLatencyEnabled()) {
+                return null;
+            }
+            return accessMetricsByStateName.computeIfAbsent(
+                    stateName,
+                    name ->
+                            new RocksDBAccessMetrics(
+                                    options.isColumnFamilyAsVariable()
+                                            ? metricGroup.addGroup(
+                                                    RocksDBNativeMetricMonitor.COLUMN_FAMILY_KEY,
+                                                    name)
+                                            : metricGroup.addGroup(name),
+                                    options.getAccessLatencySampleInterval(),
+                                    options.getAccessLatencyHistorySize()));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.async.AsyncExecutionController;
+import org.apache.flink.runtime.state.async.AsyncListState;
+import org.apache.flink.runtime.state.async.StateFuture;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.Preconditions;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link AsyncListState} implementation that stores state in RocksDB.
+ *
+ * @param <K> The type of the key.
+ * @param <V> The type of the elements in the list state.
+ */
+class RocksDBAsyncListState<K, V>
+        extends AbstractRocksDBAsyncState<K, RocksDBListState<K, VoidNamespace, V>>
+        implements AsyncListState<V> {
+
+    RocksDBAsyncListState(
+            RocksDBListState<K, VoidNamespace, V> state, AsyncExecutionController<K> controller) {
+        super(state, controller);
+    }
+
+    @Override
+    public StateFuture<Iterable<V>> asyncGet() {
+        return read(state.serializeCurrentKeyWithGroupAndNamespace())
+                .thenApply(
+                        rawValue -> {
+                            List<V> values = state.deserializeList(rawValue);
+                            return values == null ? Collections.emptyList() : values;
+                        });
+    }
+
+    @Override
+    public StateFuture<Void> asyncAdd(V value) {
+        Preconditions.checkNotNull(value, "You cannot add null to a ListState.");
+        byte[] key = state.serializeCurrentKeyWithGroupAndNamespace();
+        byte[] rawValue;
+        try {
+            rawValue = state.serializeElement(value);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Error while serializing value", e);
+        }
+        return write(key, db -> db.merge(state.columnFamily, state.writeOptions, key, rawValue));
+    }
+
+    @Override
+    public StateFuture<Void> asyncUpdate(List<V> values) {
+        Preconditions.checkNotNull(values, "List of values to add cannot be null.");
+        if (values.isEmpty()) {
+            return asyncClear();
+        }
+        byte[] key = state.serializeCurrentKeyWithGroupAndNamespace();
+        byte[] rawValue;
+        try {
+            rawValue = state.serializeList(values);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Error while serializing values", e);
+        }
+        return write(key, db -> db.put(state.columnFamily, state.writeOptions, key, rawValue));
+    }
+}
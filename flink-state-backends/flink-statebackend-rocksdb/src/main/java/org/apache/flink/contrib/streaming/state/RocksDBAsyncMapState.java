@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.async.AsyncExecutionController;
+import org.apache.flink.runtime.state.async.AsyncMapState;
+import org.apache.flink.runtime.state.async.StateFuture;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * {@link AsyncMapState} implementation that stores state in RocksDB.
+ *
+ * @param <K> The type of the key.
+ * @param <UK> The type of the keys in the map state.
+ * @param <UV> The type of the values in the map state.
+ */
+class RocksDBAsyncMapState<K, UK, UV>
+        extends AbstractRocksDBAsyncState<K, RocksDBMapState<K, VoidNamespace, UK, UV>>
+        implements AsyncMapState<UK, UV> {
+
+    RocksDBAsyncMapState(
+            RocksDBMapState<K, VoidNamespace, UK, UV> state,
+            AsyncExecutionController<K> controller) {
+        super(state, controller);
+    }
+
+    @Override
+    public StateFuture<UV> asyncGet(UK key) {
+        return read(serializeKey(key))
+                .thenApply(
+                        rawValue -> rawValue == null ? null : state.deserializeUserValue(rawValue));
+    }
+
+    @Override
+    public StateFuture<Void> asyncPut(UK key, UV value) {
+        byte[] rawKey = serializeKey(key);
+        byte[] rawValue;
+        try {
+            rawValue = state.serializeUserValue(value);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Error while serializing value", e);
+        }
+        return write(
+                rawKey, db -> db.put(state.columnFamily, state.writeOptions, rawKey, rawValue));
+    }
+
+    @Override
+    public StateFuture<Void> asyncRemove(UK key) {
+        byte[] rawKey = serializeKey(key);
+        return write(rawKey, db -> db.delete(state.columnFamily, state.writeOptions, rawKey));
+    }
+
+    @Override
+    public StateFuture<Boolean> asyncContains(UK key) {
+        return read(serializeKey(key)).thenApply(Objects::nonNull);
+    }
+
+    @Override
+    public StateFuture<Void> asyncClear() {
+        byte[] keyPrefix = state.serializeCurrentKeyWithGroupAndNamespace();
+        state.invalidateCachedEntries(keyPrefix);
+        return write(db -> state.clearPrefixUnsampled(keyPrefix));
+    }
+
+    private byte[] serializeKey(UK key) {
+        try {
+            return state.serializeCurrentKeyWithUserKey(key);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Error while serializing key", e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.async.AsyncExecutionController;
+import org.apache.flink.runtime.state.async.AsyncValueState;
+import org.apache.flink.runtime.state.async.StateFuture;
+
+/**
+ * {@link AsyncValueState} implementation that stores state in RocksDB.
+ *
+ * @param <K> The type of the key.
+ * @param <V> The type of the value.
+ */
+class RocksDBAsyncValueState<K, V>
+        extends AbstractRocksDBAsyncState<K, RocksDBValueState<K, VoidNamespace, V>>
+        implements AsyncValueState<V> {
+
+    RocksDBAsyncValueState(
+            RocksDBValueState<K, VoidNamespace, V> state, AsyncExecutionController<K> controller) {
+        super(state, controller);
+    }
+
+    @Override
+    public StateFuture<V> asyncValue() {
+        return read(state.serializeCurrentKeyWithGroupAndNamespace())
+                .thenApply(state::deserializeValueOrDefault);
+    }
+
+    @Override
+    public StateFuture<Void> asyncUpdate(V value) {
+        if (value == null) {
+            return asyncClear();
+        }
+        byte[] key = state.serializeCurrentKeyWithGroupAndNamespace();
+        byte[] rawValue = state.getValueBytes(value);
+        return write(key, db -> db.put(state.columnFamily, state.writeOptions, key, rawValue));
+    }
+}
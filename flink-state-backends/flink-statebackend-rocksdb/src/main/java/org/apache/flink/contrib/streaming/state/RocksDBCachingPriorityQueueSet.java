@@ -19,6 +19,7 @@
 package org.apache.flink.contrib.streaming.state;
 
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.contrib.streaming.state.RocksDBAccessMetrics.Operation;
 import org.apache.flink.core.memory.DataInputDeserializer;
 import org.apache.flink.core.memory.DataOutputSerializer;
 import org.apache.flink.runtime.state.CompositeKeySerializationUtils;
@@ -105,6 +106,9 @@ public class RocksDBCachingPriorityQueueSet<E extends HeapPriorityQueueElement>
     /** Index for management as a {@link HeapPriorityQueueElement}. */
     private int internalIndex;
 
+    /** The sampled latency histograms of the RocksDB accesses, null if they are disabled. */
+    @Nullable private final RocksDBAccessMetrics accessMetrics;
+
     RocksDBCachingPriorityQueueSet(
             @Nonnegative int keyGroupId,
             @Nonnegative int keyGroupPrefixBytes,
@@ -115,7 +119,8 @@ public class RocksDBCachingPriorityQueueSet<E extends HeapPriorityQueueElement>
             @Nonnull DataOutputSerializer outputStream,
             @Nonnull DataInputDeserializer inputStream,
             @Nonnull RocksDBWriteBatchWrapper batchWrapper,
-            @Nonnull OrderedByteArraySetCache orderedByteArraySetCache) {
+            @Nonnull OrderedByteArraySetCache orderedByteArraySetCache,
+            @Nullable RocksDBAccessMetrics accessMetrics) {
         this.db = db;
         this.readOptions = readOptions;
         this.columnFamilyHandle = columnFamilyHandle;
@@ -128,6 +133,7 @@ public class RocksDBCachingPriorityQueueSet<E extends HeapPriorityQueueElement>
         this.groupPrefixBytes = createKeyGroupBytes(keyGroupId, keyGroupPrefixBytes);
         this.seekHint = groupPrefixBytes;
         this.internalIndex = HeapPriorityQueueElement.NOT_CONTAINED;
+        this.accessMetrics = accessMetrics;
     }
 
     @Nullable
@@ -438,7 +444,14 @@ public class RocksDBCachingPriorityQueueSet<E extends HeapPriorityQueueElement>
                 // the key-group as possible, i.e. we generate the next possible key after seekHint
                 // by appending one
                 // zero-byte.
-                iterator.seek(Arrays.copyOf(seekHint, seekHint.length + 1));
+                byte[] seekTarget = Arrays.copyOf(seekHint, seekHint.length + 1);
+                if (accessMetrics != null && accessMetrics.shouldSample(Operation.SEEK)) {
+                    long startNanos = System.nanoTime();
+                    iterator.seek(seekTarget);
+                    accessMetrics.update(Operation.SEEK, startNanos);
+                } else {
+                    iterator.seek(seekTarget);
+                }
                 currentElement = nextElementIfAvailable();
             } catch (Exception ex) {
                 // ensure resource cleanup also in the face of (runtime) exceptions in the
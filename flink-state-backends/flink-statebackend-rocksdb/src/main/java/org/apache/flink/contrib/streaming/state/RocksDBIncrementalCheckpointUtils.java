@@ -30,6 +30,7 @@ import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
@@ -118,6 +119,39 @@ public class RocksDBIncrementalCheckpointUtils {
             @Nonnegative int keyGroupPrefixBytes,
             @Nonnegative long writeBatchSize)
             throws RocksDBException {
+        clipDBWithKeyGroupRange(
+                db,
+                columnFamilyHandles,
+                targetKeyGroupRange,
+                currentKeyGroupRange,
+                keyGroupPrefixBytes,
+                writeBatchSize,
+                false);
+    }
+
+    /**
+     * The method to clip the db instance according to the target key group range.
+     *
+     * <p>If {@code deleteFilesInRange} is set, SST files that only contain keys outside of the
+     * target key group range are dropped as a whole and the remaining keys are removed with a range
+     * tombstone, instead of deleting every key one by one.
+     *
+     * @param db the RocksDB instance to be clipped.
+     * @param columnFamilyHandles the column families in the db instance.
+     * @param targetKeyGroupRange the target key group range.
+     * @param currentKeyGroupRange the key group range of the db instance.
+     * @param keyGroupPrefixBytes Number of bytes required to prefix the key groups.
+     * @param deleteFilesInRange whether to drop whole files and use range deletions.
+     */
+    public static void clipDBWithKeyGroupRange(
+            @Nonnull RocksDB db,
+            @Nonnull List<ColumnFamilyHandle> columnFamilyHandles,
+            @Nonnull KeyGroupRange targetKeyGroupRange,
+            @Nonnull KeyGroupRange currentKeyGroupRange,
+            @Nonnegative int keyGroupPrefixBytes,
+            @Nonnegative long writeBatchSize,
+            boolean deleteFilesInRange)
+            throws RocksDBException {
 
         final byte[] beginKeyGroupBytes = new byte[keyGroupPrefixBytes];
         final byte[] endKeyGroupBytes = new byte[keyGroupPrefixBytes];
@@ -128,7 +162,12 @@ public class RocksDBIncrementalCheckpointUtils {
             CompositeKeySerializationUtils.serializeKeyGroup(
                     targetKeyGroupRange.getStartKeyGroup(), endKeyGroupBytes);
             deleteRange(
-                    db, columnFamilyHandles, beginKeyGroupBytes, endKeyGroupBytes, writeBatchSize);
+                    db,
+                    columnFamilyHandles,
+                    beginKeyGroupBytes,
+                    endKeyGroupBytes,
+                    writeBatchSize,
+                    deleteFilesInRange);
         }
 
         if (currentKeyGroupRange.getEndKeyGroup() > targetKeyGroupRange.getEndKeyGroup()) {
@@ -137,7 +176,12 @@ public class RocksDBIncrementalCheckpointUtils {
             CompositeKeySerializationUtils.serializeKeyGroup(
                     currentKeyGroupRange.getEndKeyGroup() + 1, endKeyGroupBytes);
             deleteRange(
-                    db, columnFamilyHandles, beginKeyGroupBytes, endKeyGroupBytes, writeBatchSize);
+                    db,
+                    columnFamilyHandles,
+                    beginKeyGroupBytes,
+                    endKeyGroupBytes,
+                    writeBatchSize,
+                    deleteFilesInRange);
         }
     }
 
@@ -148,15 +192,28 @@ public class RocksDBIncrementalCheckpointUtils {
      * @param columnFamilyHandles the column family need to be clipped.
      * @param beginKeyBytes the begin key bytes
      * @param endKeyBytes the end key bytes
+     * @param deleteFilesInRange whether to drop whole files and use range deletions
      */
     private static void deleteRange(
             RocksDB db,
             List<ColumnFamilyHandle> columnFamilyHandles,
             byte[] beginKeyBytes,
             byte[] endKeyBytes,
-            @Nonnegative long writeBatchSize)
+            @Nonnegative long writeBatchSize,
+            boolean deleteFilesInRange)
             throws RocksDBException {
 
+        if (deleteFilesInRange) {
+            for (ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
+                // drop the files that lie completely within the range, then mark the keys of the
+                // files that overlap with the range as deleted
+                db.deleteFilesInRanges(
+                        columnFamilyHandle, Arrays.asList(beginKeyBytes, endKeyBytes), false);
+                db.deleteRange(columnFamilyHandle, beginKeyBytes, endKeyBytes);
+            }
+            return;
+        }
+
         for (ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
             try (ReadOptions readOptions = new ReadOptions();
                     RocksIteratorWrapper iteratorWrapper =
@@ -19,8 +19,11 @@ package org.apache.flink.contrib.streaming.state;
 
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapStateDescriptor;
 import org.apache.flink.api.common.state.State;
 import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.TypeSerializerSchemaCompatibility;
 import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
@@ -35,6 +38,7 @@ import org.apache.flink.contrib.streaming.state.ttl.RocksDbTtlCompactFiltersMana
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.memory.DataInputDeserializer;
 import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.checkpoint.SnapshotType;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
@@ -55,6 +59,13 @@ import org.apache.flink.runtime.state.SnapshotResult;
 import org.apache.flink.runtime.state.SnapshotStrategyRunner;
 import org.apache.flink.runtime.state.StateSnapshotTransformer.StateSnapshotTransformFactory;
 import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.async.AsyncExecutionController;
+import org.apache.flink.runtime.state.async.AsyncKeyedStateBackend;
+import org.apache.flink.runtime.state.async.AsyncListState;
+import org.apache.flink.runtime.state.async.AsyncMapState;
+import org.apache.flink.runtime.state.async.AsyncValueState;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueElement;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSnapshotRestoreWrapper;
@@ -67,6 +78,7 @@ import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.Preconditions;
 import org.apache.flink.util.ResourceGuard;
 import org.apache.flink.util.StateMigrationException;
+import org.apache.flink.util.function.FunctionWithException;
 
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
@@ -80,6 +92,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -111,7 +124,8 @@ import static org.apache.flink.util.Preconditions.checkState;
  * href="https://github.com/facebook/rocksdb/wiki/RocksJava-Basics#opening-a-database-with-column-families">
  * this document</a>.
  */
-public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
+public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K>
+        implements AsyncKeyedStateBackend<K> {
 
     private static final Logger LOG = LoggerFactory.getLogger(RocksDBKeyedStateBackend.class);
 
@@ -228,6 +242,24 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
     private final RocksDbTtlCompactFiltersManager ttlCompactFiltersManager;
 
+    /** The maximum number of entries cached per value or map state, 0 if caching is disabled. */
+    private final int objectCacheSize;
+
+    /** The metric group to register the object cache metrics of the states with. */
+    private final MetricGroup metricGroup;
+
+    /** Factory for the sampled latency histograms of the RocksDB accesses of the states. */
+    private final RocksDBAccessMetrics.Factory accessMetricsFactory;
+
+    /** The object caches of all states, which have to be flushed before reading RocksDB. */
+    private final List<RocksDBObjectCache<?>> objectCaches = new ArrayList<>();
+
+    /**
+     * The RocksDB states by name, unwrapped from TTL and latency tracking, which the asynchronous
+     * states of the same descriptors delegate to.
+     */
+    private final Map<String, AbstractRocksDBState<K, ?, ?>> createdStates = new HashMap<>();
+
     public RocksDBKeyedStateBackend(
             ClassLoader userCodeClassLoader,
             File instanceBasePath,
@@ -253,7 +285,10 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
             PriorityQueueSetFactory priorityQueueFactory,
             RocksDbTtlCompactFiltersManager ttlCompactFiltersManager,
             InternalKeyContext<K> keyContext,
-            @Nonnegative long writeBatchSize) {
+            @Nonnegative long writeBatchSize,
+            @Nonnegative int objectCacheSize,
+            MetricGroup metricGroup,
+            RocksDBAccessMetrics.Factory accessMetricsFactory) {
 
         super(
                 kvStateRegistry,
@@ -281,6 +316,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         this.writeOptions = optionsContainer.getWriteOptions();
         this.readOptions = optionsContainer.getReadOptions();
         this.writeBatchSize = writeBatchSize;
+        this.objectCacheSize = objectCacheSize;
+        this.metricGroup = metricGroup;
+        this.accessMetricsFactory = accessMetricsFactory;
         this.db = db;
         this.rocksDBResourceGuard = rocksDBResourceGuard;
         this.checkpointSnapshotStrategy = checkpointSnapshotStrategy;
@@ -313,6 +351,8 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         RegisteredKeyValueStateBackendMetaInfo<N, ?> registeredKeyValueStateBackendMetaInfo =
                 (RegisteredKeyValueStateBackendMetaInfo<N, ?>) columnInfo.metaInfo;
 
+        flushObjectCaches();
+
         final TypeSerializer<N> namespaceSerializer =
                 registeredKeyValueStateBackendMetaInfo.getNamespaceSerializer();
         final DataOutputSerializer namespaceOutputView = new DataOutputSerializer(8);
@@ -360,6 +400,8 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         RegisteredKeyValueStateBackendMetaInfo<N, ?> registeredKeyValueStateBackendMetaInfo =
                 (RegisteredKeyValueStateBackendMetaInfo<N, ?>) columnInfo.metaInfo;
 
+        flushObjectCaches();
+
         final TypeSerializer<N> namespaceSerializer =
                 registeredKeyValueStateBackendMetaInfo.getNamespaceSerializer();
         boolean ambiguousKeyPossible =
@@ -418,6 +460,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         // working on the disposed object results in SEGFAULTS.
         if (db != null) {
 
+            objectCaches.forEach(IOUtils::closeQuietly);
+            objectCaches.clear();
+            createdStates.clear();
             IOUtils.closeQuietly(writeBatchWrapper);
 
             // Metric collection occurs on a background thread. When this method returns
@@ -502,6 +547,49 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         return priorityQueueFactory;
     }
 
+    /**
+     * Creates the cache of deserialized values for a value or map state. Returns null if object
+     * caching is disabled, or for queryable state, whose values are read from RocksDB by other
+     * threads.
+     */
+    @Nullable
+    <V> RocksDBObjectCache<V> createObjectCache(
+            StateDescriptor<?, ?> stateDesc,
+            ColumnFamilyHandle columnFamily,
+            FunctionWithException<byte[], V, IOException> deserializer,
+            FunctionWithException<V, byte[], IOException> serializer) {
+        if (objectCacheSize <= 0 || stateDesc.isQueryable()) {
+            return null;
+        }
+        RocksDBObjectCache<V> objectCache =
+                new RocksDBObjectCache<>(
+                        db,
+                        columnFamily,
+                        writeOptions,
+                        writeBatchSize,
+                        objectCacheSize,
+                        deserializer,
+                        serializer,
+                        metricGroup.addGroup(stateDesc.getName()));
+        objectCaches.add(objectCache);
+        return objectCache;
+    }
+
+    /** Writes the modifications cached in the object caches of all states to RocksDB. */
+    private void flushObjectCaches() {
+        try {
+            for (RocksDBObjectCache<?> objectCache : objectCaches) {
+                objectCache.flush();
+            }
+        } catch (IOException | RocksDBException e) {
+            throw new FlinkRuntimeException("Error while flushing the object caches.", e);
+        }
+    }
+
+    ResourceGuard getRocksDBResourceGuard() {
+        return rocksDBResourceGuard;
+    }
+
     public WriteOptions getWriteOptions() {
         return writeOptions;
     }
@@ -541,6 +629,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
             throws Exception {
 
         // flush everything into db before taking a snapshot
+        flushObjectCaches();
         writeBatchWrapper.flush();
 
         return new SnapshotStrategyRunner<>(
@@ -556,6 +645,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
     public SavepointResources<K> savepoint() throws Exception {
 
         // flush everything into db before taking a snapshot
+        flushObjectCaches();
         writeBatchWrapper.flush();
 
         Map<String, HeapPriorityQueueSnapshotRestoreWrapper<?>> registeredPQStates;
@@ -836,7 +926,60 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         Tuple2<ColumnFamilyHandle, RegisteredKeyValueStateBackendMetaInfo<N, SV>> registerResult =
                 tryRegisterKvStateInformation(
                         stateDesc, namespaceSerializer, snapshotTransformFactory);
-        return stateFactory.createState(stateDesc, registerResult, RocksDBKeyedStateBackend.this);
+        IS state =
+                stateFactory.createState(stateDesc, registerResult, RocksDBKeyedStateBackend.this);
+        AbstractRocksDBState<K, ?, ?> rocksDBState = (AbstractRocksDBState<K, ?, ?>) state;
+        rocksDBState.setAccessMetrics(accessMetricsFactory.getOrCreate(stateDesc.getName()));
+        createdStates.put(stateDesc.getName(), rocksDBState);
+        return state;
+    }
+
+    @Override
+    public <T> AsyncValueState<T> createAsyncValueState(
+            ValueStateDescriptor<T> stateDescriptor, AsyncExecutionController<K> controller)
+            throws Exception {
+        RocksDBValueState<K, VoidNamespace, T> state = createAsyncStateDelegate(stateDescriptor);
+        return new RocksDBAsyncValueState<>(state, controller);
+    }
+
+    @Override
+    public <UK, UV> AsyncMapState<UK, UV> createAsyncMapState(
+            MapStateDescriptor<UK, UV> stateDescriptor, AsyncExecutionController<K> controller)
+            throws Exception {
+        RocksDBMapState<K, VoidNamespace, UK, UV> state = createAsyncStateDelegate(stateDescriptor);
+        return new RocksDBAsyncMapState<>(state, controller);
+    }
+
+    @Override
+    public <T> AsyncListState<T> createAsyncListState(
+            ListStateDescriptor<T> stateDescriptor, AsyncExecutionController<K> controller)
+            throws Exception {
+        RocksDBListState<K, VoidNamespace, T> state = createAsyncStateDelegate(stateDescriptor);
+        return new RocksDBAsyncListState<>(state, controller);
+    }
+
+    /**
+     * Returns the synchronous state of the descriptor, which the asynchronous one serializes keys
+     * and values with. The synchronous state is created and registered like any other keyed state
+     * if it does not exist yet, so that synchronous and asynchronous access of the same descriptor
+     * share one state with one object cache and one set of metrics.
+     */
+    @SuppressWarnings("unchecked")
+    private <SV, S extends State, IS extends S> IS createAsyncStateDelegate(
+            StateDescriptor<S, SV> stateDesc) throws Exception {
+        Preconditions.checkArgument(
+                !stateDesc.getTtlConfig().isEnabled(),
+                "State TTL is not supported for asynchronous state.");
+        getOrCreateKeyedState(VoidNamespaceSerializer.INSTANCE, stateDesc);
+        AbstractRocksDBState<K, ?, ?> state = createdStates.get(stateDesc.getName());
+        Preconditions.checkState(
+                state != null && state.getNamespaceSerializer() instanceof VoidNamespaceSerializer,
+                "State %s is already registered with a namespace, which asynchronous state does"
+                        + " not support.",
+                stateDesc.getName());
+        ((AbstractRocksDBState<K, VoidNamespace, ?>) state)
+                .setCurrentNamespace(VoidNamespace.INSTANCE);
+        return (IS) state;
     }
 
     /** Only visible for testing, DO NOT USE. */
@@ -847,6 +990,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
     @VisibleForTesting
     @Override
     public int numKeyValueStateEntries() {
+        flushObjectCaches();
         int count = 0;
 
         for (RocksDbKvStateInfo metaInfo : kvStateInformation.values()) {
@@ -117,6 +117,13 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
     private int numberOfTransferingThreads;
     private long writeBatchSize =
             RocksDBConfigurableOptions.WRITE_BATCH_SIZE.defaultValue().getBytes();
+    private int objectCacheSize = RocksDBOptions.OBJECT_CACHE_SIZE.defaultValue();
+    private boolean useIngestDbRestoreMode =
+            RocksDBOptions.USE_INGEST_DB_RESTORE_MODE.defaultValue();
+    private int restoreParallelism = RocksDBOptions.RESTORE_PARALLELISM.defaultValue();
+    private boolean useSharedUploadPool =
+            RocksDBOptions.CHECKPOINT_TRANSFER_SHARED_UPLOAD_POOL.defaultValue();
+    private long uploadMaxBandwidth = RocksDBUploadScheduler.UNLIMITED_BANDWIDTH;
 
     private RocksDB injectedTestDB; // for testing
     private ColumnFamilyHandle injectedDefaultColumnFamilyHandle; // for testing
@@ -236,6 +243,37 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
         return this;
     }
 
+    RocksDBKeyedStateBackendBuilder<K> setObjectCacheSize(int objectCacheSize) {
+        checkArgument(objectCacheSize >= 0, "Object cache size should be non negative.");
+        this.objectCacheSize = objectCacheSize;
+        return this;
+    }
+
+    RocksDBKeyedStateBackendBuilder<K> setUseIngestDbRestoreMode(boolean useIngestDbRestoreMode) {
+        this.useIngestDbRestoreMode = useIngestDbRestoreMode;
+        return this;
+    }
+
+    RocksDBKeyedStateBackendBuilder<K> setRestoreParallelism(int restoreParallelism) {
+        checkArgument(restoreParallelism > 0, "Restore parallelism should be positive.");
+        this.restoreParallelism = restoreParallelism;
+        return this;
+    }
+
+    RocksDBKeyedStateBackendBuilder<K> setUseSharedUploadPool(boolean useSharedUploadPool) {
+        this.useSharedUploadPool = useSharedUploadPool;
+        return this;
+    }
+
+    RocksDBKeyedStateBackendBuilder<K> setUploadMaxBandwidth(long uploadMaxBandwidth) {
+        checkArgument(
+                uploadMaxBandwidth > 0
+                        || uploadMaxBandwidth == RocksDBUploadScheduler.UNLIMITED_BANDWIDTH,
+                "Upload bandwidth should be positive.");
+        this.uploadMaxBandwidth = uploadMaxBandwidth;
+        return this;
+    }
+
     RocksDBKeyedStateBackendBuilder<K> setWriteBatchSize(long writeBatchSize) {
         checkArgument(writeBatchSize >= 0, "Write batch size should be non negative.");
         this.writeBatchSize = writeBatchSize;
@@ -270,6 +308,8 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
         RocksDBWriteBatchWrapper writeBatchWrapper = null;
         ColumnFamilyHandle defaultColumnFamilyHandle = null;
         RocksDBNativeMetricMonitor nativeMetricMonitor = null;
+        RocksDBAccessMetrics.Factory accessMetricsFactory =
+                new RocksDBAccessMetrics.Factory(metricGroup, nativeMetricOptions);
         CloseableRegistry cancelStreamRegistryForBackend = new CloseableRegistry();
         LinkedHashMap<String, RocksDBKeyedStateBackend.RocksDbKvStateInfo> kvStateInformation =
                 new LinkedHashMap<>();
@@ -356,7 +396,8 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
                             kvStateInformation,
                             db,
                             writeBatchWrapper,
-                            nativeMetricMonitor);
+                            nativeMetricMonitor,
+                            accessMetricsFactory);
         } catch (Throwable e) {
             // Do clean up
             List<ColumnFamilyOptions> columnFamilyOptions =
@@ -423,7 +464,10 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
                 priorityQueueFactory,
                 ttlCompactFiltersManager,
                 keyContext,
-                writeBatchSize);
+                writeBatchSize,
+                objectCacheSize,
+                metricGroup,
+                accessMetricsFactory);
     }
 
     private RocksDBRestoreOperation getRocksDBRestoreOperation(
@@ -464,7 +508,9 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
                     restoreStateHandles,
                     ttlCompactFiltersManager,
                     writeBatchSize,
-                    optionsContainer.getWriteBufferManagerCapacity());
+                    optionsContainer.getWriteBufferManagerCapacity(),
+                    useIngestDbRestoreMode,
+                    restoreParallelism);
         } else if (priorityQueueStateType
                 == EmbeddedRocksDBStateBackend.PriorityQueueStateType.HEAP) {
             return new RocksDBHeapTimersFullRestoreOperation<>(
@@ -514,10 +560,17 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
             long lastCompletedCheckpointId) {
         RocksDBSnapshotStrategyBase<K, ?> checkpointSnapshotStrategy;
         if (enableIncrementalCheckpointing) {
-            RocksDBStateUploader stateUploader =
-                    injectRocksDBStateUploader == null
-                            ? new RocksDBStateUploader(numberOfTransferingThreads)
-                            : injectRocksDBStateUploader;
+            RocksDBStateUploader stateUploader;
+            if (injectRocksDBStateUploader == null) {
+                stateUploader =
+                        new RocksDBStateUploader(
+                                numberOfTransferingThreads,
+                                uploadMaxBandwidth,
+                                useSharedUploadPool);
+                stateUploader.registerMetrics(metricGroup);
+            } else {
+                stateUploader = injectRocksDBStateUploader;
+            }
             checkpointSnapshotStrategy =
                     new RocksIncrementalSnapshotStrategy<>(
                             db,
@@ -554,7 +607,8 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
             Map<String, RocksDBKeyedStateBackend.RocksDbKvStateInfo> kvStateInformation,
             RocksDB db,
             RocksDBWriteBatchWrapper writeBatchWrapper,
-            RocksDBNativeMetricMonitor nativeMetricMonitor) {
+            RocksDBNativeMetricMonitor nativeMetricMonitor,
+            RocksDBAccessMetrics.Factory accessMetricsFactory) {
         PriorityQueueSetFactory priorityQueueFactory;
         switch (priorityQueueStateType) {
             case HEAP:
@@ -571,6 +625,7 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
                                 optionsContainer.getReadOptions(),
                                 writeBatchWrapper,
                                 nativeMetricMonitor,
+                                accessMetricsFactory,
                                 columnFamilyOptionsFactory,
                                 optionsContainer.getWriteBufferManagerCapacity());
                 break;
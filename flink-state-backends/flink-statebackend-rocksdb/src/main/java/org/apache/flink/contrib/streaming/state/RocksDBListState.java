@@ -116,21 +116,31 @@ class RocksDBListState<K, N, V> extends AbstractRocksDBState<K, N, List<V>>
     public List<V> getInternal() {
         try {
             byte[] key = serializeCurrentKeyWithGroupAndNamespace();
-            byte[] valueBytes = backend.db.get(columnFamily, key);
-            return listSerializer.deserializeList(valueBytes, elementSerializer);
+            byte[] valueBytes = dbGet(key);
+            return deserializeList(valueBytes);
         } catch (RocksDBException e) {
             throw new FlinkRuntimeException("Error while retrieving data from RocksDB", e);
         }
     }
 
+    List<V> deserializeList(byte[] valueBytes) {
+        return listSerializer.deserializeList(valueBytes, elementSerializer);
+    }
+
+    byte[] serializeElement(V value) throws IOException {
+        return serializeValue(value, elementSerializer);
+    }
+
+    byte[] serializeList(List<V> values) throws IOException {
+        return listSerializer.serializeList(values, elementSerializer);
+    }
+
     @Override
     public void add(V value) {
         Preconditions.checkNotNull(value, "You cannot add null to a ListState.");
 
         try {
-            backend.db.merge(
-                    columnFamily,
-                    writeOptions,
+            dbMerge(
                     serializeCurrentKeyWithGroupAndNamespace(),
                     serializeValue(value, elementSerializer));
         } catch (Exception e) {
@@ -155,11 +165,11 @@ class RocksDBListState<K, N, V> extends AbstractRocksDBState<K, N, List<V>>
                     setCurrentNamespace(source);
                     final byte[] sourceKey = serializeCurrentKeyWithGroupAndNamespace();
 
-                    byte[] valueBytes = backend.db.get(columnFamily, sourceKey);
+                    byte[] valueBytes = dbGet(sourceKey);
 
                     if (valueBytes != null) {
-                        backend.db.delete(columnFamily, writeOptions, sourceKey);
-                        backend.db.merge(columnFamily, writeOptions, targetKey, valueBytes);
+                        dbDelete(sourceKey);
+                        dbMerge(targetKey, valueBytes);
                     }
                 }
             }
@@ -179,9 +189,7 @@ class RocksDBListState<K, N, V> extends AbstractRocksDBState<K, N, List<V>>
 
         if (!values.isEmpty()) {
             try {
-                backend.db.put(
-                        columnFamily,
-                        writeOptions,
+                dbPut(
                         serializeCurrentKeyWithGroupAndNamespace(),
                         listSerializer.serializeList(values, elementSerializer));
             } catch (IOException | RocksDBException e) {
@@ -198,9 +206,7 @@ class RocksDBListState<K, N, V> extends AbstractRocksDBState<K, N, List<V>>
 
         if (!values.isEmpty()) {
             try {
-                backend.db.merge(
-                        columnFamily,
-                        writeOptions,
+                dbMerge(
                         serializeCurrentKeyWithGroupAndNamespace(),
                         listSerializer.serializeList(values, elementSerializer));
             } catch (IOException | RocksDBException e) {
@@ -49,7 +49,11 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
@@ -72,6 +76,9 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
 
     private final TypeSerializer<UV> userValueSerializer;
 
+    /** The cache of deserialized user values, null if disabled. */
+    @Nullable private RocksDBObjectCache<UV> objectCache;
+
     /**
      * Creates a new {@code RocksDBMapState}.
      *
@@ -121,21 +128,73 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
     public UV get(UK userKey) throws IOException, RocksDBException {
         byte[] rawKeyBytes =
                 serializeCurrentKeyWithGroupAndNamespacePlusUserKey(userKey, userKeySerializer);
-        byte[] rawValueBytes = backend.db.get(columnFamily, rawKeyBytes);
+        if (objectCache != null) {
+            RocksDBObjectCache.Entry<UV> entry = objectCache.get(rawKeyBytes);
+            return entry.isPresent() ? entry.getValue() : null;
+        }
+        byte[] rawValueBytes = dbGet(rawKeyBytes);
 
         return (rawValueBytes == null
                 ? null
                 : deserializeUserValue(dataInputView, rawValueBytes, userValueSerializer));
     }
 
+    @Override
+    public Map<UK, UV> getAll(Collection<UK> userKeys) throws IOException, RocksDBException {
+        if (objectCache != null) {
+            // go through the cache, entries that are cached do not need a lookup at all
+            Map<UK, UV> result = new HashMap<>(userKeys.size());
+            for (UK userKey : userKeys) {
+                UV userValue = get(userKey);
+                if (userValue != null) {
+                    result.put(userKey, userValue);
+                }
+            }
+            return result;
+        }
+        if (userKeys.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        List<byte[]> rawKeysBytes = new ArrayList<>(userKeys.size());
+        for (UK userKey : userKeys) {
+            rawKeysBytes.add(
+                    serializeCurrentKeyWithGroupAndNamespacePlusUserKey(
+                            userKey, userKeySerializer));
+        }
+        // look up all keys with one call, which saves JNI round trips and batches the lookups
+        // in the block cache and the SST files
+        List<byte[]> rawValuesBytes =
+                backend.db.multiGetAsList(
+                        Collections.nCopies(rawKeysBytes.size(), columnFamily), rawKeysBytes);
+
+        Map<UK, UV> result = new HashMap<>(userKeys.size());
+        Iterator<UK> userKeyIterator = userKeys.iterator();
+        for (byte[] rawValueBytes : rawValuesBytes) {
+            UK userKey = userKeyIterator.next();
+            if (rawValueBytes != null) {
+                UV userValue =
+                        deserializeUserValue(dataInputView, rawValueBytes, userValueSerializer);
+                if (userValue != null) {
+                    result.put(userKey, userValue);
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public void put(UK userKey, UV userValue) throws IOException, RocksDBException {
 
         byte[] rawKeyBytes =
                 serializeCurrentKeyWithGroupAndNamespacePlusUserKey(userKey, userKeySerializer);
+        if (objectCache != null) {
+            objectCache.put(rawKeyBytes, userValue);
+            return;
+        }
         byte[] rawValueBytes = serializeValueNullSensitive(userValue, userValueSerializer);
 
-        backend.db.put(columnFamily, writeOptions, rawKeyBytes, rawValueBytes);
+        dbPut(rawKeyBytes, rawValueBytes);
     }
 
     @Override
@@ -144,6 +203,13 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
             return;
         }
 
+        if (objectCache != null) {
+            for (Map.Entry<UK, UV> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+
         try (RocksDBWriteBatchWrapper writeBatchWrapper =
                 new RocksDBWriteBatchWrapper(
                         backend.db, writeOptions, backend.getWriteBatchSize())) {
@@ -162,15 +228,22 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
     public void remove(UK userKey) throws IOException, RocksDBException {
         byte[] rawKeyBytes =
                 serializeCurrentKeyWithGroupAndNamespacePlusUserKey(userKey, userKeySerializer);
+        if (objectCache != null) {
+            objectCache.remove(rawKeyBytes);
+            return;
+        }
 
-        backend.db.delete(columnFamily, writeOptions, rawKeyBytes);
+        dbDelete(rawKeyBytes);
     }
 
     @Override
     public boolean contains(UK userKey) throws IOException, RocksDBException {
         byte[] rawKeyBytes =
                 serializeCurrentKeyWithGroupAndNamespacePlusUserKey(userKey, userKeySerializer);
-        byte[] rawValueBytes = backend.db.get(columnFamily, rawKeyBytes);
+        if (objectCache != null) {
+            return objectCache.get(rawKeyBytes).isPresent();
+        }
+        byte[] rawValueBytes = dbGet(rawKeyBytes);
 
         return (rawValueBytes != null);
     }
@@ -264,13 +337,14 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
 
     @Override
     public boolean isEmpty() {
+        flushObjectCache();
         final byte[] prefixBytes = serializeCurrentKeyWithGroupAndNamespace();
 
         try (RocksIteratorWrapper iterator =
                 RocksDBOperationUtils.getRocksIterator(
                         backend.db, columnFamily, backend.getReadOptions())) {
 
-            iterator.seek(prefixBytes);
+            seek(iterator, prefixBytes);
 
             return !iterator.isValid() || !startWithKeyPrefix(prefixBytes, iterator.key());
         }
@@ -278,6 +352,62 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
 
     @Override
     public void clear() {
+        byte[] keyPrefixBytes = serializeCurrentKeyWithGroupAndNamespace();
+        invalidateCachedEntries(keyPrefixBytes);
+        clearPrefix(keyPrefixBytes);
+    }
+
+    @Override
+    void releaseCachedEntry(byte[] rawKeyBytes) throws IOException, RocksDBException {
+        if (objectCache != null) {
+            objectCache.writeThrough(rawKeyBytes);
+        }
+    }
+
+    /** Drops the cached entries with the given key prefix before they are removed from RocksDB. */
+    void invalidateCachedEntries(byte[] keyPrefixBytes) {
+        if (objectCache != null) {
+            try {
+                objectCache.invalidatePrefix(keyPrefixBytes);
+            } catch (RocksDBException e) {
+                throw new FlinkRuntimeException("Error while flushing the object cache.", e);
+            }
+        }
+    }
+
+    /** Writes the modifications in the object cache to RocksDB before iterating over it. */
+    private void flushObjectCache() {
+        if (objectCache != null) {
+            try {
+                objectCache.flush();
+            } catch (IOException | RocksDBException e) {
+                throw new FlinkRuntimeException("Error while flushing the object cache.", e);
+            }
+        }
+    }
+
+    /** Drops the cached entry before the entry is modified through an iterator. */
+    private void invalidateCachedEntry(byte[] rawKeyBytes) throws RocksDBException {
+        if (objectCache != null) {
+            objectCache.invalidate(rawKeyBytes);
+        }
+    }
+
+    /** Removes all entries whose keys start with the given key and namespace prefix. */
+    void clearPrefix(byte[] keyPrefixBytes) {
+        clearPrefix(keyPrefixBytes, true);
+    }
+
+    /**
+     * Removes all entries whose keys start with the given key and namespace prefix without sampling
+     * the access metrics, which must not be updated from the state-access threads of the
+     * asynchronous state.
+     */
+    void clearPrefixUnsampled(byte[] keyPrefixBytes) {
+        clearPrefix(keyPrefixBytes, false);
+    }
+
+    private void clearPrefix(byte[] keyPrefixBytes, boolean sampleAccess) {
         try {
             try (RocksIteratorWrapper iterator =
                             RocksDBOperationUtils.getRocksIterator(
@@ -288,8 +418,11 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
                                     backend.getWriteOptions(),
                                     backend.getWriteBatchSize())) {
 
-                final byte[] keyPrefixBytes = serializeCurrentKeyWithGroupAndNamespace();
-                iterator.seek(keyPrefixBytes);
+                if (sampleAccess) {
+                    seek(iterator, keyPrefixBytes);
+                } else {
+                    iterator.seek(keyPrefixBytes);
+                }
 
                 while (iterator.isValid()) {
                     byte[] keyBytes = iterator.key();
@@ -306,6 +439,18 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
         }
     }
 
+    byte[] serializeCurrentKeyWithUserKey(UK userKey) throws IOException {
+        return serializeCurrentKeyWithGroupAndNamespacePlusUserKey(userKey, userKeySerializer);
+    }
+
+    byte[] serializeUserValue(UV userValue) throws IOException {
+        return serializeValueNullSensitive(userValue, userValueSerializer);
+    }
+
+    UV deserializeUserValue(byte[] rawValueBytes) throws IOException {
+        return deserializeUserValue(dataInputView, rawValueBytes, userValueSerializer);
+    }
+
     @Override
     public byte[] getSerializedValue(
             final byte[] serializedKeyAndNamespace,
@@ -319,6 +464,8 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
         Preconditions.checkNotNull(safeNamespaceSerializer);
         Preconditions.checkNotNull(safeValueSerializer);
 
+        flushObjectCache();
+
         // TODO make KvStateSerializer key-group aware to save this round trip and key-group
         // computation
         Tuple2<K, N> keyAndNamespace =
@@ -414,8 +561,6 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
 
     /** A map entry in RocksDBMapState. */
     private class RocksDBMapEntry implements Map.Entry<UK, UV> {
-        private final RocksDB db;
-
         /**
          * The raw bytes of the key stored in RocksDB. Each user key is stored in RocksDB with the
          * format #KeyGroup#Key#Namespace#UserKey.
@@ -446,15 +591,12 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
         private final DataInputDeserializer dataInputView;
 
         RocksDBMapEntry(
-                @Nonnull final RocksDB db,
                 @Nonnegative final int userKeyOffset,
                 @Nonnull final byte[] rawKeyBytes,
                 @Nonnull final byte[] rawValueBytes,
                 @Nonnull final TypeSerializer<UK> keySerializer,
                 @Nonnull final TypeSerializer<UV> valueSerializer,
                 @Nonnull DataInputDeserializer dataInputView) {
-            this.db = db;
-
             this.userKeyOffset = userKeyOffset;
             this.keySerializer = keySerializer;
             this.valueSerializer = valueSerializer;
@@ -470,7 +612,8 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
             rawValueBytes = null;
 
             try {
-                db.delete(columnFamily, writeOptions, rawKeyBytes);
+                invalidateCachedEntry(rawKeyBytes);
+                dbDelete(rawKeyBytes);
             } catch (RocksDBException e) {
                 throw new FlinkRuntimeException("Error while removing data from RocksDB.", e);
             }
@@ -522,7 +665,8 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
                 userValue = value;
                 rawValueBytes = serializeValueNullSensitive(value, valueSerializer);
 
-                db.put(columnFamily, writeOptions, rawKeyBytes, rawValueBytes);
+                invalidateCachedEntry(rawKeyBytes);
+                dbPut(rawKeyBytes, rawValueBytes);
             } catch (IOException | RocksDBException e) {
                 throw new FlinkRuntimeException("Error while putting data into RocksDB.", e);
             }
@@ -578,6 +722,8 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
             this.keySerializer = keySerializer;
             this.valueSerializer = valueSerializer;
             this.dataInputView = dataInputView;
+
+            flushObjectCache();
         }
 
         @Override
@@ -642,7 +788,7 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
                 cacheEntries.clear();
                 cacheIndex = 0;
 
-                iterator.seek(startBytes);
+                seek(iterator, startBytes);
 
                 /*
                  * If the entry pointing to the current position is not removed, it will be the first entry in the
@@ -665,7 +811,6 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
 
                     RocksDBMapEntry entry =
                             new RocksDBMapEntry(
-                                    db,
                                     keyPrefixBytes.length,
                                     iterator.key(),
                                     iterator.value(),
@@ -687,13 +832,20 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
             Tuple2<ColumnFamilyHandle, RegisteredKeyValueStateBackendMetaInfo<N, SV>>
                     registerResult,
             RocksDBKeyedStateBackend<K> backend) {
-        return (IS)
+        RocksDBMapState<K, N, UK, UV> state =
                 new RocksDBMapState<>(
                         registerResult.f0,
                         registerResult.f1.getNamespaceSerializer(),
                         (TypeSerializer<Map<UK, UV>>) registerResult.f1.getStateSerializer(),
                         (Map<UK, UV>) stateDesc.getDefaultValue(),
                         backend);
+        state.objectCache =
+                backend.createObjectCache(
+                        stateDesc,
+                        registerResult.f0,
+                        state::deserializeUserValue,
+                        state::serializeUserValue);
+        return (IS) state;
     }
 
     /**
@@ -21,6 +21,7 @@ package org.apache.flink.contrib.streaming.state;
 import org.apache.flink.configuration.ConfigOption;
 import org.apache.flink.configuration.ConfigOptions;
 import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.util.Preconditions;
 
 import java.io.Serializable;
 import java.util.Collection;
@@ -42,6 +43,9 @@ public class RocksDBNativeMetricOptions implements Serializable {
     public static final String METRICS_COLUMN_FAMILY_AS_VARIABLE_KEY =
             "state.backend.rocksdb.metrics" + ".column-family-as-variable";
 
+    public static final String METRICS_ACCESS_LATENCY_KEY =
+            "state.backend.rocksdb.metrics" + ".access-latency";
+
     public static final ConfigOption<Boolean> MONITOR_NUM_IMMUTABLE_MEM_TABLES =
             ConfigOptions.key(RocksDBProperty.NumImmutableMemTable.getConfigKey())
                     .booleanType()
@@ -229,6 +233,33 @@ public class RocksDBNativeMetricOptions implements Serializable {
                     .defaultValue(false)
                     .withDescription("Whether to expose the column family as a variable.");
 
+    public static final ConfigOption<Boolean> MONITOR_ACCESS_LATENCY =
+            ConfigOptions.key(METRICS_ACCESS_LATENCY_KEY)
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Monitor the latency of the gets, puts, merges, deletes and iterator "
+                                    + "seeks that each state and timer queue issues against "
+                                    + "RocksDB, reported as histograms of the column family.");
+
+    public static final ConfigOption<Integer> ACCESS_LATENCY_SAMPLE_INTERVAL =
+            ConfigOptions.key(METRICS_ACCESS_LATENCY_KEY + ".sample-interval")
+                    .intType()
+                    .defaultValue(100)
+                    .withDescription(
+                            String.format(
+                                    "The sample interval of the access latency once '%s' is "
+                                            + "enabled, e.g. 100 samples every 100th access of "
+                                            + "each operation.",
+                                    METRICS_ACCESS_LATENCY_KEY));
+
+    public static final ConfigOption<Integer> ACCESS_LATENCY_HISTORY_SIZE =
+            ConfigOptions.key(METRICS_ACCESS_LATENCY_KEY + ".history-size")
+                    .intType()
+                    .defaultValue(128)
+                    .withDescription(
+                            "The number of sampled access latencies each histogram keeps.");
+
     /** Creates a {@link RocksDBNativeMetricOptions} based on an external configuration. */
     public static RocksDBNativeMetricOptions fromConfig(ReadableConfig config) {
         RocksDBNativeMetricOptions options = new RocksDBNativeMetricOptions();
@@ -338,11 +369,20 @@ public class RocksDBNativeMetricOptions implements Serializable {
 
         options.setColumnFamilyAsVariable(config.get(COLUMN_FAMILY_AS_VARIABLE));
 
+        if (config.get(MONITOR_ACCESS_LATENCY)) {
+            options.enableAccessLatency();
+        }
+        options.setAccessLatencySampleInterval(config.get(ACCESS_LATENCY_SAMPLE_INTERVAL));
+        options.setAccessLatencyHistorySize(config.get(ACCESS_LATENCY_HISTORY_SIZE));
+
         return options;
     }
 
     private final Set<String> properties;
     private boolean columnFamilyAsVariable = COLUMN_FAMILY_AS_VARIABLE.defaultValue();
+    private boolean accessLatencyEnabled = MONITOR_ACCESS_LATENCY.defaultValue();
+    private int accessLatencySampleInterval = ACCESS_LATENCY_SAMPLE_INTERVAL.defaultValue();
+    private int accessLatencyHistorySize = ACCESS_LATENCY_HISTORY_SIZE.defaultValue();
 
     public RocksDBNativeMetricOptions() {
         this.properties = new HashSet<>();
@@ -501,6 +541,25 @@ public class RocksDBNativeMetricOptions implements Serializable {
         this.columnFamilyAsVariable = columnFamilyAsVariable;
     }
 
+    /** Tracks the latency of the RocksDB accesses of each state and timer queue. */
+    public void enableAccessLatency() {
+        this.accessLatencyEnabled = true;
+    }
+
+    /** Sets after how many accesses of an operation its latency is sampled. */
+    public void setAccessLatencySampleInterval(int accessLatencySampleInterval) {
+        Preconditions.checkArgument(
+                accessLatencySampleInterval >= 1, "The sample interval must be positive.");
+        this.accessLatencySampleInterval = accessLatencySampleInterval;
+    }
+
+    /** Sets the number of sampled latencies each access latency histogram keeps. */
+    public void setAccessLatencyHistorySize(int accessLatencyHistorySize) {
+        Preconditions.checkArgument(
+                accessLatencyHistorySize >= 1, "The history size must be positive.");
+        this.accessLatencyHistorySize = accessLatencyHistorySize;
+    }
+
     /** @return the enabled RocksDB metrics */
     public Collection<String> getProperties() {
         return Collections.unmodifiableCollection(properties);
@@ -523,4 +582,22 @@ public class RocksDBNativeMetricOptions implements Serializable {
     public boolean isColumnFamilyAsVariable() {
         return this.columnFamilyAsVariable;
     }
+
+    /**
+     * Whether the latency of the RocksDB accesses of each state and timer queue is tracked by
+     * {@link RocksDBAccessMetrics}. This is independent of {@link #isEnabled()}.
+     *
+     * @return true if access latency histograms should be registered, false otherwise.
+     */
+    public boolean isAccessLatencyEnabled() {
+        return accessLatencyEnabled;
+    }
+
+    public int getAccessLatencySampleInterval() {
+        return accessLatencySampleInterval;
+    }
+
+    public int getAccessLatencyHistorySize() {
+        return accessLatencyHistorySize;
+    }
 }
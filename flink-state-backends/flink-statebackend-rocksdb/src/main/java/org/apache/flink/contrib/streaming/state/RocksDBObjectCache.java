@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.function.FunctionWithException;
+
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteOptions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A write-behind LRU cache of deserialized values of one RocksDB state, keyed by the serialized
+ * RocksDB key of the entry.
+ *
+ * <p>Reads of cached entries skip the lookup in RocksDB and the deserialization, and updates only
+ * replace the cached object. Modified entries are serialized and written to RocksDB in batches when
+ * they are evicted, and all of them when the cache is {@link #flush() flushed}, which the backend
+ * does before snapshots and before iterating over the column family. Evicted writes that are not
+ * flushed yet are kept in serialized form so that subsequent reads see them.
+ *
+ * <p>Like the heap backends, the cache hands out and keeps references to the values, so values must
+ * not be modified after they were passed to or returned from the state.
+ *
+ * <p>IMPORTANT: This class is not thread safe.
+ *
+ * @param <V> The type of the cached values.
+ */
+class RocksDBObjectCache<V> implements AutoCloseable {
+
+    /** Number of evicted writes after which they are written to RocksDB. */
+    private static final int MAX_PENDING_WRITES = 500;
+
+    private final RocksDB db;
+
+    private final ColumnFamilyHandle columnFamily;
+
+    private final FunctionWithException<byte[], V, IOException> deserializer;
+
+    private final FunctionWithException<V, byte[], IOException> serializer;
+
+    private final RocksDBWriteBatchWrapper writeBatch;
+
+    /** The cached entries in access order, so the eldest entry is the least recently used. */
+    private final LinkedHashMap<ByteBuffer, Entry<V>> entries;
+
+    /** The serialized values of evicted entries that are in the write batch, null if removed. */
+    private final Map<ByteBuffer, byte[]> pendingWrites = new HashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    RocksDBObjectCache(
+            RocksDB db,
+            ColumnFamilyHandle columnFamily,
+            WriteOptions writeOptions,
+            long writeBatchSize,
+            int capacity,
+            FunctionWithException<byte[], V, IOException> deserializer,
+            FunctionWithException<V, byte[], IOException> serializer,
+            MetricGroup metricGroup) {
+        this.db = db;
+        this.columnFamily = columnFamily;
+        this.deserializer = deserializer;
+        this.serializer = serializer;
+        this.writeBatch = new RocksDBWriteBatchWrapper(db, writeOptions, writeBatchSize);
+        this.entries =
+                new LinkedHashMap<ByteBuffer, Entry<V>>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Entry<V>> eldest) {
+                        if (size() <= capacity) {
+                            return false;
+                        }
+                        evict(eldest.getKey(), eldest.getValue());
+                        return true;
+                    }
+                };
+        this.hits = metricGroup.counter("objectCacheHits");
+        this.misses = metricGroup.counter("objectCacheMisses");
+        this.evictions = metricGroup.counter("objectCacheEvictions");
+    }
+
+    /** Returns the entry for the given key, loading it from RocksDB if it is not cached. */
+    Entry<V> get(byte[] rawKey) throws IOException, RocksDBException {
+        ByteBuffer key = ByteBuffer.wrap(rawKey);
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            hits.inc();
+            return entry;
+        }
+
+        misses.inc();
+        byte[] rawValue =
+                pendingWrites.containsKey(key)
+                        ? pendingWrites.get(key)
+                        : db.get(columnFamily, rawKey);
+        entry =
+                rawValue == null
+                        ? new Entry<>(null, false, false)
+                        : new Entry<>(deserializer.apply(rawValue), true, false);
+        entries.put(key, entry);
+        return entry;
+    }
+
+    void put(byte[] rawKey, V value) {
+        entries.put(ByteBuffer.wrap(rawKey), new Entry<>(value, true, true));
+    }
+
+    void remove(byte[] rawKey) {
+        entries.put(ByteBuffer.wrap(rawKey), new Entry<>(null, false, true));
+    }
+
+    /**
+     * Drops the entry of the given key without writing it, because it is about to be modified in
+     * RocksDB directly.
+     */
+    void invalidate(byte[] rawKey) throws RocksDBException {
+        ByteBuffer key = ByteBuffer.wrap(rawKey);
+        entries.remove(key);
+        if (pendingWrites.containsKey(key)) {
+            flushWriteBatch();
+        }
+    }
+
+    /**
+     * Writes the entry of the given key to RocksDB if it is modified and drops it, because the key
+     * is about to be accessed in RocksDB directly.
+     */
+    void writeThrough(byte[] rawKey) throws IOException, RocksDBException {
+        ByteBuffer key = ByteBuffer.wrap(rawKey);
+        Entry<V> entry = entries.remove(key);
+        if (entry != null && entry.dirty) {
+            write(rawKey, entry);
+            flushWriteBatch();
+        } else if (pendingWrites.containsKey(key)) {
+            flushWriteBatch();
+        }
+    }
+
+    /**
+     * Drops all entries whose keys start with the given prefix without writing them, because they
+     * are about to be removed from RocksDB directly.
+     */
+    void invalidatePrefix(byte[] keyPrefix) throws RocksDBException {
+        Iterator<ByteBuffer> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (startsWith(iterator.next().array(), keyPrefix)) {
+                iterator.remove();
+            }
+        }
+        flushWriteBatch();
+    }
+
+    /** Writes all modified entries to RocksDB. The entries stay cached. */
+    void flush() throws IOException, RocksDBException {
+        for (Map.Entry<ByteBuffer, Entry<V>> cached : entries.entrySet()) {
+            Entry<V> entry = cached.getValue();
+            if (entry.dirty) {
+                write(cached.getKey().array(), entry);
+                entry.dirty = false;
+            }
+        }
+        flushWriteBatch();
+    }
+
+    @VisibleForTesting
+    int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void close() throws RocksDBException {
+        writeBatch.close();
+    }
+
+    // ------------------------------------------------------------------------
+
+    private void evict(ByteBuffer key, Entry<V> entry) {
+        evictions.inc();
+        if (!entry.dirty) {
+            return;
+        }
+        try {
+            byte[] rawValue = write(key.array(), entry);
+            pendingWrites.put(key, rawValue);
+            if (pendingWrites.size() >= MAX_PENDING_WRITES) {
+                flushWriteBatch();
+            }
+        } catch (IOException | RocksDBException e) {
+            throw new FlinkRuntimeException("Error while writing an evicted entry to RocksDB", e);
+        }
+    }
+
+    /** Adds the entry to the write batch and returns its serialized value. */
+    private byte[] write(byte[] rawKey, Entry<V> entry) throws IOException, RocksDBException {
+        if (entry.present) {
+            byte[] rawValue = serializer.apply(entry.value);
+            writeBatch.put(columnFamily, rawKey, rawValue);
+            return rawValue;
+        } else {
+            writeBatch.remove(columnFamily, rawKey);
+            return null;
+        }
+    }
+
+    private void flushWriteBatch() throws RocksDBException {
+        writeBatch.flush();
+        pendingWrites.clear();
+    }
+
+    private static boolean startsWith(byte[] rawKey, byte[] keyPrefix) {
+        if (rawKey.length < keyPrefix.length) {
+            return false;
+        }
+        for (int i = 0; i < keyPrefix.length; i++) {
+            if (rawKey[i] != keyPrefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** A cached value, which may also record the absence of a value. */
+    static final class Entry<V> {
+
+        private final V value;
+
+        private final boolean present;
+
+        /** Whether the entry differs from what is stored in RocksDB. */
+        private boolean dirty;
+
+        private Entry(V value, boolean present, boolean dirty) {
+            this.value = value;
+            this.present = present;
+            this.dirty = dirty;
+        }
+
+        V getValue() {
+            return value;
+        }
+
+        boolean isPresent() {
+            return present;
+        }
+    }
+}
@@ -73,6 +73,76 @@ public class RocksDBOptions {
                     .withDescription(
                             "The number of threads (per stateful operator) used to transfer (download and upload) files in RocksDBStateBackend.");
 
+    /** Whether the uploads of all RocksDB backends of a TaskManager share their threads. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<Boolean> CHECKPOINT_TRANSFER_SHARED_UPLOAD_POOL =
+            ConfigOptions.key("state.backend.rocksdb.checkpoint.transfer.shared-upload-pool")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            String.format(
+                                    "If true, the files of incremental checkpoints of all stateful operators of a TaskManager are uploaded "
+                                            + "by one shared pool of '%s' threads, which prefers smaller files without postponing larger "
+                                            + "ones indefinitely. The upload bandwidth configured with '%s' is then shared by all of them "
+                                            + "as well. If false, every stateful operator uploads its files with its own threads.",
+                                    CHECKPOINT_TRANSFER_THREAD_NUM.key(),
+                                    "state.backend.rocksdb.checkpoint.transfer.upload-max-bandwidth"));
+
+    /** The maximum number of bytes per second written when uploading checkpoint files. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<MemorySize> CHECKPOINT_TRANSFER_UPLOAD_MAX_BANDWIDTH =
+            ConfigOptions.key("state.backend.rocksdb.checkpoint.transfer.upload-max-bandwidth")
+                    .memoryType()
+                    .noDefaultValue()
+                    .withDescription(
+                            String.format(
+                                    "The maximum number of bytes per second written when uploading the files of incremental "
+                                            + "checkpoints, per stateful operator or, if '%s' is enabled, per TaskManager. "
+                                            + "The bandwidth is unlimited if not set.",
+                                    CHECKPOINT_TRANSFER_SHARED_UPLOAD_POOL.key()));
+
+    /** The number of deserialized values cached per value or map state. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<Integer> OBJECT_CACHE_SIZE =
+            ConfigOptions.key("state.backend.rocksdb.object-cache.size")
+                    .intType()
+                    .defaultValue(0)
+                    .withDescription(
+                            "The maximum number of deserialized values that are cached per value and map state "
+                                    + "in front of RocksDB. Modified values are written back when they are evicted "
+                                    + "and before snapshots. Caching saves the serialization of frequently accessed "
+                                    + "keys, but requires values not to be modified after they were passed to or "
+                                    + "returned from the state, like with the heap state backends. "
+                                    + "The cache is disabled with 0, which is the default.");
+
+    /** Whether restores with rescaling drop and ingest whole SST files. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<Boolean> USE_INGEST_DB_RESTORE_MODE =
+            ConfigOptions.key("state.backend.rocksdb.use-ingest-db-restore-mode")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "If true, restoring from incremental checkpoints with rescaling works on whole "
+                                    + "SST files instead of single records. Key groups outside of the new "
+                                    + "key-group range are removed by dropping the SST files that only contain "
+                                    + "those key groups and with range deletions for the rest. The key groups "
+                                    + "taken from other state handles are written to one SST file per key group "
+                                    + "and ingested, which also allows later rescalings to drop them as whole "
+                                    + "files.");
+
+    /** The number of state handles restored in parallel when restoring with rescaling. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<Integer> RESTORE_PARALLELISM =
+            ConfigOptions.key("state.backend.rocksdb.restore.parallelism")
+                    .intType()
+                    .defaultValue(1)
+                    .withDescription(
+                            "The number of state handles (per stateful operator) that are downloaded, opened "
+                                    + "as temporary RocksDB instances and copied into the new instance in parallel "
+                                    + "when restoring from incremental checkpoints with rescaling. Every state "
+                                    + "handle restored in parallel keeps its own temporary instance open, which "
+                                    + "increases disk and memory usage during restore.");
+
     /** The predefined settings for RocksDB DBOptions and ColumnFamilyOptions by Flink community. */
     @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
     public static final ConfigOption<String> PREDEFINED_OPTIONS =
@@ -68,6 +68,7 @@ public class RocksDBPriorityQueueSetFactory implements PriorityQueueSetFactory {
     private final ReadOptions readOptions;
     private final RocksDBWriteBatchWrapper writeBatchWrapper;
     private final RocksDBNativeMetricMonitor nativeMetricMonitor;
+    private final RocksDBAccessMetrics.Factory accessMetricsFactory;
     private final Function<String, ColumnFamilyOptions> columnFamilyOptionsFactory;
     private final Long writeBufferManagerCapacity;
 
@@ -80,6 +81,7 @@ public class RocksDBPriorityQueueSetFactory implements PriorityQueueSetFactory {
             ReadOptions readOptions,
             RocksDBWriteBatchWrapper writeBatchWrapper,
             RocksDBNativeMetricMonitor nativeMetricMonitor,
+            RocksDBAccessMetrics.Factory accessMetricsFactory,
             Function<String, ColumnFamilyOptions> columnFamilyOptionsFactory,
             Long writeBufferManagerCapacity) {
         this.keyGroupRange = keyGroupRange;
@@ -90,6 +92,7 @@ public class RocksDBPriorityQueueSetFactory implements PriorityQueueSetFactory {
         this.readOptions = readOptions;
         this.writeBatchWrapper = writeBatchWrapper;
         this.nativeMetricMonitor = nativeMetricMonitor;
+        this.accessMetricsFactory = accessMetricsFactory;
         this.columnFamilyOptionsFactory = columnFamilyOptionsFactory;
         this.sharedElementOutView = new DataOutputSerializer(128);
         this.sharedElementInView = new DataInputDeserializer();
@@ -107,6 +110,7 @@ public class RocksDBPriorityQueueSetFactory implements PriorityQueueSetFactory {
                 tryRegisterPriorityQueueMetaInfo(stateName, byteOrderedElementSerializer);
 
         final ColumnFamilyHandle columnFamilyHandle = stateCFHandle.columnFamilyHandle;
+        final RocksDBAccessMetrics accessMetrics = accessMetricsFactory.getOrCreate(stateName);
 
         return new KeyGroupPartitionedPriorityQueue<>(
                 KeyExtractorFunction.forKeyedObjects(),
@@ -132,7 +136,8 @@ public class RocksDBPriorityQueueSetFactory implements PriorityQueueSetFactory {
                                 sharedElementOutView,
                                 sharedElementInView,
                                 writeBatchWrapper,
-                                orderedSetCache);
+                                orderedSetCache,
+                                accessMetrics);
                     }
                 },
                 keyGroupRange,
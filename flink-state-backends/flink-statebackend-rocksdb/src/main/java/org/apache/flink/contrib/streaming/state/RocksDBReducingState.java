@@ -110,10 +110,10 @@ class RocksDBReducingState<K, N, V> extends AbstractRocksDBAppendingState<K, N,
                 if (source != null) {
                     setCurrentNamespace(source);
                     final byte[] sourceKey = serializeCurrentKeyWithGroupAndNamespace();
-                    final byte[] valueBytes = backend.db.get(columnFamily, sourceKey);
+                    final byte[] valueBytes = dbGet(sourceKey);
 
                     if (valueBytes != null) {
-                        backend.db.delete(columnFamily, writeOptions, sourceKey);
+                        dbDelete(sourceKey);
                         dataInputView.setBuffer(valueBytes);
                         V value = valueSerializer.deserialize(dataInputView);
 
@@ -131,7 +131,7 @@ class RocksDBReducingState<K, N, V> extends AbstractRocksDBAppendingState<K, N,
                 // create the target full-binary-key
                 setCurrentNamespace(target);
                 final byte[] targetKey = serializeCurrentKeyWithGroupAndNamespace();
-                final byte[] targetValueBytes = backend.db.get(columnFamily, targetKey);
+                final byte[] targetValueBytes = dbGet(targetKey);
 
                 if (targetValueBytes != null) {
                     dataInputView.setBuffer(targetValueBytes);
@@ -146,8 +146,7 @@ class RocksDBReducingState<K, N, V> extends AbstractRocksDBAppendingState<K, N,
                 valueSerializer.serialize(current, dataOutputView);
 
                 // write the resulting value
-                backend.db.put(
-                        columnFamily, writeOptions, targetKey, dataOutputView.getCopyOfBuffer());
+                dbPut(targetKey, dataOutputView.getCopyOfBuffer());
             }
         } catch (Exception e) {
             throw new FlinkRuntimeException("Error while merging state in RocksDB", e);
@@ -569,6 +569,51 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
         rocksDBStateBackend.setWriteBatchSize(writeBatchSize);
     }
 
+    /** Gets the maximum number of deserialized values cached per value or map state. */
+    public int getObjectCacheSize() {
+        return rocksDBStateBackend.getObjectCacheSize();
+    }
+
+    /**
+     * Sets the maximum number of deserialized values cached per value or map state, 0 disables the
+     * cache.
+     *
+     * @param objectCacheSize The maximum number of cached values per state.
+     */
+    public void setObjectCacheSize(int objectCacheSize) {
+        rocksDBStateBackend.setObjectCacheSize(objectCacheSize);
+    }
+
+    /** Gets whether restores with rescaling drop and ingest whole SST files. */
+    public boolean isIngestDbRestoreModeEnabled() {
+        return rocksDBStateBackend.isIngestDbRestoreModeEnabled();
+    }
+
+    /**
+     * Sets whether restores with rescaling drop and ingest whole SST files instead of deleting and
+     * inserting single records.
+     *
+     * @param useIngestDbRestoreMode True if restores should work on whole SST files.
+     */
+    public void setUseIngestDbRestoreMode(boolean useIngestDbRestoreMode) {
+        rocksDBStateBackend.setUseIngestDbRestoreMode(useIngestDbRestoreMode);
+    }
+
+    /** Gets the number of state handles restored in parallel when restoring with rescaling. */
+    public int getRestoreParallelism() {
+        return rocksDBStateBackend.getRestoreParallelism();
+    }
+
+    /**
+     * Sets the number of state handles restored in parallel when restoring from incremental
+     * checkpoints with rescaling.
+     *
+     * @param restoreParallelism The number of state handles restored in parallel.
+     */
+    public void setRestoreParallelism(int restoreParallelism) {
+        rocksDBStateBackend.setRestoreParallelism(restoreParallelism);
+    }
+
     // ------------------------------------------------------------------------
     //  utilities
     // ------------------------------------------------------------------------
@@ -591,6 +636,12 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
                 + rocksDBStateBackend.getNumberOfTransferThreads()
                 + ", writeBatchSize="
                 + rocksDBStateBackend.getWriteBatchSize()
+                + ", objectCacheSize="
+                + rocksDBStateBackend.getObjectCacheSize()
+                + ", useIngestDbRestoreMode="
+                + rocksDBStateBackend.isIngestDbRestoreModeEnabled()
+                + ", restoreParallelism="
+                + rocksDBStateBackend.getRestoreParallelism()
                 + '}';
     }
 
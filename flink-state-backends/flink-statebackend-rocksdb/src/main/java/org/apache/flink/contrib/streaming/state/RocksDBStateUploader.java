@@ -18,7 +18,12 @@
 
 package org.apache.flink.contrib.streaming.state;
 
+import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.state.CheckpointStateOutputStream;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
 import org.apache.flink.runtime.state.CheckpointedStateScope;
@@ -32,22 +37,65 @@ import org.apache.flink.util.function.CheckedSupplier;
 
 import javax.annotation.Nonnull;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
-/** Help class for uploading RocksDB state files. */
-public class RocksDBStateUploader extends RocksDBStateDataTransfer {
+/**
+ * Help class for uploading RocksDB state files. The uploads are run by a {@link
+ * RocksDBUploadScheduler}, which prefers smaller files and may limit the upload bandwidth.
+ */
+public class RocksDBStateUploader implements Closeable {
     private static final int READ_BUFFER_SIZE = 16 * 1024;
 
+    static final String UPLOAD_QUEUE_LENGTH = "rocksdbUploadQueueLength";
+    static final String UPLOAD_BYTES_PER_SECOND = "rocksdbUploadBytesPerSecond";
+
+    private final RocksDBUploadScheduler scheduler;
+
+    /** Number of files of this uploader that are waiting for or being uploaded. */
+    private final AtomicInteger numPendingUploads = new AtomicInteger();
+
+    private final ConcurrentCounter numBytesUploaded = new ConcurrentCounter();
+
     public RocksDBStateUploader(int numberOfSnapshottingThreads) {
-        super(numberOfSnapshottingThreads);
+        this(numberOfSnapshottingThreads, RocksDBUploadScheduler.UNLIMITED_BANDWIDTH, false);
+    }
+
+    /**
+     * Creates an uploader.
+     *
+     * @param numberOfSnapshottingThreads The number of threads uploading files.
+     * @param maxBytesPerSecond The maximum upload bandwidth, or -1 if it is unlimited.
+     * @param sharedScheduler Whether the threads and the bandwidth are shared with all uploaders of
+     *     the TaskManager that are configured alike.
+     */
+    public RocksDBStateUploader(
+            int numberOfSnapshottingThreads, long maxBytesPerSecond, boolean sharedScheduler) {
+        this.scheduler =
+                sharedScheduler
+                        ? RocksDBUploadScheduler.acquireShared(
+                                numberOfSnapshottingThreads, maxBytesPerSecond)
+                        : new RocksDBUploadScheduler(
+                                numberOfSnapshottingThreads, maxBytesPerSecond);
+    }
+
+    /** Registers the queue length and the throughput of this uploader. */
+    public void registerMetrics(MetricGroup metricGroup) {
+        metricGroup.gauge(UPLOAD_QUEUE_LENGTH, (Gauge<Integer>) numPendingUploads::get);
+        metricGroup.meter(UPLOAD_BYTES_PER_SECOND, new MeterView(numBytesUploaded));
     }
 
     /**
@@ -98,7 +146,16 @@ public class RocksDBStateUploader extends RocksDBStateDataTransfer {
         Map<StateHandleID, CompletableFuture<StreamStateHandle>> futures =
                 new HashMap<>(files.size());
 
-        for (Map.Entry<StateHandleID, Path> entry : files.entrySet()) {
+        // schedule the smaller files first, so that they are not queued behind larger files of
+        // this checkpoint if the scheduler runs the uploads in the order they arrive
+        List<Map.Entry<StateHandleID, Path>> entries = new ArrayList<>(files.entrySet());
+        Map<Path, Long> fileSizes = new HashMap<>(files.size());
+        for (Map.Entry<StateHandleID, Path> entry : entries) {
+            fileSizes.put(entry.getValue(), getFileSize(entry.getValue()));
+        }
+        entries.sort(Comparator.comparing(entry -> fileSizes.get(entry.getValue())));
+
+        for (Map.Entry<StateHandleID, Path> entry : entries) {
             final Supplier<StreamStateHandle> supplier =
                     CheckedSupplier.unchecked(
                             () ->
@@ -107,12 +164,25 @@ public class RocksDBStateUploader extends RocksDBStateDataTransfer {
                                             checkpointStreamFactory,
                                             stateScope,
                                             closeableRegistry));
-            futures.put(entry.getKey(), CompletableFuture.supplyAsync(supplier, executorService));
+            numPendingUploads.incrementAndGet();
+            CompletableFuture<StreamStateHandle> future =
+                    scheduler.schedule(fileSizes.get(entry.getValue()), supplier);
+            future.whenComplete((handle, failure) -> numPendingUploads.decrementAndGet());
+            futures.put(entry.getKey(), future);
         }
 
         return futures;
     }
 
+    private static long getFileSize(Path filePath) {
+        try {
+            return Files.size(filePath);
+        } catch (IOException e) {
+            // the upload itself reports the problem, schedule it with the lowest priority
+            return Long.MAX_VALUE;
+        }
+    }
+
     private StreamStateHandle uploadLocalFileToCheckpointFs(
             Path filePath,
             CheckpointStreamFactory checkpointStreamFactory,
@@ -139,7 +209,9 @@ public class RocksDBStateUploader extends RocksDBStateDataTransfer {
                     break;
                 }
 
+                scheduler.acquireBandwidth(numBytes);
                 outputStream.write(buffer, 0, numBytes);
+                numBytesUploaded.inc(numBytes);
             }
 
             StreamStateHandle result = null;
@@ -160,4 +232,45 @@ public class RocksDBStateUploader extends RocksDBStateDataTransfer {
             }
         }
     }
+
+    @Override
+    public void close() {
+        scheduler.release();
+    }
+
+    @VisibleForTesting
+    RocksDBUploadScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /** {@link Counter} that can be incremented by several upload threads concurrently. */
+    private static final class ConcurrentCounter implements Counter {
+
+        private final LongAdder count = new LongAdder();
+
+        @Override
+        public void inc() {
+            count.increment();
+        }
+
+        @Override
+        public void inc(long n) {
+            count.add(n);
+        }
+
+        @Override
+        public void dec() {
+            count.decrement();
+        }
+
+        @Override
+        public void dec(long n) {
+            count.add(-n);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+    }
 }
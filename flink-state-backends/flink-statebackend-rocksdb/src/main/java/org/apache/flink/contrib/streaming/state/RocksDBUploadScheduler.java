@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.util.Preconditions;
+import org.apache.flink.util.clock.Clock;
+import org.apache.flink.util.clock.SystemClock;
+import org.apache.flink.util.concurrent.ExecutorThreadFactory;
+
+import org.apache.flink.shaded.guava30.com.google.common.util.concurrent.RateLimiter;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Schedules the uploads of RocksDB state files to the checkpoint storage.
+ *
+ * <p>Queued uploads are ordered by the time they were scheduled plus the time it takes to transfer
+ * their file at the maximum bandwidth (or at {@link #REFERENCE_BANDWIDTH} if it is unlimited). Of
+ * the uploads scheduled around the same time, the small files of a checkpoint thus run before the
+ * large ones, while an upload that has been waiting longer than the transfer time of a newer file
+ * runs first, so that a steady stream of small files cannot postpone a large file indefinitely.
+ * Optionally, the bytes written by all uploads of a scheduler are limited to a maximum number of
+ * bytes per second.
+ *
+ * <p>A scheduler is either owned by a single {@link RocksDBStateUploader}, or shared by all the
+ * uploaders of the TaskManager that are configured alike (see {@link #acquireShared(int, long)}).
+ * In the latter case, the threads and the bandwidth budget are shared as well.
+ */
+class RocksDBUploadScheduler {
+
+    /** Bandwidth value that disables throttling of the uploads. */
+    static final long UNLIMITED_BANDWIDTH = -1L;
+
+    /** The bandwidth used to rank the uploads if the bandwidth is unlimited. */
+    static final long REFERENCE_BANDWIDTH = 64L * 1024 * 1024;
+
+    private static final Object SHARED_SCHEDULERS_LOCK = new Object();
+
+    /** The shared schedulers by their number of threads and maximum bandwidth. */
+    @GuardedBy("SHARED_SCHEDULERS_LOCK")
+    private static final Map<Tuple2<Integer, Long>, RocksDBUploadScheduler> SHARED_SCHEDULERS =
+            new HashMap<>();
+
+    /** The threads running the uploads, or null if uploads run in the scheduling thread. */
+    @Nullable private final ThreadPoolExecutor threadPool;
+
+    /** Limits the bytes written per second, or null if the bandwidth is unlimited. */
+    @Nullable private final RateLimiter rateLimiter;
+
+    /** The bandwidth used to compute the transfer time of the uploads. */
+    private final long rankingBytesPerSecond;
+
+    private final Clock clock;
+
+    /** Breaks ties between uploads with the same rank. */
+    private final AtomicLong nextSequenceNumber = new AtomicLong();
+
+    /** The key of this scheduler in the shared schedulers, or null if it is not shared. */
+    @Nullable private final Tuple2<Integer, Long> sharedKey;
+
+    @GuardedBy("SHARED_SCHEDULERS_LOCK")
+    private int numReferences;
+
+    /**
+     * Creates a scheduler that is owned by a single uploader. Uploads run in the scheduling thread
+     * if only a single thread is requested.
+     */
+    RocksDBUploadScheduler(int numberOfThreads, long maxBytesPerSecond) {
+        this(
+                numberOfThreads,
+                maxBytesPerSecond,
+                numberOfThreads > 1,
+                null,
+                SystemClock.getInstance());
+    }
+
+    /** Creates a scheduler that always runs the uploads in its own threads. */
+    @VisibleForTesting
+    RocksDBUploadScheduler(int numberOfThreads, long maxBytesPerSecond, Clock clock) {
+        this(numberOfThreads, maxBytesPerSecond, true, null, clock);
+    }
+
+    private RocksDBUploadScheduler(
+            int numberOfThreads,
+            long maxBytesPerSecond,
+            boolean asynchronous,
+            @Nullable Tuple2<Integer, Long> sharedKey,
+            Clock clock) {
+        Preconditions.checkArgument(numberOfThreads > 0, "The number of threads must be positive.");
+        Preconditions.checkArgument(
+                maxBytesPerSecond > 0 || maxBytesPerSecond == UNLIMITED_BANDWIDTH,
+                "The maximum bandwidth must be positive.");
+
+        if (asynchronous) {
+            this.threadPool =
+                    new ThreadPoolExecutor(
+                            numberOfThreads,
+                            numberOfThreads,
+                            0L,
+                            TimeUnit.MILLISECONDS,
+                            new PriorityBlockingQueue<>(),
+                            new ExecutorThreadFactory("Flink-RocksDBStateUploader"));
+        } else {
+            this.threadPool = null;
+        }
+        this.rateLimiter =
+                maxBytesPerSecond == UNLIMITED_BANDWIDTH
+                        ? null
+                        : RateLimiter.create(maxBytesPerSecond);
+        this.rankingBytesPerSecond =
+                maxBytesPerSecond == UNLIMITED_BANDWIDTH ? REFERENCE_BANDWIDTH : maxBytesPerSecond;
+        this.sharedKey = sharedKey;
+        this.clock = Preconditions.checkNotNull(clock);
+    }
+
+    /**
+     * Returns the scheduler shared by all uploaders with the given configuration, creating it if
+     * necessary. Every acquired scheduler must be given back with {@link #release()}.
+     */
+    static RocksDBUploadScheduler acquireShared(int numberOfThreads, long maxBytesPerSecond) {
+        final Tuple2<Integer, Long> key = Tuple2.of(numberOfThreads, maxBytesPerSecond);
+        synchronized (SHARED_SCHEDULERS_LOCK) {
+            RocksDBUploadScheduler scheduler =
+                    SHARED_SCHEDULERS.computeIfAbsent(
+                            key,
+                            k ->
+                                    new RocksDBUploadScheduler(
+                                            numberOfThreads,
+                                            maxBytesPerSecond,
+                                            true,
+                                            k,
+                                            SystemClock.getInstance()));
+            scheduler.numReferences++;
+            return scheduler;
+        }
+    }
+
+    /**
+     * Schedules the upload of a file with the given size.
+     *
+     * @return future that is completed with the result of the upload, or cancelled if the scheduler
+     *     is shut down before the upload started.
+     */
+    <T> CompletableFuture<T> schedule(long fileSize, Supplier<T> upload) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Runnable runnable =
+                () -> {
+                    try {
+                        result.complete(upload.get());
+                    } catch (Throwable t) {
+                        result.completeExceptionally(t);
+                    }
+                };
+
+        if (threadPool == null) {
+            runnable.run();
+        } else {
+            threadPool.execute(
+                    new PrioritizedUpload(
+                            getRank(fileSize),
+                            nextSequenceNumber.getAndIncrement(),
+                            runnable,
+                            result));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the rank of an upload of the given size scheduled now, which is the time at which it
+     * would be completed if it was transferred right away at the ranking bandwidth.
+     */
+    private long getRank(long fileSize) {
+        // capped to leave room for the clock value, the cap is only reached for bogus sizes
+        final long transferNanos =
+                (long)
+                        Math.min(
+                                fileSize * 1e9 / rankingBytesPerSecond,
+                                (double) (Long.MAX_VALUE / 4));
+        return clock.relativeTimeNanos() + transferNanos;
+    }
+
+    /** Blocks until the given number of bytes may be written without exceeding the bandwidth. */
+    void acquireBandwidth(int numBytes) {
+        if (rateLimiter != null && numBytes > 0) {
+            rateLimiter.acquire(numBytes);
+        }
+    }
+
+    /** Returns the number of uploads that wait for a free thread. */
+    int getQueueLength() {
+        return threadPool == null ? 0 : threadPool.getQueue().size();
+    }
+
+    /**
+     * Gives back this scheduler. A scheduler owned by a single uploader is shut down right away, a
+     * shared scheduler once it has been released by all its users. Uploads that did not start yet
+     * are cancelled on shut down.
+     */
+    void release() {
+        if (sharedKey != null) {
+            synchronized (SHARED_SCHEDULERS_LOCK) {
+                Preconditions.checkState(numReferences > 0, "Scheduler was already released.");
+                if (--numReferences > 0) {
+                    return;
+                }
+                SHARED_SCHEDULERS.remove(sharedKey);
+            }
+        }
+
+        if (threadPool != null) {
+            for (Runnable pending : threadPool.shutdownNow()) {
+                if (pending instanceof PrioritizedUpload) {
+                    ((PrioritizedUpload) pending).result.cancel(false);
+                }
+            }
+        }
+    }
+
+    @VisibleForTesting
+    boolean isShutdown() {
+        return threadPool != null && threadPool.isShutdown();
+    }
+
+    /** Upload task ordered by its rank first, and by the order it was scheduled second. */
+    private static final class PrioritizedUpload
+            implements Runnable, Comparable<PrioritizedUpload> {
+
+        private final long rank;
+        private final long sequenceNumber;
+        private final Runnable upload;
+        private final CompletableFuture<?> result;
+
+        private PrioritizedUpload(
+                long rank, long sequenceNumber, Runnable upload, CompletableFuture<?> result) {
+            this.rank = rank;
+            this.sequenceNumber = sequenceNumber;
+            this.upload = upload;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            upload.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedUpload other) {
+            int byRank = Long.compare(rank, other.rank);
+            return byRank != 0 ? byRank : Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+    }
+}
@@ -30,6 +30,8 @@ import org.apache.flink.util.FlinkRuntimeException;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDBException;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 
 /**
@@ -42,6 +44,9 @@ import java.io.IOException;
 class RocksDBValueState<K, N, V> extends AbstractRocksDBState<K, N, V>
         implements InternalValueState<K, N, V> {
 
+    /** The cache of deserialized values, null if disabled. */
+    @Nullable private RocksDBObjectCache<V> objectCache;
+
     /**
      * Creates a new {@code RocksDBValueState}.
      *
@@ -79,19 +84,30 @@ class RocksDBValueState<K, N, V> extends AbstractRocksDBState<K, N, V>
     @Override
     public V value() {
         try {
-            byte[] valueBytes =
-                    backend.db.get(columnFamily, serializeCurrentKeyWithGroupAndNamespace());
-
-            if (valueBytes == null) {
-                return getDefaultValue();
+            if (objectCache != null) {
+                RocksDBObjectCache.Entry<V> entry =
+                        objectCache.get(serializeCurrentKeyWithGroupAndNamespace());
+                return entry.isPresent() ? entry.getValue() : getDefaultValue();
             }
-            dataInputView.setBuffer(valueBytes);
-            return valueSerializer.deserialize(dataInputView);
+            byte[] valueBytes = dbGet(serializeCurrentKeyWithGroupAndNamespace());
+            return deserializeValueOrDefault(valueBytes);
         } catch (IOException | RocksDBException e) {
             throw new FlinkRuntimeException("Error while retrieving data from RocksDB.", e);
         }
     }
 
+    V deserializeValueOrDefault(byte[] valueBytes) throws IOException {
+        if (valueBytes == null) {
+            return getDefaultValue();
+        }
+        return deserializeValue(valueBytes);
+    }
+
+    private V deserializeValue(byte[] valueBytes) throws IOException {
+        dataInputView.setBuffer(valueBytes);
+        return valueSerializer.deserialize(dataInputView);
+    }
+
     @Override
     public void update(V value) {
         if (value == null) {
@@ -99,29 +115,70 @@ class RocksDBValueState<K, N, V> extends AbstractRocksDBState<K, N, V>
             return;
         }
 
+        if (objectCache != null) {
+            objectCache.put(serializeCurrentKeyWithGroupAndNamespace(), value);
+            return;
+        }
+
         try {
-            backend.db.put(
-                    columnFamily,
-                    writeOptions,
-                    serializeCurrentKeyWithGroupAndNamespace(),
-                    serializeValue(value));
+            dbPut(serializeCurrentKeyWithGroupAndNamespace(), serializeValue(value));
         } catch (Exception e) {
             throw new FlinkRuntimeException("Error while adding data to RocksDB", e);
         }
     }
 
+    @Override
+    public void clear() {
+        if (objectCache != null) {
+            objectCache.remove(serializeCurrentKeyWithGroupAndNamespace());
+        } else {
+            super.clear();
+        }
+    }
+
+    @Override
+    void releaseCachedEntry(byte[] rawKeyBytes) throws IOException, RocksDBException {
+        if (objectCache != null) {
+            objectCache.writeThrough(rawKeyBytes);
+        }
+    }
+
+    @Override
+    public byte[] getSerializedValue(
+            final byte[] serializedKeyAndNamespace,
+            final TypeSerializer<K> safeKeySerializer,
+            final TypeSerializer<N> safeNamespaceSerializer,
+            final TypeSerializer<V> safeValueSerializer)
+            throws Exception {
+        if (objectCache != null) {
+            objectCache.flush();
+        }
+        return super.getSerializedValue(
+                serializedKeyAndNamespace,
+                safeKeySerializer,
+                safeNamespaceSerializer,
+                safeValueSerializer);
+    }
+
     @SuppressWarnings("unchecked")
     static <K, N, SV, S extends State, IS extends S> IS create(
             StateDescriptor<S, SV> stateDesc,
             Tuple2<ColumnFamilyHandle, RegisteredKeyValueStateBackendMetaInfo<N, SV>>
                     registerResult,
             RocksDBKeyedStateBackend<K> backend) {
-        return (IS)
+        RocksDBValueState<K, N, SV> state =
                 new RocksDBValueState<>(
                         registerResult.f0,
                         registerResult.f1.getNamespaceSerializer(),
                         registerResult.f1.getStateSerializer(),
                         stateDesc.getDefaultValue(),
                         backend);
+        state.objectCache =
+                backend.createObjectCache(
+                        stateDesc,
+                        registerResult.f0,
+                        state::deserializeValue,
+                        state::serializeValue);
+        return (IS) state;
     }
 }
@@ -31,6 +31,7 @@ import org.apache.flink.contrib.streaming.state.ttl.RocksDbTtlCompactFiltersMana
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.state.BackendBuildingException;
 import org.apache.flink.runtime.state.CompositeKeySerializationUtils;
@@ -46,17 +47,28 @@ import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StateSerializerProvider;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
+import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.StateMigrationException;
+import org.apache.flink.util.concurrent.ExecutorThreadFactory;
+import org.apache.flink.util.concurrent.FutureUtils;
+import org.apache.flink.util.function.ThrowingRunnable;
+
+import org.apache.flink.shaded.guava30.com.google.common.util.concurrent.Uninterruptibles;
 
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.DBOptions;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.IngestExternalFileOptions;
+import org.rocksdb.Options;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -66,8 +78,10 @@ import javax.annotation.Nonnull;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -75,9 +89,15 @@ import java.util.Objects;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.apache.flink.runtime.state.StateUtil.unexpectedStateHandleException;
+import static org.apache.flink.util.concurrent.Executors.newDirectExecutorService;
 
 /** Encapsulates the process of restoring a RocksDB instance from an incremental snapshot. */
 public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOperation {
@@ -85,6 +105,12 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
     private static final Logger logger =
             LoggerFactory.getLogger(RocksDBIncrementalRestoreOperation.class);
 
+    static final String RESCALING_RESTORE_TOTAL_STATE_HANDLES_METRIC =
+            "rescalingRestoreTotalStateHandles";
+
+    static final String RESCALING_RESTORE_COMPLETED_STATE_HANDLES_METRIC =
+            "rescalingRestoreCompletedStateHandles";
+
     private final String operatorIdentifier;
     private final SortedMap<Long, Map<StateHandleID, StreamStateHandle>> restoredSstFiles;
     private final RocksDBHandle rocksHandle;
@@ -99,6 +125,9 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
     private long lastCompletedCheckpointId;
     private UUID backendUID;
     private final long writeBatchSize;
+    private final boolean useIngestDbRestoreMode;
+    private final int restoreParallelism;
+    private final MetricGroup metricGroup;
 
     private boolean isKeySerializerCompatibilityChecked;
 
@@ -120,7 +149,9 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
             @Nonnull Collection<KeyedStateHandle> restoreStateHandles,
             @Nonnull RocksDbTtlCompactFiltersManager ttlCompactFiltersManager,
             @Nonnegative long writeBatchSize,
-            Long writeBufferManagerCapacity) {
+            Long writeBufferManagerCapacity,
+            boolean useIngestDbRestoreMode,
+            int restoreParallelism) {
         this.rocksHandle =
                 new RocksDBHandle(
                         kvStateInformation,
@@ -144,6 +175,9 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
         this.keyGroupPrefixBytes = keyGroupPrefixBytes;
         this.keySerializerProvider = keySerializerProvider;
         this.userCodeClassLoader = userCodeClassLoader;
+        this.useIngestDbRestoreMode = useIngestDbRestoreMode;
+        this.restoreParallelism = restoreParallelism;
+        this.metricGroup = metricGroup;
     }
 
     /** Root method that branches for different implementations of {@link KeyedStateHandle}. */
@@ -276,7 +310,10 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
     /**
      * Recovery from multi incremental states with rescaling. For rescaling, this method creates a
      * temporary RocksDB instance for a key-groups shard. All contents from the temporary instance
-     * are copied into the real restore instance and then the temporary instance is discarded.
+     * are copied into the real restore instance and then the temporary instance is discarded. In
+     * the ingest DB restore mode, the contents are written to SST files and ingested instead. Up to
+     * {@link #restoreParallelism} state handles are downloaded, opened and ingested concurrently,
+     * which is safe because the key-group ranges of the state handles are disjoint.
      */
     private void restoreWithRescaling(Collection<KeyedStateHandle> restoreStateHandles)
             throws Exception {
@@ -304,72 +341,146 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
                 keyGroupRange.getEndKeyGroup() + 1, stopKeyGroupPrefixBytes);
 
         for (KeyedStateHandle rawStateHandle : restoreStateHandles) {
-
             if (!(rawStateHandle instanceof IncrementalRemoteKeyedStateHandle)) {
                 throw unexpectedStateHandleException(
                         IncrementalRemoteKeyedStateHandle.class, rawStateHandle.getClass());
             }
+        }
 
-            logger.info(
-                    "Starting to restore from state handle: {} with rescaling.", rawStateHandle);
-            Path temporaryRestoreInstancePath =
-                    instanceBasePath
-                            .getAbsoluteFile()
-                            .toPath()
-                            .resolve(UUID.randomUUID().toString());
-            try (RestoredDBInstance tmpRestoreDBInfo =
-                            restoreDBInstanceFromStateHandle(
-                                    (IncrementalRemoteKeyedStateHandle) rawStateHandle,
-                                    temporaryRestoreInstancePath);
-                    RocksDBWriteBatchWrapper writeBatchWrapper =
-                            new RocksDBWriteBatchWrapper(
-                                    this.rocksHandle.getDb(), writeBatchSize)) {
-
-                List<ColumnFamilyDescriptor> tmpColumnFamilyDescriptors =
-                        tmpRestoreDBInfo.columnFamilyDescriptors;
-                List<ColumnFamilyHandle> tmpColumnFamilyHandles =
-                        tmpRestoreDBInfo.columnFamilyHandles;
-
-                // iterating only the requested descriptors automatically skips the default column
-                // family handle
-                for (int i = 0; i < tmpColumnFamilyDescriptors.size(); ++i) {
-                    ColumnFamilyHandle tmpColumnFamilyHandle = tmpColumnFamilyHandles.get(i);
-
-                    ColumnFamilyHandle targetColumnFamilyHandle =
-                            this.rocksHandle.getOrRegisterStateColumnFamilyHandle(
-                                            null, tmpRestoreDBInfo.stateMetaInfoSnapshots.get(i))
-                                    .columnFamilyHandle;
+        final int numberOfStateHandles = restoreStateHandles.size();
+        final AtomicInteger numberOfRestoredStateHandles = new AtomicInteger();
+        if (metricGroup != null) {
+            metricGroup.gauge(
+                    RESCALING_RESTORE_TOTAL_STATE_HANDLES_METRIC,
+                    (Gauge<Integer>) () -> numberOfStateHandles);
+            metricGroup.gauge(
+                    RESCALING_RESTORE_COMPLETED_STATE_HANDLES_METRIC,
+                    (Gauge<Integer>) numberOfRestoredStateHandles::get);
+        }
 
-                    try (RocksIteratorWrapper iterator =
-                            RocksDBOperationUtils.getRocksIterator(
-                                    tmpRestoreDBInfo.db,
-                                    tmpColumnFamilyHandle,
-                                    tmpRestoreDBInfo.readOptions)) {
+        ExecutorService executorService =
+                restoreParallelism > 1 && numberOfStateHandles > 1
+                        ? Executors.newFixedThreadPool(
+                                Math.min(restoreParallelism, numberOfStateHandles),
+                                new ExecutorThreadFactory("Flink-RocksDBIncrementalRestore"))
+                        : newDirectExecutorService();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(numberOfStateHandles);
+        try {
+            for (KeyedStateHandle rawStateHandle : restoreStateHandles) {
+                futures.add(
+                        CompletableFuture.runAsync(
+                                ThrowingRunnable.unchecked(
+                                        () -> {
+                                            restoreStateHandleWithRescaling(
+                                                    (IncrementalRemoteKeyedStateHandle)
+                                                            rawStateHandle,
+                                                    startKeyGroupPrefixBytes,
+                                                    stopKeyGroupPrefixBytes);
+                                            logger.info(
+                                                    "Restored {} of {} state handles with rescaling.",
+                                                    numberOfRestoredStateHandles.incrementAndGet(),
+                                                    numberOfStateHandles);
+                                        }),
+                                executorService));
+            }
+            FutureUtils.waitForAll(futures).get();
+        } catch (ExecutionException e) {
+            Throwable throwable = ExceptionUtils.stripExecutionException(e);
+            throwable = ExceptionUtils.stripException(throwable, RuntimeException.class);
+            if (throwable instanceof Exception) {
+                throw (Exception) throwable;
+            } else {
+                throw new FlinkRuntimeException(
+                        "Failed to restore state handles with rescaling.", throwable);
+            }
+        } finally {
+            // after a failure, the other handles must not touch the base DB anymore once the
+            // caller disposes it, so skip the handles that did not start and wait for the others
+            for (CompletableFuture<Void> future : futures) {
+                future.cancel(false);
+            }
+            executorService.shutdownNow();
+            Uninterruptibles.awaitTerminationUninterruptibly(executorService);
+        }
+    }
 
-                        iterator.seek(startKeyGroupPrefixBytes);
+    /**
+     * Restores a single state handle into a temporary instance and transfers the key groups of the
+     * target key-group range into the base DB. Can be called concurrently for different handles.
+     */
+    private void restoreStateHandleWithRescaling(
+            IncrementalRemoteKeyedStateHandle stateHandle,
+            byte[] startKeyGroupPrefixBytes,
+            byte[] stopKeyGroupPrefixBytes)
+            throws Exception {
 
-                        while (iterator.isValid()) {
+        logger.info("Starting to restore from state handle: {} with rescaling.", stateHandle);
+        Path temporaryRestoreInstancePath =
+                instanceBasePath.getAbsoluteFile().toPath().resolve(UUID.randomUUID().toString());
+        try (RestoredDBInstance tmpRestoreDBInfo =
+                        restoreDBInstanceFromStateHandle(
+                                stateHandle, temporaryRestoreInstancePath);
+                RocksDBWriteBatchWrapper writeBatchWrapper =
+                        new RocksDBWriteBatchWrapper(this.rocksHandle.getDb(), writeBatchSize)) {
+
+            List<ColumnFamilyDescriptor> tmpColumnFamilyDescriptors =
+                    tmpRestoreDBInfo.columnFamilyDescriptors;
+            List<ColumnFamilyHandle> tmpColumnFamilyHandles = tmpRestoreDBInfo.columnFamilyHandles;
+
+            // iterating only the requested descriptors automatically skips the default column
+            // family handle
+            for (int i = 0; i < tmpColumnFamilyDescriptors.size(); ++i) {
+                ColumnFamilyHandle tmpColumnFamilyHandle = tmpColumnFamilyHandles.get(i);
+
+                ColumnFamilyHandle targetColumnFamilyHandle;
+                // column families of the base DB are shared by all concurrently restored handles
+                synchronized (rocksHandle) {
+                    targetColumnFamilyHandle =
+                            this.rocksHandle.getOrRegisterStateColumnFamilyHandle(
+                                            null, tmpRestoreDBInfo.stateMetaInfoSnapshots.get(i))
+                                    .columnFamilyHandle;
+                }
 
-                            if (RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(
-                                    iterator.key(), stopKeyGroupPrefixBytes)) {
-                                writeBatchWrapper.put(
-                                        targetColumnFamilyHandle, iterator.key(), iterator.value());
-                            } else {
-                                // Since the iterator will visit the record according to the sorted
-                                // order,
-                                // we can just break here.
-                                break;
-                            }
+                // the key groups of all state handles are disjoint, so they can be ingested instead
+                // of contending for the write path of the base DB when restoring in parallel
+                if (useIngestDbRestoreMode || restoreParallelism > 1) {
+                    ingestKeyGroups(
+                            tmpRestoreDBInfo,
+                            i,
+                            targetColumnFamilyHandle,
+                            startKeyGroupPrefixBytes,
+                            stopKeyGroupPrefixBytes);
+                    continue;
+                }
 
-                            iterator.next();
+                try (RocksIteratorWrapper iterator =
+                        RocksDBOperationUtils.getRocksIterator(
+                                tmpRestoreDBInfo.db,
+                                tmpColumnFamilyHandle,
+                                tmpRestoreDBInfo.readOptions)) {
+
+                    iterator.seek(startKeyGroupPrefixBytes);
+
+                    while (iterator.isValid()) {
+
+                        if (RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(
+                                iterator.key(), stopKeyGroupPrefixBytes)) {
+                            writeBatchWrapper.put(
+                                    targetColumnFamilyHandle, iterator.key(), iterator.value());
+                        } else {
+                            // Since the iterator will visit the record according to the sorted
+                            // order,
+                            // we can just break here.
+                            break;
                         }
-                    } // releases native iterator resources
-                }
-                logger.info(
-                        "Finished restoring from state handle: {} with rescaling.", rawStateHandle);
-            } finally {
-                cleanUpPathQuietly(temporaryRestoreInstancePath);
+
+                        iterator.next();
+                    }
+                } // releases native iterator resources
             }
+            logger.info("Finished restoring from state handle: {} with rescaling.", stateHandle);
+        } finally {
+            cleanUpPathQuietly(temporaryRestoreInstancePath);
         }
     }
 
@@ -388,7 +499,8 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
                     keyGroupRange,
                     initialHandle.getKeyGroupRange(),
                     keyGroupPrefixBytes,
-                    writeBatchSize);
+                    writeBatchSize,
+                    useIngestDbRestoreMode);
         } catch (RocksDBException e) {
             String errMsg = "Failed to clip DB after initialization.";
             logger.error(errMsg, e);
@@ -396,6 +508,116 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
         }
     }
 
+    /**
+     * Writes the keys of the target key-group range from a column family of the temporary instance
+     * into SST files, one per key group, and ingests them into the target column family.
+     */
+    private void ingestKeyGroups(
+            RestoredDBInstance tmpRestoreDBInfo,
+            int columnFamilyIndex,
+            ColumnFamilyHandle targetColumnFamilyHandle,
+            byte[] startKeyGroupPrefixBytes,
+            byte[] stopKeyGroupPrefixBytes)
+            throws IOException, RocksDBException {
+
+        Path sstFileDirectory =
+                instanceBasePath.getAbsoluteFile().toPath().resolve(UUID.randomUUID().toString());
+        Files.createDirectories(sstFileDirectory);
+        try {
+            List<String> sstFiles =
+                    writeKeyGroupsToSstFiles(
+                            tmpRestoreDBInfo,
+                            columnFamilyIndex,
+                            startKeyGroupPrefixBytes,
+                            stopKeyGroupPrefixBytes,
+                            sstFileDirectory);
+            if (!sstFiles.isEmpty()) {
+                // the files are hard linked into the instance if possible
+                try (IngestExternalFileOptions ingestOptions =
+                        new IngestExternalFileOptions().setMoveFiles(true)) {
+                    this.rocksHandle
+                            .getDb()
+                            .ingestExternalFile(targetColumnFamilyHandle, sstFiles, ingestOptions);
+                }
+            }
+        } finally {
+            cleanUpPathQuietly(sstFileDirectory);
+        }
+    }
+
+    private List<String> writeKeyGroupsToSstFiles(
+            RestoredDBInstance tmpRestoreDBInfo,
+            int columnFamilyIndex,
+            byte[] startKeyGroupPrefixBytes,
+            byte[] stopKeyGroupPrefixBytes,
+            Path sstFileDirectory)
+            throws RocksDBException {
+
+        List<String> sstFiles = new ArrayList<>();
+        try (EnvOptions envOptions = new EnvOptions();
+                Options options =
+                        new Options(
+                                this.rocksHandle.getDbOptions(),
+                                tmpRestoreDBInfo
+                                        .columnFamilyDescriptors
+                                        .get(columnFamilyIndex)
+                                        .getOptions());
+                RocksIteratorWrapper iterator =
+                        RocksDBOperationUtils.getRocksIterator(
+                                tmpRestoreDBInfo.db,
+                                tmpRestoreDBInfo.columnFamilyHandles.get(columnFamilyIndex),
+                                tmpRestoreDBInfo.readOptions)) {
+
+            SstFileWriter sstFileWriter = null;
+            byte[] currentKeyGroupPrefixBytes = null;
+            try {
+                iterator.seek(startKeyGroupPrefixBytes);
+
+                while (iterator.isValid()) {
+                    byte[] key = iterator.key();
+                    if (!RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(
+                            key, stopKeyGroupPrefixBytes)) {
+                        break;
+                    }
+
+                    if (currentKeyGroupPrefixBytes == null
+                            || !startsWith(key, currentKeyGroupPrefixBytes)) {
+                        // start a new file for the next key group
+                        if (sstFileWriter != null) {
+                            sstFileWriter.finish();
+                            sstFileWriter.close();
+                        }
+                        String sstFile =
+                                sstFileDirectory.resolve(sstFiles.size() + ".sst").toString();
+                        sstFileWriter = new SstFileWriter(envOptions, options);
+                        sstFileWriter.open(sstFile);
+                        sstFiles.add(sstFile);
+                        currentKeyGroupPrefixBytes = Arrays.copyOf(key, keyGroupPrefixBytes);
+                    }
+
+                    sstFileWriter.put(key, iterator.value());
+                    iterator.next();
+                }
+
+                if (sstFileWriter != null) {
+                    sstFileWriter.finish();
+                }
+            } finally {
+                IOUtils.closeQuietly(sstFileWriter);
+            }
+        }
+        return sstFiles;
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /** Entity to hold the temporary RocksDB instance created for restore. */
     private static class RestoredDBInstance implements AutoCloseable {
 
@@ -455,8 +677,16 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
         List<StateMetaInfoSnapshot> stateMetaInfoSnapshots =
                 serializationProxy.getStateMetaInfoSnapshots();
 
-        List<ColumnFamilyDescriptor> columnFamilyDescriptors =
-                createColumnFamilyDescriptors(stateMetaInfoSnapshots, false);
+        List<ColumnFamilyDescriptor> columnFamilyDescriptors;
+        ColumnFamilyOptions defaultColumnFamilyOptions;
+        // the column family options factory tracks the created options in a list which is not
+        // thread-safe, and handles may be restored concurrently
+        synchronized (rocksHandle) {
+            columnFamilyDescriptors = createColumnFamilyDescriptors(stateMetaInfoSnapshots, false);
+            defaultColumnFamilyOptions =
+                    RocksDBOperationUtils.createColumnFamilyOptions(
+                            this.rocksHandle.getColumnFamilyOptionsFactory(), "default");
+        }
 
         List<ColumnFamilyHandle> columnFamilyHandles =
                 new ArrayList<>(stateMetaInfoSnapshots.size() + 1);
@@ -466,8 +696,7 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
                         temporaryRestoreInstancePath.toString(),
                         columnFamilyDescriptors,
                         columnFamilyHandles,
-                        RocksDBOperationUtils.createColumnFamilyOptions(
-                                this.rocksHandle.getColumnFamilyOptionsFactory(), "default"),
+                        defaultColumnFamilyOptions,
                         this.rocksHandle.getDbOptions());
 
         return new RestoredDBInstance(
@@ -519,7 +748,7 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
         }
     }
 
-    KeyedBackendSerializationProxy<K> readMetaData(DataInputView dataInputView)
+    synchronized KeyedBackendSerializationProxy<K> readMetaData(DataInputView dataInputView)
             throws IOException, StateMigrationException {
         // isSerializerPresenceRequired flag is set to false, since for the RocksDB state backend,
         // deserialization of state happens lazily during runtime; we depend on the fact
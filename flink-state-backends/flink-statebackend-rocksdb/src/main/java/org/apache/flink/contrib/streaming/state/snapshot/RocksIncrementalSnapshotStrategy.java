@@ -509,11 +509,13 @@ public class RocksIncrementalSnapshotStrategy<K>
                                 checkpointStreamFactory,
                                 stateScope,
                                 snapshotCloseableRegistry));
+                // misc files are private to this checkpoint and discarded with it, so they must
+                // not share physical files with shared state when checkpoint files are merged
                 miscFiles.putAll(
                         stateUploader.uploadFilesToCheckpointFs(
                                 miscFilePaths,
                                 checkpointStreamFactory,
-                                stateScope,
+                                CheckpointedStateScope.EXCLUSIVE,
                                 snapshotCloseableRegistry));
 
                 synchronized (uploadedStateIDs) {
@@ -115,7 +115,23 @@ public class EmbeddedRocksDBStateBackendTest
                     {
                         true,
                         (SupplierWithException<CheckpointStorage, IOException>)
-                                JobManagerCheckpointStorage::new
+                                JobManagerCheckpointStorage::new,
+                        0,
+                        false
+                    },
+                    {
+                        true,
+                        (SupplierWithException<CheckpointStorage, IOException>)
+                                JobManagerCheckpointStorage::new,
+                        4,
+                        false
+                    },
+                    {
+                        true,
+                        (SupplierWithException<CheckpointStorage, IOException>)
+                                JobManagerCheckpointStorage::new,
+                        0,
+                        true
                     },
                     {
                         false,
@@ -125,7 +141,9 @@ public class EmbeddedRocksDBStateBackendTest
                                             TEMP_FOLDER.newFolder().toURI().toString();
                                     return new FileSystemCheckpointStorage(
                                             new Path(checkpointPath), 0, -1);
-                                }
+                                },
+                        0,
+                        false
                     }
                 });
     }
@@ -136,6 +154,12 @@ public class EmbeddedRocksDBStateBackendTest
     @Parameterized.Parameter(value = 1)
     public SupplierWithException<CheckpointStorage, IOException> storageSupplier;
 
+    @Parameterized.Parameter(value = 2)
+    public int objectCacheSize;
+
+    @Parameterized.Parameter(value = 3)
+    public boolean useIngestDbRestoreMode;
+
     // Store it because we need it for the cleanup test.
     private String dbPath;
     private RocksDB db = null;
@@ -169,6 +193,8 @@ public class EmbeddedRocksDBStateBackendTest
                 EmbeddedRocksDBStateBackend.PriorityQueueStateType.ROCKSDB);
         backend = backend.configure(configuration, Thread.currentThread().getContextClassLoader());
         backend.setDbStoragePath(dbPath);
+        backend.setObjectCacheSize(objectCacheSize);
+        backend.setUseIngestDbRestoreMode(useIngestDbRestoreMode);
         return backend;
     }
 
@@ -72,7 +72,8 @@ public class KeyGroupPartitionedPriorityQueueWithRocksDBStoreTest
                     outputStreamWithPos,
                     inputStreamWithPos,
                     rocksDBResource.getBatchWrapper(),
-                    orderedSetCache);
+                    orderedSetCache,
+                    null);
         };
     }
 }
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.contrib.streaming.state.RocksDBAccessMetrics.Operation;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.query.KvStateRegistry;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.TestLocalRecoveryConfig;
+import org.apache.flink.runtime.state.UncompressedStreamCompressionDecorator;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.metrics.LatencyTrackingStateConfig;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.streaming.api.operators.TimerHeapInternalTimer;
+import org.apache.flink.streaming.api.operators.TimerSerializer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link RocksDBAccessMetrics}. */
+public class RocksDBAccessMetricsTest {
+
+    @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testOnlyEveryNthAccessIsSampled() {
+        HistogramCollectingMetricGroup metricGroup = new HistogramCollectingMetricGroup();
+        RocksDBAccessMetrics accessMetrics = new RocksDBAccessMetrics(metricGroup, 3, 10);
+
+        for (int i = 1; i <= 9; i++) {
+            boolean sampled = accessMetrics.shouldSample(Operation.GET);
+            assertEquals(i % 3 == 0, sampled);
+            if (sampled) {
+                accessMetrics.update(Operation.GET, System.nanoTime());
+            }
+        }
+        // operations are counted independently
+        assertFalse(accessMetrics.shouldSample(Operation.PUT));
+
+        Histogram histogram = accessMetrics.getHistogram(Operation.GET);
+        assertNotNull(histogram);
+        assertEquals(3, histogram.getCount());
+        assertNull(accessMetrics.getHistogram(Operation.PUT));
+        assertEquals(
+                Collections.singletonMap(RocksDBAccessMetrics.GET_LATENCY, histogram),
+                metricGroup.histograms);
+    }
+
+    @Test
+    public void testFactoryCreatesOneInstancePerState() {
+        RocksDBNativeMetricOptions options = new RocksDBNativeMetricOptions();
+        RocksDBAccessMetrics.Factory factory =
+                new RocksDBAccessMetrics.Factory(new HistogramCollectingMetricGroup(), options);
+        assertNull(factory.getOrCreate("state"));
+
+        options.enableAccessLatency();
+        RocksDBAccessMetrics accessMetrics = factory.getOrCreate("state");
+        assertNotNull(accessMetrics);
+        assertSame(accessMetrics, factory.getOrCreate("state"));
+        assertTrue(accessMetrics != factory.getOrCreate("other-state"));
+    }
+
+    @Test
+    public void testStateAndTimerAccessesAreTracked() throws Exception {
+        RocksDBNativeMetricOptions options = new RocksDBNativeMetricOptions();
+        options.enableAccessLatency();
+        options.setAccessLatencySampleInterval(1);
+        HistogramCollectingMetricGroup metricGroup = new HistogramCollectingMetricGroup();
+
+        RocksDBKeyedStateBackend<Integer> backend =
+                createBuilder(metricGroup).setNativeMetricOptions(options).build();
+        try {
+            ValueState<Long> valueState =
+                    backend.getPartitionedState(
+                            VoidNamespace.INSTANCE,
+                            VoidNamespaceSerializer.INSTANCE,
+                            new ValueStateDescriptor<>("value", Long.class));
+            MapState<Integer, Long> mapState =
+                    backend.getPartitionedState(
+                            VoidNamespace.INSTANCE,
+                            VoidNamespaceSerializer.INSTANCE,
+                            new MapStateDescriptor<>("map", Integer.class, Long.class));
+            ListState<Long> listState =
+                    backend.getPartitionedState(
+                            VoidNamespace.INSTANCE,
+                            VoidNamespaceSerializer.INSTANCE,
+                            new ListStateDescriptor<>("list", Long.class));
+
+            backend.setCurrentKey(1);
+            valueState.update(42L);
+            assertEquals(42L, (long) valueState.value());
+            mapState.put(1, 1L);
+            assertTrue(mapState.iterator().hasNext());
+            listState.add(1L);
+            listState.add(2L);
+            valueState.clear();
+
+            KeyGroupedInternalPriorityQueue<TimerHeapInternalTimer<Integer, VoidNamespace>> timers =
+                    backend.create(
+                            "timers",
+                            new TimerSerializer<>(
+                                    IntSerializer.INSTANCE, VoidNamespaceSerializer.INSTANCE));
+            timers.add(new TimerHeapInternalTimer<>(1L, 1, VoidNamespace.INSTANCE));
+            timers.peek();
+        } finally {
+            backend.dispose();
+        }
+
+        assertHistogramRecorded(metricGroup, "value", RocksDBAccessMetrics.PUT_LATENCY);
+        assertHistogramRecorded(metricGroup, "value", RocksDBAccessMetrics.GET_LATENCY);
+        assertHistogramRecorded(metricGroup, "value", RocksDBAccessMetrics.DELETE_LATENCY);
+        assertHistogramRecorded(metricGroup, "map", RocksDBAccessMetrics.PUT_LATENCY);
+        assertHistogramRecorded(metricGroup, "map", RocksDBAccessMetrics.SEEK_LATENCY);
+        assertHistogramRecorded(metricGroup, "list", RocksDBAccessMetrics.MERGE_LATENCY);
+        assertHistogramRecorded(metricGroup, "timers", RocksDBAccessMetrics.SEEK_LATENCY);
+    }
+
+    @Test
+    public void testNoHistogramsWhenDisabled() throws Exception {
+        HistogramCollectingMetricGroup metricGroup = new HistogramCollectingMetricGroup();
+        RocksDBKeyedStateBackend<Integer> backend = createBuilder(metricGroup).build();
+        try {
+            ValueState<Long> valueState =
+                    backend.getPartitionedState(
+                            VoidNamespace.INSTANCE,
+                            VoidNamespaceSerializer.INSTANCE,
+                            new ValueStateDescriptor<>("value", Long.class));
+            backend.setCurrentKey(1);
+            valueState.update(42L);
+            valueState.value();
+        } finally {
+            backend.dispose();
+        }
+        assertTrue(metricGroup.histograms.isEmpty());
+    }
+
+    private static void assertHistogramRecorded(
+            HistogramCollectingMetricGroup metricGroup, String stateName, String metricName) {
+        Histogram histogram = metricGroup.histograms.get(stateName + "." + metricName);
+        assertNotNull(stateName + "." + metricName + " is not registered", histogram);
+        assertTrue(histogram.getCount() > 0);
+    }
+
+    private RocksDBKeyedStateBackendBuilder<Integer> createBuilder(MetricGroup metricGroup)
+            throws Exception {
+        RocksDBResourceContainer optionsContainer = new RocksDBResourceContainer();
+        return new RocksDBKeyedStateBackendBuilder<>(
+                "no-op",
+                ClassLoader.getSystemClassLoader(),
+                tempFolder.newFolder(),
+                optionsContainer,
+                stateName -> optionsContainer.getColumnOptions(),
+                new KvStateRegistry().createTaskRegistry(new JobID(), new JobVertexID()),
+                IntSerializer.INSTANCE,
+                2,
+                new KeyGroupRange(0, 1),
+                new ExecutionConfig(),
+                TestLocalRecoveryConfig.disabled(),
+                EmbeddedRocksDBStateBackend.PriorityQueueStateType.ROCKSDB,
+                TtlTimeProvider.DEFAULT,
+                LatencyTrackingStateConfig.disabled(),
+                metricGroup,
+                Collections.emptyList(),
+                UncompressedStreamCompressionDecorator.INSTANCE,
+                new CloseableRegistry());
+    }
+
+    /** Collects the registered histograms by their dot-separated scope below the root group. */
+    private static class HistogramCollectingMetricGroup extends UnregisteredMetricsGroup {
+
+        private final String scope;
+
+        private final Map<String, Histogram> histograms;
+
+        HistogramCollectingMetricGroup() {
+            this("", new HashMap<>());
+        }
+
+        private HistogramCollectingMetricGroup(String scope, Map<String, Histogram> histograms) {
+            this.scope = scope;
+            this.histograms = histograms;
+        }
+
+        @Override
+        public <H extends Histogram> H histogram(String name, H histogram) {
+            histograms.put(scope + name, histogram);
+            return histogram;
+        }
+
+        @Override
+        public MetricGroup addGroup(String name) {
+            return new HistogramCollectingMetricGroup(scope + name + ".", histograms);
+        }
+
+        @Override
+        public MetricGroup addGroup(String key, String value) {
+            return addGroup(value);
+        }
+    }
+}
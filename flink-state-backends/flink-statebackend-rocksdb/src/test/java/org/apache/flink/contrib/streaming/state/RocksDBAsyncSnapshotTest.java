@@ -195,6 +195,12 @@ public class RocksDBAsyncSnapshotTest extends TestLogger {
                             long checkpointId,
                             CheckpointMetrics checkpointMetrics) {}
 
+                    @Override
+                    public void acknowledgeRemoteDurableCheckpoint(
+                            JobID jobID,
+                            ExecutionAttemptID executionAttemptID,
+                            long checkpointId) {}
+
                     @Override
                     public void declineCheckpoint(
                             JobID jobID,
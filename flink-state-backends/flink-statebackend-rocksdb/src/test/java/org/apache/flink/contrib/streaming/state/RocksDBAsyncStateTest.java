@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.async.AsyncListState;
+import org.apache.flink.runtime.state.async.AsyncMapState;
+import org.apache.flink.runtime.state.async.AsyncValueState;
+import org.apache.flink.runtime.state.async.StateFuture;
+import org.apache.flink.runtime.state.hashmap.HashMapStateBackend;
+import org.apache.flink.streaming.api.operators.AbstractAsyncStateStreamOperator;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the asynchronous state of the {@link EmbeddedRocksDBStateBackend}, and of the
+ * synchronous fallback for backends without asynchronous state access.
+ */
+@RunWith(Parameterized.class)
+public class RocksDBAsyncStateTest {
+
+    @Parameterized.Parameters(name = "backend = {0}")
+    public static Object[][] parameters() {
+        return new Object[][] {
+            {"rocksdb", (Supplier<StateBackend>) EmbeddedRocksDBStateBackend::new},
+            {
+                "rocksdb-object-cache",
+                (Supplier<StateBackend>) RocksDBAsyncStateTest::createBackendWithObjectCache
+            },
+            {"hashmap", (Supplier<StateBackend>) HashMapStateBackend::new}
+        };
+    }
+
+    @Parameterized.Parameter public String backendName;
+
+    @Parameterized.Parameter(1)
+    public Supplier<StateBackend> backendFactory;
+
+    @Test
+    public void testStateAccessAndRestore() throws Exception {
+        OperatorSubtaskState snapshot;
+        try (KeyedOneInputStreamOperatorTestHarness<String, String, String> testHarness =
+                createTestHarness()) {
+            testHarness.open();
+            for (String value : Arrays.asList("a1", "b1", "a1", "a2", "b1")) {
+                testHarness.processElement(value, 0L);
+            }
+            testHarness.prepareSnapshotPreBarrier(1L);
+
+            assertOutput(
+                    Arrays.asList("a1:1:1:1", "b1:1:1:1", "a1:2:2:2", "a2:3:1:3", "b1:2:2:2"),
+                    testHarness.extractOutputValues());
+            snapshot = testHarness.snapshot(1L, 1L);
+        }
+
+        try (KeyedOneInputStreamOperatorTestHarness<String, String, String> testHarness =
+                createTestHarness()) {
+            testHarness.initializeState(snapshot);
+            testHarness.open();
+            testHarness.processElement("a1", 0L);
+            testHarness.processElement("b2", 0L);
+            testHarness.prepareSnapshotPreBarrier(2L);
+
+            assertOutput(Arrays.asList("a1:4:3:4", "b2:3:1:3"), testHarness.extractOutputValues());
+        }
+    }
+
+    @Test
+    public void testSyncAndAsyncAccessOfTheSameState() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, String, String> testHarness =
+                createTestHarness(new MixedAccessOperator())) {
+            testHarness.open();
+            for (String value : Arrays.asList("a", "b", "a", "a")) {
+                testHarness.processElement(value, 0L);
+            }
+            testHarness.prepareSnapshotPreBarrier(1L);
+
+            assertOutput(
+                    Arrays.asList("a:1", "b:1", "a:102", "a:203"),
+                    testHarness.extractOutputValues());
+        }
+    }
+
+    private KeyedOneInputStreamOperatorTestHarness<String, String, String> createTestHarness()
+            throws Exception {
+        return createTestHarness(new CountingOperator());
+    }
+
+    private KeyedOneInputStreamOperatorTestHarness<String, String, String> createTestHarness(
+            OneInputStreamOperator<String, String> operator) throws Exception {
+        KeyedOneInputStreamOperatorTestHarness<String, String, String> testHarness =
+                new KeyedOneInputStreamOperatorTestHarness<>(
+                        operator,
+                        (KeySelector<String, String>) value -> value.substring(0, 1),
+                        BasicTypeInfo.STRING_TYPE_INFO);
+        testHarness.setStateBackend(backendFactory.get());
+        return testHarness;
+    }
+
+    private static StateBackend createBackendWithObjectCache() {
+        EmbeddedRocksDBStateBackend backend = new EmbeddedRocksDBStateBackend();
+        backend.setObjectCacheSize(16);
+        return backend;
+    }
+
+    /** The order of records of different keys is not deterministic. */
+    private static void assertOutput(List<String> expected, List<String> actual) {
+        List<String> sortedExpected = new ArrayList<>(expected);
+        List<String> sortedActual = new ArrayList<>(actual);
+        Collections.sort(sortedExpected);
+        Collections.sort(sortedActual);
+        assertEquals(sortedExpected, sortedActual);
+    }
+
+    /**
+     * Emits for every record the number of records of its key, the number of occurrences of the
+     * record within its key and the number of records in the history of its key.
+     */
+    private static class CountingOperator extends AbstractAsyncStateStreamOperator<String>
+            implements OneInputStreamOperator<String, String> {
+
+        private transient AsyncValueState<Long> count;
+
+        private transient AsyncMapState<String, Long> occurrences;
+
+        private transient AsyncListState<String> history;
+
+        CountingOperator() {
+            super(2, 10);
+        }
+
+        @Override
+        public void open() throws Exception {
+            super.open();
+            count = getAsyncValueState(new ValueStateDescriptor<>("count", Long.class));
+            occurrences =
+                    getAsyncMapState(
+                            new MapStateDescriptor<>("occurrences", String.class, Long.class));
+            history = getAsyncListState(new ListStateDescriptor<>("history", String.class));
+        }
+
+        @Override
+        public void processElement(StreamRecord<String> element) throws Exception {
+            String value = element.getValue();
+            processWithCurrentKey(
+                    () ->
+                            count.asyncValue()
+                                    .thenCompose(currentCount -> update(value, currentCount))
+                                    .thenAccept(
+                                            result -> output.collect(new StreamRecord<>(result))));
+        }
+
+        private StateFuture<String> update(String value, Long currentCount) {
+            long newCount = currentCount == null ? 1L : currentCount + 1;
+            count.asyncUpdate(newCount);
+            history.asyncAdd(value);
+            return occurrences
+                    .asyncGet(value)
+                    .thenCompose(
+                            currentOccurrences -> {
+                                long newOccurrences =
+                                        currentOccurrences == null ? 1L : currentOccurrences + 1;
+                                occurrences.asyncPut(value, newOccurrences);
+                                return history.asyncGet()
+                                        .thenApply(
+                                                elements ->
+                                                        String.join(
+                                                                ":",
+                                                                value,
+                                                                String.valueOf(newCount),
+                                                                String.valueOf(newOccurrences),
+                                                                String.valueOf(size(elements))));
+                            });
+        }
+
+        private static int size(Iterable<String> elements) {
+            int size = 0;
+            for (String ignored : elements) {
+                size++;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Increments a counter synchronously, then reads it asynchronously, emits it and adds 100 to it
+     * asynchronously, so that each access has to see the modifications of the other.
+     */
+    private static class MixedAccessOperator extends AbstractAsyncStateStreamOperator<String>
+            implements OneInputStreamOperator<String, String> {
+
+        private final ValueStateDescriptor<Long> descriptor =
+                new ValueStateDescriptor<>("count", Long.class);
+
+        private transient ValueState<Long> syncCount;
+
+        private transient AsyncValueState<Long> asyncCount;
+
+        MixedAccessOperator() {
+            super(2, 10);
+        }
+
+        @Override
+        public void open() throws Exception {
+            super.open();
+            syncCount = getPartitionedState(descriptor);
+            asyncCount = getAsyncValueState(descriptor);
+        }
+
+        @Override
+        public void processElement(StreamRecord<String> element) throws Exception {
+            String value = element.getValue();
+            processWithCurrentKey(
+                    () -> {
+                        Long currentCount = syncCount.value();
+                        syncCount.update(currentCount == null ? 1L : currentCount + 1);
+                        asyncCount
+                                .asyncValue()
+                                .thenAccept(
+                                        count -> {
+                                            output.collect(new StreamRecord<>(value + ":" + count));
+                                            asyncCount.asyncUpdate(count + 100);
+                                        });
+                    });
+        }
+    }
+}
@@ -30,9 +30,15 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.IngestExternalFileOptions;
+import org.rocksdb.LiveFileMetaData;
+import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -48,34 +54,104 @@ public class RocksDBIncrementalCheckpointUtilsTest extends TestLogger {
 
     @Test
     public void testClipDBWithKeyGroupRange() throws Exception {
+        testClipDBWithKeyGroupRange(false);
+    }
 
-        testClipDBWithKeyGroupRangeHelper(new KeyGroupRange(0, 1), new KeyGroupRange(0, 2), 1);
+    @Test
+    public void testClipDBWithKeyGroupRangeDeletingFiles() throws Exception {
+        testClipDBWithKeyGroupRange(true);
+    }
 
-        testClipDBWithKeyGroupRangeHelper(new KeyGroupRange(0, 1), new KeyGroupRange(0, 1), 1);
+    @Test
+    public void testClipDBWithKeyGroupRangeDropsWholeFiles() throws Exception {
+        try (RocksDB rocksDB = RocksDB.open(tmp.newFolder().getAbsolutePath());
+                ColumnFamilyHandle columnFamilyHandle =
+                        rocksDB.createColumnFamily(new ColumnFamilyDescriptor("test".getBytes()));
+                EnvOptions envOptions = new EnvOptions();
+                Options options = new Options();
+                IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions()) {
 
-        testClipDBWithKeyGroupRangeHelper(new KeyGroupRange(0, 1), new KeyGroupRange(1, 2), 1);
+            // ingest every key group as its own file, like restores in ingest DB mode do
+            DataOutputSerializer outputView = new DataOutputSerializer(32);
+            for (int i = 0; i < 4; ++i) {
+                String sstFile = new File(tmp.newFolder(), i + ".sst").getAbsolutePath();
+                try (SstFileWriter sstFileWriter = new SstFileWriter(envOptions, options)) {
+                    sstFileWriter.open(sstFile);
+                    for (int j = 0; j < 100; ++j) {
+                        outputView.clear();
+                        CompositeKeySerializationUtils.writeKeyGroup(i, 1, outputView);
+                        CompositeKeySerializationUtils.writeKey(
+                                j, IntSerializer.INSTANCE, outputView, false);
+                        sstFileWriter.put(
+                                outputView.getCopyOfBuffer(), String.valueOf(j).getBytes());
+                    }
+                    sstFileWriter.finish();
+                }
+                rocksDB.ingestExternalFile(
+                        columnFamilyHandle, Collections.singletonList(sstFile), ingestOptions);
+            }
+            Assert.assertEquals(4, getLiveFiles(rocksDB, "test").size());
 
-        testClipDBWithKeyGroupRangeHelper(new KeyGroupRange(0, 1), new KeyGroupRange(2, 4), 1);
+            RocksDBIncrementalCheckpointUtils.clipDBWithKeyGroupRange(
+                    rocksDB,
+                    Collections.singletonList(columnFamilyHandle),
+                    new KeyGroupRange(1, 2),
+                    new KeyGroupRange(0, 3),
+                    1,
+                    RocksDBConfigurableOptions.WRITE_BATCH_SIZE.defaultValue().getBytes(),
+                    true);
+
+            Assert.assertEquals(2, getLiveFiles(rocksDB, "test").size());
+        }
+    }
+
+    private static List<LiveFileMetaData> getLiveFiles(RocksDB rocksDB, String columnFamily) {
+        List<LiveFileMetaData> files = new ArrayList<>();
+        for (LiveFileMetaData file : rocksDB.getLiveFilesMetaData()) {
+            if (columnFamily.equals(new String(file.columnFamilyName()))) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private void testClipDBWithKeyGroupRange(boolean deleteFilesInRange) throws Exception {
+
+        testClipDBWithKeyGroupRangeHelper(
+                new KeyGroupRange(0, 1), new KeyGroupRange(0, 2), 1, deleteFilesInRange);
+
+        testClipDBWithKeyGroupRangeHelper(
+                new KeyGroupRange(0, 1), new KeyGroupRange(0, 1), 1, deleteFilesInRange);
+
+        testClipDBWithKeyGroupRangeHelper(
+                new KeyGroupRange(0, 1), new KeyGroupRange(1, 2), 1, deleteFilesInRange);
+
+        testClipDBWithKeyGroupRangeHelper(
+                new KeyGroupRange(0, 1), new KeyGroupRange(2, 4), 1, deleteFilesInRange);
 
         testClipDBWithKeyGroupRangeHelper(
                 new KeyGroupRange(Byte.MAX_VALUE - 15, Byte.MAX_VALUE),
                 new KeyGroupRange(Byte.MAX_VALUE - 10, Byte.MAX_VALUE),
-                1);
+                1,
+                deleteFilesInRange);
 
         testClipDBWithKeyGroupRangeHelper(
                 new KeyGroupRange(Short.MAX_VALUE - 15, Short.MAX_VALUE),
                 new KeyGroupRange(Short.MAX_VALUE - 10, Short.MAX_VALUE),
-                2);
+                2,
+                deleteFilesInRange);
 
         testClipDBWithKeyGroupRangeHelper(
                 new KeyGroupRange(Byte.MAX_VALUE - 15, Byte.MAX_VALUE - 1),
                 new KeyGroupRange(Byte.MAX_VALUE - 10, Byte.MAX_VALUE),
-                1);
+                1,
+                deleteFilesInRange);
 
         testClipDBWithKeyGroupRangeHelper(
                 new KeyGroupRange(Short.MAX_VALUE - 15, Short.MAX_VALUE - 1),
                 new KeyGroupRange(Short.MAX_VALUE - 10, Short.MAX_VALUE),
-                2);
+                2,
+                deleteFilesInRange);
     }
 
     @Test
@@ -133,7 +209,8 @@ public class RocksDBIncrementalCheckpointUtilsTest extends TestLogger {
     private void testClipDBWithKeyGroupRangeHelper(
             KeyGroupRange targetGroupRange,
             KeyGroupRange currentGroupRange,
-            int keyGroupPrefixBytes)
+            int keyGroupPrefixBytes,
+            boolean deleteFilesInRange)
             throws RocksDBException, IOException {
 
         try (RocksDB rocksDB = RocksDB.open(tmp.newFolder().getAbsolutePath());
@@ -176,7 +253,8 @@ public class RocksDBIncrementalCheckpointUtilsTest extends TestLogger {
                     targetGroupRange,
                     currentGroupRange,
                     keyGroupPrefixBytes,
-                    RocksDBConfigurableOptions.WRITE_BATCH_SIZE.defaultValue().getBytes());
+                    RocksDBConfigurableOptions.WRITE_BATCH_SIZE.defaultValue().getBytes(),
+                    deleteFilesInRange);
 
             for (int i = currentGroupRangeStart; i <= currentGroupRangeEnd; ++i) {
                 for (int j = 0; j < 100; ++j) {
@@ -46,4 +46,19 @@ public class RocksDBNativeMetricOptionsTest {
                     options.getProperties().contains(property.getRocksDBProperty()));
         }
     }
+
+    @Test
+    public void testAccessLatencyConfigurable() {
+        Configuration config = new Configuration();
+        config.set(RocksDBNativeMetricOptions.MONITOR_ACCESS_LATENCY, true);
+        config.set(RocksDBNativeMetricOptions.ACCESS_LATENCY_SAMPLE_INTERVAL, 10);
+        config.set(RocksDBNativeMetricOptions.ACCESS_LATENCY_HISTORY_SIZE, 64);
+
+        RocksDBNativeMetricOptions options = RocksDBNativeMetricOptions.fromConfig(config);
+
+        Assert.assertTrue(options.isAccessLatencyEnabled());
+        Assert.assertFalse(options.isEnabled());
+        Assert.assertEquals(10, options.getAccessLatencySampleInterval());
+        Assert.assertEquals(64, options.getAccessLatencyHistorySize());
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.WriteOptions;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link RocksDBObjectCache}. */
+public class RocksDBObjectCacheTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWritesAreDeferredUntilFlush() throws Exception {
+        try (RocksDB db = RocksDB.open(folder.newFolder().getAbsolutePath());
+                WriteOptions options = new WriteOptions().setDisableWAL(true);
+                ColumnFamilyHandle handle =
+                        db.createColumnFamily(new ColumnFamilyDescriptor(bytes("test")));
+                RocksDBObjectCache<String> cache = createCache(db, handle, options, 10)) {
+
+            String value = "value";
+            cache.put(bytes("key"), value);
+            assertNull(db.get(handle, bytes("key")));
+            assertSame(value, cache.get(bytes("key")).getValue());
+
+            cache.flush();
+            assertArrayEquals(bytes("value"), db.get(handle, bytes("key")));
+
+            cache.remove(bytes("key"));
+            assertFalse(cache.get(bytes("key")).isPresent());
+            assertArrayEquals(bytes("value"), db.get(handle, bytes("key")));
+
+            cache.flush();
+            assertNull(db.get(handle, bytes("key")));
+        }
+    }
+
+    @Test
+    public void testEvictedWritesAreVisible() throws Exception {
+        try (RocksDB db = RocksDB.open(folder.newFolder().getAbsolutePath());
+                WriteOptions options = new WriteOptions().setDisableWAL(true);
+                ColumnFamilyHandle handle =
+                        db.createColumnFamily(new ColumnFamilyDescriptor(bytes("test")));
+                RocksDBObjectCache<String> cache = createCache(db, handle, options, 2)) {
+
+            db.put(handle, bytes("removed"), bytes("old"));
+
+            cache.put(bytes("a"), "1");
+            cache.remove(bytes("removed"));
+            // evicts the two entries above into the pending writes
+            cache.put(bytes("b"), "2");
+            cache.put(bytes("c"), "3");
+            assertEquals(2, cache.size());
+
+            assertEquals("1", cache.get(bytes("a")).getValue());
+            assertFalse(cache.get(bytes("removed")).isPresent());
+
+            cache.flush();
+            assertArrayEquals(bytes("1"), db.get(handle, bytes("a")));
+            assertArrayEquals(bytes("2"), db.get(handle, bytes("b")));
+            assertArrayEquals(bytes("3"), db.get(handle, bytes("c")));
+            assertNull(db.get(handle, bytes("removed")));
+        }
+    }
+
+    @Test
+    public void testLoadsFromRocksDBOnMiss() throws Exception {
+        try (RocksDB db = RocksDB.open(folder.newFolder().getAbsolutePath());
+                WriteOptions options = new WriteOptions().setDisableWAL(true);
+                ColumnFamilyHandle handle =
+                        db.createColumnFamily(new ColumnFamilyDescriptor(bytes("test")));
+                RocksDBObjectCache<String> cache = createCache(db, handle, options, 10)) {
+
+            db.put(handle, bytes("key"), bytes("value"));
+
+            RocksDBObjectCache.Entry<String> entry = cache.get(bytes("key"));
+            assertTrue(entry.isPresent());
+            assertEquals("value", entry.getValue());
+            assertSame(entry, cache.get(bytes("key")));
+
+            assertFalse(cache.get(bytes("missing")).isPresent());
+            assertEquals(2, cache.size());
+        }
+    }
+
+    @Test
+    public void testInvalidatePrefix() throws Exception {
+        try (RocksDB db = RocksDB.open(folder.newFolder().getAbsolutePath());
+                WriteOptions options = new WriteOptions().setDisableWAL(true);
+                ColumnFamilyHandle handle =
+                        db.createColumnFamily(new ColumnFamilyDescriptor(bytes("test")));
+                RocksDBObjectCache<String> cache = createCache(db, handle, options, 2)) {
+
+            cache.put(bytes("a1"), "1");
+            cache.put(bytes("a2"), "2");
+            // evicts a1 into the pending writes
+            cache.put(bytes("b1"), "3");
+
+            cache.invalidatePrefix(bytes("a"));
+            assertEquals(1, cache.size());
+            // the pending write was flushed and the cached one dropped
+            assertArrayEquals(bytes("1"), db.get(handle, bytes("a1")));
+            assertNull(db.get(handle, bytes("a2")));
+
+            db.delete(handle, bytes("a1"));
+            assertFalse(cache.get(bytes("a1")).isPresent());
+        }
+    }
+
+    private static RocksDBObjectCache<String> createCache(
+            RocksDB db, ColumnFamilyHandle handle, WriteOptions options, int capacity) {
+        return new RocksDBObjectCache<>(
+                db,
+                handle,
+                options,
+                0,
+                capacity,
+                bytes -> new String(bytes, StandardCharsets.UTF_8),
+                RocksDBObjectCacheTest::bytes,
+                new UnregisteredMetricsGroup());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -28,8 +28,11 @@ import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.filesystem.FsCheckpointStreamFactory;
 import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
+import org.apache.flink.runtime.state.memory.MemCheckpointStreamFactory;
 import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.TestLogger;
+import org.apache.flink.util.clock.ManualClock;
+import org.apache.flink.util.concurrent.FutureUtils;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -42,14 +45,23 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /** Test class for {@link RocksDBStateUploader}. */
@@ -147,6 +159,172 @@ public class RocksDBStateUploaderTest extends TestLogger {
         }
     }
 
+    /** Test that queued uploads of smaller files run before those of larger files. */
+    @Test
+    public void testSmallerFilesAreUploadedFirst() throws Exception {
+        RocksDBUploadScheduler scheduler =
+                new RocksDBUploadScheduler(
+                        1, RocksDBUploadScheduler.UNLIMITED_BANDWIDTH, new ManualClock());
+        try {
+            CountDownLatch blockingUploadReleased = blockSingleThread(scheduler);
+
+            List<Long> uploadOrder = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<Long>> uploads = new ArrayList<>();
+            for (long fileSize : new long[] {30L, 10L, 20L, 10L}) {
+                uploads.add(scheduleRecordingUpload(scheduler, fileSize, uploadOrder));
+            }
+            assertEquals(4, scheduler.getQueueLength());
+
+            blockingUploadReleased.countDown();
+            FutureUtils.waitForAll(uploads).get();
+
+            assertEquals(Arrays.asList(10L, 10L, 20L, 30L), uploadOrder);
+            assertEquals(0, scheduler.getQueueLength());
+        } finally {
+            scheduler.release();
+        }
+    }
+
+    /**
+     * Test that a large file is uploaded before smaller files which were scheduled later than the
+     * time it takes to transfer the large file.
+     */
+    @Test
+    public void testLongWaitingLargeFileIsNotStarved() throws Exception {
+        final long bytesPerSecond = 1024L;
+        ManualClock clock = new ManualClock();
+        RocksDBUploadScheduler scheduler = new RocksDBUploadScheduler(1, bytesPerSecond, clock);
+        try {
+            CountDownLatch blockingUploadReleased = blockSingleThread(scheduler);
+
+            List<Long> uploadOrder = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<Long>> uploads = new ArrayList<>();
+            // takes 10 seconds to transfer
+            uploads.add(scheduleRecordingUpload(scheduler, 10 * bytesPerSecond, uploadOrder));
+            clock.advanceTime(Duration.ofSeconds(5));
+            uploads.add(scheduleRecordingUpload(scheduler, 1L, uploadOrder));
+            clock.advanceTime(Duration.ofSeconds(6));
+            uploads.add(scheduleRecordingUpload(scheduler, 2L, uploadOrder));
+
+            blockingUploadReleased.countDown();
+            FutureUtils.waitForAll(uploads).get();
+
+            assertEquals(Arrays.asList(1L, 10 * bytesPerSecond, 2L), uploadOrder);
+        } finally {
+            scheduler.release();
+        }
+    }
+
+    /** Test that uploads which did not start yet are cancelled when the scheduler shuts down. */
+    @Test
+    public void testPendingUploadsAreCancelledOnRelease() throws Exception {
+        RocksDBUploadScheduler scheduler =
+                new RocksDBUploadScheduler(2, RocksDBUploadScheduler.UNLIMITED_BANDWIDTH);
+        CountDownLatch blockingUploadsStarted = new CountDownLatch(2);
+        CountDownLatch blockingUploadsReleased = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            scheduler.schedule(
+                    0L,
+                    () -> {
+                        blockingUploadsStarted.countDown();
+                        try {
+                            blockingUploadsReleased.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return null;
+                    });
+        }
+        blockingUploadsStarted.await();
+
+        CompletableFuture<Object> pendingUpload = scheduler.schedule(1L, () -> null);
+        scheduler.release();
+
+        assertTrue(scheduler.isShutdown());
+        assertTrue(pendingUpload.isCancelled());
+    }
+
+    /** Test that uploaders with the same configuration share their scheduler until all closed. */
+    @Test
+    public void testSharedSchedulerIsReleasedByLastUploader() {
+        RocksDBStateUploader first = new RocksDBStateUploader(2, 1024L * 1024L, true);
+        RocksDBStateUploader second = new RocksDBStateUploader(2, 1024L * 1024L, true);
+        RocksDBStateUploader differentlyConfigured = new RocksDBStateUploader(3, 1024L, true);
+
+        assertSame(first.getScheduler(), second.getScheduler());
+        assertFalse(first.getScheduler() == differentlyConfigured.getScheduler());
+
+        first.close();
+        assertFalse(second.getScheduler().isShutdown());
+
+        second.close();
+        assertTrue(second.getScheduler().isShutdown());
+
+        differentlyConfigured.close();
+        assertTrue(differentlyConfigured.getScheduler().isShutdown());
+    }
+
+    /** Test that the uploads do not exceed the configured bandwidth. */
+    @Test
+    public void testUploadBandwidthIsLimited() throws Exception {
+        File file = temporaryFolder.newFile(String.valueOf(UUID.randomUUID()));
+        generateRandomFileContent(file.getPath(), 128 * 1024);
+
+        Map<StateHandleID, Path> filePaths = new HashMap<>(1);
+        filePaths.put(new StateHandleID("throttledHandleID"), file.toPath());
+
+        // the first 16 KB chunk is written right away, the remaining 112 KB take 1.75 seconds
+        try (RocksDBStateUploader rocksDBStateUploader =
+                new RocksDBStateUploader(1, 64 * 1024, false)) {
+            long start = System.nanoTime();
+            Map<StateHandleID, StreamStateHandle> handles =
+                    rocksDBStateUploader.uploadFilesToCheckpointFs(
+                            filePaths,
+                            new MemCheckpointStreamFactory(1024 * 1024),
+                            CheckpointedStateScope.SHARED,
+                            new CloseableRegistry());
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertTrue("Upload took only " + elapsedMillis + " ms.", elapsedMillis >= 1_000);
+            assertStateContentEqual(
+                    file.toPath(),
+                    handles.get(new StateHandleID("throttledHandleID")).openInputStream());
+        }
+    }
+
+    /**
+     * Occupies the only thread of the given scheduler until the returned latch is counted down, so
+     * that the uploads scheduled in the meantime are queued.
+     */
+    private static CountDownLatch blockSingleThread(RocksDBUploadScheduler scheduler)
+            throws InterruptedException {
+        CountDownLatch blockingUploadStarted = new CountDownLatch(1);
+        CountDownLatch blockingUploadReleased = new CountDownLatch(1);
+        scheduler.schedule(
+                0L,
+                () -> {
+                    blockingUploadStarted.countDown();
+                    try {
+                        blockingUploadReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                });
+        blockingUploadStarted.await();
+        return blockingUploadReleased;
+    }
+
+    private static CompletableFuture<Long> scheduleRecordingUpload(
+            RocksDBUploadScheduler scheduler, long fileSize, List<Long> uploadOrder) {
+        return scheduler.schedule(
+                fileSize,
+                () -> {
+                    uploadOrder.add(fileSize);
+                    return fileSize;
+                });
+    }
+
     private CheckpointStateOutputStream createFailingCheckpointStateOutputStream(
             IOException failureException) {
         return new CheckpointStateOutputStream() {
@@ -41,14 +41,36 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 /** Tests to guard rescaling from checkpoint. */
+@RunWith(Parameterized.class)
 public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 
     @Rule public TemporaryFolder rootFolder = new TemporaryFolder();
 
+    @Parameterized.Parameters(name = "useIngestDbRestoreMode: {0}, restoreParallelism: {1}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(
+                new Object[][] {
+                    {false, 1},
+                    {true, 1},
+                    {false, 3},
+                    {true, 3}
+                });
+    }
+
+    @Parameterized.Parameter(value = 0)
+    public boolean useIngestDbRestoreMode;
+
+    @Parameterized.Parameter(value = 1)
+    public int restoreParallelism;
+
     private final int maxParallelism = 10;
 
     private KeySelector<String, String> keySelector = new TestKeySelector();
@@ -419,7 +441,11 @@ public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
     }
 
     private StateBackend getStateBackend() throws Exception {
-        return new RocksDBStateBackend("file://" + rootFolder.newFolder().getAbsolutePath(), true);
+        RocksDBStateBackend backend =
+                new RocksDBStateBackend("file://" + rootFolder.newFolder().getAbsolutePath(), true);
+        backend.setUseIngestDbRestoreMode(useIngestDbRestoreMode);
+        backend.setRestoreParallelism(restoreParallelism);
+        return backend;
     }
 
     /** A simple keyed function for tests. */
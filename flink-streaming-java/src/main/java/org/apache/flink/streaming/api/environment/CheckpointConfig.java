@@ -107,6 +107,11 @@ public class CheckpointConfig implements java.io.Serializable {
     private Duration alignedCheckpointTimeout =
             ExecutionCheckpointingOptions.ALIGNED_CHECKPOINT_TIMEOUT.defaultValue();
 
+    /** The maximum number of subtasks sharing a file for their channel state. */
+    private int maxSubtasksPerChannelStateFile =
+            ExecutionCheckpointingOptions.UNALIGNED_MAX_SUBTASKS_PER_CHANNEL_STATE_FILE
+                    .defaultValue();
+
     /** Flag to enable approximate local recovery. */
     private boolean approximateLocalRecovery;
 
@@ -153,6 +158,7 @@ public class CheckpointConfig implements java.io.Serializable {
         this.tolerableCheckpointFailureNumber = checkpointConfig.tolerableCheckpointFailureNumber;
         this.unalignedCheckpointsEnabled = checkpointConfig.isUnalignedCheckpointsEnabled();
         this.alignedCheckpointTimeout = checkpointConfig.alignedCheckpointTimeout;
+        this.maxSubtasksPerChannelStateFile = checkpointConfig.maxSubtasksPerChannelStateFile;
         this.approximateLocalRecovery = checkpointConfig.isApproximateLocalRecoveryEnabled();
         this.externalizedCheckpointCleanup = checkpointConfig.externalizedCheckpointCleanup;
         this.forceCheckpointing = checkpointConfig.forceCheckpointing;
@@ -598,6 +604,29 @@ public class CheckpointConfig implements java.io.Serializable {
         this.alignedCheckpointTimeout = alignedCheckpointTimeout;
     }
 
+    /**
+     * @return the maximum number of subtasks of a job vertex in one TaskManager that share a file
+     *     for their channel state during unaligned checkpoints.
+     */
+    @PublicEvolving
+    public int getMaxSubtasksPerChannelStateFile() {
+        return maxSubtasksPerChannelStateFile;
+    }
+
+    /**
+     * The maximum number of subtasks of a job vertex in one TaskManager that share a file for their
+     * channel state during unaligned checkpoints. Defaults to 1, i.e. one file per subtask.
+     *
+     * @param maxSubtasksPerChannelStateFile The maximum number of subtasks per channel state file.
+     */
+    @PublicEvolving
+    public void setMaxSubtasksPerChannelStateFile(int maxSubtasksPerChannelStateFile) {
+        Preconditions.checkArgument(
+                maxSubtasksPerChannelStateFile > 0,
+                "The number of subtasks to share a channel state file must be positive.");
+        this.maxSubtasksPerChannelStateFile = maxSubtasksPerChannelStateFile;
+    }
+
     /**
      * Returns whether approximate local recovery is enabled.
      *
@@ -835,6 +864,10 @@ public class CheckpointConfig implements java.io.Serializable {
         configuration
                 .getOptional(ExecutionCheckpointingOptions.FORCE_UNALIGNED)
                 .ifPresent(this::setForceUnalignedCheckpoints);
+        configuration
+                .getOptional(
+                        ExecutionCheckpointingOptions.UNALIGNED_MAX_SUBTASKS_PER_CHANNEL_STATE_FILE)
+                .ifPresent(this::setMaxSubtasksPerChannelStateFile);
         configuration
                 .getOptional(CheckpointingOptions.CHECKPOINTS_DIRECTORY)
                 .ifPresent(this::setCheckpointStorage);
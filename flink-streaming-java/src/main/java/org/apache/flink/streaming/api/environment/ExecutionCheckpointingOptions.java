@@ -218,6 +218,27 @@ public class ExecutionCheckpointingOptions {
                                             "Forces unaligned checkpoints, particularly allowing them for iterative jobs.")
                                     .build());
 
+    public static final ConfigOption<Integer> UNALIGNED_MAX_SUBTASKS_PER_CHANNEL_STATE_FILE =
+            ConfigOptions.key(
+                            "execution.checkpointing.unaligned.max-subtasks-per-channel-state-file")
+                    .intType()
+                    .defaultValue(1)
+                    .withDescription(
+                            Description.builder()
+                                    .text(
+                                            "Defines the maximum number of subtasks of the same job vertex running "
+                                                    + "in one TaskManager that share a single file for their channel state "
+                                                    + "during unaligned checkpoints. Sharing a file reduces the number of "
+                                                    + "small files written per checkpoint. However, the subtasks sharing a "
+                                                    + "file write their channel state one after another and the channel "
+                                                    + "state of a subtask is only complete once all of them have finished "
+                                                    + "writing, which may prolong the checkpoints.")
+                                    .linebreak()
+                                    .linebreak()
+                                    .text(
+                                            "By default, each subtask writes its channel state to a separate file.")
+                                    .build());
+
     public static final ConfigOption<Long> CHECKPOINT_ID_OF_IGNORED_IN_FLIGHT_DATA =
             ConfigOptions.key("execution.checkpointing.recover-without-channel-state.checkpoint-id")
                     .longType()
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.annotation.Experimental;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.operators.MailboxExecutor;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.runtime.state.KeyedStateBackend;
+import org.apache.flink.runtime.state.async.AsyncExecutionController;
+import org.apache.flink.runtime.state.async.AsyncKeyedStateBackend;
+import org.apache.flink.runtime.state.async.AsyncListState;
+import org.apache.flink.runtime.state.async.AsyncMapState;
+import org.apache.flink.runtime.state.async.AsyncStateAdapters;
+import org.apache.flink.runtime.state.async.AsyncValueState;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.util.function.ThrowingRunnable;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Base class for keyed operators that access their state asynchronously, so that a slow state
+ * access of one record does not stall the processing of the records of other keys.
+ *
+ * <p>Records are processed through {@link #processWithCurrentKey(ThrowingRunnable)}, which runs the
+ * given processing once no earlier record of the same key is in flight. Asynchronous state obtained
+ * from this operator may only be accessed from that processing or from the callbacks of its {@link
+ * org.apache.flink.runtime.state.async.StateFuture StateFutures}.
+ *
+ * <p>If the state backend does not support asynchronous access, the requests are executed
+ * synchronously on the task thread with the same semantics.
+ *
+ * <p>All in-flight records are completed before checkpoint barriers and watermarks are forwarded,
+ * and when the operator finishes.
+ *
+ * @param <OUT> The output type of the operator.
+ */
+@Experimental
+public abstract class AbstractAsyncStateStreamOperator<OUT> extends AbstractStreamOperator<OUT> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_NUM_STATE_ACCESS_THREADS = 4;
+
+    public static final int DEFAULT_MAX_IN_FLIGHT_RECORDS = 1024;
+
+    private final int numStateAccessThreads;
+
+    private final int maxInFlightRecords;
+
+    private transient AsyncExecutionController<Object> asyncExecutionController;
+
+    protected AbstractAsyncStateStreamOperator() {
+        this(DEFAULT_NUM_STATE_ACCESS_THREADS, DEFAULT_MAX_IN_FLIGHT_RECORDS);
+    }
+
+    protected AbstractAsyncStateStreamOperator(int numStateAccessThreads, int maxInFlightRecords) {
+        checkArgument(numStateAccessThreads > 0, "At least one state access thread is required.");
+        checkArgument(maxInFlightRecords > 0, "The number of in-flight records must be positive.");
+        this.numStateAccessThreads = numStateAccessThreads;
+        this.maxInFlightRecords = maxInFlightRecords;
+    }
+
+    /**
+     * Processes the current record with its key, as soon as all earlier records of the same key
+     * completed.
+     */
+    protected void processWithCurrentKey(ThrowingRunnable<? extends Exception> processing)
+            throws Exception {
+        getAsyncExecutionController().processRecord(getCurrentKey(), processing);
+    }
+
+    protected <T> AsyncValueState<T> getAsyncValueState(ValueStateDescriptor<T> stateDescriptor)
+            throws Exception {
+        stateDescriptor.initializeSerializerUnlessSet(getExecutionConfig());
+        AsyncExecutionController<Object> controller = getAsyncExecutionController();
+        KeyedStateBackend<Object> backend = getKeyedStateBackend();
+        if (backend instanceof AsyncKeyedStateBackend) {
+            return ((AsyncKeyedStateBackend<Object>) backend)
+                    .createAsyncValueState(stateDescriptor, controller);
+        }
+        return AsyncStateAdapters.adapt(getPartitionedState(stateDescriptor), controller);
+    }
+
+    protected <UK, UV> AsyncMapState<UK, UV> getAsyncMapState(
+            MapStateDescriptor<UK, UV> stateDescriptor) throws Exception {
+        stateDescriptor.initializeSerializerUnlessSet(getExecutionConfig());
+        AsyncExecutionController<Object> controller = getAsyncExecutionController();
+        KeyedStateBackend<Object> backend = getKeyedStateBackend();
+        if (backend instanceof AsyncKeyedStateBackend) {
+            return ((AsyncKeyedStateBackend<Object>) backend)
+                    .createAsyncMapState(stateDescriptor, controller);
+        }
+        return AsyncStateAdapters.adapt(getPartitionedState(stateDescriptor), controller);
+    }
+
+    protected <T> AsyncListState<T> getAsyncListState(ListStateDescriptor<T> stateDescriptor)
+            throws Exception {
+        stateDescriptor.initializeSerializerUnlessSet(getExecutionConfig());
+        AsyncExecutionController<Object> controller = getAsyncExecutionController();
+        KeyedStateBackend<Object> backend = getKeyedStateBackend();
+        if (backend instanceof AsyncKeyedStateBackend) {
+            return ((AsyncKeyedStateBackend<Object>) backend)
+                    .createAsyncListState(stateDescriptor, controller);
+        }
+        return AsyncStateAdapters.adapt(getPartitionedState(stateDescriptor), controller);
+    }
+
+    @Override
+    public void processWatermark(Watermark mark) throws Exception {
+        drainInFlightRecords();
+        super.processWatermark(mark);
+    }
+
+    @Override
+    public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+        drainInFlightRecords();
+        super.prepareSnapshotPreBarrier(checkpointId);
+    }
+
+    @Override
+    public void finish() throws Exception {
+        drainInFlightRecords();
+        super.finish();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (asyncExecutionController != null) {
+            asyncExecutionController.close();
+        }
+        super.close();
+    }
+
+    @VisibleForTesting
+    AsyncExecutionController<Object> getAsyncExecutionController() {
+        if (asyncExecutionController == null) {
+            KeyedStateBackend<Object> backend = getKeyedStateBackend();
+            checkState(backend != null, "Asynchronous state can only be used on keyed operators.");
+            MailboxExecutor mailboxExecutor =
+                    getContainingTask()
+                            .getMailboxExecutorFactory()
+                            .createExecutor(getOperatorConfig().getChainIndex());
+            asyncExecutionController =
+                    new AsyncExecutionController<>(
+                            mailboxExecutor,
+                            this::setCurrentKey,
+                            backend instanceof AsyncKeyedStateBackend ? numStateAccessThreads : 0,
+                            maxInFlightRecords);
+        }
+        return asyncExecutionController;
+    }
+
+    private void drainInFlightRecords() throws Exception {
+        if (asyncExecutionController != null) {
+            asyncExecutionController.drainInFlightRecords();
+        }
+    }
+}
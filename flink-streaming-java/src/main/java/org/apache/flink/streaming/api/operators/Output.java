@@ -26,6 +26,8 @@ import org.apache.flink.streaming.runtime.watermarkstatus.WatermarkStatus;
 import org.apache.flink.util.Collector;
 import org.apache.flink.util.OutputTag;
 
+import java.util.List;
+
 /**
  * A {@link org.apache.flink.streaming.api.operators.StreamOperator} is supplied with an object of
  * this interface that can be used to emit elements and other messages, such as barriers and
@@ -54,5 +56,19 @@ public interface Output<T> extends Collector<T> {
      */
     <X> void collect(OutputTag<X> outputTag, StreamRecord<X> record);
 
+    /**
+     * Emits a batch of records. By default, the records are collected one by one, however, outputs
+     * writing to the network can select the target channels of the whole batch at once and
+     * serialize the records of each channel in one pass, which reduces the per-record overhead for
+     * small records.
+     *
+     * @param records The records to collect.
+     */
+    default void collectBatch(List<T> records) {
+        for (T record : records) {
+            collect(record);
+        }
+    }
+
     void emitLatencyMarker(LatencyMarker latencyMarker);
 }
@@ -19,8 +19,8 @@
 package org.apache.flink.streaming.api.operators;
 
 import org.apache.flink.annotation.Internal;
-import org.apache.flink.runtime.state.heap.HeapPriorityQueueElement;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSet;
+import org.apache.flink.runtime.state.heap.TimestampedHeapPriorityQueueElement;
 
 import javax.annotation.Nonnull;
 
@@ -32,7 +32,7 @@ import javax.annotation.Nonnull;
  */
 @Internal
 public final class TimerHeapInternalTimer<K, N>
-        implements InternalTimer<K, N>, HeapPriorityQueueElement {
+        implements InternalTimer<K, N>, TimestampedHeapPriorityQueueElement {
 
     /** The key for which the timer is scoped. */
     @Nonnull private final K key;
@@ -25,6 +25,9 @@ import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.watermarkstatus.WatermarkStatus;
 import org.apache.flink.util.OutputTag;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Wrapper around an {@link Output} for user functions that expect a {@link Output}. Before giving
  * the {@link TimestampedCollector} to a user function you must set the timestamp that should be
@@ -51,6 +54,25 @@ public final class TimestampedCollector<T> implements Output<T> {
         output.collect(reuse.replace(record));
     }
 
+    /**
+     * Emits all the given records with the current timestamp as one batch. Unlike {@link
+     * #collect(Object)}, this creates a {@link StreamRecord} per record, so it should only be used
+     * if the wrapped output benefits from batches.
+     */
+    @Override
+    public void collectBatch(List<T> records) {
+        if (records.size() == 1) {
+            collect(records.get(0));
+            return;
+        }
+
+        List<StreamRecord<T>> streamRecords = new ArrayList<>(records.size());
+        for (T record : records) {
+            streamRecords.add(reuse.copy(record));
+        }
+        output.collectBatch(streamRecords);
+    }
+
     public void setTimestamp(StreamRecord<?> timestampBase) {
         if (timestampBase.hasTimestamp()) {
             reuse.setTimestamp(timestampBase.getTimestamp());
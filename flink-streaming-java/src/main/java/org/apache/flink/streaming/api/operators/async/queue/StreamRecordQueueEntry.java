@@ -27,7 +27,9 @@ import org.apache.flink.util.Preconditions;
 
 import javax.annotation.Nonnull;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * {@link StreamElementQueueEntry} implementation for {@link StreamRecord}. This class also acts as
@@ -60,9 +62,17 @@ class StreamRecordQueueEntry<OUT> implements StreamElementQueueEntry<OUT> {
     @Override
     public void emitResult(TimestampedCollector<OUT> output) {
         output.setTimestamp(inputRecord);
-        for (OUT r : completedElements) {
-            output.collect(r);
+        if (completedElements.isEmpty()) {
+            return;
         }
+
+        // emit all results of the input record as one batch, which lets network outputs select
+        // the channels and serialize the records of each channel in one pass
+        List<OUT> results =
+                completedElements instanceof List
+                        ? (List<OUT>) completedElements
+                        : new ArrayList<>(completedElements);
+        output.collectBatch(results);
     }
 
     @Override
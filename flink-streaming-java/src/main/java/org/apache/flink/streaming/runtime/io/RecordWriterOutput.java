@@ -37,6 +37,8 @@ import org.apache.flink.util.OutputTag;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -48,6 +50,15 @@ public class RecordWriterOutput<OUT> implements WatermarkGaugeExposingOutput<Str
 
     private SerializationDelegate<StreamElement> serializationDelegate;
 
+    /** The maximum number of batch serialization delegates that are kept for the next batch. */
+    private static final int MAX_REUSED_BATCH_SERIALIZATION_DELEGATES = 1024;
+
+    private final TypeSerializer<StreamElement> outRecordSerializer;
+
+    /** Serialization delegates of the records of a batch, reused across batches. */
+    private final List<SerializationDelegate<StreamElement>> batchSerializationDelegates =
+            new ArrayList<>();
+
     private final boolean supportsUnalignedCheckpoints;
 
     private final OutputTag outputTag;
@@ -70,8 +81,7 @@ public class RecordWriterOutput<OUT> implements WatermarkGaugeExposingOutput<Str
         this.recordWriter =
                 (RecordWriter<SerializationDelegate<StreamElement>>) (RecordWriter<?>) recordWriter;
 
-        TypeSerializer<StreamElement> outRecordSerializer =
-                new StreamElementSerializer<>(outSerializer);
+        this.outRecordSerializer = new StreamElementSerializer<>(outSerializer);
 
         if (outSerializer != null) {
             serializationDelegate = new SerializationDelegate<>(outRecordSerializer);
@@ -90,6 +100,42 @@ public class RecordWriterOutput<OUT> implements WatermarkGaugeExposingOutput<Str
         pushToRecordWriter(record);
     }
 
+    @Override
+    public void collectBatch(List<StreamRecord<OUT>> records) {
+        if (this.outputTag != null) {
+            // we are not responsible for emitting to the main output.
+            return;
+        }
+
+        int numRecords = records.size();
+        while (batchSerializationDelegates.size() < numRecords) {
+            batchSerializationDelegates.add(new SerializationDelegate<>(outRecordSerializer));
+        }
+        List<SerializationDelegate<StreamElement>> delegates =
+                batchSerializationDelegates.subList(0, numRecords);
+        for (int i = 0; i < numRecords; i++) {
+            delegates.get(i).setInstance(records.get(i));
+        }
+
+        try {
+            recordWriter.emitBatch(delegates);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        } finally {
+            // do not keep the records of the batch alive until the next batch
+            for (SerializationDelegate<StreamElement> delegate : delegates) {
+                delegate.setInstance(null);
+            }
+            if (batchSerializationDelegates.size() > MAX_REUSED_BATCH_SERIALIZATION_DELEGATES) {
+                batchSerializationDelegates
+                        .subList(
+                                MAX_REUSED_BATCH_SERIALIZATION_DELEGATES,
+                                batchSerializationDelegates.size())
+                        .clear();
+            }
+        }
+    }
+
     @Override
     public <X> void collect(OutputTag<X> outputTag, StreamRecord<X> record) {
         if (OutputTag.isResponsibleFor(this.outputTag, outputTag)) {
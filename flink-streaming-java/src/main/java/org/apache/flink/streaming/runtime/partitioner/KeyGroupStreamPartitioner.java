@@ -25,6 +25,7 @@ import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.util.Preconditions;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -64,6 +65,30 @@ public class KeyGroupStreamPartitioner<T, K> extends StreamPartitioner<T>
                 key, maxParallelism, numberOfChannels);
     }
 
+    @Override
+    public void selectChannels(
+            List<SerializationDelegate<StreamRecord<T>>> records, int[] targetChannels) {
+        // compute the key groups of the whole batch first, then map them to channels in a second
+        // tight loop
+        int numRecords = records.size();
+        for (int i = 0; i < numRecords; i++) {
+            T value = records.get(i).getInstance().getValue();
+            K key;
+            try {
+                key = keySelector.getKey(value);
+            } catch (Exception e) {
+                throw new RuntimeException("Could not extract key from " + value, e);
+            }
+            targetChannels[i] = KeyGroupRangeAssignment.assignToKeyGroup(key, maxParallelism);
+        }
+
+        for (int i = 0; i < numRecords; i++) {
+            targetChannels[i] =
+                    KeyGroupRangeAssignment.computeOperatorIndexForKeyGroup(
+                            maxParallelism, numberOfChannels, targetChannels[i]);
+        }
+    }
+
     @Override
     public SubtaskStateMapper getDownstreamSubtaskStateMapper() {
         return SubtaskStateMapper.RANGE;
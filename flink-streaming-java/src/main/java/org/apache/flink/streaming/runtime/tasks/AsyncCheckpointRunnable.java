@@ -27,15 +27,20 @@ import org.apache.flink.runtime.checkpoint.CheckpointMetricsBuilder;
 import org.apache.flink.runtime.checkpoint.TaskStateSnapshot;
 import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.jobgraph.OperatorID;
+import org.apache.flink.runtime.state.filemerging.FileMergingCheckpointStreamFactory;
+import org.apache.flink.runtime.state.filesystem.LocalFirstCheckpointStreamFactory;
 import org.apache.flink.runtime.taskmanager.AsyncExceptionHandler;
 import org.apache.flink.runtime.taskmanager.AsynchronousException;
 import org.apache.flink.streaming.api.operators.OperatorSnapshotFinalizer;
 import org.apache.flink.streaming.api.operators.OperatorSnapshotFutures;
 import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.IOUtils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.Closeable;
 import java.util.Map;
 import java.util.Optional;
@@ -76,6 +81,8 @@ final class AsyncCheckpointRunnable implements Runnable, Closeable {
     private final CheckpointMetaData checkpointMetaData;
     private final CheckpointMetricsBuilder checkpointMetrics;
     private final long asyncConstructionNanos;
+    @Nullable private final FileMergingCheckpointStreamFactory fileMergingStorage;
+    @Nullable private final LocalFirstCheckpointStreamFactory localFirstStorage;
     private final AtomicReference<AsyncCheckpointState> asyncCheckpointState =
             new AtomicReference<>(AsyncCheckpointState.RUNNING);
 
@@ -91,6 +98,36 @@ final class AsyncCheckpointRunnable implements Runnable, Closeable {
             boolean isTaskDeployedAsFinished,
             boolean isTaskFinished,
             Supplier<Boolean> isTaskRunning) {
+        this(
+                operatorSnapshotsInProgress,
+                checkpointMetaData,
+                checkpointMetrics,
+                asyncConstructionNanos,
+                taskName,
+                unregister,
+                taskEnvironment,
+                asyncExceptionHandler,
+                isTaskDeployedAsFinished,
+                isTaskFinished,
+                isTaskRunning,
+                null,
+                null);
+    }
+
+    AsyncCheckpointRunnable(
+            Map<OperatorID, OperatorSnapshotFutures> operatorSnapshotsInProgress,
+            CheckpointMetaData checkpointMetaData,
+            CheckpointMetricsBuilder checkpointMetrics,
+            long asyncConstructionNanos,
+            String taskName,
+            Consumer<AsyncCheckpointRunnable> unregister,
+            Environment taskEnvironment,
+            AsyncExceptionHandler asyncExceptionHandler,
+            boolean isTaskDeployedAsFinished,
+            boolean isTaskFinished,
+            Supplier<Boolean> isTaskRunning,
+            @Nullable FileMergingCheckpointStreamFactory fileMergingStorage,
+            @Nullable LocalFirstCheckpointStreamFactory localFirstStorage) {
 
         this.operatorSnapshotsInProgress = checkNotNull(operatorSnapshotsInProgress);
         this.checkpointMetaData = checkNotNull(checkpointMetaData);
@@ -103,6 +140,8 @@ final class AsyncCheckpointRunnable implements Runnable, Closeable {
         this.isTaskDeployedAsFinished = isTaskDeployedAsFinished;
         this.isTaskFinished = isTaskFinished;
         this.isTaskRunning = isTaskRunning;
+        this.fileMergingStorage = fileMergingStorage;
+        this.localFirstStorage = localFirstStorage;
     }
 
     @Override
@@ -123,12 +162,22 @@ final class AsyncCheckpointRunnable implements Runnable, Closeable {
                             ? finalizedFinishedSnapshots()
                             : finalizeNonFinishedSnapshots();
 
+            if (fileMergingStorage != null) {
+                // the merged physical files only become durable once they are closed, which has to
+                // happen before the checkpoint is acknowledged
+                fileMergingStorage.close();
+            }
+
             final long asyncEndNanos = System.nanoTime();
             final long asyncDurationMillis = (asyncEndNanos - asyncConstructionNanos) / 1_000_000L;
 
             checkpointMetrics.setBytesPersistedDuringAlignment(
                     snapshotsFinalizeResult.bytesPersistedDuringAlignment);
             checkpointMetrics.setAsyncDurationMillis(asyncDurationMillis);
+            // uploads finishing after this point are reported separately below
+            final boolean remoteUploadPending =
+                    localFirstStorage != null && localFirstStorage.hasPendingUploads();
+            checkpointMetrics.setRemoteUploadPending(remoteUploadPending);
 
             if (asyncCheckpointState.compareAndSet(
                     AsyncCheckpointState.RUNNING, AsyncCheckpointState.COMPLETED)) {
@@ -138,6 +187,10 @@ final class AsyncCheckpointRunnable implements Runnable, Closeable {
                         snapshotsFinalizeResult.localTaskOperatorSubtaskStates,
                         asyncDurationMillis);
 
+                if (localFirstStorage != null) {
+                    reportRemoteDurableOnceUploaded(localFirstStorage, remoteUploadPending);
+                }
+
             } else {
                 LOG.debug(
                         "{} - asynchronous part of checkpoint {} could not be completed because it was closed before.",
@@ -258,6 +311,39 @@ final class AsyncCheckpointRunnable implements Runnable, Closeable {
                 acknowledgedTaskStateSnapshot);
     }
 
+    private void reportRemoteDurableOnceUploaded(
+            LocalFirstCheckpointStreamFactory storage, boolean remoteUploadPending) {
+        final long checkpointId = checkpointMetaData.getCheckpointId();
+        // the local directory is removed once the future completes
+        final CompletableFuture<Void> remoteUploadFuture = storage.getRemoteUploadFuture();
+        if (!remoteUploadPending) {
+            // the job manager considers the checkpoint durable already
+            return;
+        }
+        remoteUploadFuture.whenComplete(
+                (ignored, error) -> {
+                    if (error == null) {
+                        LOG.debug(
+                                "{} - uploaded the local state of checkpoint {}.",
+                                taskName,
+                                checkpointId);
+                        taskEnvironment
+                                .getTaskStateManager()
+                                .reportRemoteDurableCheckpoint(checkpointId);
+                    } else if (isTaskRunning.get()) {
+                        // the checkpoint and all later ones, which may reuse its state files,
+                        // would never become remote durable, restart from the latest durable one
+                        asyncExceptionHandler.handleAsyncException(
+                                "Could not upload the local state of checkpoint "
+                                        + checkpointId
+                                        + " for operator "
+                                        + taskName
+                                        + '.',
+                                error);
+                    }
+                });
+    }
+
     private void reportAbortedSnapshotStats(long stateSize, long checkpointedSize) {
         CheckpointMetrics metrics =
                 checkpointMetrics
@@ -382,6 +468,14 @@ final class AsyncCheckpointRunnable implements Runnable, Closeable {
 
         Exception exception = null;
 
+        // close the merged physical files first, so that discarding the state handles below is
+        // not undone by a later close of the files
+        IOUtils.closeQuietly(fileMergingStorage);
+        if (localFirstStorage != null) {
+            // removes the local directory once the already scheduled uploads are done
+            localFirstStorage.getRemoteUploadFuture();
+        }
+
         // clean up ongoing operator snapshot results and non partitioned state handles
         long stateSize = 0, checkpointedSize = 0;
         for (OperatorSnapshotFutures operatorSnapshotResult :
@@ -21,6 +21,9 @@ import org.apache.flink.streaming.api.operators.Output;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.util.OutputTag;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Special version of {@link BroadcastingOutputCollector} that performs a shallow copy of the {@link
  * StreamRecord} to ensure that multi-chaining works correctly.
@@ -46,6 +49,23 @@ final class CopyingBroadcastingOutputCollector<T> extends BroadcastingOutputColl
         }
     }
 
+    @Override
+    public void collectBatch(List<StreamRecord<T>> records) {
+        for (int i = 0; i < outputs.length - 1; i++) {
+            Output<StreamRecord<T>> output = outputs[i];
+            List<StreamRecord<T>> shallowCopies = new ArrayList<>(records.size());
+            for (StreamRecord<T> record : records) {
+                shallowCopies.add(record.copy(record.getValue()));
+            }
+            output.collectBatch(shallowCopies);
+        }
+
+        if (outputs.length > 0) {
+            // don't copy for the last output
+            outputs[outputs.length - 1].collectBatch(records);
+        }
+    }
+
     @Override
     public <X> void collect(OutputTag<X> outputTag, StreamRecord<X> record) {
         for (int i = 0; i < outputs.length - 1; i++) {
@@ -22,6 +22,7 @@ import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.operators.MailboxExecutor;
 import org.apache.flink.api.common.operators.ProcessingTimeService.ProcessingTimeCallback;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
 import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.fs.AutoCloseableRegistry;
 import org.apache.flink.core.fs.CloseableRegistry;
@@ -75,6 +76,7 @@ import org.apache.flink.runtime.taskmanager.AsyncExceptionHandler;
 import org.apache.flink.runtime.taskmanager.AsynchronousException;
 import org.apache.flink.runtime.taskmanager.DispatcherThreadFactory;
 import org.apache.flink.runtime.taskmanager.Task;
+import org.apache.flink.runtime.util.ConfigurationParserUtils;
 import org.apache.flink.streaming.api.TimeCharacteristic;
 import org.apache.flink.streaming.api.environment.ExecutionCheckpointingOptions;
 import org.apache.flink.streaming.api.graph.StreamConfig;
@@ -433,6 +435,7 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
                             environment,
                             this,
                             configuration.isUnalignedCheckpointsEnabled(),
+                            configuration.getMaxSubtasksPerChannelStateFile(),
                             configuration
                                     .getConfiguration()
                                     .get(
@@ -1617,11 +1620,19 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
             }
         }
 
+        Configuration taskManagerConfig = environment.getTaskManagerInfo().getConfiguration();
         RecordWriter<SerializationDelegate<StreamRecord<OUT>>> output =
                 new RecordWriterBuilder<SerializationDelegate<StreamRecord<OUT>>>()
                         .setChannelSelector(outputPartitioner)
                         .setTimeout(bufferTimeout)
                         .setTaskName(taskNameWithSubtask)
+                        .setDirectSerialization(
+                                taskManagerConfig.get(
+                                        NettyShuffleEnvironmentOptions
+                                                .NETWORK_DIRECT_RECORD_SERIALIZATION_ENABLED))
+                        // flush a channel once batches filled about a network buffer of it
+                        .setBatchFlushThreshold(
+                                ConfigurationParserUtils.getPageSize(taskManagerConfig))
                         .build(bufferWriter);
         output.setMetricGroup(environment.getMetricGroup().getIOMetricGroup());
         return output;
@@ -35,19 +35,25 @@ import org.apache.flink.runtime.state.CheckpointStateToolset;
 import org.apache.flink.runtime.state.CheckpointStorageLocationReference;
 import org.apache.flink.runtime.state.CheckpointStorageWorkerView;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.LocalRecoveryDirectoryProvider;
+import org.apache.flink.runtime.state.filemerging.FileMergingCheckpointStreamFactory;
+import org.apache.flink.runtime.state.filesystem.LocalFirstCheckpointStreamFactory;
 import org.apache.flink.runtime.taskmanager.AsyncExceptionHandler;
 import org.apache.flink.runtime.taskmanager.Task;
 import org.apache.flink.streaming.api.operators.OperatorSnapshotFutures;
 import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.concurrent.ExecutorThreadFactory;
 import org.apache.flink.util.function.BiFunctionWithException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -56,11 +62,16 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -76,6 +87,9 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
 
     private static final int CHECKPOINT_EXECUTION_DELAY_LOG_THRESHOLD_MS = 30_000;
 
+    /** The maximum number of state files of local-first checkpoints uploaded concurrently. */
+    private static final int MAX_CONCURRENT_LOCAL_FIRST_UPLOADS = 4;
+
     private final boolean enableCheckpointAfterTasksFinished;
 
     private final CachingCheckpointStorageWorkerView checkpointStorage;
@@ -103,6 +117,11 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
     @GuardedBy("lock")
     private boolean closed;
 
+    /** Uploads the state files of local-first checkpoints, created on first use. */
+    @GuardedBy("lock")
+    @Nullable
+    private ExecutorService localFirstUploadExecutor;
+
     SubtaskCheckpointCoordinatorImpl(
             CheckpointStorageWorkerView checkpointStorage,
             String taskName,
@@ -112,6 +131,7 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
             Environment env,
             AsyncExceptionHandler asyncExceptionHandler,
             boolean unalignedCheckpointEnabled,
+            int maxSubtasksPerChannelStateFile,
             boolean enableCheckpointAfterTasksFinished,
             BiFunctionWithException<
                             ChannelStateWriter, Long, CompletableFuture<Void>, CheckpointException>
@@ -128,7 +148,8 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
                 unalignedCheckpointEnabled,
                 enableCheckpointAfterTasksFinished,
                 prepareInputSnapshot,
-                DEFAULT_MAX_RECORD_ABORTED_CHECKPOINTS);
+                DEFAULT_MAX_RECORD_ABORTED_CHECKPOINTS,
+                maxSubtasksPerChannelStateFile);
     }
 
     SubtaskCheckpointCoordinatorImpl(
@@ -146,6 +167,37 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
                     prepareInputSnapshot,
             int maxRecordAbortedCheckpoints)
             throws IOException {
+        this(
+                checkpointStorage,
+                taskName,
+                actionExecutor,
+                closeableRegistry,
+                asyncOperationsThreadPool,
+                env,
+                asyncExceptionHandler,
+                unalignedCheckpointEnabled,
+                enableCheckpointAfterTasksFinished,
+                prepareInputSnapshot,
+                maxRecordAbortedCheckpoints,
+                1);
+    }
+
+    private SubtaskCheckpointCoordinatorImpl(
+            CheckpointStorageWorkerView checkpointStorage,
+            String taskName,
+            StreamTaskActionExecutor actionExecutor,
+            CloseableRegistry closeableRegistry,
+            ExecutorService asyncOperationsThreadPool,
+            Environment env,
+            AsyncExceptionHandler asyncExceptionHandler,
+            boolean unalignedCheckpointEnabled,
+            boolean enableCheckpointAfterTasksFinished,
+            BiFunctionWithException<
+                            ChannelStateWriter, Long, CompletableFuture<Void>, CheckpointException>
+                    prepareInputSnapshot,
+            int maxRecordAbortedCheckpoints,
+            int maxSubtasksPerChannelStateFile)
+            throws IOException {
         this(
                 checkpointStorage,
                 taskName,
@@ -157,7 +209,8 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
                 prepareInputSnapshot,
                 maxRecordAbortedCheckpoints,
                 unalignedCheckpointEnabled
-                        ? openChannelStateWriter(taskName, checkpointStorage, env)
+                        ? openChannelStateWriter(
+                                taskName, checkpointStorage, env, maxSubtasksPerChannelStateFile)
                         : ChannelStateWriter.NO_OP,
                 enableCheckpointAfterTasksFinished);
     }
@@ -198,10 +251,19 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
     }
 
     private static ChannelStateWriter openChannelStateWriter(
-            String taskName, CheckpointStorageWorkerView checkpointStorage, Environment env) {
+            String taskName,
+            CheckpointStorageWorkerView checkpointStorage,
+            Environment env,
+            int maxSubtasksPerChannelStateFile) {
         ChannelStateWriterImpl writer =
                 new ChannelStateWriterImpl(
-                        taskName, env.getTaskInfo().getIndexOfThisSubtask(), checkpointStorage);
+                        env.getJobID(),
+                        env.getJobVertexId(),
+                        taskName,
+                        env.getTaskInfo().getIndexOfThisSubtask(),
+                        checkpointStorage,
+                        maxSubtasksPerChannelStateFile);
+        writer.registerMetrics(env.getMetricGroup());
         writer.open();
         return writer;
     }
@@ -282,6 +344,7 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
             // broadcast cancel checkpoint marker to avoid downstream back-pressure due to
             // checkpoint barrier align.
             operatorChain.broadcastEvent(new CancelCheckpointMarker(metadata.getCheckpointId()));
+            channelStateWriter.skipCheckpoint(metadata.getCheckpointId());
             LOG.info(
                     "Checkpoint {} has been notified as aborted, would not trigger any checkpoint.",
                     metadata.getCheckpointId());
@@ -294,6 +357,10 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
             options = options.withUnalignedSupported();
             initInputsCheckpoint(metadata.getCheckpointId(), options);
         }
+        if (!options.isUnalignedCheckpoint()) {
+            // let subtasks sharing channel state files with this one not wait for it
+            channelStateWriter.skipCheckpoint(metadata.getCheckpointId());
+        }
 
         // Step (1): Prepare the checkpoint, allow operators to do some pre-barrier work.
         //           The pre-barrier work should be nothing or minimal in the common case.
@@ -316,21 +383,41 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
 
         Map<OperatorID, OperatorSnapshotFutures> snapshotFutures =
                 new HashMap<>(operatorChain.getNumberOfOperators());
+        FileMergingCheckpointStreamFactory fileMergingStorage = null;
+        LocalFirstCheckpointStreamFactory localFirstStorage = null;
         try {
+            fileMergingStorage =
+                    checkpointStorage.resolveFileMergingCheckpointStorageLocation(
+                            metadata.getCheckpointId(), options.getTargetLocation());
+            if (fileMergingStorage == null) {
+                localFirstStorage = resolveLocalFirstStorage(metadata.getCheckpointId(), options);
+            }
             if (takeSnapshotSync(
-                    snapshotFutures, metadata, metrics, options, operatorChain, isRunning)) {
+                    snapshotFutures,
+                    metadata,
+                    metrics,
+                    options,
+                    operatorChain,
+                    fileMergingStorage != null ? fileMergingStorage : localFirstStorage,
+                    isRunning)) {
                 finishAndReportAsync(
                         snapshotFutures,
                         metadata,
                         metrics,
+                        fileMergingStorage,
+                        localFirstStorage,
                         operatorChain.isTaskDeployedAsFinished(),
                         isTaskFinished,
                         isRunning);
             } else {
                 cleanup(snapshotFutures, metadata, metrics, new Exception("Checkpoint declined"));
+                closeQuietly(fileMergingStorage);
+                discardLocalFirstStorage(localFirstStorage);
             }
         } catch (Exception ex) {
             cleanup(snapshotFutures, metadata, metrics, ex);
+            closeQuietly(fileMergingStorage);
+            discardLocalFirstStorage(localFirstStorage);
             throw ex;
         }
     }
@@ -470,14 +557,21 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
     @Override
     public void close() throws IOException {
         List<AsyncCheckpointRunnable> asyncCheckpointRunnables = null;
+        ExecutorService uploadExecutor = null;
         synchronized (lock) {
             if (!closed) {
                 closed = true;
                 asyncCheckpointRunnables = new ArrayList<>(checkpoints.values());
                 checkpoints.clear();
+                uploadExecutor = localFirstUploadExecutor;
             }
         }
         IOUtils.closeAllQuietly(asyncCheckpointRunnables);
+        if (uploadExecutor != null) {
+            // the uploads of checkpoints which are not remote durable yet are lost, the job
+            // manager falls back to the latest remote durable checkpoint
+            uploadExecutor.shutdownNow();
+        }
         channelStateWriter.close();
     }
 
@@ -587,6 +681,8 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
             Map<OperatorID, OperatorSnapshotFutures> snapshotFutures,
             CheckpointMetaData metadata,
             CheckpointMetricsBuilder metrics,
+            @Nullable FileMergingCheckpointStreamFactory fileMergingStorage,
+            @Nullable LocalFirstCheckpointStreamFactory localFirstStorage,
             boolean isTaskDeployedAsFinished,
             boolean isTaskFinished,
             Supplier<Boolean> isRunning)
@@ -603,7 +699,9 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
                         asyncExceptionHandler,
                         isTaskDeployedAsFinished,
                         isTaskFinished,
-                        isRunning);
+                        isRunning,
+                        fileMergingStorage,
+                        localFirstStorage);
 
         registerAsyncCheckpointRunnable(
                 asyncCheckpointRunnable.getCheckpointId(), asyncCheckpointRunnable);
@@ -624,6 +722,7 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
             CheckpointMetricsBuilder checkpointMetrics,
             CheckpointOptions checkpointOptions,
             OperatorChain<?, ?> operatorChain,
+            @Nullable CheckpointStreamFactory preResolvedStorage,
             Supplier<Boolean> isRunning)
             throws Exception {
 
@@ -640,8 +739,10 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
                         : ChannelStateWriteResult.EMPTY;
 
         CheckpointStreamFactory storage =
-                checkpointStorage.resolveCheckpointStorageLocation(
-                        checkpointId, checkpointOptions.getTargetLocation());
+                preResolvedStorage != null
+                        ? preResolvedStorage
+                        : checkpointStorage.resolveCheckpointStorageLocation(
+                                checkpointId, checkpointOptions.getTargetLocation());
 
         try {
             operatorChain.snapshotState(
@@ -669,6 +770,69 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
         return true;
     }
 
+    /**
+     * Resolves the storage that writes the state files of a checkpoint to the local recovery
+     * directory first, if the checkpoint storage supports it and local recovery is enabled.
+     */
+    @Nullable
+    private LocalFirstCheckpointStreamFactory resolveLocalFirstStorage(
+            long checkpointId, CheckpointOptions options) throws IOException {
+        if (options.getCheckpointType().isSavepoint()) {
+            return null;
+        }
+        final Optional<LocalRecoveryDirectoryProvider> directoryProvider =
+                env.getTaskStateManager()
+                        .createLocalRecoveryConfig()
+                        .getLocalStateDirectoryProvider();
+        if (!directoryProvider.isPresent()) {
+            return null;
+        }
+        // not in the checkpoint specific directory, which is pruned by the local state store
+        // independently of the pending uploads
+        final File localDirectory =
+                new File(
+                        directoryProvider.get().subtaskBaseDirectory(checkpointId),
+                        "local_first_chk_" + checkpointId);
+        return checkpointStorage.resolveLocalFirstCheckpointStorageLocation(
+                checkpointId,
+                options.getTargetLocation(),
+                localDirectory,
+                getLocalFirstUploadExecutor());
+    }
+
+    /**
+     * Returns the executor for the uploads of local-first checkpoints. It has a fixed number of
+     * threads, so that a checkpoint with many state files does not start a thread per file.
+     */
+    private Executor getLocalFirstUploadExecutor() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                throw new IOException("The subtask checkpoint coordinator is closed.");
+            }
+            if (localFirstUploadExecutor == null) {
+                final ThreadPoolExecutor executor =
+                        new ThreadPoolExecutor(
+                                MAX_CONCURRENT_LOCAL_FIRST_UPLOADS,
+                                MAX_CONCURRENT_LOCAL_FIRST_UPLOADS,
+                                60L,
+                                TimeUnit.SECONDS,
+                                new LinkedBlockingQueue<>(),
+                                new ExecutorThreadFactory("LocalFirstUpload for " + taskName));
+                executor.allowCoreThreadTimeOut(true);
+                localFirstUploadExecutor = executor;
+            }
+            return localFirstUploadExecutor;
+        }
+    }
+
+    private static void discardLocalFirstStorage(
+            @Nullable LocalFirstCheckpointStreamFactory localFirstStorage) {
+        if (localFirstStorage != null) {
+            // removes the local directory once the already scheduled uploads are done
+            localFirstStorage.getRemoteUploadFuture();
+        }
+    }
+
     private Set<Long> createAbortedCheckpointSetWithLimitSize(int maxRecordAbortedCheckpoints) {
         return Collections.newSetFromMap(
                 new LinkedHashMap<Long, Boolean>() {
@@ -714,6 +878,26 @@ class SubtaskCheckpointCoordinatorImpl implements SubtaskCheckpointCoordinator {
                     });
         }
 
+        @Nullable
+        @Override
+        public FileMergingCheckpointStreamFactory resolveFileMergingCheckpointStorageLocation(
+                long checkpointId, CheckpointStorageLocationReference reference)
+                throws IOException {
+            return delegate.resolveFileMergingCheckpointStorageLocation(checkpointId, reference);
+        }
+
+        @Nullable
+        @Override
+        public LocalFirstCheckpointStreamFactory resolveLocalFirstCheckpointStorageLocation(
+                long checkpointId,
+                CheckpointStorageLocationReference reference,
+                File localDirectory,
+                Executor uploadExecutor)
+                throws IOException {
+            return delegate.resolveLocalFirstCheckpointStorageLocation(
+                    checkpointId, reference, localDirectory, uploadExecutor);
+        }
+
         @Override
         public CheckpointStateOutputStream createTaskOwnedStateStream() throws IOException {
             return delegate.createTaskOwnedStateStream();
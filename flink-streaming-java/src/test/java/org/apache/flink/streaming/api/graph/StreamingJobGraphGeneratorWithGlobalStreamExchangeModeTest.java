@@ -72,6 +72,28 @@ public class StreamingJobGraphGeneratorWithGlobalStreamExchangeModeTest extends
                 map2Vertex.getProducedDataSets().get(0).getResultType());
     }
 
+    @Test
+    public void testAllEdgesHybridMode() {
+        final StreamGraph streamGraph =
+                createStreamGraph(GlobalStreamExchangeMode.ALL_EDGES_HYBRID);
+        final JobGraph jobGraph = StreamingJobGraphGenerator.createJobGraph(streamGraph);
+
+        final List<JobVertex> verticesSorted = jobGraph.getVerticesSortedTopologicallyFromSources();
+        final JobVertex sourceVertex = verticesSorted.get(0);
+        final JobVertex map1Vertex = verticesSorted.get(1);
+        final JobVertex map2Vertex = verticesSorted.get(2);
+
+        assertEquals(
+                ResultPartitionType.HYBRID,
+                sourceVertex.getProducedDataSets().get(0).getResultType());
+        assertEquals(
+                ResultPartitionType.HYBRID,
+                map1Vertex.getProducedDataSets().get(0).getResultType());
+        assertEquals(
+                ResultPartitionType.HYBRID,
+                map2Vertex.getProducedDataSets().get(0).getResultType());
+    }
+
     @Test
     public void testAllEdgesPipelinedMode() {
         final StreamGraph streamGraph = createStreamGraph();
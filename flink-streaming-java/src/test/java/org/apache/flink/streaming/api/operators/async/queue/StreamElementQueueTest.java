@@ -20,8 +20,11 @@ package org.apache.flink.streaming.api.operators.async.queue;
 
 import org.apache.flink.streaming.api.datastream.AsyncDataStream;
 import org.apache.flink.streaming.api.functions.async.ResultFuture;
+import org.apache.flink.streaming.api.operators.TimestampedCollector;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.CollectorOutput;
 import org.apache.flink.util.Preconditions;
 import org.apache.flink.util.TestLogger;
 
@@ -30,9 +33,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import static org.apache.flink.streaming.api.operators.async.queue.QueueUtil.popCompleted;
 import static org.apache.flink.streaming.api.operators.async.queue.QueueUtil.putSuccessfully;
@@ -112,6 +117,35 @@ public class StreamElementQueueTest extends TestLogger {
         assertTrue(queue.isEmpty());
     }
 
+    /** Tests that the results of an input record are emitted as one batch with its timestamp. */
+    @Test
+    public void testResultsAreEmittedAsBatch() {
+        StreamElementQueue<Integer> queue = createStreamElementQueue(1);
+        putSuccessfully(queue, new StreamRecord<>(42, 1L)).complete(Arrays.asList(1, 2, 3));
+
+        final List<StreamElement> collected = new ArrayList<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+        TimestampedCollector<Integer> collector =
+                new TimestampedCollector<>(
+                        new CollectorOutput<Integer>(collected) {
+                            @Override
+                            public void collectBatch(List<StreamRecord<Integer>> records) {
+                                batchSizes.add(records.size());
+                                super.collectBatch(records);
+                            }
+                        });
+        queue.emitCompletedElement(collector);
+
+        assertEquals(Collections.singletonList(3), batchSizes);
+        assertEquals(
+                Arrays.asList(
+                        new StreamRecord<>(1, 1L),
+                        new StreamRecord<>(2, 1L),
+                        new StreamRecord<>(3, 1L)),
+                collected);
+        assertTrue(queue.isEmpty());
+    }
+
     /** Tests that a put operation fails if the queue is full. */
     @Test
     public void testPutOnFull() throws Exception {
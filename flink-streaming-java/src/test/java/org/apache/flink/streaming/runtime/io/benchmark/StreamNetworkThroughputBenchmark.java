@@ -19,6 +19,7 @@
 package org.apache.flink.streaming.runtime.io.benchmark;
 
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
 import org.apache.flink.runtime.io.network.api.writer.RecordWriterBuilder;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.streaming.runtime.partitioner.BroadcastPartitioner;
@@ -117,7 +118,12 @@ public class StreamNetworkThroughputBenchmark {
             ResultPartitionWriter resultPartitionWriter =
                     environment.createResultPartitionWriter(writer);
             RecordWriterBuilder recordWriterBuilder =
-                    new RecordWriterBuilder().setTimeout(flushTimeout);
+                    new RecordWriterBuilder()
+                            .setTimeout(flushTimeout)
+                            .setDirectSerialization(
+                                    config.get(
+                                            NettyShuffleEnvironmentOptions
+                                                    .NETWORK_DIRECT_RECORD_SERIALIZATION_ENABLED));
             setChannelSelector(recordWriterBuilder, broadcastMode);
             writerThreads[writer] =
                     new LongRecordWriterThread(
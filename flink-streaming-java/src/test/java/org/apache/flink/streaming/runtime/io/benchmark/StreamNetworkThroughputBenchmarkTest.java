@@ -18,6 +18,7 @@
 
 package org.apache.flink.streaming.runtime.io.benchmark;
 
+import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
 
 import org.junit.Rule;
@@ -45,6 +46,20 @@ public class StreamNetworkThroughputBenchmarkTest {
         }
     }
 
+    @Test
+    public void pointToPointBenchmarkWithDirectSerialization() throws Exception {
+        StreamNetworkThroughputBenchmark benchmark = createBenchmark();
+        Configuration config = new Configuration();
+        config.set(
+                NettyShuffleEnvironmentOptions.NETWORK_DIRECT_RECORD_SERIALIZATION_ENABLED, true);
+        benchmark.setUp(1, 1, 100, false, false, -1, -1, config);
+        try {
+            benchmark.executeBenchmark(1_000);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
     @Test
     public void largeLocalMode() throws Exception {
         StreamNetworkThroughputBenchmark env = new StreamNetworkThroughputBenchmark();
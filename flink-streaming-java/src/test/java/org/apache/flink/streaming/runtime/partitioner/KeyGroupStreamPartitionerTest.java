@@ -26,6 +26,9 @@ import org.apache.flink.util.TestLogger;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 
 /** Tests for {@link KeyGroupStreamPartitioner}. */
@@ -73,6 +76,27 @@ public class KeyGroupStreamPartitionerTest extends TestLogger {
                 selectChannels(serializationDelegate2, 1024));
     }
 
+    @Test
+    public void testSelectChannelsOfBatch() {
+        int numberOfChannels = 7;
+        keyGroupPartitioner.setup(numberOfChannels);
+
+        List<SerializationDelegate<StreamRecord<Tuple2<String, Integer>>>> records =
+                new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            SerializationDelegate<StreamRecord<Tuple2<String, Integer>>> record =
+                    new SerializationDelegate<>(null);
+            record.setInstance(new StreamRecord<>(new Tuple2<>("key-" + i, i)));
+            records.add(record);
+        }
+
+        int[] targetChannels = new int[records.size()];
+        keyGroupPartitioner.selectChannels(records, targetChannels);
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(keyGroupPartitioner.selectChannel(records.get(i)), targetChannels[i]);
+        }
+    }
+
     private int selectChannels(
             SerializationDelegate<StreamRecord<Tuple2<String, Integer>>> serializationDelegate,
             int numberOfChannels) {
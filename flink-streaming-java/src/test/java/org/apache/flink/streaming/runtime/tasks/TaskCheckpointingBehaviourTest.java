@@ -272,6 +272,10 @@ public class TaskCheckpointingBehaviourTest extends TestLogger {
                 long checkpointId,
                 CheckpointMetrics checkpointMetrics) {}
 
+        @Override
+        public void acknowledgeRemoteDurableCheckpoint(
+                JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId) {}
+
         @Override
         public void declineCheckpoint(
                 JobID jobID,
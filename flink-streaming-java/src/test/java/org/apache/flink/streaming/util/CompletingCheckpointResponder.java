@@ -88,6 +88,10 @@ public class CompletingCheckpointResponder implements CheckpointResponder {
             long checkpointId,
             CheckpointMetrics checkpointMetrics) {}
 
+    @Override
+    public void acknowledgeRemoteDurableCheckpoint(
+            JobID jobID, ExecutionAttemptID executionAttemptID, long checkpointId) {}
+
     @Override
     public void declineCheckpoint(
             JobID jobID,
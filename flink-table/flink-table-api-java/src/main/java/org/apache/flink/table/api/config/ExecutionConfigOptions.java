@@ -220,6 +220,16 @@ public class ExecutionConfigOptions {
                                     + "The larger the memory, the higher the compression ratio, "
                                     + "but more memory resource will be consumed by the job.");
 
+    @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH)
+    public static final ConfigOption<String> TABLE_EXEC_SPILL_COMPRESSION_CODEC =
+            key("table.exec.spill-compression.codec")
+                    .stringType()
+                    .defaultValue("LZ4")
+                    .withDescription(
+                            "The codec used to compress spilled data, either \"LZ4\", \"ZSTD\" "
+                                    + "or \"SNAPPY\". ZSTD achieves the highest compression ratio "
+                                    + "at the cost of more CPU time.");
+
     // ------------------------------------------------------------------------
     //  Resource Options
     // ------------------------------------------------------------------------
@@ -144,13 +144,12 @@ public abstract class BaseHybridHashTable implements MemorySegmentPool {
             long buildRowCount,
             boolean tryDistinctBuildRow) {
 
-        // TODO: read compression config from configuration
         this.compressionEnable =
                 conf.getBoolean(ExecutionConfigOptions.TABLE_EXEC_SPILL_COMPRESSION_ENABLED);
         this.compressionCodecFactory =
                 this.compressionEnable
                         ? BlockCompressionFactory.createBlockCompressionFactory(
-                                BlockCompressionFactory.CompressionFactoryName.LZ4.toString())
+                                conf.get(ExecutionConfigOptions.TABLE_EXEC_SPILL_COMPRESSION_CODEC))
                         : null;
         this.compressionBlockSize =
                 (int)
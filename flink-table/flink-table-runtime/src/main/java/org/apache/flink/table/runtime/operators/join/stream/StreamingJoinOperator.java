@@ -18,6 +18,7 @@
 
 package org.apache.flink.table.runtime.operators.join.stream;
 
+import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.table.data.GenericRowData;
 import org.apache.flink.table.data.RowData;
@@ -32,6 +33,9 @@ import org.apache.flink.table.runtime.operators.join.stream.state.OuterJoinRecor
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
 import org.apache.flink.types.RowKind;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /** Streaming unbounded Join operator which supports INNER/LEFT/RIGHT/FULL JOIN. */
 public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
 
@@ -86,6 +90,7 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
             this.leftRecordStateView =
                     OuterJoinRecordStateViews.create(
                             getRuntimeContext(),
+                            getKeyedStateBackend(),
                             "left-records",
                             leftInputSideSpec,
                             leftType,
@@ -104,6 +109,7 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
             this.rightRecordStateView =
                     OuterJoinRecordStateViews.create(
                             getRuntimeContext(),
+                            getKeyedStateBackend(),
                             "right-records",
                             rightInputSideSpec,
                             rightType,
@@ -223,6 +229,8 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
                     if (otherIsOuter) { // other side is outer
                         OuterJoinRecordStateView otherSideOuterStateView =
                                 (OuterJoinRecordStateView) otherSideStateView;
+                        List<Tuple2<RowData, Integer>> otherUpdates =
+                                new ArrayList<>(associatedRecords.size());
                         for (OuterRecord outerRecord : associatedRecords.getOuterRecords()) {
                             RowData other = outerRecord.record;
                             // if the matched num in the matched rows == 0
@@ -232,9 +240,9 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
                                 outputNullPadding(other, !inputIsLeft);
                             } // ignore matched number > 0
                             // otherState.update(other, old + 1)
-                            otherSideOuterStateView.updateNumOfAssociations(
-                                    other, outerRecord.numOfAssociations + 1);
+                            otherUpdates.add(Tuple2.of(other, outerRecord.numOfAssociations + 1));
                         }
+                        otherSideOuterStateView.updateNumOfAssociations(otherUpdates);
                     }
                     // send +I[record+other]s
                     outRow.setRowKind(RowKind.INSERT);
@@ -251,6 +259,8 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
                     if (otherIsOuter) { // if other side is outer
                         OuterJoinRecordStateView otherSideOuterStateView =
                                 (OuterJoinRecordStateView) otherSideStateView;
+                        List<Tuple2<RowData, Integer>> otherUpdates =
+                                new ArrayList<>(associatedRecords.size());
                         for (OuterRecord outerRecord : associatedRecords.getOuterRecords()) {
                             if (outerRecord.numOfAssociations
                                     == 0) { // if the matched num in the matched rows == 0
@@ -259,9 +269,11 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
                                 outputNullPadding(outerRecord.record, !inputIsLeft);
                             }
                             // otherState.update(other, old + 1)
-                            otherSideOuterStateView.updateNumOfAssociations(
-                                    outerRecord.record, outerRecord.numOfAssociations + 1);
+                            otherUpdates.add(
+                                    Tuple2.of(
+                                            outerRecord.record, outerRecord.numOfAssociations + 1));
                         }
+                        otherSideOuterStateView.updateNumOfAssociations(otherUpdates);
                         // send +I[record+other]s
                         outRow.setRowKind(RowKind.INSERT);
                     } else {
@@ -299,6 +311,8 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
                 if (otherIsOuter) {
                     OuterJoinRecordStateView otherSideOuterStateView =
                             (OuterJoinRecordStateView) otherSideStateView;
+                    List<Tuple2<RowData, Integer>> otherUpdates =
+                            new ArrayList<>(associatedRecords.size());
                     for (OuterRecord outerRecord : associatedRecords.getOuterRecords()) {
                         if (outerRecord.numOfAssociations == 1) {
                             // send +I[null+other]
@@ -306,9 +320,10 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
                             outputNullPadding(outerRecord.record, !inputIsLeft);
                         } // nothing else to do when number of associations > 1
                         // otherState.update(other, old - 1)
-                        otherSideOuterStateView.updateNumOfAssociations(
-                                outerRecord.record, outerRecord.numOfAssociations - 1);
+                        otherUpdates.add(
+                                Tuple2.of(outerRecord.record, outerRecord.numOfAssociations - 1));
                     }
+                    otherSideOuterStateView.updateNumOfAssociations(otherUpdates);
                 }
             }
         }
@@ -18,6 +18,7 @@
 
 package org.apache.flink.table.runtime.operators.join.stream;
 
+import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.data.util.RowDataUtil;
@@ -30,6 +31,9 @@ import org.apache.flink.table.runtime.operators.join.stream.state.OuterJoinRecor
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
 import org.apache.flink.types.RowKind;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /** Streaming unbounded Join operator which supports SEMI/ANTI JOIN. */
 public class StreamingSemiAntiJoinOperator extends AbstractStreamingJoinOperator {
 
@@ -70,6 +74,7 @@ public class StreamingSemiAntiJoinOperator extends AbstractStreamingJoinOperator
         this.leftRecordStateView =
                 OuterJoinRecordStateViews.create(
                         getRuntimeContext(),
+                        getKeyedStateBackend(),
                         LEFT_RECORDS_STATE_NAME,
                         leftInputSideSpec,
                         leftType,
@@ -172,6 +177,8 @@ public class StreamingSemiAntiJoinOperator extends AbstractStreamingJoinOperator
             rightRecordStateView.addRecord(input);
             if (!associatedRecords.isEmpty()) {
                 // there are matched rows on the other side
+                List<Tuple2<RowData, Integer>> leftUpdates =
+                        new ArrayList<>(associatedRecords.size());
                 for (OuterRecord outerRecord : associatedRecords.getOuterRecords()) {
                     RowData other = outerRecord.record;
                     if (outerRecord.numOfAssociations == 0) {
@@ -186,14 +193,16 @@ public class StreamingSemiAntiJoinOperator extends AbstractStreamingJoinOperator
                         // set header back to INSERT, because we will update the other row to state
                         other.setRowKind(RowKind.INSERT);
                     } // ignore when number > 0
-                    leftRecordStateView.updateNumOfAssociations(
-                            other, outerRecord.numOfAssociations + 1);
+                    leftUpdates.add(Tuple2.of(other, outerRecord.numOfAssociations + 1));
                 }
+                leftRecordStateView.updateNumOfAssociations(leftUpdates);
             } // ignore when associated number == 0
         } else { // retract input
             rightRecordStateView.retractRecord(input);
             if (!associatedRecords.isEmpty()) {
                 // there are matched rows on the other side
+                List<Tuple2<RowData, Integer>> leftUpdates =
+                        new ArrayList<>(associatedRecords.size());
                 for (OuterRecord outerRecord : associatedRecords.getOuterRecords()) {
                     RowData other = outerRecord.record;
                     if (outerRecord.numOfAssociations == 1) {
@@ -208,9 +217,9 @@ public class StreamingSemiAntiJoinOperator extends AbstractStreamingJoinOperator
                         // set RowKind back, because we will update the other row to state
                         other.setRowKind(RowKind.INSERT);
                     } // ignore when number > 0
-                    leftRecordStateView.updateNumOfAssociations(
-                            other, outerRecord.numOfAssociations - 1);
+                    leftUpdates.add(Tuple2.of(other, outerRecord.numOfAssociations - 1));
                 }
+                leftRecordStateView.updateNumOfAssociations(leftUpdates);
             } // ignore when associated number == 0
         }
     }
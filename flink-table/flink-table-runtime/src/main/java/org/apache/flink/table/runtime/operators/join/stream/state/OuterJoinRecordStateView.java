@@ -21,6 +21,8 @@ package org.apache.flink.table.runtime.operators.join.stream.state;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.table.data.RowData;
 
+import java.util.List;
+
 /**
  * A {@link OuterJoinRecordStateView} is an extension to {@link JoinRecordStateView}. The {@link
  * OuterJoinRecordStateView} is used to store records for the outer input side of the Join, e.g. the
@@ -50,6 +52,21 @@ public interface OuterJoinRecordStateView extends JoinRecordStateView {
      */
     void updateNumOfAssociations(RowData record, int numOfAssociations) throws Exception;
 
+    /**
+     * Updates the number of associations belongs to each of the records. This has the same effect
+     * as calling {@link #updateNumOfAssociations(RowData, int)} for each of the records in order,
+     * but the view may read the state of all records in one batch.
+     *
+     * @param recordsAndNumOfAssociations the records to update with their new number of records
+     *     associated with other side
+     */
+    default void updateNumOfAssociations(List<Tuple2<RowData, Integer>> recordsAndNumOfAssociations)
+            throws Exception {
+        for (Tuple2<RowData, Integer> recordAndNumOfAssociations : recordsAndNumOfAssociations) {
+            updateNumOfAssociations(recordAndNumOfAssociations.f0, recordAndNumOfAssociations.f1);
+        }
+    }
+
     /**
      * Gets all the records and number of associations under the current context (i.e. join key).
      */
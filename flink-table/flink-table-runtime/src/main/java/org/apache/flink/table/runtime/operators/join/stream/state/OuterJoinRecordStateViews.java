@@ -28,12 +28,18 @@ import org.apache.flink.api.common.typeinfo.Types;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.api.java.typeutils.TupleTypeInfo;
+import org.apache.flink.runtime.state.KeyedStateBackend;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.internal.InternalMapState;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.IterableIterator;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -46,6 +52,7 @@ public final class OuterJoinRecordStateViews {
     /** Creates a {@link OuterJoinRecordStateView} depends on {@link JoinInputSideSpec}. */
     public static OuterJoinRecordStateView create(
             RuntimeContext ctx,
+            KeyedStateBackend<?> keyedStateBackend,
             String stateName,
             JoinInputSideSpec inputSideSpec,
             InternalTypeInfo<RowData> recordType,
@@ -66,7 +73,7 @@ public final class OuterJoinRecordStateViews {
             }
         } else {
             return new OuterJoinRecordStateViews.InputSideHasNoUniqueKey(
-                    ctx, stateName, recordType, ttlConfig);
+                    ctx, keyedStateBackend, stateName, recordType, ttlConfig);
         }
     }
 
@@ -207,8 +214,14 @@ public final class OuterJoinRecordStateViews {
         // stores record in the mapping <Record, <appear-times, associated-num>>
         private final MapState<RowData, Tuple2<Integer, Integer>> recordState;
 
+        // the same state as the record state, used for batched lookups
+        private final InternalMapState<?, VoidNamespace, RowData, Tuple2<Integer, Integer>>
+                internalRecordState;
+
+        @SuppressWarnings("unchecked")
         private InputSideHasNoUniqueKey(
                 RuntimeContext ctx,
+                KeyedStateBackend<?> keyedStateBackend,
                 String stateName,
                 InternalTypeInfo<RowData> recordType,
                 StateTtlConfig ttlConfig) {
@@ -220,6 +233,16 @@ public final class OuterJoinRecordStateViews {
                 recordStateDesc.enableTimeToLive(ttlConfig);
             }
             this.recordState = ctx.getMapState(recordStateDesc);
+            try {
+                this.internalRecordState =
+                        (InternalMapState<?, VoidNamespace, RowData, Tuple2<Integer, Integer>>)
+                                keyedStateBackend.getPartitionedState(
+                                        VoidNamespace.INSTANCE,
+                                        VoidNamespaceSerializer.INSTANCE,
+                                        recordStateDesc);
+            } catch (Exception e) {
+                throw new FlinkRuntimeException("Error while getting the record state.", e);
+            }
         }
 
         @Override
@@ -252,6 +275,32 @@ public final class OuterJoinRecordStateViews {
             recordState.put(record, tuple);
         }
 
+        @Override
+        public void updateNumOfAssociations(
+                List<Tuple2<RowData, Integer>> recordsAndNumOfAssociations) throws Exception {
+            // records which appear several times get the number of associations of the last one
+            Map<RowData, Integer> numOfAssociations =
+                    new LinkedHashMap<>(recordsAndNumOfAssociations.size());
+            for (Tuple2<RowData, Integer> recordAndNumOfAssociations :
+                    recordsAndNumOfAssociations) {
+                numOfAssociations.put(recordAndNumOfAssociations.f0, recordAndNumOfAssociations.f1);
+            }
+
+            Map<RowData, Tuple2<Integer, Integer>> tuples =
+                    internalRecordState.getAll(numOfAssociations.keySet());
+            for (Map.Entry<RowData, Integer> entry : numOfAssociations.entrySet()) {
+                RowData record = entry.getKey();
+                Tuple2<Integer, Integer> tuple = tuples.get(record);
+                if (tuple != null) {
+                    tuple.f1 = entry.getValue();
+                } else {
+                    // compatible for state ttl
+                    tuple = Tuple2.of(1, entry.getValue());
+                }
+                recordState.put(record, tuple);
+            }
+        }
+
         @Override
         public void retractRecord(RowData record) throws Exception {
             Tuple2<Integer, Integer> tuple = recordState.get(record);
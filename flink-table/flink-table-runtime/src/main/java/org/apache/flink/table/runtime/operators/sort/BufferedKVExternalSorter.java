@@ -106,7 +106,7 @@ public class BufferedKVExternalSorter {
         this.compressionCodecFactory =
                 this.compressionEnable
                         ? BlockCompressionFactory.createBlockCompressionFactory(
-                                BlockCompressionFactory.CompressionFactoryName.LZ4.toString())
+                                conf.get(ExecutionConfigOptions.TABLE_EXEC_SPILL_COMPRESSION_CODEC))
                         : null;
         this.compressionBlockSize =
                 (int)
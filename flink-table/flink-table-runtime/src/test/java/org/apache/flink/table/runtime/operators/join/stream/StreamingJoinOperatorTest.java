@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.join.stream;
+
+import org.apache.flink.streaming.util.KeyedTwoInputStreamOperatorTestHarness;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.generated.GeneratedJoinCondition;
+import org.apache.flink.table.runtime.keyselector.RowDataKeySelector;
+import org.apache.flink.table.runtime.operators.join.stream.state.JoinInputSideSpec;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.util.RowDataHarnessAssertor;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.VarCharType;
+import org.apache.flink.table.utils.HandwrittenSelectorUtil;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.deleteRecord;
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.insertRecord;
+
+/** Tests for {@link StreamingJoinOperator}. */
+public class StreamingJoinOperatorTest {
+
+    private static final InternalTypeInfo<RowData> INPUT_ROW_TYPE =
+            InternalTypeInfo.ofFields(new BigIntType(), VarCharType.STRING_TYPE);
+
+    private static final InternalTypeInfo<RowData> OUTPUT_ROW_TYPE =
+            InternalTypeInfo.ofFields(
+                    new BigIntType(),
+                    VarCharType.STRING_TYPE,
+                    new BigIntType(),
+                    VarCharType.STRING_TYPE);
+
+    private static final RowDataHarnessAssertor ASSERTER =
+            new RowDataHarnessAssertor(OUTPUT_ROW_TYPE.toRowFieldTypes());
+
+    /**
+     * Tests that the number of associations of duplicated records without unique key is kept
+     * correctly when the records are matched and unmatched by records of the other side.
+     */
+    @Test
+    public void testFullOuterJoinWithDuplicatedRecords() throws Exception {
+        KeyedTwoInputStreamOperatorTestHarness<RowData, RowData, RowData, RowData> testHarness =
+                createTestHarness();
+        testHarness.open();
+
+        List<Object> expectedOutput = new ArrayList<>();
+
+        testHarness.processElement1(insertRecord(1L, "k1"));
+        testHarness.processElement1(insertRecord(1L, "k1"));
+        testHarness.processElement1(insertRecord(2L, "k1"));
+        expectedOutput.add(insertRecord(1L, "k1", null, null));
+        expectedOutput.add(insertRecord(1L, "k1", null, null));
+        expectedOutput.add(insertRecord(2L, "k1", null, null));
+        ASSERTER.assertOutputEqualsSorted("output wrong.", expectedOutput, testHarness.getOutput());
+
+        // all left records become associated
+        testHarness.processElement2(insertRecord(10L, "k1"));
+        expectedOutput.add(deleteRecord(1L, "k1", null, null));
+        expectedOutput.add(deleteRecord(1L, "k1", null, null));
+        expectedOutput.add(deleteRecord(2L, "k1", null, null));
+        expectedOutput.add(insertRecord(1L, "k1", 10L, "k1"));
+        expectedOutput.add(insertRecord(1L, "k1", 10L, "k1"));
+        expectedOutput.add(insertRecord(2L, "k1", 10L, "k1"));
+        ASSERTER.assertOutputEqualsSorted("output wrong.", expectedOutput, testHarness.getOutput());
+
+        // all left records become unassociated again
+        testHarness.processElement2(deleteRecord(10L, "k1"));
+        expectedOutput.add(deleteRecord(1L, "k1", 10L, "k1"));
+        expectedOutput.add(deleteRecord(1L, "k1", 10L, "k1"));
+        expectedOutput.add(deleteRecord(2L, "k1", 10L, "k1"));
+        expectedOutput.add(insertRecord(1L, "k1", null, null));
+        expectedOutput.add(insertRecord(1L, "k1", null, null));
+        expectedOutput.add(insertRecord(2L, "k1", null, null));
+        ASSERTER.assertOutputEqualsSorted("output wrong.", expectedOutput, testHarness.getOutput());
+
+        // the duplicate is still counted after the updates of the associations
+        testHarness.processElement1(deleteRecord(1L, "k1"));
+        expectedOutput.add(deleteRecord(1L, "k1", null, null));
+        testHarness.processElement2(insertRecord(20L, "k1"));
+        expectedOutput.add(deleteRecord(1L, "k1", null, null));
+        expectedOutput.add(deleteRecord(2L, "k1", null, null));
+        expectedOutput.add(insertRecord(1L, "k1", 20L, "k1"));
+        expectedOutput.add(insertRecord(2L, "k1", 20L, "k1"));
+        ASSERTER.assertOutputEqualsSorted("output wrong.", expectedOutput, testHarness.getOutput());
+
+        testHarness.close();
+    }
+
+    private KeyedTwoInputStreamOperatorTestHarness<RowData, RowData, RowData, RowData>
+            createTestHarness() throws Exception {
+        String funcCode =
+                "public class TestJoinCondition extends org.apache.flink.api.common.functions.AbstractRichFunction "
+                        + "implements org.apache.flink.table.runtime.generated.JoinCondition {\n"
+                        + "\n"
+                        + "    public TestJoinCondition(Object[] reference) {\n"
+                        + "    }\n"
+                        + "\n"
+                        + "    @Override\n"
+                        + "    public boolean apply(org.apache.flink.table.data.RowData in1, org.apache.flink.table.data.RowData in2) {\n"
+                        + "        return true;\n"
+                        + "    }\n"
+                        + "}\n";
+        GeneratedJoinCondition joinCondition =
+                new GeneratedJoinCondition("TestJoinCondition", funcCode, new Object[0]);
+        RowDataKeySelector keySelector =
+                HandwrittenSelectorUtil.getRowDataSelector(
+                        new int[] {1}, INPUT_ROW_TYPE.toRowFieldTypes());
+        StreamingJoinOperator operator =
+                new StreamingJoinOperator(
+                        INPUT_ROW_TYPE,
+                        INPUT_ROW_TYPE,
+                        joinCondition,
+                        JoinInputSideSpec.withoutUniqueKey(),
+                        JoinInputSideSpec.withoutUniqueKey(),
+                        true,
+                        true,
+                        new boolean[] {true},
+                        0);
+        return new KeyedTwoInputStreamOperatorTestHarness<>(
+                operator, keySelector, keySelector, keySelector.getProducedType());
+    }
+}